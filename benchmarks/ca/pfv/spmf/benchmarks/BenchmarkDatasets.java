@@ -0,0 +1,172 @@
+package ca.pfv.spmf.benchmarks;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import ca.pfv.spmf.tools.dataset_generator.SequenceDatabaseGenerator;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatasetUtilityGenerator;
+
+/**
+ * This class generates the datasets used by the benchmarks, using the dataset
+ * generators of SPMF with a fixed seed, so that each run of a benchmark uses
+ * the same data. A dataset is generated only once per JVM and is stored in the
+ * temporary directory. <br/>
+ * <br/>
+ * 
+ * The density of a dataset is the average proportion of the distinct items
+ * that appear in a transaction (or in an itemset of a sequence). A sparse
+ * dataset (e.g. 0.01) has many short transactions and is mostly mined
+ * efficiently by pattern-growth algorithms, while a dense dataset (e.g. 0.3)
+ * has long transactions and many long frequent patterns. <br/>
+ * <br/>
+ * 
+ * The benchmarks are kept in a separate source folder (benchmarks) so that
+ * spmf.jar does not depend on JMH. In the IDE, the module uses the libraries
+ * jmh-core and jmh-generator-annprocess 1.37 (see .idea/libraries and
+ * .idea/compiler.xml). From a shell, with JMH=the jars of these two libraries
+ * (and of jopt-simple and commons-math3) separated by ':', run: <br/>
+ * javac -cp spmf.jar:$JMH -processorpath $JMH -d bench benchmarks/ca/pfv/spmf/benchmarks/*.java <br/>
+ * java -cp bench:spmf.jar:$JMH org.openjdk.jmh.Main ItemsetMining -p density=0.1
+ * 
+ * @author Philippe Fournier-Viger
+ */
+public final class BenchmarkDatasets {
+
+	/** the seed used by the dataset generators */
+	private static final long SEED = 20240101L;
+
+	/** the number of distinct items in the generated datasets */
+	public static final int DISTINCT_ITEMS = 100;
+
+	/** the datasets that have already been generated, by name */
+	private static final Map<String, String> generated = new HashMap<String, String>();
+
+	/**
+	 * Private constructor, since this class only has static methods
+	 */
+	private BenchmarkDatasets() {
+	}
+
+	/**
+	 * Get a transaction database
+	 * 
+	 * @param transactionCount the number of transactions
+	 * @param density          the density in ]0,1]
+	 * @return the path of the database in SPMF format
+	 * @throws IOException if an error occurs while writing the file
+	 */
+	public static synchronized String getTransactionDatabase(int transactionCount, double density)
+			throws IOException {
+		String name = "spmf_bench_transactions_" + transactionCount + "_" + density + ".txt";
+		String path = generated.get(name);
+		if (path == null) {
+			path = new File(System.getProperty("java.io.tmpdir"), name).getAbsolutePath();
+			TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+			generator.setSeed(SEED);
+			generator.generateDatabase(transactionCount, DISTINCT_ITEMS, maxItemCount(density), path);
+			generated.put(name, path);
+		}
+		return path;
+	}
+
+	/**
+	 * Get a transaction database with utility values
+	 * 
+	 * @param transactionCount the number of transactions
+	 * @param density          the density in ]0,1]
+	 * @return the path of the database in SPMF format
+	 * @throws IOException if an error occurs while writing the file
+	 */
+	public static synchronized String getUtilityDatabase(int transactionCount, double density) throws IOException {
+		String name = "spmf_bench_utility_" + transactionCount + "_" + density + ".txt";
+		String path = generated.get(name);
+		if (path == null) {
+			path = new File(System.getProperty("java.io.tmpdir"), name).getAbsolutePath();
+			TransactionDatasetUtilityGenerator generator = new TransactionDatasetUtilityGenerator();
+			generator.setSeed(SEED);
+			generator.convert(getTransactionDatabase(transactionCount, density), path, 10, 1d);
+			generated.put(name, path);
+		}
+		return path;
+	}
+
+	/**
+	 * Get a sequence database
+	 * 
+	 * @param sequenceCount the number of sequences
+	 * @param density       the density in ]0,1] (for each itemset)
+	 * @param itemsetCount  the number of itemsets per sequence
+	 * @return the path of the database in SPMF format
+	 * @throws IOException if an error occurs while writing the file
+	 */
+	public static synchronized String getSequenceDatabase(int sequenceCount, double density, int itemsetCount)
+			throws IOException {
+		String name = "spmf_bench_sequences_" + sequenceCount + "_" + density + "_" + itemsetCount + ".txt";
+		String path = generated.get(name);
+		if (path == null) {
+			path = new File(System.getProperty("java.io.tmpdir"), name).getAbsolutePath();
+			SequenceDatabaseGenerator generator = new SequenceDatabaseGenerator();
+			generator.setSeed(SEED);
+			generator.generateDatabase(sequenceCount, DISTINCT_ITEMS, maxItemCount(density), itemsetCount, path,
+					false);
+			generated.put(name, path);
+		}
+		return path;
+	}
+
+	/**
+	 * Calculate the total utility of a transaction database with utility values
+	 * (the sum of the transaction utilities), which is used to express a minimum
+	 * utility threshold as a proportion of the database utility
+	 * 
+	 * @param path the path of the database
+	 * @return the total utility
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public static long getTotalUtility(String path) throws IOException {
+		long total = 0;
+		try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+					continue;
+				}
+				total += Long.parseLong(line.split(":")[1]);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Convert a density to the maximum number of items per transaction given to
+	 * the generators (the number of items is uniformly distributed between 1 and
+	 * this value, so the average is about half of it)
+	 * 
+	 * @param density the density
+	 * @return the maximum number of items
+	 */
+	private static int maxItemCount(double density) {
+		return Math.max(1, (int) Math.round(2 * density * DISTINCT_ITEMS));
+	}
+}
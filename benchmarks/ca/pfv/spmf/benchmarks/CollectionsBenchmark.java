@@ -0,0 +1,167 @@
+package ca.pfv.spmf.benchmarks;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.datastructures.collections.list.ArrayListInt;
+import ca.pfv.spmf.datastructures.collections.map.AMapIntToInt;
+import ca.pfv.spmf.datastructures.collections.map.LMapIntToInt;
+import ca.pfv.spmf.datastructures.collections.map.MapIntToInt;
+
+/**
+ * Benchmark of the primitive collections of SPMF (in
+ * ca.pfv.spmf.datastructures.collections) compared with the collections of
+ * the JDK, for the operations that are the most used by the algorithms:
+ * counting the support of items in a map, and appending and reading integers
+ * in a list. The keys are drawn from a fixed seed, and the proportion of
+ * distinct keys can be varied.
+ * 
+ * @author Philippe Fournier-Viger
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CollectionsBenchmark {
+
+	/** the number of operations in each benchmark */
+	@Param({ "100000" })
+	public int operationCount;
+
+	/** the number of distinct keys */
+	@Param({ "100", "10000" })
+	public int distinctKeyCount;
+
+	/** the keys of the operations */
+	private int[] keys;
+
+	/**
+	 * Generate the keys
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(20240101L);
+		keys = new int[operationCount];
+		for (int i = 0; i < operationCount; i++) {
+			keys[i] = random.nextInt(distinctKeyCount);
+		}
+	}
+
+	/**
+	 * Count the occurrences of each key in a map
+	 * 
+	 * @param map the map
+	 * @return the count of the first key (so that the work is not eliminated)
+	 */
+	private int countKeys(MapIntToInt map) {
+		for (int key : keys) {
+			map.getAndIncreaseValueBy(key, 1);
+		}
+		return map.get(keys[0]);
+	}
+
+	/**
+	 * Count the keys with an array map
+	 * 
+	 * @return the count of the first key
+	 */
+	@Benchmark
+	public int countWithAMapIntToInt() {
+		return countKeys(new AMapIntToInt());
+	}
+
+	/**
+	 * Count the keys with a hash map using linear probing
+	 * 
+	 * @return the count of the first key
+	 */
+	@Benchmark
+	public int countWithLMapIntToInt() {
+		return countKeys(new LMapIntToInt());
+	}
+
+	/**
+	 * Count the keys with a HashMap of the JDK
+	 * 
+	 * @return the count of the first key
+	 */
+	@Benchmark
+	public int countWithHashMap() {
+		Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+		for (int key : keys) {
+			map.merge(key, 1, Integer::sum);
+		}
+		return map.get(keys[0]);
+	}
+
+	/**
+	 * Append the keys to a list of primitive integers and then read them
+	 * 
+	 * @return the sum of the keys
+	 */
+	@Benchmark
+	public long addAndGetWithArrayListInt() {
+		ArrayListInt list = new ArrayListInt();
+		for (int key : keys) {
+			list.add(key);
+		}
+		long sum = 0;
+		for (int i = 0; i < list.size(); i++) {
+			sum += list.get(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * Append the keys to an ArrayList of the JDK and then read them
+	 * 
+	 * @return the sum of the keys
+	 */
+	@Benchmark
+	public long addAndGetWithArrayList() {
+		List<Integer> list = new ArrayList<Integer>();
+		for (int key : keys) {
+			list.add(key);
+		}
+		long sum = 0;
+		for (int i = 0; i < list.size(); i++) {
+			sum += list.get(i);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,125 @@
+package ca.pfv.spmf.benchmarks;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.efim.AlgoEFIM;
+import ca.pfv.spmf.algorithms.frequentpatterns.hui_miner.AlgoFHM;
+import ca.pfv.spmf.patterns.sink.CountingPatternSink;
+
+/**
+ * Benchmark of high utility itemset mining algorithms (EFIM and FHM) on
+ * generated transaction databases with utility values of various densities.
+ * The minimum utility threshold is given as a proportion of the total utility
+ * of the database. FHM can only save its results to a file, which is written
+ * to the temporary directory.
+ * 
+ * @author Philippe Fournier-Viger
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class HighUtilityMiningBenchmark {
+
+	/** the number of transactions */
+	@Param({ "10000" })
+	public int transactionCount;
+
+	/** the density of the database */
+	@Param({ "0.02", "0.05", "0.15" })
+	public double density;
+
+	/** the minimum utility threshold, as a proportion of the total utility */
+	@Param({ "0.001", "0.01" })
+	public double minUtilityRatio;
+
+	/** the path of the database */
+	private String input;
+
+	/** the minimum utility threshold */
+	private int minUtility;
+
+	/** the output file of FHM */
+	private File output;
+
+	/**
+	 * Generate the database
+	 * 
+	 * @throws IOException if an error occurs while generating the database
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		input = BenchmarkDatasets.getUtilityDatabase(transactionCount, density);
+		minUtility = (int) Math.min(Integer.MAX_VALUE,
+				Math.ceil(minUtilityRatio * BenchmarkDatasets.getTotalUtility(input)));
+		output = File.createTempFile("spmf_bench_fhm", ".txt");
+	}
+
+	/**
+	 * Delete the output file
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		output.delete();
+	}
+
+	/**
+	 * Benchmark EFIM with all its optimizations
+	 * 
+	 * @return the number of patterns
+	 * @throws IOException if an error occurs while reading the database
+	 */
+	@Benchmark
+	public long efim() throws IOException {
+		CountingPatternSink sink = new CountingPatternSink();
+		new AlgoEFIM().runAlgorithmWithSink(minUtility, input, sink, true, Integer.MAX_VALUE, true);
+		return sink.getPatternCount();
+	}
+
+	/**
+	 * Benchmark FHM
+	 * 
+	 * @return the number of patterns
+	 * @throws IOException if an error occurs while reading the database
+	 */
+	@Benchmark
+	public int fhm() throws IOException {
+		AlgoFHM algo = new AlgoFHM();
+		algo.runAlgorithm(input, output.getPath(), minUtility);
+		return algo.huiCount;
+	}
+}
@@ -0,0 +1,128 @@
+package ca.pfv.spmf.benchmarks;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoEclat_Bitset;
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+import ca.pfv.spmf.algorithms.frequentpatterns.lcm.AlgoLCM;
+import ca.pfv.spmf.algorithms.frequentpatterns.lcm.Dataset;
+import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.patterns.sink.CountingPatternSink;
+
+/**
+ * Benchmark of frequent itemset mining algorithms (FPGrowth, Eclat with
+ * bitsets and LCM) on generated transaction databases of various densities.
+ * The algorithms keep their results in memory (or count them), so that the
+ * time to write the output file is not measured. Each benchmark returns the
+ * number of patterns found, so that the results of the algorithms can also be
+ * compared.
+ * 
+ * @author Philippe Fournier-Viger
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ItemsetMiningBenchmark {
+
+	/** the number of transactions */
+	@Param({ "10000" })
+	public int transactionCount;
+
+	/** the density of the database */
+	@Param({ "0.02", "0.05", "0.15" })
+	public double density;
+
+	/** the minimum support threshold */
+	@Param({ "0.01", "0.05" })
+	public double minsup;
+
+	/** the path of the database */
+	private String input;
+
+	/** the database, as used by Eclat */
+	private TransactionDatabase database;
+
+	/** the database, as used by LCM */
+	private Dataset dataset;
+
+	/**
+	 * Generate and load the database
+	 * 
+	 * @throws IOException if an error occurs while generating the database
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		input = BenchmarkDatasets.getTransactionDatabase(transactionCount, density);
+		database = new TransactionDatabase();
+		database.loadFile(input);
+		dataset = new Dataset(input);
+	}
+
+	/**
+	 * Benchmark FPGrowth (including reading the database)
+	 * 
+	 * @return the number of patterns
+	 * @throws IOException if an error occurs while reading the database
+	 */
+	@Benchmark
+	public long fpGrowth() throws IOException {
+		CountingPatternSink sink = new CountingPatternSink();
+		new AlgoFPGrowth().runAlgorithmWithSink(input, sink, minsup);
+		return sink.getPatternCount();
+	}
+
+	/**
+	 * Benchmark Eclat with bitsets (the database is already loaded)
+	 * 
+	 * @return the number of patterns
+	 * @throws IOException if an error occurs
+	 */
+	@Benchmark
+	public int eclatBitset() throws IOException {
+		return new AlgoEclat_Bitset().runAlgorithm(null, database, minsup, true).getItemsetsCount();
+	}
+
+	/**
+	 * Benchmark LCM (the database is already loaded)
+	 * 
+	 * @return the number of patterns
+	 * @throws IOException if an error occurs
+	 */
+	@Benchmark
+	public int lcm() throws IOException {
+		return new AlgoLCM().runAlgorithm(minsup, dataset, null).getItemsetsCount();
+	}
+}
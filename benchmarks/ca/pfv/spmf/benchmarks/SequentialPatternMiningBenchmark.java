@@ -0,0 +1,122 @@
+package ca.pfv.spmf.benchmarks;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan.AlgoPrefixSpan;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spam.AlgoCMSPAM;
+import ca.pfv.spmf.patterns.sink.CountingPatternSink;
+
+/**
+ * Benchmark of sequential pattern mining algorithms (PrefixSpan and CM-SPAM)
+ * on generated sequence databases of various densities. CM-SPAM can only save
+ * its results to a file, which is written to the temporary directory.
+ * 
+ * @author Philippe Fournier-Viger
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class SequentialPatternMiningBenchmark {
+
+	/** the number of sequences */
+	@Param({ "5000" })
+	public int sequenceCount;
+
+	/** the number of itemsets per sequence */
+	@Param({ "10" })
+	public int itemsetCount;
+
+	/** the density of each itemset */
+	@Param({ "0.01", "0.02", "0.03" })
+	public double density;
+
+	/** the minimum support threshold */
+	@Param({ "0.1", "0.3" })
+	public double minsup;
+
+	/** the path of the database */
+	private String input;
+
+	/** the output file of CM-SPAM */
+	private File output;
+
+	/**
+	 * Generate the database
+	 * 
+	 * @throws IOException if an error occurs while generating the database
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		input = BenchmarkDatasets.getSequenceDatabase(sequenceCount, density, itemsetCount);
+		output = File.createTempFile("spmf_bench_cmspam", ".txt");
+	}
+
+	/**
+	 * Delete the output file
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		output.delete();
+	}
+
+	/**
+	 * Benchmark PrefixSpan
+	 * 
+	 * @return the number of patterns
+	 * @throws IOException if an error occurs while reading the database
+	 */
+	@Benchmark
+	public long prefixSpan() throws IOException {
+		CountingPatternSink sink = new CountingPatternSink();
+		new AlgoPrefixSpan().runAlgorithmWithSink(input, minsup, sink);
+		return sink.getPatternCount();
+	}
+
+	/**
+	 * Benchmark CM-SPAM
+	 * 
+	 * @return the number of patterns
+	 * @throws IOException if an error occurs while reading the database
+	 */
+	@Benchmark
+	public int cmSpam() throws IOException {
+		AlgoCMSPAM algo = new AlgoCMSPAM();
+		algo.runAlgorithm(input, output.getPath(), minsup, false);
+		return algo.patternCount;
+	}
+}
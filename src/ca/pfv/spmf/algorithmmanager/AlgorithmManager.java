@@ -1,14 +1,23 @@
 package ca.pfv.spmf.algorithmmanager;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -30,7 +39,18 @@ import java.util.jar.JarFile;
  */
 /**
  * This class is used to load the list of all available algorithms available in
- * SPMF.
+ * SPMF. <br/>
+ * <br/>
+ * 
+ * To start quickly, the list is read from an index file (algorithms_index.txt,
+ * in this package), which gives the name, category, type, input and output
+ * file types and class name of each algorithm. The description of an
+ * algorithm (a DescriptionOfAlgorithm object) is only created when it is
+ * requested. The index is generated by calling the main method of this class,
+ * and should be generated again when an algorithm is added. If the index is
+ * not found, or if it does not have the same number of algorithms as the
+ * package of descriptions (when SPMF is not run from a jar file), all the
+ * descriptions are loaded as before.
  * 
  * @see DescriptionOfAlgorithm
  * @author Philippe Fournier-Viger 2016
@@ -38,8 +58,113 @@ import java.util.jar.JarFile;
 
 public class AlgorithmManager {
 
-	/** List of algorithms available in SPMF */
-	List<DescriptionOfAlgorithm> algorithms;
+	/** The package containing the descriptions of algorithms */
+	private static final String DESCRIPTIONS_PACKAGE = "ca.pfv.spmf.algorithmmanager.descriptions.";
+
+	/** The name of the index file, in the same package as this class */
+	public static final String INDEX_FILE_NAME = "algorithms_index.txt";
+
+	/** The separator of values in the index file */
+	private static final String SEPARATOR = "\t";
+
+	/** The separator of file types in the index file */
+	private static final String TYPE_SEPARATOR = "|";
+
+	/** The value representing a null type or a null array of file types in the index file */
+	private static final String NULL_TYPES = "-";
+
+	/**
+	 * An algorithm in the index. The description of the algorithm is created the
+	 * first time that it is requested.
+	 */
+	static class IndexEntry {
+		/** the name of the algorithm */
+		final String name;
+		/** the category of the algorithm */
+		final String category;
+		/** the type of the algorithm */
+		final AlgorithmType type;
+		/** the types of input files */
+		final String[] inputFileTypes;
+		/** the types of output files */
+		final String[] outputFileTypes;
+		/** the name of the class of the description */
+		final String className;
+		/** the description (null if it has not been created yet) */
+		DescriptionOfAlgorithm description;
+
+		/**
+		 * Constructor from a description
+		 * 
+		 * @param description the description of an algorithm
+		 */
+		IndexEntry(DescriptionOfAlgorithm description) {
+			this.name = description.getName();
+			this.category = description.getAlgorithmCategory();
+			this.type = description.getAlgorithmType();
+			this.inputFileTypes = description.getInputFileTypes();
+			this.outputFileTypes = description.getOutputFileTypes();
+			this.className = description.getClass().getName();
+			this.description = description;
+		}
+
+		/**
+		 * Constructor from a line of the index file
+		 * 
+		 * @param line the line
+		 */
+		IndexEntry(String line) {
+			String[] values = line.split(SEPARATOR, -1);
+			this.name = values[0];
+			this.category = values[1];
+			this.type = NULL_TYPES.equals(values[2]) ? null : AlgorithmType.valueOf(values[2]);
+			this.inputFileTypes = parseTypes(values[3]);
+			this.outputFileTypes = parseTypes(values[4]);
+			this.className = values[5];
+		}
+
+		/**
+		 * Convert this entry to a line of the index file
+		 * 
+		 * @return the line
+		 */
+		String toLine() {
+			return name + SEPARATOR + category + SEPARATOR + (type == null ? NULL_TYPES : type.name()) + SEPARATOR + typesToString(inputFileTypes)
+					+ SEPARATOR + typesToString(outputFileTypes) + SEPARATOR + className;
+		}
+
+		/**
+		 * Convert file types to a string for the index file
+		 * 
+		 * @param types the types
+		 * @return the string
+		 */
+		private static String typesToString(String[] types) {
+			return types == null ? NULL_TYPES : String.join(TYPE_SEPARATOR, types);
+		}
+
+		/**
+		 * Convert a string of the index file to file types
+		 * 
+		 * @param value the string
+		 * @return the types
+		 */
+		private static String[] parseTypes(String value) {
+			if (NULL_TYPES.equals(value)) {
+				return null;
+			}
+			if (value.isEmpty()) {
+				return new String[0];
+			}
+			return value.split("\\" + TYPE_SEPARATOR, -1);
+		}
+	}
+
+	/** List of algorithms available in SPMF, sorted by category and name */
+	List<IndexEntry> algorithms;
+
+	/** The algorithms available in SPMF, by name */
+	Map<String, IndexEntry> algorithmsByName;
 
 	/** the only instance of this class (singleton) **/
 	static AlgorithmManager instance = null;
@@ -50,31 +175,144 @@ public class AlgorithmManager {
 	 * @throws Exception
 	 */
 	private AlgorithmManager() throws Exception {
-		// Load all algorithms in the package "ca.pfv.spmf.algorithms.description."
-		algorithms = getDescriptionOfAlgorithmsInPackage("ca.pfv.spmf.algorithmmanager.descriptions.");
+		// Read the index of algorithms
+		algorithms = readIndex();
+
+		// If there is no index or it is not up to date,
+		// load all algorithms in the package "ca.pfv.spmf.algorithms.description."
+		if (algorithms == null) {
+			algorithms = new ArrayList<IndexEntry>();
+			for (DescriptionOfAlgorithm description : getDescriptionOfAlgorithmsInPackage(DESCRIPTIONS_PACKAGE)) {
+				algorithms.add(new IndexEntry(description));
+			}
+			sortAlgorithms(algorithms);
+		}
 
 		// Then we should load algorithms from Jar files in the same folder if required
 		// ....
 
+		algorithmsByName = new HashMap<String, IndexEntry>();
+		for (IndexEntry entry : algorithms) {
+			// if two algorithms have the same name, the first one is kept
+			algorithmsByName.putIfAbsent(entry.name, entry);
+		}
+	}
+
+	/**
+	 * Sort a list of algorithms by categories, and then by names
+	 * 
+	 * @param algorithms the list
+	 */
+	private static void sortAlgorithms(List<IndexEntry> algorithms) {
 		// Then, we will sort the list of algorithms by categories.
-		Collections.sort(algorithms, new Comparator<DescriptionOfAlgorithm>() {
+		Collections.sort(algorithms, new Comparator<IndexEntry>() {
 			@Override
-			public int compare(DescriptionOfAlgorithm description1, DescriptionOfAlgorithm description2) {
+			public int compare(IndexEntry description1, IndexEntry description2) {
 				// if different category, we sort by categories,
-				if (description1.getAlgorithmCategory().equals(description2.getAlgorithmCategory()) == false) {
+				if (description1.category.equals(description2.category) == false) {
 					// -----------------------------------------------------
 					// The following lines make sure that the category of algorithm "DATASET TOOLS"
 					// is always the last one in the list.
 
 					// -----------------------------------------------------
-					return description1.getAlgorithmCategory().compareTo(description2.getAlgorithmCategory());
+					return description1.category.compareTo(description2.category);
 				}
 				// otherwise we sort by name
-				return description1.getName().compareTo(description2.getName());
+				return description1.name.compareTo(description2.name);
 			}
 		});
 	}
 
+	/**
+	 * Read the index of algorithms
+	 * 
+	 * @return the list of algorithms, sorted by category and name, or null if
+	 *         the index is not found or is not up to date
+	 * @throws IOException if an error occurs while reading the index
+	 */
+	private static List<IndexEntry> readIndex() throws IOException {
+		InputStream stream = AlgorithmManager.class.getResourceAsStream(INDEX_FILE_NAME);
+		if (stream == null) {
+			return null;
+		}
+		List<IndexEntry> entries = new ArrayList<IndexEntry>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				// if the line is a comment or is empty, skip it
+				if (line.isEmpty() || line.charAt(0) == '#') {
+					continue;
+				}
+				entries.add(new IndexEntry(line));
+			}
+		}
+
+		// If the descriptions are in a folder (e.g. when running from the source
+		// code), check that no description has been added or removed since the
+		// index was generated. This does not require to load the classes.
+		URL packageURL = AlgorithmManager.class.getClassLoader()
+				.getResource(DESCRIPTIONS_PACKAGE.replace(".", "/"));
+		if (packageURL != null && packageURL.getProtocol().equals("file")) {
+			try {
+				File[] files = new File(new URI(packageURL.toString()).getPath()).listFiles();
+				int classCount = 0;
+				for (File file : files) {
+					if (file.getName().endsWith(".class")) {
+						classCount++;
+					}
+				}
+				if (classCount != entries.size()) {
+					return null;
+				}
+			} catch (Exception e) {
+				return null;
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Generate the index of algorithms, by loading the descriptions of all
+	 * algorithms.
+	 * 
+	 * @param outputPath the path of the index file to be written
+	 * @throws Exception if an error occurs while loading the descriptions or
+	 *                   writing the file
+	 */
+	public static void generateIndex(String outputPath) throws Exception {
+		List<IndexEntry> entries = new ArrayList<IndexEntry>();
+		for (DescriptionOfAlgorithm description : getDescriptionOfAlgorithmsInPackage(DESCRIPTIONS_PACKAGE)) {
+			entries.add(new IndexEntry(description));
+		}
+		sortAlgorithms(entries);
+
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputPath, StandardCharsets.UTF_8))) {
+			writer.write("# Index of the algorithms of SPMF, generated by AlgorithmManager.generateIndex()");
+			writer.newLine();
+			writer.write("# name, category, type, input file types, output file types, class name");
+			writer.newLine();
+			for (IndexEntry entry : entries) {
+				writer.write(entry.toLine());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Generate the index of algorithms. This should be done after adding or
+	 * removing an algorithm, before creating the jar file.
+	 * 
+	 * @param args the path of the index file (by default, the file in the source
+	 *             code folder of this package)
+	 * @throws Exception if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		String outputPath = args.length > 0 ? args[0]
+				: "src/ca/pfv/spmf/algorithmmanager/" + INDEX_FILE_NAME;
+		generateIndex(outputPath);
+		System.out.println("Index of algorithms written to " + outputPath);
+	}
+
 	//
 
 	/**
@@ -112,17 +350,17 @@ public class AlgorithmManager {
 		String previousCategory = null;
 
 		// for each algorithm
-		for (DescriptionOfAlgorithm algorithm : algorithms) {
+		for (IndexEntry algorithm : algorithms) {
 			// if this algorithm is of type TOOLS
-			if (AlgorithmType.DATA_GENERATOR.equals(algorithm.getAlgorithmType())
-					|| AlgorithmType.DATA_PROCESSOR.equals(algorithm.getAlgorithmType())
-					|| AlgorithmType.DATA_STATS_CALCULATOR.equals(algorithm.getAlgorithmType())
-					|| AlgorithmType.DATA_VIEWER.equals(algorithm.getAlgorithmType())) {
+			if (AlgorithmType.DATA_GENERATOR.equals(algorithm.type)
+					|| AlgorithmType.DATA_PROCESSOR.equals(algorithm.type)
+					|| AlgorithmType.DATA_STATS_CALCULATOR.equals(algorithm.type)
+					|| AlgorithmType.DATA_VIEWER.equals(algorithm.type)) {
 				// if we don't want to include the tools, we skip it
 				if (includeTools == false) {
 					continue;
 				}
-			} else if (AlgorithmType.EXPERIMENT_TOOL.equals(algorithm.getAlgorithmType())) {
+			} else if (AlgorithmType.EXPERIMENT_TOOL.equals(algorithm.type)) {
 				// if we don't want to include the tools to run experiments, we skip it
 				if (includeExperiments == false) {
 					continue;
@@ -136,13 +374,13 @@ public class AlgorithmManager {
 
 			// if this algorithm belong to a new category, we will add the category name to
 			// the list of algorithms
-			if (algorithm.getAlgorithmCategory().equals(previousCategory) == false) {
-				listOfNames.add(" --- " + algorithm.getAlgorithmCategory() + " --- ");
+			if (algorithm.category.equals(previousCategory) == false) {
+				listOfNames.add(" --- " + algorithm.category + " --- ");
 				// remember the category
-				previousCategory = algorithm.getAlgorithmCategory();
+				previousCategory = algorithm.category;
 			}
 			// Then add the algorithm name
-			listOfNames.add(algorithm.getName());
+			listOfNames.add(algorithm.name);
 
 		}
 		// Return the list
@@ -239,14 +477,31 @@ public class AlgorithmManager {
 	 *         or null if not found
 	 */
 	public DescriptionOfAlgorithm getDescriptionOfAlgorithm(String nameOfAlgorithm) {
-		for (DescriptionOfAlgorithm algorithm : algorithms) {
-			// if this algorithm belong to a new category, we will add the category name to
-			// the list of algorithms
-			if (algorithm.getName().equals(nameOfAlgorithm)) {
-				return algorithm;
+		IndexEntry entry = algorithmsByName.get(nameOfAlgorithm);
+		if (entry == null) {
+			return null;
+		}
+		return getDescription(entry);
+	}
+
+	/**
+	 * Get the description of an algorithm of the index, and create it if it was
+	 * not created before.
+	 * 
+	 * @param entry the algorithm
+	 * @return the description
+	 */
+	private synchronized DescriptionOfAlgorithm getDescription(IndexEntry entry) {
+		if (entry.description == null) {
+			try {
+				entry.description = (DescriptionOfAlgorithm) Class.forName(entry.className)
+						.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("The description of the algorithm " + entry.name
+						+ " cannot be loaded. The index of algorithms is maybe not up to date.", e);
 			}
 		}
-		return null;
+		return entry.description;
 	}
 
 	/**
@@ -261,14 +516,13 @@ public class AlgorithmManager {
 		}
 
 		String typeToSearchFor = inputtypes[inputtypes.length - 1];
-		for (DescriptionOfAlgorithm algorithm : algorithms) {
-			// if this algorithm belong to a new category, we will add the category name to
-			// the list of algorithms
-			if (AlgorithmType.DATA_VIEWER.equals(algorithm.getAlgorithmType())) {
-				String[] algoTypes = algorithm.getInputFileTypes();
+		for (IndexEntry algorithm : algorithms) {
+			// if this algorithm is a data viewer, we check if it can read the last type
+			if (AlgorithmType.DATA_VIEWER.equals(algorithm.type)) {
+				String[] algoTypes = algorithm.inputFileTypes;
 				String typeOfAlgorithm = algoTypes[algoTypes.length - 1];
 				if (typeOfAlgorithm.equals(typeToSearchFor)) {
-					return algorithm;
+					return getDescription(algorithm);
 				}
 			}
 		}
@@ -59,7 +59,7 @@ public class DescriptionAlgoAprioriTIDClose extends DescriptionOfAlgorithm {
 		double minsup = getParamAsDouble(parameters[0]);
 
 		TransactionDatabase database = new TransactionDatabase();
-		database.loadFile(inputFile);
+		database = TransactionDatabase.loadCachedFile(inputFile);
 		AlgoAprioriTIDClose algo = new AlgoAprioriTIDClose();
 		
 		if (parameters.length >=2 && "".equals(parameters[1]) == false) {
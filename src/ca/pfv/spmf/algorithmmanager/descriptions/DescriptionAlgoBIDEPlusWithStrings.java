@@ -57,8 +57,7 @@ public class DescriptionAlgoBIDEPlusWithStrings extends DescriptionOfAlgorithm {
 	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
 
 		
-		SequenceDatabase sequenceDatabase = new SequenceDatabase();
-		sequenceDatabase.loadFile(inputFile);
+		SequenceDatabase sequenceDatabase = SequenceDatabase.loadCachedFile(inputFile);
 		// sequenceDatabase.print();
 		int minsup = (int) Math
 				.ceil((getParamAsDouble(parameters[0]) * sequenceDatabase
@@ -63,7 +63,7 @@ public class DescriptionAlgoCORI extends DescriptionOfAlgorithm {
 		// Loading the transaction database
 		TransactionDatabase database = new TransactionDatabase();
 		try {
-			database.loadFile(inputFile);
+			database = TransactionDatabase.loadCachedFile(inputFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -62,7 +62,7 @@ public class DescriptionAlgoCharmBitset extends DescriptionOfAlgorithm {
 
 		TransactionDatabase database = new TransactionDatabase();
 		try {
-			database.loadFile(inputFile);
+			database = TransactionDatabase.loadCachedFile(inputFile);
 		} catch (UnsupportedEncodingException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
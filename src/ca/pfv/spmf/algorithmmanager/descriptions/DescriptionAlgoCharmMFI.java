@@ -63,7 +63,7 @@ public class DescriptionAlgoCharmMFI extends DescriptionOfAlgorithm {
 		// Loading the binary context
 		TransactionDatabase database = new TransactionDatabase();
 		try {
-			database.loadFile(inputFile);
+			database = TransactionDatabase.loadCachedFile(inputFile);
 		} catch (UnsupportedEncodingException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
@@ -65,7 +65,7 @@ public class DescriptionAlgoClosedAssociationRulesCharm extends DescriptionOfAlg
 		// Loading the transaction database
 		TransactionDatabase database = new TransactionDatabase();
 		try {
-			database.loadFile(inputFile);
+			database = TransactionDatabase.loadCachedFile(inputFile);
 		} catch (UnsupportedEncodingException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
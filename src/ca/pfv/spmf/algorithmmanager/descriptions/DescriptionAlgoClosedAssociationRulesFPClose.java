@@ -66,7 +66,7 @@ public class DescriptionAlgoClosedAssociationRulesFPClose extends DescriptionOfA
 		// Loading the transaction database
 		TransactionDatabase database = new TransactionDatabase();
 		try {
-			database.loadFile(inputFile);
+			database = TransactionDatabase.loadCachedFile(inputFile);
 		} catch (UnsupportedEncodingException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
@@ -61,7 +61,7 @@ public class DescriptionAlgoDEclat extends DescriptionOfAlgorithm {
 		// Loading the transaction database
 		TransactionDatabase database = new TransactionDatabase();
 		try {
-			database.loadFile(inputFile);
+			database = TransactionDatabase.loadCachedFile(inputFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -62,7 +62,7 @@ public class DescriptionAlgoDefMe extends DescriptionOfAlgorithm {
 		AlgoDefMe algorithm = new AlgoDefMe();
 		TransactionDatabase database = new TransactionDatabase();
 		try {
-			database.loadFile(inputFile);
+			database = TransactionDatabase.loadCachedFile(inputFile);
 		} catch (UnsupportedEncodingException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
@@ -0,0 +1,100 @@
+package ca.pfv.spmf.algorithmmanager.descriptions;
+
+import java.io.IOException;
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmType;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
+import ca.pfv.spmf.algorithms.frequentpatterns.partition.AlgoPartition;
+/* This file is copyright (c) 2008-2016 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class describes the Partition algorithm parameters. 
+ * It is designed to be used by the graphical and command line interface.
+ * 
+ * @see AlgoPartition
+ * @author Philippe Fournier-Viger
+ */
+public class DescriptionAlgoPartition extends DescriptionOfAlgorithm {
+
+	/**
+	 * Default constructor
+	 */
+	public DescriptionAlgoPartition(){
+	}
+
+	@Override
+	public String getName() {
+		return "Partition_itemsets";
+	}
+
+	@Override
+	public String getAlgorithmCategory() {
+		return "FREQUENT ITEMSET MINING";
+	}
+
+	@Override
+	public String getURLOfDocumentation() {
+		return "http://www.philippe-fournier-viger.com/spmf/index.php?link=documentation.php";
+	}
+
+	@Override
+	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
+		double minsup = getParamAsDouble(parameters[0]);
+		AlgoPartition algorithm = new AlgoPartition();
+		
+		if (parameters.length >=2 && "".equals(parameters[1]) == false) {
+			algorithm.setLocalAlgorithm(getParamAsString(parameters[1]));
+		}
+		if (parameters.length >=3 && "".equals(parameters[2]) == false) {
+			algorithm.setMaxTransactionsPerPartition(getParamAsInteger(parameters[2]));
+		}
+		algorithm.runAlgorithm(inputFile, outputFile, minsup);
+		algorithm.printStats();
+	}
+
+	@Override
+	public DescriptionOfParameter[] getParametersDescription() {
+        
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
+		parameters[1] = new DescriptionOfParameter("Algorithm for partitions", "(e.g. FPGrowth_itemsets, LCMFreq, Eclat)", String.class, true);
+		parameters[2] = new DescriptionOfParameter("Max transactions per partition", "(e.g. 100000)", Integer.class, true);
+		return parameters;
+	}
+
+	@Override
+	public String getImplementationAuthorNames() {
+		return "Philippe Fournier-Viger";
+	}
+
+	@Override
+	public String[] getInputFileTypes() {
+		return new String[]{"Database of instances","Transaction database", "Simple transaction database"};
+	}
+
+	@Override
+	public String[] getOutputFileTypes() {
+		return new String[]{"Patterns", "Frequent patterns", "Frequent itemsets"};
+	}
+
+	@Override
+	public AlgorithmType getAlgorithmType() {
+		return AlgorithmType.DATA_MINING;
+	}
+}
@@ -56,8 +56,7 @@ public class DescriptionAlgoPrefixSpanWithStrings extends DescriptionOfAlgorithm
 	@Override
 	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
 
-		SequenceDatabase sequenceDatabase = new SequenceDatabase();
-		sequenceDatabase.loadFile(inputFile);
+		SequenceDatabase sequenceDatabase = SequenceDatabase.loadCachedFile(inputFile);
 
 		// Create an instance of the algorithm with minsup = 50 %
 		AlgoPrefixSpan_with_Strings algo = new AlgoPrefixSpan_with_Strings();
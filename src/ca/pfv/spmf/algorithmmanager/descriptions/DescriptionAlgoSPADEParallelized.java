@@ -6,9 +6,8 @@ import ca.pfv.spmf.algorithmmanager.AlgorithmType;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.AlgoSPADE;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.RunContext;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator_Qualitative;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator_FatBitmap;
 /* This file is copyright (c) 2008-2016 Philippe Fournier-Viger
 * 
@@ -59,10 +58,10 @@ public class DescriptionAlgoSPADEParallelized extends DescriptionOfAlgorithm {
 
 	@Override
 	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
-		ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator abstractionCreator = ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator_Qualitative
-				.getInstance();
-		IdListCreator idListCreator = IdListCreator_FatBitmap.getInstance();
-		CandidateGenerator candidateGenerator = CandidateGenerator_Qualitative.getInstance();
+		// Each run has its own context, so that several runs can be executed at the same time
+		RunContext context = new RunContext(IdListCreator_FatBitmap.getInstance());
+		ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator abstractionCreator = context.getAbstractionCreator();
+		CandidateGenerator candidateGenerator = context.getCandidateGenerator();
 
 		double minSupport = getParamAsDouble(parameters[0]);
 
@@ -78,7 +77,7 @@ public class DescriptionAlgoSPADEParallelized extends DescriptionOfAlgorithm {
 		 * algo.setMaximumPatternLength(getParamAsInteger(parameters[1])); }
 		 */
 		ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase sd = new ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase(
-				abstractionCreator, idListCreator);
+				context);
 		sd.loadFile(inputFile, minSupport);
 
 		algo.runAlgorithmParallelized(sd, candidateGenerator, true, false, outputFile, outputSeqIdentifiers);
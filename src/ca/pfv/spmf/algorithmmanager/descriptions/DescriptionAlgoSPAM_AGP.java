@@ -22,7 +22,7 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.prefixSpan_AGP.AlgoPrefixSpan_A
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.RunContext;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator_FatBitmap;
 
 /**
@@ -58,9 +58,8 @@ public class DescriptionAlgoSPAM_AGP extends DescriptionOfAlgorithm {
 
 	@Override
 	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
-		ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator abstractionCreator = ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator_Qualitative
-				.getInstance();
-		IdListCreator idListCreator = IdListCreator_FatBitmap.getInstance();
+		// Each run has its own context, so that several runs can be executed at the same time
+		RunContext context = new RunContext(IdListCreator_FatBitmap.getInstance());
 
 		double minSupport = getParamAsDouble(parameters[0]);
 
@@ -77,7 +76,7 @@ public class DescriptionAlgoSPAM_AGP extends DescriptionOfAlgorithm {
 		 * algo.setMaximumPatternLength(getParamAsInteger(parameters[1])); }
 		 */
 		ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase sd = new ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase(
-				abstractionCreator, idListCreator);
+				context);
 		sd.loadFile(inputFile, minSupport);
 
 		algo.runAlgorithm(sd, true, false, outputFile, outputSeqIdentifiers);
@@ -0,0 +1,112 @@
+package ca.pfv.spmf.algorithmmanager.descriptions;
+
+import java.io.IOException;
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmType;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
+import ca.pfv.spmf.algorithms.frequentpatterns.sampling.AlgoSampling;
+/* This file is copyright (c) 2008-2016 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class describes the Sampling algorithm parameters. 
+ * It is designed to be used by the graphical and command line interface.
+ * 
+ * @see AlgoSampling
+ * @author Philippe Fournier-Viger
+ */
+public class DescriptionAlgoSampling extends DescriptionOfAlgorithm {
+
+	/**
+	 * Default constructor
+	 */
+	public DescriptionAlgoSampling(){
+	}
+
+	@Override
+	public String getName() {
+		return "Sampling_itemsets";
+	}
+
+	@Override
+	public String getAlgorithmCategory() {
+		return "FREQUENT ITEMSET MINING";
+	}
+
+	@Override
+	public String getURLOfDocumentation() {
+		return "http://www.philippe-fournier-viger.com/spmf/index.php?link=documentation.php";
+	}
+
+	@Override
+	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
+		double minsup = getParamAsDouble(parameters[0]);
+		AlgoSampling algorithm = new AlgoSampling();
+		
+		if (parameters.length >=2 && "".equals(parameters[1]) == false) {
+			algorithm.setLocalAlgorithm(getParamAsString(parameters[1]));
+		}
+		if (parameters.length >=3 && "".equals(parameters[2]) == false) {
+			algorithm.setEpsilon(getParamAsDouble(parameters[2]));
+		}
+		if (parameters.length >=4 && "".equals(parameters[3]) == false) {
+			algorithm.setDelta(getParamAsDouble(parameters[3]));
+		}
+		if (parameters.length >=5 && "".equals(parameters[4]) == false) {
+			algorithm.setVerification(getParamAsBoolean(parameters[4]));
+		}
+		if (parameters.length >=6 && "".equals(parameters[5]) == false) {
+			algorithm.setOutputPossiblyFrequent(getParamAsBoolean(parameters[5]));
+		}
+		algorithm.runAlgorithm(inputFile, outputFile, minsup);
+		algorithm.printStats();
+	}
+
+	@Override
+	public DescriptionOfParameter[] getParametersDescription() {
+        
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[6];
+		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
+		parameters[1] = new DescriptionOfParameter("Algorithm for the sample", "(e.g. FPGrowth_itemsets, LCMFreq, Eclat)", String.class, true);
+		parameters[2] = new DescriptionOfParameter("Epsilon", "(default: 0.01, less than minsup)", Double.class, true);
+		parameters[3] = new DescriptionOfParameter("Delta", "(default: 0.05)", Double.class, true);
+		parameters[4] = new DescriptionOfParameter("Verify supports?", "(default: true)", Boolean.class, true);
+		parameters[5] = new DescriptionOfParameter("Output minsup - epsilon?", "(default: false, if not verified)", Boolean.class, true);
+		return parameters;
+	}
+
+	@Override
+	public String getImplementationAuthorNames() {
+		return "Philippe Fournier-Viger";
+	}
+
+	@Override
+	public String[] getInputFileTypes() {
+		return new String[]{"Database of instances","Transaction database", "Simple transaction database"};
+	}
+
+	@Override
+	public String[] getOutputFileTypes() {
+		return new String[]{"Patterns", "Frequent patterns", "Frequent itemsets"};
+	}
+
+	@Override
+	public AlgorithmType getAlgorithmType() {
+		return AlgorithmType.DATA_MINING;
+	}
+}
@@ -57,8 +57,7 @@ public class DescriptionAlgoTwoPhase extends DescriptionOfAlgorithm {
 	@Override
 	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
 		int minutil = getParamAsInteger(parameters[0]);
-		ca.pfv.spmf.input.utility_transaction_database.UtilityTransactionDatabaseTP database = new ca.pfv.spmf.input.utility_transaction_database.UtilityTransactionDatabaseTP();
-		database.loadFile(inputFile);
+		ca.pfv.spmf.input.utility_transaction_database.UtilityTransactionDatabaseTP database = ca.pfv.spmf.input.utility_transaction_database.UtilityTransactionDatabaseTP.loadCachedFile(inputFile);
 
 		// Applying the Two-Phase algorithm
 		AlgoTwoPhase twoPhase = new AlgoTwoPhase();
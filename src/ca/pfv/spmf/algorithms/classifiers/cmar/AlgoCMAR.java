@@ -45,6 +45,9 @@ public class AlgoCMAR extends ClassificationAlgorithm {
 	/** delta */
 	int delta;
 	
+	/** if true, a CompactFPTree is used to mine the rules */
+	boolean useCompactTree = false;
+	
     /**
      * Default constructor
      * @param minsup minimum support
@@ -73,9 +76,19 @@ public class AlgoCMAR extends ClassificationAlgorithm {
     public ClassifierCMAR train(Dataset dataset){
     	// Apply a modified FPGrowth algorithm to obtain the rules
         FPGrowthForCMAR fpgrowth = new FPGrowthForCMAR(dataset, minSup, minConf);
+        fpgrowth.setUseCompactTree(useCompactTree);
         List<Rule> rules = fpgrowth.run();
         
         // Return a classifier that is created using these rules
         return new ClassifierCMAR(rules, dataset, delta);
     }
+
+    /**
+     * Set if a CompactFPTree should be used to mine the rules (by default, false).
+     * It uses less memory on dense datasets.
+     * @param useCompactTree true to use the compact FP-tree
+     */
+    public void setUseCompactTree(boolean useCompactTree) {
+    	this.useCompactTree = useCompactTree;
+    }
 }
\ No newline at end of file
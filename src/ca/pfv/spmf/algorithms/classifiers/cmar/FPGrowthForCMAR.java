@@ -30,6 +30,7 @@ import java.util.Map.Entry;
 import ca.pfv.spmf.algorithms.classifiers.data.Dataset;
 import ca.pfv.spmf.algorithms.classifiers.data.Instance;
 import ca.pfv.spmf.algorithms.classifiers.general.Rule;
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.CompactFPTree;
 
 /**
  * This is a modified version of FPGrowth used to mine class association rules.
@@ -39,7 +40,8 @@ import ca.pfv.spmf.algorithms.classifiers.general.Rule;
  * some minimum support and minimum confidence thresholds, respectively.
  * 
  * This implementation includes code of the normal FP-Growth implementation of
- * SPMF.
+ * SPMF. To reduce memory usage on dense datasets, a CompactFPTree can be used
+ * instead of the FPTree of this package (see setUseCompactTree()).
  * 
  * @see AlgoCMAR
  */
@@ -87,6 +89,21 @@ public class FPGrowthForCMAR {
 	 */
 	protected List<Rule> rules;
 
+	/**
+	 * If true, a CompactFPTree is used instead of a FPTree
+	 */
+	private boolean useCompactTree = false;
+
+	/**
+	 * Buffer for storing the nodes of a single path of a CompactFPTree
+	 */
+	private int[] compactNodeBuffer = null;
+
+	/**
+	 * The class value of each class index of the CompactFPTree
+	 */
+	private short[] klassOfIndex = null;
+
 	/**
 	 * Constructor
 	 * 
@@ -117,6 +134,12 @@ public class FPGrowthForCMAR {
 		// Initialize the list to store class association rules
 		rules = new ArrayList<Rule>();
 
+		// If the user wants to use the compact FP-tree
+		if (useCompactTree) {
+			runWithCompactTree();
+			return rules;
+		}
+
 		// Create the initial FP-tree
 		FPTree tree = new FPTree();
 
@@ -336,6 +359,157 @@ public class FPGrowthForCMAR {
 
 	}
 
+	/**
+	 * Build a CompactFPTree from the training dataset and mine it to find class
+	 * association rules
+	 */
+	private void runWithCompactTree() {
+		// The ranks are the frequent items (attribute values), by decreasing order of support
+		Map<Integer, Integer> mapSupportInt = new HashMap<Integer, Integer>();
+		for (Entry<Short, Long> entry : mapSupport.entrySet()) {
+			mapSupportInt.put((int) entry.getKey(), entry.getValue().intValue());
+		}
+		int[] rankToItem = CompactFPTree.rankItems(mapSupportInt, (int) minSupportRelative);
+		int[] itemToRank = CompactFPTree.createItemToRank(rankToItem);
+
+		// Each class value is replaced by an index 0, 1, 2...
+		Map<Short, Integer> mapKlassToIndex = new HashMap<Short, Integer>();
+		klassOfIndex = new short[dataset.getMapClassToFrequency().size()];
+		for (Short klass : dataset.getMapClassToFrequency().keySet()) {
+			klassOfIndex[mapKlassToIndex.size()] = klass;
+			mapKlassToIndex.put(klass, mapKlassToIndex.size());
+		}
+
+		// Create the initial FP-tree
+		CompactFPTree tree = new CompactFPTree(rankToItem, klassOfIndex.length, dataset.getInstances().size() + 1);
+		int[] ranks = new int[dataset.getAttributes().size()];
+
+		// For each instance (record)
+		for (Instance currentInstance : dataset.getInstances()) {
+			// Keep the ranks of the frequent items (attribute values) of the instance
+			int length = 0;
+			for (int j = 0; j < dataset.getAttributes().size(); j++) {
+				short item = currentInstance.getItems()[j];
+				if (mapSupport.get(item) >= minSupportRelative) {
+					ranks[length++] = itemToRank[item];
+				}
+			}
+			// sort the ranks (by descending order of support) and insert the instance
+			Arrays.sort(ranks, 0, length);
+			tree.addInstance(ranks, length, mapKlassToIndex.get(currentInstance.getKlass()));
+		}
+
+		// If the tree contains at least some frequent items
+		if (tree.getRankCount() > 0) {
+			// Two buffer are initialized
+			short[] antecedentBuffer = new short[MAX_SIZE_ANTECEDENT];
+			compactNodeBuffer = new int[MAX_SIZE_ANTECEDENT];
+
+			// Then, start to recursively mine rules in the FP-tree
+			fpgrowthCompact(tree, antecedentBuffer, 0, dataset.getInstances().size());
+		}
+	}
+
+	/**
+	 * Recursively mine a CompactFPTree to find class association rules
+	 * 
+	 * @param tree          the compact FP-Tree being mined
+	 * @param prefix        for current prefix
+	 * @param prefixLength  the length of the current prefix
+	 * @param prefixSupport support of the current prefix
+	 */
+	private void fpgrowthCompact(CompactFPTree tree, short[] prefix, int prefixLength, long prefixSupport) {
+		// Check if the maximum size has been achieved
+		if (prefixLength == MAX_SIZE_ANTECEDENT) {
+			return;
+		}
+
+		// Check if the current tree has a single path
+		int numberSingleItems = tree.getSinglePath(compactNodeBuffer);
+
+		// If it is a single path
+		if (numberSingleItems >= 0) {
+			// It will be processed as a single path
+			saveAllCombinationsOfCompactPath(tree, compactNodeBuffer, numberSingleItems, prefix, prefixLength);
+		} else {
+			// Otherwise, process each frequent item in the header table, in reverse order.
+			for (int rank = tree.getRankCount() - 1; rank >= 0; rank--) {
+				// Get the item and its support
+				long support = tree.getSupport(rank);
+
+				// Create Beta by concatening prefix by adding the current item
+				prefix[prefixLength] = (short) tree.getItem(rank);
+
+				// Calculate the support of the new prefix
+				long betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+				// Generate the rules of beta
+				Map<Short, Long> supportByKlass = new HashMap<Short, Long>();
+				for (int k = 0; k < klassOfIndex.length; k++) {
+					if (tree.getClassSupport(rank, k) > 0) {
+						supportByKlass.put(klassOfIndex[k], (long) tree.getClassSupport(rank, k));
+					}
+				}
+				generateRules(prefix, prefixLength + 1, betaSupport, supportByKlass);
+
+				// If the maximum rule antecedent size has not been reached
+				if (prefixLength + 1 < MAX_SIZE_ANTECEDENT) {
+					// Construct beta's conditional FP-Tree from its conditional pattern base
+					CompactFPTree treeBeta = tree.createConditionalTree(rank, (int) minSupportRelative);
+
+					// If the root is not empty in the new FP-Tree beta, recursively mine it
+					if (!treeBeta.isEmpty()) {
+						fpgrowthCompact(treeBeta, prefix, prefixLength + 1, betaSupport);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves all the rules for the single path of a CompactFPTree
+	 * 
+	 * @param tree         the compact FP-Tree
+	 * @param nodeBuffer   the nodes of the path
+	 * @param position     the number of nodes of the path
+	 * @param prefix       prefix itemset
+	 * @param prefixLength length of current prefix
+	 */
+	private void saveAllCombinationsOfCompactPath(CompactFPTree tree, int[] nodeBuffer, int position,
+			short[] prefix, int prefixLength) {
+
+		// Generates all subsets of the current path except the empty set.
+		loop1: for (long i = 1, max = 1 << position; i < max; i++) {
+			int newPrefixLength = prefixLength;
+			// The last node of the subset gives the support
+			int lastNode = CompactFPTree.NONE;
+
+			// Create the antecedent
+			for (int j = 0; j < position; j++) {
+				int isSet = (int) i & (1 << j);
+
+				// if yes, add the bit position as an item to the new subset
+				if (isSet > 0) {
+					if (newPrefixLength == MAX_SIZE_ANTECEDENT) {
+						continue loop1;
+					}
+
+					prefix[newPrefixLength++] = (short) tree.getNodeItem(nodeBuffer[j]);
+					lastNode = nodeBuffer[j];
+				}
+			}
+
+			// Then, generate rules using the current antecedent
+			Map<Short, Long> supportByKlass = new HashMap<Short, Long>();
+			for (int k = 0; k < klassOfIndex.length; k++) {
+				if (tree.getNodeClassCounter(lastNode, k) > 0) {
+					supportByKlass.put(klassOfIndex[k], (long) tree.getNodeClassCounter(lastNode, k));
+				}
+			}
+			generateRules(prefix, newPrefixLength, tree.getNodeCounter(lastNode), supportByKlass);
+		}
+	}
+
 	/**
 	 * Saves all the rules for current prefix with enough support
 	 * 
@@ -451,4 +625,14 @@ public class FPGrowthForCMAR {
 				rules.add(rule);
 		}
 	}
+
+	/**
+	 * Set if a CompactFPTree should be used instead of a FPTree (by default, false).
+	 * The compact FP-tree uses less memory on dense datasets.
+	 * 
+	 * @param useCompactTree true to use the compact FP-tree
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
 }
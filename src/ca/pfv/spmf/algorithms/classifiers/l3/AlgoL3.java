@@ -44,6 +44,11 @@ public class AlgoL3 extends ca.pfv.spmf.algorithms.classifiers.general.Classific
      */
     private double minConf;
     
+    /**
+     * If true, a CompactFPTree is used to mine the rules
+     */
+    private boolean useCompactTree = false;
+    
     /**
      * Default constructor
      * 
@@ -62,6 +67,7 @@ public class AlgoL3 extends ca.pfv.spmf.algorithms.classifiers.general.Classific
     @Override
     public ClassifierL3 train(Dataset training){
         FPGrowthForL3 fpgrowthMultiple = new FPGrowthForL3(training, minSup, minConf);
+        fpgrowthMultiple.setUseCompactTree(useCompactTree);
         List<Rule> rules = fpgrowthMultiple.run();
         return new ClassifierL3(training, rules);
     }
@@ -70,4 +76,13 @@ public class AlgoL3 extends ca.pfv.spmf.algorithms.classifiers.general.Classific
 	public String getName() {
 		return "L3";
 	}
+
+    /**
+     * Set if a CompactFPTree should be used to mine the rules (by default, false).
+     * It uses less memory on dense datasets.
+     * @param useCompactTree true to use the compact FP-tree
+     */
+    public void setUseCompactTree(boolean useCompactTree) {
+    	this.useCompactTree = useCompactTree;
+    }
 }
\ No newline at end of file
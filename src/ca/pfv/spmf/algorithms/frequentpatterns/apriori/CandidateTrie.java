@@ -0,0 +1,398 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.apriori;
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * This class counts the support of the candidates of an Apriori-based algorithm
+ * by storing them in a prefix trie. For each transaction, the trie is traversed
+ * with the items of the transaction, so that only the candidates contained in the transaction
+ * are visited, instead of comparing the transaction with each candidate.
+ * <br/><br/>
+ *
+ * The transactions are copied when this object is created. After the candidates of size k
+ * have been counted, the items of a transaction that appear in less than k candidates contained in
+ * that transaction are removed, since they cannot appear in a candidate of size k+1 contained in
+ * that transaction (as in the DHP algorithm). Transactions that become too short are removed.
+ * <br/><br/>
+ *
+ * The transactions can be counted by several threads, where each thread counts
+ * a partition of the transactions with its own counters, which are then added together.
+ * <br/><br/>
+ *
+ * The items of each transaction and each candidate must be sorted by lexical order.
+ *
+ * @see AlgoApriori
+ * @see Itemset
+ * @author Philippe Fournier-Viger
+ */
+public class CandidateTrie {
+
+	/** the transactions (after removing the useless items) */
+	private int[][] transactions;
+
+	/** the number of items in each transaction */
+	private int[] transactionLengths;
+
+	/** the number of transactions */
+	private int transactionCount;
+
+	/** the root of the trie of the candidates being counted */
+	private Node root;
+
+	/** the size of the candidates being counted */
+	private int candidateSize;
+
+	/** the number of threads used to count the support of candidates */
+	private int threadCount = 1;
+
+	/** the minimum number of transactions for counting with several threads */
+	private static final int MIN_TRANSACTIONS_PER_THREAD = 1000;
+
+	/**
+	 * Constructor
+	 * @param database the transactions, where each transaction is an array of items sorted by lexical order
+	 */
+	public CandidateTrie(List<int[]> database) {
+		transactions = new int[database.size()][];
+		transactionLengths = new int[database.size()];
+		for(int[] transaction : database) {
+			transactions[transactionCount] = transaction.clone();
+			transactionLengths[transactionCount] = transaction.length;
+			transactionCount++;
+		}
+	}
+
+	/**
+	 * Set the number of threads used to count the support of candidates (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Get the number of transactions that may still contain candidates.
+	 * @return the number of transactions
+	 */
+	public int getTransactionCount() {
+		return transactionCount;
+	}
+
+	/**
+	 * Count the support of some candidates having the same size, by scanning the transactions once.
+	 * The support of each candidate is increased by the number of transactions containing it.
+	 * Then the transactions are trimmed for counting candidates of a larger size.
+	 * @param candidates the candidates
+	 * @param k the size of the candidates
+	 */
+	public void countSupport(List<Itemset> candidates, int k) {
+		if(candidates.isEmpty()) {
+			return;
+		}
+		// build the trie of the candidates
+		candidateSize = k;
+		root = new Node();
+		for(int i = 0; i < candidates.size(); i++) {
+			insert(candidates.get(i).itemset, i);
+		}
+
+		int[] counts;
+		if(threadCount > 1 && transactionCount >= 2 * MIN_TRANSACTIONS_PER_THREAD) {
+			counts = countSupportParallel(candidates.size());
+		}else {
+			counts = new int[candidates.size()];
+			countPartition(0, transactionCount, counts);
+		}
+
+		// update the support of the candidates
+		for(int i = 0; i < candidates.size(); i++) {
+			candidates.get(i).support += counts[i];
+		}
+
+		// remove the transactions that cannot contain a candidate of size k+1
+		int newTransactionCount = 0;
+		for(int i = 0; i < transactionCount; i++) {
+			if(transactionLengths[i] > k) {
+				transactions[newTransactionCount] = transactions[i];
+				transactionLengths[newTransactionCount] = transactionLengths[i];
+				newTransactionCount++;
+			}
+		}
+		for(int i = newTransactionCount; i < transactionCount; i++) {
+			transactions[i] = null;
+		}
+		transactionCount = newTransactionCount;
+		root = null;
+	}
+
+	/**
+	 * Count the support of the candidates with several threads, each counting
+	 * a partition of the transactions.
+	 * @param candidateCount the number of candidates
+	 * @return the support count of each candidate
+	 */
+	private int[] countSupportParallel(final int candidateCount) {
+		// the number of partitions
+		final int partitionCount = Math.min(threadCount, transactionCount / MIN_TRANSACTIONS_PER_THREAD);
+		final int[][] partitionCounts = new int[partitionCount][];
+
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					// create a task for each partition
+					List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+					for(int p = 0; p < partitionCount; p++) {
+						final int partition = p;
+						tasks.add(new RecursiveAction() {
+							private static final long serialVersionUID = 1L;
+
+							@Override
+							protected void compute() {
+								int start = (int)((long) transactionCount * partition / partitionCount);
+								int end = (int)((long) transactionCount * (partition + 1) / partitionCount);
+								partitionCounts[partition] = new int[candidateCount];
+								countPartition(start, end, partitionCounts[partition]);
+							}
+						});
+					}
+					invokeAll(tasks);
+				}
+			});
+		}finally {
+			pool.shutdown();
+		}
+
+		// merge the counts of the partitions
+		int[] counts = partitionCounts[0];
+		for(int p = 1; p < partitionCount; p++) {
+			for(int i = 0; i < candidateCount; i++) {
+				counts[i] += partitionCounts[p][i];
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Count the candidates contained in some transactions and trim these transactions.
+	 * @param start the index of the first transaction
+	 * @param end the index after the last transaction
+	 * @param counts the support count of each candidate
+	 */
+	private void countPartition(int start, int end, int[] counts) {
+		// buffer to count the number of candidates containing each item of a transaction
+		int[] itemCounts = new int[0];
+
+		for(int i = start; i < end; i++) {
+			int[] transaction = transactions[i];
+			int length = transactionLengths[i];
+			// skip transactions shorter than k
+			if(length < candidateSize) {
+				transactionLengths[i] = 0;
+				continue;
+			}
+			if(itemCounts.length < length) {
+				itemCounts = new int[length];
+			}
+			for(int j = 0; j < length; j++) {
+				itemCounts[j] = 0;
+			}
+
+			// count the candidates contained in the transaction
+			int matched = countTransaction(root, 0, transaction, 0, length, counts, itemCounts);
+
+			// A transaction containing a candidate of size k+1 contains the k+1 subsets of
+			// size k of that candidate, which are all candidates of size k. Moreover,
+			// each item of that candidate appears in k of these subsets.
+			if(matched <= candidateSize) {
+				transactionLengths[i] = 0;
+				continue;
+			}
+			int newLength = 0;
+			for(int j = 0; j < length; j++) {
+				if(itemCounts[j] >= candidateSize) {
+					transaction[newLength++] = transaction[j];
+				}
+			}
+			transactionLengths[i] = newLength;
+		}
+	}
+
+	/**
+	 * Count the candidates below a node of the trie that are contained in a transaction.
+	 * @param node the node
+	 * @param depth the depth of the node (the number of items already matched)
+	 * @param transaction the transaction
+	 * @param start the position of the next item of the transaction to be matched
+	 * @param length the length of the transaction
+	 * @param counts the support count of each candidate
+	 * @param itemCounts the number of candidates containing each item of the transaction
+	 * @return the number of candidates below that node that are contained in the transaction
+	 */
+	private int countTransaction(Node node, int depth, int[] transaction, int start, int length,
+			int[] counts, int[] itemCounts) {
+		int matched = 0;
+		boolean isLastLevel = depth == candidateSize - 1;
+		// the items that are after this position cannot be matched
+		// because the remaining items of a candidate would not fit in the transaction
+		int end = length - (candidateSize - depth - 1);
+		int[] items = node.items;
+		int j = 0;
+		int p = start;
+		// merge the items of the transaction with the items of the children of the node
+		while(p < end && j < node.size) {
+			int item = transaction[p];
+			int nodeItem = items[j];
+			if(item < nodeItem) {
+				p++;
+			}else if(item > nodeItem) {
+				j++;
+			}else {
+				int matchedWithItem;
+				if(isLastLevel) {
+					counts[node.candidates[j]]++;
+					matchedWithItem = 1;
+				}else {
+					matchedWithItem = countTransaction(node.children[j], depth + 1, transaction, p + 1, length,
+							counts, itemCounts);
+				}
+				itemCounts[p] += matchedWithItem;
+				matched += matchedWithItem;
+				p++;
+				j++;
+			}
+		}
+		return matched;
+	}
+
+	/**
+	 * Insert a candidate in the trie
+	 * @param itemset the items of the candidate
+	 * @param index the index of the candidate
+	 */
+	private void insert(int[] itemset, int index) {
+		Node node = root;
+		for(int depth = 0; depth < candidateSize; depth++) {
+			boolean isLastLevel = depth == candidateSize - 1;
+			int position = node.getPosition(itemset[depth], isLastLevel);
+			if(isLastLevel) {
+				node.candidates[position] = index;
+			}else {
+				node = node.children[position];
+			}
+		}
+	}
+
+	/**
+	 * A node of the trie. The children of a node are sorted by item.
+	 * For a node at the last level, each child item is the last item of a candidate
+	 * and the index of that candidate is stored instead of a child node.
+	 */
+	private static class Node {
+		/** the items of the children */
+		int[] items = new int[2];
+		/** the child nodes (if the node is not at the last level) */
+		Node[] children;
+		/** the indexes of the candidates (if the node is at the last level) */
+		int[] candidates;
+		/** the number of children */
+		int size = 0;
+
+		/**
+		 * Get the position of the child of an item, and create that child if it does not exist
+		 * @param item the item
+		 * @param isLastLevel true if the node is at the last level
+		 * @return the position
+		 */
+		int getPosition(int item, boolean isLastLevel) {
+			// Since candidates are usually inserted by lexical order,
+			// we first check the last child
+			int position;
+			if(size == 0 || items[size - 1] < item) {
+				position = size;
+			}else {
+				position = binarySearch(item);
+				if(position >= 0) {
+					return position;
+				}
+				position = -(position + 1);
+			}
+
+			// insert a new child at that position
+			if(size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+				if(children != null) {
+					children = Arrays.copyOf(children, size * 2);
+				}
+				if(candidates != null) {
+					candidates = Arrays.copyOf(candidates, size * 2);
+				}
+			}
+			if(isLastLevel) {
+				if(candidates == null) {
+					candidates = new int[items.length];
+				}
+				System.arraycopy(candidates, position, candidates, position + 1, size - position);
+			}else {
+				if(children == null) {
+					children = new Node[items.length];
+				}
+				System.arraycopy(children, position, children, position + 1, size - position);
+				children[position] = new Node();
+			}
+			System.arraycopy(items, position, items, position + 1, size - position);
+			items[position] = item;
+			size++;
+			return position;
+		}
+
+		/**
+		 * Search for the child of an item
+		 * @param item the item
+		 * @return the position of that item, or (-(insertion point) - 1) if not found
+		 */
+		private int binarySearch(int item) {
+			int first = 0;
+			int last = size - 1;
+			while(first <= last) {
+				int middle = (first + last) >>> 1;
+				if(items[middle] < item) {
+					first = middle + 1;
+				}else if(items[middle] > item) {
+					last = middle - 1;
+				}else {
+					return middle;
+				}
+			}
+			return -(first + 1);
+		}
+	}
+}
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.CandidateTrie;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -80,6 +81,9 @@ public class AlgoAprioriInverse {
 	// Each position in the list represents a transaction
 	private List<int[]> database = null;
 	
+	// the number of threads used to count the support of candidates
+	private int threadCount = 1;
+	
 	// The  patterns that are found 
 	// (if the user wants to keep them into memory)
 	protected Itemsets patterns = null;
@@ -216,6 +220,12 @@ public class AlgoAprioriInverse {
 		totalCandidateCount += frequent1.size();
 		
 		
+		// Create the structure for counting the support of candidates.
+		// It keeps its own copy of the transactions, so the database is not needed anymore.
+		CandidateTrie candidateTrie = new CandidateTrie(database);
+		candidateTrie.setThreadCount(threadCount);
+		database = null;
+		
 		// Now we will perform a loop to find all frequent itemsets of size > 1
 		// starting from size k = 2.
 		// The loop will stop when no candidates can be generated.
@@ -240,36 +250,8 @@ public class AlgoAprioriInverse {
 			totalCandidateCount += candidatesK.size();
 
 			// We scan the database one time to calculate the support
-			// of each candidates and keep those with higher support.
-			// For each transaction:
-			for(int[] transaction: database){
-				// for each candidate:
-	 loopCand:	for(Itemset candidate : candidatesK){
-		 			// a variable that will be use to check if 
-		 			// all items of candidate are in this transaction
-					int pos = 0;
-					// for each item in this transaction
-					for(int item: transaction){
-						// if the item correspond to the current item of candidate
-						if(item == candidate.itemset[pos]){
-							// we will try to find the next item of candidate next
-							pos++;
-							// if we found all items of candidate in this transaction
-							if(pos == candidate.itemset.length){
-								// we increase the support of this candidate
-								candidate.support++;
-								continue loopCand;
-							}
-					    // Because of lexical order, we don't need to 
-						// continue scanning the transaction if the current item
-						// is larger than the one that we search  in candidate.
-						}else if(item > candidate.itemset[pos]){
-							continue loopCand;
-						}
-						
-					}
-				}
-			}
+			// of each candidates, using the trie of candidates.
+			candidateTrie.countSupport(candidatesK, k);
 
 			// We build the level k+1 with all the candidates that have
 			// a support higher than the minsup threshold.
@@ -482,4 +464,15 @@ public class AlgoAprioriInverse {
 		System.out.println(" Total time ~ " + (endTimestamp - startTimestamp) + " ms");
 		System.out.println("===================================================");
 	}
+	
+	/**
+	 * Set the number of threads used to count the support of candidates (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
 }
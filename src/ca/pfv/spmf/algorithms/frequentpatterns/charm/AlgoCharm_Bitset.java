@@ -19,6 +19,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -28,8 +29,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.bitsetpool.BitSetPool;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -52,6 +56,16 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This  version  saves the result to a file
  * or keep it into memory if no output path is provided
  * by the user to the runAlgorithm method().
+ * <br/><br/>
+ * 
+ * The equivalence classes of the frequent items can be mined by several threads
+ * (see setThreadCount()). The equivalence classes are first created by a single thread,
+ * since the Charm properties may remove items from the following classes, and then each class
+ * is mined by a fork/join task. Because a thread may find an itemset that is not closed 
+ * before another thread finds its closure, the itemsets found by the tasks are inserted in a 
+ * hash table that removes the subsumed itemsets, and they are only output when all tasks
+ * have finished. They can be output in the same order as with a single thread 
+ * (see setDeterministicOutput()).
  * 
  * @see TriangularMatrix
  * @see TransactionDatabase
@@ -96,8 +110,28 @@ public class AlgoCharm_Bitset {
 	/** size of the buffer*/
 	private int[] itemsetBuffer = null;
 	
+	/** The pool of bitsets used for storing the tidsets of itemsets having more than one item
+	 * (so that the bitsets of discarded itemsets can be reused) */
+	BitSetPool bitsetPool;
+	
 	/** if true, transaction identifiers of each pattern will be shown*/
 	boolean showTransactionIdentifiers = false;
+	
+	/** the number of threads used to mine the equivalence classes */
+	private int threadCount = 1;
+	
+	/** if true, the itemsets are output in the same order as with a single thread (parallel mode) */
+	private boolean deterministicOutput = false;
+	
+	/** the pool of threads (only in parallel mode) */
+	private ForkJoinPool pool = null;
+	
+	/** the pool of bitsets of each thread (only in parallel mode) */
+	private ThreadLocal<BitSetPool> threadBitsetPool = null;
+	
+	/** the position of the next itemset found by the task executed by each thread 
+	 * (only in parallel mode) */
+	private ThreadLocal<long[]> threadNextPosition = null;
 
 	
 	/**
@@ -141,6 +175,9 @@ public class AlgoCharm_Bitset {
 
 		this.database = database;
 		
+		// create the pool of bitsets
+		bitsetPool = new BitSetPool(BUFFERS_SIZE);
+		
 		// record the start time
 		startTimestamp = System.currentTimeMillis();
 		
@@ -205,140 +242,28 @@ public class AlgoCharm_Bitset {
 		// Now we will combine each pairs of single items to generate equivalence classes
 		// of 2-itemsets
 		
-		// For each frequent item X according to the total order
-		for(int i=0; i < frequentItems.size(); i++) {
-			Integer itemX = frequentItems.get(i);
-			// If the itemset is null (which means that it has been removed, then we 
-			// continue to the next item
-			if(itemX == null) {
-				continue;
-			}
-
-			// We obtain the tidset and support of that item X
-			BitSetSupport tidsetX = mapItemTIDS.get(itemX);
-			
-			// We create an itemset with the item X.
-			int[] itemsetX = new int[] {itemX};
-			
-			// We create an empty equivalence class for storing all itemsets obtained by joining
-			// X with other itemsets.
-			// This equivalence class is represented by two structures.
-			// The first structure stores the suffix of all itemsets starting with the prefix "X".
-			// For example, if X = "1" and the equivalence class contains 12, 13, 14, then
-			// the structure "equivalenceClassIitems" will only contain  2, 3 and 4 instead of
-			// 12, 13 and 14.  The reason for this implementation choice is that it is more
-			// memory efficient.
-			/// Moreover, when the charm properties requires to replace X with Xj (see the article),
-			//  it can be done very efficiently if we keep X separately.
-			List<int[]> equivalenceClassIitemsets = new ArrayList<int[]>();
-			// The second structure stores the tidset of each itemset in the equivalence class
-			// of the prefix "i"
-			List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
-			
-			// For each item itemJ that is larger than i according to the total order of
-			// increasing support.
-loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
-				Integer itemJ = frequentItems.get(j);
+		if(threadCount > 1) {
+			// mine the equivalence classes with several threads
+			processItemsParallel(frequentItems, mapItemTIDS, useTriangularMatrixOptimization);
+		}else {
+			// For each frequent item X according to the total order
+			for(int i=0; i < frequentItems.size(); i++) {
+				Integer itemX = frequentItems.get(i);
 				// If the itemset is null (which means that it has been removed, then we 
 				// continue to the next item
-				if(itemJ == null) {
+				if(itemX == null) {
 					continue;
 				}
 				
-				// If the triangular matrix optimization is activated and X is a single item
-				// we obtain the support of the pair of item "x", "j" by using the matrix. 
-				// This allows to determine
-				// directly the support without performing a join.
-				// Then if the support is less than minsup, the itemset X + j is infrequent
-				// and we don't need to consider it anymore.
-				int supportIJ = -1;
-				if(itemsetX.length == 1 && useTriangularMatrixOptimization) {
-					// check the support of {i,j} according to the triangular matrix
-					supportIJ = matrix.getSupportForItems(itemX, itemJ);
-					// if not frequent
-					if (supportIJ < minsupRelative) {
-						// skip j;
-						continue loopJ;
-					}
-				}
-				
-				// We obtain the tidset of J.
-				BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
-
-				// Calculate the tidset of itemset "X" + "J" by performing the intersection of 
-				// the tidsets of X and the tidset of J.
-				BitSetSupport bitsetSupportUnion = new BitSetSupport();
-				if(itemsetX.length == 1 && useTriangularMatrixOptimization) {
-					// If the triangular matrix optimization is used and X is a single item, then
-					// we perform the intersection but we do not calculate the support since
-					// it was already calculated using the triangular matrix
-					bitsetSupportUnion = performANDFirstTime(tidsetX, tidsetJ, supportIJ);
-				}else {
-					// Otherwise, we perform the intersection and calculate the support
-					// by calculating the cardinality of the resulting tidset.
-					bitsetSupportUnion = performAND(tidsetX, tidsetJ);
-				}
-				
-				// if the union is infrequent, we don't need to consider it further
-				if(bitsetSupportUnion.support < minsupRelative) {
-					continue;
-				}
+				// We create the equivalence class of X 
+				// (this may remove items that follow X in the total order)
+				EquivalenceClass equivalenceClass = createEquivalenceClass(i, frequentItems, mapItemTIDS, 
+						useTriangularMatrixOptimization);
 				
-				// We next check which of the four Charm properties hold
-				// If Property 1 holds
-				if(tidsetX.support == tidsetJ.support && 
-					bitsetSupportUnion.support == tidsetX.support) {
-					// We remove Xj 
-					frequentItems.set(j, null);
-					// Then, we calculate the union of X and Xj
-					int[] realUnion = new int[itemsetX.length + 1];
-					System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
-					realUnion[itemsetX.length] = itemJ;
-					// Then we replace X by the union
-					itemsetX = realUnion;
-				}else if(tidsetX.support < tidsetJ.support
-						&& bitsetSupportUnion.support == tidsetX.support) {
-					// If property 2 holds
-					// Then, we calculate the union of X and Xj
-					int[] realUnion = new int[itemsetX.length + 1];
-					System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
-					realUnion[itemsetX.length] = itemJ;
-					// Then we replace X by the union
-					itemsetX = realUnion;
-				}else if(tidsetX.support > tidsetJ.support
-						&& bitsetSupportUnion.support == tidsetJ.support) {
-					// If property 3 holds
-					// We remove Xj
-					frequentItems.set(j, null);
-					// Then, we add the itemset X + J to the equivalence class that
-					// we are building.
-					// Note that we actually only add J because we keep the prefix X for
-					// for the whole equivalence class. Thus X + J can be reconstructed at any time.
-					equivalenceClassIitemsets.add(new int[] {itemJ});
-					// We also keep the tidset of X + J
-					equivalenceClassItidsets.add(bitsetSupportUnion);
-				}else {  
-					// If property 4 holds
-					// Then, we add the itemset X + J to the equivalence class that
-					// we are building.
-					// Note that we actually only add J because we keep the prefix X for
-					// for the whole equivalence class. Thus X + J can be reconstructed at any time.
-					equivalenceClassIitemsets.add(new int[] {itemJ});
-					// We also keep the tidset of X + J
-					equivalenceClassItidsets.add(bitsetSupportUnion);
-				}
-			}
-			
-			// Process all itemsets from the equivalence class that we are building, which 
-			// has X as prefix, to find larger itemsets.
-			// Note that we only do that if the equivalence class contains at least an itemset.
-			if(equivalenceClassIitemsets.size() > 0) {
-				// call to recursive method
-				processEquivalenceClass(itemsetX, equivalenceClassIitemsets, equivalenceClassItidsets);
+				// Process all itemsets from the equivalence class that we are building, which 
+				// has X as prefix, to find larger itemsets, and save X.
+				processAndSave(equivalenceClass);
 			}
-			
-			// Save the itemset X  with its support (can be obtained from its tidset.
-			save(null, itemsetX, tidsetX);
 		}
 			
 		// close the output file if the result was saved to a file
@@ -357,6 +282,161 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	}
 
 
+	/**
+	 * Create the equivalence class of all itemsets obtained by joining a frequent item X
+	 * with the following frequent items. According to the Charm properties, the items following X
+	 * may be removed from the list of frequent items, and X may be replaced by a larger itemset.
+	 * @param i the position of the item X in the list of frequent items
+	 * @param frequentItems the frequent items sorted by the total order of increasing support
+	 * @param mapItemTIDS  the tidset of each item
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization is applied
+	 * @return the equivalence class
+	 */
+	private EquivalenceClass createEquivalenceClass(int i, List<Integer> frequentItems, 
+			Map<Integer, BitSetSupport> mapItemTIDS, boolean useTriangularMatrixOptimization) {
+		Integer itemX = frequentItems.get(i);
+
+		// We obtain the tidset and support of that item X
+		BitSetSupport tidsetX = mapItemTIDS.get(itemX);
+		
+		// We create an itemset with the item X.
+		int[] itemsetX = new int[] {itemX};
+		
+		// We create an empty equivalence class for storing all itemsets obtained by joining
+		// X with other itemsets.
+		// This equivalence class is represented by two structures.
+		// The first structure stores the suffix of all itemsets starting with the prefix "X".
+		// For example, if X = "1" and the equivalence class contains 12, 13, 14, then
+		// the structure "equivalenceClassIitems" will only contain  2, 3 and 4 instead of
+		// 12, 13 and 14.  The reason for this implementation choice is that it is more
+		// memory efficient.
+		/// Moreover, when the charm properties requires to replace X with Xj (see the article),
+		//  it can be done very efficiently if we keep X separately.
+		List<int[]> equivalenceClassIitemsets = new ArrayList<int[]>();
+		// The second structure stores the tidset of each itemset in the equivalence class
+		// of the prefix "i"
+		List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
+		
+		// For each item itemJ that is larger than i according to the total order of
+		// increasing support.
+loopJ:	for(int j=i+1; j < frequentItems.size(); j++) {
+			Integer itemJ = frequentItems.get(j);
+			// If the itemset is null (which means that it has been removed, then we 
+			// continue to the next item
+			if(itemJ == null) {
+				continue;
+			}
+			
+			// If the triangular matrix optimization is activated and X is a single item
+			// we obtain the support of the pair of item "x", "j" by using the matrix. 
+			// This allows to determine
+			// directly the support without performing a join.
+			// Then if the support is less than minsup, the itemset X + j is infrequent
+			// and we don't need to consider it anymore.
+			int supportIJ = -1;
+			if(itemsetX.length == 1 && useTriangularMatrixOptimization) {
+				// check the support of {i,j} according to the triangular matrix
+				supportIJ = matrix.getSupportForItems(itemX, itemJ);
+				// if not frequent
+				if (supportIJ < minsupRelative) {
+					// skip j;
+					continue loopJ;
+				}
+			}
+			
+			// We obtain the tidset of J.
+			BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
+
+			// Calculate the tidset of itemset "X" + "J" by performing the intersection of 
+			// the tidsets of X and the tidset of J.
+			BitSetSupport bitsetSupportUnion;
+			if(itemsetX.length == 1 && useTriangularMatrixOptimization) {
+				// If the triangular matrix optimization is used and X is a single item, then
+				// we perform the intersection but we do not calculate the support since
+				// it was already calculated using the triangular matrix
+				bitsetSupportUnion = performANDFirstTime(tidsetX, tidsetJ, supportIJ);
+			}else {
+				// Otherwise, we perform the intersection and calculate the support
+				// by calculating the cardinality of the resulting tidset.
+				bitsetSupportUnion = performAND(tidsetX, tidsetJ);
+			}
+			
+			// if the union is infrequent, we don't need to consider it further
+			if(bitsetSupportUnion.support < minsupRelative) {
+				getBitSetPool().releaseBitSet(bitsetSupportUnion.bitset);
+				continue;
+			}
+			
+			// We next check which of the four Charm properties hold
+			// If Property 1 holds
+			if(tidsetX.support == tidsetJ.support && 
+				bitsetSupportUnion.support == tidsetX.support) {
+				// We remove Xj 
+				frequentItems.set(j, null);
+				// Then, we calculate the union of X and Xj
+				int[] realUnion = new int[itemsetX.length + 1];
+				System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
+				realUnion[itemsetX.length] = itemJ;
+				// Then we replace X by the union
+				itemsetX = realUnion;
+				// The tidset of the union is the tidset of X, so it is not needed
+				getBitSetPool().releaseBitSet(bitsetSupportUnion.bitset);
+			}else if(tidsetX.support < tidsetJ.support
+					&& bitsetSupportUnion.support == tidsetX.support) {
+				// If property 2 holds
+				// Then, we calculate the union of X and Xj
+				int[] realUnion = new int[itemsetX.length + 1];
+				System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
+				realUnion[itemsetX.length] = itemJ;
+				// Then we replace X by the union
+				itemsetX = realUnion;
+				getBitSetPool().releaseBitSet(bitsetSupportUnion.bitset);
+			}else if(tidsetX.support > tidsetJ.support
+					&& bitsetSupportUnion.support == tidsetJ.support) {
+				// If property 3 holds
+				// We remove Xj
+				frequentItems.set(j, null);
+				// Then, we add the itemset X + J to the equivalence class that
+				// we are building.
+				// Note that we actually only add J because we keep the prefix X for
+				// for the whole equivalence class. Thus X + J can be reconstructed at any time.
+				equivalenceClassIitemsets.add(new int[] {itemJ});
+				// We also keep the tidset of X + J
+				equivalenceClassItidsets.add(bitsetSupportUnion);
+			}else {  
+				// If property 4 holds
+				// Then, we add the itemset X + J to the equivalence class that
+				// we are building.
+				// Note that we actually only add J because we keep the prefix X for
+				// for the whole equivalence class. Thus X + J can be reconstructed at any time.
+				equivalenceClassIitemsets.add(new int[] {itemJ});
+				// We also keep the tidset of X + J
+				equivalenceClassItidsets.add(bitsetSupportUnion);
+			}
+		}
+
+		return new EquivalenceClass(itemsetX, tidsetX, equivalenceClassIitemsets, equivalenceClassItidsets);
+	}
+
+	/**
+	 * Process all itemsets from the equivalence class of an itemset X to find larger itemsets,
+	 * and then save X.
+	 * @param equivalenceClass the equivalence class
+	 * @throws IOException if an error occurs when writing to file
+	 */
+	private void processAndSave(EquivalenceClass equivalenceClass) throws IOException {
+		// Process all itemsets from the equivalence class that we are building, which 
+		// has X as prefix, to find larger itemsets.
+		// Note that we only do that if the equivalence class contains at least an itemset.
+		if(equivalenceClass.itemsets.size() > 0) {
+			// call to recursive method
+			processEquivalenceClass(equivalenceClass.itemsetX, equivalenceClass.itemsets, equivalenceClass.tidsets);
+		}
+		
+		// Save the itemset X  with its support (can be obtained from its tidset.
+		save(null, equivalenceClass.itemsetX, equivalenceClass.tidsetX);
+	}
+
 	int calculateSupportSingleItems(TransactionDatabase database,
 			final Map<Integer, BitSetSupport> mapItemTIDS) {
 		int maxItemId = 0;
@@ -371,6 +451,7 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				// If no tidset, then we create one
 				if(tids == null){
 					tids = new BitSetSupport();
+					tids.bitset = new BitSet();
 					mapItemTIDS.put(item, tids);
 					// we remember the largest item seen until now
 					if (item > maxItemId) {
@@ -396,9 +477,10 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 */
 	BitSetSupport performANDFirstTime(BitSetSupport tidsetI,
 			BitSetSupport tidsetJ, int supportIJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
+		// Obtain a new tidset from the pool and perform the logical AND to intersect the tidset
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetI.bitset);
 		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
 		// set the support as the support provided as parameter
 		bitsetSupportIJ.support = supportIJ;
@@ -413,9 +495,10 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 * @return the resulting tidset and its support
 	 */
 	BitSetSupport performAND(BitSetSupport tidsetI,	BitSetSupport tidsetJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
+		// Obtain a new tidset from the pool and perform the logical AND to intersect the tidset
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetI.bitset);
 		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
 		// set the support as the cardinality of the new tidset
 		bitsetSupportIJ.support = bitsetSupportIJ.bitset.cardinality();
@@ -464,6 +547,9 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				// we attempt to save the itemset  prefix + itemsetI + itemsetJ
 				int[] suffixIJ = ArraysAlgos.concatenate(itemsetI, itemsetJ);
 				save(prefix, suffixIJ, bitsetSupportIJ);
+			}else {
+				// the bitset of an infrequent itemset can be reused
+				getBitSetPool().releaseBitSet(bitsetSupportIJ.bitset);
 			}
 			
 			// If the itemset prefix+I does not have the same support as prefix+I+J,
@@ -512,12 +598,12 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				BitSetSupport tidsetJ = equivalenceClassTidsets.get(j);
 				 
 				// Calculate the tidset intersection of prefix + X + J 
-				BitSetSupport bitsetSupportUnion = new BitSetSupport();
-				bitsetSupportUnion = performAND(tidsetX, tidsetJ);
+				BitSetSupport bitsetSupportUnion = performAND(tidsetX, tidsetJ);
 			
 				// If prefix + X + J  is infrequent, then we don't need
 				// to consider it anymore
 				if(bitsetSupportUnion.support < minsupRelative) {
+					getBitSetPool().releaseBitSet(bitsetSupportUnion.bitset);
 					continue;
 				}
 				
@@ -531,12 +617,15 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 					// Replace X by X + J
 					int[] realUnion = ArraysAlgos.concatenate(itemsetX, itemsetJ);
 					itemsetX = realUnion;
+					// The tidset of X + J is the tidset of X, so it is not needed
+					getBitSetPool().releaseBitSet(bitsetSupportUnion.bitset);
 				}else if(tidsetX.support < tidsetJ.support
 						&& bitsetSupportUnion.support == tidsetX.support) {
 					// If property 2 holds
 					// Replace X by X + J
 					int[] realUnion = ArraysAlgos.concatenate(itemsetX, itemsetJ);
 					itemsetX = realUnion;
+					getBitSetPool().releaseBitSet(bitsetSupportUnion.bitset);
 				}else if(tidsetX.support > tidsetJ.support
 						&& bitsetSupportUnion.support == tidsetJ.support) {
 					// If property 3 holds
@@ -617,7 +706,7 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 * of a bitset in Java is very expensive.
 	 */
 	public class BitSetSupport{
-		BitSet bitset = new BitSet();
+		BitSet bitset;
 		int support;
 	}
 	
@@ -639,41 +728,247 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 		// Sort the resulting itemset
 		Arrays.sort(prefixSuffix);
 		
+		// Calculate the hash code of that itemset 
+		int hashcode = hash.hashCode(tidset.bitset);
+		
+		// In parallel mode, the itemset is only a candidate until all the tasks have finished, 
+		// since another task may find a superset having the same support. 
+		// It is inserted in the hash table unless the table contains such a superset,
+		// and then the subsets of that itemset having the same support are removed from the table.
+		if(pool != null) {
+			BitSet tidsetToKeep = null;
+			if(writer == null) {
+				tidsetToKeep = getTidsetOfResult(tidset);
+			}else if(showTransactionIdentifiers) {
+				tidsetToKeep = tidset.bitset;
+			}
+			long position = threadNextPosition.get()[0]++;
+			hash.putIfNoSuperset(new ClosedItemsetCandidate(prefixSuffix, tidset.support, tidsetToKeep, position), hashcode);
+			return;
+		}
+		
 		// Create an instance of "Itemset" for that itemset to put in hash table
 		ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset = new ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset(prefixSuffix);
 		itemset.setAbsoluteSupport(tidset.support);
-
-		// Calculate the hash code of that itemset 
-		int hashcode = hash.hashCode(tidset.bitset);
 		
 		// Check in the hash table to see if the itemset has 
 		// a superset already in the hash table. If not, then it is
 		// a closed itemset and we should output it as well
 		// as insert it in the hash table.
 		if (!hash.containsSupersetOf(itemset, hashcode)) {
-			// increase the itemset count
-			itemsetCount++;
-			// if the result should be saved to memory
-			if (writer == null) {
-				// save it to memory with its tidset
-				Itemset itemsetWithTidset = new Itemset(prefixSuffix, tidset.bitset, tidset.support);
-				closedItemsets.addItemset(itemsetWithTidset, itemset.size());
-			} else {
-				// otherwise if the result should be saved to a file,
-				// then write it to the output file
-				writer.write(itemset.toString() + " #SUP: " + itemset.support);
-				if(showTransactionIdentifiers) {
-					BitSet bitset = tidset.bitset;
-		        	writer.append(" #TID:");
-		        	for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
-		        		writer.append(" " + tid); 
-		        	}
-				}
-				writer.newLine();
-			}
+			// output the itemset
+			writeClosedItemset(itemset, writer == null ? getTidsetOfResult(tidset) : tidset.bitset);
 			// add the itemset to the hashtable
 			hash.put(itemset, hashcode);
 		}
 	}
+	
+	/**
+	 * Write a closed itemset to the output file or to memory.
+	 * @param itemset the itemset
+	 * @param tidset the tidset of this itemset (to be saved to memory or shown in the output file)
+	 * @throws IOException if an error occurs when writing to file
+	 */
+	private void writeClosedItemset(ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset, 
+			BitSet tidset) throws IOException {
+		// increase the itemset count
+		itemsetCount++;
+		// if the result should be saved to memory
+		if (writer == null) {
+			// save it to memory with its tidset
+			Itemset itemsetWithTidset = new Itemset(itemset.getItems(), tidset, itemset.support);
+			closedItemsets.addItemset(itemsetWithTidset, itemset.size());
+		} else {
+			// otherwise if the result should be saved to a file,
+			// then write it to the output file
+			writer.write(itemset.toString() + " #SUP: " + itemset.support);
+			if(showTransactionIdentifiers) {
+	        	writer.append(" #TID:");
+	        	for (int tid = tidset.nextSetBit(0); tid != -1; tid = tidset.nextSetBit(tid + 1)) {
+	        		writer.append(" " + tid); 
+	        	}
+			}
+			writer.newLine();
+		}
+	}
+	
+	/**
+	 * Get the tidset that is kept with a closed itemset when the result is saved to memory.
+	 * @param tidset the tidset of the itemset
+	 * @return the tidset to be kept
+	 */
+	BitSet getTidsetOfResult(BitSetSupport tidset) {
+		return tidset.bitset;
+	}
+
+	/**
+	 * Mine the equivalence classes of the frequent items with several threads. The equivalence
+	 * classes are created by the current thread and each of them is then mined by a task.
+	 * @param frequentItems the frequent items sorted by the total order of increasing support
+	 * @param mapItemTIDS  the tidset of each item
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization is applied
+	 * @throws IOException if an error occurs when writing to file
+	 */
+	private void processItemsParallel(List<Integer> frequentItems, Map<Integer, BitSetSupport> mapItemTIDS,
+			boolean useTriangularMatrixOptimization) throws IOException {
+		// Create the equivalence classes. 
+		// This is done first because the Charm properties may remove items from the next classes.
+		final List<EquivalenceClass> equivalenceClasses = new ArrayList<EquivalenceClass>();
+		for(int i=0; i < frequentItems.size(); i++) {
+			if(frequentItems.get(i) != null) {
+				equivalenceClasses.add(createEquivalenceClass(i, frequentItems, mapItemTIDS, 
+						useTriangularMatrixOptimization));
+			}
+		}
+		MemoryLogger.getInstance().checkMemory();
+		
+		// each thread has its own pool of bitsets 
+		threadBitsetPool = ThreadLocal.withInitial(() -> new BitSetPool(BUFFERS_SIZE));
+		threadNextPosition = new ThreadLocal<long[]>();
+		pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try{
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					// create a task for each equivalence class
+					List<EquivalenceClassTask> tasks = new ArrayList<EquivalenceClassTask>();
+					for(int i=0; i < equivalenceClasses.size(); i++) {
+						tasks.add(new EquivalenceClassTask(equivalenceClasses.get(i), i));
+					}
+					invokeAll(tasks);
+				}
+			});
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}finally{
+			pool.shutdown();
+			pool = null;
+			threadBitsetPool = null;
+			threadNextPosition = null;
+		}
+		
+		// The itemsets that remain in the hash table are the closed itemsets
+		List<ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset> candidates = hash.getItemsets();
+		if(deterministicOutput) {
+			// sort them by the order in which they would be found by a single thread
+			Collections.sort(candidates, new Comparator<ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset>() {
+				@Override
+				public int compare(ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset arg0,
+						ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset arg1) {
+					return Long.compare(((ClosedItemsetCandidate) arg0).position, ((ClosedItemsetCandidate) arg1).position);
+				}});
+		}
+		for(ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset candidate : candidates) {
+			writeClosedItemset(candidate, ((ClosedItemsetCandidate) candidate).tidset);
+		}
+	}
+
+	/**
+	 * Get the pool of bitsets of the current thread.
+	 * @return the pool of bitsets
+	 */
+	BitSetPool getBitSetPool() {
+		return (pool == null) ? bitsetPool : threadBitsetPool.get();
+	}
+	
+	/**
+	 * Set the number of threads used to mine the equivalence classes (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set if the closed itemsets should be output in the same order as with a single thread
+	 * when several threads are used (by default, false).
+	 * @param deterministicOutput true to output the itemsets in a deterministic order
+	 */
+	public void setDeterministicOutput(boolean deterministicOutput) {
+		this.deterministicOutput = deterministicOutput;
+	}
+	
+	/**
+	 * An itemset X with its equivalence class (the itemsets obtained by joining X with
+	 * other itemsets).
+	 */
+	private static class EquivalenceClass {
+		/** the itemset X */
+		final int[] itemsetX;
+		/** the tidset of X */
+		final BitSetSupport tidsetX;
+		/** the suffixes of the itemsets of the class */
+		final List<int[]> itemsets;
+		/** the tidsets of the itemsets of the class */
+		final List<BitSetSupport> tidsets;
+
+		/**
+		 * Constructor
+		 */
+		EquivalenceClass(int[] itemsetX, BitSetSupport tidsetX, List<int[]> itemsets, List<BitSetSupport> tidsets) {
+			this.itemsetX = itemsetX;
+			this.tidsetX = tidsetX;
+			this.itemsets = itemsets;
+			this.tidsets = tidsets;
+		}
+	}
+
+	/**
+	 * A task mining an equivalence class, in parallel mode.
+	 */
+	private class EquivalenceClassTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the equivalence class */
+		private final transient EquivalenceClass equivalenceClass;
+		/** the position of the class (for ordering the itemsets) */
+		private final int position;
+
+		/**
+		 * Constructor
+		 */
+		EquivalenceClassTask(EquivalenceClass equivalenceClass, int position) {
+			this.equivalenceClass = equivalenceClass;
+			this.position = position;
+		}
+
+		@Override
+		protected void compute() {
+			// the itemsets found by this task are numbered after those of the previous classes
+			threadNextPosition.set(new long[] {((long) position) << 32});
+			try {
+				processAndSave(equivalenceClass);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				threadNextPosition.remove();
+			}
+		}
+	}
+
+	/**
+	 * A closed itemset found by a task, which may be removed from the hash table if another
+	 * task finds a superset having the same support (in parallel mode).
+	 */
+	private static class ClosedItemsetCandidate extends ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset {
+		/** the tidset of the itemset (if it must be saved) */
+		final BitSet tidset;
+		/** the order in which the itemset would be found by a single thread */
+		final long position;
+
+		/**
+		 * Constructor
+		 */
+		ClosedItemsetCandidate(int[] items, int support, BitSet tidset, long position) {
+			super(items);
+			setAbsoluteSupport(support);
+			this.tidset = tidset;
+			this.position = position;
+		}
+	}
 
 }
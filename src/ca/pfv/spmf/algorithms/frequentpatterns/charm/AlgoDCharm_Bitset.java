@@ -100,6 +100,7 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 				// If none, then we create one
 				if(tids == null){
 					tids = new BitSetSupport();
+					tids.bitset = new BitSet();
 					// For a new item, we sets all the bits of its diffset to true
 					tids.bitset.set(0, database.size(), true);
 					mapItemTIDS.put(item, tids);
@@ -129,7 +130,8 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 		// Create the new diffset 
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
 		// Calculate the diffset 
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetJ.bitset);
 		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
 		// Calculate the support
 		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -150,7 +152,8 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 		// Create the new diffset and perform the logical AND to intersect the diffsets
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
 		//Calculate the diffset
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetJ.bitset);
 		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
 		// Calculate the support
 		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -159,60 +162,15 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 	}
 
 	/**
-	 * Save an itemset(as described in the paper).
-	 * @param prefix the prefix part of this itemset
-	 * @param suffix the suffix part of this itemset
-	 * @param tidset the tidset of this itemset
-	 * @throws IOException if an error occurs when writing to file
+	 * Get the tidset that is kept with a closed itemset when the result is saved to memory.
+	 * @param tidset the diffset of the itemset
+	 * @return null
 	 */
-	void save(int[] prefix, int[] suffix, BitSetSupport tidset) throws IOException {
-		// First we concatenate the suffix and prefix of that itemset.
-		int[] prefixSuffix;
-		if(prefix == null) {
-			prefixSuffix = suffix;
-		}else {
-			prefixSuffix = ArraysAlgos.concatenate(prefix, suffix);
-		}
-		// Sort the resulting itemset
-		Arrays.sort(prefixSuffix);
-		
-		// Create an instance of "Itemset" for that itemset to put in hash table
-		ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset = new ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset(prefixSuffix);
-		itemset.setAbsoluteSupport(tidset.support);
-
-		// Calculate the hash code of that itemset 
-		int hashcode = hash.hashCode(tidset.bitset);
-		
-		// Check in the hash table to see if the itemset has 
-		// a superset already in the hash table. If not, then it is
-		// a closed itemset and we should output it as well
-		// as insert it in the hash table.
-		if (!hash.containsSupersetOf(itemset, hashcode)) {
-			// increase the itemset count
-			itemsetCount++;
-			// if the result should be saved to memory
-			if (writer == null) { 
-				// save it to memory with its tidset
-				Itemset itemsetWithTidset = new Itemset(prefixSuffix, null, tidset.support);
-				//  ^^  NOTE: IN THE LINE ABOVE WE SET THE "TIDSET" TO NULL FOR DCHARM BECAUSE
-				// IT IS NOT MEANINGFUL TO KEEP THE DIFFSET.
-				closedItemsets.addItemset(itemsetWithTidset, itemset.size()); 
-			} else {
-				// otherwise if the result should be saved to a file,
-				// then write it to the output file
-				writer.write(itemset.toString() + " #SUP: " + itemset.support);
-				if(showTransactionIdentifiers) {
-					BitSet bitset = tidset.bitset;
-		        	writer.append(" #TID:");
-		        	for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
-		        		writer.append(" " + tid); 
-		        	}
-				}
-				writer.newLine();
-			}
-			// add the itemset to the hashtable
-			hash.put(itemset, hashcode);
-		}
+	@Override
+	BitSet getTidsetOfResult(BitSetSupport tidset) {
+		// NOTE: WE SET THE "TIDSET" TO NULL FOR DCHARM BECAUSE
+		// IT IS NOT MEANINGFUL TO KEEP THE DIFFSET.
+		return null;
 	}
 
 }
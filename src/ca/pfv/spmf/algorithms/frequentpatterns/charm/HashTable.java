@@ -41,6 +41,9 @@ class HashTable {
 
 	// the internal array for the hash table
 	private List<Itemset>[] table;
+	
+	// the locks of the positions of the internal array (used by putIfNoSuperset())
+	private final Object[] locks;
 
 	/**
 	 * Construtor.
@@ -48,6 +51,10 @@ class HashTable {
 	 */
 	public HashTable(int size) {
 		table = new ArrayList[size];
+		locks = new Object[size];
+		for (int i = 0; i < size; i++) {
+			locks[i] = new Object();
+		}
 	}
 
 	/**
@@ -94,6 +101,51 @@ class HashTable {
 		table[hashcode].add(itemset);
 	}
 
+	/**
+	 * Add an itemset to the hash table if the hash table does not contain a superset
+	 * having the same support, and remove the subsets of that itemset having the same support.
+	 * This method can be called by several threads at the same time. Because an itemset and
+	 * its supersets having the same support have the same tidset, they have the same hashcode,
+	 * and only the position given by the hashcode needs to be locked.
+	 * @param itemset the itemset to be added to the hashtable
+	 * @param hashcode the hashcode of the itemset (need to be calculated before by using the
+	 *  provided hashcode() method.
+	 * @return true if the itemset was added, otherwise false.
+	 */
+	public boolean putIfNoSuperset(Itemset itemset, int hashcode) {
+		synchronized (locks[hashcode]) {
+			if (containsSupersetOf(itemset, hashcode)) {
+				return false;
+			}
+			if (table[hashcode] != null) {
+				// remove the subsets having the same support
+				for (int i = table[hashcode].size() - 1; i >= 0; i--) {
+					Itemset itemsetX = table[hashcode].get(i);
+					if (itemsetX.getAbsoluteSupport() == itemset.getAbsoluteSupport()
+							&& itemset.containsAll(itemsetX)) {
+						table[hashcode].remove(i);
+					}
+				}
+			}
+			put(itemset, hashcode);
+			return true;
+		}
+	}
+
+	/**
+	 * Get all the itemsets stored in the hash table.
+	 * @return a list of itemsets
+	 */
+	public List<Itemset> getItemsets() {
+		List<Itemset> itemsets = new ArrayList<Itemset>();
+		for (List<Itemset> list : table) {
+			if (list != null) {
+				itemsets.addAll(list);
+			}
+		}
+		return itemsets;
+	}
+
 	/**
 	 * Calculate the hashcode of an itemset as the sum of the tids of its tidset,
 	 * modulo the internal array length.
@@ -16,9 +16,6 @@ package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-import java.util.HashSet;
-import java.util.Set;
-
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -27,8 +24,9 @@ import ca.pfv.spmf.tools.MemoryLogger;
  
 
 /**
- * This is a version of the dECLAT algorithm. It uses sets of integers to represent tidsets. It 
- * extends the class AlgoDEclat to avoid redundancy of common code.
+ * This is a version of the dECLAT algorithm. It uses the tidsets of a TidsetEngine (sorted arrays
+ * or bitmaps) to represent tidsets and diffsets. It 
+ * extends the class AlgoEclat to avoid redundancy of common code.
  * Note than unlike Eclat, dEclat returns itemsets annotated with diffsets instead of tidsets.
  * About implementation details, note that this implementation uses tidsets initially for single items, 
  * then it uses diffsets starting from itemsets containing two itemsets (2-itemsets).
@@ -70,70 +68,14 @@ public class AlgoDEclat extends AlgoEclat{
 	}
 	
 	/**
-	 * This method performs the calculation of a new diffset by merging two tidsets.
-	 * Tidsets are used for single items and when we make 2-itemsets, we switch to diffsets.
-	 * @param tidsetI the first tidset/diffset
-	 * @param supportI  the cardinality of the first tidset/diffset
-	 * @param tidsetJ  the second tidset/diffset
-	 * @param supportJ the cardinality of the second tidset/diffset
-	 * @return the resulting tidset.
-	 */
-	 Set<Integer> performANDFirstTime(Set<Integer> tidsetI, int supportI,
-			Set<Integer> tidsetJ, int supportJ) {
-		// Create the new tidset that will store the difference
-		Set<Integer> diffsetIJ = new HashSet<Integer>();
-		// for each tid containing j
-		for(Integer tid : tidsetI) {
-			// if the transaction does not contain i, add it to the diffset
-			if(tidsetJ.contains(tid) == false) {
-				// add it to the intersection
-				diffsetIJ.add(tid);
-			}			
-		}
-		// return the new tidset
-		return diffsetIJ;
-	}
-
-	/**
-	 * This method performs the calculation of a new diffset by merging two tidsets/diffsets.
-	 * @param tidsetI the first tidset/diffset
-	 * @param supportI  the cardinality of the first tidset/diffset
-	 * @param tidsetJ  the second tidset/diffset
-	 * @param supportJ the cardinality of the second tidset/diffset
-	 * @return the resulting tidset.
-	 */
-	 Set<Integer> performAND(Set<Integer> tidsetI, int supportI,
-			Set<Integer> tidsetJ, int supportJ) {
-		// Create the new tidset that will store the difference
-		Set<Integer> diffsetIJ = new HashSet<Integer>();
-		// for each tid containing j
-		for(Integer tid : tidsetJ) {
-			// if the transaction does not contain i, add it to the diffset
-			if(tidsetI.contains(tid) == false) {
-				// add it to the intersection
-				diffsetIJ.add(tid);
-			}			
-		}
-		// return the new tidset
-		return diffsetIJ;
-	}
-	
-	/**
-	 * Calculate the support of an itemset X using the tidset of X if the size = 1. Otherwise uses diffsets
-	 * to calculate the support
-	 * @param lengthOfX  the length of the itemset X - 1 (used by dEclat)
-	 * @param supportPrefix the support of the prefix (not used by Eclat, but used by dEclat).
-	 * @param tidsetI the tidset of X
-	 * @return the support
+	 * dEclat always uses diffsets, starting from itemsets containing two items (2-itemsets).
+	 * @param supportPrefix the support of the prefix of the class
+	 * @param sumOfSupports the sum of the supports of the itemsets that will be joined with the prefix
+	 * @param count the number of itemsets that will be joined with the prefix
+	 * @return true
 	 */
-	int calculateSupport(int lengthOfX, int supportPrefix,  Set<Integer> tidsetX) {
-		// if length of prefix = 1 then we are using tidsets
-		if(lengthOfX == 1) {
-			return tidsetX.size();
-		}else {
-			// otherwise we are using diffsets
-			return supportPrefix - tidsetX.size();
-		}
+	boolean useDiffsets(int supportPrefix, long sumOfSupports, int count) {
+		return true;
 	}
 
 }
@@ -100,6 +100,7 @@ public class AlgoDEclat_Bitset extends AlgoEclat_Bitset{
 				// If none, then we create one
 				if(tids == null){
 					tids = new BitSetSupport();
+					tids.bitset = new BitSet();
 					// For a new item, we sets all the bits of its diffset to true
 					tids.bitset.set(0, database.size(), true);
 					mapItemTIDS.put(item, tids);
@@ -130,7 +131,8 @@ public class AlgoDEclat_Bitset extends AlgoEclat_Bitset{
 		// Create the new diffset 
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
 		// Calculate the diffset 
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetJ.bitset);
 		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
 		// Calculate the support
 		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -152,7 +154,8 @@ public class AlgoDEclat_Bitset extends AlgoEclat_Bitset{
 		// Create the new diffset and perform the logical AND to intersect the diffsets
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
 		//Calculate the diffset
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetJ.bitset);
 		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
 		// Calculate the support
 		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -23,12 +23,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
+import ca.pfv.spmf.datastructures.tidset.Tidset;
+import ca.pfv.spmf.datastructures.tidset.TidsetEngine;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -37,7 +37,10 @@ import ca.pfv.spmf.tools.MemoryLogger;
  
 
 /**
- * This is a recent version of the ECLAT algorithm. It uses sets of integers to represent tidsets.
+ * This is a recent version of the ECLAT algorithm. Tidsets are created by a TidsetEngine, which
+ * stores each tidset as a sorted array or a bitmap depending on its density. Moreover,
+ * an equivalence class switches to diffsets (as in dEclat) when its itemsets are dense, unless
+ * the transaction identifiers of each pattern must be shown.
  *  
  * Eclat was proposed by ZAKI (2000).
  * <br/><br/>
@@ -53,6 +56,7 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * by the user to the runAlgorithm method().
  * 
  * @see TriangularMatrix
+ * @see TidsetEngine
  * @see TransactionDatabase
  * @see Itemset
  * @see Itemsets
@@ -98,6 +102,9 @@ public class AlgoEclat {
 	
 	/** Special parameter to set the maximum size of itemsets to be discovered */
 	int maxItemsetSize = Integer.MAX_VALUE;
+	
+	/** the engine for creating and intersecting tidsets */
+	TidsetEngine engine;
 
 	/**
 	 * Default constructor
@@ -144,11 +151,14 @@ public class AlgoEclat {
 		// convert from an absolute minsup to a relative minsup by multiplying
 		// by the database size
 		this.minsupRelative = (int) Math.ceil(minsupp * database.size());
+		
+		// create the engine that will store the tidsets
+		engine = new TidsetEngine(database.size());
 
 		// (1) First database pass : calculate tidsets of each item.
-		// This map will contain the tidset of each item
+		// This map will contain the tidset of each frequent item
 		// Key: item   Value :  tidset
-		final Map<Integer, Set<Integer>> mapItemCount = new HashMap<Integer, Set<Integer>>();
+		final Map<Integer, Tidset> mapItemCount = new HashMap<Integer, Tidset>();
 		
 		// for each transaction
 		int maxItemId = calculateSupportSingleItems(database, mapItemCount);
@@ -181,18 +191,18 @@ public class AlgoEclat {
 		List<Integer> frequentItems = new ArrayList<Integer>();
 		
 		// for each item
-		for(Entry<Integer, Set<Integer>> entry : mapItemCount.entrySet()) {
+		for(Entry<Integer, Tidset> entry : mapItemCount.entrySet()) {
 			// get the tidset of that item
-			Set<Integer> tidset = entry.getValue();
+			Tidset tidset = entry.getValue();
 			// get the support of that item (the cardinality of the tidset)
-			int support = tidset.size();
+			int support = tidset.getCardinality();
 			int item = entry.getKey();
 			// if the item is frequent
 			if(support >= minsupRelative && maxItemsetSize >= 1) {
 				// add the item to the list of frequent single items
 				frequentItems.add(item);
 				// output the item
-				saveSingleItem(item, tidset, tidset.size());
+				saveSingleItem(item, tidset, support);
 			}
 		}
 		
@@ -201,7 +211,7 @@ public class AlgoEclat {
 		Collections.sort(frequentItems, new Comparator<Integer>() {
 			@Override
 			public int compare(Integer arg0, Integer arg1) {
-				return mapItemCount.get(arg0).size() - mapItemCount.get(arg1).size();
+				return mapItemCount.get(arg0).getCardinality() - mapItemCount.get(arg1).getCardinality();
 			}}); 
 		
 		// Now we will combine each pairs of single items to generate equivalence classes
@@ -209,12 +219,22 @@ public class AlgoEclat {
 		
 		if(maxItemsetSize >=2){
 			
+			// The sum of the supports of the items following each item in the total order.
+			// It is used to decide if an equivalence class should use diffsets.
+			long[] sumOfSupports = new long[frequentItems.size() + 1];
+			for(int i = frequentItems.size() - 1; i >= 0; i--) {
+				sumOfSupports[i] = sumOfSupports[i + 1] + mapItemCount.get(frequentItems.get(i)).getCardinality();
+			}
+			
 			// For each frequent item I according to the total order
 			for(int i=0; i < frequentItems.size(); i++) {
 				Integer itemI = frequentItems.get(i);
 				// we obtain the tidset and support of that item
-				Set<Integer> tidsetI = mapItemCount.get(itemI);
-				int supportI = tidsetI.size();
+				Tidset tidsetI = mapItemCount.get(itemI);
+				int supportI = tidsetI.getCardinality();
+				
+				// We check if the 2-itemsets starting with "i" should be represented by diffsets
+				boolean diffsets = useDiffsets(database.size(), sumOfSupports[i + 1], frequentItems.size() - i - 1);
 				
 				// We create empty equivalence class for storing all 2-itemsets starting with
 				// the item "i".
@@ -227,7 +247,7 @@ public class AlgoEclat {
 				List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
 				// The second structure stores the tidset of each 2-itemset in the equivalence class
 				// of the prefix "i".
-				List<Set<Integer>> equivalenceClassItidsets = new ArrayList<Set<Integer>>();
+				List<Tidset> equivalenceClassItidsets = new ArrayList<Tidset>();
 				
 				// For each item itemJ that is larger than i according to the total order of
 				// increasing support.
@@ -247,20 +267,20 @@ public class AlgoEclat {
 						}
 					}
 	
-					// Obtain the tidset of item J and its support.
-					Set<Integer> tidsetJ = mapItemCount.get(itemJ);
-					int supportJ = tidsetJ.size();
+					// Obtain the tidset of item J.
+					Tidset tidsetJ = mapItemCount.get(itemJ);
 					
 					// Calculate the tidset of itemset "IJ" by performing the intersection of 
-					// the tidsets of I and the tidset of J.
-					Set<Integer> tidsetIJ = performANDFirstTime(tidsetI, supportI, tidsetJ, supportJ);
+					// the tidsets of I and the tidset of J (or its diffset). The result is null if
+					// "IJ" is infrequent.
+					Tidset tidsetIJ = combine(tidsetI, supportI, tidsetJ, false, diffsets);
 					
 					// After that, we add the itemJ to the equivalence class of 2-itemsets
 					// starting with the prefix "i". Note that although we only add "j" to the
 					// equivalence class, the item "j" 
 					// actually represents the itemset "ij" since we keep the prefix "i" for the
 					// whole equilvalence class.
-					if(useTriangularMatrixOptimization || calculateSupport(2, supportI, tidsetIJ) >= minsupRelative){
+					if(tidsetIJ != null){
 					    equivalenceClassIitems.add(itemJ);
 					     // We also keep the tidset of "ij".
 					    equivalenceClassItidsets.add(tidsetIJ);
@@ -272,8 +292,10 @@ public class AlgoEclat {
 					// This is done by a recursive call. Note that we pass
 					// item I to that method as the prefix of that equivalence class.
 					itemsetBuffer[0] = itemI;
-					processEquivalenceClass(itemsetBuffer, 1, supportI, equivalenceClassIitems, equivalenceClassItidsets);
+					processEquivalenceClass(itemsetBuffer, 1, supportI, diffsets, equivalenceClassIitems, equivalenceClassItidsets);
 				}
+				// The tidsets of the equivalence class are not needed anymore
+				release(equivalenceClassItidsets);
 			}
 		}
 		
@@ -294,31 +316,48 @@ public class AlgoEclat {
 	}
 
 	/**
-	 * This method scans the database to calculate the support of each single item
+	 * This method scans the database to calculate the support and tidset of each single item
 	 * @param database the transaction database
-	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
+	 * @param mapItemTIDS  a map to store the tidset corresponding to each frequent item
 	 * @return the maximum item id appearing in this database
 	 */
 	private int calculateSupportSingleItems(TransactionDatabase database,
-			final Map<Integer, Set<Integer>> mapItemCount) {
+			final Map<Integer, Tidset> mapItemCount) {
+		// find the largest item
 		int maxItemId = 0;
+		for (List<Integer> transaction : database.getTransactions()) {
+			for (Integer item : transaction) {
+				if (item > maxItemId) {
+					maxItemId = item;
+				}
+			}
+		}
+		// count the support of each item
+		int[] supports = new int[maxItemId + 1];
+		for (List<Integer> transaction : database.getTransactions()) {
+			for (Integer item : transaction) {
+				supports[item]++;
+			}
+		}
+		// fill the tids of each frequent item
+		int[][] tids = new int[maxItemId + 1][];
+		int[] sizes = new int[maxItemId + 1];
 		for (int i = 0; i < database.size(); i++) {
 			// for each item in that transaction
 			for (Integer item : database.getTransactions().get(i)) {
-				// get the current tidset of that item
-				Set<Integer> set = mapItemCount.get(item);
-				// if no tidset, then we create one
-				if (set == null) {
-					set = new HashSet<Integer>();
-					mapItemCount.put(item, set);
-					// if the current item is larger than all items until
-					// now, remember that!
-					if (item > maxItemId) {
-						maxItemId = item;
+				if (supports[item] >= minsupRelative) {
+					if (tids[item] == null) {
+						tids[item] = new int[supports[item]];
 					}
+					// add the current transaction id (tid) to the tidset of the item
+					tids[item][sizes[item]++] = i;
 				}
-				// add the current transaction id (tid) to the tidset of the item
-				set.add(i); 
+			}
+		}
+		// create the tidsets
+		for (int item = 0; item <= maxItemId; item++) {
+			if (tids[item] != null) {
+				mapItemCount.put(item, engine.createTidset(tids[item], sizes[item]));
 			}
 		}
 		return maxItemId;
@@ -330,12 +369,12 @@ public class AlgoEclat {
 //	 * This has an average performance of O(n log n)
 //	 * @param a array of integers
 //	 */
-//	public static void insertionSort(List<Integer> listItems, List<Set<Integer>> listTids){
+//	public static void insertionSort(List<Integer> listItems, List<Tidset> listTids){
 //		for(int j=1; j< listItems.size(); j++){
-//			Set<Integer> keyTids = listTids.get(j);
+//			Tidset keyTids = listTids.get(j);
 //			Integer keyItem = listItems.get(j);
 //			int i = j - 1;
-//			for(; i>=0 && (listTids.get(i).size() > keyTids.size()); i--){
+//			for(; i>=0 && (listTids.get(i).getCardinality() > keyTids.getCardinality()); i--){
 //				
 //				listTids.set(i+1, listTids.get(i));
 //				listItems.set(i+1, listItems.get(i));
@@ -350,26 +389,25 @@ public class AlgoEclat {
 	/**
 	 * This method process all itemsets from an equivalence class to generate larger itemsets,
 	 * @param prefix  a common prefix to all itemsets of the equivalence class
-	 * @param supportPrefix the support of the prefix (not used by eclat, but used by dEclat)
+	 * @param supportPrefix the support of the prefix
+	 * @param diffsets true if the itemsets of the class are represented by diffsets instead of tidsets
 	 * @param equivalenceClassItems  a list of suffixes of itemsets in the current equivalence class.
-	 * @param equivalenceClassTidsets a list of tidsets of itemsets of the current equivalence class.
+	 * @param equivalenceClassTidsets a list of tidsets (or diffsets) of itemsets of the current equivalence class.
 	 * @param prefixLength the prefix length
 	 * @throws IOException if error while writting the output to file
 	 */
-	private void processEquivalenceClass(int[] prefix, int prefixLength, int supportPrefix, List<Integer> equivalenceClassItems,
-			List<Set<Integer>> equivalenceClassTidsets) throws IOException {
-		
-		int length = prefixLength+1;
+	private void processEquivalenceClass(int[] prefix, int prefixLength, int supportPrefix, boolean diffsets,
+			List<Integer> equivalenceClassItems, List<Tidset> equivalenceClassTidsets) throws IOException {
 		
 		// If there is only one itemset in equivalence class
 		if(equivalenceClassItems.size() == 1) {
 			int itemI = equivalenceClassItems.get(0);
-			Set<Integer> tidsetItemset = equivalenceClassTidsets.get(0);
+			Tidset tidsetItemset = equivalenceClassTidsets.get(0);
 			
 			// Then, we just save that itemset to file and stop.
 			// To save the itemset we call the method save with the prefix "prefix" and the suffix
 			// "itemI".
-			int support = calculateSupport(length, supportPrefix, tidsetItemset);
+			int support = calculateSupport(diffsets, supportPrefix, tidsetItemset);
 			save(prefix, prefixLength, itemI, tidsetItemset, support);
 			return;
 		}
@@ -378,30 +416,31 @@ public class AlgoEclat {
 		if(equivalenceClassItems.size() == 2) {
 			// We get the suffix of the first itemset (an item that we will call I)
 			int itemI = equivalenceClassItems.get(0);
-			Set<Integer> tidsetI = equivalenceClassTidsets.get(0);
-			int supportI = calculateSupport(length, supportPrefix, tidsetI);
+			Tidset tidsetI = equivalenceClassTidsets.get(0);
+			int supportI = calculateSupport(diffsets, supportPrefix, tidsetI);
 			save(prefix, prefixLength, itemI, tidsetI, supportI);
 			
 			// We get the suffix of the second itemset (an item that we will call J)
 			int itemJ = equivalenceClassItems.get(1);
-			Set<Integer> tidsetJ = equivalenceClassTidsets.get(1);
-			int supportJ = calculateSupport(length, supportPrefix, tidsetJ);
+			Tidset tidsetJ = equivalenceClassTidsets.get(1);
+			int supportJ = calculateSupport(diffsets, supportPrefix, tidsetJ);
 			save(prefix, prefixLength, itemJ, tidsetJ, supportJ);
 			
 			// We calculate the tidset of the itemset resulting from the union of
 			// the first itemset and the second itemset.
 			if(prefixLength+2 <= maxItemsetSize){
-				Set<Integer> tidsetIJ = this.performAND(tidsetI, tidsetI.size(), tidsetJ, tidsetJ.size());
+				Tidset tidsetIJ = combine(tidsetI, supportI, tidsetJ, diffsets, diffsets);
 				
-				int supportIJ = calculateSupport(length, supportI, tidsetIJ);
-				// We save the itemset prefix+IJ to the output
-				if(supportIJ >= minsupRelative) {
+				// We save the itemset prefix+IJ to the output if it is frequent
+				if(tidsetIJ != null) {
+					int supportIJ = calculateSupport(diffsets, supportI, tidsetIJ);
 					// Append the prefix with I
 					int newPrefixLength = prefixLength+1;
 					prefix[prefixLength] = itemI;
 					
 					// We save the itemset prefix+IJ to the output
 					save(prefix, newPrefixLength, itemJ, tidsetIJ, supportIJ);
+					engine.release(tidsetIJ);
 				}
 			}
 			return;
@@ -410,6 +449,16 @@ public class AlgoEclat {
 		// THE FOLLOWING OPTIMIZATION IS COMMENTED SINCE IT DOES NOT IMPROVE PERFORMANCE
 //		insertionSort(equivalenceClassItems, equivalenceClassTidsets);
 		
+		// We calculate the support of each itemset of the equivalence class and
+		// the sum of the supports of the itemsets following each itemset
+		// (to decide if diffsets should be used)
+		int[] supports = new int[equivalenceClassItems.size()];
+		long[] sumOfSupports = new long[equivalenceClassItems.size() + 1];
+		for(int i = equivalenceClassItems.size() - 1; i >= 0; i--) {
+			supports[i] = calculateSupport(diffsets, supportPrefix, equivalenceClassTidsets.get(i));
+			sumOfSupports[i] = sumOfSupports[i + 1] + supports[i];
+		}
+		
 		// The next loop combines each pairs of itemsets of the equivalence class
 		// to form larger itemsets
 		
@@ -417,18 +466,23 @@ public class AlgoEclat {
 		for(int i=0; i< equivalenceClassItems.size(); i++) {
 			int suffixI = equivalenceClassItems.get(i);
 			// get the tidset and support of that itemset
-			Set<Integer> tidsetI = equivalenceClassTidsets.get(i);
+			Tidset tidsetI = equivalenceClassTidsets.get(i);
 			
 			// save the itemset to the file because it is frequent
-			int supportI = calculateSupport(length, supportPrefix, tidsetI);
+			int supportI = supports[i];
 			save(prefix, prefixLength, suffixI, tidsetI, supportI);
 			
 			if(prefixLength+2 <= maxItemsetSize){
+				
+				// Check if the itemsets starting with prefix + i should be represented by diffsets.
+				// Once diffsets are used, they are used for the whole subtree.
+				boolean diffsetsI = diffsets 
+						|| useDiffsets(supportI, sumOfSupports[i + 1], equivalenceClassItems.size() - i - 1);
 			
 				// create the empty equivalence class for storing all itemsets of the 
 				// equivalence class starting with prefix + i
 				List<Integer> equivalenceClassISuffixItems= new ArrayList<Integer>();
-				List<Set<Integer>> equivalenceITidsets = new ArrayList<Set<Integer>>();
+				List<Tidset> equivalenceITidsets = new ArrayList<Tidset>();
 				
 				// For each itemset "prefix" + j"
 				for(int j=i+1; j < equivalenceClassItems.size(); j++) {
@@ -448,23 +502,21 @@ public class AlgoEclat {
 	//					}
 	//				}
 	
-					// Get the tidset and support of the itemset prefix + "j"
-					Set<Integer> tidsetJ = equivalenceClassTidsets.get(j);
-					int supportJ = calculateSupport(length, supportPrefix, tidsetJ);
+					// Get the tidset of the itemset prefix + "j"
+					Tidset tidsetJ = equivalenceClassTidsets.get(j);
 					
 					// We will now calculate the tidset of the itemset {prefix, i,j}
 					// This is done by intersecting the tidset of the itemset prefix+i
-					// with the itemset prefix+j
-					Set<Integer> tidsetIJ = performAND(tidsetI, supportI, tidsetJ, 
-							supportJ);
+					// with the itemset prefix+j (or by calculating a diffset).
+					// The result is null if {prefix, i, j} is infrequent.
+					Tidset tidsetIJ = combine(tidsetI, supportI, tidsetJ, diffsets, diffsetsI);
 					
-					int supportIJ = calculateSupport(length, supportI, tidsetIJ);
 					// If the itemset prefix+i+j is frequent, then we add it to the
 					// equivalence class of itemsets having the prefix "prefix"+i 
 					// Note actually, we just keep "j" for optimization because all itemsets
 					// in the equivalence class of prefix+i will start with prefix+i so it would just
 					// waste memory to keep prefix + i for all itemsets.	
-					if(supportIJ >= minsupRelative) {
+					if(tidsetIJ != null) {
 						equivalenceClassISuffixItems.add(suffixJ);
 						// We also keep the corresponding tidset
 						equivalenceITidsets.add(tidsetIJ);
@@ -479,8 +531,10 @@ public class AlgoEclat {
 					int newPrefixLength = prefixLength+1;
 					
 					// Recursive call
-					processEquivalenceClass(prefix, newPrefixLength, supportI, equivalenceClassISuffixItems, equivalenceITidsets);
+					processEquivalenceClass(prefix, newPrefixLength, supportI, diffsetsI, equivalenceClassISuffixItems, equivalenceITidsets);
 				}
+				// The tidsets of the equivalence class of prefix + i are not needed anymore
+				release(equivalenceITidsets);
 			}
 		}
 		
@@ -490,69 +544,64 @@ public class AlgoEclat {
 
 	/**
 	 * Calculate the support of an itemset X using the tidset of X.
-	 * @param lengthOfX  the length of the itemset X - 1 (used by dEclat)
-	 * @param supportPrefix the support of the prefix (not used by Eclat, but used by dEclat).
-	 * @param tidsetI the tidset of X
+	 * @param diffset true if the tidset is a diffset
+	 * @param supportPrefix the support of the prefix (used with diffsets).
+	 * @param tidsetI the tidset (or diffset) of X
 	 * @return the support
 	 */
-	int calculateSupport(int lengthOfX, int supportPrefix, Set<Integer> tidsetI) {
-		return tidsetI.size();
+	int calculateSupport(boolean diffset, int supportPrefix, Tidset tidsetI) {
+		if(diffset) {
+			return supportPrefix - tidsetI.getCardinality();
+		}
+		return tidsetI.getCardinality();
 	}
 
+	/**
+	 * Check if an equivalence class should use diffsets instead of tidsets.
+	 * This is decided by the tidset engine according to the density of the class, except
+	 * if the transaction identifiers of each pattern must be shown.
+	 * @param supportPrefix the support of the prefix of the class
+	 * @param sumOfSupports the sum of the supports of the itemsets that will be joined with the prefix
+	 * @param count the number of itemsets that will be joined with the prefix
+	 * @return true if diffsets should be used.
+	 */
+	boolean useDiffsets(int supportPrefix, long sumOfSupports, int count) {
+		return showTransactionIdentifiers == false 
+				&& engine.preferDiffsets(supportPrefix, sumOfSupports, count);
+	}
 
 	/**
-	 * This method performs the intersection of two tidsets.
-	 * @param tidsetI the first tidset
-	 * @param supportI  the cardinality of the first tidset
-	 * @param tidsetJ  the second tidset
-	 * @param supportJ the cardinality of the second tidset
-	 * @return the resulting tidset.
+	 * This method calculates the tidset (or diffset) of an itemset prefix+i+j from the
+	 * tidsets (or diffsets) of prefix+i and prefix+j.
+	 * @param tidsetI the tidset or diffset of prefix+i
+	 * @param supportI  the support of prefix+i
+	 * @param tidsetJ  the tidset or diffset of prefix+j
+	 * @param diffsets true if the tidsets of prefix+i and prefix+j are diffsets
+	 * @param diffsetsIJ true if the result should be a diffset
+	 * @return the resulting tidset, or null if prefix+i+j is infrequent.
 	 */
-	 Set<Integer> performAND(Set<Integer> tidsetI, int supportI,
-			Set<Integer> tidsetJ, int supportJ) {
-		// Create the new tidset that will store the intersection
-		Set<Integer> tidsetIJ = new HashSet<Integer>();
-		// To reduce the number of comparisons of the two tidsets,
-		// if the tidset of I is larger than the tidset of J,
-		// we will loop on the tidset of J. Otherwise, we will loop on the tidset of I
-		if(supportI > supportJ) {
-			// for each tid containing j
-			for(Integer tid : tidsetJ) {
-				// if the transaction also contains i, add it to tidset of {i,j}
-				if(tidsetI.contains(tid)) {
-					// add it to the intersection
-					tidsetIJ.add(tid);
-				}			
-			}
-		}else {
-			// for each tid containing i
-			for(Integer tid : tidsetI) {
-				// if the transaction also contains j, add it to tidset of {i,j}
-				if(tidsetJ.contains(tid)) {
-					// add it to the intersection
-					tidsetIJ.add(tid);
-				}
-			}
+	Tidset combine(Tidset tidsetI, int supportI, Tidset tidsetJ, boolean diffsets, boolean diffsetsIJ) {
+		if(diffsets) {
+			// d(PIJ) = d(PJ) - d(PI)
+			return engine.difference(tidsetJ, tidsetI, supportI - minsupRelative);
 		}
-		// return the new tidset
-		return tidsetIJ;
+		if(diffsetsIJ) {
+			// d(PIJ) = t(PI) - t(PJ)
+			return engine.difference(tidsetI, tidsetJ, supportI - minsupRelative);
+		}
+		// t(PIJ) = t(PI) intersected with t(PJ)
+		return engine.intersect(tidsetI, tidsetJ, minsupRelative);
 	}
-	 
-	 /**
-		 * This method performs the intersection of two tidsets.
-		 * @param tidsetI the first tidset
-		 * @param supportI  the cardinality of the first tidset
-		 * @param tidsetJ  the second tidset
-		 * @param supportJ the cardinality of the second tidset
-		 * @return the resulting tidset.
-		 */
-		 Set<Integer> performANDFirstTime(Set<Integer> tidsetI, int supportI,
-				Set<Integer> tidsetJ, int supportJ) {
 
-			// return the new tidset
-			return performAND(tidsetI, supportI, tidsetJ, supportJ);
+	/**
+	 * Return the tidsets of an equivalence class to the tidset engine.
+	 * @param tidsets the tidsets
+	 */
+	private void release(List<Tidset> tidsets) {
+		for(Tidset tidset : tidsets) {
+			engine.release(tidset);
 		}
-
+	}
 	/**
 	 * Save an itemset to disk or memory (depending on what the user chose).
 	 * @param prefix the prefix of the itemset to be saved
@@ -561,7 +610,7 @@ public class AlgoEclat {
 	 * @param prefixLength the prefix length
 	 * @throws IOException if an error occurrs when writing to disk.
 	 */
-	private void save(int[] prefix, int prefixLength, int suffixItem, Set<Integer> tidset, int support) throws IOException {
+	private void save(int[] prefix, int prefixLength, int suffixItem, Tidset tidset, int support) throws IOException {
 		// increase the itemset count
 		itemsetCount++;
 		// if the result should be saved to memory
@@ -589,7 +638,7 @@ public class AlgoEclat {
 			buffer.append(support);
 			if(showTransactionIdentifiers) {
 				buffer.append(" #TID:");
-	        	for (Integer tid: tidset) {
+	        	for (int tid: tidset.toArray()) {
 	        		buffer.append(" " + tid); 
 	        	}
 			}
@@ -604,7 +653,7 @@ public class AlgoEclat {
 	 * @param tidset the tidset of this itemset
 	 * @throws IOException if an error occurrs when writing to disk.
 	 */
-	private void saveSingleItem(int item, Set<Integer> tidset, int support) throws IOException {
+	private void saveSingleItem(int item, Tidset tidset, int support) throws IOException {
 		// increase the itemset count
 		itemsetCount++;
 		// if the result should be saved to memory
@@ -622,7 +671,7 @@ public class AlgoEclat {
 			buffer.append(support);
 			if(showTransactionIdentifiers) {
 				buffer.append(" #TID:");
-	        	for (Integer tid: tidset) {
+	        	for (int tid: tidset.toArray()) {
 	        		buffer.append(" " + tid); 
 	        	}
 			}
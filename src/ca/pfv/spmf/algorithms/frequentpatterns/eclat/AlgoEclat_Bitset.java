@@ -19,6 +19,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collections;
@@ -27,7 +28,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import ca.pfv.spmf.datastructures.bitsetpool.BitSetPool;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -50,6 +54,13 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This  version  saves the result to a file
  * or keep it into memory if no output path is provided
  * by the user to the runAlgorithm method().
+ * <br/><br/>
+ * 
+ * The equivalence classes of the frequent items can be mined by several threads
+ * (see setThreadCount()). Each class is then mined by a fork/join task having its own
+ * itemset buffer and output buffer. By default, the output of a task is written as soon as
+ * the task ends, so the order of the itemsets is not deterministic. The itemsets can
+ * also be output in the same order as with a single thread (see setDeterministicOutput()).
  * 
  * @see TriangularMatrix
  * @see TransactionDatabase
@@ -88,11 +99,33 @@ public class AlgoEclat_Bitset {
 	/** size of the buffer*/
 	private int[] itemsetBuffer = null;
 	
+	/** The pool of bitsets used for storing the tidsets of itemsets having more than one item
+	 * (so that bitsets of infrequent itemsets and processed equivalence classes can be reused) */
+	BitSetPool bitsetPool;
+	
 	/** if true, transaction identifiers of each pattern will be shown*/
 	boolean showTransactionIdentifiers = false;
 	
 	/** Special parameter to set the maximum size of itemsets to be discovered */
 	int maxItemsetSize = Integer.MAX_VALUE;
+	
+	/** the number of threads used to mine the equivalence classes */
+	private int threadCount = 1;
+	
+	/** the number of itemsets or characters that a task keeps before writing them (if the output is not deterministic) */
+	private static final int TASK_OUTPUT_BUFFER_SIZE = 1 << 16;
+	
+	/** if true, the itemsets are output in the same order as with a single thread (parallel mode) */
+	private boolean deterministicOutput = false;
+	
+	/** the pool of threads (only in parallel mode) */
+	private ForkJoinPool pool = null;
+	
+	/** the pool of bitsets of each thread (only in parallel mode) */
+	private ThreadLocal<BitSetPool> threadBitsetPool = null;
+	
+	/** the output buffer of the task executed by each thread (only in parallel mode) */
+	private ThreadLocal<TaskOutput> threadTaskOutput = null;
 
 
 	/**
@@ -135,6 +168,9 @@ public class AlgoEclat_Bitset {
 
 		this.database = database;
 		
+		// create the pool of bitsets
+		bitsetPool = new BitSetPool(BUFFERS_SIZE);
+		
 		// record the start time
 		startTimestamp = System.currentTimeMillis();
 		
@@ -202,79 +238,13 @@ public class AlgoEclat_Bitset {
 		
 		if(maxItemsetSize >=2){
 			
-			// For each frequent item I according to the total order
-			for(int i=0; i < frequentItems.size(); i++) {
-				Integer itemI = frequentItems.get(i);
-				// We obtain the tidset and support of that item
-				BitSetSupport tidsetI = mapItemTIDS.get(itemI);
-				
-				// We create empty equivalence class for storing all 2-itemsets starting with
-				// the item "i".
-				// This equivalence class is represented by two structures.
-				// The first structure stores the suffix of all 2-itemsets starting with the prefix "i".
-				// For example, if itemI = "1" and the equivalence class contains 12, 13, 14, then
-				// the structure "equivalenceClassIitems" will only contain  2, 3 and 4 instead of
-				// 12, 13 and 14.  The reason for this implementation choice is that it is more
-				// memory efficient.
-				List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
-				// The second structure stores the tidset of each 2-itemset in the equivalence class
-				// of the prefix "i"
-				List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
-				
-				// For each item itemJ that is larger than i according to the total order of
-				// increasing support.
-	loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
-					int itemJ = frequentItems.get(j);
-					
-					// if the triangular matrix optimization is activated we obtain
-					// the support of itemset "ij" in the matrix. This allows to determine
-					// directly without performing a join if "ij" is frequent.
-					int supportIJ = -1;
-					if(useTriangularMatrixOptimization) {
-						// check the support of {i,j} according to the triangular matrix
-						supportIJ = matrix.getSupportForItems(itemI, itemJ);
-						// if not frequent
-						if (supportIJ < minsupRelative) {
-							// we don't need to consider the itemset "ij" anymore
-							continue loopJ;
-						}
-					}
-					
-					// Obtain the tidset of item J and its support.
-					BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
-					
-					// Calculate the tidset of itemset "IJ" by performing the intersection of 
-					// the tidsets of I and the tidset of J.
-					BitSetSupport bitsetSupportIJ;
-					if(useTriangularMatrixOptimization) {
-						// If the triangular matrix optimization is used, then
-						// we perform the intersection but do not need to calculate the support
-						// since it is already known
-						bitsetSupportIJ = performANDFirstTime(tidsetI, tidsetJ, supportIJ);
-					}else {
-						// Otherwise, we perform the intersection and calculate the support
-						// by calculating the cardinality of the resulting tidset.
-						bitsetSupportIJ = performAND(tidsetI, tidsetJ);
-					}
-					
-					// After that, we add the itemJ to the equivalence class of 2-itemsets
-					// starting with the prefix "i". Note that although we only add "j" to the
-					// equivalence class, the item "j" 
-					// actually represents the itemset "ij" since we keep the prefix "i" for the
-					// whole equilvalence class.
-					if(useTriangularMatrixOptimization || bitsetSupportIJ.support >= minsupRelative){
-					    equivalenceClassIitems.add(itemJ);
-					     // We also keep the tidset of "ij".
-					    equivalenceClassItidsets.add(bitsetSupportIJ);
-					}
-				}
-				// Process all itemsets from the equivalence class of 2-itemsets starting with prefix I 
-				// to find larger itemsets if that class has more than 0 itemsets.
-				if(equivalenceClassIitems.size()>0) {
-					// This is done by a recursive call. Note that we pass
-					// item I to that method as the prefix of that equivalence class.
-					itemsetBuffer[0] = itemI;
-					processEquivalenceClass(itemsetBuffer, 1, equivalenceClassIitems, equivalenceClassItidsets);
+			if(threadCount > 1) {
+				// mine the equivalence classes with several threads
+				processItemsParallel(frequentItems, mapItemTIDS, useTriangularMatrixOptimization);
+			}else {
+				// For each frequent item I according to the total order
+				for(int i=0; i < frequentItems.size(); i++) {
+					processItem(i, frequentItems, mapItemTIDS, useTriangularMatrixOptimization, itemsetBuffer);
 				}
 			}
 		}
@@ -295,6 +265,230 @@ public class AlgoEclat_Bitset {
 	}
 
 
+	/**
+	 * Mine the equivalence classes of the frequent items with several threads. Each class
+	 * is mined by a task.
+	 * @param frequentItems the frequent items sorted by the total order of increasing support
+	 * @param mapItemTIDS  the tidset of each item
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization is applied
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void processItemsParallel(final List<Integer> frequentItems, final Map<Integer, BitSetSupport> mapItemTIDS,
+			final boolean useTriangularMatrixOptimization) throws IOException {
+		// each thread has its own pool of bitsets 
+		threadBitsetPool = ThreadLocal.withInitial(() -> new BitSetPool(BUFFERS_SIZE));
+		threadTaskOutput = new ThreadLocal<TaskOutput>();
+		pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try{
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					// create a task for each frequent item
+					List<EquivalenceClassTask> tasks = new ArrayList<EquivalenceClassTask>();
+					for(int i=0; i < frequentItems.size(); i++) {
+						EquivalenceClassTask task = new EquivalenceClassTask(i, frequentItems, mapItemTIDS, 
+								useTriangularMatrixOptimization);
+						task.fork();
+						tasks.add(task);
+					}
+					// wait for the tasks (and write their output in order if the output is deterministic)
+					for(EquivalenceClassTask task : tasks) {
+						task.join();
+						if(deterministicOutput) {
+							writeTaskOutput(task.output);
+						}
+					}
+				}
+			});
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}finally{
+			pool.shutdown();
+			pool = null;
+			threadBitsetPool = null;
+			threadTaskOutput = null;
+		}
+	}
+
+	/**
+	 * Get the pool of bitsets of the current thread.
+	 * @return the pool of bitsets
+	 */
+	BitSetPool getBitSetPool() {
+		return (pool == null) ? bitsetPool : threadBitsetPool.get();
+	}
+
+	/**
+	 * Write the itemsets found by a task to the output file or to memory (in parallel mode).
+	 * @param output the output buffer of the task
+	 */
+	private synchronized void writeTaskOutput(TaskOutput output) {
+		try {
+			itemsetCount += output.itemsetCount;
+			if(writer == null) {
+				for(Itemset itemset : output.itemsets) {
+					frequentItemsets.addItemset(itemset, itemset.size());
+				}
+			}else {
+				writer.write(output.lines.toString());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		output.itemsetCount = 0;
+		output.itemsets.clear();
+		output.lines.setLength(0);
+	}
+
+	/**
+	 * The itemsets found by a task that have not been written yet (in parallel mode).
+	 */
+	private static class TaskOutput {
+		/** the number of itemsets */
+		int itemsetCount;
+		/** the itemsets (if the result is kept into memory) */
+		final List<Itemset> itemsets = new ArrayList<Itemset>();
+		/** the lines (if the result is saved to a file) */
+		final StringBuilder lines = new StringBuilder();
+	}
+
+	/**
+	 * A task mining the equivalence class of a frequent item, in parallel mode.
+	 */
+	private class EquivalenceClassTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the position of the item in the list of frequent items */
+		private final int i;
+		/** the frequent items */
+		private final transient List<Integer> frequentItems;
+		/** the tidset of each item */
+		private final transient Map<Integer, BitSetSupport> mapItemTIDS;
+		/** if true the triangular matrix optimization is applied */
+		private final boolean useTriangularMatrixOptimization;
+		/** the itemsets found by this task */
+		final transient TaskOutput output = new TaskOutput();
+
+		/**
+		 * Constructor
+		 */
+		EquivalenceClassTask(int i, List<Integer> frequentItems, Map<Integer, BitSetSupport> mapItemTIDS,
+				boolean useTriangularMatrixOptimization) {
+			this.i = i;
+			this.frequentItems = frequentItems;
+			this.mapItemTIDS = mapItemTIDS;
+			this.useTriangularMatrixOptimization = useTriangularMatrixOptimization;
+		}
+
+		@Override
+		protected void compute() {
+			threadTaskOutput.set(output);
+			try {
+				// each task has its own itemset buffer
+				processItem(i, frequentItems, mapItemTIDS, useTriangularMatrixOptimization, new int[BUFFERS_SIZE]);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				threadTaskOutput.remove();
+			}
+			if(!deterministicOutput) {
+				writeTaskOutput(output);
+			}
+		}
+	}
+
+	/**
+	 * Generate the equivalence class of the 2-itemsets starting with a frequent item and
+	 * process that class to find all the frequent itemsets starting with that item.
+	 * @param i the position of the item in the list of frequent items
+	 * @param frequentItems the frequent items sorted by the total order of increasing support
+	 * @param mapItemTIDS  the tidset of each item
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization is applied
+	 * @param prefix a buffer for storing the current itemset
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void processItem(int i, List<Integer> frequentItems, Map<Integer, BitSetSupport> mapItemTIDS,
+			boolean useTriangularMatrixOptimization, int[] prefix) throws IOException {
+		Integer itemI = frequentItems.get(i);
+		// We obtain the tidset and support of that item
+		BitSetSupport tidsetI = mapItemTIDS.get(itemI);
+		
+		// We create empty equivalence class for storing all 2-itemsets starting with
+		// the item "i".
+		// This equivalence class is represented by two structures.
+		// The first structure stores the suffix of all 2-itemsets starting with the prefix "i".
+		// For example, if itemI = "1" and the equivalence class contains 12, 13, 14, then
+		// the structure "equivalenceClassIitems" will only contain  2, 3 and 4 instead of
+		// 12, 13 and 14.  The reason for this implementation choice is that it is more
+		// memory efficient.
+		List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
+		// The second structure stores the tidset of each 2-itemset in the equivalence class
+		// of the prefix "i"
+		List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
+		
+		// For each item itemJ that is larger than i according to the total order of
+		// increasing support.
+loopJ:	for(int j=i+1; j < frequentItems.size(); j++) {
+			int itemJ = frequentItems.get(j);
+			
+			// if the triangular matrix optimization is activated we obtain
+			// the support of itemset "ij" in the matrix. This allows to determine
+			// directly without performing a join if "ij" is frequent.
+			int supportIJ = -1;
+			if(useTriangularMatrixOptimization) {
+				// check the support of {i,j} according to the triangular matrix
+				supportIJ = matrix.getSupportForItems(itemI, itemJ);
+				// if not frequent
+				if (supportIJ < minsupRelative) {
+					// we don't need to consider the itemset "ij" anymore
+					continue loopJ;
+				}
+			}
+			
+			// Obtain the tidset of item J and its support.
+			BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
+			
+			// Calculate the tidset of itemset "IJ" by performing the intersection of 
+			// the tidsets of I and the tidset of J.
+			BitSetSupport bitsetSupportIJ;
+			if(useTriangularMatrixOptimization) {
+				// If the triangular matrix optimization is used, then
+				// we perform the intersection but do not need to calculate the support
+				// since it is already known
+				bitsetSupportIJ = performANDFirstTime(tidsetI, tidsetJ, supportIJ);
+			}else {
+				// Otherwise, we perform the intersection and calculate the support
+				// by calculating the cardinality of the resulting tidset.
+				bitsetSupportIJ = performAND(tidsetI, tidsetJ);
+			}
+			
+			// After that, we add the itemJ to the equivalence class of 2-itemsets
+			// starting with the prefix "i". Note that although we only add "j" to the
+			// equivalence class, the item "j" 
+			// actually represents the itemset "ij" since we keep the prefix "i" for the
+			// whole equilvalence class.
+			if(useTriangularMatrixOptimization || bitsetSupportIJ.support >= minsupRelative){
+			    equivalenceClassIitems.add(itemJ);
+			     // We also keep the tidset of "ij".
+			    equivalenceClassItidsets.add(bitsetSupportIJ);
+			}else {
+				// the bitset of an infrequent itemset can be reused
+				getBitSetPool().releaseBitSet(bitsetSupportIJ.bitset);
+			}
+		}
+		// Process all itemsets from the equivalence class of 2-itemsets starting with prefix I 
+		// to find larger itemsets if that class has more than 0 itemsets.
+		if(equivalenceClassIitems.size()>0) {
+			// This is done by a recursive call. Note that we pass
+			// item I to that method as the prefix of that equivalence class.
+			prefix[0] = itemI;
+			processEquivalenceClass(prefix, 1, equivalenceClassIitems, equivalenceClassItidsets);
+		}
+		// The tidsets of the equivalence class are not needed anymore
+		release(equivalenceClassItidsets);
+	}
+
 	/**
 	 * This method scans the database to calculate the support of each single item
 	 * @param database the transaction database
@@ -317,6 +511,7 @@ public class AlgoEclat_Bitset {
 				// If none, then we create one
 				if(tids == null){
 					tids = new BitSetSupport();
+					tids.bitset = new BitSet();
 					mapItemTIDS.put(item, tids);
 					// we remember the largest item seen until now
 					if (item > maxItemId) {
@@ -340,9 +535,10 @@ public class AlgoEclat_Bitset {
 	 */
 	 BitSetSupport performAND(BitSetSupport tidsetI,
 			BitSetSupport tidsetJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
+		// Obtain a new tidset from the pool and perform the logical AND to intersect the tidset
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetI.bitset);
 		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
 		// set the support as the cardinality of the new tidset
 		bitsetSupportIJ.support = bitsetSupportIJ.bitset.cardinality();
@@ -360,9 +556,10 @@ public class AlgoEclat_Bitset {
 	 */
 	BitSetSupport performANDFirstTime(BitSetSupport tidsetI,
 			BitSetSupport tidsetJ, int supportIJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
+		// Obtain a new tidset from the pool and perform the logical AND to intersect the tidset
 		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
+		bitsetSupportIJ.bitset = getBitSetPool().getBitSet();
+		bitsetSupportIJ.bitset.or(tidsetI.bitset);
 		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
 		// set the support as the support provided as parameter
 		bitsetSupportIJ.support = supportIJ;
@@ -441,6 +638,7 @@ public class AlgoEclat_Bitset {
 					// We save the itemset prefix+IJ to the output
 					save(prefix, newPrefixLength, itemJ, bitsetSupportIJ);
 				}
+				getBitSetPool().releaseBitSet(bitsetSupportIJ.bitset);
 			}
 			return;
 		}
@@ -502,6 +700,9 @@ public class AlgoEclat_Bitset {
 						equivalenceClassISuffixItems.add(itemJ);
 						// We also keep the corresponding tidset and support
 						equivalenceITidsets.add(bitsetSupportIJ);
+					}else {
+						// the bitset of an infrequent itemset can be reused
+						getBitSetPool().releaseBitSet(bitsetSupportIJ.bitset);
 					}
 				}
 	
@@ -516,6 +717,8 @@ public class AlgoEclat_Bitset {
 					// Recursive call
 					processEquivalenceClass(prefix, newPrefixLength, equivalenceClassISuffixItems, equivalenceITidsets);
 				}
+				// The tidsets of the equivalence class of prefix + i are not needed anymore
+				release(equivalenceITidsets);
 			}
 		}
 		
@@ -523,6 +726,16 @@ public class AlgoEclat_Bitset {
 		MemoryLogger.getInstance().checkMemory();
 	}
 
+	/**
+	 * Put the bitsets of an equivalence class back in the pool of bitsets.
+	 * @param tidsets the tidsets of the equivalence class
+	 */
+	void release(List<BitSetSupport> tidsets) {
+		for(BitSetSupport tidset : tidsets) {
+			getBitSetPool().releaseBitSet(tidset.bitset);
+		}
+	}
+
 	/**
 	 * Save an itemset to disk or memory (depending on what the user chose).
 	 * @param prefix the prefix of the itemset to be saved
@@ -532,8 +745,14 @@ public class AlgoEclat_Bitset {
 	 * @throws IOException if an error occurrs when writing to disk.
 	 */
 	private void save(int[] prefix, int prefixLength, int suffixItem, BitSetSupport tidset) throws IOException {
+		// in parallel mode, the itemset is saved to the output buffer of the current task
+		TaskOutput taskOutput = (pool == null) ? null : threadTaskOutput.get();
 		// increase the itemset count
-		itemsetCount++;
+		if(taskOutput == null) {
+			itemsetCount++;
+		}else {
+			taskOutput.itemsetCount++;
+		}
 		// if the result should be saved to memory
 		if(writer == null){
 			// append the prefix with the suffix
@@ -543,7 +762,11 @@ public class AlgoEclat_Bitset {
 			// Create an object "Itemset" and add it to the set of frequent itemsets
 			Itemset itemset = new Itemset(itemsetArray);
 			itemset.setAbsoluteSupport(tidset.support);
-			frequentItemsets.addItemset(itemset, itemset.size());
+			if(taskOutput == null) {
+				frequentItemsets.addItemset(itemset, itemset.size());
+			}else {
+				taskOutput.itemsets.add(itemset);
+			}
 		}else{
 			// if the result should be saved to a file
 			// write it to the output file
@@ -564,8 +787,17 @@ public class AlgoEclat_Bitset {
 	        		buffer.append(" " + tid); 
 	        	}
 			}
-			writer.write(buffer.toString());
-			writer.newLine();
+			if(taskOutput == null) {
+				writer.write(buffer.toString());
+				writer.newLine();
+			}else {
+				taskOutput.lines.append(buffer).append(System.lineSeparator());
+			}
+		}
+		// if the output is not deterministic, a task writes its output when its buffer is full
+		if(taskOutput != null && !deterministicOutput 
+				&& taskOutput.itemsets.size() + taskOutput.lines.length() >= TASK_OUTPUT_BUFFER_SIZE) {
+			writeTaskOutput(taskOutput);
 		}
 	}
 	
@@ -642,7 +874,7 @@ public class AlgoEclat_Bitset {
 	 * more than once.
 	 */ 
 	public class BitSetSupport{
-		BitSet bitset = new BitSet();
+		BitSet bitset;
 		int support;
 	}
 	
@@ -653,4 +885,25 @@ public class AlgoEclat_Bitset {
 	public void setMaximumPatternLength(int length) {
 		this.maxItemsetSize = length;
 	}
+
+	/**
+	 * Set the number of threads used to mine the equivalence classes (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set if the itemsets should be output in the same order as with a single thread
+	 * when several threads are used (by default, false). The output of each equivalence
+	 * class is then kept in memory until the classes before it have been written.
+	 * @param deterministicOutput true to output the itemsets in a deterministic order
+	 */
+	public void setDeterministicOutput(boolean deterministicOutput) {
+		this.deterministicOutput = deterministicOutput;
+	}
 }
@@ -1,15 +1,21 @@
 package ca.pfv.spmf.algorithms.frequentpatterns.efim;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.datastructures.collections.comparators.ComparatorObject;
 import ca.pfv.spmf.datastructures.collections.list.ArrayListInt;
 import ca.pfv.spmf.datastructures.collections.list.ArrayListObject;
 import ca.pfv.spmf.datastructures.collections.list.ListInt;
 import ca.pfv.spmf.datastructures.collections.list.ListObject;
+import ca.pfv.spmf.patterns.sink.PatternSink;
+import ca.pfv.spmf.patterns.sink.TextPatternSink;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 /* This file is copyright (c) 2012-2015 Souleymane Zida & Philippe Fournier-Viger
@@ -32,6 +38,15 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This is an implementation of the EFIM algorithm for mining high-utility
  * itemsets from a transaction database. More information on the EFIM algorithm
  * can be found in that paper: <br\>
+ * <br/>
+ * 
+ * The search space can be explored by several threads (see setThreadCount()). Then,
+ * the itemsets starting with each primary item of the initial database are explored
+ * by a fork/join task, using a copy of this object that belongs to the current thread
+ * and has its own utility-bin arrays and buffers. The transactions are also filtered and sorted
+ * in parallel. The high-utility itemsets are the same as with a single thread. By default, the
+ * itemsets found by a task are saved as soon as the task ends, but they can also be saved
+ * in the same order as with a single thread (see setDeterministicOutput()).
  *
  * @author Souleymane Zida, Philippe Fournier-Viger using some code by Alan
  *         Souza
@@ -41,8 +56,8 @@ public class AlgoEFIM {
 	/** the set of high-utility itemsets */
 	private Itemsets highUtilityItemsets;
 
-	/** object to write the output file */
-	BufferedWriter writer = null;
+	/** object to save the itemsets (e.g. to the output file) */
+	PatternSink sink = null;
 
 	/** the number of high-utility itemsets found (for statistics) */
 	private int patternCount;
@@ -104,6 +119,24 @@ public class AlgoEFIM {
 	/** If true, sub-tree utility pruning will be performed */
 	private boolean activateSubtreeUtilityPruning;
 
+	/** the number of threads used to explore the search space */
+	private int threadCount = 1;
+
+	/** the number of itemsets that a task keeps before saving them (if the output is not deterministic) */
+	private static final int TASK_OUTPUT_BUFFER_SIZE = 1 << 16;
+
+	/** if true, the itemsets are saved in the same order as with a single thread (parallel mode) */
+	private boolean deterministicOutput = false;
+
+	/** the copy of this object used by each thread (only in parallel mode) */
+	private ThreadLocal<AlgoEFIM> threadWorker = null;
+
+	/** the object that created this copy (only for a copy used by a thread, otherwise null) */
+	private AlgoEFIM parent = null;
+
+	/** the itemsets found by the task executed by this copy that have not been saved yet */
+	private List<Itemset> taskOutput = null;
+
 	/**
 	 * Constructor
 	 */
@@ -111,6 +144,24 @@ public class AlgoEFIM {
 
 	}
 
+	/**
+	 * Constructor of the copy of an AlgoEFIM object that is used by a thread to explore
+	 * a part of the search space in parallel mode.
+	 * 
+	 * @param algorithm the original object
+	 */
+	private AlgoEFIM(AlgoEFIM algorithm) {
+		parent = algorithm;
+		minUtil = algorithm.minUtil;
+		newNamesToOldNames = algorithm.newNamesToOldNames;
+		newItemCount = algorithm.newItemCount;
+		activateTransactionMerging = algorithm.activateTransactionMerging;
+		activateSubtreeUtilityPruning = algorithm.activateSubtreeUtilityPruning;
+		// each thread has its own utility-bin arrays
+		utilityBinArraySU = new int[newItemCount + 1];
+		utilityBinArrayLU = new int[newItemCount + 1];
+	}
+
 	/**
 	 * Run the algorithm
 	 * 
@@ -127,6 +178,42 @@ public class AlgoEFIM {
 	 */
 	public Itemsets runAlgorithm(int minUtil, String inputPath, String outputPath, boolean activateTransactionMerging,
 			int maximumTransactionCount, boolean activateSubtreeUtilityPruning) throws IOException {
+		// if the user choose to save to memory
+		if (outputPath == null) {
+			return runAlgorithmWithSink(minUtil, inputPath, null, activateTransactionMerging, maximumTransactionCount,
+					activateSubtreeUtilityPruning);
+		}
+		// if the user choose to save to file
+		// create object for writing the output file
+		PatternSink fileSink = new TextPatternSink(outputPath, "#UTIL:");
+		try {
+			return runAlgorithmWithSink(minUtil, inputPath, fileSink, activateTransactionMerging,
+					maximumTransactionCount, activateSubtreeUtilityPruning);
+		} finally {
+			// close the output file
+			fileSink.close();
+		}
+	}
+
+	/**
+	 * Run the algorithm and give each high-utility itemset to a pattern sink
+	 * (e.g. to only count the itemsets or to process them as they are found).
+	 * 
+	 * @param minUtil                       the minimum utility threshold (a
+	 *                                      positive integer)
+	 * @param inputPath                     the input file path
+	 * @param sink                          the sink that receives the itemsets
+	 *                                      or null if to be kept in memory. The
+	 *                                      sink is not closed by this method.
+	 * @param activateTransactionMerging
+	 * @param activateSubtreeUtilityPruning
+	 * @param maximumTransactionCount
+	 * @return the itemsets or null if the user choose to use a sink
+	 * @throws IOException if exception while reading the file or saving the result
+	 */
+	public Itemsets runAlgorithmWithSink(int minUtil, String inputPath, PatternSink sink,
+			boolean activateTransactionMerging, int maximumTransactionCount, boolean activateSubtreeUtilityPruning)
+			throws IOException {
 
 		// reset variables for statistics
 		mergeCount = 0;
@@ -141,19 +228,18 @@ public class AlgoEFIM {
 		// record the start time
 		startTimestamp = System.currentTimeMillis();
 
-		// read the input file
-		Dataset dataset = new Dataset(inputPath, maximumTransactionCount);
+		// read the input file (or get it from the cache if it was read before)
+		Dataset dataset = Dataset.loadCached(inputPath, maximumTransactionCount);
 
 		// save minUtil value selected by the user
 		this.minUtil = minUtil;
 
-		// if the user choose to save to file
-		// create object for writing the output file
-		if (outputPath != null) {
-			writer = new BufferedWriter(new FileWriter(outputPath));
+		// if the user choose to save to a sink
+		this.sink = sink;
+		if (sink != null) {
+			this.highUtilityItemsets = null;
 		} else {
 			// if the user choose to save to memory
-			writer = null;
 			this.highUtilityItemsets = new Itemsets("Itemsets");
 		}
 
@@ -228,16 +314,21 @@ public class AlgoEFIM {
 			System.out.println(Arrays.toString(newNamesToOldNames));
 		}
 
-		// We now loop over each transaction from the dataset
-		// to remove unpromising items
-		for (int i = 0; i < dataset.getTransactions().size(); i++) {
-			// Get the transaction
-			Transaction transaction = dataset.getTransactions().get(i);
+		if (threadCount > 1) {
+			// remove unpromising items with several threads
+			removeUnpromisingItemsParallel(dataset);
+		} else {
+			// We now loop over each transaction from the dataset
+			// to remove unpromising items
+			for (int i = 0; i < dataset.getTransactions().size(); i++) {
+				// Get the transaction
+				Transaction transaction = dataset.getTransactions().get(i);
 
-			// Remove unpromising items from the transaction and at the same time
-			// rename the items in the transaction according to their new names
-			// and sort the transaction by increasing TWU order
-			transaction.removeUnpromisingItems(oldNameToNewNames);
+				// Remove unpromising items from the transaction and at the same time
+				// rename the items in the transaction according to their new names
+				// and sort the transaction by increasing TWU order
+				transaction.removeUnpromisingItems(oldNameToNewNames);
+			}
 		}
 
 		// Now we will sort transactions in the database according to the proposed
@@ -247,7 +338,7 @@ public class AlgoEFIM {
 		// We only sort if transaction merging is activated
 		if (activateTransactionMerging) {
 			// Sort the dataset using a new comparator
-			dataset.getTransactions().sort(new ComparatorObject<Transaction>() {
+			sortTransactions(dataset, new ComparatorObject<Transaction>() {
 				@Override
 				/**
 				 * Compare two transactions
@@ -361,8 +452,12 @@ public class AlgoEFIM {
 
 //    	//======
 		// Recursive call to the algorithm
-		// If subtree utility pruning is activated
-		if (activateSubtreeUtilityPruning) {
+		// If several threads are used
+		if (threadCount > 1) {
+			// the primary items are explored by the threads
+			backtrackingEFIMParallel(dataset.getTransactions(), itemsToKeep,
+					activateSubtreeUtilityPruning ? itemsToExplore : itemsToKeep);
+		} else if (activateSubtreeUtilityPruning) {
 			// We call the recursive algorithm with the database, secondary items and
 			// primary items
 			backtrackingEFIM(dataset.getTransactions(), itemsToKeep, itemsToExplore, 0);
@@ -374,11 +469,6 @@ public class AlgoEFIM {
 		// record the end time
 		endTimestamp = System.currentTimeMillis();
 
-		// close the output file
-		if (writer != null) {
-			writer.close();
-		}
-
 		// check the maximum memory usage
 		MemoryLogger.getInstance().checkMemory();
 
@@ -431,6 +521,162 @@ public class AlgoEFIM {
 		}
 	}
 
+	/**
+	 * Remove the unpromising items from the transactions of a dataset and rename the
+	 * other items, with several threads.
+	 * 
+	 * @param dataset the dataset
+	 */
+	private void removeUnpromisingItemsParallel(Dataset dataset) {
+		final ListObject<Transaction> transactions = dataset.getTransactions();
+		final int partitionCount = threadCount;
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					// create a task for each partition of the transactions
+					List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+					for (int p = 0; p < partitionCount; p++) {
+						final int start = (int) ((long) transactions.size() * p / partitionCount);
+						final int end = (int) ((long) transactions.size() * (p + 1) / partitionCount);
+						tasks.add(new RecursiveAction() {
+							private static final long serialVersionUID = 1L;
+
+							@Override
+							protected void compute() {
+								for (int i = start; i < end; i++) {
+									transactions.get(i).removeUnpromisingItems(oldNameToNewNames);
+								}
+							}
+						});
+					}
+					invokeAll(tasks);
+				}
+			});
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Sort the transactions of a dataset. The transactions are copied to an array to use
+	 * a merge sort, which is parallel if several threads are used.
+	 * 
+	 * @param dataset    the dataset
+	 * @param comparator the comparator for sorting the transactions
+	 */
+	private void sortTransactions(Dataset dataset, final ComparatorObject<Transaction> comparator) {
+		ListObject<Transaction> transactions = dataset.getTransactions();
+		final Transaction[] array = new Transaction[transactions.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = transactions.get(i);
+		}
+		if (threadCount > 1) {
+			ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+			try {
+				// the sort is done by the threads of the pool since it is started by one of them
+				pool.submit(() -> Arrays.parallelSort(array, comparator::compare)).join();
+			} finally {
+				pool.shutdown();
+			}
+		} else {
+			Arrays.sort(array, comparator::compare);
+		}
+		for (int i = 0; i < array.length; i++) {
+			transactions.set(i, array[i]);
+		}
+	}
+
+	/**
+	 * Find all high-utility itemsets with several threads. The itemsets starting with
+	 * each primary item are explored by a task.
+	 * 
+	 * @param transactions   the transactions of the dataset
+	 * @param itemsToKeep    the list of secondary items
+	 * @param itemsToExplore the list of primary items
+	 * @throws IOException if error writing to output file
+	 */
+	private void backtrackingEFIMParallel(final ListObject<Transaction> transactions, final ListInt itemsToKeep,
+			final ListInt itemsToExplore) throws IOException {
+		// update the number of candidates explored so far
+		candidateCount += itemsToExplore.size();
+
+		// each thread uses its own copy of this object
+		final List<AlgoEFIM> workers = Collections.synchronizedList(new ArrayList<AlgoEFIM>());
+		threadWorker = ThreadLocal.withInitial(() -> {
+			AlgoEFIM worker = new AlgoEFIM(this);
+			workers.add(worker);
+			return worker;
+		});
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					// create a task for each primary item
+					List<ItemTask> tasks = new ArrayList<ItemTask>();
+					for (int j = 0; j < itemsToExplore.size(); j++) {
+						ItemTask task = new ItemTask(transactions, itemsToKeep, itemsToExplore, j);
+						task.fork();
+						tasks.add(task);
+					}
+					// wait for the tasks (and save their itemsets in order if the output is deterministic)
+					for (ItemTask task : tasks) {
+						task.join();
+						if (deterministicOutput) {
+							writeTaskOutput(task.output);
+						}
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			threadWorker = null;
+		}
+
+		// add the statistics of the threads
+		for (AlgoEFIM worker : workers) {
+			candidateCount += worker.candidateCount;
+			mergeCount += worker.mergeCount;
+			transactionReadingCount += worker.transactionReadingCount;
+			timeIntersections += worker.timeIntersections;
+			timeDatabaseReduction += worker.timeDatabaseReduction;
+			timeIdentifyPromisingItems += worker.timeIdentifyPromisingItems;
+			timeBinarySearch += worker.timeBinarySearch;
+		}
+
+		// check the maximum memory usage for statistics purpose
+		MemoryLogger.getInstance().checkMemory();
+	}
+
+	/**
+	 * Save the itemsets found by a task to the sink or to memory (in parallel mode).
+	 * 
+	 * @param output the itemsets found by the task
+	 */
+	private synchronized void writeTaskOutput(List<Itemset> output) {
+		try {
+			for (Itemset itemset : output) {
+				patternCount++;
+				if (sink == null) {
+					highUtilityItemsets.addItemset(itemset, itemset.size());
+				} else {
+					sink.savePattern(itemset.getItems(), itemset.size(), (long) itemset.getUtility());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		output.clear();
+	}
+
 	/**
 	 * Recursive method to find all high-utility itemsets
 	 * 
@@ -448,55 +694,78 @@ public class AlgoEFIM {
 
 		// ======== for each frequent item e =============
 		for (int j = 0; j < itemsToExplore.size(); j++) {
-			int e = itemsToExplore.get(j);
+			exploreItem(transactionsOfP, itemsToKeep, itemsToExplore, prefixLength, j);
+		}
 
-			// ========== PERFORM INTERSECTION =====================
-			// Calculate transactions containing P U {e}
-			// At the same time project transactions to keep what appears after "e"
-			ArrayListObject<Transaction> transactionsPe = new ArrayListObject<Transaction>();
+		// check the maximum memory usage for statistics purpose
+		MemoryLogger.getInstance().checkMemory();
+	}
 
-			// variable to calculate the utility of P U {e}
-			int utilityPe = 0;
+	/**
+	 * Explore the itemsets starting with P U {e}, where e is an item of the list of primary items.
+	 * 
+	 * @param transactionsOfP the list of transactions containing the current prefix P
+	 * @param itemsToKeep    the list of secondary items in the p-projected database
+	 * @param itemsToExplore the list of primary items in the p-projected database
+	 * @param prefixLength   the current prefix length
+	 * @param j              the position of e in the list of primary items
+	 * @throws IOException if error writing to output file
+	 */
+	private void exploreItem(ListObject<Transaction> transactionsOfP, ListInt itemsToKeep, ListInt itemsToExplore,
+			int prefixLength, int j) throws IOException {
+		int e = itemsToExplore.get(j);
 
-			// For merging transactions, we will keep track of the last transaction read
-			// and the number of identical consecutive transactions
-			Transaction previousTransaction = null;
-			int consecutiveMergeCount = 0;
+		// ========== PERFORM INTERSECTION =====================
+		// Calculate transactions containing P U {e}
+		// At the same time project transactions to keep what appears after "e"
+		ArrayListObject<Transaction> transactionsPe = new ArrayListObject<Transaction>();
 
-			// this variable is to record the time for performing intersection
-			long timeFirstIntersection = System.currentTimeMillis();
+		// variable to calculate the utility of P U {e}
+		int utilityPe = 0;
 
-			// For each transaction
-			for (int w = 0; w < transactionsOfP.size(); w++) {
-				Transaction transaction = transactionsOfP.get(w);
-//	        for(Transaction transaction : transactionsOfP) {
-				// Increase the number of transaction read
-				transactionReadingCount++;
+		// For merging transactions, we will keep track of the last transaction read
+		// and the number of identical consecutive transactions
+		Transaction previousTransaction = null;
+		int consecutiveMergeCount = 0;
 
-				// To record the time for performing binary searh
-				long timeBinaryLocal = System.currentTimeMillis();
+		// this variable is to record the time for performing intersection
+		long timeFirstIntersection = System.currentTimeMillis();
 
-				// we remember the position where e appears.
-				// we will call this position an "offset"
-				int positionE = -1;
-				// Variables low and high for binary search
-				int low = transaction.offset;
-				int high = transaction.items.length - 1;
+		// The transactions of the empty prefix are shared by the threads in parallel mode,
+		// so their offsets are not updated.
+		boolean updateOffsets = (parent == null || prefixLength > 0);
 
-				// perform binary search to find e in the transaction
-				while (high >= low) {
-					int middle = (low + high) >>> 1; // divide by 2
-					if (transaction.items[middle] < e) {
-						low = middle + 1;
-					} else if (transaction.items[middle] == e) {
-						positionE = middle;
-						break;
-					} else {
-						high = middle - 1;
-					}
+		// For each transaction
+		for (int w = 0; w < transactionsOfP.size(); w++) {
+			Transaction transaction = transactionsOfP.get(w);
+//	        for(Transaction transaction : transactionsOfP) {
+			// Increase the number of transaction read
+			transactionReadingCount++;
+
+			// To record the time for performing binary searh
+			long timeBinaryLocal = System.currentTimeMillis();
+
+			// we remember the position where e appears.
+			// we will call this position an "offset"
+			int positionE = -1;
+			// Variables low and high for binary search
+			int low = transaction.offset;
+			int high = transaction.items.length - 1;
+
+			// perform binary search to find e in the transaction
+			while (high >= low) {
+				int middle = (low + high) >>> 1; // divide by 2
+				if (transaction.items[middle] < e) {
+					low = middle + 1;
+				} else if (transaction.items[middle] == e) {
+					positionE = middle;
+					break;
+				} else {
+					high = middle - 1;
 				}
-				// record the time spent for performing the binary search
-				timeBinarySearch += System.currentTimeMillis() - timeBinaryLocal;
+			}
+			// record the time spent for performing the binary search
+			timeBinarySearch += System.currentTimeMillis() - timeBinaryLocal;
 
 //	        	if(prefixLength == 0 && newNamesToOldNames[e] == 385) {
 //		        	for(int i=0; i < transaction.getItems().length; i++) {
@@ -506,181 +775,181 @@ public class AlgoEFIM {
 //		        	}
 //		        }
 
-				// if 'e' was found in the transaction
-				if (positionE > -1) {
+			// if 'e' was found in the transaction
+			if (positionE > -1) {
 
-					// optimization: if the 'e' is the last one in this transaction,
-					// we don't keep the transaction
-					if (transaction.getLastPosition() == positionE) {
-						// but we still update the sum of the utility of P U {e}
-						utilityPe += transaction.utilities[positionE] + transaction.prefixUtility;
-					} else {
-						// otherwise
-						if (activateTransactionMerging
-								&& MAXIMUM_SIZE_MERGING >= (transaction.items.length - positionE)) {
-							// we cut the transaction starting from position 'e'
-							Transaction projectedTransaction = new Transaction(transaction, positionE);
-							utilityPe += projectedTransaction.prefixUtility;
-
-							// if it is the first transaction that we read
-							if (previousTransaction == null) {
-								// we keep the transaction in memory
-								previousTransaction = projectedTransaction;
-							} else if (isEqualTo(projectedTransaction, previousTransaction)) {
-								// If it is not the first transaction of the database and
-								// if the transaction is equal to the previously read transaction,
-								// we will merge the transaction with the previous one
-
-								// increase the number of consecutive transactions merged
-								mergeCount++;
-
-								// if the first consecutive merge
-								if (consecutiveMergeCount == 0) {
-									// copy items and their profit from the previous transaction
-									int itemsCount = previousTransaction.items.length - previousTransaction.offset;
-									int[] items = new int[itemsCount];
-									System.arraycopy(previousTransaction.items, previousTransaction.offset, items, 0,
-											itemsCount);
-									int[] utilities = new int[itemsCount];
-									System.arraycopy(previousTransaction.utilities, previousTransaction.offset,
-											utilities, 0, itemsCount);
-
-									// make the sum of utilities from the previous transaction
-									int positionPrevious = 0;
-									int positionProjection = projectedTransaction.offset;
-									while (positionPrevious < itemsCount) {
-										utilities[positionPrevious] += projectedTransaction.utilities[positionProjection];
-										positionPrevious++;
-										positionProjection++;
-									}
-
-									// make the sum of prefix utilities
-									int sumUtilities = previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
-
-									// create the new transaction replacing the two merged transactions
-									previousTransaction = new Transaction(items, utilities,
-											previousTransaction.transactionUtility
-													+ projectedTransaction.transactionUtility);
-									previousTransaction.prefixUtility = sumUtilities;
-
-								} else {
-									// if not the first consecutive merge
-
-									// add the utilities in the projected transaction to the previously
-									// merged transaction
-									int positionPrevious = 0;
-									int positionProjected = projectedTransaction.offset;
-									int itemsCount = previousTransaction.items.length;
-									while (positionPrevious < itemsCount) {
-										previousTransaction.utilities[positionPrevious] += projectedTransaction.utilities[positionProjected];
-										positionPrevious++;
-										positionProjected++;
-									}
-
-									// make also the sum of transaction utility and prefix utility
-									previousTransaction.transactionUtility += projectedTransaction.transactionUtility;
-									previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
+				// optimization: if the 'e' is the last one in this transaction,
+				// we don't keep the transaction
+				if (transaction.getLastPosition() == positionE) {
+					// but we still update the sum of the utility of P U {e}
+					utilityPe += transaction.utilities[positionE] + transaction.prefixUtility;
+				} else {
+					// otherwise
+					if (activateTransactionMerging
+							&& MAXIMUM_SIZE_MERGING >= (transaction.items.length - positionE)) {
+						// we cut the transaction starting from position 'e'
+						Transaction projectedTransaction = new Transaction(transaction, positionE);
+						utilityPe += projectedTransaction.prefixUtility;
+
+						// if it is the first transaction that we read
+						if (previousTransaction == null) {
+							// we keep the transaction in memory
+							previousTransaction = projectedTransaction;
+						} else if (isEqualTo(projectedTransaction, previousTransaction)) {
+							// If it is not the first transaction of the database and
+							// if the transaction is equal to the previously read transaction,
+							// we will merge the transaction with the previous one
+
+							// increase the number of consecutive transactions merged
+							mergeCount++;
+
+							// if the first consecutive merge
+							if (consecutiveMergeCount == 0) {
+								// copy items and their profit from the previous transaction
+								int itemsCount = previousTransaction.items.length - previousTransaction.offset;
+								int[] items = new int[itemsCount];
+								System.arraycopy(previousTransaction.items, previousTransaction.offset, items, 0,
+										itemsCount);
+								int[] utilities = new int[itemsCount];
+								System.arraycopy(previousTransaction.utilities, previousTransaction.offset,
+										utilities, 0, itemsCount);
+
+								// make the sum of utilities from the previous transaction
+								int positionPrevious = 0;
+								int positionProjection = projectedTransaction.offset;
+								while (positionPrevious < itemsCount) {
+									utilities[positionPrevious] += projectedTransaction.utilities[positionProjection];
+									positionPrevious++;
+									positionProjection++;
 								}
-								// increment the number of consecutive transaction merged
-								consecutiveMergeCount++;
+
+								// make the sum of prefix utilities
+								int sumUtilities = previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
+
+								// create the new transaction replacing the two merged transactions
+								previousTransaction = new Transaction(items, utilities,
+										previousTransaction.transactionUtility
+												+ projectedTransaction.transactionUtility);
+								previousTransaction.prefixUtility = sumUtilities;
+
 							} else {
-								// if the transaction is not equal to the preceding transaction
-								// we cannot merge it so we just add it to the database
-								transactionsPe.add(previousTransaction);
-								// the transaction becomes the previous transaction
-								previousTransaction = projectedTransaction;
-								// and we reset the number of consecutive transactions merged
-								consecutiveMergeCount = 0;
+								// if not the first consecutive merge
+
+								// add the utilities in the projected transaction to the previously
+								// merged transaction
+								int positionPrevious = 0;
+								int positionProjected = projectedTransaction.offset;
+								int itemsCount = previousTransaction.items.length;
+								while (positionPrevious < itemsCount) {
+									previousTransaction.utilities[positionPrevious] += projectedTransaction.utilities[positionProjected];
+									positionPrevious++;
+									positionProjected++;
+								}
+
+								// make also the sum of transaction utility and prefix utility
+								previousTransaction.transactionUtility += projectedTransaction.transactionUtility;
+								previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
 							}
+							// increment the number of consecutive transaction merged
+							consecutiveMergeCount++;
 						} else {
-							// Otherwise, if merging has been deactivated
-							// then we just create the projected transaction
-							Transaction projectedTransaction = new Transaction(transaction, positionE);
-							// we add the utility of Pe in that transaction to the total utility of Pe
-							utilityPe += projectedTransaction.prefixUtility;
-							// we put the projected transaction in the projected database of Pe
-							transactionsPe.add(projectedTransaction);
+							// if the transaction is not equal to the preceding transaction
+							// we cannot merge it so we just add it to the database
+							transactionsPe.add(previousTransaction);
+							// the transaction becomes the previous transaction
+							previousTransaction = projectedTransaction;
+							// and we reset the number of consecutive transactions merged
+							consecutiveMergeCount = 0;
 						}
+					} else {
+						// Otherwise, if merging has been deactivated
+						// then we just create the projected transaction
+						Transaction projectedTransaction = new Transaction(transaction, positionE);
+						// we add the utility of Pe in that transaction to the total utility of Pe
+						utilityPe += projectedTransaction.prefixUtility;
+						// we put the projected transaction in the projected database of Pe
+						transactionsPe.add(projectedTransaction);
 					}
-					// This is an optimization for binary search:
-					// we remember the position of E so that for the next item, we will not search
-					// before "e" in the transaction since items are visited in lexicographical
-					// order
+				}
+				// This is an optimization for binary search:
+				// we remember the position of E so that for the next item, we will not search
+				// before "e" in the transaction since items are visited in lexicographical
+				// order
+				if (updateOffsets) {
 					transaction.offset = positionE;
-				} else {
-					// This is an optimization for binary search:
-					// we remember the position of E so that for the next item, we will not search
-					// before "e" in the transaction since items are visited in lexicographical
-					// order
+				}
+			} else {
+				// This is an optimization for binary search:
+				// we remember the position of E so that for the next item, we will not search
+				// before "e" in the transaction since items are visited in lexicographical
+				// order
+				if (updateOffsets) {
 					transaction.offset = low;
 				}
 			}
-			// remember the total time for peforming the database projection
-			timeIntersections += (System.currentTimeMillis() - timeFirstIntersection);
+		}
+		// remember the total time for peforming the database projection
+		timeIntersections += (System.currentTimeMillis() - timeFirstIntersection);
 
-			// Add the last read transaction to the database if there is one
-			if (previousTransaction != null) {
-				transactionsPe.add(previousTransaction);
-			}
+		// Add the last read transaction to the database if there is one
+		if (previousTransaction != null) {
+			transactionsPe.add(previousTransaction);
+		}
 
-			// Append item "e" to P to obtain P U {e}
-			// but at the same time translate from new name of "e" to its old name
-			temp[prefixLength] = newNamesToOldNames[e];
+		// Append item "e" to P to obtain P U {e}
+		// but at the same time translate from new name of "e" to its old name
+		temp[prefixLength] = newNamesToOldNames[e];
 
-			// if the utility of PU{e} is enough to be a high utility itemset
-			if (utilityPe >= minUtil) {
-				// output PU{e}
-				output(prefixLength, utilityPe);
-			}
-
-			// ==== Next, we will calculate the Local Utility and Sub-tree utility of
-			// all items that could be appended to PU{e} ====
-			useUtilityBinArraysToCalculateUpperBounds(transactionsPe, j, itemsToKeep);
+		// if the utility of PU{e} is enough to be a high utility itemset
+		if (utilityPe >= minUtil) {
+			// output PU{e}
+			output(prefixLength, utilityPe);
+		}
 
-			// we now record time for identifying promising items
-			long initialTime = System.currentTimeMillis();
+		// ==== Next, we will calculate the Local Utility and Sub-tree utility of
+		// all items that could be appended to PU{e} ====
+		useUtilityBinArraysToCalculateUpperBounds(transactionsPe, j, itemsToKeep);
 
-			// We will create the new list of secondary items
-			ArrayListInt newItemsToKeep = new ArrayListInt();
-			// We will create the new list of primary items
-			ArrayListInt newItemsToExplore = new ArrayListInt();
+		// we now record time for identifying promising items
+		long initialTime = System.currentTimeMillis();
 
-			// for each item
-			for (int k = j + 1; k < itemsToKeep.size(); k++) {
-				int itemk = itemsToKeep.get(k);
-
-				// if the sub-tree utility is no less than min util
-				if (utilityBinArraySU[itemk] >= minUtil) {
-					// and if sub-tree utility pruning is activated
-					if (activateSubtreeUtilityPruning) {
-						// consider that item as a primary item
-						newItemsToExplore.add(itemk);
-					}
-					// consider that item as a secondary item
-					newItemsToKeep.add(itemk);
-				} else if (utilityBinArrayLU[itemk] >= minUtil) {
-					// otherwise, if local utility is no less than minutil,
-					// consider this itemt to be a secondary item
-					newItemsToKeep.add(itemk);
+		// We will create the new list of secondary items
+		ArrayListInt newItemsToKeep = new ArrayListInt();
+		// We will create the new list of primary items
+		ArrayListInt newItemsToExplore = new ArrayListInt();
+
+		// for each item
+		for (int k = j + 1; k < itemsToKeep.size(); k++) {
+			int itemk = itemsToKeep.get(k);
+
+			// if the sub-tree utility is no less than min util
+			if (utilityBinArraySU[itemk] >= minUtil) {
+				// and if sub-tree utility pruning is activated
+				if (activateSubtreeUtilityPruning) {
+					// consider that item as a primary item
+					newItemsToExplore.add(itemk);
 				}
-			}
-			// update the total time for identifying promising items
-			timeIdentifyPromisingItems += (System.currentTimeMillis() - initialTime);
-
-			// === recursive call to explore larger itemsets
-			if (activateSubtreeUtilityPruning) {
-				// if sub-tree utility pruning is activated, we consider primary and secondary
-				// items
-				backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToExplore, prefixLength + 1);
-			} else {
-				// if sub-tree utility pruning is deactivated, we consider secondary items also
-				// as primary items
-				backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToKeep, prefixLength + 1);
+				// consider that item as a secondary item
+				newItemsToKeep.add(itemk);
+			} else if (utilityBinArrayLU[itemk] >= minUtil) {
+				// otherwise, if local utility is no less than minutil,
+				// consider this itemt to be a secondary item
+				newItemsToKeep.add(itemk);
 			}
 		}
+		// update the total time for identifying promising items
+		timeIdentifyPromisingItems += (System.currentTimeMillis() - initialTime);
 
-		// check the maximum memory usage for statistics purpose
-		MemoryLogger.getInstance().checkMemory();
+		// === recursive call to explore larger itemsets
+		if (activateSubtreeUtilityPruning) {
+			// if sub-tree utility pruning is activated, we consider primary and secondary
+			// items
+			backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToExplore, prefixLength + 1);
+		} else {
+			// if sub-tree utility pruning is deactivated, we consider secondary items also
+			// as primary items
+			backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToKeep, prefixLength + 1);
+		}
 	}
 
 	/**
@@ -860,10 +1129,21 @@ public class AlgoEFIM {
 	 * @throws IOException if error while writting to output file
 	 */
 	private void output(int tempPosition, int utility) throws IOException {
+		// in parallel mode, the itemset is kept with the itemsets found by the current task
+		if (taskOutput != null) {
+			int[] copy = new int[tempPosition + 1];
+			System.arraycopy(temp, 0, copy, 0, tempPosition + 1);
+			taskOutput.add(new Itemset(copy, utility));
+			// if the output is not deterministic, the itemsets are saved when there are many of them
+			if (!parent.deterministicOutput && taskOutput.size() >= TASK_OUTPUT_BUFFER_SIZE) {
+				parent.writeTaskOutput(taskOutput);
+			}
+			return;
+		}
 		patternCount++;
 
 		// if user wants to save the results to memory
-		if (writer == null) {
+		if (sink == null) {
 			// we copy the temporary buffer into a new int array
 			int[] copy = new int[tempPosition + 1];
 			System.arraycopy(temp, 0, copy, 0, tempPosition + 1);
@@ -871,24 +1151,74 @@ public class AlgoEFIM {
 			// found until now
 			highUtilityItemsets.addItemset(new Itemset(copy, utility), copy.length);
 		} else {
-			// if user wants to save the results to file
-			// create a stringuffer
-			StringBuffer buffer = new StringBuffer();
-			// append each item from the itemset to the stringbuffer, separated by spaces
-			for (int i = 0; i <= tempPosition; i++) {
-				buffer.append(temp[i]);
-				if (i != tempPosition) {
-					buffer.append(' ');
-				}
+			// if user wants to save the results to a sink (e.g. the output file)
+			sink.savePattern(temp, tempPosition + 1, utility);
+		}
+	}
+
+	/**
+	 * Set the number of threads used to explore the search space (by default, 1).
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set if the itemsets should be saved in the same order as with a single thread when
+	 * several threads are used (by default, false).
+	 * 
+	 * @param deterministicOutput true to save the itemsets in a deterministic order
+	 */
+	public void setDeterministicOutput(boolean deterministicOutput) {
+		this.deterministicOutput = deterministicOutput;
+	}
+
+	/**
+	 * A task exploring the itemsets starting with a primary item of the initial database,
+	 * in parallel mode. It uses the copy of the AlgoEFIM object of the current thread.
+	 */
+	private class ItemTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the transactions of the dataset */
+		private final transient ListObject<Transaction> transactions;
+		/** the list of secondary items */
+		private final transient ListInt itemsToKeep;
+		/** the list of primary items */
+		private final transient ListInt itemsToExplore;
+		/** the position of the item in the list of primary items */
+		private final int j;
+		/** the itemsets found by this task that have not been saved yet */
+		final transient List<Itemset> output = new ArrayList<Itemset>();
+
+		/**
+		 * Constructor
+		 */
+		ItemTask(ListObject<Transaction> transactions, ListInt itemsToKeep, ListInt itemsToExplore, int j) {
+			this.transactions = transactions;
+			this.itemsToKeep = itemsToKeep;
+			this.itemsToExplore = itemsToExplore;
+			this.j = j;
+		}
+
+		@Override
+		protected void compute() {
+			AlgoEFIM worker = threadWorker.get();
+			worker.taskOutput = output;
+			try {
+				worker.exploreItem(transactions, itemsToKeep, itemsToExplore, 0, j);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				worker.taskOutput = null;
+			}
+			if (!deterministicOutput) {
+				writeTaskOutput(output);
 			}
-			// append the utility of the itemset
-			buffer.append(" #UTIL: ");
-			buffer.append(utility);
-
-			// write the stringbuffer to file and create a new line
-			// so that we are ready for writing the next itemset.
-			writer.write(buffer.toString());
-			writer.newLine();
 		}
 	}
 
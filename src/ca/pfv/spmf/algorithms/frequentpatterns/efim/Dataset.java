@@ -7,6 +7,8 @@ import java.util.List;
 
 import ca.pfv.spmf.datastructures.collections.list.ArrayListObject;
 import ca.pfv.spmf.datastructures.collections.list.ListObject;
+import ca.pfv.spmf.input.cache.DatasetCache;
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabase;
 /* This file is copyright (c) 2012-2015 Souleymane Zida, Philippe Fournier-Viger, Alan Souza
 * 
 * This file is part of the SPMF DATA MINING SOFTWARE
@@ -47,6 +49,15 @@ public class Dataset {
     	// Initialize a list to store transactions in memory
         transactions = new ArrayListObject<Transaction>();
         
+        // if the file is in binary format, read the transactions without parsing text
+        if(BinaryTransactionDatabase.isBinaryFile(datasetPath)) {
+        	try(BinaryTransactionDatabase database = new BinaryTransactionDatabase(datasetPath)) {
+        		loadBinaryDatabase(database, maximumTransactionCount);
+        	}
+            System.out.println("Transaction count :" +  transactions.size());
+        	return;
+        }
+        
         // Create a buffered reader to read the input file
         BufferedReader br = new BufferedReader(new FileReader(datasetPath));
         String line;
@@ -72,6 +83,71 @@ public class Dataset {
         br.close();
     }
 
+    /**
+     * Constructor that copies a dataset. The arrays of items and utilities
+     * are copied, so that the copy can be modified.
+     * @param dataset the dataset to be copied
+     */
+    private Dataset(Dataset dataset) {
+    	int size = dataset.transactions.size();
+    	transactions = new ArrayListObject<Transaction>(Math.max(size, 1));
+    	for(int i = 0; i < size; i++) {
+    		Transaction transaction = dataset.transactions.get(i);
+    		transactions.add(new Transaction(transaction.items.clone(), transaction.utilities.clone(),
+    				transaction.transactionUtility));
+    	}
+    	maxItem = dataset.maxItem;
+    }
+
+    /**
+     * Get the dataset contained in a file. The dataset read from the file is kept in
+     * the {@link DatasetCache}, so that the file is not read again if it is used
+     * several times. Because EFIM modifies the transactions, a copy of the dataset is returned.
+     * @param datasetPath the path of the file containing the dataset
+     * @param maximumTransactionCount the number of transaction to be read from the input file
+     * @return a copy of the dataset
+     * @throws IOException exception if error reading the file
+     */
+    public static Dataset loadCached(String datasetPath, int maximumTransactionCount) throws IOException {
+    	boolean[] wasRead = new boolean[1];
+    	Dataset dataset = DatasetCache.getInstance().get(datasetPath, Dataset.class,
+    			Integer.toString(maximumTransactionCount), path -> {
+    				wasRead[0] = true;
+    				return new Dataset(path, maximumTransactionCount);
+    			});
+    	// the number of transactions is shown as if the file was read
+    	if(wasRead[0] == false) {
+    		System.out.println("Transaction count :" +  dataset.transactions.size());
+    	}
+    	return new Dataset(dataset);
+    }
+
+    /**
+     * Create the transactions from a database in binary format
+     * @param database the binary database (it must contain utility values)
+     * @param maximumTransactionCount the number of transaction to be read
+     * @throws IOException if the database does not contain utility values
+     */
+    private void loadBinaryDatabase(BinaryTransactionDatabase database, int maximumTransactionCount) throws IOException {
+    	if(database.hasUtilities() == false) {
+    		throw new IOException("The binary database does not contain utility values");
+    	}
+    	int count = Math.min(database.size(), maximumTransactionCount);
+    	for(int t = 0; t < count; t++) {
+    		int length = database.getTransactionLength(t);
+    		int[] items = new int[length];
+    		int[] utilities = new int[length];
+    		database.getItems(t, items);
+    		database.getUtilities(t, utilities);
+    		for (int i = 0; i < length; i++) {
+    			if(items[i] > maxItem) {
+    				maxItem = items[i];
+    			}
+    		}
+    		transactions.add(new Transaction(items, utilities, database.getTransactionUtility(t)));
+    	}
+    }
+
     /**
      * Create a transaction object from a line from the input file
      * @param line a line from input file
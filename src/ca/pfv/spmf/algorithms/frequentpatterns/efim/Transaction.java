@@ -24,11 +24,6 @@ package ca.pfv.spmf.algorithms.frequentpatterns.efim;
  */
 public class Transaction {
 	
-	/** a buffer to store items of an itemset*/
-	public static int[] tempItems = new int[2000];
-	/** a buffer to store utilities of an itemset */
-	public static int[] tempUtilities = new int[2000];
-
 	/** an offset pointer, used by projected transactions*/
 	int offset;
 	
@@ -136,9 +131,17 @@ public class Transaction {
      * @param oldNamesToNewNames An array indicating for each old name, the corresponding new name.
      */
 	public void removeUnpromisingItems(int[] oldNamesToNewNames) {
-    	// In this method, we used buffers for temporary storing items and their utilities
-		// (tempItems and tempUtilities)
-		// This is for memory optimization.
+		// We first count the promising items, so that the new arrays can be created
+		// without using shared buffers (this method may be called by several threads
+		// for different transactions).
+		int promisingCount = 0;
+		for(int j=0; j< items.length;j++) {
+			if(oldNamesToNewNames[items[j]] != 0) {
+				promisingCount++;
+			}
+		}
+		int[] newItems = new int[promisingCount];
+		int[] newUtilities = new int[promisingCount];
 		
     	// for each item
     	int i = 0;
@@ -151,21 +154,16 @@ public class Transaction {
     		// if the item is promising (it has a new name)
     		if(newName != 0) {
     			// copy the item and its utility
-    			tempItems[i] = newName;
-    			tempUtilities[i] = utilities[j];
+    			newItems[i] = newName;
+    			newUtilities[i] = utilities[j];
     			i++;
     		}else{
     			// else subtract the utility of the item
     			transactionUtility -= utilities[j];
     		}
     	}
-    	// copy the buffer of items back into the original array
-    	this.items = new int[i];
-    	System.arraycopy(tempItems, 0, this.items, 0, i);
-    	
-    	// copy the buffer of utilities back into the original array
-    	this.utilities = new int[i];
-    	System.arraycopy(tempUtilities, 0, this.utilities, 0, i);
+    	this.items = newItems;
+    	this.utilities = newUtilities;
     	
     	// Sort by increasing TWU values
     	insertionSort(this.items, this.utilities);
@@ -24,6 +24,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,6 +32,8 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
@@ -48,6 +51,16 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This is a version that saves the result to a file
  * or keep it into memory if no output path is provided
  * by the user to the runAlgorithm method().
+ * <br/><br/>
+ * 
+ * The FP-tree can be mined by several threads (see setThreadCount()). Then, each item
+ * of the initial FP-tree is mined by a fork/join task, using a copy of this object
+ * that belongs to the current thread and has its own CFITree. Since the CFITree of a
+ * thread does not contain the itemsets found by the other threads, an itemset found
+ * by a thread is only a candidate. After all tasks are finished, the candidates are
+ * inserted in a new CFITree by decreasing length to keep only the closed itemsets.
+ * The result is the same as with a single thread, but the itemsets are saved by
+ * decreasing length.
  * 
  * I have tried to follow the paper as much as possible. However, I did not
  * use the FPArray optimization
@@ -108,6 +121,19 @@ public class AlgoFPClose {
 		}
 	};
 
+	/** the number of threads used to mine the FP-tree */
+	private int threadCount = 1;
+
+	/** the pool of threads (only in parallel mode) */
+	private ForkJoinPool pool = null;
+
+	/** the copy of this object used by each thread (only in parallel mode) */
+	private ThreadLocal<AlgoFPClose> threadWorker = null;
+
+	/** the itemsets found by this object that may not be closed because other threads
+	 * have found other itemsets (only in parallel mode, otherwise null) */
+	private List<Itemset> candidates = null;
+
 	/**
 	 * Constructor
 	 */
@@ -115,6 +141,21 @@ public class AlgoFPClose {
 		
 	}
 
+	/**
+	 * Constructor of the copy of an AlgoFPClose object that is used by a thread to mine
+	 * a part of the FP-tree in parallel mode.
+	 * @param algorithm the original object
+	 */
+	private AlgoFPClose(AlgoFPClose algorithm) {
+		minSupportRelative = algorithm.minSupportRelative;
+		originalMapSupport = algorithm.originalMapSupport;
+		itemsetBuffer = new int[BUFFERS_SIZE];
+		countBuffer = new int[BUFFERS_SIZE];
+		cfiTree = new CFITree();
+		cfiTree.setComparator(comparatorOriginalOrder);
+		candidates = new ArrayList<Itemset>();
+	}
+
 	/**
 	 * Method to run the FPGRowth algorithm.
 	 * @param input the path to an input file containing a transaction database.
@@ -209,7 +250,11 @@ public class AlgoFPClose {
 			itemsetBuffer = new int[BUFFERS_SIZE];
 			countBuffer = new int[BUFFERS_SIZE];
 			// Next we will recursively generate frequent itemsets using the fp-tree
-			fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+			if(threadCount > 1){
+				fpcloseParallel(tree);
+			}else{
+				fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+			}
 		}
 		
 		// close the output file if the result was saved to a file
@@ -227,6 +272,54 @@ public class AlgoFPClose {
 	}
 
 	
+	/**
+	 * Mine the initial FP-tree with several threads.
+	 * @param tree  the FP-tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpcloseParallel(FPTree tree) throws IOException {
+		// the itemsets found by the threads are first kept as candidates
+		candidates = new ArrayList<Itemset>();
+		// each thread uses its own copy of this object
+		List<AlgoFPClose> workers = Collections.synchronizedList(new ArrayList<AlgoFPClose>());
+		threadWorker = ThreadLocal.withInitial(() -> {
+			AlgoFPClose worker = new AlgoFPClose(this);
+			workers.add(worker);
+			return worker;
+		});
+		pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try{
+			fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}finally{
+			pool.shutdown();
+			pool = null;
+			threadWorker = null;
+		}
+		List<Itemset> allCandidates = candidates;
+		for(AlgoFPClose worker : workers){
+			allCandidates.addAll(worker.candidates);
+		}
+		candidates = null;
+
+		// A candidate is closed if it has no superset with the same support found by another thread.
+		// The candidates are inserted in a new CFITree by decreasing length, so that
+		// the supersets of an itemset are checked before it.
+		Collections.sort(allCandidates, new Comparator<Itemset>(){
+			public int compare(Itemset itemset1, Itemset itemset2){
+				return itemset2.size() - itemset1.size();
+			}
+		});
+		cfiTree = new CFITree();
+		cfiTree.setComparator(comparatorOriginalOrder);
+		for(Itemset candidate : allCandidates){
+			if(cfiTree.passSubsetChecking(candidate.getItems(), candidate.size(), candidate.getAbsoluteSupport())){
+				saveItemset(candidate.getItems(), candidate.size(), candidate.getAbsoluteSupport());
+			}
+		}
+	}
+
 	/**
 	 * Mine an FP-Tree having more than one path.
 	 * @param tree  the FP-tree
@@ -324,120 +417,153 @@ public class AlgoFPClose {
 		}else {
 			// Case 2: There are multiple paths.
 			
+			// the tasks mining the items of the initial FP-tree in parallel mode
+			List<FPCloseTask> tasks = null;
 			// For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
 			for(int i = tree.headerList.size()-1; i>=0; i--){
 				// get the item
 				Integer item = tree.headerList.get(i);
-				
-				// get the item support
-				int support = mapSupport.get(item);
-				
-				// calculate the support of the new prefix beta
-				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
 
-				// Create Beta by concatening item to the current prefix  alpha
-				prefix[prefixLength] = item;
-				countBuffer[prefixLength] = betaSupport;
-				
-				// === (A) Construct beta's conditional pattern base ===
-				// It is a subdatabase which consists of the set of prefix paths
-				// in the FP-tree co-occuring with the prefix pattern.
-				List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-				FPNode path = tree.mapItemNodes.get(item);
-				
-				// Map to count the support of items in the conditional prefix tree
-				// Key: item   Value: support
-				Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-				
-				while(path != null){
-					// if the path is not just the root node
-					if(path.parent.itemID != -1){
-						// create the prefixpath
-						List<FPNode> prefixPath = new ArrayList<FPNode>();
-						// add this node.
-						prefixPath.add(path);   // NOTE: we add it just to keep its support,
-						// actually it should not be part of the prefixPath
-						
-						// ####
-						int pathCount = path.counter;
-						
-						//Recursively add all the parents of this node.
-						FPNode parent = path.parent;
-						while(parent.itemID != -1){
-							prefixPath.add(parent);
-							
-							// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-							// if the first time we see that node id
-							if(mapSupportBeta.get(parent.itemID) == null){
-								// just add the path count
-								mapSupportBeta.put(parent.itemID, pathCount);
-							}else{
-								// otherwise, make the sum with the value already stored
-								mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-							}
-							parent = parent.parent;
-						}
-						// add the path to the list of prefixpaths
-						prefixPaths.add(prefixPath);
+				// in parallel mode, each item of the initial FP-tree is mined by a task
+				if(pool != null){
+					if(tasks == null){
+						tasks = new ArrayList<FPCloseTask>();
 					}
-					// We will look for the next prefixpath
-					path = path.nodeLink;
+					tasks.add(new FPCloseTask(tree, item, prefixSupport, mapSupport));
+					pool.execute(tasks.get(tasks.size()-1));
+				}else{
+					fpcloseItem(tree, item, prefix, prefixLength, prefixSupport, mapSupport);
 				}
+			}
+			// wait for the tasks
+			if(tasks != null){
+				for(FPCloseTask task : tasks){
+					task.join();
+				}
+			}
+		}
+	}
 
-				
-				// ===== FP-CLOSE ======
-				// concatenate Beta (Head) with the item "item" (i) to check 
-				// for closure
-				int[] headWithP = new int[prefixLength+1];
-				System.arraycopy(prefix, 0, headWithP, 0, prefixLength+1);
-				
-				// Sort Head U {item} according to the original header list total order on items
-				// sort item in the transaction by descending order of support
-				sortOriginalOrder(headWithP, prefixLength+1);
+	/**
+	 * Mine the itemsets starting with a prefix followed by an item of the header table
+	 * of an FP-tree, using the conditional FP-tree of the item.
+	 * @param tree  the FP-tree
+	 * @param item  the item
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpcloseItem(FPTree tree, Integer item, int [] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+		
+		// get the item support
+		int support = mapSupport.get(item);
+		
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
 
-				//======= DEBUG ========
-				if(DEBUG) {
-					System.out.println(" CHECK2 : " + Arrays.toString(headWithP) + " sup=" + betaSupport);
-				}
-				//========== END DEBUG =======
+		// Create Beta by concatening item to the current prefix  alpha
+		prefix[prefixLength] = item;
+		countBuffer[prefixLength] = betaSupport;
+		
+		// === (A) Construct beta's conditional pattern base ===
+		// It is a subdatabase which consists of the set of prefix paths
+		// in the FP-tree co-occuring with the prefix pattern.
+		List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+		FPNode path = tree.mapItemNodes.get(item);
+		
+		// Map to count the support of items in the conditional prefix tree
+		// Key: item   Value: support
+		Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+		
+		while(path != null){
+			// if the path is not just the root node
+			if(path.parent.itemID != -1){
+				// create the prefixpath
+				List<FPNode> prefixPath = new ArrayList<FPNode>();
+				// add this node.
+				prefixPath.add(path);   // NOTE: we add it just to keep its support,
+				// actually it should not be part of the prefixPath
+				
+				// ####
+				int pathCount = path.counter;
 				
-				// CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
-				if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
+				//Recursively add all the parents of this node.
+				FPNode parent = path.parent;
+				while(parent.itemID != -1){
+					prefixPath.add(parent);
 					
-					if(DEBUG) {
-						System.out.println("    passed!");
-					}
-					// (B) Construct beta's conditional FP-Tree using its prefix path
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for(List<FPNode> prefixPath : prefixPaths){
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
-					}  
-					// Mine recursively the Beta tree if the root has child(s)
-					if(treeBeta.root.childs.size() > 0){
-
-						// Create the header list.
-						treeBeta.createHeaderList(originalMapSupport); 
-						
-						// recursive call
-						fpclose(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
-					}
-					// if the tree is empty we still need to try to save the 
-					// itemset
-					if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
-						saveItemset(headWithP, prefixLength+1, betaSupport);
+					// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+					// if the first time we see that node id
+					if(mapSupportBeta.get(parent.itemID) == null){
+						// just add the path count
+						mapSupportBeta.put(parent.itemID, pathCount);
+					}else{
+						// otherwise, make the sum with the value already stored
+						mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
 					}
+					parent = parent.parent;
 				}
-				else {
-					if(DEBUG) {
-						System.out.println("     failed!");
-					}
+				// add the path to the list of prefixpaths
+				prefixPaths.add(prefixPath);
+			}
+			// We will look for the next prefixpath
+			path = path.nodeLink;
+		}
+
+		
+		// ===== FP-CLOSE ======
+		// concatenate Beta (Head) with the item "item" (i) to check 
+		// for closure
+		int[] headWithP = new int[prefixLength+1];
+		System.arraycopy(prefix, 0, headWithP, 0, prefixLength+1);
+		
+		// Sort Head U {item} according to the original header list total order on items
+		// sort item in the transaction by descending order of support
+		sortOriginalOrder(headWithP, prefixLength+1);
+
+		//======= DEBUG ========
+		if(DEBUG) {
+			System.out.println(" CHECK2 : " + Arrays.toString(headWithP) + " sup=" + betaSupport);
+		}
+		//========== END DEBUG =======
+		
+		// CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
+		if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
+			
+			if(DEBUG) {
+				System.out.println("    passed!");
+			}
+			// (B) Construct beta's conditional FP-Tree using its prefix path
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for(List<FPNode> prefixPath : prefixPaths){
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
+			}  
+			// Mine recursively the Beta tree if the root has child(s)
+			if(treeBeta.root.childs.size() > 0){
+
+				// Create the header list.
+				treeBeta.createHeaderList(originalMapSupport); 
+				
+				// recursive call
+				fpclose(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+			}
+			// if the tree is empty we still need to try to save the 
+			// itemset
+			if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
+				saveItemset(headWithP, prefixLength+1, betaSupport);
+			}
+		}
+		else {
+			if(DEBUG) {
+				System.out.println("     failed!");
+			}
 //					// OPTIMIZATION ONLY IN FPCLOSE:  IF THE CLOSURE CHECKING iS NOT PASSED
 //					// WE STOP THIS LOOP BECAUSE THE NEXT ITEMS WILL NOT PASS IT EITHER
 //					break;
-				}
-			}
 		}
 	}
 
@@ -466,6 +592,14 @@ public class AlgoFPClose {
 		// add the itemset to the CFI-TREE
 		cfiTree.addCFI(itemsetCopy, itemsetCopy.length, support);
 		
+		// in parallel mode, the itemset is kept as a candidate
+		if(candidates != null){
+			Itemset candidate = new Itemset(itemsetCopy);
+			candidate.setAbsoluteSupport(support);
+			candidates.add(candidate);
+			return;
+		}
+		
 		// increase the number of itemsets found for statistics purpose
 		itemsetCount++;
 		
@@ -585,4 +719,51 @@ public class AlgoFPClose {
 	public int getDatabaseSize() {
 		return transactionCount;
 	}
+
+	/**
+	 * Set the number of threads used to mine the FP-tree (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * A task mining the itemsets starting with an item of the initial FP-tree, in parallel
+	 * mode. It uses the copy of the AlgoFPClose object of the current thread.
+	 */
+	private class FPCloseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the FP-tree */
+		private final transient FPTree tree;
+		/** the item */
+		private final Integer item;
+		/** the support of the empty prefix (the number of transactions) */
+		private final int prefixSupport;
+		/** the frequency of items in the FP-tree */
+		private final transient Map<Integer, Integer> mapSupport;
+
+		/**
+		 * Constructor
+		 */
+		FPCloseTask(FPTree tree, Integer item, int prefixSupport, Map<Integer, Integer> mapSupport) {
+			this.tree = tree;
+			this.item = item;
+			this.prefixSupport = prefixSupport;
+			this.mapSupport = mapSupport;
+		}
+
+		@Override
+		protected void compute() {
+			AlgoFPClose worker = threadWorker.get();
+			try {
+				worker.fpcloseItem(tree, item, worker.itemsetBuffer, 0, prefixSupport, mapSupport);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
 }
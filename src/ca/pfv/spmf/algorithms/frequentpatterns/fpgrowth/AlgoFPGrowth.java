@@ -19,11 +19,10 @@
 
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,9 +30,17 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
+import ca.pfv.spmf.patterns.sink.PatternSink;
+import ca.pfv.spmf.patterns.sink.SynchronizedPatternSink;
+import ca.pfv.spmf.patterns.sink.TextPatternSink;
+import ca.pfv.spmf.tools.ExecutionProfile;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 /** 
@@ -47,6 +54,18 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This is an optimized version that saves the result to a file
  * or keep it into memory if no output path is provided
  * by the user to the runAlgorithm method().
+ * <br/><br/>
+ * 
+ * The FP-tree can be mined by several threads (see setThreadCount()). Then,
+ * the conditional FP-tree of an item is mined by a fork/join task if its
+ * conditional pattern base has at least a given number of prefix paths (see
+ * setParallelThreshold()), and otherwise by the current thread. Idle threads steal
+ * the tasks of the other threads. The itemsets are the same as with a single thread
+ * but the order in which they are found is not deterministic.
+ * <br/><br/>
+ * 
+ * To reduce memory usage on dense datasets, a CompactFPTree can be used instead of
+ * a FPTree (see setUseCompactTree()). It is then mined by a single thread.
  *
  * @see FPTree
  * @see Itemset
@@ -64,7 +83,7 @@ public class AlgoFPGrowth {
 	// parameter
 	public int minSupportRelative;// the relative minimum support
 	
-	BufferedWriter writer = null; // object to write the output file
+	PatternSink sink = null; // object to save the itemsets (e.g. to the output file)
 	
 	// The  patterns that are found 
 	// (if the user wants to keep them into memory)
@@ -91,6 +110,36 @@ public class AlgoFPGrowth {
 	/** minimum pattern length */
 	private int minPatternLength = 0;
 
+	/** the default minimum number of prefix paths of a conditional pattern base to create a task */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+
+	/** the number of threads used to mine the FP-tree */
+	private int threadCount = 1;
+
+	/** the minimum number of prefix paths of a conditional pattern base to create a task */
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	/** the pool of threads (only in parallel mode) */
+	private ForkJoinPool pool = null;
+
+	/** the buffers of each thread for storing fpnodes of a single path (only in parallel mode) */
+	private ThreadLocal<FPNode[]> threadNodeBuffer = null;
+
+	/** the buffers of each thread for sorting the itemsets that are output (only in parallel mode) */
+	private ThreadLocal<int[]> threadOutputBuffer = null;
+
+	/** the number of freq. itemsets found by the threads (only in parallel mode) */
+	private LongAdder parallelItemsetCount = null;
+
+	/** if true, a CompactFPTree is used instead of a FPTree */
+	private boolean useCompactTree = false;
+
+	/** the rank of each frequent item in the CompactFPTree (index: item, value: rank) */
+	private int[] itemToRank = null;
+
+	/** buffer for storing the nodes of a single path of a CompactFPTree */
+	private int[] compactNodeBuffer = null;
+
 
 
 	/**
@@ -102,7 +151,8 @@ public class AlgoFPGrowth {
 
 	/**
 	 * Method to run the FPGRowth algorithm.
-	 * @param input the path to an input file containing a transaction database.
+	 * @param input the path to an input file containing a transaction database
+	 *        (in SPMF text format or in the binary format of BinaryTransactionDatabase).
 	 * @param output the output file path for saving the result (if null, the result 
 	 *        will be returned by the method instead of being saved).
 	 * @param minsupp the minimum support threshold.
@@ -110,6 +160,32 @@ public class AlgoFPGrowth {
 	 * @throws IOException exception if error reading or writing files
 	 */
 	public Itemsets runAlgorithm(String input, String output, double minsupp) throws FileNotFoundException, IOException {
+		// if the user want to keep the result into memory
+		if(output == null){
+			return runAlgorithmWithSink(input, null, minsupp);
+		}
+		// if the user want to save the result to a file
+		PatternSink fileSink = new TextPatternSink(output, "#SUP:");
+		try{
+			return runAlgorithmWithSink(input, fileSink, minsupp);
+		}finally{
+			// close the output file
+			fileSink.close();
+		}
+	}
+
+	/**
+	 * Method to run the FPGRowth algorithm and give each frequent itemset to a pattern sink
+	 * (e.g. to only count the itemsets or to process them as they are found).
+	 * @param input the path to an input file containing a transaction database
+	 *        (in SPMF text format or in the binary format of BinaryTransactionDatabase).
+	 * @param sink the sink that receives the itemsets, sorted by lexical order (if null, the result 
+	 *        will be returned by the method instead). The sink is not closed by this method.
+	 * @param minsupp the minimum support threshold.
+	 * @return the result if no sink is provided.
+	 * @throws IOException exception if error reading the input file or saving the result
+	 */
+	public Itemsets runAlgorithmWithSink(String input, PatternSink sink, double minsupp) throws FileNotFoundException, IOException {
 		// record start time
 		startTimestamp = System.currentTimeMillis();
 		// number of itemsets found
@@ -118,96 +194,149 @@ public class AlgoFPGrowth {
 		//initialize tool to record memory usage
 		MemoryLogger.getInstance().reset();
 		MemoryLogger.getInstance().checkMemory();
+		// the time of the construction of the FP-tree and of the mining is measured
+		ExecutionProfile profile = MemoryLogger.getInstance().getProfile();
+		profile.startPhase("tree construction");
 		
+		this.sink = sink;
 		// if the user want to keep the result into memory
-		if(output == null){
-			writer = null;
+		if(sink == null){
 			patterns =  new Itemsets("FREQUENT ITEMSETS");
-	    }else{ // if the user want to save the result to a file
+	    }else{ // if the user want to save the result to a sink
 			patterns = null;
-			writer = new BufferedWriter(new FileWriter(output)); 
 			itemsetOutputBuffer = new int[BUFFERS_SIZE];
 		}
 		
 		// (1) PREPROCESSING: Initial database scan to determine the frequency of each item
 		// The frequency is stored in a map:
 		//    key: item   value: support
-		final Map<Integer, Integer> mapSupport = scanDatabaseToDetermineFrequencyOfSingleItems(input); 
-
-		// convert the minimum support as percentage to a
-		// relative minimum support
-		this.minSupportRelative = (int) Math.ceil(minsupp * transactionCount);
-		
-		// (2) Scan the database again to build the initial FP-Tree
-		// Before inserting a transaction in the FPTree, we sort the items
-		// by descending order of support.  We ignore items that
-		// do not have the minimum support.
+		Map<Integer, Integer> mapSupport;
 		FPTree tree = new FPTree();
+		// or the compact FP-tree (if the user wants to use it)
+		CompactFPTree compactTree = null;
 		
-		// read the file
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
-		// for each line (transaction) until the end of the file
-		while( ((line = reader.readLine())!= null)){ 
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||	line.charAt(0) == '#' || line.charAt(0) == '%'
-				|| line.charAt(0) == '@') {
-				continue;
+		// if the input file is in the binary format, it is read without parsing text
+		if(BinaryTransactionDatabase.isBinaryFile(input)){
+			try(BinaryTransactionDatabase database = new BinaryTransactionDatabase(input)){
+				mapSupport = scanBinaryDatabaseToDetermineFrequencyOfSingleItems(database);
+				
+				// convert the minimum support as percentage to a
+				// relative minimum support
+				this.minSupportRelative = (int) Math.ceil(minsupp * transactionCount);
+				if(useCompactTree){
+					compactTree = createCompactTree(mapSupport);
+				}
+				
+				// (2) Scan the database again to build the initial FP-Tree
+				int[] buffer = new int[BUFFERS_SIZE];
+				for(int t = 0; t < database.size(); t++){
+					int length = database.getTransactionLength(t);
+					if(length > buffer.length){
+						buffer = new int[length];
+					}
+					database.getItems(t, buffer);
+					List<Integer> transaction = new ArrayList<Integer>();
+					// only add items that have the minimum support
+					for(int i = 0; i < length; i++){
+						if(mapSupport.get(buffer[i]) >= minSupportRelative){
+							transaction.add(buffer[i]);
+						}
+					}
+					if(compactTree != null){
+						addTransactionToCompactTree(compactTree, transaction);
+					}else{
+						addTransactionToTree(tree, transaction, mapSupport);
+					}
+				}
+			}
+		}else{
+			mapSupport = scanDatabaseToDetermineFrequencyOfSingleItems(input); 
+	
+			// convert the minimum support as percentage to a
+			// relative minimum support
+			this.minSupportRelative = (int) Math.ceil(minsupp * transactionCount);
+			if(useCompactTree){
+				compactTree = createCompactTree(mapSupport);
 			}
 			
-			String[] lineSplited = line.split(" ");
-//			Set<Integer> alreadySeen = new HashSet<Integer>();
-			List<Integer> transaction = new ArrayList<Integer>();
+			// (2) Scan the database again to build the initial FP-Tree
+			// Before inserting a transaction in the FPTree, we sort the items
+			// by descending order of support.  We ignore items that
+			// do not have the minimum support.
 			
-			// for each item in the transaction
-			for(String itemString : lineSplited){  
-				Integer item = Integer.parseInt(itemString);
-				// only add items that have the minimum support
-				if(mapSupport.get(item) >= minSupportRelative){
-					transaction.add(item);	
+			// read the file
+			BufferedReader reader = new BufferedReader(new FileReader(input));
+			String line;
+			// for each line (transaction) until the end of the file
+			while( ((line = reader.readLine())!= null)){ 
+				// if the line is  a comment, is  empty or is a
+				// kind of metadata
+				if (line.isEmpty() == true ||	line.charAt(0) == '#' || line.charAt(0) == '%'
+					|| line.charAt(0) == '@') {
+					continue;
 				}
-			}
-			// sort item in the transaction by descending order of support
-			Collections.sort(transaction, new Comparator<Integer>(){
-				public int compare(Integer item1, Integer item2){
-					// compare the frequency
-					int compare = mapSupport.get(item2) - mapSupport.get(item1);
-					// if the same frequency, we check the lexical ordering!
-					if(compare == 0){ 
-						return (item1 - item2);
+				
+				String[] lineSplited = line.split(" ");
+//				Set<Integer> alreadySeen = new HashSet<Integer>();
+				List<Integer> transaction = new ArrayList<Integer>();
+				
+				// for each item in the transaction
+				for(String itemString : lineSplited){  
+					Integer item = Integer.parseInt(itemString);
+					// only add items that have the minimum support
+					if(mapSupport.get(item) >= minSupportRelative){
+						transaction.add(item);	
 					}
-					// otherwise, just use the frequency
-					return compare;
 				}
-			});
-			// add the sorted transaction to the fptree.
-			tree.addTransaction(transaction);
+				if(compactTree != null){
+					addTransactionToCompactTree(compactTree, transaction);
+				}else{
+					addTransactionToTree(tree, transaction, mapSupport);
+				}
+			}
+			// close the input file
+			reader.close();
 		}
-		// close the input file
-		reader.close();
 		
-		// We create the header table for the tree using the calculated support of single items
-		tree.createHeaderList(mapSupport);
+		profile.endPhase("tree construction");
+		profile.startPhase("mining");
 		
 		// (5) We start to mine the FP-Tree by calling the recursive method.
 		// Initially, the prefix alpha is empty.
-		// if at least an item is frequent
-		if(tree.headerList.size() > 0) {
-			// initialize the buffer for storing the current itemset
-			itemsetBuffer = new int[BUFFERS_SIZE];
-			// and another buffer
-			fpNodeTempBuffer = new FPNode[BUFFERS_SIZE];
-			// recursively generate frequent itemsets using the fp-tree
-			// Note: we assume that the initial FP-Tree has more than one path
-			// which should generally be the case.
-			fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
+		if(compactTree != null){
+			// (the header table of the compact FP-tree contains the frequent items)
+			// if at least an item is frequent
+			if(compactTree.getRankCount() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				// and another buffer
+				compactNodeBuffer = new int[BUFFERS_SIZE];
+				// recursively generate frequent itemsets using the compact fp-tree
+				fpgrowthCompact(compactTree, itemsetBuffer, 0, transactionCount);
+			}
+		}else{
+			// We create the header table for the tree using the calculated support of single items
+			tree.createHeaderList(mapSupport);
+			
+			// if at least an item is frequent
+			if(tree.headerList.size() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				// and another buffer
+				fpNodeTempBuffer = new FPNode[BUFFERS_SIZE];
+				// recursively generate frequent itemsets using the fp-tree
+				// Note: we assume that the initial FP-Tree has more than one path
+				// which should generally be the case.
+				if(threadCount > 1){
+					fpgrowthParallel(tree, mapSupport);
+				}else{
+					fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
+				}
+			}
 		}
 		
-		// close the output file if the result was saved to a file
-		if(writer != null){
-			writer.close();
-		}
+		profile.endPhase("mining");
+		
 		// record the execution end time
 		endTime= System.currentTimeMillis();
 		
@@ -220,6 +349,37 @@ public class AlgoFPGrowth {
 
 
 	
+	/**
+	 * Mine the initial FP-tree with several threads.
+	 * @param tree  the FP-tree
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpgrowthParallel(FPTree tree, Map<Integer, Integer> mapSupport) throws IOException {
+		// the threads save their itemsets to the same sink
+		PatternSink originalSink = sink;
+		if(sink != null){
+			sink = new SynchronizedPatternSink(sink);
+		}
+		// each thread has its own buffers
+		threadNodeBuffer = ThreadLocal.withInitial(() -> new FPNode[BUFFERS_SIZE]);
+		threadOutputBuffer = ThreadLocal.withInitial(() -> new int[BUFFERS_SIZE]);
+		parallelItemsetCount = new LongAdder();
+		pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try{
+			pool.invoke(new FPGrowthTask(tree, null, itemsetBuffer, 0, transactionCount, mapSupport));
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}finally{
+			pool.shutdown();
+			pool = null;
+			sink = originalSink;
+			itemsetCount += parallelItemsetCount.intValue();
+			threadNodeBuffer = null;
+			threadOutputBuffer = null;
+		}
+	}
+
 	/**
 	 * Mine an FP-Tree having more than one path.
 	 * @param tree  the FP-tree
@@ -243,6 +403,9 @@ public class AlgoFPGrowth {
 ////				========== END DEBUG =======
 //		System.out.println(tree);
 		
+		// the buffer for storing the nodes of a single path (each thread has its own)
+		FPNode[] nodeBuffer = (pool == null) ? fpNodeTempBuffer : threadNodeBuffer.get();
+
 		// We will check if the FPtree contains a single path
 		boolean singlePath = true;
 		// This variable is used to count the number of items in the single path
@@ -265,7 +428,7 @@ public class AlgoFPGrowth {
 				}
 				// otherwise, we copy the current item in the buffer and move to the child
 				// the buffer will be used to store all items in the path
-				fpNodeTempBuffer[position] = currentNode;
+				nodeBuffer[position] = currentNode;
 				
 				position++;
 				// if this node has no child, that means that this is the end of this path
@@ -280,18 +443,221 @@ public class AlgoFPGrowth {
 		// Case 1: the FPtree contains a single path
 		if(singlePath){	
 			// We save the path, because it is a maximal itemset
-			saveAllCombinationsOfPrefixPath(fpNodeTempBuffer, position, prefix, prefixLength);
+			saveAllCombinationsOfPrefixPath(nodeBuffer, position, prefix, prefixLength);
 		}else {
+			// the tasks created to mine the conditional FP-trees of some items in parallel
+			List<FPGrowthTask> tasks = null;
 			// For each frequent item in the header table list of the tree in reverse order.
 			for(int i = tree.headerList.size()-1; i>=0; i--){
 				// get the item
 				Integer item = tree.headerList.get(i);
-				
-				// get the item support
-				int support = mapSupport.get(item);
+
+				// In parallel mode, if the conditional pattern base of the item is large enough,
+				// it is mined by a new task, which may be stolen by another thread.
+				// The task has its own copy of the prefix since this one will be modified.
+				if(pool != null && countPrefixPaths(tree, item) >= parallelThreshold){
+					int[] prefixCopy = new int[BUFFERS_SIZE];
+					System.arraycopy(prefix, 0, prefixCopy, 0, prefixLength);
+					FPGrowthTask task = new FPGrowthTask(tree, item, prefixCopy, prefixLength, prefixSupport, mapSupport);
+					task.fork();
+					if(tasks == null){
+						tasks = new ArrayList<FPGrowthTask>();
+					}
+					tasks.add(task);
+				}else{
+					// otherwise, it is mined by the current thread
+					fpgrowthItem(tree, item, prefix, prefixLength, prefixSupport, mapSupport);
+				}
+			}
+			// wait for the tasks (the current thread executes those that were not stolen)
+			if(tasks != null){
+				for(int i = tasks.size()-1; i>=0; i--){
+					tasks.get(i).join();
+				}
+			}
+		}
+		
+	}
+
+	/**
+	 * Mine the itemsets starting with a prefix followed by an item of the header table
+	 * of an FP-tree, using the conditional FP-tree of the item.
+	 * @param tree  the FP-tree
+	 * @param item  the item
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpgrowthItem(FPTree tree, Integer item, int [] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+		// get the item support
+		int support = mapSupport.get(item);
 	
+		// Create Beta by concatening prefix Alpha by adding the current item to alpha
+		prefix[prefixLength] = item;
+		
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+		
+		// save beta to the output file
+		saveItemset(prefix, prefixLength+1, betaSupport);
+		
+		if(prefixLength+1 < maxPatternLength){
+		
+			// === (A) Construct beta's conditional pattern base ===
+			// It is a subdatabase which consists of the set of prefix paths
+			// in the FP-tree co-occuring with the prefix pattern.
+			List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+			FPNode path = tree.mapItemNodes.get(item);
+			
+			// Map to count the support of items in the conditional prefix tree
+			// Key: item   Value: support
+			Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+			
+			while(path != null){
+				// if the path is not just the root node
+				if(path.parent.itemID != -1){
+					// create the prefixpath
+					List<FPNode> prefixPath = new ArrayList<FPNode>();
+					// add this node.
+					prefixPath.add(path);   // NOTE: we add it just to keep its support,
+					// actually it should not be part of the prefixPath
+					
+					// ####
+					int pathCount = path.counter;
+					
+					//Recursively add all the parents of this node.
+					FPNode parent = path.parent;
+					while(parent.itemID != -1){
+						prefixPath.add(parent);
+						
+						// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+						// if the first time we see that node id
+						if(mapSupportBeta.get(parent.itemID) == null){
+							// just add the path count
+							mapSupportBeta.put(parent.itemID, pathCount);
+						}else{
+							// otherwise, make the sum with the value already stored
+							mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
+						}
+						parent = parent.parent;
+					}
+					// add the path to the list of prefixpaths
+					prefixPaths.add(prefixPath);
+				}
+				// We will look for the next prefixpath
+				path = path.nodeLink;
+			}
+	
+			// (B) Construct beta's conditional FP-Tree
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for(List<FPNode> prefixPath : prefixPaths){
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
+			}  
+			
+			// Mine recursively the Beta tree if the root has child(s)
+			if(treeBeta.root.childs.size() > 0){
+	
+				// Create the header list.
+				treeBeta.createHeaderList(mapSupportBeta); 
+				// recursive call
+				fpgrowth(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+			}
+		}
+	}
+
+	/**
+	 * Count the prefix paths in the conditional pattern base of an item
+	 * (the number of nodes of the item in an FP-tree).
+	 * @param tree the FP-tree
+	 * @param item the item
+	 * @return the number of prefix paths
+	 */
+	private int countPrefixPaths(FPTree tree, Integer item) {
+		int count = 0;
+		for(FPNode node = tree.mapItemNodes.get(item); node != null; node = node.nodeLink){
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * A task mining the itemsets starting with a prefix followed by an item
+	 * (or all the itemsets of an FP-tree if the item is null), in parallel mode.
+	 */
+	private class FPGrowthTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the FP-tree */
+		private final transient FPTree tree;
+		/** the item */
+		private final Integer item;
+		/** the prefix (this task has its own copy) */
+		private final int[] prefix;
+		/** the length of the prefix */
+		private final int prefixLength;
+		/** the support of the prefix */
+		private final int prefixSupport;
+		/** the frequency of items in the FP-tree */
+		private final transient Map<Integer, Integer> mapSupport;
+
+		/**
+		 * Constructor
+		 */
+		FPGrowthTask(FPTree tree, Integer item, int[] prefix, int prefixLength, int prefixSupport,
+				Map<Integer, Integer> mapSupport) {
+			this.tree = tree;
+			this.item = item;
+			this.prefix = prefix;
+			this.prefixLength = prefixLength;
+			this.prefixSupport = prefixSupport;
+			this.mapSupport = mapSupport;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if(item == null){
+					fpgrowth(tree, prefix, prefixLength, prefixSupport, mapSupport);
+				}else{
+					fpgrowthItem(tree, item, prefix, prefixLength, prefixSupport, mapSupport);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Mine a CompactFPTree.
+	 * @param tree  the compact FP-tree
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpgrowthCompact(CompactFPTree tree, int [] prefix, int prefixLength, int prefixSupport) throws IOException {
+		
+		if(prefixLength == maxPatternLength){
+			return;
+		}
+		
+		// We check if the FPtree contains a single path
+		int position = tree.getSinglePath(compactNodeBuffer);
+		
+		// Case 1: the FPtree contains a single path
+		if(position >= 0){
+			saveAllCombinationsOfCompactPath(tree, compactNodeBuffer, position, prefix, prefixLength);
+		}else {
+			// For each frequent item in the header table in reverse order.
+			for(int rank = tree.getRankCount()-1; rank>=0; rank--){
+				// get the item support
+				int support = tree.getSupport(rank);
+				
 				// Create Beta by concatening prefix Alpha by adding the current item to alpha
-				prefix[prefixLength] = item;
+				prefix[prefixLength] = tree.getItem(rank);
 				
 				// calculate the support of the new prefix beta
 				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
@@ -300,74 +666,56 @@ public class AlgoFPGrowth {
 				saveItemset(prefix, prefixLength+1, betaSupport);
 				
 				if(prefixLength+1 < maxPatternLength){
-				
-					// === (A) Construct beta's conditional pattern base ===
-					// It is a subdatabase which consists of the set of prefix paths
-					// in the FP-tree co-occuring with the prefix pattern.
-					List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-					FPNode path = tree.mapItemNodes.get(item);
-					
-					// Map to count the support of items in the conditional prefix tree
-					// Key: item   Value: support
-					Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-					
-					while(path != null){
-						// if the path is not just the root node
-						if(path.parent.itemID != -1){
-							// create the prefixpath
-							List<FPNode> prefixPath = new ArrayList<FPNode>();
-							// add this node.
-							prefixPath.add(path);   // NOTE: we add it just to keep its support,
-							// actually it should not be part of the prefixPath
-							
-							// ####
-							int pathCount = path.counter;
-							
-							//Recursively add all the parents of this node.
-							FPNode parent = path.parent;
-							while(parent.itemID != -1){
-								prefixPath.add(parent);
-								
-								// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-								// if the first time we see that node id
-								if(mapSupportBeta.get(parent.itemID) == null){
-									// just add the path count
-									mapSupportBeta.put(parent.itemID, pathCount);
-								}else{
-									// otherwise, make the sum with the value already stored
-									mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-								}
-								parent = parent.parent;
-							}
-							// add the path to the list of prefixpaths
-							prefixPaths.add(prefixPath);
-						}
-						// We will look for the next prefixpath
-						path = path.nodeLink;
-					}
-	
-					// (B) Construct beta's conditional FP-Tree
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for(List<FPNode> prefixPath : prefixPaths){
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
-					}  
+					// Construct beta's conditional FP-Tree from its conditional pattern base
+					CompactFPTree treeBeta = tree.createConditionalTree(rank, minSupportRelative);
 					
 					// Mine recursively the Beta tree if the root has child(s)
-					if(treeBeta.root.childs.size() > 0){
-	
-						// Create the header list.
-						treeBeta.createHeaderList(mapSupportBeta); 
-						// recursive call
-						fpgrowth(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+					if(!treeBeta.isEmpty()){
+						fpgrowthCompact(treeBeta, prefix, prefixLength+1, betaSupport);
 					}
 				}
 			}
 		}
-		
 	}
 
+	/**
+	 * This method saves all combinations of the single path of a CompactFPTree
+	 * @param tree the compact FP-tree
+	 * @param nodeBuffer the nodes of the path
+	 * @param position the number of nodes of the path
+	 * @param prefix the current prefix
+	 * @param prefixLength the current prefix length
+	 * @throws IOException if exception while writting to output file
+	 */
+	private void saveAllCombinationsOfCompactPath(CompactFPTree tree, int[] nodeBuffer, int position, 
+			int[] prefix, int prefixLength) throws IOException {
+
+		int support = 0;
+		// Generate all subsets of the path except the empty set
+		// and output them
+		// We use bits to generate all subsets.
+loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
+			
+			// we create a new subset
+			int newPrefixLength = prefixLength;
+			
+			// for each bit
+			for (int j = 0; j < position; j++) {
+				// check if the j bit is set to 1
+				int isSet = (int) i & (1 << j);
+				// if yes, add the bit position as an item to the new subset
+				if (isSet > 0) {
+					if(newPrefixLength == maxPatternLength){
+						continue loop1;
+					}
+					prefix[newPrefixLength++] = tree.getNodeItem(nodeBuffer[j]);
+					support = tree.getNodeCounter(nodeBuffer[j]);
+				}
+			}
+			// save the itemset
+			saveItemset(prefix, newPrefixLength, support);
+		}
+	}
 
 	/**
 	 * This method saves all combinations of a prefix path if it has enough support
@@ -412,6 +760,88 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 	}
 	
 
+	/**
+	 * Sort the items of a transaction by descending order of support and add it to the FP-tree.
+	 * @param tree the FP-tree
+	 * @param transaction the transaction (containing only frequent items)
+	 * @param mapSupport the support of each item
+	 */
+	private void addTransactionToTree(FPTree tree, List<Integer> transaction, final Map<Integer, Integer> mapSupport) {
+		// sort item in the transaction by descending order of support
+		Collections.sort(transaction, new Comparator<Integer>(){
+			public int compare(Integer item1, Integer item2){
+				// compare the frequency
+				int compare = mapSupport.get(item2) - mapSupport.get(item1);
+				// if the same frequency, we check the lexical ordering!
+				if(compare == 0){ 
+					return (item1 - item2);
+				}
+				// otherwise, just use the frequency
+				return compare;
+			}
+		});
+		// add the sorted transaction to the fptree.
+		tree.addTransaction(transaction);
+	}
+
+	/**
+	 * Create an empty CompactFPTree whose ranks are the frequent items.
+	 * @param mapSupport the support of each item
+	 * @return the compact FP-tree
+	 */
+	private CompactFPTree createCompactTree(Map<Integer, Integer> mapSupport) {
+		int[] rankToItem = CompactFPTree.rankItems(mapSupport, minSupportRelative);
+		itemToRank = CompactFPTree.createItemToRank(rankToItem);
+		return new CompactFPTree(rankToItem, 0, BUFFERS_SIZE);
+	}
+
+	/**
+	 * Add a transaction to a CompactFPTree.
+	 * @param tree the compact FP-tree
+	 * @param transaction the transaction (containing only frequent items)
+	 */
+	private void addTransactionToCompactTree(CompactFPTree tree, List<Integer> transaction) {
+		// replace the items by their ranks, sorted by increasing rank 
+		// (by descending order of support)
+		int[] ranks = new int[transaction.size()];
+		for(int i = 0; i < ranks.length; i++){
+			ranks[i] = itemToRank[transaction.get(i)];
+		}
+		Arrays.sort(ranks);
+		tree.addTransaction(ranks, ranks.length, 1);
+	}
+
+	/**
+	 * This method scans a database in binary format to calculate the support of single items
+	 * @param database the binary database
+	 * @return a map for storing the support of each item (key: item, value: support)
+	 */
+	private Map<Integer, Integer> scanBinaryDatabaseToDetermineFrequencyOfSingleItems(BinaryTransactionDatabase database) {
+		// the support of each item is first counted in an array indexed by item
+		int[] supports = new int[database.getMaxItemID() + 1];
+		int[] buffer = new int[BUFFERS_SIZE];
+		for(int t = 0; t < database.size(); t++){
+			int length = database.getTransactionLength(t);
+			if(length > buffer.length){
+				buffer = new int[length];
+			}
+			database.getItems(t, buffer);
+			for(int i = 0; i < length; i++){
+				supports[buffer[i]]++;
+			}
+		}
+		transactionCount = database.size();
+		
+		// a map for storing the support of each item (key: item, value: support)
+		Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>();
+		for(int item = 0; item < supports.length; item++){
+			if(supports[item] > 0){
+				mapSupport.put(item, supports[item]);
+			}
+		}
+		return mapSupport;
+	}
+
 	/**
 	 * This method scans the input database to calculate the support of single items
 	 * @param input the path of the input file
@@ -458,7 +888,7 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 
 
 	/**
-	 * Write a frequent itemset that is found to the output file or
+	 * Give a frequent itemset that is found to the sink (e.g. the output file) or
 	 * keep into memory if the user prefer that the result be saved into memory.
 	 */
 	private void saveItemset(int [] itemset, int itemsetLength, int support) throws IOException {
@@ -467,29 +897,21 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 		}
 		
 		// increase the number of itemsets found for statistics purpose
-		itemsetCount++;
+		if(pool == null){
+			itemsetCount++;
+		}else{
+			parallelItemsetCount.increment();
+		}
 		
-		// if the result should be saved to a file
-		if(writer != null){
+		// if the result should be saved to a sink
+		if(sink != null){
 			// copy the itemset in the output buffer and sort items
-			System.arraycopy(itemset, 0, itemsetOutputBuffer, 0, itemsetLength);
-			Arrays.sort(itemsetOutputBuffer, 0, itemsetLength);
+			int[] outputBuffer = (pool == null) ? itemsetOutputBuffer : threadOutputBuffer.get();
+			System.arraycopy(itemset, 0, outputBuffer, 0, itemsetLength);
+			Arrays.sort(outputBuffer, 0, itemsetLength);
 			
-			// Create a string buffer
-			StringBuilder buffer = new StringBuilder();
-			// write the items of the itemset
-			for(int i=0; i< itemsetLength; i++){
-				buffer.append(itemsetOutputBuffer[i]);
-				if(i != itemsetLength-1){
-					buffer.append(' ');
-				}
-			}
-			// Then, write the support
-			buffer.append(" #SUP: ");
-			buffer.append(support);
-			// write to file and create a new line
-			writer.write(buffer.toString());
-			writer.newLine();
+			// give the itemset to the sink (e.g. to write it to the output file)
+			sink.savePattern(outputBuffer, itemsetLength, support);
 			
 		}// otherwise the result is kept into memory
 		else{
@@ -503,7 +925,10 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 			
 			Itemset itemsetObj = new Itemset(itemsetArray);
 			itemsetObj.setAbsoluteSupport(support);
-			patterns.addItemset(itemsetObj, itemsetLength);
+			// (the threads share the set of patterns in parallel mode)
+			synchronized(patterns){
+				patterns.addItemset(itemsetObj, itemsetLength);
+			}
 		}
 	}
 
@@ -544,4 +969,35 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 		this.minPatternLength = minPatternLength;
 	}
 
+	/**
+	 * Set the number of threads used to mine the FP-tree (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set the minimum number of prefix paths of the conditional pattern base of an
+	 * item for mining its conditional FP-tree with a new task, in parallel mode.
+	 * Smaller conditional FP-trees are mined by the current thread, since creating
+	 * a task would cost more than mining them.
+	 * @param parallelThreshold the minimum number of prefix paths
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Set if a CompactFPTree should be used instead of a FPTree (by default, false).
+	 * The compact FP-tree uses less memory, but it is mined by a single thread.
+	 * @param useCompactTree true to use the compact FP-tree
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
+
 }
@@ -50,6 +50,10 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This is an optimized version that saves the result to a file
  * or keep it into memory if no output path is provided
  * by the user to the runAlgorithm method().
+ * <br/><br/>
+ * 
+ * To reduce memory usage on dense datasets, a CompactFPTree can be used instead of
+ * a FPTree (see setUseCompactTree()).
  *
  * @see FPTree
  * @see Itemset
@@ -96,6 +100,15 @@ public class AlgoFPGrowthTOPK {
 	PriorityQueue<Itemset> nItemsets;
 	// ======================================
 
+	/** if true, a CompactFPTree is used instead of a FPTree */
+	private boolean useCompactTree = false;
+
+	/** the rank of each frequent item in the CompactFPTree (index: item, value: rank) */
+	private int[] itemToRank = null;
+
+	/** buffer for storing the nodes of a single path of a CompactFPTree */
+	private int[] compactNodeBuffer = null;
+
 	/**
 	 * Constructor
 	 */
@@ -169,6 +182,8 @@ public class AlgoFPGrowthTOPK {
 		// by descending order of support.  We ignore items that
 		// do not have the minimum support.
 		FPTree tree = new FPTree();
+		// or the compact FP-tree (if the user wants to use it)
+		CompactFPTree compactTree = useCompactTree ? createCompactTree(mapSupport) : null;
 		
 		// read the file
 		BufferedReader reader = new BufferedReader(new FileReader(input));
@@ -194,46 +209,64 @@ public class AlgoFPGrowthTOPK {
 					transaction.add(item);	
 				}
 			}
-			// sort item in the transaction by descending order of support
-			Collections.sort(transaction, new Comparator<Integer>(){
-				public int compare(Integer item1, Integer item2){
-					// compare the frequency
-					int compare = mapSupport.get(item2) - mapSupport.get(item1);
-					// if the same frequency, we check the lexical ordering!
-					if(compare == 0){ 
-						return (item1 - item2);
+			if(compactTree != null){
+				// add the transaction to the compact fptree
+				addTransactionToCompactTree(compactTree, transaction);
+			}else{
+				// sort item in the transaction by descending order of support
+				Collections.sort(transaction, new Comparator<Integer>(){
+					public int compare(Integer item1, Integer item2){
+						// compare the frequency
+						int compare = mapSupport.get(item2) - mapSupport.get(item1);
+						// if the same frequency, we check the lexical ordering!
+						if(compare == 0){ 
+							return (item1 - item2);
+						}
+						// otherwise, just use the frequency
+						return compare;
 					}
-					// otherwise, just use the frequency
-					return compare;
-				}
-			});
-			// add the sorted transaction to the fptree.
-			tree.addTransaction(transaction);
+				});
+				// add the sorted transaction to the fptree.
+				tree.addTransaction(transaction);
+			}
 		}
 		// close the input file
 		reader.close();
 		
-		// We create the header table for the tree using the calculated support of single items
-		tree.createHeaderList(mapSupport);
-		
 		// (5) We start to mine the FP-Tree by calling the recursive method.
 		// Initially, the prefix alpha is empty.
-		// if at least an item is frequent
-		if(tree.headerList.size() > 0) {
-			// initialize the buffer for storing the current itemset
-			itemsetBuffer = new int[BUFFERS_SIZE];
-			// and another buffer
-			fpNodeTempBuffer = new FPNode[BUFFERS_SIZE];
-			// recursively generate frequent itemsets using the fp-tree
-			// Note: we assume that the initial FP-Tree has more than one path
-			// which should generally be the case.
-			// ======================================
-			Iterator<Itemset> iter = nItemsets.iterator();
-			while (iter.hasNext()) {
-				saveItemsetToFile(iter.next());
+		if(compactTree != null) {
+			// (the header table of the compact FP-tree contains the frequent items)
+			// if at least an item is frequent
+			if(compactTree.getRankCount() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				// and another buffer
+				compactNodeBuffer = new int[BUFFERS_SIZE];
+				// recursively generate frequent itemsets using the compact fp-tree
+				fpgrowthCompact(compactTree, itemsetBuffer, 0, transactionCount);
+			}
+		}else {
+			// We create the header table for the tree using the calculated support of single items
+			tree.createHeaderList(mapSupport);
+			
+			// if at least an item is frequent
+			if(tree.headerList.size() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				// and another buffer
+				fpNodeTempBuffer = new FPNode[BUFFERS_SIZE];
+				// recursively generate frequent itemsets using the fp-tree
+				// Note: we assume that the initial FP-Tree has more than one path
+				// which should generally be the case.
+				// ======================================
+				Iterator<Itemset> iter = nItemsets.iterator();
+				while (iter.hasNext()) {
+					saveItemsetToFile(iter.next());
+				}
+				// ======================================
+				fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
 			}
-			// ======================================
-			fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
 		}
 		
 		// close the output file if the result was saved to a file
@@ -452,6 +485,117 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 	}
 	
 
+	/**
+	 * Mine a CompactFPTree.
+	 * @param tree  the compact FP-tree
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 */
+	private void fpgrowthCompact(CompactFPTree tree, int [] prefix, int prefixLength, int prefixSupport) {
+		
+		if(prefixLength == maxPatternLength){
+			return;
+		}
+		
+		// We check if the FPtree contains a single path
+		int position = tree.getSinglePath(compactNodeBuffer);
+		
+		// Case 1: the FPtree contains a single path
+		if(position >= 0){
+			saveAllCombinationsOfCompactPath(tree, compactNodeBuffer, position, prefix, prefixLength);
+		}else {
+			// For each frequent item in the header table in reverse order.
+			for(int rank = tree.getRankCount()-1; rank>=0; rank--){
+				// get the item support
+				int support = tree.getSupport(rank);
+				
+				// Create Beta by concatening prefix Alpha by adding the current item to alpha
+				prefix[prefixLength] = tree.getItem(rank);
+				
+				// calculate the support of the new prefix beta
+				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+				
+				// save beta
+				saveItemset(prefix, prefixLength+1, betaSupport);
+				
+				if(prefixLength+1 < maxPatternLength){
+					// Construct beta's conditional FP-Tree from its conditional pattern base
+					CompactFPTree treeBeta = tree.createConditionalTree(rank, minSupportRelative);
+					
+					// Mine recursively the Beta tree if the root has child(s)
+					if(!treeBeta.isEmpty()){
+						fpgrowthCompact(treeBeta, prefix, prefixLength+1, betaSupport);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method saves all combinations of the single path of a CompactFPTree
+	 * @param tree the compact FP-tree
+	 * @param nodeBuffer the nodes of the path
+	 * @param position the number of nodes of the path
+	 * @param prefix the current prefix
+	 * @param prefixLength the current prefix length
+	 */
+	private void saveAllCombinationsOfCompactPath(CompactFPTree tree, int[] nodeBuffer, int position, 
+			int[] prefix, int prefixLength) {
+
+		int support = 0;
+		// Generate all subsets of the path except the empty set
+		// We use bits to generate all subsets.
+loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
+			
+			// we create a new subset
+			int newPrefixLength = prefixLength;
+			
+			// for each bit
+			for (int j = 0; j < position; j++) {
+				// check if the j bit is set to 1
+				int isSet = (int) i & (1 << j);
+				// if yes, add the bit position as an item to the new subset
+				if (isSet > 0) {
+					if(newPrefixLength == maxPatternLength){
+						continue loop1;
+					}
+					prefix[newPrefixLength++] = tree.getNodeItem(nodeBuffer[j]);
+					support = tree.getNodeCounter(nodeBuffer[j]);
+				}
+			}
+			// save the itemset
+			saveItemset(prefix, newPrefixLength, support);
+		}
+	}
+
+	/**
+	 * Create an empty CompactFPTree whose ranks are the items having the minimum support.
+	 * @param mapSupport the support of each item
+	 * @return the compact FP-tree
+	 */
+	private CompactFPTree createCompactTree(Map<Integer, Integer> mapSupport) {
+		int[] rankToItem = CompactFPTree.rankItems(mapSupport, minSupportRelative);
+		itemToRank = CompactFPTree.createItemToRank(rankToItem);
+		return new CompactFPTree(rankToItem, 0, BUFFERS_SIZE);
+	}
+
+	/**
+	 * Add a transaction to a CompactFPTree.
+	 * @param tree the compact FP-tree
+	 * @param transaction the transaction (containing only items having the minimum support)
+	 */
+	private void addTransactionToCompactTree(CompactFPTree tree, List<Integer> transaction) {
+		// replace the items by their ranks, sorted by increasing rank 
+		// (by descending order of support)
+		int[] ranks = new int[transaction.size()];
+		for(int i = 0; i < ranks.length; i++){
+			ranks[i] = itemToRank[transaction.get(i)];
+		}
+		Arrays.sort(ranks);
+		tree.addTransaction(ranks, ranks.length, 1);
+	}
+
 	/**
 	 * This method scans the input database to calculate the support of single items
 	 * @param input the path of the input file
@@ -639,4 +783,13 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 		this.minPatternLength = minPatternLength;
 	}
 
+	/**
+	 * Set if a CompactFPTree should be used instead of a FPTree (by default, false).
+	 * The compact FP-tree uses less memory on dense datasets.
+	 * @param useCompactTree true to use the compact FP-tree
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
+
 }
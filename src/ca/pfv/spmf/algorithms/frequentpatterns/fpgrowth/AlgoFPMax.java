@@ -24,6 +24,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,6 +32,8 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.Map.Entry;
 
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -48,6 +51,20 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This is an optimized version that saves the result to a file
  * or keep it into memory if no output path is provided
  * by the user to the runAlgorithm method().
+ * <br/><br/>
+ * 
+ * The FP-tree can be mined by several threads (see setThreadCount()). Then, each item
+ * of the initial FP-tree is mined by a fork/join task, using a copy of this object
+ * that belongs to the current thread and has its own MFITree. Since the MFITree of a
+ * thread does not contain the itemsets found by the other threads, an itemset found
+ * by a thread is only a candidate. After all tasks are finished, the candidates are
+ * inserted in a new MFITree by decreasing length to keep only the maximal itemsets.
+ * The result is the same as with a single thread, but the itemsets are saved by
+ * decreasing length.
+ * <br/><br/>
+ * 
+ * To reduce memory usage on dense datasets, a CompactFPTree can be used instead of
+ * a FPTree (see setUseCompactTree()). It is then mined by a single thread.
  *
  * @see FPTree
  * @see Itemset
@@ -102,6 +119,28 @@ public class AlgoFPMax {
 		}
 	};
 
+	/** the number of threads used to mine the FP-tree */
+	private int threadCount = 1;
+
+	/** the pool of threads (only in parallel mode) */
+	private ForkJoinPool pool = null;
+
+	/** the copy of this object used by each thread (only in parallel mode) */
+	private ThreadLocal<AlgoFPMax> threadWorker = null;
+
+	/** the itemsets found by this object that may not be maximal because other threads
+	 * have found other itemsets (only in parallel mode, otherwise null) */
+	private List<Itemset> candidates = null;
+
+	/** if true, a CompactFPTree is used instead of a FPTree */
+	private boolean useCompactTree = false;
+
+	/** the rank of each frequent item in the CompactFPTree (index: item, value: rank) */
+	private int[] itemToRank = null;
+
+	/** buffer for storing the nodes of a single path of a CompactFPTree */
+	private int[] compactNodeBuffer = null;
+
 	/**
 	 * Constructor
 	 */
@@ -109,6 +148,19 @@ public class AlgoFPMax {
 		
 	}
 
+	/**
+	 * Constructor of the copy of an AlgoFPMax object that is used by a thread to mine
+	 * a part of the FP-tree in parallel mode.
+	 * @param algorithm the original object
+	 */
+	private AlgoFPMax(AlgoFPMax algorithm) {
+		minSupportRelative = algorithm.minSupportRelative;
+		originalMapSupport = algorithm.originalMapSupport;
+		itemsetBuffer = new int[BUFFERS_SIZE];
+		mfiTree = new MFITree();
+		candidates = new ArrayList<Itemset>();
+	}
+
 	/**
 	 * Method to run the FPGRowth algorithm.
 	 * @param input the path to an input file containing a transaction database.
@@ -155,6 +207,8 @@ public class AlgoFPMax {
 		// by descending order of support.  We ignore items that
 		// do not have the minimum support.
 		FPTree tree = new FPTree();
+		// or the compact FP-tree (if the user wants to use it)
+		CompactFPTree compactTree = useCompactTree ? createCompactTree() : null;
 		
 		// read the file
 		BufferedReader reader = new BufferedReader(new FileReader(input));
@@ -179,28 +233,49 @@ public class AlgoFPMax {
 					transaction.add(item);	
 				}
 			}
-			// sort item in the transaction by descending order of support
-			Collections.sort(transaction, comparatorOriginalOrder);
-			// add the sorted transaction to the fptree.
-			tree.addTransaction(transaction);
+			if(compactTree != null){
+				// add the transaction to the compact fptree
+				addTransactionToCompactTree(compactTree, transaction);
+			}else{
+				// sort item in the transaction by descending order of support
+				Collections.sort(transaction, comparatorOriginalOrder);
+				// add the sorted transaction to the fptree.
+				tree.addTransaction(transaction);
+			}
 		}
 		// close the input file
 		reader.close();
 		
-		// We create the header table for the tree using the calculated support of single items
-		tree.createHeaderList(originalMapSupport);
-		
-
-//		System.out.println(tree);
-		
 		// (5) We start to mine the FP-Tree by calling the recursive method.
 		// Initially, the prefix alpha is empty.
-		// if at least an item is frequent
-		if(tree.headerList.size() > 0) {
-			// initialize the buffer for storing the current itemset
-			itemsetBuffer = new int[BUFFERS_SIZE];
-			// Next we will recursively generate frequent itemsets using the fp-tree
-			fpMax(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+		if(compactTree != null){
+			// (the header table of the compact FP-tree contains the frequent items)
+			// if at least an item is frequent
+			if(compactTree.getRankCount() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				// and another buffer
+				compactNodeBuffer = new int[BUFFERS_SIZE];
+				// Next we will recursively generate frequent itemsets using the compact fp-tree
+				fpMaxCompact(compactTree, itemsetBuffer, 0, transactionCount);
+			}
+		}else{
+			// We create the header table for the tree using the calculated support of single items
+			tree.createHeaderList(originalMapSupport);
+			
+//			System.out.println(tree);
+			
+			// if at least an item is frequent
+			if(tree.headerList.size() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				// Next we will recursively generate frequent itemsets using the fp-tree
+				if(threadCount > 1){
+					fpMaxParallel(tree);
+				}else{
+					fpMax(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+				}
+			}
 		}
 		
 		// close the output file if the result was saved to a file
@@ -218,6 +293,57 @@ public class AlgoFPMax {
 	}
 
 	
+	/**
+	 * Mine the initial FP-tree with several threads.
+	 * @param tree  the FP-tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpMaxParallel(FPTree tree) throws IOException {
+		// the itemsets found by the threads are first kept as candidates
+		candidates = new ArrayList<Itemset>();
+		// each thread uses its own copy of this object
+		List<AlgoFPMax> workers = Collections.synchronizedList(new ArrayList<AlgoFPMax>());
+		threadWorker = ThreadLocal.withInitial(() -> {
+			AlgoFPMax worker = new AlgoFPMax(this);
+			workers.add(worker);
+			return worker;
+		});
+		pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try{
+			fpMax(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}finally{
+			pool.shutdown();
+			pool = null;
+			threadWorker = null;
+		}
+		List<Itemset> allCandidates = candidates;
+		for(AlgoFPMax worker : workers){
+			allCandidates.addAll(worker.candidates);
+		}
+		candidates = null;
+
+		// A candidate is maximal if it is not a subset of an itemset found by another thread.
+		// The candidates are inserted in a new MFITree by decreasing length, so that
+		// the supersets of an itemset are checked before it.
+		Collections.sort(allCandidates, new Comparator<Itemset>(){
+			public int compare(Itemset itemset1, Itemset itemset2){
+				return itemset2.size() - itemset1.size();
+			}
+		});
+		mfiTree = new MFITree();
+		for(Itemset candidate : allCandidates){
+			List<Integer> itemset = new ArrayList<Integer>(candidate.size());
+			for(int item : candidate.getItems()){
+				itemset.add(item);
+			}
+			if(mfiTree.passSubsetChecking(itemset)){
+				saveItemset(candidate.getItems(), candidate.size(), candidate.getAbsoluteSupport());
+			}
+		}
+	}
+
 	/**
 	 * Mine an FP-Tree having more than one path.
 	 * @param tree  the FP-tree
@@ -277,119 +403,231 @@ public class AlgoFPMax {
 		}else {
 			// Case 2: There are multiple paths.
 			
+			// the tasks mining the items of the initial FP-tree in parallel mode
+			List<FPMaxTask> tasks = null;
 			// For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
 			for(int i = tree.headerList.size()-1; i>=0; i--){
 				// get the item
 				Integer item = tree.headerList.get(i);
+
+				// in parallel mode, each item of the initial FP-tree is mined by a task
+				if(pool != null){
+					if(tasks == null){
+						tasks = new ArrayList<FPMaxTask>();
+					}
+					tasks.add(new FPMaxTask(tree, item, prefixSupport, mapSupport));
+					pool.execute(tasks.get(tasks.size()-1));
+				}else{
+					fpMaxItem(tree, item, prefix, prefixLength, prefixSupport, mapSupport);
+				}
+			}
+			// wait for the tasks
+			if(tasks != null){
+				for(FPMaxTask task : tasks){
+					task.join();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mine the itemsets starting with a prefix followed by an item of the header table
+	 * of an FP-tree, using the conditional FP-tree of the item.
+	 * @param tree  the FP-tree
+	 * @param item  the item
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpMaxItem(FPTree tree, Integer item, int [] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+		
+		// get the item support
+		int support = mapSupport.get(item);
+
+		// Create Beta by concatening item to the current prefix  alpha
+		prefix[prefixLength] = item;
+		
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+
+		
+		// === (A) Construct beta's conditional pattern base ===
+		// It is a subdatabase which consists of the set of prefix paths
+		// in the FP-tree co-occuring with the prefix pattern.
+		List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+		FPNode path = tree.mapItemNodes.get(item);
+		
+		// Map to count the support of items in the conditional prefix tree
+		// Key: item   Value: support
+		Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+		
+		while(path != null){
+			// if the path is not just the root node
+			if(path.parent.itemID != -1){
+				// create the prefixpath
+				List<FPNode> prefixPath = new ArrayList<FPNode>();
+				// add this node.
+				prefixPath.add(path);   // NOTE: we add it just to keep its support,
+				// actually it should not be part of the prefixPath
+				
+				// ####
+				int pathCount = path.counter;
+				
+				//Recursively add all the parents of this node.
+				FPNode parent = path.parent;
+				while(parent.itemID != -1){
+					prefixPath.add(parent);
+					
+					// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+					// if the first time we see that node id
+					if(mapSupportBeta.get(parent.itemID) == null){
+						// just add the path count
+						mapSupportBeta.put(parent.itemID, pathCount);
+					}else{
+						// otherwise, make the sum with the value already stored
+						mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
+					}
+					parent = parent.parent;
+				}
+				// add the path to the list of prefixpaths
+				prefixPaths.add(prefixPath);
+			}
+			// We will look for the next prefixpath
+			path = path.nodeLink;
+		}
+
+		
+		// ===== FPMAX ======
+		// concatenate Beta with all the frequent itemsets in the pattern base
+		// to get head U P
+		List<Integer> headWithP = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
+		// concatenate the prefix
+		for(int z=0; z < prefixLength+1; z++) {
+			headWithP.add(prefix[z]);
+		}
+		// concatenate the other FREQUENT items in the pattern base
+		// for each item
+		for(Entry<Integer,Integer> entry: mapSupportBeta.entrySet()) {
+			// if the item is frequent
+			if(entry.getValue() >= minSupportRelative) {
+				headWithP.add(entry.getKey());
+			}
+		}
+		
+		// Sort Head U P according to the original header list total order on items
+		// sort item in the transaction by descending order of support
+		Collections.sort(headWithP, comparatorOriginalOrder);
+
+		//======= DEBUG ========
+		if(DEBUG) {
+			System.out.println(" CHECK2 : " + headWithP);
+		}
+		//========== END DEBUG =======
+		
+		// CHECK IF HEAD U P IS A SUBSET OF A MFI ACCORDING TO THE MFI-TREE
+		if(mfiTree.passSubsetChecking(headWithP)) {
+			
+			if(DEBUG) {
+				System.out.println("    passed!");
+			}
+			// (B) Construct beta's conditional FP-Tree using its prefix path
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for(List<FPNode> prefixPath : prefixPaths){
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
+			}  
+			// Mine recursively the Beta tree if the root has child(s)
+			if(treeBeta.root.childs.size() > 0){
+
+				// Create the header list.
+				treeBeta.createHeaderList(originalMapSupport); 
 				
+				// recursive call
+				fpMax(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+			}
+			
+			// ======= After that, we still need to check if beta is a maximal itemset ====
+			List<Integer> temp = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
+			for(int z=0; z < prefixLength+1; z++) {
+				temp.add(prefix[z]);
+			}
+			Collections.sort(temp, comparatorOriginalOrder);
+			// if beta pass the test, we save it
+			if(mfiTree.passSubsetChecking(temp)) {
+				saveItemset(prefix, prefixLength+1, betaSupport);
+			}
+			//===========================================================
+		}
+		else if (DEBUG){
+			System.out.println("     failed!");
+		}
+	}
+
+	/**
+	 * Mine a CompactFPTree.
+	 * @param tree  the compact FP-tree
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpMaxCompact(CompactFPTree tree, int [] prefix, int prefixLength, int prefixSupport) throws IOException {
+		// We first check if the FPtree contains a single path
+		int pathLength = tree.getSinglePath(compactNodeBuffer);
+		
+		// Case 1: the FPtree contains a single path
+		if(pathLength >= 0 && tree.getNodeCounter(compactNodeBuffer[pathLength-1]) >= minSupportRelative){
+			// We save the path, because it is a maximal itemset
+			int position = prefixLength;
+			for(int i = 0; i < pathLength; i++){
+				prefix[position++] = tree.getNodeItem(compactNodeBuffer[i]);
+			}
+			saveItemset(prefix, position, tree.getNodeCounter(compactNodeBuffer[pathLength-1]));
+		}else {
+			// Case 2: There are multiple paths.
+			
+			// For each frequent item in the header table in reverse order. (in decreasing order of support...)
+			for(int rank = tree.getRankCount()-1; rank>=0; rank--){
 				// get the item support
-				int support = mapSupport.get(item);
+				int support = tree.getSupport(rank);
 
 				// Create Beta by concatening item to the current prefix  alpha
-				prefix[prefixLength] = item;
+				prefix[prefixLength] = tree.getItem(rank);
 				
 				// calculate the support of the new prefix beta
 				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
-
-				
-				// === (A) Construct beta's conditional pattern base ===
-				// It is a subdatabase which consists of the set of prefix paths
-				// in the FP-tree co-occuring with the prefix pattern.
-				List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-				FPNode path = tree.mapItemNodes.get(item);
 				
-				// Map to count the support of items in the conditional prefix tree
-				// Key: item   Value: support
-				Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-				
-				while(path != null){
-					// if the path is not just the root node
-					if(path.parent.itemID != -1){
-						// create the prefixpath
-						List<FPNode> prefixPath = new ArrayList<FPNode>();
-						// add this node.
-						prefixPath.add(path);   // NOTE: we add it just to keep its support,
-						// actually it should not be part of the prefixPath
-						
-						// ####
-						int pathCount = path.counter;
-						
-						//Recursively add all the parents of this node.
-						FPNode parent = path.parent;
-						while(parent.itemID != -1){
-							prefixPath.add(parent);
-							
-							// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-							// if the first time we see that node id
-							if(mapSupportBeta.get(parent.itemID) == null){
-								// just add the path count
-								mapSupportBeta.put(parent.itemID, pathCount);
-							}else{
-								// otherwise, make the sum with the value already stored
-								mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-							}
-							parent = parent.parent;
-						}
-						// add the path to the list of prefixpaths
-						prefixPaths.add(prefixPath);
-					}
-					// We will look for the next prefixpath
-					path = path.nodeLink;
-				}
-
+				// the support of the items in beta's conditional pattern base
+				int[] conditionalSupports = tree.getConditionalSupports(rank);
 				
 				// ===== FPMAX ======
 				// concatenate Beta with all the frequent itemsets in the pattern base
 				// to get head U P
-				List<Integer> headWithP = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
-				// concatenate the prefix
+				List<Integer> headWithP = new ArrayList<Integer>(rank + prefixLength+1);
 				for(int z=0; z < prefixLength+1; z++) {
 					headWithP.add(prefix[z]);
 				}
-				// concatenate the other FREQUENT items in the pattern base
-				// for each item
-				for(Entry<Integer,Integer> entry: mapSupportBeta.entrySet()) {
-					// if the item is frequent
-					if(entry.getValue() >= minSupportRelative) {
-						headWithP.add(entry.getKey());
+				for(int r = 0; r < rank; r++) {
+					if(conditionalSupports[r] >= minSupportRelative) {
+						headWithP.add(tree.getItem(r));
 					}
 				}
-				
 				// Sort Head U P according to the original header list total order on items
-				// sort item in the transaction by descending order of support
 				Collections.sort(headWithP, comparatorOriginalOrder);
-
-				//======= DEBUG ========
-				if(DEBUG) {
-					System.out.println(" CHECK2 : " + headWithP);
-				}
-				//========== END DEBUG =======
 				
 				// CHECK IF HEAD U P IS A SUBSET OF A MFI ACCORDING TO THE MFI-TREE
 				if(mfiTree.passSubsetChecking(headWithP)) {
-					
-					if(DEBUG) {
-						System.out.println("    passed!");
-					}
-					// (B) Construct beta's conditional FP-Tree using its prefix path
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for(List<FPNode> prefixPath : prefixPaths){
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
-					}  
-					// Mine recursively the Beta tree if the root has child(s)
-					if(treeBeta.root.childs.size() > 0){
-
-						// Create the header list.
-						treeBeta.createHeaderList(originalMapSupport); 
-						
-						// recursive call
-						fpMax(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+					// Construct beta's conditional FP-Tree and mine it recursively if it is not empty
+					CompactFPTree treeBeta = tree.createConditionalTree(rank, conditionalSupports, minSupportRelative);
+					if(!treeBeta.isEmpty()){
+						fpMaxCompact(treeBeta, prefix, prefixLength+1, betaSupport);
 					}
 					
 					// ======= After that, we still need to check if beta is a maximal itemset ====
-					List<Integer> temp = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
+					List<Integer> temp = new ArrayList<Integer>(prefixLength+1);
 					for(int z=0; z < prefixLength+1; z++) {
 						temp.add(prefix[z]);
 					}
@@ -398,15 +636,37 @@ public class AlgoFPMax {
 					if(mfiTree.passSubsetChecking(temp)) {
 						saveItemset(prefix, prefixLength+1, betaSupport);
 					}
-					//===========================================================
-				}
-				else if (DEBUG){
-					System.out.println("     failed!");
 				}
 			}
 		}
 	}
 
+	/**
+	 * Create an empty CompactFPTree whose ranks are the frequent items.
+	 * @return the compact FP-tree
+	 */
+	private CompactFPTree createCompactTree() {
+		int[] rankToItem = CompactFPTree.rankItems(originalMapSupport, minSupportRelative);
+		itemToRank = CompactFPTree.createItemToRank(rankToItem);
+		return new CompactFPTree(rankToItem, 0, BUFFERS_SIZE);
+	}
+
+	/**
+	 * Add a transaction to a CompactFPTree.
+	 * @param tree the compact FP-tree
+	 * @param transaction the transaction (containing only frequent items)
+	 */
+	private void addTransactionToCompactTree(CompactFPTree tree, List<Integer> transaction) {
+		// replace the items by their ranks, sorted by increasing rank 
+		// (by descending order of support)
+		int[] ranks = new int[transaction.size()];
+		for(int i = 0; i < ranks.length; i++){
+			ranks[i] = itemToRank[transaction.get(i)];
+		}
+		Arrays.sort(ranks);
+		tree.addTransaction(ranks, ranks.length, 1);
+	}
+
 	/**
 	 * Write a frequent itemset that is found to the output file or
 	 * keep into memory if the user prefer that the result be saved into memory.
@@ -432,6 +692,14 @@ public class AlgoFPMax {
 		// add the itemset to the MFI-TREE
 		mfiTree.addMFI(itemsetCopy, itemsetCopy.length, support);
 		
+		// in parallel mode, the itemset is kept as a candidate
+		if(candidates != null){
+			Itemset candidate = new Itemset(itemsetCopy);
+			candidate.setAbsoluteSupport(support);
+			candidates.add(candidate);
+			return;
+		}
+		
 		// increase the number of itemsets found for statistics purpose
 		itemsetCount++;
 		
@@ -551,4 +819,60 @@ public class AlgoFPMax {
 	public int getDatabaseSize() {
 		return transactionCount;
 	}
+
+	/**
+	 * Set the number of threads used to mine the FP-tree (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set if a CompactFPTree should be used instead of a FPTree (by default, false).
+	 * The compact FP-tree uses less memory, but it is mined by a single thread.
+	 * @param useCompactTree true to use the compact FP-tree
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
+
+	/**
+	 * A task mining the itemsets starting with an item of the initial FP-tree, in parallel
+	 * mode. It uses the copy of the AlgoFPMax object of the current thread.
+	 */
+	private class FPMaxTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the FP-tree */
+		private final transient FPTree tree;
+		/** the item */
+		private final Integer item;
+		/** the support of the empty prefix (the number of transactions) */
+		private final int prefixSupport;
+		/** the frequency of items in the FP-tree */
+		private final transient Map<Integer, Integer> mapSupport;
+
+		/**
+		 * Constructor
+		 */
+		FPMaxTask(FPTree tree, Integer item, int prefixSupport, Map<Integer, Integer> mapSupport) {
+			this.tree = tree;
+			this.item = item;
+			this.prefixSupport = prefixSupport;
+			this.mapSupport = mapSupport;
+		}
+
+		@Override
+		protected void compute() {
+			AlgoFPMax worker = threadWorker.get();
+			try {
+				worker.fpMaxItem(tree, item, worker.itemsetBuffer, 0, prefixSupport, mapSupport);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
 }
@@ -0,0 +1,535 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * This is a compact implementation of a FP-tree, which can be used instead of FPTree
+ * to reduce the memory usage of FP-Growth and its variations on dense datasets.
+ * <br/><br/>
+ *
+ * Nodes are not objects. A node is an index in a set of int arrays
+ * (item, counter, parent, node link, first child and next sibling), and
+ * node 0 is the root. Items are replaced by ranks 0, 1, 2... such that rank 0
+ * is the item having the largest support (ties are broken by lexical order).
+ * The header table is an array indexed by rank. Thus, a path from the root
+ * contains increasing ranks and a conditional FP-tree of a rank only contains
+ * smaller ranks, which are renumbered so that the ranks of each tree are dense.
+ * <br/><br/>
+ *
+ * Optionally, each node can also store a counter for each class, for the algorithms
+ * that mine class association rules (CMAR and L3).
+ *
+ * @see FPTree
+ * @see AlgoFPGrowth
+ * @author Philippe Fournier-Viger
+ */
+public class CompactFPTree {
+
+	/** the root node */
+	public static final int ROOT = 0;
+
+	/** the value of a node reference when there is no such node */
+	public static final int NONE = -1;
+
+	/** the maximum initial number of nodes of a conditional FP-tree (the arrays grow if needed) */
+	private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+	// the original item of each rank
+	private final int[] rankToItem;
+
+	// the support of each rank in this tree
+	private final int[] rankSupport;
+
+	// the header table: the first node of each rank (or NONE)
+	private final int[] headerFirst;
+
+	// the child of the root having each rank (or NONE). The root is the only node
+	// that may have many children, so its children are not searched one by one.
+	private final int[] rootChild;
+
+	// the number of classes (0 if nodes do not store class counters)
+	private final int classCount;
+
+	// the support of each rank for each class (index: rank * classCount + class)
+	private final int[] rankClassSupport;
+
+	// the item rank of each node
+	private int[] nodeRank;
+	// the frequency counter (a.k.a. support) of each node
+	private int[] nodeCounter;
+	// the parent of each node
+	private int[] nodeParent;
+	// the next node having the same rank (the node link of the header table)
+	private int[] nodeLink;
+	// the first child of each node
+	private int[] nodeFirstChild;
+	// the next child of the parent of each node
+	private int[] nodeNextSibling;
+	// the counter of each node for each class (index: node * classCount + class)
+	private int[] nodeClassCounter;
+
+	// the number of nodes (including the root)
+	private int size;
+
+	/**
+	 * Constructor
+	 * @param rankToItem the item of each rank, by decreasing order of support
+	 * @param classCount the number of classes, or 0 if the nodes should not store class counters
+	 * @param initialCapacity the initial number of nodes that can be stored without growing the arrays
+	 */
+	public CompactFPTree(int[] rankToItem, int classCount, int initialCapacity) {
+		this.rankToItem = rankToItem;
+		this.classCount = classCount;
+		rankSupport = new int[rankToItem.length];
+		headerFirst = new int[rankToItem.length];
+		Arrays.fill(headerFirst, NONE);
+		rootChild = new int[rankToItem.length];
+		Arrays.fill(rootChild, NONE);
+		rankClassSupport = new int[rankToItem.length * classCount];
+
+		// create the arrays and the root node
+		int capacity = Math.max(initialCapacity, 1);
+		nodeRank = new int[capacity];
+		nodeCounter = new int[capacity];
+		nodeParent = new int[capacity];
+		nodeLink = new int[capacity];
+		nodeFirstChild = new int[capacity];
+		nodeNextSibling = new int[capacity];
+		nodeClassCounter = new int[capacity * classCount];
+		nodeRank[ROOT] = NONE;
+		nodeParent[ROOT] = NONE;
+		nodeLink[ROOT] = NONE;
+		nodeFirstChild[ROOT] = NONE;
+		nodeNextSibling[ROOT] = NONE;
+		size = 1;
+	}
+
+	/**
+	 * Get the items having at least a minimum support, sorted by decreasing order of
+	 * support and then by lexical order. The position of an item in this array is its rank.
+	 * @param mapSupport the support of each item (key: item, value: support)
+	 * @param minSupport the minimum support
+	 * @return the items
+	 */
+	public static int[] rankItems(final Map<Integer, Integer> mapSupport, int minSupport) {
+		List<Integer> items = new ArrayList<Integer>();
+		for(Entry<Integer, Integer> entry : mapSupport.entrySet()){
+			if(entry.getValue() >= minSupport){
+				items.add(entry.getKey());
+			}
+		}
+		Collections.sort(items, new Comparator<Integer>(){
+			public int compare(Integer item1, Integer item2){
+				// compare the frequency
+				int compare = mapSupport.get(item2) - mapSupport.get(item1);
+				// if the same frequency, we check the lexical ordering!
+				return (compare == 0) ? (item1 - item2) : compare;
+			}
+		});
+		int[] rankToItem = new int[items.size()];
+		for(int rank = 0; rank < rankToItem.length; rank++){
+			rankToItem[rank] = items.get(rank);
+		}
+		return rankToItem;
+	}
+
+	/**
+	 * Create an array giving the rank of each item.
+	 * @param rankToItem the item of each rank
+	 * @return the rank of each item (index: item, value: rank or NONE if the item has no rank)
+	 */
+	public static int[] createItemToRank(int[] rankToItem) {
+		int maxItem = 0;
+		for(int item : rankToItem){
+			maxItem = Math.max(maxItem, item);
+		}
+		int[] itemToRank = new int[maxItem + 1];
+		Arrays.fill(itemToRank, NONE);
+		for(int rank = 0; rank < rankToItem.length; rank++){
+			itemToRank[rankToItem[rank]] = rank;
+		}
+		return itemToRank;
+	}
+
+	/**
+	 * Add a transaction to the tree (for the initial construction of the FP-Tree).
+	 * @param ranks the ranks of the items of the transaction, sorted by increasing rank
+	 * @param length the number of items
+	 * @param count the number of times that the transaction appears
+	 */
+	public void addTransaction(int[] ranks, int length, int count) {
+		addPath(ranks, length, count, null, 0);
+	}
+
+	/**
+	 * Add a transaction having a class to the tree (for the initial construction of the FP-Tree).
+	 * The nodes must store class counters.
+	 * @param ranks the ranks of the items of the transaction, sorted by increasing rank
+	 * @param length the number of items
+	 * @param klass the class of the transaction (0, 1, 2...)
+	 */
+	public void addInstance(int[] ranks, int length, int klass) {
+		int[] classCounters = new int[classCount];
+		classCounters[klass] = 1;
+		addPath(ranks, length, 1, classCounters, 0);
+	}
+
+	/**
+	 * Add a path to the tree, or increase the counters of its nodes if it is already in the tree.
+	 * @param ranks the ranks of the path, sorted by increasing rank
+	 * @param length the length of the path
+	 * @param count the value to add to the counters
+	 * @param classCounters an array containing the values to add to the class counters
+	 *    (null if the nodes do not store class counters)
+	 * @param classOffset the position of these values in the array
+	 */
+	private void addPath(int[] ranks, int length, int count, int[] classCounters, int classOffset) {
+		int node = ROOT;
+		// For each item of the path
+		for(int i = 0; i < length; i++){
+			int rank = ranks[i];
+			// look if there is a node already in the FP-Tree
+			int child = (node == ROOT) ? rootChild[rank] : getChildWithRank(node, rank);
+			if(child == NONE){
+				// there is no node, we create a new one
+				child = createNode(rank, node);
+			}
+			// update the counters of the node and of its rank
+			nodeCounter[child] += count;
+			rankSupport[rank] += count;
+			for(int k = 0; k < classCount; k++){
+				nodeClassCounter[child * classCount + k] += classCounters[classOffset + k];
+				rankClassSupport[rank * classCount + k] += classCounters[classOffset + k];
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * Return the child of a node having a given rank.
+	 * @param node the node
+	 * @param rank the rank
+	 * @return the child or NONE if there is no such child
+	 */
+	private int getChildWithRank(int node, int rank) {
+		for(int child = nodeFirstChild[node]; child != NONE; child = nodeNextSibling[child]){
+			if(nodeRank[child] == rank){
+				return child;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Create a node with a counter of 0 and add it to the header table.
+	 * @param rank the rank of the node
+	 * @param parent the parent of the node
+	 * @return the new node
+	 */
+	private int createNode(int rank, int parent) {
+		// if the arrays are full, we double their size
+		if(size == nodeRank.length){
+			int capacity = size * 2;
+			nodeRank = Arrays.copyOf(nodeRank, capacity);
+			nodeCounter = Arrays.copyOf(nodeCounter, capacity);
+			nodeParent = Arrays.copyOf(nodeParent, capacity);
+			nodeLink = Arrays.copyOf(nodeLink, capacity);
+			nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+			nodeNextSibling = Arrays.copyOf(nodeNextSibling, capacity);
+			nodeClassCounter = Arrays.copyOf(nodeClassCounter, capacity * classCount);
+		}
+		int node = size++;
+		nodeRank[node] = rank;
+		nodeParent[node] = parent;
+		nodeFirstChild[node] = NONE;
+		// we link the new node to its parent
+		nodeNextSibling[node] = nodeFirstChild[parent];
+		nodeFirstChild[parent] = node;
+		if(parent == ROOT){
+			rootChild[rank] = node;
+		}
+		// We update the header table.
+		nodeLink[node] = headerFirst[rank];
+		headerFirst[rank] = node;
+		return node;
+	}
+
+	/**
+	 * Calculate the support of each item in the conditional pattern base of a rank
+	 * (the prefix paths of the nodes having that rank).
+	 * @param rank the rank
+	 * @return the support of each smaller rank in the conditional pattern base
+	 */
+	public int[] getConditionalSupports(int rank) {
+		// a prefix path only contains ranks smaller than the rank of its node
+		int[] supports = new int[rank];
+		for(int node = headerFirst[rank]; node != NONE; node = nodeLink[node]){
+			int count = nodeCounter[node];
+			for(int parent = nodeParent[node]; parent != ROOT; parent = nodeParent[parent]){
+				supports[nodeRank[parent]] += count;
+			}
+		}
+		return supports;
+	}
+
+	/**
+	 * Create the conditional FP-tree of a rank.
+	 * @param rank the rank
+	 * @param minSupport the minimum support of the items in the conditional FP-tree
+	 * @return the conditional FP-tree
+	 */
+	public CompactFPTree createConditionalTree(int rank, int minSupport) {
+		return createConditionalTree(rank, getConditionalSupports(rank), minSupport);
+	}
+
+	/**
+	 * Create the conditional FP-tree of a rank when the support of the items in its
+	 * conditional pattern base is already known.
+	 * @param rank the rank
+	 * @param conditionalSupports the support of each smaller rank (see getConditionalSupports())
+	 * @param minSupport the minimum support of the items in the conditional FP-tree
+	 * @return the conditional FP-tree
+	 */
+	public CompactFPTree createConditionalTree(int rank, int[] conditionalSupports, int minSupport) {
+		// the frequent items get new ranks, in the same order
+		int[] newRanks = new int[rank];
+		int frequentCount = 0;
+		for(int r = 0; r < rank; r++){
+			newRanks[r] = (conditionalSupports[r] >= minSupport) ? frequentCount++ : NONE;
+		}
+		int[] newRankToItem = new int[frequentCount];
+		for(int r = 0; r < rank; r++){
+			if(newRanks[r] != NONE){
+				newRankToItem[newRanks[r]] = rankToItem[r];
+			}
+		}
+
+		// count the nodes of the prefix paths to choose the initial size of the new tree
+		int pathNodeCount = 0;
+		for(int node = headerFirst[rank]; node != NONE; node = nodeLink[node]){
+			for(int parent = nodeParent[node]; parent != ROOT; parent = nodeParent[parent]){
+				pathNodeCount++;
+			}
+		}
+		CompactFPTree tree = new CompactFPTree(newRankToItem, classCount,
+				Math.min(pathNodeCount + 1, MAX_INITIAL_CAPACITY));
+		if(frequentCount == 0){
+			return tree;
+		}
+
+		// Add each prefix path to the new tree, without the infrequent items
+		int[] path = new int[frequentCount];
+		for(int node = headerFirst[rank]; node != NONE; node = nodeLink[node]){
+			// the ranks are found in decreasing order, from the end of the path
+			int position = frequentCount;
+			for(int parent = nodeParent[node]; parent != ROOT; parent = nodeParent[parent]){
+				int newRank = newRanks[nodeRank[parent]];
+				if(newRank != NONE){
+					path[--position] = newRank;
+				}
+			}
+			if(position < frequentCount){
+				System.arraycopy(path, position, path, 0, frequentCount - position);
+				tree.addPath(path, frequentCount - position, nodeCounter[node], nodeClassCounter, node * classCount);
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * Check if the tree contains a single path and if yes, store its nodes in a buffer.
+	 * @param nodeBuffer the buffer for storing the nodes of the path, from the root
+	 * @return the number of nodes of the path, or -1 if the tree has more than one path
+	 */
+	public int getSinglePath(int[] nodeBuffer) {
+		int length = 0;
+		for(int node = nodeFirstChild[ROOT]; node != NONE; node = nodeFirstChild[node]){
+			// if the node has a sibling, it is not a single path
+			if(nodeNextSibling[node] != NONE){
+				return -1;
+			}
+			nodeBuffer[length++] = node;
+		}
+		return length;
+	}
+
+	/**
+	 * Check if the tree has no node except the root.
+	 * @return true if the tree is empty
+	 */
+	public boolean isEmpty() {
+		return size == 1;
+	}
+
+	/**
+	 * Get the number of ranks (the number of items in the header table).
+	 * @return the number of ranks
+	 */
+	public int getRankCount() {
+		return rankToItem.length;
+	}
+
+	/**
+	 * Get the item of a rank.
+	 * @param rank the rank
+	 * @return the item
+	 */
+	public int getItem(int rank) {
+		return rankToItem[rank];
+	}
+
+	/**
+	 * Get the support of a rank in this tree.
+	 * @param rank the rank
+	 * @return the support
+	 */
+	public int getSupport(int rank) {
+		return rankSupport[rank];
+	}
+
+	/**
+	 * Get the support of a rank in this tree for a class.
+	 * @param rank the rank
+	 * @param klass the class
+	 * @return the support
+	 */
+	public int getClassSupport(int rank, int klass) {
+		return rankClassSupport[rank * classCount + klass];
+	}
+
+	/**
+	 * Get the number of classes.
+	 * @return the number of classes (0 if the nodes do not store class counters)
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * Get the number of nodes, including the root.
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return size;
+	}
+
+	/**
+	 * Get the first node of a rank in the header table.
+	 * @param rank the rank
+	 * @return the node or NONE if no node has this rank
+	 */
+	public int getFirstNode(int rank) {
+		return headerFirst[rank];
+	}
+
+	/**
+	 * Get the next node having the same rank as a node (the node link).
+	 * @param node the node
+	 * @return the next node or NONE
+	 */
+	public int getNextNode(int node) {
+		return nodeLink[node];
+	}
+
+	/**
+	 * Get the rank of a node.
+	 * @param node the node
+	 * @return the rank
+	 */
+	public int getNodeRank(int node) {
+		return nodeRank[node];
+	}
+
+	/**
+	 * Get the item of a node.
+	 * @param node the node
+	 * @return the item
+	 */
+	public int getNodeItem(int node) {
+		return rankToItem[nodeRank[node]];
+	}
+
+	/**
+	 * Get the counter (a.k.a. support) of a node.
+	 * @param node the node
+	 * @return the counter
+	 */
+	public int getNodeCounter(int node) {
+		return nodeCounter[node];
+	}
+
+	/**
+	 * Get the counter of a node for a class.
+	 * @param node the node
+	 * @param klass the class
+	 * @return the counter
+	 */
+	public int getNodeClassCounter(int node, int klass) {
+		return nodeClassCounter[node * classCount + klass];
+	}
+
+	/**
+	 * Get the parent of a node.
+	 * @param node the node
+	 * @return the parent, or NONE for the root
+	 */
+	public int getParent(int node) {
+		return nodeParent[node];
+	}
+
+	@Override
+	/**
+	 * Method for getting a string representation of the tree
+	 * (to be used for debugging purposes).
+	 * @return a string
+	 */
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		output.append("F HeaderList: ");
+		output.append(Arrays.toString(rankToItem));
+		output.append("\n");
+		appendNode(output, ROOT, "");
+		return output.toString();
+	}
+
+	/**
+	 * Append the string representation of a node and its children to a StringBuilder.
+	 * @param output the StringBuilder
+	 * @param node the node
+	 * @param indent an indentation
+	 */
+	private void appendNode(StringBuilder output, int node, String indent) {
+		output.append((node == ROOT) ? -1 : getNodeItem(node));
+		output.append(" (count=");
+		output.append(nodeCounter[node]);
+		output.append(")\n");
+		String newIndent = indent + "   ";
+		for(int child = nodeFirstChild[node]; child != NONE; child = nodeNextSibling[child]){
+			output.append(newIndent);
+			appendNode(output, child, newIndent);
+		}
+	}
+}
@@ -49,8 +49,8 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * Pruning. Proc. 21st International Symposium on Methodologies for Intelligent
  * Systems (ISMIS 2014), Springer, LNAI, 12 pages (to appear).
  *
- * @see UtilityListFHM
- * @see Element
+ * @see CompactUtilityList
+ * @see UtilityListArena
  * @author Philippe Fournier-Viger
  */
 public class AlgoFHM {
@@ -89,6 +89,9 @@ public class AlgoFHM {
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
 
+	/** the utility lists of the itemsets, reused at each depth of the search */
+	private UtilityListArena arena = null;
+
 	/** this class represent an item and its utility in a transaction */
 	class Pair {
 		int item = 0;
@@ -163,10 +166,10 @@ public class AlgoFHM {
 		}
 
 		// CREATE A LIST TO STORE THE UTILITY LIST OF ITEMS WITH TWU >= MIN_UTILITY.
-		ListObject<UtilityListFHM> listOfUtilityListFHMs = new ArrayListObject<UtilityListFHM>();
+		ListObject<CompactUtilityList> listOfUtilityListFHMs = new ArrayListObject<CompactUtilityList>();
 		// CREATE A MAP TO STORE THE UTILITY LIST FOR EACH ITEM.
 		// Key : item Value : utility list associated to that item
-		MapIntToObject<UtilityListFHM> mapItemToUtilityListFHM = new LMapIntToObject<UtilityListFHM>();
+		MapIntToObject<CompactUtilityList> mapItemToUtilityListFHM = new LMapIntToObject<CompactUtilityList>();
 
 		// For each item
 		EntryIterator iter = mapItemToTWU.iterator();
@@ -177,15 +180,15 @@ public class AlgoFHM {
 			// if the item is promising (TWU >= minutility)
 			if (twu >= minUtility) {
 				// create an empty Utility List that we will fill later.
-				UtilityListFHM uList = new UtilityListFHM(item);
+				CompactUtilityList uList = new CompactUtilityList(item, 16);
 				mapItemToUtilityListFHM.put(item, uList);
 				// add the item to the list of high TWU items
 				listOfUtilityListFHMs.add(uList);
 			}
 		}
 		// SORT THE LIST OF HIGH TWU ITEMS IN ASCENDING ORDER
-		listOfUtilityListFHMs.sort(new ComparatorObject<UtilityListFHM>() {
-			public int compare(UtilityListFHM o1, UtilityListFHM o2) {
+		listOfUtilityListFHMs.sort(new ComparatorObject<CompactUtilityList>() {
+			public int compare(CompactUtilityList o1, CompactUtilityList o2) {
 				// compare the TWU of the items
 				return compareItems(o1.item, o2.item);
 			}
@@ -255,13 +258,11 @@ public class AlgoFHM {
 					remainingUtility = remainingUtility - pair.utility;
 
 					// get the utility list of this item
-					UtilityListFHM utilityListOfItem = mapItemToUtilityListFHM.get(pair.item);
+					CompactUtilityList utilityListOfItem = mapItemToUtilityListFHM.get(pair.item);
 
-					// Add a new Element to the utility list of this item corresponding to this
+					// Add a new element to the utility list of this item corresponding to this
 					// transaction
-					Element element = new Element(tid, pair.utility, remainingUtility);
-
-					utilityListOfItem.addElement(element);
+					utilityListOfItem.addElement(tid, pair.utility, remainingUtility);
 
 					// BEGIN NEW OPTIMIZATION for FHM
 					AMapIntToLong mapFMAPItem = mapFMAP.get(pair.item);
@@ -297,7 +298,13 @@ public class AlgoFHM {
 		MemoryLogger.getInstance().checkMemory();
 
 		// Mine the database recursively
-		fhm(itemsetBuffer, 0, null, listOfUtilityListFHMs, minUtility);
+		CompactUtilityList[] itemULs = new CompactUtilityList[listOfUtilityListFHMs.size()];
+		for (int i = 0; i < itemULs.length; i++) {
+			itemULs[i] = listOfUtilityListFHMs.get(i);
+		}
+		arena = new UtilityListArena();
+		fhm(itemsetBuffer, 0, null, itemULs, itemULs.length, minUtility);
+		arena = null;
 
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -329,16 +336,17 @@ public class AlgoFHM {
 	 *                     empty.
 	 * @param ULs          The utility lists corresponding to each extension of the
 	 *                     prefix.
+	 * @param ulCount      The number of utility lists in ULs.
 	 * @param minUtility   The minUtility threshold.
 	 * @param prefixLength The current prefix length
 	 * @throws IOException
 	 */
-	private void fhm(int[] prefix, int prefixLength, UtilityListFHM pUL, ListObject<UtilityListFHM> ULs, int minUtility)
-			throws IOException {
+	private void fhm(int[] prefix, int prefixLength, CompactUtilityList pUL, CompactUtilityList[] ULs, int ulCount,
+			int minUtility) throws IOException {
 
 		// For each extension X of prefix P
-		for (int i = 0; i < ULs.size(); i++) {
-			UtilityListFHM X = ULs.get(i);
+		for (int i = 0; i < ulCount; i++) {
+			CompactUtilityList X = ULs[i];
 
 			// If pX is a high utility itemset.
 			// we save the itemset: pX
@@ -351,12 +359,14 @@ public class AlgoFHM {
 			// is higher than minUtility, we explore extensions of pX.
 			// (this is the pruning condition)
 			if (X.sumIutils + X.sumRutils >= minUtility) {
-				// This list will contain the utility lists of pX extensions.
-				ListObject<UtilityListFHM> exULs = new ArrayListObject<UtilityListFHM>();
+				// This array will contain the utility lists of pX extensions.
+				// The utility lists of the previous itemset of the same length are reused.
+				CompactUtilityList[] exULs = arena.getLevel(prefixLength + 1, ulCount - i - 1);
+				int exCount = 0;
 				// For each extension of p appearing
 				// after X according to the ascending order
-				for (int j = i + 1; j < ULs.size(); j++) {
-					UtilityListFHM Y = ULs.get(j);
+				for (int j = i + 1; j < ulCount; j++) {
+					CompactUtilityList Y = ULs[j];
 
 					// ======================== NEW OPTIMIZATION USED IN FHM
 					AMapIntToLong mapTWUF = mapFMAP.get(X.item);
@@ -371,106 +381,20 @@ public class AlgoFHM {
 
 					// we construct the extension pXY
 					// and add it to the list of extensions of pX
-					UtilityListFHM temp = construct(pUL, X, Y, minUtility);
-					if (temp != null) {
-						exULs.add(temp);
+					// (unless the construction is stopped by the LA-prune strategy)
+					if (exULs[exCount].construct(pUL, X, Y, minUtility, ENABLE_LA_PRUNE)) {
+						exCount++;
 					}
 				}
 				// We create new prefix pX
 				itemsetBuffer[prefixLength] = X.item;
 				// We make a recursive call to discover all itemsets with the prefix pXY
-				fhm(itemsetBuffer, prefixLength + 1, X, exULs, minUtility);
+				fhm(itemsetBuffer, prefixLength + 1, X, exULs, exCount, minUtility);
 			}
 		}
 		MemoryLogger.getInstance().checkMemory();
 	}
 
-	/**
-	 * This method constructs the utility list of pXY
-	 * 
-	 * @param P  : the utility list of prefix P.
-	 * @param px : the utility list of pX
-	 * @param py : the utility list of pY
-	 * @return the utility list of pXY
-	 */
-	private UtilityListFHM construct(UtilityListFHM P, UtilityListFHM px, UtilityListFHM py, int minUtility) {
-		// create an empy utility list for pXY
-		UtilityListFHM pxyUL = new UtilityListFHM(py.item);
-
-		// == new optimization - LA-prune == /
-		// Initialize the sum of total utility
-		long totalUtility = px.sumIutils + px.sumRutils;
-		// ================================================
-
-		// for each element in the utility list of pX
-
-		for (int z = 0; z < px.elements.size(); z++) {
-			Element ex = px.elements.get(z);
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element ey = findElementWithTID(py, ex.tid);
-			if (ey == null) {
-				// == new optimization - LA-prune == /
-				if (ENABLE_LA_PRUNE) {
-					totalUtility -= (ex.iutils + ex.rutils);
-					if (totalUtility < minUtility) {
-						return null;
-					}
-				}
-				// =============================================== /
-				continue;
-			}
-			// if the prefix p is null
-			if (P == null) {
-				// Create the new element
-				Element eXY = new Element(ex.tid, ex.iutils + ey.iutils, ey.rutils);
-				// add the new element to the utility list of pXY
-				pxyUL.addElement(eXY);
-
-			} else {
-				// find the element in the utility list of p wih the same tid
-				Element e = findElementWithTID(P, ex.tid);
-				if (e != null) {
-					// Create new element
-					Element eXY = new Element(ex.tid, ex.iutils + ey.iutils - e.iutils, ey.rutils);
-					// add the new element to the utility list of pXY
-					pxyUL.addElement(eXY);
-				}
-			}
-		}
-		// return the utility list of pXY.
-		return pxyUL;
-	}
-
-	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * 
-	 * @param ulist the utility list
-	 * @param tid   the tid
-	 * @return the element or null if none has the tid.
-	 */
-	private Element findElementWithTID(UtilityListFHM ulist, int tid) {
-		ListObject<Element> list = ulist.elements;
-
-		// perform a binary search to check if the subset appears in level k-1.
-		int first = 0;
-		int last = list.size() - 1;
-
-		// the binary search
-		while (first <= last) {
-			int middle = (first + last) >>> 1; // divide by 2
-
-			if (list.get(middle).tid < tid) {
-				first = middle + 1; // the itemset compared is larger than the subset according to the lexical order
-			} else if (list.get(middle).tid > tid) {
-				last = middle - 1; // the itemset compared is smaller than the subset is smaller according to the
-									// lexical order
-			} else {
-				return list.get(middle);
-			}
-		}
-		return null;
-	}
-
 	/**
 	 * Method to write a high utility itemset to the output file.
 	 * 
@@ -42,8 +42,8 @@ import ca.pfv.spmf.tools.MemoryLogger;
  *  Liu, M., Qu, J. (2012). Mining High Utility Itemsets without Candidate Generation. 
  *  Proc. of CIKM 2012. pp.55-64.
  *
- * @see UtilityList
- * @see Element
+ * @see CompactUtilityList
+ * @see UtilityListArena
  * @author Philippe Fournier-Viger
  */
 public class AlgoHUIMiner {
@@ -71,6 +71,9 @@ public class AlgoHUIMiner {
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
 	
+	/** the utility lists of the itemsets, reused at each depth of the search */
+	private UtilityListArena arena = null;
+	
 	/** this class represent an item and its utility in a transaction */
 	class Pair{
 		int item = 0;
@@ -148,17 +151,17 @@ public class AlgoHUIMiner {
 	    }
 		
 		// CREATE A LIST TO STORE THE UTILITY LIST OF ITEMS WITH TWU  >= MIN_UTILITY.
-		List<UtilityList> listOfUtilityLists = new ArrayList<UtilityList>();
+		List<CompactUtilityList> listOfUtilityLists = new ArrayList<CompactUtilityList>();
 		// CREATE A MAP TO STORE THE UTILITY LIST FOR EACH ITEM.
 		// Key : item    Value :  utility list associated to that item
-		Map<Integer, UtilityList> mapItemToUtilityList = new HashMap<Integer, UtilityList>();
+		Map<Integer, CompactUtilityList> mapItemToUtilityList = new HashMap<Integer, CompactUtilityList>();
 		
 		// For each item
 		for(Integer item: mapItemToTWU.keySet()){
 			// if the item is promising  (TWU >= minutility)
 			if(mapItemToTWU.get(item) >= minUtility){
 				// create an empty Utility List that we will fill later.
-				UtilityList uList = new UtilityList(item);
+				CompactUtilityList uList = new CompactUtilityList(item, 16);
 				mapItemToUtilityList.put(item, uList);
 				// add the item to the list of high TWU items
 				listOfUtilityLists.add(uList); 
@@ -166,8 +169,8 @@ public class AlgoHUIMiner {
 			}
 		}
 		// SORT THE LIST OF HIGH TWU ITEMS IN ASCENDING ORDER
-		Collections.sort(listOfUtilityLists, new Comparator<UtilityList>(){
-			public int compare(UtilityList o1, UtilityList o2) {
+		Collections.sort(listOfUtilityLists, new Comparator<CompactUtilityList>(){
+			public int compare(CompactUtilityList o1, CompactUtilityList o2) {
 				// compare the TWU of the items
 				return compareItems(o1.item, o2.item);
 			}
@@ -231,12 +234,10 @@ public class AlgoHUIMiner {
 					remainingUtility = remainingUtility - pair.utility;
 					
 					// get the utility list of this item
-					UtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
-					
-					// Add a new Element to the utility list of this item corresponding to this transaction
-					Element element = new Element(tid, pair.utility, remainingUtility);
+					CompactUtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
 					
-					utilityListOfItem.addElement(element);
+					// Add a new element to the utility list of this item corresponding to this transaction
+					utilityListOfItem.addElement(tid, pair.utility, remainingUtility);
 				}
 				tid++; // increase tid number for next transaction
 
@@ -254,7 +255,10 @@ public class AlgoHUIMiner {
 		MemoryLogger.getInstance().checkMemory();
 
 		// Mine the database recursively
-		huiMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		arena = new UtilityListArena();
+		huiMiner(itemsetBuffer, 0, null, listOfUtilityLists.toArray(new CompactUtilityList[0]),
+				listOfUtilityLists.size(), minUtility);
+		arena = null;
 		
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -276,17 +280,18 @@ public class AlgoHUIMiner {
 	 * @param prefix  This is the current prefix. Initially, it is empty.
 	 * @param pUL This is the Utility List of the prefix. Initially, it is empty.
 	 * @param ULs The utility lists corresponding to each extension of the prefix.
+	 * @param ulCount The number of utility lists in ULs.
 	 * @param minUtility The minUtility threshold.
 	 * @param prefixLength The current prefix length
 	 * @throws IOException
 	 */
 	private void huiMiner(int [] prefix, 
-			int prefixLength, UtilityList pUL, List<UtilityList> ULs, int minUtility)
+			int prefixLength, CompactUtilityList pUL, CompactUtilityList[] ULs, int ulCount, int minUtility)
 			throws IOException {
 		
 		// For each extension X of prefix P
-		for(int i=0; i< ULs.size(); i++){
-			UtilityList X = ULs.get(i);
+		for(int i=0; i< ulCount; i++){
+			CompactUtilityList X = ULs[i];
 
 			// If pX is a high utility itemset.
 			// we save the itemset:  pX 
@@ -299,97 +304,28 @@ public class AlgoHUIMiner {
 			// is higher than minUtility, we explore extensions of pX.
 			// (this is the pruning condition)
 			if(X.sumIutils + X.sumRutils >= minUtility){
-				// This list will contain the utility lists of pX extensions.
-				List<UtilityList> exULs = new ArrayList<UtilityList>();
+				// This array will contain the utility lists of pX extensions.
+				// The utility lists of the previous itemset of the same length are reused.
+				CompactUtilityList[] exULs = arena.getLevel(prefixLength + 1, ulCount - i - 1);
+				int exCount = 0;
 				// For each extension of p appearing
 				// after X according to the ascending order
-				for(int j=i+1; j < ULs.size(); j++){
-					UtilityList Y = ULs.get(j);
+				for(int j=i+1; j < ulCount; j++){
+					CompactUtilityList Y = ULs[j];
 					// we construct the extension pXY 
 					// and add it to the list of extensions of pX
-					exULs.add(construct(pUL, X, Y));
+					exULs[exCount++].construct(pUL, X, Y, minUtility, false);
 					joinCount++;
 				}
 				// We create new prefix pX
 				itemsetBuffer[prefixLength] = X.item;
 				
 				// We make a recursive call to discover all itemsets with the prefix pXY
-				huiMiner(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
-			}
-		}
-	}
-	
-	/**
-	 * This method constructs the utility list of pXY
-	 * @param P :  the utility list of prefix P.
-	 * @param px : the utility list of pX
-	 * @param py : the utility list of pY
-	 * @return the utility list of pXY
-	 */
-	private UtilityList construct(UtilityList P, UtilityList px, UtilityList py) {
-		// create an empy utility list for pXY
-		UtilityList pxyUL = new UtilityList(py.item);
-		// for each element in the utility list of pX
-		for(Element ex : px.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element ey = findElementWithTID(py, ex.tid);
-			if(ey == null){
-				continue;
+				huiMiner(itemsetBuffer, prefixLength+1, X, exULs, exCount, minUtility); 
 			}
-			// if the prefix p is null
-			if(P == null){
-				// Create the new element
-				Element eXY = new Element(ex.tid, ex.iutils + ey.iutils, ey.rutils);
-				// add the new element to the utility list of pXY
-				pxyUL.addElement(eXY);
-				
-			}else{
-				// find the element in the utility list of p wih the same tid
-				Element e = findElementWithTID(P, ex.tid);
-				if(e != null){
-					// Create new element
-					Element eXY = new Element(ex.tid, ex.iutils + ey.iutils - e.iutils,
-								ey.rutils);
-					// add the new element to the utility list of pXY
-					pxyUL.addElement(eXY);
-				}
-			}	
 		}
-		// return the utility list of pXY.
-		return pxyUL;
 	}
 	
-	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * @param ulist the utility list
-	 * @param tid  the tid
-	 * @return  the element or null if none has the tid.
-	 */
-	private Element findElementWithTID(UtilityList ulist, int tid){
-		List<Element> list = ulist.elements;
-		
-		// perform a binary search to check if  the subset appears in  level k-1.
-        int first = 0;
-        int last = list.size() - 1;
-       
-        // the binary search
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>> 1; // divide by 2
-
-            if(list.get(middle).tid < tid){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(list.get(middle).tid > tid){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	return list.get(middle);
-            }
-        }
-		return null;
-	}
-
 	/**
 	 * Method to write a high utility itemset to the output file.
 	 * @param the prefix to be writent o the output file
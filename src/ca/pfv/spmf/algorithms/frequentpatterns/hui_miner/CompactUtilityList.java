@@ -0,0 +1,168 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class represents a utility list as used by the HUI-Miner and FHM algorithms,
+ * where the elements are stored in arrays of primitive values instead of Element objects.
+ * The arrays can be reused to store another utility list (see reset()), so that
+ * utility lists can be recycled by an UtilityListArena.
+ *
+ * @see AlgoHUIMiner
+ * @see AlgoFHM
+ * @see UtilityListArena
+ * @author Philippe Fournier-Viger
+ */
+public class CompactUtilityList {
+	 public int item;  // the item
+	 public long sumIutils = 0;  // the sum of item utilities
+	 public long sumRutils = 0;  // the sum of remaining utilities
+	 public int size = 0;  // the number of elements
+	 public int[] tids;  // the transaction id of each element
+	 public long[] iutils;  // the item utility of each element
+	 public long[] rutils;  // the remaining utility of each element
+
+	/**
+	 * Constructor.
+	 * @param item the item that is used for this utility list
+	 * @param capacity the initial number of elements that can be stored
+	 */
+	public CompactUtilityList(int item, int capacity){
+		this.item = item;
+		tids = new int[Math.max(capacity, 1)];
+		iutils = new long[tids.length];
+		rutils = new long[tids.length];
+	}
+
+	/**
+	 * Remove the elements of this utility list to reuse it for another item.
+	 * @param item the item that is used for this utility list
+	 * @param capacity the number of elements that must fit without resizing the arrays
+	 */
+	public void reset(int item, int capacity){
+		this.item = item;
+		sumIutils = 0;
+		sumRutils = 0;
+		size = 0;
+		if(tids.length < capacity) {
+			tids = new int[capacity];
+			iutils = new long[capacity];
+			rutils = new long[capacity];
+		}
+	}
+
+	/**
+	 * Method to add an element to this utility list and update the sums at the same time.
+	 * @param tid the transaction id
+	 * @param iutil the item utility
+	 * @param rutil the remaining utility
+	 */
+	public void addElement(int tid, long iutil, long rutil){
+		if(size == tids.length) {
+			int newLength = size * 2;
+			tids = Arrays.copyOf(tids, newLength);
+			iutils = Arrays.copyOf(iutils, newLength);
+			rutils = Arrays.copyOf(rutils, newLength);
+		}
+		tids[size] = tid;
+		iutils[size] = iutil;
+		rutils[size] = rutil;
+		size++;
+		sumIutils += iutil;
+		sumRutils += rutil;
+	}
+
+	/**
+	 * Fill this utility list with the utility list of pXY. Since the elements of each utility
+	 * list are sorted by transaction id, the utility lists of pX, pY and P are joined by
+	 * scanning them once (instead of a binary search for each element of pX).
+	 * @param P the utility list of prefix P (null if P is empty)
+	 * @param px the utility list of pX
+	 * @param py the utility list of pY
+	 * @param minUtility the minimum utility threshold
+	 * @param laPrune if true, the construction is stopped when the LA-prune strategy
+	 *   shows that pXY and its extensions are not high-utility itemsets
+	 * @return false if the construction was stopped by the LA-prune strategy, otherwise true.
+	 */
+	public boolean construct(CompactUtilityList P, CompactUtilityList px, CompactUtilityList py,
+			long minUtility, boolean laPrune){
+		reset(py.item, Math.min(px.size, py.size));
+
+		// Initialize the sum of total utility (for the LA-prune strategy)
+		long totalUtility = px.sumIutils + px.sumRutils;
+
+		// the current positions in the utility lists of pY and P
+		int posY = 0;
+		int posP = 0;
+		// for each element in the utility list of pX
+		for(int posX = 0; posX < px.size; posX++){
+			int tid = px.tids[posX];
+			// find the element of pY with the same tid (if there is one)
+			while(posY < py.size && py.tids[posY] < tid){
+				posY++;
+			}
+			if(posY == py.size || py.tids[posY] != tid){
+				if(laPrune){
+					totalUtility -= px.iutils[posX] + px.rutils[posX];
+					if(totalUtility < minUtility){
+						return false;
+					}
+				}
+				// if there is no more element in pY, pX is not extended by the other elements
+				if(posY == py.size && !laPrune){
+					break;
+				}
+				continue;
+			}
+			// if the prefix p is null
+			if(P == null){
+				// add the new element to the utility list of pXY
+				addElement(tid, px.iutils[posX] + py.iutils[posY], py.rutils[posY]);
+			}else{
+				// find the element in the utility list of p with the same tid
+				while(posP < P.size && P.tids[posP] < tid){
+					posP++;
+				}
+				if(posP < P.size && P.tids[posP] == tid){
+					// add the new element to the utility list of pXY
+					addElement(tid, px.iutils[posX] + py.iutils[posY] - P.iutils[posP], py.rutils[posY]);
+				}
+			}
+			posY++;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the support of the itemset represented by this utility-list
+	 * @return the support as a number of transactions
+	 */
+	public int getSupport() {
+		return size;
+	}
+
+	/** Get the sum of iutil values
+	 *
+	 * @return the sum
+	 */
+	public long getUtils(){
+		return this.sumIutils;
+	}
+}
@@ -0,0 +1,71 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class keeps the utility lists built at each depth of the depth-first search of
+ * algorithms such as HUI-Miner and FHM, so that they are reused instead of creating
+ * new utility lists for each itemset. When the extensions of an itemset pX are explored,
+ * the utility lists of the itemsets pXY are only needed until the next itemset
+ * having the same length is explored. Thus, the utility lists of a given depth are
+ * overwritten for the next itemset of that depth.
+ *
+ * @see CompactUtilityList
+ * @see AlgoHUIMiner
+ * @see AlgoFHM
+ * @author Philippe Fournier-Viger
+ */
+public class UtilityListArena {
+
+	/** the utility lists of each depth */
+	private CompactUtilityList[][] levels = new CompactUtilityList[16][];
+
+	/**
+	 * Get the utility lists of a given depth. The utility lists previously obtained for that
+	 * depth (and the larger depths) are overwritten.
+	 * @param depth the depth (the length of the itemsets)
+	 * @param count the number of utility lists needed
+	 * @return an array containing at least "count" utility lists
+	 */
+	public CompactUtilityList[] getLevel(int depth, int count) {
+		if(depth >= levels.length) {
+			levels = Arrays.copyOf(levels, Math.max(depth + 1, levels.length * 2));
+		}
+		CompactUtilityList[] level = levels[depth];
+		if(level == null || level.length < count) {
+			// create the missing utility lists, but keep the previous ones and their arrays
+			int oldLength = (level == null) ? 0 : level.length;
+			level = (level == null) ? new CompactUtilityList[Math.max(count, 8)]
+					: Arrays.copyOf(level, Math.max(count, oldLength * 2));
+			for(int i = oldLength; i < level.length; i++) {
+				level[i] = new CompactUtilityList(0, 16);
+			}
+			levels[depth] = level;
+		}
+		return level;
+	}
+
+	/**
+	 * Release all the utility lists.
+	 */
+	public void clear() {
+		levels = new CompactUtilityList[16][];
+	}
+}
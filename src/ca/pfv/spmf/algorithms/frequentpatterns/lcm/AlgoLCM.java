@@ -3,9 +3,13 @@ package   ca.pfv.spmf.algorithms.frequentpatterns.lcm;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
@@ -43,6 +47,14 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * The implementation is similar to LCM version 2 with some differences.
  * For example, transaction merging is not performed yet and
  * items in transactions are not sorted in descending order of frequency.
+ * <br/><br/>
+ * 
+ * The search space can be explored by several threads (see setThreadCount()).
+ * Then, the extensions of an itemset appearing in many transactions are explored
+ * by separate tasks, which are executed by a work-stealing thread pool. 
+ * The transactions of the projected databases only refer to the items of the
+ * original transactions, which are never modified. Thus, they are shared by the threads,
+ * while each thread uses its own buckets for occurrence delivery.
  *
  * @author Alan Souza <apsouza@inf.ufrgs.br>
  */
@@ -66,10 +78,56 @@ public class AlgoLCM {
 	// Recall that each bucket correspond to an item
     // and contains the transactions where the items appears.
 	private List<Transaction>[] buckets;
+	
+	// the number of threads used to explore the search space
+	private int threadCount = 1;
+	
+	// the minimum number of transactions containing an itemset for exploring 
+	// its extensions with separate tasks (in parallel mode)
+	private static final int MIN_TRANSACTIONS_PER_TASK = 100;
+	
+	// the maximum number of tasks waiting in the queue of a thread for creating new tasks
+	private static final int MAX_QUEUED_TASKS = 4;
+	
+	// the number of itemsets that a task keeps before saving them (if the output is not deterministic)
+	private static final int TASK_OUTPUT_BUFFER_SIZE = 1 << 16;
+	
+	// if true, the itemsets are saved in the same order as with a single thread (parallel mode)
+	private boolean deterministicOutput = false;
+	
+	// the copy of this object used by each thread (only in parallel mode)
+	private ThreadLocal<AlgoLCM> threadWorker = null;
+	
+	// the object that created this copy (only for a copy used by a thread, otherwise null)
+	private AlgoLCM parent = null;
+	
+	// the itemsets found by the task executed by this copy that have not been saved yet
+	private List<Itemset> taskOutput = null;
 
     public AlgoLCM() {
          
     }
+    
+    /**
+     * Constructor of a copy of the algorithm used by a thread in parallel mode.
+     * The copy has its own buckets for occurrence delivery.
+     * @param parent the object running the algorithm
+     */
+	private AlgoLCM(AlgoLCM parent) {
+    	this.parent = parent;
+    	this.minsupRelative = parent.minsupRelative;
+    	this.buckets = createBuckets(parent.buckets.length);
+    }
+
+    /**
+     * Create an empty array of buckets for occurrence delivery
+     * @param length the number of buckets
+     * @return the array
+     */
+    @SuppressWarnings("unchecked")
+	private static List<Transaction>[] createBuckets(int length) {
+    	return (List<Transaction>[]) new List<?>[length];
+    }
 
     /**
      * Run the algorithm
@@ -130,7 +188,11 @@ public class AlgoLCM {
     	//======
         // Call the recursive method witht the empty set as prefix.
         // Since it is the empty set, we will have all transactions and no frequency count
-       	backtrackingLCM(null, dataset.getTransactions(), allItems, -1);
+    	if(threadCount > 1) {
+    		backtrackingLCMParallel(dataset.getTransactions(), allItems);
+    	}else {
+    		backtrackingLCM(null, dataset.getTransactions(), allItems, -1);
+    	}
         	
 		// record the end time
 		endTimestamp = System.currentTimeMillis();
@@ -156,67 +218,151 @@ public class AlgoLCM {
 			List<Transaction> transactionsOfP, List<Integer> frequentItems,
 			int tailPosInP) throws IOException {
 
+		// in parallel mode, if the itemset appears in many transactions and this thread 
+		// does not have enough tasks waiting, its extensions are explored by separate tasks
+		if(parent != null && transactionsOfP.size() >= MIN_TRANSACTIONS_PER_TASK
+				&& ForkJoinTask.getQueuedTaskCount() < MAX_QUEUED_TASKS) {
+			parent.exploreExtensionsWithTasks(p, transactionsOfP, frequentItems, tailPosInP, taskOutput);
+			return;
+		}
+		
         // ========  for each frequent item  e  =============
 		for (int j = 0; j < frequentItems.size(); j++) {
-			Integer e = frequentItems.get(j);
-			//   if the item is not already in p  before the current tail position
-			// we will consider it to form a new closed itemset
-			if(p != null && containsByBinarySearch(p, e, tailPosInP)) {
-				continue;
-			}
-			
-			// Calculate transactions containing P U e 
-			// At the same time truncate the transactions to keep what appears after "e"
-			List<Transaction> transactionsPe = intersectTransactions(transactionsOfP, e); //ok
-			
-			//====== Check if PU{e...} is a ppc extension  ======
-			if (isPPCExtension(p, transactionsPe, e)) {
-				//  ======= Create a closed itemset using PU{e...}  =====
-				// First add all items from PU{e}
-		    	List<Integer> itemset = new ArrayList<Integer>();
-		    	if(p != null) {
-			        //add every item i of p  such that i < e to the  itemset
-			        for (int m = 0; m < p.size() && p.get(m) < e; m++) {
-			        	itemset.add(p.get(m));
-			        }
-		    	}
-		    	itemset.add(e);
-		    	int tailPositionInPe = itemset.size()-1;
-		    
-		    	for (int k = j+1; k < frequentItems.size(); k++) {
-					Integer itemk = frequentItems.get(k);
-		            // for every item i > e add if it is in all transactions of T(P U e)
-		            if(isItemInAllTransactions(transactionsPe, itemk)) {
-		            	itemset.add(itemk);
-		            }
-		        }
-
-		        // ===== save the frequent closed itemset
-		    	int supportPe = transactionsPe.size();
-				output(itemset, supportPe);
-
-				//==== perform database reduction ====
-				anyTimeDatabaseReductionClosed(transactionsPe, j, frequentItems, p, e); 
-				
-		    	// ================ Find frequent items in transactions containing P ============
-		        // Get all frequent items e such that e > tailOfP  
-		    	// (i.e. "e" appears after the position of the tail item in the list of all items)
-				List<Integer> newFrequentItems = new ArrayList<Integer>();
-		    	for (int k = j+1; k < frequentItems.size(); k++) {
-		        	Integer itemK =  frequentItems.get(k);
-		        	int supportK = buckets[itemK].size();
-		            if(supportK >= minsupRelative) {
-		            	newFrequentItems.add(itemK);
-		            }
-		        }
-				
-				// === recursive call
-				backtrackingLCM(itemset, transactionsPe, newFrequentItems, tailPositionInPe);
-			}
+			exploreExtension(p, transactionsOfP, frequentItems, tailPosInP, j);
 		}
 
 		MemoryLogger.getInstance().checkMemory();
     }
+	
+	/**
+	 * Explore the closed itemsets that are ppc extensions of P with an item e
+	 * @param p  a prefix itemset P
+	 * @param transactionsOfP the transactions containing P
+	 * @param frequentItems the list of frequent items in the p-projected database
+	 * @param tailPosInP the tail item position in itemset P
+	 * @param j the position of e in the list of frequent items
+	 * @throws IOException if error writing to output file
+	 */
+	private void exploreExtension(List<Integer> p, List<Transaction> transactionsOfP, 
+			List<Integer> frequentItems, int tailPosInP, int j) throws IOException {
+		Integer e = frequentItems.get(j);
+		//   if the item is not already in p  before the current tail position
+		// we will consider it to form a new closed itemset
+		if(p != null && containsByBinarySearch(p, e, tailPosInP)) {
+			return;
+		}
+		
+		// Calculate transactions containing P U e 
+		// At the same time truncate the transactions to keep what appears after "e"
+		List<Transaction> transactionsPe = intersectTransactions(transactionsOfP, e); //ok
+		
+		//====== Check if PU{e...} is a ppc extension  ======
+		if (isPPCExtension(p, transactionsPe, e)) {
+			//  ======= Create a closed itemset using PU{e...}  =====
+			// First add all items from PU{e}
+	    	List<Integer> itemset = new ArrayList<Integer>();
+	    	if(p != null) {
+		        //add every item i of p  such that i < e to the  itemset
+		        for (int m = 0; m < p.size() && p.get(m) < e; m++) {
+		        	itemset.add(p.get(m));
+		        }
+	    	}
+	    	itemset.add(e);
+	    	int tailPositionInPe = itemset.size()-1;
+	    
+	    	for (int k = j+1; k < frequentItems.size(); k++) {
+				Integer itemk = frequentItems.get(k);
+	            // for every item i > e add if it is in all transactions of T(P U e)
+	            if(isItemInAllTransactions(transactionsPe, itemk)) {
+	            	itemset.add(itemk);
+	            }
+	        }
+
+	        // ===== save the frequent closed itemset
+	    	int supportPe = transactionsPe.size();
+			output(itemset, supportPe);
+
+			//==== perform database reduction ====
+			anyTimeDatabaseReductionClosed(transactionsPe, j, frequentItems, p, e); 
+			
+	    	// ================ Find frequent items in transactions containing P ============
+	        // Get all frequent items e such that e > tailOfP  
+	    	// (i.e. "e" appears after the position of the tail item in the list of all items)
+			List<Integer> newFrequentItems = new ArrayList<Integer>();
+	    	for (int k = j+1; k < frequentItems.size(); k++) {
+	        	Integer itemK =  frequentItems.get(k);
+	        	int supportK = buckets[itemK].size();
+	            if(supportK >= minsupRelative) {
+	            	newFrequentItems.add(itemK);
+	            }
+	        }
+			
+			// === recursive call
+			backtrackingLCM(itemset, transactionsPe, newFrequentItems, tailPositionInPe);
+		}
+    }
+    
+	/**
+	 * Explore the closed itemsets with several threads. The extensions of the empty set
+	 * are explored by separate tasks.
+	 * @param transactions the transactions of the dataset
+	 * @param frequentItems the list of frequent items
+	 * @throws IOException if error writing to output file
+	 */
+	private void backtrackingLCMParallel(final List<Transaction> transactions, 
+			final List<Integer> frequentItems) throws IOException {
+		// each thread uses its own copy of this object
+		threadWorker = ThreadLocal.withInitial(() -> new AlgoLCM(this));
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					exploreExtensionsWithTasks(null, transactions, frequentItems, -1, null);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			threadWorker = null;
+		}
+	}
+	
+	/**
+	 * Explore each extension of an itemset P with a separate task, and wait for these tasks
+	 * (in parallel mode).
+	 * @param p  a prefix itemset P
+	 * @param transactionsOfP the transactions containing P
+	 * @param frequentItems the list of frequent items in the p-projected database
+	 * @param tailPosInP the tail item position in itemset P
+	 * @param output the itemsets found by the current task (null if P is the empty set)
+	 */
+	private void exploreExtensionsWithTasks(List<Integer> p, List<Transaction> transactionsOfP, 
+			List<Integer> frequentItems, int tailPosInP, List<Itemset> output) {
+		List<ExtensionTask> tasks = new ArrayList<ExtensionTask>();
+		for (int j = 0; j < frequentItems.size(); j++) {
+			tasks.add(new ExtensionTask(p, transactionsOfP, frequentItems, tailPosInP, j));
+		}
+		// The tasks are added in reverse order, so that this thread executes the first
+		// tasks first, while the other threads take the last tasks
+		for (int i = tasks.size() - 1; i >= 0; i--) {
+			tasks.get(i).fork();
+		}
+		// wait for the tasks (and keep their itemsets in order if the output is deterministic)
+		for (ExtensionTask task : tasks) {
+			task.join();
+			if(deterministicOutput) {
+				if(output == null) {
+					writeTaskOutput(task.output);
+				}else {
+					output.addAll(task.output);
+				}
+			}
+		}
+	}
 
 
     /**
@@ -224,10 +370,9 @@ public class AlgoLCM {
 	 * containing all items
 	 * @param dataset
 	 */
-	@SuppressWarnings("unchecked")
 	public void performFirstOccurenceDelivery(Dataset dataset) {
 
-		buckets = new List[dataset.getMaxItem() + 1]; 
+		buckets = createBuckets(dataset.getMaxItem() + 1);
 
 		for (Integer item : dataset.uniqueItems) {
 			buckets[item] = new ArrayList<Transaction>();
@@ -254,10 +399,14 @@ public class AlgoLCM {
     private void anyTimeDatabaseReductionClosed(List<Transaction> transactionsPe, int j, List<Integer> frequentItems, List<Integer> itemset, Integer e) {
 
 		// We just reset the buckets for item  > e
-		// instead of all buckets
+		// instead of all buckets (the buckets are reused)
 		for (int i = j+1; i < frequentItems.size(); i++) {
 			Integer item = frequentItems.get(i);
-			buckets[item] = new ArrayList<Transaction>();
+			if(buckets[item] == null) {
+				buckets[item] = new ArrayList<Transaction>();
+			}else {
+				buckets[item].clear();
+			}
 		}
 		
        // for each transaction
@@ -410,6 +559,15 @@ public class AlgoLCM {
      * @throws IOException if error while writting to output file
      */
     private void output(List<Integer> itemset, int support) throws IOException {
+    	// in parallel mode, the itemset is kept with the itemsets found by the current task
+    	if(taskOutput != null) {
+    		taskOutput.add(new Itemset(itemset, support));
+    		// if the output is not deterministic, the itemsets are saved when there are many of them
+    		if(!parent.deterministicOutput && taskOutput.size() >= TASK_OUTPUT_BUFFER_SIZE) {
+    			parent.writeTaskOutput(taskOutput);
+    		}
+    		return;
+    	}
     	// if not the empty set
         if(!itemset.isEmpty()) {
             frequentCount++;
@@ -443,7 +601,107 @@ public class AlgoLCM {
     }
 
 
- 
+    /**
+     * Save the itemsets found by a task to file or memory (in parallel mode).
+     * @param itemsets the itemsets (the list is cleared)
+     */
+    private synchronized void writeTaskOutput(List<Itemset> itemsets) {
+    	try {
+    		for(Itemset itemset : itemsets) {
+    			frequentCount++;
+    			if(writer == null) {
+    				closedFrequentItemsets.addItemset(itemset, itemset.size());
+    			}else {
+    				StringBuilder buffer = new StringBuilder();
+    				int[] items = itemset.getItems();
+    				for (int i = 0; i < items.length; i++) {
+    					buffer.append(items[i]);
+    					if (i != items.length - 1) {
+    						buffer.append(' ');
+    					}
+    				}
+    				buffer.append(" #SUP: ");
+    				buffer.append(itemset.getAbsoluteSupport());
+    				writer.write(buffer.toString());
+    				writer.newLine();
+    			}
+    		}
+    	}catch(IOException e) {
+    		throw new UncheckedIOException(e);
+    	}
+    	itemsets.clear();
+    }
+    
+    /**
+     * Set the number of threads used to explore the search space (by default, 1).
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+    	if(threadCount < 1){
+    		throw new IllegalArgumentException("The number of threads must be at least 1");
+    	}
+    	this.threadCount = threadCount;
+    }
+    
+    /**
+     * Set if the itemsets should be saved in the same order as with a single thread when
+     * several threads are used (by default, false).
+     * @param deterministicOutput true to save the itemsets in a deterministic order
+     */
+    public void setDeterministicOutput(boolean deterministicOutput) {
+    	this.deterministicOutput = deterministicOutput;
+    }
+    
+    /**
+     * A task exploring the closed itemsets that are ppc extensions of an itemset P with an item e,
+     * in parallel mode. It uses the copy of the AlgoLCM object of the current thread.
+     */
+    private class ExtensionTask extends RecursiveAction {
+    	private static final long serialVersionUID = 1L;
+    	// the prefix itemset P
+    	private final transient List<Integer> p;
+    	// the transactions containing P
+    	private final transient List<Transaction> transactionsOfP;
+    	// the list of frequent items in the p-projected database
+    	private final transient List<Integer> frequentItems;
+    	// the tail item position in itemset P
+    	private final int tailPosInP;
+    	// the position of e in the list of frequent items
+    	private final int j;
+    	// the itemsets found by this task that have not been saved yet
+    	final transient List<Itemset> output = new ArrayList<Itemset>();
+    	
+    	/**
+    	 * Constructor
+    	 */
+    	ExtensionTask(List<Integer> p, List<Transaction> transactionsOfP, List<Integer> frequentItems,
+    			int tailPosInP, int j) {
+    		this.p = p;
+    		this.transactionsOfP = transactionsOfP;
+    		this.frequentItems = frequentItems;
+    		this.tailPosInP = tailPosInP;
+    		this.j = j;
+    	}
+    	
+    	@Override
+    	protected void compute() {
+    		AlgoLCM worker = threadWorker.get();
+    		// this thread may execute this task while another task waits for its subtasks,
+    		// so the itemsets of that other task are restored afterward
+    		List<Itemset> previousOutput = worker.taskOutput;
+    		worker.taskOutput = output;
+    		try {
+    			worker.exploreExtension(p, transactionsOfP, frequentItems, tailPosInP, j);
+    		} catch (IOException e) {
+    			throw new UncheckedIOException(e);
+    		} finally {
+    			worker.taskOutput = previousOutput;
+    		}
+    		if(!deterministicOutput) {
+    			writeTaskOutput(output);
+    		}
+    	}
+    }
  
     /**
      * Print statistics about the latest execution of the algorithm.
@@ -11,6 +11,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
+
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabase;
 /* This file is copyright (c) 2012-2014 Alan Souza
 * 
 * This file is part of the SPMF DATA MINING SOFTWARE
@@ -46,18 +48,25 @@ public class Dataset {
 
         transactions = new ArrayList<Transaction>();
         
-        BufferedReader br = new BufferedReader(new FileReader(datasetPath));
-        String items;
-        while((items = br.readLine()) != null) { // iterate over the lines to build the transaction
-			// if the line is  a comment, is  empty or is  metadata
-			if (items.isEmpty() == true || items.charAt(0) == '#' 
-					|| items.charAt(0) == '%' || items.charAt(0) == '@') {
-				continue;
-			}
-        	
-            getTransactions().add(createTransaction(items));
+        if(BinaryTransactionDatabase.isBinaryFile(datasetPath)) {
+        	// if the file is in binary format, read the transactions without parsing text
+        	try(BinaryTransactionDatabase database = new BinaryTransactionDatabase(datasetPath)) {
+        		loadBinaryDatabase(database);
+        	}
+        }else {
+	        BufferedReader br = new BufferedReader(new FileReader(datasetPath));
+	        String items;
+	        while((items = br.readLine()) != null) { // iterate over the lines to build the transaction
+				// if the line is  a comment, is  empty or is  metadata
+				if (items.isEmpty() == true || items.charAt(0) == '#' 
+						|| items.charAt(0) == '%' || items.charAt(0) == '@') {
+					continue;
+				}
+	        	
+	            getTransactions().add(createTransaction(items));
+	        }
+	        br.close();
         }
-        br.close();
         
         /// sort transactions by increasing last item (optimization)
         Collections.sort(transactions, new Comparator<Transaction>() {
@@ -77,6 +86,32 @@ public class Dataset {
         
     }
 
+    /**
+     * Create the transactions from a database in binary format
+     * @param database the binary database
+     */
+    private void loadBinaryDatabase(BinaryTransactionDatabase database) {
+    	int[] buffer = new int[16];
+    	for(int t = 0; t < database.size(); t++) {
+    		int length = database.getTransactionLength(t);
+    		if(length > buffer.length) {
+    			buffer = new int[length];
+    		}
+    		database.getItems(t, buffer);
+    		
+    		Integer[] itemsSorted = new Integer[length];
+    		for (int i = 0; i < length; i++) {
+    			itemsSorted[i] = buffer[i];
+    			uniqueItems.add(buffer[i]);
+    		}
+    		// update max item by checking the last item of the transaction
+    		if(length > 0 && buffer[length - 1] > maxItem) {
+    			maxItem = buffer[length - 1];
+    		}
+    		transactions.add(new Transaction(itemsSorted));
+    	}
+    }
+
     /**
      * Create a transaction object from a line from the input file
      * @param line a line from input file
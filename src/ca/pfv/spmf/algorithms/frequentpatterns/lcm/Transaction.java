@@ -24,7 +24,6 @@ import java.util.List;
  * @author Alan Souza <apsouza@inf.ufrgs.br>
  */
 public class Transaction {
-	public static Integer[] temp = new Integer[500];
 
 	Transaction originalTransaction;
 	int offset;
@@ -108,16 +107,23 @@ public class Transaction {
 
 	public void removeInfrequentItems(List<Transaction>[] buckets, int minsupRelative) {
     	
-    	// copy only the frequent itemsets after the offset in the temporary buffer
+    	// count the frequent items
+    	int count = 0;
+    	for(Integer item : items) {
+    		if(buckets[item].size() >= minsupRelative) {
+    			count++;
+    		}
+    	}
+    	// copy only the frequent items in a new array
+    	// (without a shared buffer, so that several datasets can be processed at the same time)
+    	Integer[] frequentItems = new Integer[count];
     	int i = 0;
     	for(Integer item : items) {
     		if(buckets[item].size() >= minsupRelative) {
-    			temp[i++] = item;
+    			frequentItems[i++] = item;
     		}
     	}
-    	// copy the buffer back into the original array
-    	this.items = new Integer[i];
-    	System.arraycopy(temp, 0, this.items, 0, i);
+    	this.items = frequentItems;
 	}
 
 
@@ -0,0 +1,515 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.partition;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
+import ca.pfv.spmf.patterns.sink.ItemNames;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * This is an implementation of the Partition algorithm for mining frequent itemsets
+ * in a transaction database that does not fit in memory. It reads the database twice,
+ * and only keeps a part of the database in memory at a time. <br/><br/>
+ *
+ * The Partition algorithm is described in: <br/><br/>
+ *
+ * Savasere, A., Omiecinski, E., Navathe, S. (1995). An Efficient Algorithm for Mining
+ * Association Rules in Large Databases. Proc. of VLDB 1995. pp. 432-444.<br/><br/>
+ *
+ * During the first pass, the database is split into partitions that fit in memory, and the
+ * frequent itemsets of each partition (the local frequent itemsets) are found by
+ * an in-memory algorithm of SPMF (by default FPGrowth, but also for example LCMFreq or Eclat).
+ * Each partition is written to a temporary file that is given to that algorithm, and the
+ * local frequent itemsets are kept in a temporary file. An itemset that is frequent in the database
+ * is frequent in at least one partition. Thus, the local frequent itemsets are the candidates. <br/><br/>
+ *
+ * During the second pass, the support of the candidates in the whole database is calculated.
+ * If there are too many candidates to be kept in memory, they are read from the temporary files
+ * and counted by batches, and the database is read once for each batch.
+ * A candidate that is found in several partitions is only counted for the first partition
+ * where it is frequent, so that it is not output twice. The candidates of a batch are
+ * stored in a {@link CandidatePrefixTree}.
+ *
+ * @see AlgorithmManager
+ * @author Philippe Fournier-Viger
+ */
+public class AlgoPartition {
+
+	/** the start time and end time of the last execution */
+	long startTimestamp;
+	long endTimestamp;
+
+	/** the number of transactions in the database */
+	private int transactionCount;
+
+	/** the number of frequent itemsets found */
+	private int itemsetCount;
+
+	/** the number of candidates (local frequent itemsets) */
+	private long candidateCount;
+
+	/** the number of batches of candidates that were counted */
+	private int batchCount;
+
+	/** the maximum memory usage */
+	private double maxMemory;
+
+	/** the name of the algorithm used to mine each partition */
+	private String localAlgorithmName = "FPGrowth_itemsets";
+
+	/** the maximum number of transactions in a partition (0 to only consider the available memory) */
+	private int maxTransactionsPerPartition = 0;
+
+	/** the maximum number of candidates that are counted at the same time */
+	private int maxCandidatesInMemory = 1000000;
+
+	/** the folder for the temporary files (null for the default temporary folder) */
+	private File temporaryDirectory = null;
+
+	/** the estimated memory used by the in-memory algorithms for each item of a transaction (in bytes) */
+	private static final long ESTIMATED_BYTES_PER_ITEM = 200;
+
+	/** the number of transactions in each partition */
+	private List<Integer> partitionSizes;
+
+	/** the minimum support of each partition, as a number of transactions */
+	private List<Integer> localMinsups;
+
+	/** the files containing the local frequent itemsets of each partition */
+	private List<File> candidateFiles;
+
+	/** the candidates of the current batch */
+	private List<int[]> candidates;
+
+	/** the partition where each candidate of the current batch was found */
+	private int[] candidateOwners;
+
+	/** the support of each candidate of the current batch */
+	private int[] supports;
+
+	/** the support of each candidate of the current batch in the current partition */
+	private int[] partitionSupports;
+
+	/** true for a candidate of the current batch that is frequent in an earlier partition */
+	private boolean[] isDuplicate;
+
+	/** the prefix tree of the candidates of the current batch */
+	private CandidatePrefixTree tree;
+
+	/**
+	 * Default constructor
+	 */
+	public AlgoPartition() {
+
+	}
+
+	/**
+	 * Run the algorithm
+	 * @param input the path to an input file containing a transaction database
+	 * @param output the output file path for saving the frequent itemsets
+	 * @param minsup the minimum support threshold, as a percentage of the transactions (e.g. 0.4)
+	 * @throws IOException exception if error reading or writing files
+	 */
+	public void runAlgorithm(String input, String output, double minsup) throws IOException {
+		// record the start time
+		startTimestamp = System.currentTimeMillis();
+		MemoryLogger.getInstance().reset();
+
+		transactionCount = 0;
+		itemsetCount = 0;
+		candidateCount = 0;
+		batchCount = 0;
+		maxMemory = 0;
+		partitionSizes = new ArrayList<Integer>();
+		localMinsups = new ArrayList<Integer>();
+		candidateFiles = new ArrayList<File>();
+
+		// get the algorithm used to mine each partition
+		DescriptionOfAlgorithm localAlgorithm = CandidatePrefixTree.getLocalAlgorithm(localAlgorithmName);
+
+		try {
+			// (1) FIRST PASS: find the local frequent itemsets of each partition
+			findLocalFrequentItemsets(input, minsup, localAlgorithm);
+
+			// convert the minimum support as percentage to a
+			// relative minimum support
+			int minsupRelative = (int) Math.ceil(minsup * transactionCount);
+
+			// (2) SECOND PASS: count the support of the candidates by batches
+			try (BufferedWriter writer = new BufferedWriter(new FileWriter(output))) {
+				CandidateReader reader = new CandidateReader();
+				try {
+					while (readBatch(reader)) {
+						countBatch(input);
+						saveFrequentCandidates(writer, minsupRelative);
+						batchCount++;
+					}
+				} finally {
+					reader.close();
+				}
+			}
+		} finally {
+			// delete the temporary files
+			for (File file : candidateFiles) {
+				file.delete();
+			}
+			candidateFiles = null;
+			candidates = null;
+			tree = null;
+		}
+
+		MemoryLogger.getInstance().checkMemory();
+		maxMemory = Math.max(maxMemory, MemoryLogger.getInstance().getMaxMemory());
+		// record the end time
+		endTimestamp = System.currentTimeMillis();
+	}
+
+	/**
+	 * Read the database, split it into partitions and find the frequent itemsets of each partition.
+	 * @param input the path of the database
+	 * @param minsup the minimum support as a percentage
+	 * @param localAlgorithm the algorithm used to mine each partition
+	 * @throws IOException if error while reading or writing files
+	 */
+	private void findLocalFrequentItemsets(String input, double minsup, DescriptionOfAlgorithm localAlgorithm)
+			throws IOException {
+		// the maximum number of items in a partition, according to the memory
+		long maxItemsPerPartition = Math.max(1, Runtime.getRuntime().maxMemory() / ESTIMATED_BYTES_PER_ITEM / 2);
+
+		// Each partition is written to a new file, since some algorithms keep the databases read from
+		// files in a cache (see DatasetCache), which identifies a file by its path, size and date.
+		File partitionFile = null;
+		BufferedWriter writer = null;
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(input)) {
+			int partitionSize = 0;
+			long partitionItemCount = 0;
+			StringBuilder buffer = new StringBuilder();
+			int[] transaction = new int[16];
+			while (true) {
+				boolean hasTransaction = nextTransaction(tokenizer);
+				// if the current partition is complete, mine it
+				if (writer != null && (hasTransaction == false
+						|| partitionSize == maxTransactionsPerPartition
+						|| partitionItemCount >= maxItemsPerPartition)) {
+					writer.close();
+					writer = null;
+					minePartition(partitionFile, partitionSize, minsup, localAlgorithm);
+					partitionFile.delete();
+					partitionSize = 0;
+					partitionItemCount = 0;
+				}
+				if (hasTransaction == false) {
+					break;
+				}
+				if (writer == null) {
+					partitionFile = File.createTempFile("partition", ".txt", temporaryDirectory);
+					writer = new BufferedWriter(new FileWriter(partitionFile));
+				}
+				// copy the transaction to the partition file
+				// (sorted, since some algorithms require sorted transactions)
+				int length = tokenizer.getSectionLength(0);
+				if (transaction.length < length) {
+					transaction = new int[length];
+				}
+				System.arraycopy(tokenizer.getValues(), 0, transaction, 0, length);
+				length = CandidatePrefixTree.sortItems(transaction, length);
+				buffer.setLength(0);
+				for (int i = 0; i < length; i++) {
+					if (i > 0) {
+						buffer.append(' ');
+					}
+					buffer.append(transaction[i]);
+				}
+				writer.write(buffer.toString());
+				writer.newLine();
+				partitionSize++;
+				partitionItemCount += length;
+				transactionCount++;
+			}
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+			if (partitionFile != null) {
+				partitionFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Find the frequent itemsets of a partition and save them in a temporary file.
+	 * @param partitionFile the file containing the transactions of the partition
+	 * @param partitionSize the number of transactions
+	 * @param minsup the minimum support as a percentage
+	 * @param localAlgorithm the algorithm used to mine the partition
+	 * @throws IOException if error while reading or writing files
+	 */
+	private void minePartition(File partitionFile, int partitionSize, double minsup,
+			DescriptionOfAlgorithm localAlgorithm) throws IOException {
+		File candidateFile = File.createTempFile("candidates", ".txt", temporaryDirectory);
+		candidateFiles.add(candidateFile);
+		partitionSizes.add(partitionSize);
+		// the in-memory algorithms use the same formula to convert the minimum support
+		localMinsups.add((int) Math.ceil(minsup * partitionSize));
+		// the names of items (e.g. for an ARFF file) are not written to the file of the candidates,
+		// since the candidates are read as item IDs
+		ItemNames itemNames = ItemNames.suspendForCurrentThread();
+		try {
+			localAlgorithm.runAlgorithm(new String[] { Double.toString(minsup) }, partitionFile.getPath(),
+					candidateFile.getPath());
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Error while running " + localAlgorithmName + " on a partition", e);
+		} finally {
+			ItemNames.restoreForCurrentThread(itemNames);
+		}
+		// the algorithm resets the memory logger, so its maximum memory usage is kept
+		MemoryLogger.getInstance().checkMemory();
+		maxMemory = Math.max(maxMemory, MemoryLogger.getInstance().getMaxMemory());
+	}
+
+	/**
+	 * Move to the next transaction of the database.
+	 * @param tokenizer the tokenizer reading the database
+	 * @return true if there is a transaction, false if the end of the file is reached
+	 * @throws IOException if error while reading the file
+	 */
+	private boolean nextTransaction(SPMFTokenizer tokenizer) throws IOException {
+		while (tokenizer.nextLine()) {
+			// skip the metadata (e.g. the names of items) and empty transactions
+			if (tokenizer.isMetadata() == false && tokenizer.getSectionLength(0) > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Read the next batch of candidates and create their prefix tree.
+	 * @param reader the object reading the candidates of each partition
+	 * @return false if there is no more candidate
+	 * @throws IOException if error while reading a file
+	 */
+	private boolean readBatch(CandidateReader reader) throws IOException {
+		candidates = new ArrayList<int[]>();
+		List<Integer> owners = new ArrayList<Integer>();
+		tree = new CandidatePrefixTree();
+		int[] itemset;
+		while (candidates.size() < maxCandidatesInMemory && (itemset = reader.next()) != null) {
+			candidateCount++;
+			// if the candidate is already in the batch, it is frequent in an earlier partition
+			if (tree.insert(itemset, candidates.size())) {
+				candidates.add(itemset);
+				owners.add(reader.partition);
+			}
+		}
+		if (candidates.isEmpty()) {
+			return false;
+		}
+		candidateOwners = new int[candidates.size()];
+		for (int i = 0; i < candidateOwners.length; i++) {
+			candidateOwners[i] = owners.get(i);
+		}
+		supports = new int[candidates.size()];
+		partitionSupports = new int[candidates.size()];
+		isDuplicate = new boolean[candidates.size()];
+		MemoryLogger.getInstance().checkMemory();
+		return true;
+	}
+
+	/**
+	 * Read the database to count the support of the candidates of the current batch.
+	 * @param input the path of the database
+	 * @throws IOException if error while reading the file
+	 */
+	private void countBatch(String input) throws IOException {
+		int partition = 0;
+		int positionInPartition = 0;
+		int[] transaction = new int[16];
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(input)) {
+			while (nextTransaction(tokenizer)) {
+				// copy the items (sorted, without duplicates)
+				int length = tokenizer.getSectionLength(0);
+				if (transaction.length < length) {
+					transaction = new int[length];
+				}
+				System.arraycopy(tokenizer.getValues(), 0, transaction, 0, length);
+				length = CandidatePrefixTree.sortItems(transaction, length);
+
+				tree.count(transaction, length, partitionSupports);
+
+				// if it is the last transaction of a partition, add the supports in that partition
+				// to the supports of the candidates, and find the candidates that are frequent in
+				// that partition but come from a later partition
+				positionInPartition++;
+				if (partition < partitionSizes.size() && positionInPartition == partitionSizes.get(partition)) {
+					int localMinsup = localMinsups.get(partition);
+					for (int i = 0; i < partitionSupports.length; i++) {
+						supports[i] += partitionSupports[i];
+						if (candidateOwners[i] > partition && partitionSupports[i] >= localMinsup) {
+							isDuplicate[i] = true;
+						}
+						partitionSupports[i] = 0;
+					}
+					partition++;
+					positionInPartition = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Save the candidates of the current batch that are frequent in the database.
+	 * @param writer the writer for the output file
+	 * @param minsupRelative the minimum support as a number of transactions
+	 * @throws IOException if error while writing the file
+	 */
+	private void saveFrequentCandidates(BufferedWriter writer, int minsupRelative) throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < candidates.size(); i++) {
+			if (isDuplicate[i] == false && supports[i] >= minsupRelative) {
+				int[] itemset = candidates.get(i);
+				buffer.setLength(0);
+				for (int k = 0; k < itemset.length; k++) {
+					buffer.append(itemset[k]);
+					buffer.append(' ');
+				}
+				buffer.append("#SUP: ");
+				buffer.append(supports[i]);
+				writer.write(buffer.toString());
+				writer.newLine();
+				itemsetCount++;
+			}
+		}
+	}
+
+	/**
+	 * Set the name of the algorithm used to mine each partition (by default, "FPGrowth_itemsets").
+	 * It can be any algorithm of SPMF that finds all frequent itemsets and takes the minimum
+	 * support as a percentage for its first parameter, such as "LCMFreq" or "Eclat".
+	 * @param localAlgorithmName the name of the algorithm
+	 */
+	public void setLocalAlgorithm(String localAlgorithmName) {
+		this.localAlgorithmName = localAlgorithmName;
+	}
+
+	/**
+	 * Set the maximum number of transactions in a partition. By default (0), the
+	 * partitions are as large as possible according to the maximum memory of the Java virtual machine.
+	 * @param maxTransactionsPerPartition the number of transactions
+	 */
+	public void setMaxTransactionsPerPartition(int maxTransactionsPerPartition) {
+		if (maxTransactionsPerPartition < 0) {
+			throw new IllegalArgumentException("The number of transactions cannot be negative");
+		}
+		this.maxTransactionsPerPartition = maxTransactionsPerPartition;
+	}
+
+	/**
+	 * Set the maximum number of candidates that are counted at the same time (by default, 1000000).
+	 * When there are more candidates, the database is read once for each batch of candidates.
+	 * @param maxCandidatesInMemory the number of candidates
+	 */
+	public void setMaxCandidatesInMemory(int maxCandidatesInMemory) {
+		if (maxCandidatesInMemory < 1) {
+			throw new IllegalArgumentException("The number of candidates must be at least 1");
+		}
+		this.maxCandidatesInMemory = maxCandidatesInMemory;
+	}
+
+	/**
+	 * Set the folder where the temporary files are written (by default, the temporary folder of the system).
+	 * @param temporaryDirectory the folder
+	 */
+	public void setTemporaryDirectory(String temporaryDirectory) {
+		this.temporaryDirectory = temporaryDirectory == null ? null : new File(temporaryDirectory);
+	}
+
+	/**
+	 * Print statistics about the latest execution of the algorithm.
+	 */
+	public void printStats() {
+		System.out.println("=============  PARTITION - STATS =============");
+		System.out.println(" Transactions count from database : " + transactionCount);
+		System.out.println(" Partition count : " + partitionSizes.size() + " (mined by " + localAlgorithmName + ")");
+		System.out.println(" Candidate count : " + candidateCount + " (counted in " + batchCount + " batch(es))");
+		System.out.println(" Frequent itemsets count : " + itemsetCount);
+		System.out.println(" Maximum memory usage : " + maxMemory + " mb");
+		System.out.println(" Total time ~ " + (endTimestamp - startTimestamp) + " ms");
+		System.out.println("===================================================");
+	}
+
+	/**
+	 * This class reads the local frequent itemsets of each partition from the temporary files,
+	 * in the order of the partitions.
+	 */
+	private class CandidateReader {
+		/** the partition of the file being read */
+		int partition = -1;
+		/** the reader of the file being read (null if there is no more file) */
+		BufferedReader reader = null;
+
+		/**
+		 * Read the next candidate
+		 * @return the items of the candidate (sorted), or null if there is no more candidate
+		 * @throws IOException if error while reading a file
+		 */
+		int[] next() throws IOException {
+			while (true) {
+				String line = (reader == null) ? null : reader.readLine();
+				if (line != null) {
+					int[] itemset = CandidatePrefixTree.parseItemset(line);
+					if (itemset != null) {
+						return itemset;
+					}
+				} else {
+					// move to the file of the next partition
+					close();
+					if (partition + 1 >= candidateFiles.size()) {
+						return null;
+					}
+					partition++;
+					reader = new BufferedReader(new FileReader(candidateFiles.get(partition)));
+				}
+			}
+		}
+
+		/**
+		 * Close the file being read
+		 * @throws IOException if error while closing the file
+		 */
+		void close() throws IOException {
+			if (reader != null) {
+				reader.close();
+				reader = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.partition;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+
+/**
+ * This class is a prefix tree of candidate itemsets, which is used to count the support
+ * of the candidates by reading a database. It is used by the algorithms that find the
+ * candidates with an in-memory algorithm of SPMF, and then count them in the whole
+ * database (Partition and Sampling). This class also offers the methods that these
+ * algorithms use to find the in-memory algorithm and to read its output. <br/><br/>
+ *
+ * Each candidate is identified by an index given when it is inserted. The children of a
+ * node are sorted by item, and for each child, the index of the candidate ending with
+ * that child is stored (or -1).
+ *
+ * @see AlgoPartition
+ * @see ca.pfv.spmf.algorithms.frequentpatterns.sampling.AlgoSampling
+ * @author Philippe Fournier-Viger
+ */
+public class CandidatePrefixTree {
+
+	/** the root of the tree */
+	private final Node root = new Node();
+
+	/**
+	 * Default constructor
+	 */
+	public CandidatePrefixTree() {
+
+	}
+
+	/**
+	 * Insert a candidate in the prefix tree
+	 * @param itemset the items of the candidate (sorted)
+	 * @param index the index of the candidate
+	 * @return false if the candidate was already in the prefix tree
+	 */
+	public boolean insert(int[] itemset, int index) {
+		Node node = root;
+		for (int depth = 0; depth < itemset.length; depth++) {
+			int position = node.getPosition(itemset[depth]);
+			if (depth == itemset.length - 1) {
+				if (node.candidates[position] >= 0) {
+					return false;
+				}
+				node.candidates[position] = index;
+			} else {
+				if (node.children[position] == null) {
+					node.children[position] = new Node();
+				}
+				node = node.children[position];
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Increase the support of the candidates that are contained in a transaction.
+	 * @param transaction the items of the transaction (sorted, without duplicates)
+	 * @param length the number of items of the transaction
+	 * @param supports the support of each candidate, by index
+	 */
+	public void count(int[] transaction, int length, int[] supports) {
+		countTransaction(root, transaction, 0, length, supports);
+	}
+
+	/**
+	 * Count the candidates below a node of the prefix tree that are contained in a transaction.
+	 * @param node the node
+	 * @param transaction the items of the transaction (sorted)
+	 * @param start the position of the next item of the transaction to be matched
+	 * @param length the number of items of the transaction
+	 * @param supports the support of each candidate, by index
+	 */
+	private void countTransaction(Node node, int[] transaction, int start, int length, int[] supports) {
+		int[] items = node.items;
+		int j = 0;
+		int p = start;
+		// merge the items of the transaction with the items of the children of the node
+		while (p < length && j < node.size) {
+			if (transaction[p] < items[j]) {
+				p++;
+			} else if (transaction[p] > items[j]) {
+				j++;
+			} else {
+				int candidate = node.candidates[j];
+				if (candidate >= 0) {
+					supports[candidate]++;
+				}
+				if (node.children[j] != null) {
+					countTransaction(node.children[j], transaction, p + 1, length, supports);
+				}
+				p++;
+				j++;
+			}
+		}
+	}
+
+	/**
+	 * Get the description of an in-memory algorithm used to find the candidates, and check that
+	 * it finds all the frequent itemsets for a minimum support given as a percentage.
+	 * @param algorithmName the name of the algorithm (e.g. "FPGrowth_itemsets")
+	 * @return the description
+	 * @throws IOException if the list of algorithms cannot be read
+	 */
+	public static DescriptionOfAlgorithm getLocalAlgorithm(String algorithmName) throws IOException {
+		DescriptionOfAlgorithm description;
+		try {
+			description = AlgorithmManager.getInstance().getDescriptionOfAlgorithm(algorithmName);
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Cannot read the list of algorithms", e);
+		}
+		if (description == null) {
+			throw new IllegalArgumentException("There is no algorithm named " + algorithmName);
+		}
+		// the algorithm must output all frequent itemsets (not only closed or maximal itemsets)
+		boolean outputsAllFrequentItemsets = false;
+		for (String type : description.getOutputFileTypes()) {
+			if (type.equals("Frequent itemsets")) {
+				outputsAllFrequentItemsets = true;
+			}
+			String lowerCaseType = type.toLowerCase();
+			if (lowerCaseType.contains("closed") || lowerCaseType.contains("maximal")) {
+				outputsAllFrequentItemsets = false;
+				break;
+			}
+		}
+		// and its first parameter must be the minimum support as a percentage
+		if (outputsAllFrequentItemsets == false || description.getParametersDescription().length == 0
+				|| description.getParametersDescription()[0].parameterType != Double.class) {
+			throw new IllegalArgumentException("The algorithm " + algorithmName
+					+ " cannot be used to find the candidates, as it does not find all frequent itemsets for a minimum support");
+		}
+		return description;
+	}
+
+	/**
+	 * Parse the items of a line of an output file of an algorithm (e.g. "1 2 3 #SUP: 2")
+	 * @param line the line
+	 * @return the items (sorted) or null if the line is not an itemset
+	 */
+	public static int[] parseItemset(String line) {
+		int[] items = new int[8];
+		int count = 0;
+		int i = 0;
+		while (i < line.length() && line.charAt(i) != '#') {
+			char c = line.charAt(i);
+			if (c >= '0' && c <= '9') {
+				int value = 0;
+				while (i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+					value = value * 10 + (line.charAt(i) - '0');
+					i++;
+				}
+				if (count == items.length) {
+					items = Arrays.copyOf(items, count * 2);
+				}
+				items[count++] = value;
+			} else {
+				i++;
+			}
+		}
+		if (count == 0) {
+			return null;
+		}
+		items = Arrays.copyOf(items, count);
+		Arrays.sort(items);
+		return items;
+	}
+
+	/**
+	 * Sort the items of a transaction and remove duplicate items
+	 * @param transaction the items
+	 * @param length the number of items
+	 * @return the number of items after removing duplicates
+	 */
+	public static int sortItems(int[] transaction, int length) {
+		boolean isSorted = true;
+		for (int i = 1; i < length && isSorted; i++) {
+			isSorted = transaction[i - 1] < transaction[i];
+		}
+		if (isSorted) {
+			return length;
+		}
+		Arrays.sort(transaction, 0, length);
+		int newLength = 0;
+		for (int i = 0; i < length; i++) {
+			if (newLength == 0 || transaction[newLength - 1] != transaction[i]) {
+				transaction[newLength++] = transaction[i];
+			}
+		}
+		return newLength;
+	}
+
+	/**
+	 * A node of the prefix tree of the candidates. The children of a node are sorted by item.
+	 * For each child, the index of the candidate ending with that child is stored (or -1).
+	 */
+	private static class Node {
+		/** the items of the children */
+		int[] items = new int[2];
+		/** the child nodes (null if a child has no child) */
+		Node[] children = new Node[2];
+		/** the index of the candidate ending with each child (or -1) */
+		int[] candidates = new int[2];
+		/** the number of children */
+		int size = 0;
+
+		/**
+		 * Get the position of the child of an item, and create that child if it does not exist
+		 * @param item the item
+		 * @return the position
+		 */
+		int getPosition(int item) {
+			int position = Arrays.binarySearch(items, 0, size, item);
+			if (position >= 0) {
+				return position;
+			}
+			position = -(position + 1);
+			// insert a new child at that position
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+				children = Arrays.copyOf(children, size * 2);
+				candidates = Arrays.copyOf(candidates, size * 2);
+			}
+			System.arraycopy(items, position, items, position + 1, size - position);
+			System.arraycopy(children, position, children, position + 1, size - position);
+			System.arraycopy(candidates, position, candidates, position + 1, size - position);
+			items[position] = item;
+			children[position] = null;
+			candidates[position] = -1;
+			size++;
+			return position;
+		}
+	}
+}
@@ -0,0 +1,554 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.sampling;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.algorithms.frequentpatterns.partition.CandidatePrefixTree;
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
+import ca.pfv.spmf.patterns.sink.ItemNames;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * This is an implementation of a sampling-based algorithm for quickly finding an
+ * approximation of the frequent itemsets of a large transaction database, in the spirit of
+ * the sampling algorithm of Toivonen: <br/><br/>
+ *
+ * Toivonen, H. (1996). Sampling Large Databases for Association Rules.
+ * Proc. of VLDB 1996. pp. 134-145.<br/><br/>
+ *
+ * The database is read once, and a random sample of its transactions is kept by
+ * reservoir sampling. The frequent itemsets of the sample are then found by an in-memory
+ * algorithm of SPMF (by default FPGrowth, but also for example LCMFreq or Eclat) using a
+ * minimum support that is lowered by epsilon. Epsilon must thus be less than the minimum
+ * support (and should be much smaller). The lowered minimum support is never less than
+ * half of the minimum support, which only happens if the sample size is set and is
+ * too small for the requested minimum support. <br/><br/>
+ *
+ * By the Hoeffding bound, if the sample contains n >= ln(2/delta) / (2 epsilon^2) transactions,
+ * the relative support of an itemset in the sample differs from its relative support in the database
+ * by more than epsilon with a probability less than delta. Thus, each frequent itemset of the
+ * database is found with a probability of at least 1 - delta, and its support is estimated
+ * with an error of at most epsilon (with the same probability). <br/><br/>
+ *
+ * If the verification is activated, the database is read a second time to calculate
+ * the exact support of the itemsets found in the sample. Then, only the itemsets that are
+ * frequent in the database are output, with their exact support. Otherwise, the itemsets found
+ * in the sample are output with their estimated support (as a number of transactions of the database),
+ * if this estimated support is at least the minimum support (or optionally, the minimum support lowered
+ * by epsilon, to also output the itemsets that may be frequent). The first line of such an output file
+ * is a metadata line starting with "@ESTIMATED_SUPPORTS=", which indicates the sample size, epsilon,
+ * delta and the minimum support used to select the itemsets. The itemsets are found and counted
+ * using the same {@link CandidatePrefixTree} as the Partition algorithm.
+ *
+ * @see AlgorithmManager
+ * @author Philippe Fournier-Viger
+ */
+public class AlgoSampling {
+
+	/** the start time and end time of the last execution */
+	long startTimestamp;
+	long endTimestamp;
+
+	/** the number of transactions in the database */
+	private int transactionCount;
+
+	/** the number of itemsets found in the sample */
+	private int candidateCount;
+
+	/** the number of itemsets saved to the output file */
+	private int itemsetCount;
+
+	/** the maximum memory usage */
+	private double maxMemory;
+
+	/** the name of the algorithm used to mine the sample */
+	private String localAlgorithmName = "FPGrowth_itemsets";
+
+	/** the maximum error on the relative support of an itemset */
+	private double epsilon = 0.01;
+
+	/** the probability that the error on the relative support of an itemset exceeds epsilon */
+	private double delta = 0.05;
+
+	/** the number of transactions in the sample (0 to calculate it using epsilon and delta) */
+	private int sampleSize = 0;
+
+	/** if true, the support of the itemsets is calculated in the database with a second pass */
+	private boolean verify = true;
+
+	/** if true and the supports are not verified, the itemsets having an estimated support of at
+	 * least minsup - epsilon are output (instead of minsup) */
+	private boolean outputPossiblyFrequent = false;
+
+	/** the lowered minimum support used to mine the sample is at least this ratio of the minimum support */
+	private static final double MIN_LOWERED_MINSUP_RATIO = 0.5;
+
+	/** the seed of the random number generator */
+	private long seed = System.currentTimeMillis();
+
+	/** the folder for the temporary files (null for the default temporary folder) */
+	private File temporaryDirectory = null;
+
+	/** the transactions of the sample */
+	private int[][] sample;
+
+	/** the number of transactions of the sample (after reading the database) */
+	private int sampleCount;
+
+	/** the epsilon value of the last execution (according to the sample size) */
+	private double actualEpsilon;
+
+	/** the minimum support used to mine the sample, as a percentage */
+	private double loweredMinsup;
+
+	/** the itemsets found in the sample */
+	private List<int[]> candidates;
+
+	/** the support of each itemset found in the sample (in the sample, and then in the database) */
+	private int[] supports;
+
+	/** the prefix tree of the itemsets found in the sample */
+	private CandidatePrefixTree tree;
+
+	/**
+	 * Default constructor
+	 */
+	public AlgoSampling() {
+
+	}
+
+	/**
+	 * Run the algorithm
+	 * @param input the path to an input file containing a transaction database
+	 * @param output the output file path for saving the frequent itemsets
+	 * @param minsup the minimum support threshold, as a percentage of the transactions (e.g. 0.4)
+	 * @throws IOException exception if error reading or writing files
+	 */
+	public void runAlgorithm(String input, String output, double minsup) throws IOException {
+		// record the start time
+		startTimestamp = System.currentTimeMillis();
+		MemoryLogger.getInstance().reset();
+
+		transactionCount = 0;
+		candidateCount = 0;
+		itemsetCount = 0;
+		maxMemory = 0;
+
+		// epsilon is subtracted from the minimum support to mine the sample
+		if (sampleSize == 0 && epsilon >= minsup) {
+			throw new IllegalArgumentException("Epsilon (" + epsilon
+					+ ") must be less than the minimum support (" + minsup + ")");
+		}
+
+		// get the algorithm used to mine the sample
+		DescriptionOfAlgorithm localAlgorithm = CandidatePrefixTree.getLocalAlgorithm(localAlgorithmName);
+
+		// calculate the number of transactions of the sample
+		int maxSampleSize = sampleSize;
+		if (maxSampleSize == 0) {
+			maxSampleSize = (int) Math.min(Integer.MAX_VALUE - 8,
+					Math.ceil(Math.log(2 / delta) / (2 * epsilon * epsilon)));
+		}
+
+		File sampleFile = null;
+		File candidateFile = null;
+		try {
+			// (1) FIRST PASS: read a random sample of the database
+			readSample(input, maxSampleSize);
+
+			// If the sample contains all the transactions, the result is exact.
+			// Otherwise, the error depends on the number of sampled transactions.
+			boolean isExact = sampleCount == transactionCount;
+			actualEpsilon = isExact ? 0 : Math.sqrt(Math.log(2 / delta) / (2 * sampleCount));
+			// if the sample is too small, epsilon may be close to (or more than) minsup,
+			// and the sample would be mined with a minimum support close to 0
+			loweredMinsup = Math.max(minsup - actualEpsilon, minsup * MIN_LOWERED_MINSUP_RATIO);
+			// the in-memory algorithms need at least one transaction as minimum support
+			if (Math.ceil(loweredMinsup * sampleCount) < 1) {
+				loweredMinsup = sampleCount == 0 ? minsup : 0.5d / sampleCount;
+			}
+
+			// (2) mine the sample with the lowered minimum support
+			sampleFile = File.createTempFile("sample", ".txt", temporaryDirectory);
+			writeSample(sampleFile);
+			sample = null;
+			candidateFile = File.createTempFile("candidates", ".txt", temporaryDirectory);
+			mineSample(sampleFile, candidateFile, localAlgorithm);
+			readCandidates(candidateFile);
+
+			// convert the minimum support as percentage to a
+			// relative minimum support
+			int minsupRelative = (int) Math.ceil(minsup * transactionCount);
+
+			try (BufferedWriter writer = new BufferedWriter(new FileWriter(output))) {
+				if (verify && isExact == false) {
+					// (3) SECOND PASS: calculate the support of the itemsets in the database
+					countCandidates(input);
+					saveItemsets(writer, minsupRelative);
+				} else {
+					// estimate the support of each itemset in the database
+					double ratio = sampleCount == 0 ? 0 : (double) transactionCount / sampleCount;
+					for (int i = 0; i < supports.length; i++) {
+						supports[i] = (int) Math.round(supports[i] * ratio);
+					}
+					if (isExact) {
+						saveItemsets(writer, minsupRelative);
+					} else {
+						// indicate that the supports are estimated, and which itemsets are output
+						int outputMinsup = minsupRelative;
+						String threshold = "minsup";
+						if (outputPossiblyFrequent) {
+							outputMinsup = (int) Math.ceil(loweredMinsup * transactionCount);
+							threshold = "minsup - epsilon";
+						}
+						writer.write("@ESTIMATED_SUPPORTS=sample of " + sampleCount + " of " + transactionCount
+								+ " transactions, epsilon " + actualEpsilon + ", delta " + delta
+								+ ", itemsets with an estimated support of at least " + outputMinsup + " ("
+								+ threshold + ")");
+						writer.newLine();
+						saveItemsets(writer, outputMinsup);
+					}
+				}
+			}
+		} finally {
+			// delete the temporary files
+			if (sampleFile != null) {
+				sampleFile.delete();
+			}
+			if (candidateFile != null) {
+				candidateFile.delete();
+			}
+			sample = null;
+			candidates = null;
+			supports = null;
+			tree = null;
+		}
+
+		MemoryLogger.getInstance().checkMemory();
+		maxMemory = Math.max(maxMemory, MemoryLogger.getInstance().getMaxMemory());
+		// record the end time
+		endTimestamp = System.currentTimeMillis();
+	}
+
+	/**
+	 * Read the database and keep a random sample of its transactions (reservoir sampling).
+	 * @param input the path of the database
+	 * @param maxSampleSize the maximum number of transactions in the sample
+	 * @throws IOException if error while reading the file
+	 */
+	private void readSample(String input, int maxSampleSize) throws IOException {
+		Random random = new Random(seed);
+		sample = new int[Math.min(maxSampleSize, 1024)][];
+		sampleCount = 0;
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(input)) {
+			while (tokenizer.nextLine()) {
+				// skip the metadata (e.g. the names of items) and empty transactions
+				if (tokenizer.isMetadata() || tokenizer.getSectionLength(0) == 0) {
+					continue;
+				}
+				transactionCount++;
+				// the i-th transaction replaces a transaction of the sample with a probability
+				// of maxSampleSize / i, so that each transaction has the same probability of being kept
+				int position;
+				if (sampleCount < maxSampleSize) {
+					if (sampleCount == sample.length) {
+						sample = Arrays.copyOf(sample, (int) Math.min((long) sampleCount * 2, maxSampleSize));
+					}
+					position = sampleCount++;
+				} else {
+					position = random.nextInt(transactionCount);
+					if (position >= maxSampleSize) {
+						continue;
+					}
+				}
+				int[] transaction = Arrays.copyOf(tokenizer.getValues(), tokenizer.getSectionLength(0));
+				int length = CandidatePrefixTree.sortItems(transaction, transaction.length);
+				sample[position] = length == transaction.length ? transaction : Arrays.copyOf(transaction, length);
+			}
+		}
+		MemoryLogger.getInstance().checkMemory();
+	}
+
+	/**
+	 * Write the transactions of the sample to a file
+	 * @param sampleFile the file
+	 * @throws IOException if error while writing the file
+	 */
+	private void writeSample(File sampleFile) throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(sampleFile))) {
+			StringBuilder buffer = new StringBuilder();
+			for (int i = 0; i < sampleCount; i++) {
+				buffer.setLength(0);
+				for (int item : sample[i]) {
+					if (buffer.length() > 0) {
+						buffer.append(' ');
+					}
+					buffer.append(item);
+				}
+				writer.write(buffer.toString());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Find the frequent itemsets of the sample with the lowered minimum support.
+	 * @param sampleFile the file containing the transactions of the sample
+	 * @param candidateFile the file for saving the itemsets found
+	 * @param localAlgorithm the algorithm used to mine the sample
+	 * @throws IOException if error while reading or writing files
+	 */
+	private void mineSample(File sampleFile, File candidateFile, DescriptionOfAlgorithm localAlgorithm)
+			throws IOException {
+		if (sampleCount == 0) {
+			return;
+		}
+		// the names of items (e.g. for an ARFF file) are not written to the file of the candidates,
+		// since the candidates are read as item IDs
+		ItemNames itemNames = ItemNames.suspendForCurrentThread();
+		try {
+			localAlgorithm.runAlgorithm(new String[] { Double.toString(loweredMinsup) }, sampleFile.getPath(),
+					candidateFile.getPath());
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Error while running " + localAlgorithmName + " on the sample", e);
+		} finally {
+			ItemNames.restoreForCurrentThread(itemNames);
+		}
+		// the algorithm resets the memory logger, so its maximum memory usage is kept
+		MemoryLogger.getInstance().checkMemory();
+		maxMemory = Math.max(maxMemory, MemoryLogger.getInstance().getMaxMemory());
+	}
+
+	/**
+	 * Read the itemsets found in the sample and their support, and create their prefix tree.
+	 * @param candidateFile the file containing the itemsets
+	 * @throws IOException if error while reading the file
+	 */
+	private void readCandidates(File candidateFile) throws IOException {
+		candidates = new ArrayList<int[]>();
+		List<Integer> sampleSupports = new ArrayList<Integer>();
+		tree = new CandidatePrefixTree();
+		try (BufferedReader reader = new BufferedReader(new FileReader(candidateFile))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int separator = line.indexOf("#SUP:");
+				int[] itemset = CandidatePrefixTree.parseItemset(line);
+				if (itemset == null || tree.insert(itemset, candidates.size()) == false) {
+					continue;
+				}
+				candidates.add(itemset);
+				int support = 0;
+				if (separator >= 0) {
+					String value = line.substring(separator + 5).trim();
+					int end = 0;
+					while (end < value.length() && Character.isDigit(value.charAt(end))) {
+						end++;
+					}
+					support = end == 0 ? 0 : Integer.parseInt(value.substring(0, end));
+				}
+				sampleSupports.add(support);
+			}
+		}
+		candidateCount = candidates.size();
+		supports = new int[candidateCount];
+		for (int i = 0; i < candidateCount; i++) {
+			supports[i] = sampleSupports.get(i);
+		}
+		MemoryLogger.getInstance().checkMemory();
+	}
+
+	/**
+	 * Read the database to calculate the support of the itemsets found in the sample.
+	 * @param input the path of the database
+	 * @throws IOException if error while reading the file
+	 */
+	private void countCandidates(String input) throws IOException {
+		Arrays.fill(supports, 0);
+		int[] transaction = new int[16];
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(input)) {
+			while (tokenizer.nextLine()) {
+				if (tokenizer.isMetadata() || tokenizer.getSectionLength(0) == 0) {
+					continue;
+				}
+				// copy the items (sorted, without duplicates)
+				int length = tokenizer.getSectionLength(0);
+				if (transaction.length < length) {
+					transaction = new int[length];
+				}
+				System.arraycopy(tokenizer.getValues(), 0, transaction, 0, length);
+				length = CandidatePrefixTree.sortItems(transaction, length);
+				tree.count(transaction, length, supports);
+			}
+		}
+	}
+
+	/**
+	 * Save the itemsets having at least a given support.
+	 * @param writer the writer for the output file
+	 * @param minsupRelative the minimum support as a number of transactions
+	 * @throws IOException if error while writing the file
+	 */
+	private void saveItemsets(BufferedWriter writer, int minsupRelative) throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < candidates.size(); i++) {
+			if (supports[i] >= minsupRelative) {
+				int[] itemset = candidates.get(i);
+				buffer.setLength(0);
+				for (int k = 0; k < itemset.length; k++) {
+					buffer.append(itemset[k]);
+					buffer.append(' ');
+				}
+				buffer.append("#SUP: ");
+				buffer.append(supports[i]);
+				writer.write(buffer.toString());
+				writer.newLine();
+				itemsetCount++;
+			}
+		}
+	}
+
+	/**
+	 * Set the name of the algorithm used to mine the sample (by default, "FPGrowth_itemsets").
+	 * It can be any algorithm of SPMF that finds all frequent itemsets and takes the minimum
+	 * support as a percentage for its first parameter, such as "LCMFreq" or "Eclat".
+	 * @param localAlgorithmName the name of the algorithm
+	 */
+	public void setLocalAlgorithm(String localAlgorithmName) {
+		this.localAlgorithmName = localAlgorithmName;
+	}
+
+	/**
+	 * Set the maximum error on the relative support of an itemset (by default, 0.01).
+	 * It is used to calculate the sample size and to lower the minimum support used to mine
+	 * the sample. It must be less than the minimum support given to runAlgorithm() (otherwise,
+	 * runAlgorithm() throws an IllegalArgumentException), and should be at most half of it,
+	 * since the lowered minimum support is never less than half of the minimum support.
+	 * @param epsilon the error (e.g. 0.01 for 1 % of the transactions)
+	 */
+	public void setEpsilon(double epsilon) {
+		if (epsilon <= 0 || epsilon >= 1) {
+			throw new IllegalArgumentException("Epsilon must be greater than 0 and less than 1");
+		}
+		this.epsilon = epsilon;
+	}
+
+	/**
+	 * Set the probability that the error on the relative support of an itemset exceeds epsilon
+	 * (by default, 0.05).
+	 * @param delta the probability
+	 */
+	public void setDelta(double delta) {
+		if (delta <= 0 || delta >= 1) {
+			throw new IllegalArgumentException("Delta must be greater than 0 and less than 1");
+		}
+		this.delta = delta;
+	}
+
+	/**
+	 * Set the number of transactions of the sample. By default (0), it is calculated using
+	 * epsilon and delta. Otherwise, epsilon is calculated using the sample size and delta.
+	 * @param sampleSize the number of transactions
+	 */
+	public void setSampleSize(int sampleSize) {
+		if (sampleSize < 0) {
+			throw new IllegalArgumentException("The number of transactions cannot be negative");
+		}
+		this.sampleSize = sampleSize;
+	}
+
+	/**
+	 * Set whether the support of the itemsets found in the sample is calculated in the database
+	 * by reading it a second time (by default, true). In that case, only the frequent itemsets are
+	 * output, with their exact support.
+	 * @param verify true to read the database a second time
+	 */
+	public void setVerification(boolean verify) {
+		this.verify = verify;
+	}
+
+	/**
+	 * Set which itemsets are output when the supports are not verified (by default, false).
+	 * If false, only the itemsets having an estimated support of at least the minimum support are
+	 * output. If true, the itemsets having an estimated support of at least the minimum support
+	 * lowered by epsilon are output, which also includes the itemsets that may be frequent.
+	 * @param outputPossiblyFrequent true to output the itemsets above the lowered minimum support
+	 */
+	public void setOutputPossiblyFrequent(boolean outputPossiblyFrequent) {
+		this.outputPossiblyFrequent = outputPossiblyFrequent;
+	}
+
+	/**
+	 * Set the seed of the random number generator used to select the sample
+	 * (to obtain the same sample for several executions).
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Set the folder where the temporary files are written (by default, the temporary folder of the system).
+	 * @param temporaryDirectory the folder
+	 */
+	public void setTemporaryDirectory(String temporaryDirectory) {
+		this.temporaryDirectory = temporaryDirectory == null ? null : new File(temporaryDirectory);
+	}
+
+	/**
+	 * Get the maximum error on the relative support of an itemset for the last execution
+	 * (0 if the sample contained all the transactions).
+	 * @return the error
+	 */
+	public double getEpsilon() {
+		return actualEpsilon;
+	}
+
+	/**
+	 * Print statistics about the latest execution of the algorithm.
+	 */
+	public void printStats() {
+		System.out.println("=============  SAMPLING - STATS =============");
+		System.out.println(" Transactions count from database : " + transactionCount);
+		System.out.println(" Sample size : " + sampleCount + " (mined by " + localAlgorithmName
+				+ " with minsup " + loweredMinsup + ")");
+		System.out.println(" Epsilon : " + actualEpsilon + "  Delta : " + delta);
+		System.out.println(" Itemsets found in the sample : " + candidateCount);
+		if (verify) {
+			System.out.println(" Frequent itemsets count : " + itemsetCount + " (exact supports)");
+		} else {
+			System.out.println(" Frequent itemsets count : " + itemsetCount + " (estimated supports)");
+		}
+		System.out.println(" Maximum memory usage : " + maxMemory + " mb");
+		System.out.println(" Total time ~ " + (endTimestamp - startTimestamp) + " ms");
+		System.out.println("===================================================");
+	}
+}
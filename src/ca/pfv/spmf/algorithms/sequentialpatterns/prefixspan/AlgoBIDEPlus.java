@@ -3,13 +3,18 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -30,6 +35,13 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * NOTE: This implementation saves the pattern  to a file as soon 
  * as they are found or can keep the pattern into memory, depending
  * on what the user choose.
+ * 
+ * The projected databases can be explored by several threads (see setThreadCount()).
+ * Then, the extensions of a pattern having a large projected database are explored by
+ * separate tasks, which are executed by a work-stealing thread pool. The sequence database
+ * is only read during the search (including the backscan pruning and backward extension checks),
+ * so it is shared by the threads, while each task uses its own buffer for the current pattern, and
+ * each thread uses its own maps and sets for these checks.
  *
  * Copyright (c) 2016 Philippe Fournier-Viger
  * 
@@ -88,6 +100,19 @@ public class AlgoBIDEPlus{
 	/** boolean indicating whether this database contains itemsets with multiple items or not */
 	boolean containsItemsetsWithMultipleItems = false;
 	
+	/** the largest item in the database */
+	int maxItem = 0;
+	
+	/** the arrays storing the projected databases of each depth of the search, which are reused */
+	private ProjectedDatabaseArena arena = new ProjectedDatabaseArena();
+	
+	/** the table for counting the support of items in a projected database 
+	 *  (for the items that are not in a postfix itemset) */
+	private ItemSupportTable itemSupportTable = null;
+	
+	/** the table for counting the support of items in a postfix itemset of a projected database */
+	private ItemSupportTable postfixItemSupportTable = null;
+	
 	/**
 	 * A set that is used to remember which items we have already seen in a sequence. It is
 	 * a variable reused by various methods, to save memory 
@@ -120,12 +145,54 @@ public class AlgoBIDEPlus{
 	 */
 	Map<Integer,Integer> mapsItemSupportSuffix = new HashMap<Integer,Integer>();
 	
+	/** the number of threads used to explore the projected databases */
+	private int threadCount = 1;
+	
+	/** the minimum number of sequences in a projected database for exploring 
+	 * the extensions of its prefix with separate tasks (in parallel mode) */
+	private static final int MIN_SEQUENCES_PER_TASK = 100;
+	
+	/** the maximum number of tasks waiting in the queue of a thread for creating new tasks */
+	private static final int MAX_QUEUED_TASKS = 4;
+	
+	/** the number of patterns that a task keeps before saving them (if the output is not deterministic) */
+	private static final int TASK_OUTPUT_BUFFER_SIZE = 1 << 16;
+	
+	/** if true, the patterns are saved in the same order as with a single thread (parallel mode) */
+	private boolean deterministicOutput = false;
+	
+	/** the copy of this object used by each thread (only in parallel mode) */
+	private ThreadLocal<AlgoBIDEPlus> threadWorker = null;
+	
+	/** the object that created this copy (only for a copy used by a thread, otherwise null) */
+	private AlgoBIDEPlus parent = null;
+	
+	/** the patterns found by the task executed by this copy that have not been saved yet */
+	private List<TaskPattern> taskOutput = null;
+	
 	/**
 	 * Default constructor
 	 */
 	public AlgoBIDEPlus(){
 	}
 	
+	/**
+	 * Constructor of a copy of the algorithm used by a thread in parallel mode.
+	 * The copy has its own buffers, maps and sets, and gives its patterns to the current task.
+	 * @param parent the object running the algorithm
+	 */
+	private AlgoBIDEPlus(AlgoBIDEPlus parent){
+		this.parent = parent;
+		this.minsuppAbsolute = parent.minsuppAbsolute;
+		this.maximumPatternLength = parent.maximumPatternLength;
+		this.showSequenceIdentifiers = parent.showSequenceIdentifiers;
+		this.sequenceDatabase = parent.sequenceDatabase;
+		this.containsItemsetsWithMultipleItems = parent.containsItemsetsWithMultipleItems;
+		this.maxItem = parent.maxItem;
+		this.writer = parent.writer;
+		createItemSupportTables();
+	}
+	
 	/**
 	 * Run the algorithm
 	 * @param inputFile : a sequence database
@@ -238,13 +305,104 @@ public class AlgoBIDEPlus{
 		//====== Remove infrequent items from the database, and then explore each projected database ================
 		// This step is performed differently depending on whether the database contains multiple items
 		// per itemset, or not. This allows to do additional optimizations.
-		// CASE 1: the database has multiple items per itemset
-		if(containsItemsetsWithMultipleItems){
+		if(threadCount > 1){
+			// The same steps are performed with several threads
+			bideParallel(mapSequenceID);
+		}else if(containsItemsetsWithMultipleItems){
+			// CASE 1: the database has multiple items per itemset
+			createItemSupportTables();
 			bideWithMultipleItems(mapSequenceID);	
 		}else{
 			// CASE 2: the database does not have multiple items per itemset.
+			createItemSupportTables();
 			bideWithSingleItems(mapSequenceID);	
 		}
+		
+		// release the memory used for the projected databases
+		arena = new ProjectedDatabaseArena();
+		itemSupportTable = null;
+		postfixItemSupportTable = null;
+	}
+	
+	/**
+	 * Create the tables for counting the support of items in projected databases
+	 * (the largest item must be known).
+	 */
+	private void createItemSupportTables() {
+		itemSupportTable = new ItemSupportTable(maxItem);
+		if(containsItemsetsWithMultipleItems){
+			postfixItemSupportTable = new ItemSupportTable(maxItem);
+		}
+	}
+	
+	/**
+	 * Remove infrequent items from the sequence database, and explore each projected database
+	 * with several threads. The projected database of each frequent item is explored by a separate task.
+	 * @param mapSequenceID the set of items with the corresponding IDs of sequence where they appears
+	 * @throws IOException if error writing to file
+	 */
+	private void bideParallel(final Map<Integer, List<Integer>> mapSequenceID) throws IOException {
+		// each thread uses its own copy of this object
+		threadWorker = ThreadLocal.withInitial(() -> new AlgoBIDEPlus(this));
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					try {
+						if(containsItemsetsWithMultipleItems){
+							bideWithMultipleItems(mapSequenceID);	
+						}else{
+							bideWithSingleItems(mapSequenceID);	
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			threadWorker = null;
+		}
+	}
+	
+	/**
+	 * Check if the extensions of the current prefix should be explored by separate tasks, that is
+	 * in parallel mode, if its projected database is large and this thread does not have enough tasks waiting.
+	 * @param projectedDatabaseSize the number of sequences in the projected database of the prefix
+	 * @return true if separate tasks should be created
+	 */
+	private boolean shouldCreateTasks(int projectedDatabaseSize) {
+		return parent != null && projectedDatabaseSize >= MIN_SEQUENCES_PER_TASK
+				&& ForkJoinTask.getQueuedTaskCount() < MAX_QUEUED_TASKS;
+	}
+	
+	/**
+	 * Execute some tasks and wait for them (in parallel mode).
+	 * @param tasks the tasks
+	 * @param output the patterns found by the current task (null if there is no current task)
+	 */
+	private void invokeTasks(List<ProjectionTask> tasks, List<TaskPattern> output) {
+		// The tasks are added in reverse order, so that this thread executes the first
+		// tasks first, while the other threads take the last tasks
+		for (int i = tasks.size() - 1; i >= 0; i--) {
+			tasks.get(i).fork();
+		}
+		// wait for the tasks (and keep their patterns in order if the output is deterministic)
+		for (ProjectionTask task : tasks) {
+			task.join();
+			if(deterministicOutput) {
+				if(output == null) {
+					writeTaskOutput(task.output);
+				}else {
+					output.addAll(task.output);
+				}
+			}
+		}
 	}
 	
 	/**
@@ -304,6 +462,9 @@ public class AlgoBIDEPlus{
 		}
 		
 		//============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+		// in parallel mode, the projected database of each item is explored by a separate task
+		List<ProjectionTask> tasks = (threadWorker != null) ? new ArrayList<ProjectionTask>() : null;
+		
 		// For each  item
 		for(Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()){
 			// Get its support
@@ -311,41 +472,63 @@ public class AlgoBIDEPlus{
 			// if the item is frequent  (has a support >= minsup)
 			if(support >= minsuppAbsolute){ 
 				int item = entry.getKey();
-
-				// check if the current item pass the backscan pruning method of the BIDE+ algorithm
-				boolean passBackscanPruning = checkBackscanPruningSingleItemsFirstTime(item, entry.getValue());
 				
-				// if it passes the backscan pruning condition
-				if(passBackscanPruning){
-					
-					// Create the sequential pattern with this item by copying the item in the buffer for the current patern
-					patternBuffer[0] = item;
+				if(tasks != null){
+					tasks.add(new ProjectionTask(item, entry.getValue()));
+				}else{
+					exploreItemSingleItems(item, entry.getValue());
+				}
+			}
+		}
+		
+		if(tasks != null){
+			invokeTasks(tasks, null);
+		}
+	}
+	
+	/**
+	 * Explore the patterns starting with a frequent item, and save that item if it is a closed pattern.
+	 *  Important: this method is optimized for the case where all sequences in the database contains a single item per itemset.
+	 * @param item the item
+	 * @param sequenceIDs the list of sequences containing this item
+	 * @throws IOException if error writing to file
+	 */
+	private void exploreItemSingleItems(int item, List<Integer> sequenceIDs) throws IOException {
+		// Get its support
+		int support = sequenceIDs.size();
 
-					// build the projected database for that item
-					List<PseudoSequence> projectedDatabase  = buildProjectedDatabaseSingleItems(item, entry.getValue());
-					
-					// Make a recursive exploration of patterns by trying to extend the current pattern
-					// This method returns the highest support of extensions found by this depth-first search
-					int maxSupportExtensions = 0;
-					 
-					// If the maximum pattern length set by the user (optional) is greater than 1
-					if(maximumPatternLength >1){
-						maxSupportExtensions = recursionSingleItems(projectedDatabase, 2, 0); 
-					}
-					
-					// If the current pattern passes the forward extension pruning condition of the BIDE+ algorithm
-					// (that no extension of the current pattern has the same support)
-					if(support != maxSupportExtensions){
-					
-						// Check if the pattern has a backward extension.
-						boolean passBackwardExtensionChecking = checkBackwardExtensionSingleItemsFirstTime(item, entry.getValue());
+		// check if the current item pass the backscan pruning method of the BIDE+ algorithm
+		boolean passBackscanPruning = checkBackscanPruningSingleItemsFirstTime(item, sequenceIDs);
+		
+		// if it passes the backscan pruning condition
+		if(passBackscanPruning){
 			
-						// If the pattern has no backward extension, then it is closed and it can be saved.
-						if(passBackwardExtensionChecking){
-							// save the pattern to the output file.
-							savePattern(item, support, entry.getValue()); 
-						}
-					}
+			// Create the sequential pattern with this item by copying the item in the buffer for the current patern
+			patternBuffer[0] = item;
+
+			// build the projected database for that item
+			ProjectedDatabase projectedDatabase  = buildProjectedDatabaseSingleItems(item, sequenceIDs);
+			
+			// Make a recursive exploration of patterns by trying to extend the current pattern
+			// This method returns the highest support of extensions found by this depth-first search
+			int maxSupportExtensions = 0;
+			 
+			// If the maximum pattern length set by the user (optional) is greater than 1
+			if(maximumPatternLength >1){
+				maxSupportExtensions = recursionSingleItems(projectedDatabase, 2, 0); 
+			}
+			
+			// If the current pattern passes the forward extension pruning condition of the BIDE+ algorithm
+			// (that no extension of the current pattern has the same support)
+			if(support != maxSupportExtensions){
+			
+				// Check if the pattern has a backward extension.
+				boolean passBackwardExtensionChecking = checkBackwardExtensionSingleItemsFirstTime(item, sequenceIDs);
+	
+				// If the pattern has no backward extension, then it is closed and it can be saved.
+				if(passBackwardExtensionChecking){
+					// save the pattern to the output file.
+					savePattern(item, support, sequenceIDs); 
 				}
 			}
 		}
@@ -591,6 +774,9 @@ public class AlgoBIDEPlus{
 		}
 		
 		//============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+		// in parallel mode, the projected database of each item is explored by a separate task
+		List<ProjectionTask> tasks = (threadWorker != null) ? new ArrayList<ProjectionTask>() : null;
+		
 		// For each  item
 		for(Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()){
 			// Get its support
@@ -599,41 +785,63 @@ public class AlgoBIDEPlus{
 			if(support >= minsuppAbsolute){ 
 				int item = entry.getKey();
 				
-				// Check the backscan pruning condition for this item to determine if we should try to explore
-				// larger pattern by extending this item
-				boolean passBackscanPruning = checkBackscanPruningMultipleItemsFirstTime(item, entry.getValue());
-				
-				// If the item has passed the pruning condition (we should explore its supersets
-				if(passBackscanPruning){
+				if(tasks != null){
+					tasks.add(new ProjectionTask(item, entry.getValue()));
+				}else{
+					exploreItemMultipleItems(item, entry.getValue());
+				}
+			}
+		}
+		
+		if(tasks != null){
+			invokeTasks(tasks, null);
+		}
+	} 
+	
+	/**
+	 * Explore the patterns starting with a frequent item, and save that item if it is a closed pattern.
+	 * This method is designed for the case where the sequence database contains sequences having multiple items per itemsets.
+	 * @param item the item
+	 * @param sequenceIDs the list of sequences containing this item
+	 * @throws IOException if error writing to file
+	 */
+	private void exploreItemMultipleItems(int item, List<Integer> sequenceIDs) throws IOException {
+		// Get its support
+		int support = sequenceIDs.size();
+		
+		// Check the backscan pruning condition for this item to determine if we should try to explore
+		// larger pattern by extending this item
+		boolean passBackscanPruning = checkBackscanPruningMultipleItemsFirstTime(item, sequenceIDs);
+		
+		// If the item has passed the pruning condition (we should explore its supersets
+		if(passBackscanPruning){
 
-					// Create the current pattern by copying the item in the buffer
-					patternBuffer[0] = item;
+			// Create the current pattern by copying the item in the buffer
+			patternBuffer[0] = item;
 
-					// build the projected database for that item
-					List<PseudoSequence> projectedDatabase  = buildProjectedDatabaseFirstTimeMultipleItems(item, entry.getValue());
-					
-					// Recursively try to extend this pattern to find larger patterns if the 
-					// maximum pattern length set by the user is greater than 1 (an optional parameter).
-					int maxSupportExtensions =0;
-					if(maximumPatternLength >1){
-						// Recursive call
-						maxSupportExtensions = recursionMultipleItems(projectedDatabase, 2, 0); 
-					}
-					// If the current pattern has no forward extensions (no extension having the same support)
-					// that means that it might be a closed pattern.
-					if(support != maxSupportExtensions){
-						// We check if the pattern passes the backward extension checking of the BIDE algorithm
-						boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItemsFirstTime(item, entry.getValue());
-						
-						// If yes, the pattern is closed, and we save it to file or memory.
-						if(passBackwardExtensionChecking){
-							savePattern(item, support, entry.getValue()); 
-						}
-					}
+			// build the projected database for that item
+			ProjectedDatabase projectedDatabase  = buildProjectedDatabaseFirstTimeMultipleItems(item, sequenceIDs);
+			
+			// Recursively try to extend this pattern to find larger patterns if the 
+			// maximum pattern length set by the user is greater than 1 (an optional parameter).
+			int maxSupportExtensions =0;
+			if(maximumPatternLength >1){
+				// Recursive call
+				maxSupportExtensions = recursionMultipleItems(projectedDatabase, 2, 0); 
+			}
+			// If the current pattern has no forward extensions (no extension having the same support)
+			// that means that it might be a closed pattern.
+			if(support != maxSupportExtensions){
+				// We check if the pattern passes the backward extension checking of the BIDE algorithm
+				boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItemsFirstTime(item, sequenceIDs);
+				
+				// If yes, the pattern is closed, and we save it to file or memory.
+				if(passBackwardExtensionChecking){
+					savePattern(item, support, sequenceIDs); 
 				}
 			}
 		}
-	} 
+	}
 	
 	/**
 	 * Check if a sequential pattern has has a backward extension. 
@@ -925,9 +1133,7 @@ public class AlgoBIDEPlus{
 	        	}
 			}
 			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
+			writeLine(r.toString());
 		}
 		// otherwise the result is kept into memory
 		else{
@@ -937,7 +1143,7 @@ public class AlgoBIDEPlus{
 			pattern.setSequenceIDs(sequenceIDs);
 			
 			// Store in a structure to store patterns
-			patterns.addSequence(pattern, 1);
+			addPattern(pattern, 1);
 		}
 	}
 	
@@ -948,7 +1154,7 @@ public class AlgoBIDEPlus{
 	 * @param length the pattern length in terms of number of items.
 	 * @throws IOException if error when writing to file
 	 */
-	private void savePattern(int lastBufferPosition, List<PseudoSequence> pseudoSequences) throws IOException {
+	private void savePattern(int lastBufferPosition, ProjectedDatabase pseudoSequences) throws IOException {
 		// increase the number of pattern found for statistics purposes
 		patternCount++;  
 	
@@ -983,15 +1189,13 @@ public class AlgoBIDEPlus{
 			// if the user wants to see the sequence identifiers
 			if(showSequenceIdentifiers) {
 	        	r.append(" #SID: ");
-	        	for (PseudoSequence sequence: pseudoSequences) {
-	        		r.append(sequence.sequenceID);
+	        	for (int i = 0; i < pseudoSequences.size(); i++) {
+	        		r.append(pseudoSequences.getSequenceID(i));
 	        		r.append(" ");
 	        	}
 			}
 			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
+			writeLine(r.toString());
 		}
 		// otherwise the result is kept into memory
 		else{
@@ -1020,12 +1224,12 @@ public class AlgoBIDEPlus{
 			// create a list to store the identifiers of sequences containing that pattern
 			List<Integer> sequencesIDs = new ArrayList<Integer>(pseudoSequences.size());
 			for (int i = 0; i< pseudoSequences.size(); i++) {
-				sequencesIDs.add(pseudoSequences.get(i).sequenceID);
+				sequencesIDs.add(pseudoSequences.getSequenceID(i));
         	}
 			pattern.setSequenceIDs(sequencesIDs);
 			
 			// add the pattern to the set of patterns found until now, stored in memory
-			patterns.addSequence(pattern, itemsetCount);
+			addPattern(pattern, itemsetCount);
 		}
 	}
 	
@@ -1038,6 +1242,7 @@ public class AlgoBIDEPlus{
 	private Map<Integer, List<Integer>> findSequencesContainingItems() {
 		// number of items in the current itemset 
 		int itemCountInCurrentItemset;
+		maxItem = 0;
 		
 		// We use a map to store the sequence IDs where an item appear
 		// Key : item   Value :  a set of sequence IDs
@@ -1074,6 +1279,10 @@ public class AlgoBIDEPlus{
 					if(itemCountInCurrentItemset > 1){
 						containsItemsetsWithMultipleItems = true;
 					}
+					// remember the largest item
+					if(token > maxItem){
+						maxItem = token;
+					}
 				}else if(token == -1){
 					// if it is the end of an itemset, reste the item count per itemset.
 					itemCountInCurrentItemset = 0;
@@ -1086,14 +1295,16 @@ public class AlgoBIDEPlus{
 	
 	/**
 	 * Create a projected database by pseudo-projection with the initial database and a given item.
+	 * The projected database is stored in the arrays of the first depth of the arena.
 	 * This method is optimized for the case of a database containing a single item per itemset in sequences
 	 * @param item The item to use to make the pseudo-projection
 	 * @param list  The list of sequence ids containing the item
 	 * @return the projected database.
 	 */
-	private List<PseudoSequence> buildProjectedDatabaseSingleItems(int item, List<Integer> sequenceIDs) {
+	private ProjectedDatabase buildProjectedDatabaseSingleItems(int item, List<Integer> sequenceIDs) {
 		// We create a new projected database
-		List<PseudoSequence> projectedDatabase = new ArrayList<PseudoSequence>();
+		arena.ensureCapacity(1, sequenceIDs.size());
+		ProjectedDatabase projectedDatabase = new ProjectedDatabase(arena.getSequenceIDs(1), arena.getIndexesFirstItem(1), 0);
 
 		// for each sequence that contains the current item
 loopSeq:for(int sequenceID : sequenceIDs){ 
@@ -1109,9 +1320,7 @@ loopSeq:for(int sequenceID : sequenceIDs){
 					if(sequence[j+1] != -2){
 						// Create a pseudo-sequence by cutting that sequence at position j, so that items from
 						// position j+1 and after remains in the sequence
-						PseudoSequence pseudoSequence = new PseudoSequence(sequenceID, j+1);
-						// add the sequence to the projected database
-						projectedDatabase.add(pseudoSequence);
+						projectedDatabase.add(sequenceID, j+1);
 					}
 					
 					// we have created the pseudosequence for the current sequence, so we continue to the next sequence
@@ -1124,14 +1333,16 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	
 	/**
 	 * Create a projected database by pseudo-projection with the initial database and a given item.
+	 * The projected database is stored in the arrays of the first depth of the arena.
 	 * This method is optimized for the case of sequences that may contain multiple items per itemset.
 	 * @param item The item to use to make the pseudo-projection
 	 * @param list  The list of sequence ids containing the item
 	 * @return the projected database.
 	 */
-	private List<PseudoSequence> buildProjectedDatabaseFirstTimeMultipleItems(int item, List<Integer> sequenceIDs) {
+	private ProjectedDatabase buildProjectedDatabaseFirstTimeMultipleItems(int item, List<Integer> sequenceIDs) {
 		// We create a new projected database
-		List<PseudoSequence> projectedDatabase = new ArrayList<PseudoSequence>();
+		arena.ensureCapacity(1, sequenceIDs.size());
+		ProjectedDatabase projectedDatabase = new ProjectedDatabase(arena.getSequenceIDs(1), arena.getIndexesFirstItem(1), 0);
 
 		// for each sequence that contains the current item
 loopSeq:for(int sequenceID : sequenceIDs){ 
@@ -1148,9 +1359,7 @@ loopSeq:for(int sequenceID : sequenceIDs){
 					if(isEndOfSequence == false){
 						// Create a pseudo-sequence by cutting that sequence at position j, so that items from
 						// position j+1 and after remains in the sequence
-						PseudoSequence pseudoSequence = new PseudoSequence(sequenceID, j+1);
-						// add the projected sequence to the projected database
-						projectedDatabase.add(pseudoSequence);
+						projectedDatabase.add(sequenceID, j+1);
 					}
 
 					// we have created the pseudosequence for the current sequence, so we continue to the next sequence
@@ -1172,64 +1381,43 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	 * @return the largest support among all extensions explored by this method.
 	 * @throws IOException exception if there is an error writing to the output file
 	 */
-	private int recursionSingleItems(List<PseudoSequence> database, int k, int lastBufferPosition) throws IOException {	
+	private int recursionSingleItems(ProjectedDatabase database, int k, int lastBufferPosition) throws IOException {	
 
 		// variable to store the largest support of extensions of the current pattern
 		int maxSupport = 0;
 		
-		// Scan the projected database to calculate the list of pseudosequences containing each item.
-		// We obtain a map where a key is an item and the value is the corresponding list of pseudosequences
-		Map<Integer,List<PseudoSequence>> itemsPseudoSequences = findAllFrequentPairsSingleItems(database, lastBufferPosition);
+		// Scan the projected database to find the frequent items and create their projected databases.
+		FrequentPairs pairs = findAllFrequentPairsSingleItems(database, k);
+		
+		// in parallel mode, the extensions may be explored by separate tasks
+		List<ProjectionTask> tasks = shouldCreateTasks(database.size()) ? new ArrayList<ProjectionTask>() : null;
 		
 		// release the memory used by the database
 		database = null;
 	
-		// For each pair found (a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
-		for(Entry<Integer, List<PseudoSequence>> entry : itemsPseudoSequences.entrySet()){
+		// For each frequent item (the items are sorted)
+		for(int i = 0; i < pairs.items.length; i++){
 			// get the support of the item
-			int support = entry.getValue().size();
-			//if the item is frequent in the current projected database
-			if(support >= minsuppAbsolute){
-				// remember if it is the highest support found until now
-				if(support > maxSupport){
-					maxSupport = support;
-				}
-				
-				//Create the new pattern by appending the item  to the current pattern that we are extending
-				patternBuffer[lastBufferPosition+1] = entry.getKey();
-
-				// check if the resulting pattern passes the backscan pruning check
-				boolean passBackscanPruning = checkBackscanPruningSingleItems(lastBufferPosition+1, entry.getValue());
-				
-				// if we should not prune the resulting pattern according to the backscan pruning
-				if(passBackscanPruning){
-					// we use this variable to find the largest support of extension of the new  pattern
-					
-					int maxSupportExtensions = 0;
-					// make a recursive call
-					if( k < maximumPatternLength){
-						// make a recursive call to recursively extend the new pattern
-						maxSupportExtensions = recursionSingleItems(entry.getValue(), k+1, lastBufferPosition+1);
-					}
-					
-					// if the new pattern has no forward extension (an extension having the same support)
-					if(support != maxSupportExtensions){
-
-						// we still need to check if this pattern has a backward extension to determine if 
-						// it is closed
-						boolean passBackwardExtensionChecking = checkBackwardExtensionSingleItems(lastBufferPosition+1, entry.getValue());
+			int support = pairs.projectedDatabases[i].size();
+			// remember if it is the highest support found until now
+			if(support > maxSupport){
+				maxSupport = support;
+			}
 			
-						// if it has no backward extension, it is closed
-						if(passBackwardExtensionChecking){		
-							// Thus, we save the pattern
-							savePattern(lastBufferPosition+1, entry.getValue());
-						}
-					}
-				}	
+			//Create the new pattern by appending the item  to the current pattern that we are extending
+			patternBuffer[lastBufferPosition+1] = pairs.items[i];
+			
+			if(tasks != null){
+				tasks.add(new ProjectionTask(patternBuffer, lastBufferPosition+1, pairs.projectedDatabases[i], k));
+			}else{
+				exploreExtensionSingleItems(lastBufferPosition+1, pairs.projectedDatabases[i], k);
 			}
 		}
+		
+		// wait for the tasks, since the patterns of the prefix are saved after those of its extensions
+		if(tasks != null){
+			parent.invokeTasks(tasks, taskOutput);
+		}
 
 		// check the current memory usage
 		MemoryLogger.getInstance().checkMemory();
@@ -1238,6 +1426,49 @@ loopSeq:for(int sequenceID : sequenceIDs){
 		return maxSupport;
 	}
 	
+	/**
+	 * Explore the extensions of a pattern that is an extension of the current prefix, and save that pattern
+	 * if it is closed.
+	 * This method is optimized for sequence databases that may contain only a single item per itemset in sequences
+	 * @param lastBufferPosition the last position of the pattern in the buffer
+	 * @param pseudoSequences the projected database of the pattern
+	 * @param k the prefix length in terms of items (before the extension)
+	 * @throws IOException exception if there is an error writing to the output file
+	 */
+	private void exploreExtensionSingleItems(int lastBufferPosition, ProjectedDatabase pseudoSequences, int k) throws IOException {
+		// get the support of the pattern
+		int support = pseudoSequences.size();
+		
+		// check if the resulting pattern passes the backscan pruning check
+		boolean passBackscanPruning = checkBackscanPruningSingleItems(lastBufferPosition, pseudoSequences);
+		
+		// if we should not prune the resulting pattern according to the backscan pruning
+		if(passBackscanPruning){
+			// we use this variable to find the largest support of extension of the new  pattern
+			
+			int maxSupportExtensions = 0;
+			// make a recursive call
+			if( k < maximumPatternLength){
+				// make a recursive call to recursively extend the new pattern
+				maxSupportExtensions = recursionSingleItems(pseudoSequences, k+1, lastBufferPosition);
+			}
+			
+			// if the new pattern has no forward extension (an extension having the same support)
+			if(support != maxSupportExtensions){
+
+				// we still need to check if this pattern has a backward extension to determine if 
+				// it is closed
+				boolean passBackwardExtensionChecking = checkBackwardExtensionSingleItems(lastBufferPosition, pseudoSequences);
+	
+				// if it has no backward extension, it is closed
+				if(passBackwardExtensionChecking){		
+					// Thus, we save the pattern
+					savePattern(lastBufferPosition, pseudoSequences);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * This method checks if the current pattern respects the backscan pruning condition.
 	 * This method is optimized for sequence databases that may contain only a single item per itemset in sequences
@@ -1245,7 +1476,7 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	 * @param projectedDatabase the projected dtabase
 	 * @return true if there is not backward extension. Otherwise false.
 	 */
-	private boolean checkBackscanPruningSingleItems(int lastBufferPosition, List<PseudoSequence> projectedDatabase) {
+	private boolean checkBackscanPruningSingleItems(int lastBufferPosition, ProjectedDatabase projectedDatabase) {
 
 
 		
@@ -1260,9 +1491,8 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			// for each sequence where the pattern appears
 			// for each sequence where the pattern appears
 loopSeq:	for(int k =0; k < projectedDatabase.size(); k++){
-				PseudoSequence pseudoSequence = projectedDatabase.get(k);
 				// get the original sequence
-				int sid = pseudoSequence.getOriginalSequenceID();
+				int sid = projectedDatabase.getSequenceID(k);
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 				
 				// we will try to match all items before the position of the current item
@@ -1334,7 +1564,7 @@ loopSeq:	for(int k =0; k < projectedDatabase.size(); k++){
 	 * @param sequenceIDs the ids of sequences containing this pattern
 	 * @return true if there is not backward extension. Otherwise false.
 	 */
-	private boolean checkBackwardExtensionSingleItems(int lastBufferPosition, List<PseudoSequence> projectedDatabase) {
+	private boolean checkBackwardExtensionSingleItems(int lastBufferPosition, ProjectedDatabase projectedDatabase) {
 
 		
 		// we will check if there is a backward extension for each item in the current pattern
@@ -1349,9 +1579,8 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			// for each sequence where the pattern appears
 			// for each sequence where the pattern appears
 			for(int k =0; k < projectedDatabase.size(); k++){
-				PseudoSequence pseudoSequence = projectedDatabase.get(k);
 				// get the original sequence
-				int sid = pseudoSequence.getOriginalSequenceID();
+				int sid = projectedDatabase.getSequenceID(k);
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 				
 				// FIRST FIND THE POSITION OF THE FIRST INSTANCE OF e1, e2... ei-1
@@ -1450,7 +1679,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	 * @return the support of the most frequent extension of the current pattern
 	 * @throws IOException exception if there is an error writing to the output file
 	 */
-	private int recursionMultipleItems(List<PseudoSequence> database, int k, int lastBufferPosition) throws IOException {
+	private int recursionMultipleItems(ProjectedDatabase database, int k, int lastBufferPosition) throws IOException {
 		
 		
 		// variable to store  the support of the most frequent extension of the current pattern
@@ -1459,111 +1688,68 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 		// FIND FREQUENT PAIRS
 		// find frequent items of size 1 in the current projected database, and at the same
 		// time create their respective projected databases
-		// We create some maps of pairs for storing the frequent items. The following object
-		// contains two maps. The first one is for item extending the current pattern as an i-extension,
-		// while the second is for item extending the current pattern as an s-extension.
-		MapFrequentPairs mapsPairs = findAllFrequentPairs(database, lastBufferPosition);
+		// The following object contains the items extending the current pattern as an i-extension,
+		// and the items extending the current pattern as an s-extension.
+		FrequentPairs pairs = findAllFrequentPairs(database, lastBufferPosition, k);
+		
+		// in parallel mode, the extensions may be explored by separate tasks
+		List<ProjectionTask> tasks = shouldCreateTasks(database.size()) ? new ArrayList<ProjectionTask>() : null;
 		
 		// release the memory used by the database
 		database = null;
 	
-		// For each pair found that is in a postfix itemset(a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
-		for(Entry<Pair,Pair> entry : mapsPairs.mapPairsInPostfix.entrySet()){
-			Pair pair = entry.getKey();
-			// Get the support of that pair
-			int support = pair.getCount();
-			
-			// if the item is frequent in the current projected database
-			if(pair.getCount() >= minsuppAbsolute){
-				
-				// If it is the item with the highest support until, we will remember that support value
-				if(support > maxSupport){
-					maxSupport = support;
-				}
 
-				// we append the item to the current pattern to create a new pattern
-				int newBuferPosition = lastBufferPosition;
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-								
-				// We check if the new pattern passes the backscan pruning condition
-				boolean passBackscanPruning = checkBackscanPruningMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
-				
-				// If the new pattern should  not be pruned according to the backscan pruning condition
-				if(passBackscanPruning){
-					// make a recursive call to explore extensions of the new pattern
-					int maxSupportExtensions = 0;
-					if( k < maximumPatternLength){
-						// the recursive call return the largest support value among extension of the new pattern
-						 maxSupportExtensions = recursionMultipleItems(pair.getPseudoSequences(), k+1, newBuferPosition);
-					}
+		// For each frequent item that is in a postfix itemset
+		for(int i = 0; i < pairs.itemsInPostfix.length; i++){
+			// Get the support of that item
+			int support = pairs.projectedDatabasesInPostfix[i].size();
+			
+			// If it is the item with the highest support until, we will remember that support value
+			if(support > maxSupport){
+				maxSupport = support;
+			}
 
-					// if the new pattern has no forward extension (an extension having the same support, it may be closed
-					if(support != maxSupportExtensions){
-						// but we still need to check if it has a backward extension
-						boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
-						// If the new pattern has no backward extension
-						if(passBackwardExtensionChecking){		
-							// Then it is closed, so we save the pattern
-							savePattern(newBuferPosition, pair.getPseudoSequences());	
-						}
-					}				
-				}		
+			// we append the item to the current pattern to create a new pattern
+			int newBuferPosition = lastBufferPosition;
+			newBuferPosition++;
+			patternBuffer[newBuferPosition] = pairs.itemsInPostfix[i];
+			
+			if(tasks != null){
+				tasks.add(new ProjectionTask(patternBuffer, newBuferPosition, pairs.projectedDatabasesInPostfix[i], k));
+			}else{
+				exploreExtensionMultipleItems(newBuferPosition, pairs.projectedDatabasesInPostfix[i], k);
 			}
 		}
 		
-		// For each pair found representing an item that is not in a postfix
-		for(Entry<Pair,Pair> entry : mapsPairs.mapPairs.entrySet()){
-			Pair pair = entry.getKey();
+		// For each frequent item that is not in a postfix
+		for(int i = 0; i < pairs.items.length; i++){
 			// get the support of that item
-			int support = pair.getCount();
-			
-			// if the item is frequent in the current projected database
-			if(support >= minsuppAbsolute){
-
-				// If it is the item with the highest support until, we will remember that support value
-				if(support > maxSupport){
-					maxSupport = support;
-				}
-
-				// we append the item to the current pattern to create a new pattern
-				int newBuferPosition = lastBufferPosition;
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = -1;
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-
-				// We check if the new pattern passes the backscan pruning condition
-				boolean passBackscanPruning = checkBackscanPruningMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
-
-				// If the new pattern should  not be pruned according to the backscan pruning condition
-				if(passBackscanPruning){
-
-					// make a recursive call to explore extensions of the new pattern
-					int maxSupportExtensions = 0;
-					// make a recursive call
-					if( k < maximumPatternLength){
-						// the recursive call return the largest support value among extension of the new pattern
-						maxSupportExtensions = recursionMultipleItems(pair.getPseudoSequences(), k+1, newBuferPosition);
-					}
+			int support = pairs.projectedDatabases[i].size();
 
-					// if the new pattern has no forward extension (an extension having the same support, it may be closed
-					if(support != maxSupportExtensions){
+			// If it is the item with the highest support until, we will remember that support value
+			if(support > maxSupport){
+				maxSupport = support;
+			}
 
-						// but we still need to check if it has a backward extension
-						boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
-						// If the new pattern has no backward extension
-						if(passBackwardExtensionChecking){	
-							// Then it is closed, so we save the pattern
-							savePattern(newBuferPosition, pair.getPseudoSequences());
-						}
-					}
-				
-				}
+			// we append the item to the current pattern as a new itemset to create a new pattern
+			int newBuferPosition = lastBufferPosition;
+			newBuferPosition++;
+			patternBuffer[newBuferPosition] = -1;
+			newBuferPosition++;
+			patternBuffer[newBuferPosition] = pairs.items[i];
+			
+			if(tasks != null){
+				tasks.add(new ProjectionTask(patternBuffer, newBuferPosition, pairs.projectedDatabases[i], k));
+			}else{
+				exploreExtensionMultipleItems(newBuferPosition, pairs.projectedDatabases[i], k);
 			}
 		}
+		
+		// wait for the tasks, since the patterns of the prefix are saved after those of its extensions
+		if(tasks != null){
+			parent.invokeTasks(tasks, taskOutput);
+		}
+		
 		// check the current memory usage
 		MemoryLogger.getInstance().checkMemory();
 		
@@ -1572,6 +1758,47 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 		
 	}
 	
+	/**
+	 * Explore the extensions of a pattern that is an extension of the current prefix, and save that pattern
+	 * if it is closed.
+	 * This method is optimized for sequence databases that may contain multiple items per itemset in sequences.
+	 * @param newBuferPosition the last position of the pattern in the buffer
+	 * @param pseudoSequences the projected database of the pattern
+	 * @param k the prefix length in terms of items (before the extension)
+	 * @throws IOException exception if there is an error writing to the output file
+	 */
+	private void exploreExtensionMultipleItems(int newBuferPosition, ProjectedDatabase pseudoSequences, int k) throws IOException {
+		// Get the support of the pattern
+		int support = pseudoSequences.size();
+		
+		// We check if the new pattern passes the backscan pruning condition
+		boolean passBackscanPruning = checkBackscanPruningMultipleItems(newBuferPosition, pseudoSequences);
+
+		// If the new pattern should  not be pruned according to the backscan pruning condition
+		if(passBackscanPruning){
+
+			// make a recursive call to explore extensions of the new pattern
+			int maxSupportExtensions = 0;
+			// make a recursive call
+			if( k < maximumPatternLength){
+				// the recursive call return the largest support value among extension of the new pattern
+				maxSupportExtensions = recursionMultipleItems(pseudoSequences, k+1, newBuferPosition);
+			}
+
+			// if the new pattern has no forward extension (an extension having the same support, it may be closed
+			if(support != maxSupportExtensions){
+
+				// but we still need to check if it has a backward extension
+				boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItems(newBuferPosition, pseudoSequences);
+				// If the new pattern has no backward extension
+				if(passBackwardExtensionChecking){	
+					// Then it is closed, so we save the pattern
+					savePattern(newBuferPosition, pseudoSequences);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Check if there is a backward extension, for a pattern of length greater than 1.
 	 * This method is optimized for sequence databases that may contain multiple items per itemset in sequences
@@ -1579,7 +1806,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	 * @param sequences a projected database
 	 * @return true if the pattern has no backward extension. Otherwise, false.
 	 */
-	private boolean checkBackwardExtensionMultipleItems(int lastBufferPosition, List<PseudoSequence> sequences) {
+	private boolean checkBackwardExtensionMultipleItems(int lastBufferPosition, ProjectedDatabase sequences) {
 
 		
 		// we will check if there is a backward extension for each item in the current pattern
@@ -1602,8 +1829,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			// for each sequence
 			// for each sequence where the pattern appears
 			for(int k =0; k < sequences.size(); k++){
-				PseudoSequence pseudoSequence = sequences.get(k);
-				int sid = pseudoSequence.getOriginalSequenceID();
+				int sid = sequences.getSequenceID(k);
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 				
 				// clear the variables to remember which items we have already seen in the current sequence
@@ -1872,7 +2098,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	 * @param sequences
 	 * @return true if the pattern has no backward extension. Otherwise, false.
 	 */
-	private boolean checkBackscanPruningMultipleItems(int lastBufferPosition,  List<PseudoSequence> sequences) {
+	private boolean checkBackscanPruningMultipleItems(int lastBufferPosition,  ProjectedDatabase sequences) {
 		
 		// we will check the backscan pruning condition for each item in the current pattern
 loopi:	for(int i=0; i <= lastBufferPosition; i++){
@@ -1895,8 +2121,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			// for each sequence where the pattern appears
 			for(int k =0; k < sequences.size(); k++){
 
-				PseudoSequence pseudoSequence = sequences.get(k);
-				int sid = pseudoSequence.getOriginalSequenceID();
+				int sid = sequences.getSequenceID(k);
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 
 				alreadySeen.clear();
@@ -2155,78 +2380,120 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	}
 
 	/**
-	 * Method to find all frequent items in a projected sequence database
+	 * This class contains the frequent items of a projected database with their projected databases,
+	 * whether they appear in a postfix itemset or a normal itemset. The items are sorted.
+	 */
+	public class FrequentPairs{
+		/** the frequent items in normal itemsets and their projected databases */
+		int[] items;
+		ProjectedDatabase[] projectedDatabases;
+		/** the frequent items in postfix itemsets and their projected databases */
+		int[] itemsInPostfix = new int[0];
+		ProjectedDatabase[] projectedDatabasesInPostfix = new ProjectedDatabase[0];
+	};
+	
+	/**
+	 * Method to find all frequent items in a projected sequence database, and create their
+	 * projected databases in the arrays of the arena for the given depth. The database is scanned twice:
+	 * the first scan counts the support of the items, and the second scan only creates the projected
+	 * databases of the frequent items.
 	 * This method is optimized for sequence databases that may contain no more than an item per itemset in sequences
 	 * @param sequences  the set of sequences
-	 * @param patternBuffer  the current sequential pattern that we want to try to grow
-	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
-	 * @return A list of pairs, where a pair is an item with (1) a boolean indicating if it
-	 *         is in an itemset that is "cut" and (2) the sequence IDs where it occurs.
+	 * @param depth the depth of the projected databases that are created
+	 * @return the frequent items with their projected databases
 	 */
-	protected Map<Integer,List<PseudoSequence>>  findAllFrequentPairsSingleItems(List<PseudoSequence> sequences, int lastBufferPosition){
-		// We use a Map the store the pairs.
-		Map<Integer,List<PseudoSequence>>  mapItemsPseudoSequences = new HashMap<Integer,List<PseudoSequence>>();
-
+	protected FrequentPairs findAllFrequentPairsSingleItems(ProjectedDatabase sequences, int depth){
+		// first scan: count the support of each item
 		// for each sequence
-		for(PseudoSequence pseudoSequence : sequences){
-			
-			// for each sequence
-			int sequenceID = pseudoSequence.getOriginalSequenceID();
+		for(int k = 0; k < sequences.size(); k++){
+			int sequenceID = sequences.getSequenceID(k);
 			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
 			
 			// for each token in this sequence 
-			for(int i = pseudoSequence.indexFirstItem;  sequence[i] != -2 ; i++){
+			for(int i = sequences.getIndexFirstItem(k);  sequence[i] != -2 ; i++){
 				int token = sequence[i];
-				
 				// if it is an item
 				if(token > 0){
-					// get the pair object stored in the map if there is one already
-					List<PseudoSequence> listSequences = mapItemsPseudoSequences.get(token);
-					// if there is no pair object yet
-					if(listSequences == null){
-						listSequences = new ArrayList<PseudoSequence>();
-						// store the pair object that we created
-						mapItemsPseudoSequences.put(token, listSequences);
-					}
-					
-					// Check if that sequence as already been added to the projected database of this item
-					boolean ok = true;
-					if(listSequences.size() > 0){
-						ok = listSequences.get(listSequences.size() - 1).sequenceID != sequenceID;
-					}
-					// if not we add it
-					if(ok){
-						listSequences.add(new PseudoSequence(sequenceID, i+1));
+					itemSupportTable.count(token, sequenceID);
+				}
+			}
+		}
+		
+		// create the (empty) projected databases of the frequent items
+		FrequentPairs pairs = new FrequentPairs();
+		pairs.items = itemSupportTable.getFrequentItems(minsuppAbsolute);
+		arena.ensureCapacity(depth, itemSupportTable.getFrequentItemsSupport());
+		pairs.projectedDatabases = itemSupportTable.createProjectedDatabases(pairs.items,
+				arena.getSequenceIDs(depth), arena.getIndexesFirstItem(depth), 0);
+		
+		// second scan: add each sequence to the projected databases of the frequent items that it contains
+		if(pairs.items.length > 0){
+			for(int k = 0; k < sequences.size(); k++){
+				int sequenceID = sequences.getSequenceID(k);
+				int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
+				
+				for(int i = sequences.getIndexFirstItem(k);  sequence[i] != -2 ; i++){
+					int token = sequence[i];
+					if(token > 0){
+						itemSupportTable.add(token, sequenceID, i+1);
 					}
 				}
 			}
 		}
+		itemSupportTable.clear();
+		
 		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
-		// return the map of pairs
-		return mapItemsPseudoSequences;
+		// return the frequent items
+		return pairs;
 	}
-	
-	
-	/**
-	 * This class contains two maps, which are used for counting the
-	 * frequencies of items, whether in a postfix itemset or a normal itemset.
-	 */
-	public class MapFrequentPairs{
-	    public final Map<Pair, Pair>  mapPairs = new HashMap<Pair, Pair>();
-	    public final Map<Pair, Pair>  mapPairsInPostfix = new HashMap<Pair, Pair>();
-	};
 
 	/**
-	 * Method to find all frequent items in a projected sequence database
+	 * Method to find all frequent items in a projected sequence database, and create their
+	 * projected databases in the arrays of the arena for the given depth. The database is scanned twice:
+	 * the first scan counts the support of the items, and the second scan only creates the projected
+	 * databases of the frequent items.
 	 * @param sequences  the set of sequences
 	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
-	 * @return A list of pairs, where a pair is an item with (1) a boolean indicating if it
-	 *         is in an itemset that is "cut" and (2) the sequence IDs where it occurs.
+	 * @param depth the depth of the projected databases that are created
+	 * @return the frequent items (whether they are in a postfix itemset or not) with their projected databases
 	 */
-	protected MapFrequentPairs findAllFrequentPairs(List<PseudoSequence> sequences, int lastBufferPosition){
-		// We use an object containing two maps the store the pairs.
-		MapFrequentPairs mapsPairs = new MapFrequentPairs();
+	protected FrequentPairs findAllFrequentPairs(ProjectedDatabase sequences, int lastBufferPosition, int depth){
+		// first scan: count the support of each item
+		scanPairs(sequences, lastBufferPosition, false);
+		
+		// create the (empty) projected databases of the frequent items
+		FrequentPairs pairs = new FrequentPairs();
+		pairs.itemsInPostfix = postfixItemSupportTable.getFrequentItems(minsuppAbsolute);
+		pairs.items = itemSupportTable.getFrequentItems(minsuppAbsolute);
+		int postfixSupport = postfixItemSupportTable.getFrequentItemsSupport();
+		arena.ensureCapacity(depth, postfixSupport + itemSupportTable.getFrequentItemsSupport());
+		int[] sequenceIDs = arena.getSequenceIDs(depth);
+		int[] indexesFirstItem = arena.getIndexesFirstItem(depth);
+		pairs.projectedDatabasesInPostfix = postfixItemSupportTable.createProjectedDatabases(pairs.itemsInPostfix,
+				sequenceIDs, indexesFirstItem, 0);
+		pairs.projectedDatabases = itemSupportTable.createProjectedDatabases(pairs.items,
+				sequenceIDs, indexesFirstItem, postfixSupport);
 		
+		// second scan: add each sequence to the projected databases of the frequent items that it contains
+		if(pairs.itemsInPostfix.length > 0 || pairs.items.length > 0){
+			scanPairs(sequences, lastBufferPosition, true);
+		}
+		postfixItemSupportTable.clear();
+		itemSupportTable.clear();
+		
+		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
+		// return the frequent items
+		return pairs;
+	}
+	
+	/**
+	 * Scan a projected database to count the items (whether they are in a postfix itemset or not), 
+	 * or to add the sequences to the projected databases of the frequent items.
+	 * @param sequences  the set of sequences
+	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
+	 * @param addSequences false to count the items, true to add the sequences to the projected databases
+	 */
+	private void scanPairs(ProjectedDatabase sequences, int lastBufferPosition, boolean addSequences){
 		// find the position of the first item of the last itemset of the current sequential pattern that is grown
 		int firstPositionOfLastItemsetInBuffer = lastBufferPosition;
 		while(lastBufferPosition >0){
@@ -2241,89 +2508,48 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 		int positionToBeMatched = firstPositionOfLastItemsetInBuffer;
 		
 		// for each sequence
-		for(PseudoSequence pseudoSequence : sequences){
+		for(int k = 0; k < sequences.size(); k++){
 			
 			// for each sequence
-			int sequenceID = pseudoSequence.getOriginalSequenceID();
+			int sequenceID = sequences.getSequenceID(k);
 			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
-
+			int indexFirstItem = sequences.getIndexFirstItem(k);
 			
 			// check if the first itemset of that sequence is a postfix
 			// It is a postfix (the itemset is cut) if the previous item is a -1 indicating
 			// the end of an itemset
-			int previousItem = sequence[pseudoSequence.indexFirstItem - 1];
+			int previousItem = sequence[indexFirstItem - 1];
 			boolean currentItemsetIsPostfix = (previousItem != - 1);
 			boolean isFirstItemset = true;
 			
 			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
-			for(int i = pseudoSequence.indexFirstItem;  sequence[i] != -2 ; i++){
+			for(int i = indexFirstItem;  sequence[i] != -2 ; i++){
 				int token = sequence[i];
 				
 				// if it is an item
 				if(token > 0){
 					
-					// create the pair corresponding to this item
-					Pair pair = new Pair(token);   
-					// get the pair object store in the map if there is one already
-					Pair oldPair;
-					if(currentItemsetIsPostfix){
-						oldPair = mapsPairs.mapPairsInPostfix.get(pair);
+					// count the item or add the sequence to its projected database
+					ItemSupportTable table = currentItemsetIsPostfix ? postfixItemSupportTable : itemSupportTable;
+					if(addSequences){
+						table.add(token, sequenceID, i+1);
 					}else{
-						oldPair = mapsPairs.mapPairs.get(pair);
-					}
-					// if there is no pair object yet
-					if(oldPair == null){
-						// store the pair object that we created
-						if(currentItemsetIsPostfix){
-							mapsPairs.mapPairsInPostfix.put(pair, pair);
-						}else{
-							mapsPairs.mapPairs.put(pair, pair);
-						}
-					}else{
-						// otherwise use the old one
-						pair = oldPair;
-					}
-					
-					// Check if that sequence as already been added to the projected database of this item
-					boolean ok = true;
-					if(pair.getPseudoSequences().size() > 0){
-						ok = pair.getPseudoSequences().get(pair.getPseudoSequences().size() - 1).sequenceID != sequenceID;
-					}
-					// if not we add it
-					if(ok){
-						pair.getPseudoSequences().add(new PseudoSequence(sequenceID, i+1));
+						table.count(token, sequenceID);
 					}
 					
 					///////// ====== IMPORTANT =========
 					// if the current itemset is a postfix and it is not the first itemset
 					// we must also consider that it may not be a postfix for extending the current prefix
 					if(currentItemsetIsPostfix && isFirstItemset == false){
-						// create the pair corresponding to this item
-						 pair = new Pair(token);     // FALSE !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
-						// get the pair object store in the map if there is one already
-						 oldPair = mapsPairs.mapPairs.get(pair);
-						// if there is no pair object yet
-						if(oldPair == null){
-							// store the pair object that we created
-							mapsPairs.mapPairs.put(pair, pair);
+						if(addSequences){
+							itemSupportTable.add(token, sequenceID, i+1);
 						}else{
-							// otherwise use the old one
-							pair = oldPair;
+							itemSupportTable.count(token, sequenceID);
 						}
-						
-						// Check if that sequence as already been added to the projected database of this item
-						ok = true;
-						if(pair.getPseudoSequences().size() > 0){
-							ok = pair.getPseudoSequences().get(pair.getPseudoSequences().size() - 1).sequenceID != sequenceID;
-						}
-						// if not we add it
-						if(ok){
-							pair.getPseudoSequences().add(new PseudoSequence(sequenceID, i+1));
-						}
-						
 					}
 					//////////////////////////////////////////////////////////
 
+					
 					//  try to match this item with the last itemset in the prefix
 					if(currentItemsetIsPostfix == false && patternBuffer[positionToBeMatched] == token){
 						positionToBeMatched++;
@@ -2339,9 +2565,6 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 				}
 			}
 		}
-		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
-		// return the map of pairs
-		return mapsPairs;
 	}
 
 	/**
@@ -2391,4 +2614,199 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	public void setShowSequenceIdentifiers(boolean showSequenceIdentifiers) {
 		this.showSequenceIdentifiers = showSequenceIdentifiers;
 	}
+	
+	/**
+	 * Set the number of threads used to explore the projected databases (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Set if the patterns should be saved in the same order as with a single thread when
+	 * several threads are used (by default, false).
+	 * @param deterministicOutput true to save the patterns in a deterministic order
+	 */
+	public void setDeterministicOutput(boolean deterministicOutput) {
+		this.deterministicOutput = deterministicOutput;
+	}
+	
+	/**
+	 * Write a line to the output file (or keep it with the patterns of the current task in parallel mode).
+	 * @param line the line
+	 * @throws IOException if error writing to the output file
+	 */
+	private void writeLine(String line) throws IOException {
+		if(taskOutput != null){
+			addTaskPattern(new TaskPattern(line));
+		}else{
+			writer.write(line);
+			writer.newLine();
+		}
+	}
+	
+	/**
+	 * Keep a pattern into memory (or with the patterns of the current task in parallel mode).
+	 * @param pattern the pattern
+	 * @param itemsetCount the number of itemsets of the pattern
+	 */
+	private void addPattern(SequentialPattern pattern, int itemsetCount) {
+		if(taskOutput != null){
+			addTaskPattern(new TaskPattern(pattern, itemsetCount));
+		}else{
+			patterns.addSequence(pattern, itemsetCount);
+		}
+	}
+	
+	/**
+	 * Add a pattern to the patterns of the current task (in parallel mode).
+	 * If the output is not deterministic, the patterns are saved when there are many of them.
+	 * @param pattern the pattern
+	 */
+	private void addTaskPattern(TaskPattern pattern) {
+		taskOutput.add(pattern);
+		if(!parent.deterministicOutput && taskOutput.size() >= TASK_OUTPUT_BUFFER_SIZE) {
+			parent.writeTaskOutput(taskOutput);
+		}
+	}
+	
+	/**
+	 * Save the patterns found by a task to the output file or memory (in parallel mode).
+	 * @param taskPatterns the patterns (the list is cleared)
+	 */
+	private synchronized void writeTaskOutput(List<TaskPattern> taskPatterns) {
+		try {
+			for(TaskPattern taskPattern : taskPatterns) {
+				patternCount++;
+				if(taskPattern.sequentialPattern != null) {
+					patterns.addSequence(taskPattern.sequentialPattern, taskPattern.itemsetCount);
+				}else {
+					writer.write(taskPattern.line);
+					writer.newLine();
+				}
+			}
+		}catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		taskPatterns.clear();
+	}
+	
+	/**
+	 * A task exploring a frequent item or an extension of a prefix, in parallel mode.
+	 * It uses the copy of the AlgoBIDEPlus object of the current thread, with its own pattern buffer.
+	 * The task can be created by the AlgoBIDEPlus object running the algorithm or by one of its copies.
+	 * The task that creates other tasks waits for them, since it needs the largest support of the
+	 * extensions of its prefix to check if the prefix is closed.
+	 */
+	private class ProjectionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the pattern (the prefix followed by the extension) */
+		private final int[] pattern;
+		/** the last position of the pattern */
+		private final int lastBufferPosition;
+		/** the projected database of the pattern (null for an item) */
+		private final transient ProjectedDatabase pseudoSequences;
+		/** the sequences containing the item (null for an extension) */
+		private final transient List<Integer> sequenceIDs;
+		/** the prefix length in terms of items */
+		private final int k;
+		/** the patterns found by this task that have not been saved yet */
+		final transient List<TaskPattern> output = new ArrayList<TaskPattern>();
+		
+		/**
+		 * Constructor of a task exploring a frequent item
+		 * @param item the item
+		 * @param sequenceIDs the sequences containing the item
+		 */
+		ProjectionTask(int item, List<Integer> sequenceIDs) {
+			this.pattern = new int[] {item};
+			this.lastBufferPosition = 0;
+			this.pseudoSequences = null;
+			this.sequenceIDs = sequenceIDs;
+			this.k = 1;
+		}
+		
+		/**
+		 * Constructor of a task exploring an extension of a prefix
+		 * @param patternBuffer the buffer containing the pattern (it is copied)
+		 * @param lastBufferPosition the last position of the pattern in the buffer
+		 * @param pseudoSequences the projected database of the pattern (it is copied)
+		 * @param k the prefix length in terms of items
+		 */
+		ProjectionTask(int[] patternBuffer, int lastBufferPosition, ProjectedDatabase pseudoSequences, int k) {
+			this.pattern = Arrays.copyOf(patternBuffer, lastBufferPosition + 1);
+			this.lastBufferPosition = lastBufferPosition;
+			// the projected database is copied since the arrays of the current thread will be reused
+			this.pseudoSequences = pseudoSequences.copy();
+			this.sequenceIDs = null;
+			this.k = k;
+		}
+		
+		@Override
+		protected void compute() {
+			// the task may be created by the object running the algorithm or by a copy
+			AlgoBIDEPlus root = (parent == null) ? AlgoBIDEPlus.this : parent;
+			AlgoBIDEPlus worker = root.threadWorker.get();
+			// this thread may execute this task while another task waits for its subtasks,
+			// so the pattern buffer, the projected databases and the patterns of that other task are restored afterward
+			List<TaskPattern> previousOutput = worker.taskOutput;
+			int[] previousBuffer = worker.patternBuffer;
+			ProjectedDatabaseArena previousArena = worker.arena;
+			worker.taskOutput = output;
+			worker.patternBuffer = Arrays.copyOf(pattern, BUFFERS_SIZE);
+			worker.arena = previousArena.getNestedArena();
+			try {
+				if(sequenceIDs != null && root.containsItemsetsWithMultipleItems) {
+					worker.exploreItemMultipleItems(pattern[0], sequenceIDs);
+				}else if(sequenceIDs != null) {
+					worker.exploreItemSingleItems(pattern[0], sequenceIDs);
+				}else if(root.containsItemsetsWithMultipleItems) {
+					worker.exploreExtensionMultipleItems(lastBufferPosition, pseudoSequences, k);
+				}else {
+					worker.exploreExtensionSingleItems(lastBufferPosition, pseudoSequences, k);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				worker.taskOutput = previousOutput;
+				worker.patternBuffer = previousBuffer;
+				worker.arena = previousArena;
+			}
+			if(!root.deterministicOutput) {
+				root.writeTaskOutput(output);
+			}
+		}
+	}
+	
+	/**
+	 * A closed pattern found by a task that has not been saved yet (in parallel mode).
+	 * It is either a line of the output file or a pattern kept into memory.
+	 */
+	private static class TaskPattern {
+		/** the line of the output file */
+		String line;
+		/** the pattern kept into memory */
+		SequentialPattern sequentialPattern;
+		/** the number of itemsets of the pattern kept into memory */
+		int itemsetCount;
+		
+		/**
+		 * Constructor of a line of the output file
+		 */
+		TaskPattern(String line) {
+			this.line = line;
+		}
+		
+		/**
+		 * Constructor of a pattern kept into memory
+		 */
+		TaskPattern(SequentialPattern sequentialPattern, int itemsetCount) {
+			this.sequentialPattern = sequentialPattern;
+			this.itemsetCount = itemsetCount;
+		}
+	}
 }
@@ -1,15 +1,20 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
+import ca.pfv.spmf.patterns.sink.PatternSink;
+import ca.pfv.spmf.patterns.sink.TextPatternSink;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 
@@ -25,6 +30,12 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * in SPMF which was implemented in 2008, and the AGP implementation. I have re-implemented the code to make
  * it more efficient. This new implementation can be 10 times faster than the 2008 implementation, since
  * I have added more optimizations
+ * 
+ * The projected databases can be explored by several threads (see setThreadCount()).
+ * Then, the extensions of a pattern having a large projected database are explored by
+ * separate tasks, which are executed by a work-stealing thread pool. The sequence database
+ * is only read during the search, so it is shared by the threads, while each task
+ * uses its own buffer for the current pattern.
  *
  * Copyright (c) 2008-2012 Philippe Fournier-Viger
  * 
@@ -57,8 +68,8 @@ public class AlgoPrefixSpan{
 	/** absolute minimum support */
 	private int minsuppAbsolute;
 
-	/** writer to write output file */
-	BufferedWriter writer = null;
+	/** object to save the patterns (e.g. to the output file) */
+	PatternSink sink = null;
 	
 	/** The sequential patterns that are found  (if the user want to keep them into memory) */
 	private SequentialPatterns patterns = null;
@@ -74,6 +85,12 @@ public class AlgoPrefixSpan{
 	final int BUFFERS_SIZE = 2000;
 	private int[] patternBuffer = new int[BUFFERS_SIZE];
 	
+	/** buffer for storing a pattern that is given to the sink **/
+	private int[] outputBuffer = new int[BUFFERS_SIZE];
+	
+	/** buffer for storing the sequence identifiers of a pattern that is given to the sink **/
+	private int[] identifierBuffer = new int[BUFFERS_SIZE];
+	
 	/** original sequence count **/
 	int sequenceCount = 0;
 	
@@ -83,12 +100,67 @@ public class AlgoPrefixSpan{
 	/** boolean indicating whether this database contains itemsets with multiple items or not */
 	boolean containsItemsetsWithMultipleItems = false;
 	
+	/** the largest item in the database */
+	int maxItem = 0;
+	
+	/** the arrays storing the projected databases of each depth of the search, which are reused */
+	private ProjectedDatabaseArena arena = new ProjectedDatabaseArena();
+	
+	/** the table for counting the support of items in a projected database 
+	 *  (for the items that are not in a postfix itemset) */
+	private ItemSupportTable itemSupportTable = null;
+	
+	/** the table for counting the support of items in a postfix itemset of a projected database */
+	private ItemSupportTable postfixItemSupportTable = null;
+	
+	/** the number of threads used to explore the projected databases */
+	private int threadCount = 1;
+	
+	/** the minimum number of sequences in a projected database for exploring 
+	 * the extensions of its prefix with separate tasks (in parallel mode) */
+	private static final int MIN_SEQUENCES_PER_TASK = 100;
+	
+	/** the maximum number of tasks waiting in the queue of a thread for creating new tasks */
+	private static final int MAX_QUEUED_TASKS = 4;
+	
+	/** the number of patterns that a task keeps before saving them (if the output is not deterministic) */
+	private static final int TASK_OUTPUT_BUFFER_SIZE = 1 << 16;
+	
+	/** if true, the patterns are saved in the same order as with a single thread (parallel mode) */
+	private boolean deterministicOutput = false;
+	
+	/** the copy of this object used by each thread (only in parallel mode) */
+	private ThreadLocal<AlgoPrefixSpan> threadWorker = null;
+	
+	/** the object that created this copy (only for a copy used by a thread, otherwise null) */
+	private AlgoPrefixSpan parent = null;
+	
+	/** the patterns found by the task executed by this copy that have not been saved yet */
+	private List<TaskPattern> taskOutput = null;
+	
 	/**
 	 * Default constructor
 	 */
 	public AlgoPrefixSpan(){
 	}
 	
+	/**
+	 * Constructor of a copy of the algorithm used by a thread in parallel mode.
+	 * The copy has its own buffers, and gives its patterns to the current task.
+	 * @param parent the object running the algorithm
+	 */
+	private AlgoPrefixSpan(AlgoPrefixSpan parent){
+		this.parent = parent;
+		this.minsuppAbsolute = parent.minsuppAbsolute;
+		this.maximumPatternLength = parent.maximumPatternLength;
+		this.showSequenceIdentifiers = parent.showSequenceIdentifiers;
+		this.sequenceDatabase = parent.sequenceDatabase;
+		this.containsItemsetsWithMultipleItems = parent.containsItemsetsWithMultipleItems;
+		this.maxItem = parent.maxItem;
+		this.sink = (parent.sink == null) ? null : new TaskSink();
+		createItemSupportTables();
+	}
+	
 	/**
 	 * Run the algorithm
 	 * @param inputFile : a sequence database
@@ -99,6 +171,29 @@ public class AlgoPrefixSpan{
 	 * @throws IOException  exception if error while writing the file
 	 */
 	public SequentialPatterns runAlgorithm(String inputFile, double minsupRelative, String outputFilePath) throws IOException {
+		// if the user want to save the result to a file
+		PatternSink fileSink = (outputFilePath == null) ? null : new TextPatternSink(outputFilePath, "#SUP:");
+		try{
+			return runAlgorithmWithSink(inputFile, minsupRelative, fileSink);
+		}finally{
+			// close the output file if the result was saved to a file
+			if(fileSink != null){
+				fileSink.close();
+			}
+		}
+	}
+	
+	/**
+	 * Run the algorithm and give each sequential pattern to a pattern sink
+	 * (e.g. to only count the patterns or to process them as they are found).
+	 * @param inputFile : a sequence database
+	 * @param minsupRelative  :  the minimum support as a percentage (e.g. 50%) as a value in [0,1]
+	 * @param sink : the sink that receives the patterns (each itemset is followed by -1)
+	 *               or null if you want the result to be saved into memory. The sink is not closed by this method.
+	 * @return return the result, if saved into memory, otherwise null
+	 * @throws IOException  exception if error while saving the result
+	 */
+	public SequentialPatterns runAlgorithmWithSink(String inputFile, double minsupRelative, PatternSink sink) throws IOException {
 		// record start time
 		startTime = System.currentTimeMillis();
 		
@@ -117,16 +212,12 @@ public class AlgoPrefixSpan{
 		}
 		
 		// run the algorithm
-		prefixSpan(sequenceDatabase, outputFilePath);
+		prefixSpan(sequenceDatabase, sink);
 		
 		sequenceDatabase = null;
 		
 		// record end time
 		endTime = System.currentTimeMillis();
-		// close the output file if the result was saved to a file
-		if(writer != null){
-			writer.close();
-		}
 		return patterns;
 	}
 	
@@ -152,36 +243,40 @@ public class AlgoPrefixSpan{
 		sequenceDatabase = new SequenceDatabase(); 
 		sequenceDatabase.loadFile(inputFile);
 		
-		// run the algorithm
-		prefixSpan(sequenceDatabase, outputFilePath);
+		// if the user want to save the result to a file
+		PatternSink fileSink = (outputFilePath == null) ? null : new TextPatternSink(outputFilePath, "#SUP:");
+		try{
+			// run the algorithm
+			prefixSpan(sequenceDatabase, fileSink);
+		}finally{
+			// close the output file if the result was saved to a file
+			if(fileSink != null){
+				fileSink.close();
+			}
+		}
 		
 		sequenceDatabase = null;
 		
 		// save the end time
 		endTime = System.currentTimeMillis();
-		// close the output file if the result was saved to a file
-		if(writer != null){
-			writer.close();
-		}
 		return patterns;
 	}
 	
 	/**
 	 * This is the main method for the PrefixSpan algorithm that is called
 	 * to start the algorithm
-	 * @param outputFilePath  an output file path if the result should be saved to a file
+	 * @param sink  a sink if the result should be saved to a file or given to some other code
 	 *                        or null if the result should be saved to memory.
 	 * @param sequenceDatabase a sequence database
-	 * @throws IOException exception if an error while writing the output file
+	 * @throws IOException exception if an error while saving the result
 	 */
-	private void prefixSpan(SequenceDatabase sequenceDatabase, String outputFilePath) throws IOException{
+	private void prefixSpan(SequenceDatabase sequenceDatabase, PatternSink sink) throws IOException{
+		this.sink = sink;
 		// if the user want to keep the result into memory
-		if(outputFilePath == null){
-			writer = null;
+		if(sink == null){
 			patterns = new SequentialPatterns("FREQUENT SEQUENTIAL PATTERNS");
-		}else{ // if the user want to save the result to a file
+		}else{ // if the user want to save the result to a sink
 			patterns = null;
-			writer = new BufferedWriter(new FileWriter(outputFilePath)); 
 		}
 		
 		sequenceCount = sequenceDatabase.size();
@@ -192,14 +287,69 @@ public class AlgoPrefixSpan{
 		Map<Integer, List<Integer>> mapSequenceID = findSequencesContainingItems();
 
 		//====== Remove infrequent items and explore each projected database ================
-		// if this database have multiple items per itemset
-		if(containsItemsetsWithMultipleItems){
+		if(threadCount > 1){
+			prefixspanParallel(mapSequenceID);
+		}else if(containsItemsetsWithMultipleItems){
+			// if this database have multiple items per itemset
+			createItemSupportTables();
 			prefixspanWithMultipleItems(mapSequenceID);	
 		}else{
 			// if this database does not have multiple items per itemset
 			// we use an optimize version of the same code
+			createItemSupportTables();
 			prefixspanWithSingleItems(mapSequenceID);	
 		}
+		
+		// release the memory used for the projected databases
+		arena = new ProjectedDatabaseArena();
+		itemSupportTable = null;
+		postfixItemSupportTable = null;
+	}
+	
+	/**
+	 * Create the tables for counting the support of items in projected databases
+	 * (the largest item must be known).
+	 */
+	private void createItemSupportTables() {
+		itemSupportTable = new ItemSupportTable(maxItem);
+		if(containsItemsetsWithMultipleItems){
+			postfixItemSupportTable = new ItemSupportTable(maxItem);
+		}
+	}
+	
+	/**
+	 * Remove infrequent items and explore each projected database with several threads.
+	 * The projected database of each frequent item is explored by a separate task.
+	 * @param mapSequenceID the set of items with their frequencies
+	 * @throws IOException if error writing to file
+	 */
+	private void prefixspanParallel(final Map<Integer, List<Integer>> mapSequenceID) throws IOException {
+		// each thread uses its own copy of this object
+		threadWorker = ThreadLocal.withInitial(() -> new AlgoPrefixSpan(this));
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					try {
+						if(containsItemsetsWithMultipleItems){
+							prefixspanWithMultipleItems(mapSequenceID);	
+						}else{
+							prefixspanWithSingleItems(mapSequenceID);	
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			threadWorker = null;
+		}
 	}
 	
 	/**
@@ -255,32 +405,27 @@ public class AlgoPrefixSpan{
 		}
 		
 		//============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+		// in parallel mode, the projected database of each item is explored by a separate task
+		List<ProjectionTask> tasks = (threadWorker != null) ? new ArrayList<ProjectionTask>() : null;
+		
 		// For each frequent item
 		for(Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()){
 			int support = entry.getValue().size();
 			// if the item is frequent  (has a support >= minsup)
 			if(support >= minsuppAbsolute){ 
 				int item = entry.getKey();
-
-				// The prefix is a frequent sequential pattern.
-				// We save it in the result.
-				savePattern(item, support, entry.getValue());  
-
-				// We make a recursive call to try to find larger sequential
-				// patterns starting with this prefix
-				if(maximumPatternLength >1){
-					
-					// Create the prefix for this projected database by copying the item in the buffer
-					patternBuffer[0] = item;
-
-					// build the projected database for that item
-					List<PseudoSequence> projectedDatabase  = buildProjectedDatabaseSingleItems(item, entry.getValue());
-					
-					// recursive call
-					recursionSingleItems(projectedDatabase, 2, 0); 
+				
+				if(tasks != null){
+					tasks.add(new ProjectionTask(item, entry.getValue()));
+				}else{
+					exploreItem(item, entry.getValue());
 				}
 			}
 		}
+		
+		if(tasks != null){
+			invokeTasks(tasks, null);
+		}
 	}
 
 
@@ -351,29 +496,109 @@ public class AlgoPrefixSpan{
 		}
 		
 		//============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+		// in parallel mode, the projected database of each item is explored by a separate task
+		List<ProjectionTask> tasks = (threadWorker != null) ? new ArrayList<ProjectionTask>() : null;
+		
 		// For each frequent item
 		for(Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()){
 			int support = entry.getValue().size();
 			// if the item is frequent  (has a support >= minsup)
 			if(support >= minsuppAbsolute){ 
 				int item = entry.getKey();
+				
+				if(tasks != null){
+					tasks.add(new ProjectionTask(item, entry.getValue()));
+				}else{
+					exploreItem(item, entry.getValue());
+				}
+			}
+		}
+		
+		if(tasks != null){
+			invokeTasks(tasks, null);
+		}
+	}
+	
+	/**
+	 * Save a frequent item as a pattern and explore the patterns starting with that item.
+	 * @param item the item
+	 * @param sequenceIDs the list of sequences containing this item
+	 * @throws IOException if error writing to file
+	 */
+	private void exploreItem(int item, List<Integer> sequenceIDs) throws IOException {
+		// The prefix is a frequent sequential pattern.
+		// We save it in the result.
+		savePattern(item, sequenceIDs.size(), sequenceIDs);  
 
-				// The prefix is a frequent sequential pattern.
-				// We save it in the result.
-				savePattern(item, support, entry.getValue());  
-
-				// We make a recursive call to try to find larger sequential
-				// patterns starting with this prefix
-				if(maximumPatternLength >1){
-					
-					// Create the prefix for this projected database by copying the item in the buffer
-					patternBuffer[0] = item;
+		// We make a recursive call to try to find larger sequential
+		// patterns starting with this prefix
+		if(maximumPatternLength >1){
+			
+			// Create the prefix for this projected database by copying the item in the buffer
+			patternBuffer[0] = item;
 
-					// build the projected database for that item
-					List<PseudoSequence> projectedDatabase  = buildProjectedDatabaseFirstTimeMultipleItems(item, entry.getValue());
-					
-					// recursive call
-					recursion(patternBuffer, projectedDatabase, 2, 0); 
+			// build the projected database for that item and make the recursive call
+			if(containsItemsetsWithMultipleItems){
+				ProjectedDatabase projectedDatabase  = buildProjectedDatabaseFirstTimeMultipleItems(item, sequenceIDs);
+				recursion(patternBuffer, projectedDatabase, 2, 0); 
+			}else{
+				ProjectedDatabase projectedDatabase  = buildProjectedDatabaseSingleItems(item, sequenceIDs);
+				recursionSingleItems(projectedDatabase, 2, 0); 
+			}
+		}
+	}
+	
+	/**
+	 * Save a pattern that is an extension of the current prefix, and explore its own extensions.
+	 * @param lastBufferPosition the last position of the pattern in the buffer
+	 * @param pseudoSequences the projected database of the pattern
+	 * @param k the prefix length in terms of items (before the extension)
+	 * @throws IOException if error writing to file
+	 */
+	private void exploreExtension(int lastBufferPosition, ProjectedDatabase pseudoSequences, int k) throws IOException {
+		// save the pattern
+		savePattern(lastBufferPosition, pseudoSequences);
+		
+		// make a recursive call
+		if( k < maximumPatternLength){
+			if(containsItemsetsWithMultipleItems){
+				recursion(patternBuffer, pseudoSequences, k+1, lastBufferPosition);
+			}else{
+				recursionSingleItems(pseudoSequences, k+1, lastBufferPosition);
+			}
+		}
+	}
+	
+	/**
+	 * Check if the extensions of the current prefix should be explored by separate tasks, that is
+	 * in parallel mode, if its projected database is large and this thread does not have enough tasks waiting.
+	 * @param projectedDatabaseSize the number of sequences in the projected database of the prefix
+	 * @return true if separate tasks should be created
+	 */
+	private boolean shouldCreateTasks(int projectedDatabaseSize) {
+		return parent != null && projectedDatabaseSize >= MIN_SEQUENCES_PER_TASK
+				&& ForkJoinTask.getQueuedTaskCount() < MAX_QUEUED_TASKS;
+	}
+	
+	/**
+	 * Execute some tasks and wait for them (in parallel mode).
+	 * @param tasks the tasks
+	 * @param output the patterns found by the current task (null if there is no current task)
+	 */
+	private void invokeTasks(List<ProjectionTask> tasks, List<TaskPattern> output) {
+		// The tasks are added in reverse order, so that this thread executes the first
+		// tasks first, while the other threads take the last tasks
+		for (int i = tasks.size() - 1; i >= 0; i--) {
+			tasks.get(i).fork();
+		}
+		// wait for the tasks (and keep their patterns in order if the output is deterministic)
+		for (ProjectionTask task : tasks) {
+			task.join();
+			if(deterministicOutput) {
+				if(output == null) {
+					writeTaskOutput(task.output);
+				}else {
+					output.addAll(task.output);
 				}
 			}
 		}
@@ -392,31 +617,29 @@ public class AlgoPrefixSpan{
 		// increase the number of pattern found for statistics purposes
 		patternCount++; 
 	
-		// if the result should be saved to a file
-		if(writer != null){
-			// create a StringBuilder
-			StringBuilder r = new StringBuilder();
-			r.append(item);
-			r.append(" -1 #SUP: ");
-			r.append(support);
+		// if the result should be saved to a sink
+		if(sink != null){
+			outputBuffer[0] = item;
+			outputBuffer[1] = -1;
 			if(showSequenceIdentifiers) {
-	        	r.append(" #SID: ");
-	        	for (Integer sid: sequenceIDs) {
-	        		r.append(sid);
-	        		r.append(" ");
-	        	}
+				// copy the sequence ids in a buffer
+				if(identifierBuffer.length < sequenceIDs.size()) {
+					identifierBuffer = new int[sequenceIDs.size()];
+				}
+				for (int i = 0; i < sequenceIDs.size(); i++) {
+					identifierBuffer[i] = sequenceIDs.get(i);
+				}
+				sink.savePattern(outputBuffer, 2, support, identifierBuffer, sequenceIDs.size());
+			}else {
+				sink.savePattern(outputBuffer, 2, support);
 			}
-			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
 		}
 		// otherwise the result is kept into memory
 		else{
 			SequentialPattern pattern = new SequentialPattern();
 			pattern.addItemset(new Itemset(item));
 			pattern.setSequenceIDs(sequenceIDs);
-			patterns.addSequence(pattern, 1);
+			addPattern(pattern, 1);
 		}
 	}
 	
@@ -427,39 +650,34 @@ public class AlgoPrefixSpan{
 	 * @param length the pattern length in terms of number of items.
 	 * @throws IOException if error when writing to file
 	 */
-	private void savePattern(int lastBufferPosition, List<PseudoSequence> pseudoSequences) throws IOException {
+	private void savePattern(int lastBufferPosition, ProjectedDatabase pseudoSequences) throws IOException {
 		// increase the number of pattern found for statistics purposes
 		patternCount++;  
 	
-		// if the result should be saved to a file
-		if(writer != null){
-
-			// create a StringBuilder
-			StringBuilder r = new StringBuilder();
-			for(int i=0; i <= lastBufferPosition; i++){
-				r.append(patternBuffer[i]);
-				r.append(" ");
-			}
+		// if the result should be saved to a sink
+		if(sink != null){
+			// copy the pattern in the output buffer
+			int length = lastBufferPosition + 1;
+			System.arraycopy(patternBuffer, 0, outputBuffer, 0, length);
 			//-------------------------------------
 			// PHILIPPE: BUG FIX 2017-10 : some -1 were missing in the output file
 			// for some patterns. This fixes the problem.
 			if(patternBuffer[lastBufferPosition] != -1){
-				r.append("-1 ");
+				outputBuffer[length++] = -1;
 			}
 			//-------------------------------------
-			r.append("#SUP: ");
-			r.append(pseudoSequences.size());
 			if(showSequenceIdentifiers) {
-	        	r.append(" #SID: ");
-	        	for (PseudoSequence sequence: pseudoSequences) {
-	        		r.append(sequence.sequenceID);
-	        		r.append(" ");
-	        	}
+				// copy the sequence ids in a buffer
+				if(identifierBuffer.length < pseudoSequences.size()) {
+					identifierBuffer = new int[pseudoSequences.size()];
+				}
+				for (int i = 0; i < pseudoSequences.size(); i++) {
+					identifierBuffer[i] = pseudoSequences.getSequenceID(i);
+				}
+				sink.savePattern(outputBuffer, length, pseudoSequences.size(), identifierBuffer, pseudoSequences.size());
+			}else {
+				sink.savePattern(outputBuffer, length, pseudoSequences.size());
 			}
-			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
 		}
 		// otherwise the result is kept into memory
 		else{
@@ -481,11 +699,11 @@ public class AlgoPrefixSpan{
 			
 			List<Integer> sequencesIDs = new ArrayList<Integer>(pseudoSequences.size());
 			for (int i = 0; i< pseudoSequences.size(); i++) {
-				sequencesIDs.add(pseudoSequences.get(i).sequenceID);
+				sequencesIDs.add(pseudoSequences.getSequenceID(i));
         	}
 			pattern.setSequenceIDs(sequencesIDs);
 //			System.out.println(pattern);
-			patterns.addSequence(pattern, itemsetCount);
+			addPattern(pattern, itemsetCount);
 		}
 	}
 	
@@ -497,6 +715,7 @@ public class AlgoPrefixSpan{
 	private Map<Integer, List<Integer>> findSequencesContainingItems() {
 		// number of items in the current itemset 
 		int itemCountInCurrentItemset;
+		maxItem = 0;
 		// We use a map to store the sequence IDs where an item appear
 		// Key : item   Value :  a set of sequence IDs
 		Map<Integer, List<Integer>> mapSequenceID = new HashMap<Integer, List<Integer>>(); 
@@ -529,6 +748,10 @@ public class AlgoPrefixSpan{
 					if(itemCountInCurrentItemset > 1){
 						containsItemsetsWithMultipleItems = true;
 					}
+					// remember the largest item
+					if(token > maxItem){
+						maxItem = token;
+					}
 				}else if(token == -1){
 					itemCountInCurrentItemset = 0;
 				}
@@ -540,14 +763,15 @@ public class AlgoPrefixSpan{
 	
 	/**
 	 * Create a projected database by pseudo-projection with the initial database and a given item.
+	 * The projected database is stored in the arrays of the first depth of the arena.
 	 * @param item The item to use to make the pseudo-projection
-	 * @param sequenceDatabase2 The current database.
 	 * @param list  The set of sequence ids containing the item
 	 * @return the projected database.
 	 */
-	private List<PseudoSequence> buildProjectedDatabaseSingleItems(int item, List<Integer> sequenceIDs) {
+	private ProjectedDatabase buildProjectedDatabaseSingleItems(int item, List<Integer> sequenceIDs) {
 		// We create a new projected database
-		List<PseudoSequence> projectedDatabase = new ArrayList<PseudoSequence>();
+		arena.ensureCapacity(1, sequenceIDs.size());
+		ProjectedDatabase projectedDatabase = new ProjectedDatabase(arena.getSequenceIDs(1), arena.getIndexesFirstItem(1), 0);
 
 		// for each sequence that contains the current item
 loopSeq:for(int sequenceID : sequenceIDs){ 
@@ -561,8 +785,7 @@ loopSeq:for(int sequenceID : sequenceIDs){
 				if(token == item){
 					// if it is not the end of the sequence
 					if(sequence[j+1] != -2){
-						PseudoSequence pseudoSequence = new PseudoSequence(sequenceID, j+1);
-						projectedDatabase.add(pseudoSequence);
+						projectedDatabase.add(sequenceID, j+1);
 					}
 					
 					// break because we have found what we have created the pseudosequence for the current sequence
@@ -575,14 +798,15 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	
 	/**
 	 * Create a projected database by pseudo-projection with the initial database and a given item.
+	 * The projected database is stored in the arrays of the first depth of the arena.
 	 * @param item The item to use to make the pseudo-projection
-	 * @param sequenceDatabase2 The current database.
 	 * @param list  The set of sequence ids containing the item
 	 * @return the projected database.
 	 */
-	private List<PseudoSequence> buildProjectedDatabaseFirstTimeMultipleItems(int item, List<Integer> sequenceIDs) {
+	private ProjectedDatabase buildProjectedDatabaseFirstTimeMultipleItems(int item, List<Integer> sequenceIDs) {
 		// We create a new projected database
-		List<PseudoSequence> projectedDatabase = new ArrayList<PseudoSequence>();
+		arena.ensureCapacity(1, sequenceIDs.size());
+		ProjectedDatabase projectedDatabase = new ProjectedDatabase(arena.getSequenceIDs(1), arena.getIndexesFirstItem(1), 0);
 
 		// for each sequence that contains the current item
 loopSeq:for(int sequenceID : sequenceIDs){ 
@@ -597,8 +821,7 @@ loopSeq:for(int sequenceID : sequenceIDs){
 					// if it is not the end of the sequence
 					boolean isEndOfSequence = sequence[j+1] == -1 && sequence[j+2] == -2;
 					if(isEndOfSequence == false){
-						PseudoSequence pseudoSequence = new PseudoSequence(sequenceID, j+1);
-						projectedDatabase.add(pseudoSequence);
+						projectedDatabase.add(sequenceID, j+1);
 					}
 					
 					// break because we have found what we have created the pseudosequence for the current sequence
@@ -618,51 +841,36 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
 	 * @throws IOException exception if there is an error writing to the output file
 	 */
-	private void recursionSingleItems(List<PseudoSequence> database, int k, int lastBufferPosition) throws IOException {	
-//		for(int i=0; i<= lastBufferPosition; i++){
-//			System.out.print(patternBuffer[i] + " ");
-//		}
-//		System.out.println();
-//		System.out.println("---");
-		
-		
+	private void recursionSingleItems(ProjectedDatabase database, int k, int lastBufferPosition) throws IOException {	
 		// find frequent items of size 1 in the current projected database, and at the same
 		// time create their respective projected databases
-		Map<Integer,List<PseudoSequence>> itemsPseudoSequences = findAllFrequentPairsSingleItems(database, lastBufferPosition);
+		FrequentPairs pairs = findAllFrequentPairsSingleItems(database, k);
+		
+		// in parallel mode, the extensions may be explored by separate tasks
+		List<ProjectionTask> tasks = shouldCreateTasks(database.size()) ? new ArrayList<ProjectionTask>() : null;
 		
 		// release the memory used by the database
 		database = null;
-		
-//		for(Pair pair : pairs){
-//			System.out.print(pair.item + " isPostfix? " + pair.isPostfix() + "    " );
-//			for(PseudoSequence seq: pair.getPseudoSequences()){
-//				System.out.print( seq.getOriginalSequenceID() + "," + seq.indexFirstItem + " ");
-//			}
-//			System.out.println();
-//		}
-//		System.out.println("DEBUG");
-	
-		// For each pair found (a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
-		for(Entry<Integer, List<PseudoSequence>> entry : itemsPseudoSequences.entrySet()){
-			// if the item is frequent in the current projected database
-			if(entry.getValue().size() >= minsuppAbsolute){
-
-				//Create the new pattern by appending the item as a new itemset to the sequence
-				patternBuffer[lastBufferPosition+1] = -1;
-				patternBuffer[lastBufferPosition+2] = entry.getKey();
-				
-				// save the pattern
-				savePattern(lastBufferPosition+2, entry.getValue());
-				
-				// make a recursive call
-				if( k < maximumPatternLength){
-					recursionSingleItems(entry.getValue(), k+1, lastBufferPosition+2);
-				}
+	
+		// For each frequent item (the items are sorted, and they are all
+		// appended to the prefix as a new itemset)
+		for(int i = 0; i < pairs.items.length; i++){
+			//Create the new pattern by appending the item as a new itemset to the sequence
+			patternBuffer[lastBufferPosition+1] = -1;
+			patternBuffer[lastBufferPosition+2] = pairs.items[i];
+			
+			if(tasks != null){
+				tasks.add(new ProjectionTask(patternBuffer, lastBufferPosition+2, pairs.projectedDatabases[i], k));
+			}else{
+				// save the pattern and make a recursive call
+				exploreExtension(lastBufferPosition+2, pairs.projectedDatabases[i], k);
 			}
 		}
 		
+		if(tasks != null){
+			parent.invokeTasks(tasks, taskOutput);
+		}
+		
 		// check the current memory usage
 		MemoryLogger.getInstance().checkMemory();
 	}
@@ -674,157 +882,174 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
 	 * @throws IOException exception if there is an error writing to the output file
 	 */
-	private void recursion(int[] patternBuffer, List<PseudoSequence> database, int k, int lastBufferPosition) throws IOException {	
-//		for(int i=0; i<= lastBufferPosition; i++){
-//			System.out.print(patternBuffer[i] + " ");
-//		}
-//		System.out.println();
-//		System.out.println("---");
-		
-		
+	private void recursion(int[] patternBuffer, ProjectedDatabase database, int k, int lastBufferPosition) throws IOException {	
 		// FIND FREQUENT PAIRS
 		// find frequent items of size 1 in the current projected database, and at the same
 		// time create their respective projected databases
-		// We create some maps of pairs for storing the frequent items. The following object
-		// contains two maps. The first one is for item extending the current pattern as an i-extension,
-		// while the second is for item extending the current pattern as an s-extension.
-		MapFrequentPairs mapsPairs = findAllFrequentPairs(database, lastBufferPosition);
+		// The following object contains the items extending the current pattern as an i-extension,
+		// and the items extending the current pattern as an s-extension.
+		FrequentPairs pairs = findAllFrequentPairs(database, lastBufferPosition, k);
+		
+		// in parallel mode, the extensions may be explored by separate tasks
+		List<ProjectionTask> tasks = shouldCreateTasks(database.size()) ? new ArrayList<ProjectionTask>() : null;
 		
 		// release the memory used by the database
 		database = null;
-		
-//		for(Pair pair : pairs){
-//			System.out.print(pair.item + " isPostfix? " + pair.isPostfix() + "    " );
-//			for(PseudoSequence seq: pair.getPseudoSequences()){
-//				System.out.print( seq.getOriginalSequenceID() + "," + seq.indexFirstItem + " ");
-//			}
-//			System.out.println();
-//		}
-//		System.out.println("DEBUG");
-	
-		// For each pair found that is in a postfix itemset(a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
-		for(Entry<Pair,Pair> entry : mapsPairs.mapPairsInPostfix.entrySet()){
-			Pair pair = entry.getKey();
+	
+		// For each frequent item that is in a postfix itemset
+		for(int i = 0; i < pairs.itemsInPostfix.length; i++){
+			int newBuferPosition = lastBufferPosition;
+			// we append it to the last itemset of the prefix
+			newBuferPosition++;
+			patternBuffer[newBuferPosition] = pairs.itemsInPostfix[i];
 			
-			// if the item is frequent in the current projected database
-			if(pair.getCount() >= minsuppAbsolute){
-
-				int newBuferPosition = lastBufferPosition;
-				// we append it to the last itemset of the prefix
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-				
-				// save the pattern
-				savePattern(newBuferPosition, pair.getPseudoSequences());
-				
-				// make a recursive call
-				if( k < maximumPatternLength){
-					recursion(patternBuffer, pair.getPseudoSequences(), k+1, newBuferPosition);
-				}
+			if(tasks != null){
+				tasks.add(new ProjectionTask(patternBuffer, newBuferPosition, pairs.projectedDatabasesInPostfix[i], k));
+			}else{
+				// save the pattern and make a recursive call
+				exploreExtension(newBuferPosition, pairs.projectedDatabasesInPostfix[i], k);
 			}
 		}
 		
-		// For each pair found representing an item that is not in a postfix
-		for(Entry<Pair,Pair> entry : mapsPairs.mapPairs.entrySet()){
-			Pair pair = entry.getKey();
-			// if the item is frequent in the current projected database
-			if(pair.getCount() >= minsuppAbsolute){
-
-				int newBuferPosition = lastBufferPosition;
-				// we append it to the last itemset of the prefix
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = -1;
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-				
-				// save the pattern
-				savePattern(newBuferPosition, pair.getPseudoSequences());
-				
-				// make a recursive call
-				if( k < maximumPatternLength){
-					recursion(patternBuffer, pair.getPseudoSequences(), k+1, newBuferPosition);
-				}
+		// For each frequent item that is not in a postfix
+		for(int i = 0; i < pairs.items.length; i++){
+			int newBuferPosition = lastBufferPosition;
+			// we append it to the prefix as a new itemset
+			newBuferPosition++;
+			patternBuffer[newBuferPosition] = -1;
+			newBuferPosition++;
+			patternBuffer[newBuferPosition] = pairs.items[i];
+			
+			if(tasks != null){
+				tasks.add(new ProjectionTask(patternBuffer, newBuferPosition, pairs.projectedDatabases[i], k));
+			}else{
+				// save the pattern and make a recursive call
+				exploreExtension(newBuferPosition, pairs.projectedDatabases[i], k);
 			}
 		}
 		
+		if(tasks != null){
+			parent.invokeTasks(tasks, taskOutput);
+		}
+		
 		// check the current memory usage
 		MemoryLogger.getInstance().checkMemory();
 	}
 	
 	/**
-	 * Method to find all frequent items in a projected sequence database
+	 * This class contains the frequent items of a projected database with their projected databases,
+	 * whether they appear in a postfix itemset or a normal itemset. The items are sorted.
+	 */
+	public class FrequentPairs{
+		/** the frequent items in normal itemsets and their projected databases */
+		int[] items;
+		ProjectedDatabase[] projectedDatabases;
+		/** the frequent items in postfix itemsets and their projected databases */
+		int[] itemsInPostfix = new int[0];
+		ProjectedDatabase[] projectedDatabasesInPostfix = new ProjectedDatabase[0];
+	};
+	
+	/**
+	 * Method to find all frequent items in a projected sequence database, and create their
+	 * projected databases in the arrays of the arena for the given depth. The database is scanned twice:
+	 * the first scan counts the support of the items, and the second scan only creates the projected
+	 * databases of the frequent items.
 	 * @param sequences  the set of sequences
-	 * @param patternBuffer  the current sequential pattern that we want to try to grow
-	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
-	 * @return A list of pairs, where a pair is an item with (1) a boolean indicating if it
-	 *         is in an itemset that is "cut" and (2) the sequence IDs where it occurs.
+	 * @param depth the depth of the projected databases that are created
+	 * @return the frequent items with their projected databases
 	 */
-	protected Map<Integer,List<PseudoSequence>>  findAllFrequentPairsSingleItems(List<PseudoSequence> sequences, int lastBufferPosition){
-		// We use a Map the store the pairs.
-		Map<Integer,List<PseudoSequence>>  mapItemsPseudoSequences = new HashMap<Integer,List<PseudoSequence>>();
-
+	protected FrequentPairs findAllFrequentPairsSingleItems(ProjectedDatabase sequences, int depth){
+		// first scan: count the support of each item
 		// for each sequence
-		for(PseudoSequence pseudoSequence : sequences){
-			
-			// for each sequence
-			int sequenceID = pseudoSequence.getOriginalSequenceID();
+		for(int k = 0; k < sequences.size(); k++){
+			int sequenceID = sequences.getSequenceID(k);
 			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
 			
 			// for each token in this sequence 
-			for(int i = pseudoSequence.indexFirstItem;  sequence[i] != -2 ; i++){
+			for(int i = sequences.getIndexFirstItem(k);  sequence[i] != -2 ; i++){
 				int token = sequence[i];
-				
 				// if it is an item
 				if(token > 0){
-					// get the pair object stored in the map if there is one already
-					List<PseudoSequence> listSequences = mapItemsPseudoSequences.get(token);
-					// if there is no pair object yet
-					if(listSequences == null){
-						listSequences = new ArrayList<PseudoSequence>();
-						// store the pair object that we created
-						mapItemsPseudoSequences.put(token, listSequences);
-					}
-					
-					// Check if that sequence as already been added to the projected database of this item
-					boolean ok = true;
-					if(listSequences.size() > 0){
-						ok = listSequences.get(listSequences.size() - 1).sequenceID != sequenceID;
-					}
-					// if not we add it
-					if(ok){
-						listSequences.add(new PseudoSequence(sequenceID, i+1));
+					itemSupportTable.count(token, sequenceID);
+				}
+			}
+		}
+		
+		// create the (empty) projected databases of the frequent items
+		FrequentPairs pairs = new FrequentPairs();
+		pairs.items = itemSupportTable.getFrequentItems(minsuppAbsolute);
+		arena.ensureCapacity(depth, itemSupportTable.getFrequentItemsSupport());
+		pairs.projectedDatabases = itemSupportTable.createProjectedDatabases(pairs.items,
+				arena.getSequenceIDs(depth), arena.getIndexesFirstItem(depth), 0);
+		
+		// second scan: add each sequence to the projected databases of the frequent items that it contains
+		if(pairs.items.length > 0){
+			for(int k = 0; k < sequences.size(); k++){
+				int sequenceID = sequences.getSequenceID(k);
+				int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
+				
+				for(int i = sequences.getIndexFirstItem(k);  sequence[i] != -2 ; i++){
+					int token = sequence[i];
+					if(token > 0){
+						itemSupportTable.add(token, sequenceID, i+1);
 					}
 				}
 			}
 		}
+		itemSupportTable.clear();
+		
 		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
-		// return the map of pairs
-		return mapItemsPseudoSequences;
+		// return the frequent items
+		return pairs;
 	}
-	
-	
-	/**
-	 * This class contains two maps, which are used for counting the
-	 * frequencies of items, whether in a postfix itemset or a normal itemset.
-	 */
-	public class MapFrequentPairs{
-	    public final Map<Pair, Pair>  mapPairs = new HashMap<Pair, Pair>();
-	    public final Map<Pair, Pair>  mapPairsInPostfix = new HashMap<Pair, Pair>();
-	};
 
 	/**
-	 * Method to find all frequent items in a projected sequence database
+	 * Method to find all frequent items in a projected sequence database, and create their
+	 * projected databases in the arrays of the arena for the given depth. The database is scanned twice:
+	 * the first scan counts the support of the items, and the second scan only creates the projected
+	 * databases of the frequent items.
 	 * @param sequences  the set of sequences
 	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
-	 * @return A list of pairs, where a pair is an item with (1) a boolean indicating if it
-	 *         is in an itemset that is "cut" and (2) the sequence IDs where it occurs.
+	 * @param depth the depth of the projected databases that are created
+	 * @return the frequent items (whether they are in a postfix itemset or not) with their projected databases
 	 */
-	protected MapFrequentPairs findAllFrequentPairs(List<PseudoSequence> sequences, int lastBufferPosition){
-		// We use an object containing two maps the store the pairs.
-		MapFrequentPairs mapsPairs = new MapFrequentPairs();
+	protected FrequentPairs findAllFrequentPairs(ProjectedDatabase sequences, int lastBufferPosition, int depth){
+		// first scan: count the support of each item
+		scanPairs(sequences, lastBufferPosition, false);
+		
+		// create the (empty) projected databases of the frequent items
+		FrequentPairs pairs = new FrequentPairs();
+		pairs.itemsInPostfix = postfixItemSupportTable.getFrequentItems(minsuppAbsolute);
+		pairs.items = itemSupportTable.getFrequentItems(minsuppAbsolute);
+		int postfixSupport = postfixItemSupportTable.getFrequentItemsSupport();
+		arena.ensureCapacity(depth, postfixSupport + itemSupportTable.getFrequentItemsSupport());
+		int[] sequenceIDs = arena.getSequenceIDs(depth);
+		int[] indexesFirstItem = arena.getIndexesFirstItem(depth);
+		pairs.projectedDatabasesInPostfix = postfixItemSupportTable.createProjectedDatabases(pairs.itemsInPostfix,
+				sequenceIDs, indexesFirstItem, 0);
+		pairs.projectedDatabases = itemSupportTable.createProjectedDatabases(pairs.items,
+				sequenceIDs, indexesFirstItem, postfixSupport);
 		
+		// second scan: add each sequence to the projected databases of the frequent items that it contains
+		if(pairs.itemsInPostfix.length > 0 || pairs.items.length > 0){
+			scanPairs(sequences, lastBufferPosition, true);
+		}
+		postfixItemSupportTable.clear();
+		itemSupportTable.clear();
+		
+		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
+		// return the frequent items
+		return pairs;
+	}
+	
+	/**
+	 * Scan a projected database to count the items (whether they are in a postfix itemset or not), 
+	 * or to add the sequences to the projected databases of the frequent items.
+	 * @param sequences  the set of sequences
+	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
+	 * @param addSequences false to count the items, true to add the sequences to the projected databases
+	 */
+	private void scanPairs(ProjectedDatabase sequences, int lastBufferPosition, boolean addSequences){
 		// find the position of the first item of the last itemset of the current sequential pattern that is grown
 		int firstPositionOfLastItemsetInBuffer = lastBufferPosition;
 		while(lastBufferPosition >0){
@@ -839,85 +1064,44 @@ loopSeq:for(int sequenceID : sequenceIDs){
 		int positionToBeMatched = firstPositionOfLastItemsetInBuffer;
 		
 		// for each sequence
-		for(PseudoSequence pseudoSequence : sequences){
+		for(int k = 0; k < sequences.size(); k++){
 			
 			// for each sequence
-			int sequenceID = pseudoSequence.getOriginalSequenceID();
+			int sequenceID = sequences.getSequenceID(k);
 			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
+			int indexFirstItem = sequences.getIndexFirstItem(k);
 			
 			// check if the first itemset of that sequence is a postfix
 			// It is a postfix (the itemset is cut) if the previous item is a -1 indicating
 			// the end of an itemset
-			int previousItem = sequence[pseudoSequence.indexFirstItem - 1];
+			int previousItem = sequence[indexFirstItem - 1];
 			boolean currentItemsetIsPostfix = (previousItem != - 1);
 			boolean isFirstItemset = true;
 			
 			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
-			for(int i = pseudoSequence.indexFirstItem;  sequence[i] != -2 ; i++){
+			for(int i = indexFirstItem;  sequence[i] != -2 ; i++){
 				int token = sequence[i];
 				
 				// if it is an item
 				if(token > 0){
 					
-					// create the pair corresponding to this item
-					Pair pair = new Pair(token);   
-					// get the pair object store in the map if there is one already
-					Pair oldPair;
-					if(currentItemsetIsPostfix){
-						oldPair = mapsPairs.mapPairsInPostfix.get(pair);
-					}else{
-						oldPair = mapsPairs.mapPairs.get(pair);
-					}
-					// if there is no pair object yet
-					if(oldPair == null){
-						// store the pair object that we created
-						if(currentItemsetIsPostfix){
-							mapsPairs.mapPairsInPostfix.put(pair, pair);
-						}else{
-							mapsPairs.mapPairs.put(pair, pair);
-						}
+					// count the item or add the sequence to its projected database
+					ItemSupportTable table = currentItemsetIsPostfix ? postfixItemSupportTable : itemSupportTable;
+					if(addSequences){
+						table.add(token, sequenceID, i+1);
 					}else{
-						// otherwise use the old one
-						pair = oldPair;
-					}
-					
-					// Check if that sequence as already been added to the projected database of this item
-					boolean ok = true;
-					if(pair.getPseudoSequences().size() > 0){
-						ok = pair.getPseudoSequences().get(pair.getPseudoSequences().size() - 1).sequenceID != sequenceID;
-					}
-					// if not we add it
-					if(ok){
-						pair.getPseudoSequences().add(new PseudoSequence(sequenceID, i+1));
+						table.count(token, sequenceID);
 					}
 					
 					///////// ====== IMPORTANT =========
 					// if the current itemset is a postfix and it is not the first itemset
 					// we must also consider that it may not be a postfix for extending the current prefix
 					if(currentItemsetIsPostfix && isFirstItemset == false){
-						// create the pair corresponding to this item
-						 pair = new Pair(token);     // FALSE !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
-						// get the pair object store in the map if there is one already
-						 oldPair = mapsPairs.mapPairs.get(pair);
-						// if there is no pair object yet
-						if(oldPair == null){
-							// store the pair object that we created
-							mapsPairs.mapPairs.put(pair, pair);
+						if(addSequences){
+							itemSupportTable.add(token, sequenceID, i+1);
 						}else{
-							// otherwise use the old one
-							pair = oldPair;
-						}
-						
-						// Check if that sequence as already been added to the projected database of this item
-						ok = true;
-						if(pair.getPseudoSequences().size() > 0){
-							ok = pair.getPseudoSequences().get(pair.getPseudoSequences().size() - 1).sequenceID != sequenceID;
-						}
-						// if not we add it
-						if(ok){
-							pair.getPseudoSequences().add(new PseudoSequence(sequenceID, i+1));
+							itemSupportTable.count(token, sequenceID);
 						}
-						
 					}
 					//////////////////////////////////////////////////////////
 
@@ -937,9 +1121,6 @@ loopSeq:for(int sequenceID : sequenceIDs){
 				}
 			}
 		}
-		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
-		// return the map of pairs
-		return mapsPairs;
 	}
 
 	/**
@@ -993,5 +1174,215 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	public void setShowSequenceIdentifiers(boolean showSequenceIdentifiers) {
 		this.showSequenceIdentifiers = showSequenceIdentifiers;
 	}
+	
+	/**
+	 * Set the number of threads used to explore the projected databases (by default, 1).
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1){
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Set if the patterns should be saved in the same order as with a single thread when
+	 * several threads are used (by default, false).
+	 * @param deterministicOutput true to save the patterns in a deterministic order
+	 */
+	public void setDeterministicOutput(boolean deterministicOutput) {
+		this.deterministicOutput = deterministicOutput;
+	}
+	
+	/**
+	 * Keep a pattern into memory (or with the patterns of the current task in parallel mode).
+	 * @param pattern the pattern
+	 * @param itemsetCount the number of itemsets of the pattern
+	 */
+	private void addPattern(SequentialPattern pattern, int itemsetCount) {
+		if(taskOutput != null){
+			addTaskPattern(new TaskPattern(pattern, itemsetCount));
+		}else{
+			patterns.addSequence(pattern, itemsetCount);
+		}
+	}
+	
+	/**
+	 * Add a pattern to the patterns of the current task (in parallel mode).
+	 * If the output is not deterministic, the patterns are saved when there are many of them.
+	 * @param pattern the pattern
+	 */
+	private void addTaskPattern(TaskPattern pattern) {
+		taskOutput.add(pattern);
+		if(!parent.deterministicOutput && taskOutput.size() >= TASK_OUTPUT_BUFFER_SIZE) {
+			parent.writeTaskOutput(taskOutput);
+		}
+	}
+	
+	/**
+	 * Save the patterns found by a task to the sink or memory (in parallel mode).
+	 * @param taskPatterns the patterns (the list is cleared)
+	 */
+	private synchronized void writeTaskOutput(List<TaskPattern> taskPatterns) {
+		try {
+			for(TaskPattern taskPattern : taskPatterns) {
+				patternCount++;
+				if(taskPattern.sequentialPattern != null) {
+					patterns.addSequence(taskPattern.sequentialPattern, taskPattern.itemsetCount);
+				}else if(taskPattern.sequenceIDs != null) {
+					sink.savePattern(taskPattern.pattern, taskPattern.pattern.length, taskPattern.support,
+							taskPattern.sequenceIDs, taskPattern.sequenceIDs.length);
+				}else {
+					sink.savePattern(taskPattern.pattern, taskPattern.pattern.length, taskPattern.support);
+				}
+			}
+		}catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		taskPatterns.clear();
+	}
+	
+	/**
+	 * A task exploring a frequent item or an extension of a prefix, in parallel mode.
+	 * It uses the copy of the AlgoPrefixSpan object of the current thread, with its own pattern buffer.
+	 * The task can be created by the AlgoPrefixSpan object running the algorithm or by one of its copies.
+	 */
+	private class ProjectionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the pattern (the prefix followed by the extension) */
+		private final int[] pattern;
+		/** the last position of the pattern */
+		private final int lastBufferPosition;
+		/** the projected database of the pattern (null for an item) */
+		private final transient ProjectedDatabase pseudoSequences;
+		/** the sequences containing the item (null for an extension) */
+		private final transient List<Integer> sequenceIDs;
+		/** the prefix length in terms of items */
+		private final int k;
+		/** the patterns found by this task that have not been saved yet */
+		final transient List<TaskPattern> output = new ArrayList<TaskPattern>();
+		
+		/**
+		 * Constructor of a task exploring a frequent item
+		 * @param item the item
+		 * @param sequenceIDs the sequences containing the item
+		 */
+		ProjectionTask(int item, List<Integer> sequenceIDs) {
+			this.pattern = new int[] {item};
+			this.lastBufferPosition = 0;
+			this.pseudoSequences = null;
+			this.sequenceIDs = sequenceIDs;
+			this.k = 1;
+		}
+		
+		/**
+		 * Constructor of a task exploring an extension of a prefix
+		 * @param patternBuffer the buffer containing the pattern (it is copied)
+		 * @param lastBufferPosition the last position of the pattern in the buffer
+		 * @param pseudoSequences the projected database of the pattern (it is copied)
+		 * @param k the prefix length in terms of items
+		 */
+		ProjectionTask(int[] patternBuffer, int lastBufferPosition, ProjectedDatabase pseudoSequences, int k) {
+			this.pattern = Arrays.copyOf(patternBuffer, lastBufferPosition + 1);
+			this.lastBufferPosition = lastBufferPosition;
+			// the projected database is copied since the arrays of the current thread will be reused
+			this.pseudoSequences = pseudoSequences.copy();
+			this.sequenceIDs = null;
+			this.k = k;
+		}
+		
+		@Override
+		protected void compute() {
+			// the task may be created by the object running the algorithm or by a copy
+			AlgoPrefixSpan root = (parent == null) ? AlgoPrefixSpan.this : parent;
+			AlgoPrefixSpan worker = root.threadWorker.get();
+			// this thread may execute this task while another task waits for its subtasks,
+			// so the pattern buffer, the projected databases and the patterns of that other task are restored afterward
+			List<TaskPattern> previousOutput = worker.taskOutput;
+			int[] previousBuffer = worker.patternBuffer;
+			ProjectedDatabaseArena previousArena = worker.arena;
+			worker.taskOutput = output;
+			worker.patternBuffer = Arrays.copyOf(pattern, BUFFERS_SIZE);
+			worker.arena = previousArena.getNestedArena();
+			try {
+				if(sequenceIDs != null) {
+					worker.exploreItem(pattern[0], sequenceIDs);
+				}else {
+					worker.exploreExtension(lastBufferPosition, pseudoSequences, k);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				worker.taskOutput = previousOutput;
+				worker.patternBuffer = previousBuffer;
+				worker.arena = previousArena;
+			}
+			if(!root.deterministicOutput) {
+				root.writeTaskOutput(output);
+			}
+		}
+	}
+	
+	/**
+	 * A pattern found by a task that has not been saved yet (in parallel mode).
+	 * It is either a pattern for the sink or a pattern kept into memory.
+	 */
+	private static class TaskPattern {
+		/** the pattern for the sink */
+		int[] pattern;
+		/** the support of the pattern for the sink */
+		long support;
+		/** the identifiers of the sequences containing the pattern for the sink (or null) */
+		int[] sequenceIDs;
+		/** the pattern kept into memory */
+		SequentialPattern sequentialPattern;
+		/** the number of itemsets of the pattern kept into memory */
+		int itemsetCount;
+		
+		/**
+		 * Constructor of a pattern for the sink
+		 */
+		TaskPattern(int[] pattern, long support, int[] sequenceIDs) {
+			this.pattern = pattern;
+			this.support = support;
+			this.sequenceIDs = sequenceIDs;
+		}
+		
+		/**
+		 * Constructor of a pattern kept into memory
+		 */
+		TaskPattern(SequentialPattern sequentialPattern, int itemsetCount) {
+			this.sequentialPattern = sequentialPattern;
+			this.itemsetCount = itemsetCount;
+		}
+	}
+	
+	/**
+	 * The sink of a copy of the algorithm used by a thread, which adds the patterns
+	 * to the patterns of the current task (in parallel mode).
+	 */
+	private class TaskSink implements PatternSink {
+		
+		@Override
+		public void savePattern(int[] pattern, int length, long measure) {
+			addTaskPattern(new TaskPattern(Arrays.copyOf(pattern, length), measure, null));
+		}
+		
+		@Override
+		public void savePattern(int[] pattern, int length, long measure, int[] identifiers, int identifierCount) {
+			addTaskPattern(new TaskPattern(Arrays.copyOf(pattern, length), measure,
+					Arrays.copyOf(identifiers, identifierCount)));
+		}
+		
+		@Override
+		public long getPatternCount() {
+			return taskOutput.size();
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
 
 }
@@ -0,0 +1,167 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.util.Arrays;
+
+/**
+ * This class counts the support of items in a projected database, in arrays indexed by items,
+ * and then builds the projected databases of the frequent items. It is used by PrefixSpan and BIDE+
+ * in two scans of a projected database. In the first scan, count() is called for each item
+ * occurrence. Then, the frequent items are obtained with getFrequentItems() and their projected
+ * databases are created with createProjectedDatabases(). In the second scan, add() is called for
+ * each item occurrence. Finally, clear() prepares the table for the next projected database.
+ * Since the infrequent items are ignored in the second scan, no memory is used for their projected databases.
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * @see ProjectedDatabase
+ * @see AlgoPrefixSpan
+ * @see AlgoBIDEPlus
+ */
+public class ItemSupportTable {
+
+	// the support of each item, and after calling createProjectedDatabases(), the position of the
+	// projected database of each frequent item (or -1 for an infrequent item)
+	private final int[] supports;
+
+	// the last sequence ID where each item has been found (or -1)
+	private final int[] lastSequenceIDs;
+	
+	// the items found in the current projected database
+	private int[] items = new int[16];
+	
+	// the number of items found
+	private int itemCount = 0;
+	
+	// the total support of the frequent items
+	private int frequentItemsSupport = 0;
+	
+	// the projected databases of the frequent items
+	private ProjectedDatabase[] projectedDatabases = null;
+	
+	/**
+	 * Constructor
+	 * @param maxItem the largest item
+	 */
+	public ItemSupportTable(int maxItem){
+		supports = new int[maxItem + 1];
+		lastSequenceIDs = new int[maxItem + 1];
+		Arrays.fill(lastSequenceIDs, -1);
+	}
+	
+	/**
+	 * Count an occurrence of an item (in the first scan)
+	 * @param item the item
+	 * @param sequenceID the sequence ID where it appears
+	 */
+	public void count(int item, int sequenceID) {
+		// if the item has not been counted for that sequence yet
+		if(lastSequenceIDs[item] != sequenceID) {
+			lastSequenceIDs[item] = sequenceID;
+			if(supports[item] == 0) {
+				if(itemCount == items.length) {
+					items = Arrays.copyOf(items, itemCount * 2);
+				}
+				items[itemCount++] = item;
+			}
+			supports[item]++;
+		}
+	}
+	
+	/**
+	 * Get the frequent items after the first scan
+	 * @param minsup the minimum support
+	 * @return the frequent items, sorted by increasing order
+	 */
+	public int[] getFrequentItems(int minsup) {
+		int[] frequentItems = new int[itemCount];
+		int frequentItemCount = 0;
+		frequentItemsSupport = 0;
+		for(int i = 0; i < itemCount; i++) {
+			int item = items[i];
+			// prepare for the second scan
+			lastSequenceIDs[item] = -1;
+			if(supports[item] >= minsup) {
+				frequentItems[frequentItemCount++] = item;
+				frequentItemsSupport += supports[item];
+			}else {
+				supports[item] = -1;
+			}
+		}
+		frequentItems = Arrays.copyOf(frequentItems, frequentItemCount);
+		Arrays.sort(frequentItems);
+		return frequentItems;
+	}
+	
+	/**
+	 * Get the total support of the frequent items, that is the number of pseudo-sequences
+	 * of their projected databases (after calling getFrequentItems())
+	 * @return the total support
+	 */
+	public int getFrequentItemsSupport() {
+		return frequentItemsSupport;
+	}
+	
+	/**
+	 * Create the (empty) projected databases of the frequent items. They are stored consecutively
+	 * in two arrays, which must be large enough.
+	 * @param frequentItems the frequent items
+	 * @param sequenceIDs the array for the sequence IDs
+	 * @param indexesFirstItem the array for the indexes of the first items
+	 * @param start the position of the first projected database in the arrays
+	 * @return the projected databases of the frequent items (in the same order)
+	 */
+	public ProjectedDatabase[] createProjectedDatabases(int[] frequentItems, int[] sequenceIDs, int[] indexesFirstItem, int start) {
+		projectedDatabases = new ProjectedDatabase[frequentItems.length];
+		int position = start;
+		for(int i = 0; i < frequentItems.length; i++) {
+			int item = frequentItems[i];
+			projectedDatabases[i] = new ProjectedDatabase(sequenceIDs, indexesFirstItem, position);
+			position += supports[item];
+			supports[item] = i;
+		}
+		return projectedDatabases;
+	}
+	
+	/**
+	 * Add an occurrence of an item to its projected database (in the second scan),
+	 * if the item is frequent and it was not added for that sequence yet
+	 * @param item the item
+	 * @param sequenceID the sequence ID
+	 * @param indexFirstItem the index of the first item of the pseudo-sequence (after the item)
+	 */
+	public void add(int item, int sequenceID, int indexFirstItem) {
+		int position = supports[item];
+		if(position >= 0 && lastSequenceIDs[item] != sequenceID) {
+			lastSequenceIDs[item] = sequenceID;
+			projectedDatabases[position].add(sequenceID, indexFirstItem);
+		}
+	}
+	
+	/**
+	 * Reset the table, to count the items of another projected database.
+	 */
+	public void clear() {
+		for(int i = 0; i < itemCount; i++) {
+			supports[items[i]] = 0;
+			lastSequenceIDs[items[i]] = -1;
+		}
+		itemCount = 0;
+		projectedDatabases = null;
+	}
+}
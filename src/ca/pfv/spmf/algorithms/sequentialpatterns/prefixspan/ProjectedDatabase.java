@@ -0,0 +1,118 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.util.Arrays;
+
+/**
+ * This represents a projected database (as based in PrefixSpan), that is a list of
+ * pseudo-sequences. A pseudo-sequence is a sequence of the original database (its sequence ID)
+ * and the position where it starts in that sequence. Instead of creating an object for each
+ * pseudo-sequence, the pseudo-sequences are stored in two arrays (the sequence IDs and the positions),
+ * which are usually shared by the projected databases built at the same depth of the search
+ * (see ProjectedDatabaseArena). A projected database is thus a range of these arrays.
+ * 
+ * This class is used by the PrefixSpan and BIDE+ algorithms.
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * @see ProjectedDatabaseArena
+ * @see ItemSupportTable
+ */
+public class ProjectedDatabase {
+
+	// the array containing the sequence ID of each pseudo-sequence
+	private final int[] sequenceIDs;
+
+	// the array containing the index of the first item of each pseudo-sequence in the original sequence
+	private final int[] indexesFirstItem;
+	
+	// the position of the first pseudo-sequence of this projected database in the arrays
+	private final int start;
+	
+	// the number of pseudo-sequences
+	private int size;
+	
+	/**
+	 * Create a projected database from a range of two arrays
+	 * @param sequenceIDs the array containing the sequence IDs
+	 * @param indexesFirstItem the array containing the index of the first item of each pseudo-sequence
+	 * @param start the position of the first pseudo-sequence in the arrays
+	 * @param size the number of pseudo-sequences
+	 */
+	public ProjectedDatabase(int[] sequenceIDs, int[] indexesFirstItem, int start, int size){
+		this.sequenceIDs = sequenceIDs;
+		this.indexesFirstItem = indexesFirstItem;
+		this.start = start;
+		this.size = size;
+	}
+	
+	/**
+	 * Create an empty projected database that will be filled by calling add().
+	 * @param sequenceIDs the array that will contain the sequence IDs
+	 * @param indexesFirstItem the array that will contain the index of the first item of each pseudo-sequence
+	 * @param start the position of the first pseudo-sequence in the arrays
+	 */
+	public ProjectedDatabase(int[] sequenceIDs, int[] indexesFirstItem, int start){
+		this(sequenceIDs, indexesFirstItem, start, 0);
+	}
+	
+	/**
+	 * Add a pseudo-sequence at the end of this projected database. The arrays must be large enough.
+	 * @param sequenceID the sequence ID
+	 * @param indexFirstItem the index of the first item of the pseudo-sequence in the original sequence
+	 */
+	public void add(int sequenceID, int indexFirstItem){
+		sequenceIDs[start + size] = sequenceID;
+		indexesFirstItem[start + size] = indexFirstItem;
+		size++;
+	}
+	
+	/**
+	 * Get the number of pseudo-sequences (the support of the corresponding pattern)
+	 * @return the number of pseudo-sequences
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/** Get the sequence ID of a pseudo-sequence
+	 * @param i the position of the pseudo-sequence in this projected database
+	 * @return sequence ID
+	 * */
+	public int getSequenceID(int i) {
+		return sequenceIDs[start + i];
+	}
+	
+	/** Get the index of the first item of a pseudo-sequence in the original sequence
+	 * @param i the position of the pseudo-sequence in this projected database
+	 * @return the index of the first item
+	 * */
+	public int getIndexFirstItem(int i) {
+		return indexesFirstItem[start + i];
+	}
+	
+	/**
+	 * Make a copy of this projected database that does not share its arrays
+	 * (e.g. to keep it after the arrays are reused).
+	 * @return the copy
+	 */
+	public ProjectedDatabase copy() {
+		return new ProjectedDatabase(Arrays.copyOfRange(sequenceIDs, start, start + size),
+				Arrays.copyOfRange(indexesFirstItem, start, start + size), 0, size);
+	}
+}
@@ -0,0 +1,94 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps the arrays storing the projected databases built at each depth of the
+ * depth-first search of PrefixSpan and BIDE+, so that they are reused instead of creating
+ * new pseudo-sequences for each projection. When the extensions of a prefix are explored,
+ * the projected databases of its extensions are only needed until the next prefix having
+ * the same length is extended. Thus, the arrays of a given depth are overwritten
+ * for the next prefix of that depth.
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * @see ProjectedDatabase
+ * @see AlgoPrefixSpan
+ * @see AlgoBIDEPlus
+ */
+public class ProjectedDatabaseArena {
+
+	// the sequence IDs of the pseudo-sequences of each depth
+	private int[][] sequenceIDs = new int[16][];
+	
+	// the index of the first item of the pseudo-sequences of each depth
+	private int[][] indexesFirstItem = new int[16][];
+	
+	// another arena used when the search is interrupted to explore other prefixes (e.g. by another task)
+	private ProjectedDatabaseArena nestedArena = null;
+	
+	/**
+	 * Make sure that the arrays of a given depth can store a number of pseudo-sequences.
+	 * The content of the arrays of that depth is lost.
+	 * @param depth the depth (the length of the prefixes)
+	 * @param size the number of pseudo-sequences
+	 */
+	public void ensureCapacity(int depth, int size) {
+		if(depth >= sequenceIDs.length) {
+			int length = Math.max(depth + 1, sequenceIDs.length * 2);
+			sequenceIDs = Arrays.copyOf(sequenceIDs, length);
+			indexesFirstItem = Arrays.copyOf(indexesFirstItem, length);
+		}
+		if(sequenceIDs[depth] == null || sequenceIDs[depth].length < size) {
+			int length = (sequenceIDs[depth] == null) ? Math.max(size, 16) : Math.max(size, sequenceIDs[depth].length * 2);
+			sequenceIDs[depth] = new int[length];
+			indexesFirstItem[depth] = new int[length];
+		}
+	}
+	
+	/**
+	 * Get the array of sequence IDs of a depth (ensureCapacity() must be called first)
+	 * @param depth the depth
+	 * @return the array
+	 */
+	public int[] getSequenceIDs(int depth) {
+		return sequenceIDs[depth];
+	}
+	
+	/**
+	 * Get the array of indexes of the first items of a depth (ensureCapacity() must be called first)
+	 * @param depth the depth
+	 * @return the array
+	 */
+	public int[] getIndexesFirstItem(int depth) {
+		return indexesFirstItem[depth];
+	}
+	
+	/**
+	 * Get the arena to be used while the search using this arena is interrupted, so that
+	 * the projected databases of that search are not overwritten.
+	 * @return the nested arena
+	 */
+	public ProjectedDatabaseArena getNestedArena() {
+		if(nestedArena == null) {
+			nestedArena = new ProjectedDatabaseArena();
+		}
+		return nestedArena;
+	}
+}
@@ -22,8 +22,6 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.c
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoFile;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoMemory;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 /**
@@ -128,15 +126,10 @@ public class AlgoCMSPADE {
      * @throws IOException
      */
     public void runAlgorithm(SequenceDatabase database, CandidateGenerator candidateGenerator, boolean keepPatterns, boolean verbose, String outputFilePath, boolean outputSequenceIdentifiers) throws IOException {
-    	
-    	//If we do no have any file path
-        if (outputFilePath == null) {
-            //The user wants to save the results in memory
-            saver = new SaverIntoMemory(outputSequenceIdentifiers);
-        } else {
-            //Otherwise, the user wants to save them in the given file
-            saver = new SaverIntoFile(outputFilePath, outputSequenceIdentifiers);
-        }
+        /* The saver of the run keeps the results in memory if we do not have
+         * any file path, otherwise it saves them in the given file
+         */
+        saver = database.getRunContext().createSaver(outputFilePath, outputSequenceIdentifiers);
         this.minSupAbsolute = (int) Math.ceil(minSupRelative * database.size());
 //        this.minSupRelative = minSup; // PFV-2013
 //        		(int) (database.size() * minSup);
@@ -177,14 +170,10 @@ public class AlgoCMSPADE {
      */
     public void runAlgorithmParallelized(SequenceDatabase database, CandidateGenerator candidateGenerator, boolean keepPatterns, boolean verbose, String outputFilePath, boolean outputSequenceIdentifiers) throws IOException {
 
-    	//If we do no have any file path
-        if (outputFilePath == null) {
-            //The user wants to save the results in memory
-            saver = new SaverIntoMemory(outputSequenceIdentifiers);
-        } else {
-            //Otherwise, the user wants to save them in the given file
-            saver = new SaverIntoFile(outputFilePath,outputSequenceIdentifiers);
-        }
+        /* The saver of the run keeps the results in memory if we do not have
+         * any file path, otherwise it saves them in the given file
+         */
+        saver = database.getRunContext().createSaver(outputFilePath, outputSequenceIdentifiers);
         this.minSupAbsolute = (int) Math.ceil(minSupRelative * database.size());
         if (this.minSupAbsolute == 0) { // protection
             this.minSupAbsolute = 1;
@@ -340,7 +329,7 @@ public class AlgoCMSPADE {
          * finally found
          */
         numberOfFrequentPatterns = frequentPatternEnumeration.getFrequentPatterns();
-        intersectionCounter = frequentPatternEnumeration.INTERSECTION_COUNTER;
+        intersectionCounter = frequentPatternEnumeration.getIntersectionCount();
         // check the memory usage for statistics
         MemoryLogger.getInstance().checkMemory();
     }
@@ -527,6 +516,7 @@ public class AlgoCMSPADE {
         saver.savePatterns(size2Sequences);
 
         numberOfFrequentPatterns = size1Sequences.size() + size2Sequences.size();
+        intersectionCounter = 0;
         size2EquivalenceClasses = null;
         database = null;
 
@@ -561,8 +551,11 @@ public class AlgoCMSPADE {
         } catch (Exception e) {
             System.err.println("Problems with the concurrency!!");
         }
-        FrequentPatternEnumeration fpe = new FrequentPatternEnumeration(candidateGenerator, minSupAbsolute, saver);
-        numberOfFrequentPatterns += fpe.getFrequentPatterns();
+        // The patterns found by each equivalence class are added to the total
+        for (FrequentPatternEnumeration frequentPatternEnumeration : enumerates) {
+            numberOfFrequentPatterns += frequentPatternEnumeration.getFrequentPatterns();
+            intersectionCounter += frequentPatternEnumeration.getIntersectionCount();
+        }
 
         // check the memory usage for statistics
         MemoryLogger.getInstance().checkMemory();
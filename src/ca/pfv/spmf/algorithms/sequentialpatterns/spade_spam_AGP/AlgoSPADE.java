@@ -17,8 +17,6 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.c
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoFile;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoMemory;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 /**
@@ -120,14 +118,10 @@ public class AlgoSPADE {
      * @throws IOException
      */
     public void runAlgorithm(SequenceDatabase database, CandidateGenerator candidateGenerator, boolean keepPatterns, boolean verbose, String outputFilePath, boolean outputSequenceIdentifiers) throws IOException {
-        //If we do no have any file path
-        if (outputFilePath == null) {
-            //The user wants to save the results in memory
-            saver = new SaverIntoMemory(outputSequenceIdentifiers);
-        } else {
-            //Otherwise, the user wants to save them in the given file
-            saver = new SaverIntoFile(outputFilePath, outputSequenceIdentifiers);
-        }
+        /* The saver of the run keeps the results in memory if we do not have
+         * any file path, otherwise it saves them in the given file
+         */
+        saver = database.getRunContext().createSaver(outputFilePath, outputSequenceIdentifiers);
         //this.minSupRelative = minSup; // PFV 2013
 		this.minSupRelative = (int) Math.ceil(database.size() * minSup);
         if (this.minSupRelative == 0) { // protection
@@ -166,14 +160,10 @@ public class AlgoSPADE {
      * @throws IOException
      */
     public void runAlgorithmParallelized(SequenceDatabase database, CandidateGenerator candidateGenerator, boolean keepPatterns, boolean verbose, String outputFilePath, boolean outputSequenceIdentifiers) throws IOException {
-        //If we do no have any file path
-        if (outputFilePath == null) {
-            //The user wants to save the results in memory
-            saver = new SaverIntoMemory(outputSequenceIdentifiers);
-        } else {
-            //Otherwise, the user wants to save them in the given file
-            saver = new SaverIntoFile(outputFilePath,outputSequenceIdentifiers);
-        }
+        /* The saver of the run keeps the results in memory if we do not have
+         * any file path, otherwise it saves them in the given file
+         */
+        saver = database.getRunContext().createSaver(outputFilePath, outputSequenceIdentifiers);
         this.minSupRelative = (int) Math.ceil(minSup * database.size());
         //this.minSupRelative = (int) (database.size() * minSup);
         if (this.minSupRelative == 0) { // protection
@@ -248,7 +238,7 @@ public class AlgoSPADE {
         // check the memory usage for statistics
         MemoryLogger.getInstance().checkMemory();
 
-		joinCount = frequentPatternEnumeration.INTERSECTION_COUNTER;
+		joinCount = frequentPatternEnumeration.getIntersectionCount();
     }
 
     /**
@@ -478,6 +468,7 @@ public class AlgoSPADE {
         saver.savePatterns(size2Sequences);
 
         numberOfFrequentPatterns = size1Sequences.size() + size2Sequences.size();
+        joinCount = 0;
         size2EquivalenceClasses = null;
         database = null;
 
@@ -512,8 +503,11 @@ public class AlgoSPADE {
         } catch (Exception e) {
             System.err.println("Problems with the concurrency!!");
         }
-        FrequentPatternEnumeration fpe = new FrequentPatternEnumeration(candidateGenerator, minSup, saver);
-        numberOfFrequentPatterns += fpe.getFrequentPatterns();
+        // The patterns found by each equivalence class are added to the total
+        for (FrequentPatternEnumeration frequentPatternEnumeration : enumerates) {
+            numberOfFrequentPatterns += frequentPatternEnumeration.getFrequentPatterns();
+            joinCount += frequentPatternEnumeration.getIntersectionCount();
+        }
             
         // check the memory usage for statistics
         MemoryLogger.getInstance().checkMemory();
@@ -25,8 +25,6 @@ import java.util.List;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoFile;
-import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoMemory;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 /**
@@ -96,14 +94,10 @@ public class AlgoSPAM_AGP {
      * @throws IOException
      */
     public void runAlgorithm(SequenceDatabase database, boolean keepPatterns, boolean verbose, String outputFilePath, boolean outputSequenceIdentifiers) throws IOException {
-        //If we do no have any file path
-        if (outputFilePath == null) {
-            //The user wants to save the results in memory
-            saver = new SaverIntoMemory(outputSequenceIdentifiers);
-        } else {
-            //Otherwise, the user wants to save them in the given file
-            saver = new SaverIntoFile(outputFilePath,outputSequenceIdentifiers);
-        }
+        /* The saver of the run keeps the results in memory if we do not have
+         * any file path, otherwise it saves them in the given file
+         */
+        saver = database.getRunContext().createSaver(outputFilePath, outputSequenceIdentifiers);
 
         this.minSupAbsolute = (int) Math.ceil(minSupRelative * database.size());
         if (this.minSupAbsolute == 0) { // protection
@@ -131,6 +125,8 @@ public class AlgoSPAM_AGP {
      */
     protected void runSPAM(SequenceDatabase database, long minSupportAbsolute, boolean keepPatterns, boolean verbose) {
 
+        //We get the context of the run, whose creators and saver are used by the search
+        RunContext context = database.getRunContext();
         //We get the equivalence classes formed by the frequent 1-patterns
         frequentItems = database.frequentItems();
         //We extract their patterns
@@ -154,7 +150,7 @@ public class AlgoSPAM_AGP {
         }
         
         //Inizialitation of the class that is in charge of find the frequent patterns
-        FrequentPatternEnumeration_SPAM frequentPatternEnumeration = new FrequentPatternEnumeration_SPAM(minSupAbsolute, saver);
+        FrequentPatternEnumeration_SPAM frequentPatternEnumeration = new FrequentPatternEnumeration_SPAM(minSupAbsolute, context);
         //We execute the search
         frequentPatternEnumeration.execute(rootClass, keepPatterns, verbose);
 
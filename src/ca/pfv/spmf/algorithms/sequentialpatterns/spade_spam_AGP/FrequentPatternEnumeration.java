@@ -53,8 +53,11 @@ public class FrequentPatternEnumeration {
      * Number of frequent patterns found by the algorithm. Initially set to
      * zero.
      */
-    private static int frequentPatterns = 0;
-    public static int INTERSECTION_COUNTER = 0;
+    private int frequentPatterns = 0;
+    /**
+     * Number of joins of IdLists done by this object
+     */
+    private int intersectionCount = 0;
     /**
      * Saver variable to decide where the user want to save the results, if it
      * the case
@@ -70,7 +73,6 @@ public class FrequentPatternEnumeration {
      * results, if it the case
      */
     public FrequentPatternEnumeration(CandidateGenerator candidateGenerator, double minSupportAbsolute, Saver saver) {
-        INTERSECTION_COUNTER = 0;
         this.candidateGenerator = candidateGenerator;
         this.minSupportAbsolute = minSupportAbsolute;
         this.saver = saver;
@@ -154,7 +156,7 @@ public class FrequentPatternEnumeration {
                 //For each candidate generated
                 for (Pattern extension : extensions) {
                     IDList newIdList = candidateGenerator.join(extension, child_X, child_Y, (int) minSupportAbsolute);
-                    INTERSECTION_COUNTER++;
+                    intersectionCount++;
                     //If the the pattern is frequent
                     if (newIdList != null && newIdList.getSupport() >= minSupportAbsolute) {
                         //we activated the flag
@@ -247,22 +249,34 @@ public class FrequentPatternEnumeration {
     }
 
     public void setFrequentPatterns(int patronesFrecuentes) {
-        FrequentPatternEnumeration.frequentPatterns = patronesFrecuentes;
+        this.frequentPatterns = patronesFrecuentes;
+    }
+
+    /**
+     * It returns the number of joins of IdLists done by this object.
+     *
+     * @return the number of joins
+     */
+    public int getIntersectionCount() {
+        return intersectionCount;
     }
 
     /**
      * Increase the number of frequent patterns
      */
-    private synchronized static void increaseFrequentPatterns() {
+    private synchronized void increaseFrequentPatterns() {
         frequentPatterns++;
     }
 
     /**
-     * Keep the pattern given as a parameter.
+     * Keep the pattern given as a parameter. The saver can be shared by the
+     * objects of this class that run in parallel.
      *
      * @param pattern The pattern that we want to keep.
      */
-    private synchronized void keepPattern(Pattern pattern) {
-        saver.savePattern(pattern);
+    private void keepPattern(Pattern pattern) {
+        synchronized (saver) {
+            saver.savePattern(pattern);
+        }
     }
 }
\ No newline at end of file
@@ -54,6 +54,10 @@ public class FrequentPatternEnumeration_SPAM{
      * The pattern creator.
      */
     private final PatternCreator patternCreator;
+    /**
+     * The creator of the pairs <item,abstraction> of the i-extensions.
+     */
+    private final ItemAbstractionPairCreator pairCreator;
     /**
      * Saver variable to decide where the user want to save the results, if it
      * the case
@@ -69,9 +73,23 @@ public class FrequentPatternEnumeration_SPAM{
     public FrequentPatternEnumeration_SPAM(double minSupportAbsolute, Saver saver) {
         this.minSupportAbsolute = minSupportAbsolute;
         this.patternCreator = PatternCreator.getInstance();
+        this.pairCreator = ItemAbstractionPairCreator.getInstance();
         this.saver=saver;
     }
 
+    /**
+     * Constructor of the class that uses the creators and the saver of a run
+     * context.
+     * @param minSupportAbsolute The absolute minimum support  threshold
+     * @param context The context of the run
+     */
+    public FrequentPatternEnumeration_SPAM(double minSupportAbsolute, RunContext context) {
+        this.minSupportAbsolute = minSupportAbsolute;
+        this.patternCreator = context.getPatternCreator();
+        this.pairCreator = context.getPairCreator();
+        this.saver = context.getSaver();
+    }
+
     /**
      * Execution of the search of frequent patterns.
      * @param equivalenceClass The equivalence class from we start to search for.
@@ -203,7 +221,7 @@ public class FrequentPatternEnumeration_SPAM{
             //We create a new pattern with the elements of the current class identifier
             Pattern extension = patternCreator.createPattern(new ArrayList<ItemAbstractionPair>(clone.getElements()));
             //And we add it the current item of itemset extension set
-            ItemAbstractionPair newPair = ItemAbstractionPairCreator.getInstance().getItemAbstractionPair(eq.getClassIdentifier().getLastElement().getItem(), AbstractionCreator_Qualitative.getInstance().createAbstraction(true));
+            ItemAbstractionPair newPair = pairCreator.getItemAbstractionPair(eq.getClassIdentifier().getLastElement().getItem(), AbstractionCreator_Qualitative.getInstance().createAbstraction(true));
             extension.add(newPair);
 
             /*
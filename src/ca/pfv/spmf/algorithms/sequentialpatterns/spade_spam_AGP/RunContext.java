@@ -0,0 +1,152 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP;
+
+import java.io.IOException;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator_Qualitative;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.ItemFactory;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator_Qualitative;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.ItemAbstractionPairCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.PatternCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoFile;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoMemory;
+
+/**
+ * Context of a single execution of SPADE, CM-SPADE or SPAM (AGP
+ * implementations). It carries the item factory, the pool of pairs
+ * <item,abstraction>, the creators, the candidate generator and the saver used
+ * by one run, instead of the static singletons of these classes. Thus, several
+ * runs, each one with its own context, can be executed at the same time in the
+ * same JVM without sharing any state and without calling RemoveStatics.clear()
+ * between them.
+ *
+ * A context is used by creating a SequenceDatabase with it, and giving its
+ * abstraction creator and candidate generator to the algorithm. The
+ * algorithm then finds the context through the database. A context should not
+ * be used by two runs.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase
+ */
+public class RunContext {
+
+    /**
+     * Factory of the items of the database of this run
+     */
+    private final ItemFactory<Integer> itemFactory = new ItemFactory<Integer>();
+    /**
+     * Pool of the pairs <item,abstraction> created during this run
+     */
+    private final ItemAbstractionPairCreator pairCreator = new ItemAbstractionPairCreator();
+    /**
+     * Pattern creator
+     */
+    private final PatternCreator patternCreator = PatternCreator.getInstance();
+    /**
+     * Abstraction creator
+     */
+    private final AbstractionCreator abstractionCreator;
+    /**
+     * IdList creator
+     */
+    private final IdListCreator idListCreator;
+    /**
+     * The candidate generator used by SPADE and CM-SPADE
+     */
+    private final CandidateGenerator candidateGenerator;
+    /**
+     * Saver where the patterns of this run are kept
+     */
+    private Saver saver = null;
+
+    /**
+     * Constructor of a context with a qualitative abstraction creator and
+     * candidate generator that use the pool of pairs of this context.
+     *
+     * @param idListCreator The IdList creator
+     */
+    public RunContext(IdListCreator idListCreator) {
+        AbstractionCreator_Qualitative qualitativeCreator = new AbstractionCreator_Qualitative(pairCreator);
+        this.abstractionCreator = qualitativeCreator;
+        this.idListCreator = idListCreator;
+        this.candidateGenerator = new CandidateGenerator_Qualitative(pairCreator, qualitativeCreator);
+    }
+
+    /**
+     * Constructor of a context with the given creators.
+     *
+     * @param abstractionCreator The abstraction creator
+     * @param idListCreator The IdList creator
+     * @param candidateGenerator The candidate generator, or null if the
+     * algorithm does not use one
+     */
+    public RunContext(AbstractionCreator abstractionCreator, IdListCreator idListCreator, CandidateGenerator candidateGenerator) {
+        this.abstractionCreator = abstractionCreator;
+        this.idListCreator = idListCreator;
+        this.candidateGenerator = candidateGenerator;
+    }
+
+    /**
+     * It creates the saver of this run. If the output file path is null, the
+     * patterns are kept in main memory, otherwise they are saved in the file.
+     *
+     * @param outputFilePath Path of the output file or null
+     * @param outputSequenceIdentifiers if true, sequence identifiers will be
+     * output for each pattern
+     * @return the saver
+     * @throws IOException if the file cannot be created
+     */
+    public Saver createSaver(String outputFilePath, boolean outputSequenceIdentifiers) throws IOException {
+        if (outputFilePath == null) {
+            saver = new SaverIntoMemory(outputSequenceIdentifiers);
+        } else {
+            saver = new SaverIntoFile(outputFilePath, outputSequenceIdentifiers);
+        }
+        return saver;
+    }
+
+    public ItemFactory<Integer> getItemFactory() {
+        return itemFactory;
+    }
+
+    public ItemAbstractionPairCreator getPairCreator() {
+        return pairCreator;
+    }
+
+    public PatternCreator getPatternCreator() {
+        return patternCreator;
+    }
+
+    public AbstractionCreator getAbstractionCreator() {
+        return abstractionCreator;
+    }
+
+    public IdListCreator getIdListCreator() {
+        return idListCreator;
+    }
+
+    public CandidateGenerator getCandidateGenerator() {
+        return candidateGenerator;
+    }
+
+    public Saver getSaver() {
+        return saver;
+    }
+}
@@ -41,10 +41,19 @@ public class CandidateGenerator_Qualitative implements CandidateGenerator {
      */
     private static CandidateGenerator_Qualitative instance = null;
 
+    /**
+     * Creator of the pairs <item,abstraction> of the candidates
+     */
+    private final ItemAbstractionPairCreator pairCreator;
+    /**
+     * Creator of the abstractions of the candidates
+     */
+    private final AbstractionCreator_Qualitative qualitativeCreator;
+
     /**
      * Method to remove the static reference of this class
      */
-    public static void clear() {
+    public static synchronized void clear() {
         instance = null;
     }
 
@@ -52,6 +61,19 @@ public class CandidateGenerator_Qualitative implements CandidateGenerator {
      * Standard constructor.
      */
     private CandidateGenerator_Qualitative() {
+        this(ItemAbstractionPairCreator.getInstance(), AbstractionCreator_Qualitative.getInstance());
+    }
+
+    /**
+     * Constructor of a candidate generator that is not the singleton, to be
+     * used by a single run (see RunContext)
+     *
+     * @param pairCreator the creator of the pairs <item,abstraction> of the run
+     * @param qualitativeCreator the abstraction creator of the run
+     */
+    public CandidateGenerator_Qualitative(ItemAbstractionPairCreator pairCreator, AbstractionCreator_Qualitative qualitativeCreator) {
+        this.pairCreator = pairCreator;
+        this.qualitativeCreator = qualitativeCreator;
     }
 
     /**
@@ -59,7 +81,7 @@ public class CandidateGenerator_Qualitative implements CandidateGenerator {
      *
      * @return
      */
-    public static CandidateGenerator_Qualitative getInstance() {
+    public static synchronized CandidateGenerator_Qualitative getInstance() {
         if (instance == null) {
             instance = new CandidateGenerator_Qualitative();
         }
@@ -91,8 +113,6 @@ public class CandidateGenerator_Qualitative implements CandidateGenerator {
 
         if (joinBitmap.cardinality() >= minSupport) {//If that is the case
 
-            ItemAbstractionPairCreator pairCreator = ItemAbstractionPairCreator.getInstance();
-            AbstractionCreator_Qualitative qualitativeCreator = AbstractionCreator_Qualitative.getInstance();
 
             /* We get the last two items of the last patterns as well as their 
              * qualitative relations
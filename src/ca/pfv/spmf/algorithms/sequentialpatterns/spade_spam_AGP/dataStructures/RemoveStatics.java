@@ -7,7 +7,8 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.c
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator_StandardMap;
 
 /**
- * Class that remove the remaining static fields.
+ * Class that remove the remaining static fields. It is not needed by the runs
+ * that use their own RunContext, since these runs do not use the singletons.
  * 
  * Copyright Antonio Gomariz Peñalver 2013
  * 
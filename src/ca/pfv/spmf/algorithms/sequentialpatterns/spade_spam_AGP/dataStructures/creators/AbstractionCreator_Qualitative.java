@@ -46,14 +46,29 @@ public class AbstractionCreator_Qualitative extends AbstractionCreator {
 
     private static AbstractionCreator_Qualitative instance = null;
 
-    public static void sclear() {
+    public static synchronized void sclear() {
         instance=null;
     }
 
+    /**
+     * Creator of the pairs <item,abstraction> used by this abstraction creator
+     */
+    private final ItemAbstractionPairCreator pairCreator;
+
     private AbstractionCreator_Qualitative() {
+        this(ItemAbstractionPairCreator.getInstance());
+    }
+
+    /**
+     * Constructor of an abstraction creator that is not the singleton, to be
+     * used by a single run (see RunContext)
+     * @param pairCreator the creator of the pairs <item,abstraction> of the run
+     */
+    public AbstractionCreator_Qualitative(ItemAbstractionPairCreator pairCreator) {
+        this.pairCreator = pairCreator;
     }
 
-    public static AbstractionCreator_Qualitative getInstance() {
+    public static synchronized AbstractionCreator_Qualitative getInstance() {
         if (instance == null) {
             instance = new AbstractionCreator_Qualitative();
         }
@@ -162,7 +177,6 @@ public class AbstractionCreator_Qualitative extends AbstractionCreator {
      */
     @Override
     public Pattern getSubpattern(Pattern extension, int index) {
-        ItemAbstractionPairCreator pairCreator = ItemAbstractionPairCreator.getInstance();
         PatternCreator patternCreator = PatternCreator.getInstance();
         List<ItemAbstractionPair> subpatternElements = new ArrayList<ItemAbstractionPair>(extension.size() - 1);
         Abstraction_Generic abstraction = null;
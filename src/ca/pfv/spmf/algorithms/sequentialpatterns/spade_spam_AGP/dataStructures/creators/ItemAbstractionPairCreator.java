@@ -1,7 +1,7 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.Item;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.abstractions.Abstraction_Generic;
@@ -36,16 +36,24 @@ public class ItemAbstractionPairCreator {
      * Static reference to make the class singleton
      */
     private static ItemAbstractionPairCreator instance = null;
-    private static Map<Item, Map<Abstraction_Generic, ItemAbstractionPair>> pailPoors = new HashMap<Item, Map<Abstraction_Generic, ItemAbstractionPair>>();
+    /**
+     * Pool of the pairs created by this creator. It can be accessed by several
+     * threads of a same run (e.g. the parallelized SPADE)
+     */
+    private final ConcurrentMap<Item, ConcurrentMap<Abstraction_Generic, ItemAbstractionPair>> pailPoors = new ConcurrentHashMap<Item, ConcurrentMap<Abstraction_Generic, ItemAbstractionPair>>();
 
-    private ItemAbstractionPairCreator() {
+    /**
+     * Constructor of a creator with its own pool of pairs, to be used by a
+     * single run (see RunContext)
+     */
+    public ItemAbstractionPairCreator() {
     }
 
     /**
      * Get the only instance of the  creator object (it is a singleton)
      * @return the instance
      */
-    public static ItemAbstractionPairCreator getInstance() {
+    public static synchronized ItemAbstractionPairCreator getInstance() {
         if (instance == null) {
             instance = new ItemAbstractionPairCreator();
         }
@@ -53,19 +61,21 @@ public class ItemAbstractionPairCreator {
     }
 
     public ItemAbstractionPair getItemAbstractionPair(Item item, Abstraction_Generic abstraction) {
-        Map<Abstraction_Generic, ItemAbstractionPair> itemPair = pailPoors.get(item);
-        ItemAbstractionPair pair;
-        if (itemPair != null) {
-            pair = itemPair.get(abstraction);
-            if (pair == null) {
-                pair = new ItemAbstractionPair(item, abstraction);
-                itemPair.put(abstraction, pair);
+        ConcurrentMap<Abstraction_Generic, ItemAbstractionPair> itemPair = pailPoors.get(item);
+        if (itemPair == null) {
+            itemPair = new ConcurrentHashMap<Abstraction_Generic, ItemAbstractionPair>();
+            ConcurrentMap<Abstraction_Generic, ItemAbstractionPair> previous = pailPoors.putIfAbsent(item, itemPair);
+            if (previous != null) {
+                itemPair = previous;
             }
-        } else {
-            itemPair = new HashMap<Abstraction_Generic, ItemAbstractionPair>();
+        }
+        ItemAbstractionPair pair = itemPair.get(abstraction);
+        if (pair == null) {
             pair = new ItemAbstractionPair(item, abstraction);
-            itemPair.put(abstraction, pair);
-            pailPoors.put(item, itemPair);
+            ItemAbstractionPair previous = itemPair.putIfAbsent(abstraction, pair);
+            if (previous != null) {
+                pair = previous;
+            }
         }
         return pair;
     }
@@ -73,8 +83,10 @@ public class ItemAbstractionPairCreator {
     public void clear() {
         pailPoors.clear();
     }
-    public static void sclear() {
-        pailPoors.clear();
+    public static synchronized void sclear() {
+        if (instance != null) {
+            instance.clear();
+        }
         instance=null;
     }
 }
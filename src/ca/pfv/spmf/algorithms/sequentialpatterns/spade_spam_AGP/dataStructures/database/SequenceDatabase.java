@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Set;
 
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.EquivalenceClass;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.RunContext;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.Item;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.ItemFactory;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.Itemset;
@@ -51,17 +52,34 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators
  */
 public class SequenceDatabase {
 
+    private RunContext context;
     private AbstractionCreator abstractionCreator;
     private IdListCreator idListCreator;
     private Map<Item, EquivalenceClass> frequentItems = new HashMap<Item, EquivalenceClass>();
     private List<Sequence> sequences = new LinkedList<Sequence>();
-    private ItemFactory<Integer> itemFactory = new ItemFactory<Integer>();
-    private PatternCreator patternCreator = PatternCreator.getInstance();
+    private ItemFactory<Integer> itemFactory;
+    private PatternCreator patternCreator;
+    private ItemAbstractionPairCreator pairCreator;
     private int nSequences = 1;
 
     public SequenceDatabase(AbstractionCreator abstractionCreator, IdListCreator idListCreator) {
-        this.abstractionCreator = abstractionCreator;
-        this.idListCreator = idListCreator;
+        this(new RunContext(abstractionCreator, idListCreator, null));
+    }
+
+    /**
+     * Constructor of a database that uses the creators of the given run
+     * context. The algorithms run with this database keep their output in
+     * the saver of this context.
+     *
+     * @param context the context of the run
+     */
+    public SequenceDatabase(RunContext context) {
+        this.context = context;
+        this.abstractionCreator = context.getAbstractionCreator();
+        this.idListCreator = context.getIdListCreator();
+        this.itemFactory = context.getItemFactory();
+        this.patternCreator = context.getPatternCreator();
+        this.pairCreator = context.getPairCreator();
     }
 
     /**
@@ -119,7 +137,6 @@ public class SequenceDatabase {
      * @param integers
      */
     public void addSequence(String[] integers) {
-        ItemAbstractionPairCreator pairCreator = ItemAbstractionPairCreator.getInstance();
         long timestamp = -1;
         Sequence sequence = new Sequence(sequences.size());
         Itemset itemset = new Itemset();
@@ -213,6 +230,14 @@ public class SequenceDatabase {
         return frequentItems;
     }
 
+    /**
+     * It returns the context of the run that uses this database.
+     * @return the run context
+     */
+    public RunContext getRunContext() {
+        return context;
+    }
+
     /**
      * It return the equivalence classes associated with the frequent 
      * 2-Patterns that we have found
@@ -0,0 +1,164 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists;
+
+import java.util.BitSet;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
+import ca.pfv.spmf.datastructures.compressedbitset.CompressedBitSet;
+
+/**
+ * Inspired in SPMF.
+ * Implementation of a Idlist for SPADE and SPAM based on a compressed bitset
+ * (see CompressedBitSet). Like in IDListBitmap, each sequence has a set of bits
+ * where a bit set to 1 denotes an itemset where the pattern appears. However, all
+ * the sequences are kept in a single compressed bitset where the block key is the sid
+ * and the offset in the block is the tid, instead of a hash map of bitsets.
+ * This uses much less memory for sparse databases and the join operations are done
+ * block by block on sorted arrays, for those sequences shared by the two IdLists.
+ * Sequences can have at most 65536 itemsets.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see IDListBitmap
+ * @see CompressedBitSet
+ */
+public class IDListCompressedBitmap implements IDList {
+
+    /**
+     * The appearances of the pattern, with one block per sequence id
+     * and one offset per itemset timestamp.
+     */
+    private final CompressedBitSet appearances;
+
+    /**
+     * Standard Constructor. It creates an empty IdList
+     */
+    public IDListCompressedBitmap() {
+        this(new CompressedBitSet());
+    }
+
+    /**
+     * It creates a IdList from a compressed bitset
+     * @param appearances the appearances of the pattern
+     */
+    private IDListCompressedBitmap(CompressedBitSet appearances) {
+        this.appearances = appearances;
+    }
+
+    /**
+     * It adds the appearance of the pattern in the itemset "tid" and sequence "sid"
+     * @param sid The sequence identifier where the pattern appears
+     * @param tid The itemset timestamp where the pattern appears
+     */
+    public void registerBit(int sid, int tid) {
+        if (tid > 0xFFFF) {
+            throw new IllegalArgumentException("Compressed bitmaps do not support sequences of more than 65536 itemsets");
+        }
+        appearances.set(sid, tid);
+    }
+
+    /**
+     * It adds the appearances of the pattern in the itemsets contained in "tids" and sequence "sid"
+     * @param sid The sequence identifier wher the pattern appears
+     * @param tids The set of itemset timestamps where the pattern appears
+     */
+    public void registerNBits(int sid, List<Integer> tids) {
+        for (Integer tid : tids) {
+            registerBit(sid, tid);
+        }
+    }
+
+    /**
+     * It return the number of sequences where the IdList is active.
+     * @return the number of sequences
+     */
+    @Override
+    public int getSupport() {
+        return appearances.getBlockCount();
+    }
+
+    /**
+     * Get the string representation of this kind of IdList
+     * @return  the string representation
+     */
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < appearances.getBlockCount(); i++) {
+            int sid = appearances.getBlockKey(i);
+            for (int tid = appearances.nextSetBitInBlock(i, 0); tid >= 0; tid = appearances.nextSetBitInBlock(i, tid + 1)) {
+                buffer.append("[sid=");
+                buffer.append(sid);
+                buffer.append(" tid=");
+                buffer.append(tid);
+                buffer.append("]");
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * It return the intersection IdList that results from the current object and
+     * the IdList given as an argument.
+     * @param idList IdList with which we join the current IdList.
+     * @param equals Flag indicating if we want a intersection for equal relation,
+     * or, if it is false, an after relation.
+     * @param minSupport Minimum relative support.
+     * @return the resulting idlist
+     */
+    @Override
+    public IDList join(IDList idList, boolean equals, int minSupport) {
+        CompressedBitSet other = ((IDListCompressedBitmap) idList).appearances;
+        if (equals) {
+            /* For the equal relation, we keep the itemsets where both
+             * patterns appear in a same sequence
+             */
+            return new IDListCompressedBitmap(appearances.and(other));
+        }
+        /* For the after relation, we keep, in each sequence, the appearances
+         * of the given IdList that are after the first appearance of the current IdList
+         */
+        return new IDListCompressedBitmap(appearances.andAfterFirstBitOfEachBlock(other));
+    }
+
+    /**
+     * Setter method to insert in the pattern given as parameter the set of
+     * sequence identifiers where the IdList appears, so the pattern does
+     * @param pattern Pattern where we insert the sid list
+     */
+    @Override
+    public void setAppearingSequences(Pattern pattern) {
+        BitSet sequences = new BitSet();
+        for (int i = 0; i < appearances.getBlockCount(); i++) {
+            sequences.set(appearances.getBlockKey(i));
+        }
+        pattern.setAppearingIn(sequences);
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    /**
+     * It adds, for a particular sequence, all the apperarances given by the list
+     * of itemsets
+     * @param sid Sequence id where the itemsets will be inserted
+     * @param itemsets Set of itemsets to insert in a sequence
+     */
+    public void addAppearancesInSequence(Integer sid, List<Integer> itemsets) {
+        registerNBits(sid, itemsets);
+    }
+}
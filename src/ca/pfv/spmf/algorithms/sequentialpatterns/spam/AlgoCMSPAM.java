@@ -7,6 +7,7 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -16,6 +17,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -109,17 +112,66 @@ public class AlgoCMSPAM {
 	 */
 	private int maxGap = Integer.MAX_VALUE;
 
+	/**
+	 * if true, the vertical database is stored using compressed bitmaps. It is an
+	 * optional parameter that the user can set.
+	 */
+	private boolean useCompressedBitmaps = false;
+
 	/**
 	 * if true, sequence ids of each pattern will be shown when they will be output
 	 */
 	boolean outputSequenceIdentifiers;
 
+	/** the number of intersections (s-steps and i-steps) done by this object */
+	private long intersectionCount = 0;
+
+	/** the number of threads used to explore the frequent items */
+	private int threadCount = 1;
+
+	/** the number of patterns that a task keeps before saving them (if the output is not deterministic) */
+	private static final int TASK_OUTPUT_BUFFER_SIZE = 1 << 16;
+
+	/** if true, the patterns are saved in the same order as with a single thread (parallel mode) */
+	private boolean deterministicOutput = false;
+
+	/** the copy of this object used by each thread (only in parallel mode) */
+	private ThreadLocal<AlgoCMSPAM> threadWorker = null;
+
+	/** the object that created this copy (only for a copy used by a thread, otherwise null) */
+	private AlgoCMSPAM parent = null;
+
+	/** the patterns found by the task executed by this copy that have not been saved yet */
+	private List<String> taskOutput = null;
+
 	/**
 	 * Default constructor
 	 */
 	public AlgoCMSPAM() {
 	}
 
+	/**
+	 * Constructor of a copy of the algorithm used by a thread in parallel mode.
+	 * The copy shares the vertical database and the CMAP, which are only read
+	 * during the search, and gives its patterns to the current task.
+	 * @param parent the object running the algorithm
+	 */
+	private AlgoCMSPAM(AlgoCMSPAM parent) {
+		this.parent = parent;
+		this.minsup = parent.minsup;
+		this.verticalDB = parent.verticalDB;
+		this.sequencesSize = parent.sequencesSize;
+		this.lastBitIndex = parent.lastBitIndex;
+		this.minimumPatternLength = parent.minimumPatternLength;
+		this.maximumPatternLength = parent.maximumPatternLength;
+		this.mustAppearItems = parent.mustAppearItems;
+		this.coocMapAfter = parent.coocMapAfter;
+		this.coocMapEquals = parent.coocMapEquals;
+		this.useCMAPPruning = parent.useCMAPPruning;
+		this.maxGap = parent.maxGap;
+		this.outputSequenceIdentifiers = parent.outputSequenceIdentifiers;
+	}
+
 	/**
 	 * Method to run the algorithm
 	 *
@@ -139,6 +191,7 @@ public class AlgoCMSPAM {
 		writer = new BufferedWriter(new FileWriter(outputFilePath));
 		// initialize the number of patterns found
 		patternCount = 0;
+		intersectionCount = 0;
 		// to log the memory used
 		MemoryLogger.getInstance().reset();
 
@@ -148,6 +201,7 @@ public class AlgoCMSPAM {
 		spam(input, minsupRel);
 		// record end time
 		endTime = System.currentTimeMillis();
+		Bitmap.INTERSECTION_COUNT += intersectionCount;
 		// close the file
 		writer.close();
 	}
@@ -262,7 +316,7 @@ public class AlgoCMSPAM {
 						Integer item = Integer.parseInt(token);
 						Bitmap bitmapItem = verticalDB.get(item);
 						if (bitmapItem == null) {
-							bitmapItem = new Bitmap(lastBitIndex);
+							bitmapItem = useCompressedBitmaps ? new CompressedBitmap() : new Bitmap(lastBitIndex);
 							verticalDB.put(item, bitmapItem);
 						}
 						// Register the bit in the bitmap for this item
@@ -400,6 +454,12 @@ public class AlgoCMSPAM {
 		// STEP3: WE PERFORM THE RECURSIVE DEPTH FIRST SEARCH
 		// to find longer sequential patterns recursively
 
+		// if several threads are used, each frequent item is explored by a separate task
+		if (threadCount > 1) {
+			dfsPruningParallel(frequentItems);
+			return;
+		}
+
 		// for each frequent item
 		for (Entry<Integer, Bitmap> entry : verticalDB.entrySet()) {
 			// We create a prefix with that item
@@ -413,6 +473,51 @@ public class AlgoCMSPAM {
 		}
 	}
 
+	/**
+	 * Perform the depth first search with several threads. The search starting from
+	 * each frequent item is done by a separate task, using the copy of this object
+	 * of the current thread.
+	 *
+	 * @param frequentItems the list of frequent items
+	 * @throws IOException if there is an error writing a pattern to the output file
+	 */
+	private void dfsPruningParallel(final List<Integer> frequentItems) throws IOException {
+		// each thread uses its own copy of this object
+		threadWorker = ThreadLocal.withInitial(() -> new AlgoCMSPAM(this));
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					List<ItemTask> tasks = new ArrayList<ItemTask>(verticalDB.size());
+					for (Entry<Integer, Bitmap> entry : verticalDB.entrySet()) {
+						tasks.add(new ItemTask(entry.getKey(), entry.getValue(), frequentItems));
+					}
+					// The tasks are added in reverse order, so that this thread executes the first
+					// tasks first, while the other threads take the last tasks
+					for (int i = tasks.size() - 1; i >= 0; i--) {
+						tasks.get(i).fork();
+					}
+					// wait for the tasks (and save their patterns in order if the output is deterministic)
+					for (ItemTask task : tasks) {
+						task.join();
+						intersectionCount += task.intersectionCount;
+						if (deterministicOutput) {
+							writeTaskOutput(task.output);
+						}
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			threadWorker = null;
+		}
+	}
+
 	/**
 	 * This is the dfsPruning method as described in the SPAM paper.
 	 *
@@ -465,7 +570,7 @@ public class AlgoCMSPAM {
 			}
 
 			// perform the S-STEP with that item to get a new bitmap
-			Bitmap.INTERSECTION_COUNT++;
+			intersectionCount++;
 
 //            System.out.println(prefix +  " bitmap : " + prefixBitmap.bitmap);
 //            if(prefix.size() == 1 && prefix.get(0).get(0) == 5) {
@@ -534,7 +639,7 @@ public class AlgoCMSPAM {
 
 				// Perform an i-step with this item and the current prefix.
 				// This creates a new bitmap
-				Bitmap.INTERSECTION_COUNT++;
+				intersectionCount++;
 				Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
 				// If the support is no less than minsup
 				if (newBitmap.getSupport() >= minsup) {
@@ -588,7 +693,6 @@ public class AlgoCMSPAM {
 			}
 		}
 
-		patternCount++; // increase the pattern count
 		StringBuilder r = new StringBuilder("");
 		r.append(item);
 		r.append(" -1 ");
@@ -599,8 +703,7 @@ public class AlgoCMSPAM {
 			r.append(" #SID: ");
 			r.append(bitmap.getSIDs(sequencesSize));
 		}
-		writer.write(r.toString());
-		writer.newLine();
+		writePattern(r.toString());
 	}
 
 	/**
@@ -634,7 +737,6 @@ public class AlgoCMSPAM {
 				return;
 			}
 		}
-		patternCount++;
 
 		StringBuilder r = new StringBuilder("");
 		for (Itemset itemset : prefix.getItemsets()) {
@@ -654,11 +756,100 @@ public class AlgoCMSPAM {
 			r.append(" #SID: ");
 			r.append(bitmap.getSIDs(sequencesSize));
 		}
-		writer.write(r.toString());
 //		System.out.println(r.toString());
+		writePattern(r.toString());
+	}
+
+	/**
+	 * Write a pattern to the output file (or add it to the patterns of the current
+	 * task in parallel mode). If the output is not deterministic, the patterns of a
+	 * task are saved when there are many of them.
+	 *
+	 * @param pattern the pattern as a line of the output file
+	 * @throws IOException exception if error while writing to the file
+	 */
+	private void writePattern(String pattern) throws IOException {
+		if (taskOutput != null) {
+			taskOutput.add(pattern);
+			if (!parent.deterministicOutput && taskOutput.size() >= TASK_OUTPUT_BUFFER_SIZE) {
+				parent.writeTaskOutput(taskOutput);
+			}
+			return;
+		}
+		patternCount++; // increase the pattern count
+		writer.write(pattern);
 		writer.newLine();
 	}
 
+	/**
+	 * Write the patterns found by a task to the output file (in parallel mode).
+	 *
+	 * @param taskPatterns the patterns (the list is cleared)
+	 */
+	private synchronized void writeTaskOutput(List<String> taskPatterns) {
+		try {
+			for (String pattern : taskPatterns) {
+				patternCount++;
+				writer.write(pattern);
+				writer.newLine();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		taskPatterns.clear();
+	}
+
+	/**
+	 * A task doing the depth first search starting from a frequent item, in parallel mode.
+	 * It uses the copy of the AlgoCMSPAM object of the current thread.
+	 */
+	private class ItemTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the item */
+		private final Integer item;
+		/** the bitmap of the item */
+		private final transient Bitmap bitmap;
+		/** the list of frequent items */
+		private final transient List<Integer> frequentItems;
+		/** the patterns found by this task that have not been saved yet */
+		final transient List<String> output = new ArrayList<String>();
+		/** the number of intersections done by this task */
+		long intersectionCount = 0;
+
+		/**
+		 * Constructor
+		 * @param item the item
+		 * @param bitmap the bitmap of the item
+		 * @param frequentItems the list of frequent items
+		 */
+		ItemTask(Integer item, Bitmap bitmap, List<Integer> frequentItems) {
+			this.item = item;
+			this.bitmap = bitmap;
+			this.frequentItems = frequentItems;
+		}
+
+		@Override
+		protected void compute() {
+			AlgoCMSPAM worker = threadWorker.get();
+			worker.taskOutput = output;
+			worker.intersectionCount = 0;
+			try {
+				// We create a prefix with that item
+				Prefix prefix = new Prefix();
+				prefix.addItemset(new Itemset(item));
+				worker.dfsPruning(prefix, bitmap, frequentItems, frequentItems, item, 2, item);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				intersectionCount = worker.intersectionCount;
+				worker.taskOutput = null;
+			}
+			if (!deterministicOutput) {
+				writeTaskOutput(output);
+			}
+		}
+	}
+
 	/**
 	 * Print the statistics of the algorithm execution to System.out.
 	 */
@@ -742,4 +933,39 @@ public class AlgoCMSPAM {
 	public void setMaxGap(int maxGap) {
 		this.maxGap = maxGap;
 	}
+
+	/**
+	 * This method allows to specify if the bitmaps of the vertical database should
+	 * be compressed. Compressed bitmaps only store the sequences where an item or
+	 * pattern appears, which uses much less memory and is faster for sparse databases
+	 * with many or long sequences. They support sequences of at most 65536 itemsets.
+	 * 
+	 * @param useCompressedBitmaps if true, compressed bitmaps are used (by default false)
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
+	/**
+	 * Set the number of threads used to explore the frequent items (by default, 1).
+	 * The vertical database and the CMAP are shared by the threads.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set if the patterns should be saved in the same order as with a single thread when
+	 * several threads are used (by default, false).
+	 * 
+	 * @param deterministicOutput true to save the patterns in a deterministic order
+	 */
+	public void setDeterministicOutput(boolean deterministicOutput) {
+		this.deterministicOutput = deterministicOutput;
+	}
 }
@@ -87,6 +87,9 @@ public class AlgoSPAM{
 	/** the max gap between two itemsets of a pattern. It is an optional parameter that the user can set. */
 	private int maxGap = Integer.MAX_VALUE;
 	
+	/** if true, the vertical database is stored using compressed bitmaps (an optional parameter) */
+	private boolean useCompressedBitmaps = false;
+	
 	/** Optional parameter to decide whether sequence identifiers should be shown in the output for each pattern found */
 	private boolean outputSequenceIdentifiers; 
 		
@@ -211,7 +214,7 @@ public class AlgoSPAM{
 						Integer item = Integer.parseInt(token);
 						Bitmap bitmapItem = verticalDB.get(item);
 						if(bitmapItem == null){
-							bitmapItem = new Bitmap(lastBitIndex);
+							bitmapItem = useCompressedBitmaps ? new CompressedBitmap() : new Bitmap(lastBitIndex);
 							verticalDB.put(item, bitmapItem);
 						}
 						// Register the bit in the bitmap for this item
@@ -471,6 +474,18 @@ public class AlgoSPAM{
 		this.maxGap = maxGap;
 	}
 
+	/**
+	 * This method allows to specify if the bitmaps of the vertical database should
+	 * be compressed. Compressed bitmaps only store the sequences where an item or
+	 * pattern appears, which uses much less memory and is faster for sparse databases
+	 * with many or long sequences. They support sequences of at most 65536 itemsets.
+	 * 
+	 * @param useCompressedBitmaps if true, compressed bitmaps are used (by default false)
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
 	/**
 	 * This method allows to specify if sequence identifiers should be shown in the output
 	 * @param showSequenceIdentifiers if true, sequence identifiers will be shown (boolean)
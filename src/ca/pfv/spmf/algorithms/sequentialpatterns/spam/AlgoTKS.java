@@ -7,6 +7,7 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -19,6 +20,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -151,18 +156,69 @@ public class AlgoTKS {
 	 */
 	private int maxGap = Integer.MAX_VALUE;
 
+	/**
+	 * if true, the vertical database is stored using compressed bitmaps. It is an
+	 * optional parameter that the user can set.
+	 */
+	private boolean useCompressedBitmaps = false;
+
 	/**
 	 * Optional parameter to decide whether sequence identifiers should be shown in
 	 * the output for each pattern found
 	 */
 	private boolean outputSequenceIdentifiers;
 
+	/** the number of threads used to explore the candidates */
+	private int threadCount = 1;
+
+	/**
+	 * the minsup shared by the threads, which is raised as soon as the threads have
+	 * found k patterns having a higher support (only in parallel mode)
+	 */
+	private volatile int sharedMinsup = 0;
+
+	/**
+	 * the number of patterns found by the threads for each support that is no less
+	 * than the shared minsup (only in parallel mode)
+	 */
+	private int[] patternCountBySupport = null;
+
+	/** the number of patterns counted in patternCountBySupport (only in parallel mode) */
+	private int patternCountAboveMinsup = 0;
+
+	/** the object that created this copy (only for a copy used by a thread, otherwise null) */
+	private AlgoTKS parent = null;
+
 	/**
 	 * Default constructor
 	 */
 	public AlgoTKS() {
 	}
 
+	/**
+	 * Constructor of a copy of the algorithm used by a thread in parallel mode.
+	 * The copy shares the vertical database and the cooccurrence map, which are
+	 * only read during the search, and has its own candidates and top-k patterns.
+	 * @param parent the object running the algorithm
+	 */
+	private AlgoTKS(AlgoTKS parent) {
+		this.parent = parent;
+		this.k = parent.k;
+		this.minsup = parent.sharedMinsup;
+		this.verticalDB = parent.verticalDB;
+		this.sequencesSize = parent.sequencesSize;
+		this.lastBitIndex = parent.lastBitIndex;
+		this.coocMapAfter = parent.coocMapAfter;
+		this.coocMapEquals = parent.coocMapEquals;
+		this.minimumPatternLength = parent.minimumPatternLength;
+		this.maximumPatternLength = parent.maximumPatternLength;
+		this.mustAppearItems = parent.mustAppearItems;
+		this.maxGap = parent.maxGap;
+		this.outputSequenceIdentifiers = parent.outputSequenceIdentifiers;
+		this.kPatterns = new PriorityQueue<PatternTKS>();
+		this.candidates = new PriorityQueue<Candidate>();
+	}
+
 	/**
 	 * Method to run the algorithm
 	 * 
@@ -291,7 +347,7 @@ public class AlgoTKS {
 					// Get the bitmap for this item. If none, create a new one.
 					Bitmap bitmapItem = verticalDB.get(item);
 					if (bitmapItem == null) {
-						bitmapItem = new Bitmap(lastBitIndex);
+						bitmapItem = useCompressedBitmaps ? new CompressedBitmap() : new Bitmap(lastBitIndex);
 						verticalDB.put(item, bitmapItem);
 					}
 					// Register the bit in the bitmap for this item
@@ -300,6 +356,14 @@ public class AlgoTKS {
 			}
 		}
 
+		// if several threads are used, all the patterns are counted for raising the
+		// shared minsup, starting with the single items
+		if (threadCount > 1) {
+			sharedMinsup = minsup;
+			patternCountBySupport = new int[sequencesSize.size() + 1];
+			patternCountAboveMinsup = 0;
+		}
+
 //		// STEP2: REMOVE INFREQUENT ITEMS FROM THE DATABASE BECAUSE THEY WILL NOT APPEAR IN ANY FREQUENT SEQUENTIAL PATTERNS
 		List<Integer> frequentItems = new LinkedList<Integer>();
 		Iterator<Entry<Integer, Bitmap>> iter = verticalDB.entrySet().iterator();
@@ -470,40 +534,183 @@ public class AlgoTKS {
 
 			startMiningTime = System.currentTimeMillis();
 
-			while (!candidates.isEmpty()) {
-				// we take the rule with the highest support first
-				Candidate cand = candidates.poll();
+			// if several threads are used, the candidates of the single items are
+			// explored by separate tasks
+			if (threadCount > 1) {
+				exploreCandidatesParallel();
+			} else {
+				exploreCandidates();
+			}
+		}
+		patternCountBySupport = null;
 
-				// if there is no more candidates with enough support, then we stop
-				if (cand.bitmap.getSupport() < minsup) {
-					break;
-				}
+		// check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+		// return the top-rules
+		return kPatterns;
+	}
+
+	/**
+	 * Explore the candidates by decreasing order of support, until there are no
+	 * more candidates having enough support.
+	 * 
+	 * @throws IOException if there is an error writing a pattern to the output file
+	 */
+	private void exploreCandidates() throws IOException {
+		while (!candidates.isEmpty()) {
+			// we take the rule with the highest support first
+			Candidate cand = candidates.poll();
+
+			// in parallel mode, minsup may have been raised by another thread
+			updateMinsup();
 
-				candidateExplored++;
+			// if there is no more candidates with enough support, then we stop
+			if (cand.bitmap.getSupport() < minsup) {
+				break;
+			}
 
-				// we try to expand the candidate pattern
-				dfsPruning(cand.prefix, cand.bitmap, cand.sn, cand.in, cand.hasToBeGreaterThanForIStep,
-						cand.candidateLength);
+			candidateExplored++;
 
-				if (rebuildCandidateTreeWhenTooLarge && candidates.size() > MIN_CANDIDATES_COUNT_BEFORE_REBUILD
-						&& addedCandidatesSinceLastRebuilt > MIN_ADDED_CANDIDATE_COUNT_SINCE_LAST_REBUILD_BEFORE_REBUILD) {
-					PriorityQueue<Candidate> temp = new PriorityQueue<Candidate>();
-					for (Candidate candidate : candidates) {
-						if (candidate.bitmap.getSupport() >= minsup) {
-							temp.add(candidate);
-						}
+			// we try to expand the candidate pattern
+			dfsPruning(cand.prefix, cand.bitmap, cand.sn, cand.in, cand.hasToBeGreaterThanForIStep,
+					cand.candidateLength);
+
+			if (rebuildCandidateTreeWhenTooLarge && candidates.size() > MIN_CANDIDATES_COUNT_BEFORE_REBUILD
+					&& addedCandidatesSinceLastRebuilt > MIN_ADDED_CANDIDATE_COUNT_SINCE_LAST_REBUILD_BEFORE_REBUILD) {
+				PriorityQueue<Candidate> temp = new PriorityQueue<Candidate>();
+				for (Candidate candidate : candidates) {
+					if (candidate.bitmap.getSupport() >= minsup) {
+						temp.add(candidate);
 					}
-					candidates = temp;
-					// System.out.println("REBUILD =======================");
 				}
-				// System.out.println(candidates.size());
+				candidates = temp;
+				// System.out.println("REBUILD =======================");
 			}
+			// System.out.println(candidates.size());
 		}
+	}
 
-		// check the memory usage
-		MemoryLogger.getInstance().checkMemory();
-		// return the top-rules
-		return kPatterns;
+	/**
+	 * Explore the candidates with several threads. Each thread takes the next
+	 * candidate of a single item by decreasing order of support, and explores it
+	 * and the candidates generated from it with its own copy of this object. The
+	 * threads share the minsup, which is raised when the threads have found k
+	 * patterns having a higher support, so that each thread prunes the search
+	 * space using the patterns found by all threads. The top-k patterns of the
+	 * threads are then merged.
+	 * 
+	 * @throws IOException if there is an error writing a pattern to the output file
+	 */
+	private void exploreCandidatesParallel() throws IOException {
+		// the candidates of the single items, by decreasing order of support
+		final Candidate[] itemCandidates = candidates.toArray(new Candidate[candidates.size()]);
+		Arrays.sort(itemCandidates);
+		candidates.clear();
+		final AtomicInteger nextCandidate = new AtomicInteger();
+
+		// each thread uses its own copy of this object
+		final List<AlgoTKS> workers = new ArrayList<AlgoTKS>(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			workers.add(new AlgoTKS(this));
+		}
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(workers.size());
+					for (final AlgoTKS worker : workers) {
+						tasks.add(new RecursiveAction() {
+							private static final long serialVersionUID = 1L;
+
+							@Override
+							protected void compute() {
+								try {
+									for (int i = nextCandidate.getAndIncrement(); i < itemCandidates.length; i = nextCandidate
+											.getAndIncrement()) {
+										worker.candidates.clear();
+										worker.registerAsCandidate(itemCandidates[i]);
+										worker.exploreCandidates();
+									}
+								} catch (IOException e) {
+									throw new UncheckedIOException(e);
+								}
+							}
+						});
+					}
+					ForkJoinTask.invokeAll(tasks);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+		}
+
+		// merge the top-k patterns of the threads (all the patterns having the
+		// support of the k-th pattern are kept)
+		minsup = sharedMinsup;
+		for (AlgoTKS worker : workers) {
+			for (PatternTKS pattern : worker.kPatterns) {
+				if (pattern.support >= minsup) {
+					kPatterns.add(pattern);
+				}
+			}
+			candidateExplored += worker.candidateExplored;
+			maxCandidateCount = Math.max(maxCandidateCount, worker.maxCandidateCount);
+		}
+		while (!kPatterns.isEmpty() && kPatterns.peek().support < minsup) {
+			kPatterns.poll();
+		}
+	}
+
+	/**
+	 * Count a pattern found by a thread and raise the shared minsup if there are
+	 * at least k patterns having a higher support (in parallel mode). Since each
+	 * pattern is counted once, the shared minsup is never higher than the support
+	 * of the k-th pattern.
+	 * 
+	 * @param support the support of the pattern
+	 */
+	private synchronized void registerSupport(int support) {
+		int newMinsup = sharedMinsup;
+		if (support < newMinsup) {
+			return;
+		}
+		patternCountBySupport[support]++;
+		patternCountAboveMinsup++;
+		while (patternCountAboveMinsup - patternCountBySupport[newMinsup] >= k) {
+			patternCountAboveMinsup -= patternCountBySupport[newMinsup];
+			newMinsup++;
+		}
+		sharedMinsup = newMinsup;
+	}
+
+	/**
+	 * Update minsup with the minsup shared by the threads (in parallel mode).
+	 */
+	private void updateMinsup() {
+		if (parent != null) {
+			minsup = parent.sharedMinsup;
+		}
+	}
+
+	/**
+	 * Check if an item should not be considered anymore because its support has
+	 * become lower than minsup.
+	 * 
+	 * @param item the item
+	 * @return true if the item is discarded
+	 */
+	private boolean isDiscarded(Integer item) {
+		// in parallel mode, the single items are not saved by the threads, so the
+		// support of the item is directly compared with minsup
+		if (parent != null) {
+			return verticalDB.get(item).getSupport() < minsup;
+		}
+		return discardedItems.contains(item);
 	}
 
 	/**
@@ -537,6 +744,21 @@ public class AlgoTKS {
 			}
 		}
 
+		// in parallel mode, the pattern is kept by this thread (or by this object for
+		// the single items) and counted for raising the shared minsup. No pattern is
+		// removed while its support is no less than the shared minsup, so that the
+		// counts of registerSupport() stay exact.
+		AlgoTKS shared = (parent != null) ? parent : this;
+		if (shared.patternCountBySupport != null) {
+			kPatterns.add(pattern);
+			shared.registerSupport(pattern.support);
+			minsup = shared.sharedMinsup;
+			while (!kPatterns.isEmpty() && kPatterns.peek().support < minsup) {
+				kPatterns.poll();
+			}
+			return;
+		}
+
 		// We add the rule to the set of top-k rules
 		kPatterns.add(pattern);
 		// if the size becomes larger than k
@@ -604,6 +826,9 @@ public class AlgoTKS {
 
 		int newCandidatesLength = prefixLength + 1;
 
+		// in parallel mode, minsup may have been raised by another thread
+		updateMinsup();
+
 		// ====== S-STEPS ======
 		// Temporary variables (as described in the paper)
 		List<Integer> sTemp = new ArrayList<Integer>();
@@ -615,7 +840,7 @@ public class AlgoTKS {
 		// for each item in sn
 		loopi: for (Integer i : sn) {
 			// IMPORTANT DON'T CONSIDER DISCARDED ITEMS... *************
-			if (useDiscardedItemsPruningStrategy && discardedItems.contains(i)) {
+			if (useDiscardedItemsPruningStrategy && isDiscarded(i)) {
 				continue;
 			}
 
@@ -694,14 +919,19 @@ public class AlgoTKS {
 			}
 
 			// IMPORTANT DON'T CONSIDER DISCARDED ITEMS... *************
-			if (useDiscardedItemsPruningStrategy && discardedItems.contains(i)) {
+			if (useDiscardedItemsPruningStrategy && isDiscarded(i)) {
 				continue;
 			}
 
 			if (useCooccurrenceInformation) {
-				for (Itemset itemset : prefix.getItemsets()) {
-					for (Integer itemX : itemset.getItems()) {
-						Map<Integer, Integer> mapSupportItemsAfter = coocMapEquals.get(itemX);
+				List<Itemset> itemsets = prefix.getItemsets();
+				for (int j = 0; j < itemsets.size(); j++) {
+					// the items of the last itemset appear in the same itemset as the item,
+					// and the items of the other itemsets appear before it
+					Map<Integer, Map<Integer, Integer>> coocMap = (j == itemsets.size() - 1) ? coocMapEquals
+							: coocMapAfter;
+					for (Integer itemX : itemsets.get(j).getItems()) {
+						Map<Integer, Integer> mapSupportItemsAfter = coocMap.get(itemX);
 						if (mapSupportItemsAfter == null) {
 							continue loop2;
 						}
@@ -860,6 +1090,33 @@ public class AlgoTKS {
 		this.maxGap = maxGap;
 	}
 
+	/**
+	 * This method allows to specify if the bitmaps of the vertical database should
+	 * be compressed. Compressed bitmaps only store the sequences where an item or
+	 * pattern appears, which uses much less memory and is faster for sparse databases
+	 * with many or long sequences. They support sequences of at most 65536 itemsets.
+	 * 
+	 * @param useCompressedBitmaps if true, compressed bitmaps are used (by default false)
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
+	/**
+	 * Set the number of threads used to explore the candidates (by default, 1).
+	 * The vertical database and the cooccurrence map are shared by the threads.
+	 * When several threads are used, all the patterns having the same support as
+	 * the k-th pattern are returned.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * This method allows to specify if sequence identifiers should be shown in the
 	 * output
@@ -7,6 +7,7 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -19,6 +20,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -109,6 +112,12 @@ public class AlgoVMSP {
 	 */
 	private int maxGap = Integer.MAX_VALUE;
 
+	/**
+	 * if true, the vertical database is stored using compressed bitmaps. It is an
+	 * optional parameter that the user can set.
+	 */
+	private boolean useCompressedBitmaps = false;
+
 	/**
 	 * Optional parameter to decide whether sequence identifiers should be shown in
 	 * the output for each pattern found
@@ -124,12 +133,43 @@ public class AlgoVMSP {
 	 */
 	private boolean maxGapActivated = false;
 
+	/** the number of intersections (s-steps and i-steps) done by this object */
+	private long intersectionCount = 0;
+
+	/** the number of threads used to explore the frequent items */
+	private int threadCount = 1;
+
+	/** the copy of this object used by each thread (only in parallel mode) */
+	private ThreadLocal<AlgoVMSP> threadWorker = null;
+
 	/**
 	 * Default constructor
 	 */
 	public AlgoVMSP() {
 	}
 
+	/**
+	 * Constructor of a copy of the algorithm used by a thread in parallel mode.
+	 * The copy shares the vertical database and the CMAP, which are only read
+	 * during the search, and keeps the maximal patterns of the current task.
+	 * @param parent the object running the algorithm
+	 */
+	private AlgoVMSP(AlgoVMSP parent) {
+		this.minsup = parent.minsup;
+		this.verticalDB = parent.verticalDB;
+		this.sequencesSize = parent.sequencesSize;
+		this.lastBitIndex = parent.lastBitIndex;
+		this.maximumPatternLength = parent.maximumPatternLength;
+		this.coocMapAfter = parent.coocMapAfter;
+		this.coocMapEquals = parent.coocMapEquals;
+		this.useCMAPPruning = parent.useCMAPPruning;
+		this.useStrategyForwardExtensionChecking = parent.useStrategyForwardExtensionChecking;
+		this.maxGap = parent.maxGap;
+		this.maxGapActivated = parent.maxGapActivated;
+		this.outputSequenceIdentifiers = parent.outputSequenceIdentifiers;
+		this.DEBUG = parent.DEBUG;
+	}
+
 	/**
 	 * Method to run the algorithm
 	 *
@@ -145,6 +185,7 @@ public class AlgoVMSP {
 		writer = new BufferedWriter(new FileWriter(outputFilePath));
 		// initialize the number of patterns found
 		patternCount = 0;
+		intersectionCount = 0;
 		// to log the memory used
 		MemoryLogger.getInstance().reset();
 
@@ -154,6 +195,7 @@ public class AlgoVMSP {
 		vmsp(input, minsupRel);
 		// record end time
 		endTime = System.currentTimeMillis();
+		Bitmap.INTERSECTION_COUNT += intersectionCount;
 		// save result to the file
 		writeResultTofile(outputFilePath);
 		// close the file
@@ -180,9 +222,7 @@ public class AlgoVMSP {
 	 */
 	private void vmsp(String input, double minsupRel) throws IOException {
 		// create maxPattern array
-		maxPatterns = new ArrayList<TreeSet<PatternVMSP>>(20);
-		maxPatterns.add(null);
-		maxPatterns.add(new TreeSet<PatternVMSP>());
+		maxPatterns = createMaxPatterns();
 
 		// the structure to store the vertical database
 		// key: an item value : bitmap
@@ -284,7 +324,7 @@ public class AlgoVMSP {
 						Integer item = Integer.parseInt(token);
 						Bitmap bitmapItem = verticalDB.get(item);
 						if (bitmapItem == null) {
-							bitmapItem = new Bitmap(lastBitIndex);
+							bitmapItem = useCompressedBitmaps ? new CompressedBitmap() : new Bitmap(lastBitIndex);
 							verticalDB.put(item, bitmapItem);
 						}
 						// Register the bit in the bitmap for this item
@@ -442,35 +482,173 @@ public class AlgoVMSP {
 		// STEP3: WE PERFORM THE RECURSIVE DEPTH FIRST SEARCH
 		// to find longer sequential patterns recursively
 
+		// if several threads are used, each frequent item is explored by a separate task
+		if (threadCount > 1) {
+			exploreItemsParallel(frequentItems);
+			return;
+		}
+
 		// for each frequent item
 		for (Entry<Integer, Bitmap> entry : verticalDB.entrySet()) {
-			// We create a prefix with that item
-			PrefixVMSP prefix = new PrefixVMSP();
-			prefix.addItemset(new Itemset(entry.getKey()));
-			boolean itemIsEven = entry.getKey() % 2 == 0;
-			if (itemIsEven) {
-				prefix.sumOfEvenItems = (Integer) entry.getKey();
-				prefix.sumOfOddItems = 0;
-			} else {
-				prefix.sumOfEvenItems = 0;
-				prefix.sumOfOddItems = (Integer) entry.getKey();
-			}
+			exploreItem(entry.getKey(), entry.getValue(), frequentItems);
+		}
+	}
 
-			boolean hasExtension = false;
-			if (maximumPatternLength > 1) {
-				hasExtension = dfsPruning(prefix, entry.getValue(), frequentItems, frequentItems, entry.getKey(), 2,
-						entry.getKey());
-			}
-			if (hasExtension == false) {
-				savePatternSingleItem(entry.getKey(), entry.getValue(), itemIsEven);
+	/**
+	 * Create the structure to store maximal patterns, where the patterns of
+	 * each size are stored by descending order of their sum of items.
+	 *
+	 * @return the structure
+	 */
+	private List<TreeSet<PatternVMSP>> createMaxPatterns() {
+		List<TreeSet<PatternVMSP>> patterns = new ArrayList<TreeSet<PatternVMSP>>(20);
+		patterns.add(null);
+		patterns.add(new TreeSet<PatternVMSP>());
+		return patterns;
+	}
+
+	/**
+	 * Perform the depth first search starting from a frequent item, and save the
+	 * item if it has no frequent extension.
+	 *
+	 * @param item          the item
+	 * @param bitmap        the bitmap of the item
+	 * @param frequentItems the list of frequent items
+	 * @throws IOException if there is an error writing a pattern to the output file
+	 */
+	private void exploreItem(Integer item, Bitmap bitmap, List<Integer> frequentItems) throws IOException {
+		// We create a prefix with that item
+		PrefixVMSP prefix = new PrefixVMSP();
+		prefix.addItemset(new Itemset(item));
+		boolean itemIsEven = item % 2 == 0;
+		if (itemIsEven) {
+			prefix.sumOfEvenItems = item;
+			prefix.sumOfOddItems = 0;
+		} else {
+			prefix.sumOfEvenItems = 0;
+			prefix.sumOfOddItems = item;
+		}
+
+		boolean hasExtension = false;
+		if (maximumPatternLength > 1) {
+			hasExtension = dfsPruning(prefix, bitmap, frequentItems, frequentItems, item, 2, item);
+		}
+		if (hasExtension == false) {
+			savePatternSingleItem(item, bitmap.getSupport(), bitmap, itemIsEven);
+		}
+	}
+
+	/**
+	 * Perform the depth first search with several threads. The search starting from
+	 * each frequent item is done by a separate task, using the copy of this object
+	 * of the current thread. Each task keeps the maximal patterns of its item, which
+	 * are then added to the maximal patterns of this object with the usual
+	 * super-pattern and sub-pattern checking.
+	 *
+	 * @param frequentItems the list of frequent items
+	 * @throws IOException if there is an error writing a pattern to the output file
+	 */
+	private void exploreItemsParallel(final List<Integer> frequentItems) throws IOException {
+		// each thread uses its own copy of this object
+		threadWorker = ThreadLocal.withInitial(() -> new AlgoVMSP(this));
+		ForkJoinPool pool = MemoryLogger.getInstance().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					List<ItemTask> tasks = new ArrayList<ItemTask>(verticalDB.size());
+					for (Entry<Integer, Bitmap> entry : verticalDB.entrySet()) {
+						tasks.add(new ItemTask(entry.getKey(), entry.getValue(), frequentItems));
+					}
+					// The tasks are added in reverse order, so that this thread executes the first
+					// tasks first, while the other threads take the last tasks
+					for (int i = tasks.size() - 1; i >= 0; i--) {
+						tasks.get(i).fork();
+					}
+					// wait for the tasks and keep the patterns that are maximal among all tasks
+					try {
+						for (ItemTask task : tasks) {
+							task.join();
+							intersectionCount += task.intersectionCount;
+							saveTaskPatterns(task.maxPatterns);
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			threadWorker = null;
+		}
+	}
+
+	/**
+	 * Save the maximal patterns found by a task (in parallel mode). The largest
+	 * patterns are saved first since they cannot be subsumed by smaller patterns
+	 * of the task.
+	 *
+	 * @param taskPatterns the maximal patterns of the task
+	 * @throws IOException exception if error while writing to the file
+	 */
+	private void saveTaskPatterns(List<TreeSet<PatternVMSP>> taskPatterns) throws IOException {
+		for (int length = taskPatterns.size() - 1; length > 1; length--) {
+			for (PatternVMSP pattern : taskPatterns.get(length)) {
+				savePatternMultipleItems(pattern.prefix, pattern.support, pattern.bitmap, length);
 			}
+		}
+		for (PatternVMSP pattern : taskPatterns.get(1)) {
+			Integer item = pattern.prefix.get(0).get(0);
+			savePatternSingleItem(item, pattern.support, pattern.bitmap, item % 2 == 0);
+		}
+	}
+
+	/**
+	 * A task doing the depth first search starting from a frequent item, in parallel mode.
+	 * It uses the copy of the AlgoVMSP object of the current thread.
+	 */
+	private class ItemTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** the item */
+		private final Integer item;
+		/** the bitmap of the item */
+		private final transient Bitmap bitmap;
+		/** the list of frequent items */
+		private final transient List<Integer> frequentItems;
+		/** the maximal patterns found by this task */
+		final transient List<TreeSet<PatternVMSP>> maxPatterns = createMaxPatterns();
+		/** the number of intersections done by this task */
+		long intersectionCount = 0;
+
+		/**
+		 * Constructor
+		 * @param item the item
+		 * @param bitmap the bitmap of the item
+		 * @param frequentItems the list of frequent items
+		 */
+		ItemTask(Integer item, Bitmap bitmap, List<Integer> frequentItems) {
+			this.item = item;
+			this.bitmap = bitmap;
+			this.frequentItems = frequentItems;
+		}
 
-			// We call the depth first search method with that prefix
-			// and the list of frequent items to try to find
-			// larger sequential patterns by appending some of these
-			// items.
-//            if(!isSubsumedAndNonClosed) {
-			// }
+		@Override
+		protected void compute() {
+			AlgoVMSP worker = threadWorker.get();
+			worker.maxPatterns = maxPatterns;
+			worker.intersectionCount = 0;
+			try {
+				worker.exploreItem(item, bitmap, frequentItems);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				intersectionCount = worker.intersectionCount;
+				worker.maxPatterns = null;
+			}
 		}
 	}
 
@@ -530,7 +708,7 @@ public class AlgoVMSP {
 			}
 
 			// perform the S-STEP with that item to get a new bitmap
-			Bitmap.INTERSECTION_COUNT++;
+			intersectionCount++;
 			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex,
 					maxGap);
 			// if the support is higher than minsup
@@ -571,7 +749,7 @@ public class AlgoVMSP {
 				if (hasFrequentExtension == false) {
 					// STRATEGY: NEWWW
 					atLeastOneFrequentExtension = true;
-					savePatternMultipleItems(prefixSStep, newBitmap, m);
+					savePatternMultipleItems(prefixSStep, newBitmap.getSupport(), newBitmap, m);
 				}
 			}
 		}
@@ -608,7 +786,7 @@ public class AlgoVMSP {
 
 				// Perform an i-step with this item and the current prefix.
 				// This creates a new bitmap
-				Bitmap.INTERSECTION_COUNT++;
+				intersectionCount++;
 				Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
 				// If the support is no less than minsup
 				if (newBitmap.getSupport() >= minsup) {
@@ -645,7 +823,7 @@ public class AlgoVMSP {
 				// STRATEGY: NEWWW
 				atLeastOneFrequentExtension = true;
 				// save the pattern
-				savePatternMultipleItems(prefixIStep, newBitmap, m);
+				savePatternMultipleItems(prefixIStep, newBitmap.getSupport(), newBitmap, m);
 			}
 		}
 		// check the memory usage
@@ -658,12 +836,14 @@ public class AlgoVMSP {
 	 * Save a pattern of size 1 to the output file
 	 *
 	 * @param item       the item
-	 * @param bitmap     its bitmap
+	 * @param support    its support
+	 * @param bitmap     its bitmap (only used if sequence identifiers are shown)
 	 * @param itemIsEven
 	 * @throws IOException exception if error while writing to the file
 	 * @return true if is subsumed
 	 */
-	private boolean savePatternSingleItem(Integer item, Bitmap bitmap, boolean itemIsEven) throws IOException {
+	private boolean savePatternSingleItem(Integer item, int support, Bitmap bitmap, boolean itemIsEven)
+			throws IOException {
 		if (DEBUG) {
 			System.out.println("Trying to save : " + item);
 		}
@@ -683,7 +863,7 @@ public class AlgoVMSP {
 					// if the pattern already found contains the single item
 					
 					// We only check the support if maxgap is not activated. Otherwise results can be incorrect. FIXED: 2023 PHILIPPE
-					boolean supportCheck = maxGapActivated || bitmap.getSupport() >= pPrime.support;
+					boolean supportCheck = maxGapActivated || support >= pPrime.support;
 					
 					if (pPrime.prefix.sumOfEvenItems >= item && supportCheck) {
 						if (pPrime.prefix.containsItem(item)) {
@@ -701,7 +881,7 @@ public class AlgoVMSP {
 					}
 					
 					// We only check the support if maxgap is not activated. Otherwise results can be incorrect. FIXED: 2023 PHILIPPE
-					boolean supportCheck = maxGapActivated || bitmap.getSupport() >= pPrime.support;
+					boolean supportCheck = maxGapActivated || support >= pPrime.support;
 					
 					// if the pattern already found contains the single item
 					if (pPrime.prefix.sumOfOddItems >= item && supportCheck) {
@@ -724,7 +904,7 @@ public class AlgoVMSP {
 			prefix.sumOfOddItems = item;
 		}
 
-		PatternVMSP pattern = new PatternVMSP(prefix, bitmap.getSupport());
+		PatternVMSP pattern = new PatternVMSP(prefix, support);
 
 		// If the user wants to see the sequence identifiers, we need to keep the bitmap
 		// which stores them
@@ -747,12 +927,15 @@ public class AlgoVMSP {
 	/**
 	 * Save a pattern of size > 1 to the output file.
 	 *
-	 * @param prefix the prefix
-	 * @param bitmap its bitmap
+	 * @param prefix  the prefix
+	 * @param support its support
+	 * @param bitmap  its bitmap (only used if sequence identifiers are shown)
+	 * @param length  its size in terms of items
 	 * @throws IOException exception if error while writing to the file
 	 * @return true if pattern is subsumed
 	 */
-	private boolean savePatternMultipleItems(PrefixVMSP prefix, Bitmap bitmap, int length) throws IOException {
+	private boolean savePatternMultipleItems(PrefixVMSP prefix, int support, Bitmap bitmap, int length)
+			throws IOException {
 		// CHANGED ------
 //		System.out.println(prefix.toString());
 //		System.out.print("");
@@ -783,7 +966,7 @@ public class AlgoVMSP {
 				}
 
 				// We only check the support if maxgap is not activated. Otherwise results can be incorrect. FIXED: 2023 PHILIPPE
-				boolean supportCheck = maxGapActivated || bitmap.getSupport() >= pPrime.support;
+				boolean supportCheck = maxGapActivated || support >= pPrime.support;
 				
 				if (prefix.sumOfEvenItems <= pPrime.prefix.sumOfEvenItems
 						&& prefix.sumOfOddItems <= pPrime.prefix.sumOfOddItems && supportCheck
@@ -813,7 +996,7 @@ public class AlgoVMSP {
 				}
 				
 				// We only check the support if maxgap is not activated. Otherwise results can be incorrect. FIXED: 2023 PHILIPPE
-				boolean supportCheck = maxGapActivated || bitmap.getSupport() <= pPrime.support;
+				boolean supportCheck = maxGapActivated || support <= pPrime.support;
 
 				if (prefix.sumOfEvenItems >= pPrime.prefix.sumOfEvenItems
 						&& prefix.sumOfOddItems >= pPrime.prefix.sumOfOddItems && supportCheck
@@ -838,7 +1021,7 @@ public class AlgoVMSP {
 		patternCount++; // INCREASE COUNT
 
 		// Create the pattern
-		PatternVMSP pattern = new PatternVMSP(prefix, bitmap.getSupport());
+		PatternVMSP pattern = new PatternVMSP(prefix, support);
 		// If the user wants to see the sequence identifiers, we need to keep the bitmap
 		// which stores them
 		if (outputSequenceIdentifiers) {
@@ -1149,6 +1332,31 @@ public class AlgoVMSP {
 		this.maxGap = maxGap;
 	}
 
+	/**
+	 * This method allows to specify if the bitmaps of the vertical database should
+	 * be compressed. Compressed bitmaps only store the sequences where an item or
+	 * pattern appears, which uses much less memory and is faster for sparse databases
+	 * with many or long sequences. They support sequences of at most 65536 itemsets.
+	 * 
+	 * @param useCompressedBitmaps if true, compressed bitmaps are used (by default false)
+	 */
+	public void setUseCompressedBitmaps(boolean useCompressedBitmaps) {
+		this.useCompressedBitmaps = useCompressedBitmaps;
+	}
+
+	/**
+	 * Set the number of threads used to explore the frequent items (by default, 1).
+	 * The vertical database and the CMAP are shared by the threads.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * This method allows to specify if sequence identifiers should be shown in the
 	 * output
@@ -34,6 +34,7 @@ import java.util.List;
  * @see AlgoSPAM
  * @see AlgoTKS
  * @see AlgoVMSP
+ * @see CompressedBitmap
  */
 public class Bitmap {
 
@@ -41,7 +42,8 @@ public class Bitmap {
 	public static long INTERSECTION_COUNT = 0;
 	
 	// A bitmap is implemented using the BitSet class of Java.
-	BitSet bitmap = new BitSet();  
+	// (it is null for a CompressedBitmap, which stores its bits differently)
+	BitSet bitmap;  
 	
 	// For calculating the support more efficiently
 	// we keep some information:
@@ -49,11 +51,17 @@ public class Bitmap {
 	
 	int firstItemsetID = -1; // the id of the first itemset containing a bit set to 1 (in any sequence)
 	
-	private int support = 0;  // the number of bits that are currently set to 1 corresponding to different sequences
+	int support = 0;  // the number of bits that are currently set to 1 corresponding to different sequences
 	
 	int sidsum = 0;
 	
-	private int supportWithoutGapTotal = 0;
+	int supportWithoutGapTotal = 0;
+	
+	/**
+	 * Constructor used by subclasses that do not store their bits in a BitSet
+	 */
+	Bitmap(){
+	}
 	
 	/**
 	 * Constructor
@@ -1,6 +1,7 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class implements a candidate as used by the TKS algorithm
@@ -40,6 +41,12 @@ public class Candidate implements Comparable<Candidate>{
 	Integer hasToBeGreaterThanForIStep;
 	int candidateLength = 0;
 
+	/** the number of candidates created so far (used to order the candidates having the same support) */
+	private static final AtomicLong createdCandidateCount = new AtomicLong();
+
+	/** the position of this candidate in the order of creation of the candidates */
+	private final long creationOrder = createdCandidateCount.getAndIncrement();
+
 	public Candidate(Prefix prefix, Bitmap bitmap, Collection<Integer> sn,
 			Collection<Integer> in, Integer hasToBeGreaterThanForIStep, int candidateLength) {
 		this.prefix = prefix;
@@ -58,15 +65,9 @@ public class Candidate implements Comparable<Candidate>{
 		if(compare !=0){
 			return compare;
 		}
-		compare = this.hashCode() - o.hashCode();
-		if(compare !=0){
-			return compare;
-		}
-		compare = prefix.size()- o.prefix.size();
-		if(compare !=0){
-			return compare;
-		}
-		return hasToBeGreaterThanForIStep - o.hasToBeGreaterThanForIStep;
+		// the candidates having the same support are compared by order of creation, so that
+		// the order of exploration does not depend on the hash codes given by the JVM
+		return Long.compare(this.creationOrder, o.creationOrder);
 	}
 
 }
@@ -0,0 +1,197 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
+
+import java.util.List;
+
+import ca.pfv.spmf.datastructures.compressedbitset.CompressedBitSet;
+
+/**
+ * Implementation of a compressed bitmap for SPAM. Instead of a BitSet spanning all
+ * sequences, the bits are stored in a CompressedBitSet having one block per sequence,
+ * where the block key is the sequence id (sid) and the offset is the itemset id (tid).
+ * Only the sequences containing a bit set to 1 use memory, which is much smaller than a
+ * BitSet for sparse databases, and the S-step and I-step are done
+ * directly on the blocks of the two bitmaps, without having to search the sid of each bit.
+ * <br/><br/>
+ *
+ * A bitmap of this class can only be combined with other compressed bitmaps. It is used
+ * by the algorithms when their option to use compressed bitmaps is activated.
+ * <br/><br/>
+ *
+ * Copyright (c) 2008-2024 Philippe Fournier-Viger
+ *  <br/><br/>
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * <br/><br/>
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <br/><br/>
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br/><br/>
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see Bitmap
+ * @see CompressedBitSet
+ */
+public class CompressedBitmap extends Bitmap {
+
+	/** the bits of this bitmap, with one block per sequence */
+	private final CompressedBitSet bits;
+
+	/**
+	 * Constructor of an empty bitmap
+	 */
+	CompressedBitmap() {
+		this(new CompressedBitSet());
+	}
+
+	/**
+	 * Constructor
+	 * @param bits  the bits of this bitmap
+	 */
+	private CompressedBitmap(CompressedBitSet bits) {
+		this.bits = bits;
+	}
+
+	/**
+	 * Set a bit to 1 in this bitmap
+	 * @param sid the sid corresponding to that bit
+	 * @param tid the tid corresponding to that bit
+	 * @param sequencesSize not used by this class
+	 */
+	@Override
+	public void registerBit(int sid, int tid, List<Integer> sequencesSize) {
+		if (tid > 0xFFFF) {
+			throw new IllegalArgumentException(
+					"Compressed bitmaps do not support sequences of more than 65536 itemsets");
+		}
+		bits.set(sid, tid);
+
+		// Update the  count of bit set to 1
+		if (sid != lastSID) {
+			support++;
+			sidsum += sid; // FOR THE VGEN ALGORITHM
+		}
+		if (firstItemsetID == -1 || tid < firstItemsetID) {
+			firstItemsetID = tid;
+		}
+		// remember the last SID with a bit set to 1
+		lastSID = sid;
+	}
+
+	/**
+	 * Create a new bitmap for the s-step by keeping for each sequence the bits
+	 * of the item that are after the first bit of this bitmap.
+	 * @param bitmapItem  the bitmap of the item used for the S-Step
+	 * @param sequencesSize not used by this class
+	 * @param lastBitIndex  not used by this class
+	 * @param maxGap the maximum gap
+	 * @return return the new bitmap
+	 */
+	@Override
+	Bitmap createNewBitmapSStep(Bitmap bitmapItem, List<Integer> sequencesSize, int lastBitIndex, int maxGap) {
+		CompressedBitSet itemBits = ((CompressedBitmap) bitmapItem).bits;
+
+		// if no maxGap constraint is used
+		if (maxGap == Integer.MAX_VALUE) {
+			CompressedBitmap newBitmap = new CompressedBitmap(bits.andAfterFirstBitOfEachBlock(itemBits));
+			newBitmap.updateStatistics(this);
+			newBitmap.supportWithoutGapTotal = newBitmap.support;
+			return newBitmap;
+		}
+
+		// If we need to check the max gap constraint
+		CompressedBitSet newBits = new CompressedBitSet();
+		int supportWithoutGap = 0;
+		for (int i = 0; i < bits.getBlockCount(); i++) {
+			int sid = bits.getBlockKey(i);
+			int j = itemBits.indexOfBlock(sid);
+			if (j < 0) {
+				continue;
+			}
+			// check if the item appears after the first bit of this sequence without considering the gap
+			int firstTid = bits.nextSetBitInBlock(i, 0);
+			if (itemBits.nextSetBitInBlock(j, firstTid + 1) < 0) {
+				continue;
+			}
+			supportWithoutGap++;
+
+			// for each bit of this sequence, keep the bits of the item that respect the max gap
+			// (the smallest tid that is not yet in the new bitmap is used to avoid setting a bit twice)
+			int nextTid = 0;
+			for (int tidK = firstTid; tidK >= 0; tidK = bits.nextSetBitInBlock(i, tidK + 1)) {
+				for (int tid = itemBits.nextSetBitInBlock(j, Math.max(tidK + 1, nextTid));
+						tid >= 0 && tid - tidK <= maxGap;
+						tid = itemBits.nextSetBitInBlock(j, tid + 1)) {
+					newBits.set(sid, tid);
+					nextTid = tid + 1;
+				}
+			}
+		}
+		newBits.trim();
+		CompressedBitmap newBitmap = new CompressedBitmap(newBits);
+		newBitmap.updateStatistics(this);
+		newBitmap.supportWithoutGapTotal = supportWithoutGap;
+		return newBitmap;
+	}
+
+	/**
+	 * Create a new bitmap by performing the I-STEP with this
+	 * bitmap and the bitmap of an item.
+	 * @param bitmapItem the bitmap of the item
+	 * @param sequencesSize not used by this class
+	 * @param lastBitIndex not used by this class
+	 * @return the new bitmap
+	 */
+	@Override
+	Bitmap createNewBitmapIStep(Bitmap bitmapItem, List<Integer> sequencesSize, int lastBitIndex) {
+		CompressedBitmap newBitmap = new CompressedBitmap(bits.and(((CompressedBitmap) bitmapItem).bits));
+		newBitmap.updateStatistics(this);
+		return newBitmap;
+	}
+
+	/**
+	 * Calculate the support, sidsum and last sid of a bitmap created by an S-step or I-step
+	 * @param parent the bitmap used to create this bitmap
+	 */
+	private void updateStatistics(CompressedBitmap parent) {
+		for (int i = 0; i < bits.getBlockCount(); i++) {
+			int sid = bits.getBlockKey(i);
+			support++;
+			sidsum += sid;
+			lastSID = sid;
+
+			// remember the id of the first itemset containing a bit set to 1
+			int tid = bits.nextSetBitInBlock(i, 0);
+			if (parent.firstItemsetID == -1 || tid < parent.firstItemsetID) {
+				parent.firstItemsetID = tid;
+			}
+		}
+	}
+
+	/**
+	 * Get the list of sids corresponding to this bitmap as a string
+	 * @param sequencesSize not used by this class
+	 * @return a string
+	 */
+	@Override
+	public String getSIDs(List<Integer> sequencesSize) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < bits.getBlockCount(); i++) {
+			if (i > 0) {
+				builder.append(" ");
+			}
+			builder.append(bits.getBlockKey(i));
+		}
+		return builder.toString();
+	}
+}
@@ -1,5 +1,7 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Implementation of a pattern found by the TKS algorithm.
  * <br/><br/>
@@ -41,6 +43,12 @@ public class PatternTKS implements Comparable<PatternTKS>{
 	/** the bitset corresponding to this pattern, which indicates the sequences containing this pattern (optional) */
 	Bitmap bitmap;
 
+	/** the number of patterns created so far (used to order the patterns having the same support) */
+	private static final AtomicLong createdPatternCount = new AtomicLong();
+
+	/** the position of this pattern in the order of creation of the patterns */
+	private final long creationOrder = createdPatternCount.getAndIncrement();
+
 	/** the constructor */
 	public PatternTKS(Prefix prefix, int suppport) {
 		this.prefix = prefix;
@@ -56,7 +64,9 @@ public class PatternTKS implements Comparable<PatternTKS>{
 			return compare;
 		}
 
-		return this.hashCode() - o.hashCode();
+		// the patterns having the same support are compared by order of creation, so that
+		// the patterns kept by TKS do not depend on the hash codes given by the JVM
+		return Long.compare(this.creationOrder, o.creationOrder);
 	}
 
 }
@@ -0,0 +1,122 @@
+package ca.pfv.spmf.datastructures.bitsetpool;
+
+import java.util.Arrays;
+
+/* This file is copyright (c) 2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class is an implementation of a pool of int arrays of variable capacity. It is the
+ * counterpart of the BitSetPool for algorithms that store tidsets as sorted arrays of
+ * transaction identifiers. Arrays are grouped by capacity in buckets of powers of two,
+ * so that a request for an array of capacity n returns an array whose length is the
+ * smallest power of two that is at least n.
+ * It is assumed that the user will not release the same array twice.
+ * 
+ * @see BitSetPool
+ * @author Philippe Fournier-Viger
+ */
+public class IntArrayPool {
+
+	/** The number of buckets (one per power of two) */
+	private static final int BUCKET_COUNT = 32;
+
+	/** Initial number of arrays that can be stored in each bucket */
+	private final int initialPoolSize;
+
+	/** The arrays of each bucket */
+	private int[][][] buckets;
+
+	/** The number of arrays that are in each bucket */
+	private int[] bucketSizes;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param initialPoolSize the initial number of arrays that can be kept in each bucket
+	 */
+	public IntArrayPool(int initialPoolSize) {
+		this.initialPoolSize = initialPoolSize;
+
+		// initialize the pool
+		clear();
+	}
+
+	/**
+	 * Obtain an unused array having at least the given capacity from the pool or create
+	 * a new one if none are available. The content of the array is undefined.
+	 * 
+	 * @param minCapacity the minimum capacity
+	 * @return an array
+	 */
+	public int[] getArray(int minCapacity) {
+		int bucket = bucketOf(minCapacity);
+		// If the bucket is empty, we create a new array
+		if (bucketSizes[bucket] == 0) {
+			return new int[1 << bucket];
+		}
+		// Otherwise, we take the last array of that bucket
+		int[] array = buckets[bucket][--bucketSizes[bucket]];
+		buckets[bucket][bucketSizes[bucket]] = null;
+		return array;
+	}
+
+	/**
+	 * Put an unused array in the pool so that it can be reused. Arrays that were
+	 * not obtained from this pool (length is not a power of two) are ignored.
+	 * 
+	 * @param array the array
+	 */
+	public void releaseArray(int[] array) {
+		int length = array.length;
+		if (length == 0 || (length & (length - 1)) != 0) {
+			return;
+		}
+		int bucket = Integer.numberOfTrailingZeros(length);
+		if (bucketSizes[bucket] == buckets[bucket].length) {
+			buckets[bucket] = Arrays.copyOf(buckets[bucket], 2 * buckets[bucket].length);
+		}
+		buckets[bucket][bucketSizes[bucket]++] = array;
+	}
+
+	/**
+	 * Get the bucket containing arrays of a given minimum capacity
+	 * @param minCapacity the capacity
+	 * @return the index of the bucket
+	 */
+	private static int bucketOf(int minCapacity) {
+		if (minCapacity <= 1) {
+			return 0;
+		}
+		return BUCKET_COUNT - Integer.numberOfLeadingZeros(minCapacity - 1);
+	}
+
+	/** Reset the pool and empty everything so that it can be used as a new pool*/
+	public final void clear() {
+		buckets = new int[BUCKET_COUNT][][];
+		bucketSizes = new int[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets[i] = new int[Math.max(1, initialPoolSize)][];
+		}
+	}
+
+	/** Method for debugging that print pool information in the console
+	 */
+	void printPoolInformation() {
+		System.out.println(" POOL: arrays per bucket = " + Arrays.toString(bucketSizes));
+	}
+}
@@ -0,0 +1,109 @@
+package ca.pfv.spmf.datastructures.bitsetpool;
+
+import java.util.Arrays;
+
+/* This file is copyright (c) 2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class is an implementation of a pool of long arrays having a fixed length. It is
+ * used by algorithms that store tidsets as raw bitmap words instead of java.util.BitSet
+ * objects, so that a bitmap can be obtained and released
+ * without allocating new memory.
+ * It is assumed that the user will not release the same array twice.
+ * 
+ * @see FixedSizeBitSetPool
+ * @author Philippe Fournier-Viger
+ */
+public class LongArrayPool {
+
+	/** The number of arrays that are in the pool */
+	private int actualPoolSize;
+
+	/** Initial pool size */
+	private final int initialPoolSize;
+
+	/** Length of each array */
+	private final int arrayLength;
+
+	/** The pool of arrays */
+	private long[][] pool;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param initialPoolSize the initial number of arrays that can be kept in the pool
+	 * @param arrayLength the length of each array
+	 */
+	public LongArrayPool(int initialPoolSize, int arrayLength) {
+		this.initialPoolSize = initialPoolSize;
+		this.arrayLength = arrayLength;
+
+		// initialize the pool
+		clear();
+	}
+
+	/**
+	 * Obtain an unused array from the pool or create a new one if none are available.
+	 * The content of the array is undefined.
+	 * 
+	 * @return an array
+	 */
+	public long[] getArray() {
+		if (actualPoolSize == 0) {
+			return new long[arrayLength];
+		}
+		long[] array = pool[--actualPoolSize];
+		pool[actualPoolSize] = null;
+		return array;
+	}
+
+	/**
+	 * Put an unused array in the pool so that it can be reused.
+	 * 
+	 * @param array the array
+	 */
+	public void releaseArray(long[] array) {
+		if (array.length != arrayLength) {
+			return;
+		}
+		if (actualPoolSize == pool.length) {
+			pool = Arrays.copyOf(pool, 2 * pool.length);
+		}
+		pool[actualPoolSize++] = array;
+	}
+
+	/**
+	 * Get the length of each array of this pool
+	 * @return the length
+	 */
+	public int getArrayLength() {
+		return arrayLength;
+	}
+
+	/** Reset the pool and empty everything so that it can be used as a new pool*/
+	public final void clear() {
+		actualPoolSize = 0;
+		pool = new long[Math.max(1, initialPoolSize)][];
+	}
+
+	/** Method for debugging that print pool information in the console
+	 */
+	void printPoolInformation() {
+		System.out.println(" POOL: actualPoolSize = " + actualPoolSize + " Pool capacity = " + pool.length);
+	}
+}
@@ -0,0 +1,638 @@
+package ca.pfv.spmf.datastructures.compressedbitset;
+
+import java.util.Arrays;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class is a compressed bitset inspired by Roaring bitmaps. The bits are
+ * grouped into blocks of 65536 bits. A bit is identified either by its
+ * position (the block is the 16 high bits of the position and the offset in the block
+ * is the 16 low bits), or directly by a block key and an offset in that block.
+ * The second form allows to use any non negative integer as block key, for example
+ * a sequence identifier, so that each block stores the bits of one sequence.
+ * <br/><br/>
+ *
+ * Only the blocks containing at least one bit set to 1 are stored. A block is stored
+ * either as an array container (the sorted offsets of its bits, when the block contains at most
+ * {@link #MAX_ARRAY_CONTAINER_SIZE} bits) or as a bitmap container (an array of 1024 long words).
+ * To save memory, the offsets of all array containers are stored one after the other in
+ * a single array rather than in one array per block.
+ * <br/><br/>
+ *
+ * Bits can be set in any order but setting them by increasing position
+ * (or by increasing block key and offset) is the fastest, since it only appends values.
+ * This is the case when a vertical database is built by reading the sequences one after the other.
+ *
+ * @see MainTestCompressedBitSet
+ * @author Philippe Fournier-Viger
+ */
+public class CompressedBitSet {
+
+	/** The maximum number of bits in a block stored as an array container */
+	public static final int MAX_ARRAY_CONTAINER_SIZE = 4096;
+
+	/** The number of long words of a bitmap container */
+	private static final int BITMAP_CONTAINER_WORDS = 1024;
+
+	/** The largest offset in a block */
+	private static final int MAX_OFFSET = 0xFFFF;
+
+	/** The key of each block, by ascending order */
+	private int[] keys;
+
+	/**
+	 * The position of the first offset of each array container in the array
+	 * "values". The array contains one more entry than the number of blocks so that
+	 * the offsets of block i are in values[starts[i]] ... values[starts[i+1]-1].
+	 */
+	private int[] starts;
+
+	/** The offsets of all array containers, stored one block after the other */
+	private char[] values;
+
+	/**
+	 * The bitmap container of each block, or null for an array container.
+	 * This array is only created when the first bitmap container is needed.
+	 */
+	private long[][] bitmaps;
+
+	/** The number of blocks */
+	private int blockCount;
+
+	/** The number of offsets used in the array "values" */
+	private int valueCount;
+
+	/**
+	 * Constructor of an empty bitset
+	 */
+	public CompressedBitSet() {
+		this(4, 4);
+	}
+
+	/**
+	 * Constructor of an empty bitset with a given initial capacity
+	 * @param blockCapacity the initial number of blocks
+	 * @param valueCapacity the initial number of offsets in array containers
+	 */
+	private CompressedBitSet(int blockCapacity, int valueCapacity) {
+		keys = new int[blockCapacity];
+		starts = new int[blockCapacity + 1];
+		values = new char[valueCapacity];
+	}
+
+	/**
+	 * Set a bit to 1
+	 * @param position the position of the bit (a non negative integer)
+	 */
+	public void set(int position) {
+		set(position >>> 16, position & MAX_OFFSET);
+	}
+
+	/**
+	 * Set a bit to 1
+	 * @param block the key of the block containing the bit (a non negative integer)
+	 * @param offset the offset of the bit in the block (between 0 and 65535)
+	 */
+	public void set(int block, int offset) {
+		int index;
+		// if the bit is in the last block or after it, which is the usual case
+		if (blockCount == 0 || keys[blockCount - 1] < block) {
+			index = insertBlock(blockCount, block);
+		} else if (keys[blockCount - 1] == block) {
+			index = blockCount - 1;
+		} else {
+			// otherwise, search the block
+			index = Arrays.binarySearch(keys, 0, blockCount, block);
+			if (index < 0) {
+				index = insertBlock(-index - 1, block);
+			}
+		}
+		char value = (char) offset;
+
+		// if the block is a bitmap container
+		if (bitmaps != null && bitmaps[index] != null) {
+			bitmaps[index][value >>> 6] |= 1L << value;
+			return;
+		}
+
+		// otherwise, it is an array container
+		int from = starts[index];
+		int to = starts[index + 1];
+		int insertionPoint;
+		if (from == to || values[to - 1] < value) {
+			insertionPoint = to;
+		} else {
+			insertionPoint = Arrays.binarySearch(values, from, to, value);
+			if (insertionPoint >= 0) {
+				// the bit is already set
+				return;
+			}
+			insertionPoint = -insertionPoint - 1;
+		}
+
+		// if the array container is full, it becomes a bitmap container
+		if (to - from == MAX_ARRAY_CONTAINER_SIZE) {
+			convertToBitmapContainer(index);
+			bitmaps[index][value >>> 6] |= 1L << value;
+			return;
+		}
+
+		// insert the offset in the array container
+		if (valueCount == values.length) {
+			values = Arrays.copyOf(values, Math.max(4, values.length * 2));
+		}
+		System.arraycopy(values, insertionPoint, values, insertionPoint + 1, valueCount - insertionPoint);
+		values[insertionPoint] = value;
+		valueCount++;
+		for (int i = index + 1; i <= blockCount; i++) {
+			starts[i]++;
+		}
+	}
+
+	/**
+	 * Check if a bit is set to 1
+	 * @param position the position of the bit
+	 * @return true if the bit is set to 1
+	 */
+	public boolean get(int position) {
+		return get(position >>> 16, position & MAX_OFFSET);
+	}
+
+	/**
+	 * Check if a bit is set to 1
+	 * @param block the key of the block containing the bit
+	 * @param offset the offset of the bit in the block
+	 * @return true if the bit is set to 1
+	 */
+	public boolean get(int block, int offset) {
+		int index = indexOfBlock(block);
+		if (index < 0) {
+			return false;
+		}
+		if (bitmaps != null && bitmaps[index] != null) {
+			return (bitmaps[index][offset >>> 6] & (1L << offset)) != 0;
+		}
+		return Arrays.binarySearch(values, starts[index], starts[index + 1], (char) offset) >= 0;
+	}
+
+	/**
+	 * Get the position of the first bit set to 1 that is at or after a given position.
+	 * @param fromIndex the position where the search starts
+	 * @return the position or -1 if there is none
+	 */
+	public int nextSetBit(int fromIndex) {
+		int block = fromIndex >>> 16;
+		int index = Arrays.binarySearch(keys, 0, blockCount, block);
+		if (index >= 0) {
+			int offset = nextSetBitInBlock(index, fromIndex & MAX_OFFSET);
+			if (offset >= 0) {
+				return (block << 16) | offset;
+			}
+			index++;
+		} else {
+			index = -index - 1;
+		}
+		if (index < blockCount) {
+			return (keys[index] << 16) | nextSetBitInBlock(index, 0);
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the number of bits set to 1
+	 * @return the number of bits
+	 */
+	public int cardinality() {
+		int cardinality = valueCount;
+		if (bitmaps != null) {
+			for (int i = 0; i < blockCount; i++) {
+				if (bitmaps[i] != null) {
+					cardinality += bitmapCardinality(bitmaps[i]);
+				}
+			}
+		}
+		return cardinality;
+	}
+
+	/**
+	 * Check if no bit is set to 1
+	 * @return true if this bitset is empty
+	 */
+	public boolean isEmpty() {
+		return blockCount == 0;
+	}
+
+	/**
+	 * Get the number of blocks containing at least one bit set to 1
+	 * @return the number of blocks
+	 */
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+	/**
+	 * Get the key of a block
+	 * @param index the index of the block (between 0 and getBlockCount() - 1)
+	 * @return the key
+	 */
+	public int getBlockKey(int index) {
+		return keys[index];
+	}
+
+	/**
+	 * Get the index of a block
+	 * @param block the key of the block
+	 * @return the index of the block or a negative value if no bit of this block is set to 1
+	 */
+	public int indexOfBlock(int block) {
+		return Arrays.binarySearch(keys, 0, blockCount, block);
+	}
+
+	/**
+	 * Get the offset of the first bit set to 1 in a block that is at or after a given offset.
+	 * @param index the index of the block
+	 * @param fromOffset the offset where the search starts
+	 * @return the offset or -1 if there is none
+	 */
+	public int nextSetBitInBlock(int index, int fromOffset) {
+		if (fromOffset > MAX_OFFSET) {
+			return -1;
+		}
+		// if the block is a bitmap container
+		if (bitmaps != null && bitmaps[index] != null) {
+			long[] bitmap = bitmaps[index];
+			int wordIndex = fromOffset >>> 6;
+			long word = bitmap[wordIndex] & (-1L << fromOffset);
+			while (true) {
+				if (word != 0) {
+					return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+				}
+				if (++wordIndex == BITMAP_CONTAINER_WORDS) {
+					return -1;
+				}
+				word = bitmap[wordIndex];
+			}
+		}
+		// otherwise, it is an array container
+		int from = starts[index];
+		int to = starts[index + 1];
+		if (values[from] >= fromOffset) {
+			return values[from];
+		}
+		int position = Arrays.binarySearch(values, from, to, (char) fromOffset);
+		if (position < 0) {
+			position = -position - 1;
+		}
+		return position < to ? values[position] : -1;
+	}
+
+	/**
+	 * Create a new bitset containing the bits that are set to 1 in this bitset and in another bitset
+	 * @param other the other bitset
+	 * @return the new bitset
+	 */
+	public CompressedBitSet and(CompressedBitSet other) {
+		CompressedBitSet result = new CompressedBitSet(Math.max(1, Math.min(blockCount, other.blockCount)),
+				Math.max(1, Math.min(valueCount, other.valueCount)));
+		int i = 0;
+		int j = 0;
+		while (i < blockCount && j < other.blockCount) {
+			int key = keys[i];
+			int otherKey = other.keys[j];
+			if (key < otherKey) {
+				i = advanceUntil(keys, i, blockCount, otherKey);
+			} else if (key > otherKey) {
+				j = advanceUntil(other.keys, j, other.blockCount, key);
+			} else {
+				long[] bitmap = bitmaps == null ? null : bitmaps[i];
+				long[] otherBitmap = other.bitmaps == null ? null : other.bitmaps[j];
+				if (bitmap != null && otherBitmap != null) {
+					// AND of two bitmap containers
+					long[] words = new long[BITMAP_CONTAINER_WORDS];
+					for (int w = 0; w < BITMAP_CONTAINER_WORDS; w++) {
+						words[w] = bitmap[w] & otherBitmap[w];
+					}
+					result.appendBitmapContainer(key, words);
+				} else if (bitmap != null || otherBitmap != null) {
+					// AND of an array container with a bitmap container
+					CompressedBitSet arraySet = bitmap == null ? this : other;
+					int arrayIndex = bitmap == null ? i : j;
+					long[] words = bitmap == null ? otherBitmap : bitmap;
+					result.ensureValueCapacity(arraySet.starts[arrayIndex + 1] - arraySet.starts[arrayIndex]);
+					for (int k = arraySet.starts[arrayIndex]; k < arraySet.starts[arrayIndex + 1]; k++) {
+						char value = arraySet.values[k];
+						if ((words[value >>> 6] & (1L << value)) != 0) {
+							result.values[result.valueCount++] = value;
+						}
+					}
+					result.appendArrayContainer(key);
+				} else {
+					// AND of two array containers
+					int k = starts[i];
+					int kEnd = starts[i + 1];
+					int l = other.starts[j];
+					int lEnd = other.starts[j + 1];
+					result.ensureValueCapacity(Math.min(kEnd - k, lEnd - l));
+					while (k < kEnd && l < lEnd) {
+						char value = values[k];
+						char otherValue = other.values[l];
+						if (value < otherValue) {
+							k++;
+						} else if (value > otherValue) {
+							l++;
+						} else {
+							result.values[result.valueCount++] = value;
+							k++;
+							l++;
+						}
+					}
+					result.appendArrayContainer(key);
+				}
+				i++;
+				j++;
+			}
+		}
+		result.trim();
+		return result;
+	}
+
+	/**
+	 * Create a new bitset containing, for each block where some bits are set to 1 in this
+	 * bitset and in another bitset, the bits of the other bitset that are strictly after the first bit of
+	 * this bitset in that block. If each block stores the positions of a sequence, this is
+	 * the S-step of vertical sequential pattern mining algorithms such as SPAM, where
+	 * this bitset is the bitmap of a prefix and the other bitset is the bitmap of an item.
+	 * @param other the other bitset
+	 * @return the new bitset
+	 */
+	public CompressedBitSet andAfterFirstBitOfEachBlock(CompressedBitSet other) {
+		CompressedBitSet result = new CompressedBitSet(Math.max(1, Math.min(blockCount, other.blockCount)),
+				Math.max(1, Math.min(valueCount, other.valueCount)));
+		int i = 0;
+		int j = 0;
+		while (i < blockCount && j < other.blockCount) {
+			int key = keys[i];
+			int otherKey = other.keys[j];
+			if (key < otherKey) {
+				i = advanceUntil(keys, i, blockCount, otherKey);
+			} else if (key > otherKey) {
+				j = advanceUntil(other.keys, j, other.blockCount, key);
+			} else {
+				// the first offset that can be kept in the other block
+				int from = nextSetBitInBlock(i, 0) + 1;
+				long[] otherBitmap = other.bitmaps == null ? null : other.bitmaps[j];
+				if (from > MAX_OFFSET) {
+					// no bit after the first bit
+				} else if (otherBitmap != null) {
+					// copy the words of the bitmap container after the first bit
+					long[] words = new long[BITMAP_CONTAINER_WORDS];
+					int wordIndex = from >>> 6;
+					words[wordIndex] = otherBitmap[wordIndex] & (-1L << from);
+					System.arraycopy(otherBitmap, wordIndex + 1, words, wordIndex + 1,
+							BITMAP_CONTAINER_WORDS - wordIndex - 1);
+					result.appendBitmapContainer(key, words);
+				} else {
+					// copy the tail of the array container after the first bit
+					int l = other.starts[j];
+					int lEnd = other.starts[j + 1];
+					if (other.values[l] < from) {
+						l = Arrays.binarySearch(other.values, l, lEnd, (char) from);
+						if (l < 0) {
+							l = -l - 1;
+						}
+					}
+					int length = lEnd - l;
+					if (length > 0) {
+						result.ensureValueCapacity(length);
+						System.arraycopy(other.values, l, result.values, result.valueCount, length);
+						result.valueCount += length;
+						result.appendArrayContainer(key);
+					}
+				}
+				i++;
+				j++;
+			}
+		}
+		result.trim();
+		return result;
+	}
+
+	/**
+	 * Get the approximate memory used by this bitset
+	 * @return the size in bytes
+	 */
+	public long getSizeInBytes() {
+		// the object and the headers of its three arrays
+		long size = 40 + 3 * 16 + 4L * keys.length + 4L * starts.length + 2L * values.length;
+		if (bitmaps != null) {
+			size += 16 + 8L * bitmaps.length;
+			for (int i = 0; i < blockCount; i++) {
+				if (bitmaps[i] != null) {
+					size += 16 + 8L * BITMAP_CONTAINER_WORDS;
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Reduce the capacity of the internal arrays to the space that is used.
+	 */
+	public void trim() {
+		if (keys.length > blockCount) {
+			keys = Arrays.copyOf(keys, blockCount);
+			starts = Arrays.copyOf(starts, blockCount + 1);
+			if (bitmaps != null) {
+				bitmaps = Arrays.copyOf(bitmaps, blockCount);
+			}
+		}
+		if (values.length > valueCount) {
+			values = Arrays.copyOf(values, valueCount);
+		}
+	}
+
+	/**
+	 * Get a string representation of this bitset, where each
+	 * bit is written as block:offset
+	 * @return a string
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder("{");
+		for (int i = 0; i < blockCount; i++) {
+			for (int offset = nextSetBitInBlock(i, 0); offset >= 0; offset = nextSetBitInBlock(i, offset + 1)) {
+				if (buffer.length() > 1) {
+					buffer.append(", ");
+				}
+				buffer.append(keys[i]).append(':').append(offset);
+			}
+		}
+		return buffer.append('}').toString();
+	}
+
+	/**
+	 * Insert an empty block
+	 * @param index the index where the block is inserted
+	 * @param block the key of the block
+	 * @return the index
+	 */
+	private int insertBlock(int index, int block) {
+		ensureBlockCapacity();
+		System.arraycopy(keys, index, keys, index + 1, blockCount - index);
+		System.arraycopy(starts, index, starts, index + 1, blockCount - index + 1);
+		if (bitmaps != null) {
+			System.arraycopy(bitmaps, index, bitmaps, index + 1, blockCount - index);
+			bitmaps[index] = null;
+		}
+		keys[index] = block;
+		blockCount++;
+		return index;
+	}
+
+	/**
+	 * Append a block made of the offsets that were written in "values" after the end of the
+	 * last block. The block is not added if there are no such offsets.
+	 * @param block the key of the block
+	 */
+	private void appendArrayContainer(int block) {
+		if (valueCount > starts[blockCount]) {
+			ensureBlockCapacity();
+			keys[blockCount] = block;
+			blockCount++;
+			starts[blockCount] = valueCount;
+		}
+	}
+
+	/**
+	 * Append a block from a bitmap. The block is stored as an array container
+	 * if the bitmap has few bits, and is not added if the bitmap is empty.
+	 * @param block the key of the block
+	 * @param words the bitmap
+	 */
+	private void appendBitmapContainer(int block, long[] words) {
+		int cardinality = bitmapCardinality(words);
+		if (cardinality <= MAX_ARRAY_CONTAINER_SIZE) {
+			ensureValueCapacity(cardinality);
+			for (int w = 0; w < BITMAP_CONTAINER_WORDS; w++) {
+				long word = words[w];
+				while (word != 0) {
+					values[valueCount++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			appendArrayContainer(block);
+			return;
+		}
+		ensureBlockCapacity();
+		if (bitmaps == null) {
+			bitmaps = new long[keys.length][];
+		}
+		keys[blockCount] = block;
+		bitmaps[blockCount] = words;
+		blockCount++;
+		starts[blockCount] = valueCount;
+	}
+
+	/**
+	 * Convert an array container to a bitmap container
+	 * @param index the index of the block
+	 */
+	private void convertToBitmapContainer(int index) {
+		int from = starts[index];
+		int to = starts[index + 1];
+		long[] words = new long[BITMAP_CONTAINER_WORDS];
+		for (int k = from; k < to; k++) {
+			words[values[k] >>> 6] |= 1L << values[k];
+		}
+		// remove the offsets from the array "values"
+		System.arraycopy(values, to, values, from, valueCount - to);
+		valueCount -= to - from;
+		for (int i = index + 1; i <= blockCount; i++) {
+			starts[i] -= to - from;
+		}
+		if (bitmaps == null) {
+			bitmaps = new long[keys.length][];
+		}
+		bitmaps[index] = words;
+	}
+
+	/**
+	 * Make sure that one more block can be added
+	 */
+	private void ensureBlockCapacity() {
+		if (blockCount == keys.length) {
+			int capacity = Math.max(4, keys.length * 2);
+			keys = Arrays.copyOf(keys, capacity);
+			starts = Arrays.copyOf(starts, capacity + 1);
+			if (bitmaps != null) {
+				bitmaps = Arrays.copyOf(bitmaps, capacity);
+			}
+		}
+	}
+
+	/**
+	 * Make sure that some offsets can be added to the array "values"
+	 * @param count the number of offsets
+	 */
+	private void ensureValueCapacity(int count) {
+		if (valueCount + count > values.length) {
+			values = Arrays.copyOf(values, Math.max(valueCount + count, values.length * 2));
+		}
+	}
+
+	/**
+	 * Get the number of bits set to 1 in a bitmap container
+	 * @param words the bitmap container
+	 * @return the number of bits
+	 */
+	private static int bitmapCardinality(long[] words) {
+		int cardinality = 0;
+		for (long word : words) {
+			cardinality += Long.bitCount(word);
+		}
+		return cardinality;
+	}
+
+	/**
+	 * Find the first index after a given index where a sorted array contains a value
+	 * that is greater or equal to a key, by galloping and then doing a binary search.
+	 * @param array the sorted array
+	 * @param index the index (the value at that index is smaller than the key)
+	 * @param length the number of values used in the array
+	 * @param key the key
+	 * @return the index or "length" if there is none
+	 */
+	private static int advanceUntil(int[] array, int index, int length, int key) {
+		int lower = index + 1;
+		if (lower >= length || array[lower] >= key) {
+			return lower;
+		}
+		int step = 1;
+		while (lower + step < length && array[lower + step] < key) {
+			lower += step;
+			step *= 2;
+		}
+		int upper = Math.min(lower + step, length - 1);
+		if (array[upper] < key) {
+			return length;
+		}
+		int position = Arrays.binarySearch(array, lower + 1, upper + 1, key);
+		return position >= 0 ? position : -position - 1;
+	}
+}
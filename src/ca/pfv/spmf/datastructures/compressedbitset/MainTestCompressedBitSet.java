@@ -0,0 +1,67 @@
+package ca.pfv.spmf.datastructures.compressedbitset;
+
+import java.util.BitSet;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class is for testing the CompressedBitSet
+ *
+ * @see CompressedBitSet
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestCompressedBitSet {
+
+	/** Method for testing */
+	public static void main(String[] args) {
+		// Create a bitset where each block is a sequence and each offset an itemset
+		CompressedBitSet prefix = new CompressedBitSet();
+		prefix.set(0, 1);
+		prefix.set(0, 3);
+		prefix.set(2, 0);
+		prefix.set(100000, 5);
+
+		CompressedBitSet item = new CompressedBitSet();
+		item.set(0, 0);
+		item.set(0, 2);
+		item.set(0, 3);
+		item.set(1, 4);
+		item.set(2, 0);
+		item.set(100000, 2);
+
+		System.out.println("Prefix: " + prefix);
+		System.out.println("Item: " + item);
+		System.out.println("Prefix AND item (I-step): " + prefix.and(item));
+		System.out.println("Item after the prefix in each block (S-step): "
+				+ prefix.andAfterFirstBitOfEachBlock(item));
+
+		// Compare the memory used by a sparse bitset with that of a BitSet
+		CompressedBitSet sparse = new CompressedBitSet();
+		BitSet bitset = new BitSet();
+		for (int position = 0; position < 10000000; position += 1000) {
+			sparse.set(position);
+			bitset.set(position);
+		}
+		sparse.trim();
+		System.out.println("Cardinality: " + sparse.cardinality() + " " + bitset.cardinality());
+		System.out.println("Next set bit after 12345: " + sparse.nextSetBit(12345) + " "
+				+ bitset.nextSetBit(12345));
+		System.out.println("Size of the compressed bitset (bytes): " + sparse.getSizeInBytes());
+		System.out.println("Size of the BitSet (bytes): " + bitset.size() / 8);
+	}
+}
@@ -0,0 +1,138 @@
+package ca.pfv.spmf.datastructures.tidset;
+
+
+/* This file is copyright (c) 2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * A tidset (set of transaction identifiers) created by a TidsetEngine. Like the containers of
+ * roaring bitmaps, a tidset is stored either as a sorted array of transaction identifiers
+ * (for sparse tidsets) or as an uncompressed bitmap (for dense tidsets). The engine chooses
+ * the representation from the cardinality of the tidset when it is created.
+ * <br/><br/>
+ * 
+ * The arrays of a tidset are borrowed from the pools of the engine that created it and are
+ * usually larger than needed. A tidset should thus only be read through its methods,
+ * and released with TidsetEngine.release() when it is not needed anymore.
+ * 
+ * @see TidsetEngine
+ * @author Philippe Fournier-Viger
+ */
+public class Tidset {
+
+	/** the transaction identifiers if the tidset is an array (sorted, only the first "cardinality" are used) */
+	int[] tids;
+
+	/** the words of the bitmap if the tidset is a bitmap */
+	long[] words;
+
+	/** the number of transaction identifiers in this tidset */
+	int cardinality;
+
+	/**
+	 * Constructor (tidsets are created by the TidsetEngine)
+	 */
+	Tidset() {
+
+	}
+
+	/**
+	 * Get the number of transaction identifiers in this tidset.
+	 * @return the cardinality
+	 */
+	public int getCardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * Check if this tidset is stored as a bitmap.
+	 * @return true if it is a bitmap, false if it is a sorted array
+	 */
+	public boolean isBitmap() {
+		return words != null;
+	}
+
+	/**
+	 * Check if this tidset contains a transaction identifier.
+	 * @param tid the transaction identifier
+	 * @return true if it is contained in this tidset
+	 */
+	public boolean contains(int tid) {
+		if (words != null) {
+			return (words[tid >>> 6] & (1L << tid)) != 0;
+		}
+		return binarySearch(tids, 0, cardinality, tid) >= 0;
+	}
+
+	/**
+	 * Get the transaction identifiers of this tidset in ascending order.
+	 * @return a new array of size getCardinality()
+	 */
+	public int[] toArray() {
+		int[] array = new int[cardinality];
+		if (words == null) {
+			System.arraycopy(tids, 0, array, 0, cardinality);
+		} else {
+			int pos = 0;
+			for (int w = 0; pos < cardinality; w++) {
+				long word = words[w];
+				while (word != 0) {
+					array[pos++] = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Search a value in a sorted part of an array.
+	 * @param array the array
+	 * @param from the first position (inclusive)
+	 * @param to the last position (exclusive)
+	 * @param value the value
+	 * @return the position of the value, or -(insertion point) - 1 if it is not found
+	 */
+	static int binarySearch(int[] array, int from, int to, int value) {
+		int low = from;
+		int high = to - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleValue = array[middle];
+			if (middleValue < value) {
+				low = middle + 1;
+			} else if (middleValue > value) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		for (int tid : toArray()) {
+			if (buffer.length() > 0) {
+				buffer.append(' ');
+			}
+			buffer.append(tid);
+		}
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,461 @@
+package ca.pfv.spmf.datastructures.tidset;
+
+import java.util.Arrays;
+
+import ca.pfv.spmf.datastructures.bitsetpool.IntArrayPool;
+import ca.pfv.spmf.datastructures.bitsetpool.LongArrayPool;
+
+
+/* This file is copyright (c) 2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class creates and combines the tidsets of vertical mining algorithms such as Eclat,
+ * dEclat and Charm. Each tidset is stored as a sorted array of transaction identifiers or
+ * as a bitmap, depending on its density, and the operations of the engine work on
+ * any combination of the two representations:
+ * <br/><br/>
+ * 
+ * - intersect() calculates the tidset of an itemset XY from the tidsets of X and Y,<br/>
+ * - difference() calculates a diffset (as used by dEclat) from two tidsets or two diffsets.
+ * <br/><br/>
+ * 
+ * The results are written into arrays borrowed from pools, so that mining a large equivalence
+ * class does not allocate new memory once the pools are warm. Both operations also stop as soon
+ * as the result is known to be too large or too small to be useful (for example, an intersection
+ * whose support cannot reach minsup anymore), in which case null is returned.
+ * <br/><br/>
+ * 
+ * Whether an equivalence class should use diffsets instead of tidsets is decided by
+ * preferDiffsets(). An engine is not thread-safe.
+ * 
+ * @see Tidset
+ * @see IntArrayPool
+ * @see LongArrayPool
+ * @author Philippe Fournier-Viger
+ */
+public class TidsetEngine {
+
+	/** A tidset is stored as a bitmap if its cardinality multiplied by this ratio
+	 * is at least the number of transactions (an int takes 32 times more space than a bit) */
+	private static final int BITMAP_RATIO = 32;
+
+	/** Two sorted arrays are intersected by binary searches instead of a merge if the
+	 * largest array is this number of times larger than the smallest one */
+	private static final int GALLOPING_RATIO = 32;
+
+	/** the number of transactions */
+	private final int transactionCount;
+
+	/** the number of words of a bitmap */
+	private final int wordCount;
+
+	/** the pool of arrays used by sparse tidsets */
+	private final IntArrayPool arrayPool;
+
+	/** the pool of arrays used by bitmaps */
+	private final LongArrayPool bitmapPool;
+
+	/**
+	 * Constructor
+	 * @param transactionCount the number of transactions of the database
+	 */
+	public TidsetEngine(int transactionCount) {
+		this.transactionCount = transactionCount;
+		this.wordCount = Math.max(1, (transactionCount + 63) >>> 6);
+		this.arrayPool = new IntArrayPool(16);
+		this.bitmapPool = new LongArrayPool(16, wordCount);
+	}
+
+	/**
+	 * Get the number of transactions
+	 * @return the number of transactions
+	 */
+	public int getTransactionCount() {
+		return transactionCount;
+	}
+
+	/**
+	 * Create a tidset from an array of transaction identifiers.
+	 * @param tids the transaction identifiers in ascending order (the array is copied)
+	 * @param length the number of transaction identifiers to take from the array
+	 * @return the tidset
+	 */
+	public Tidset createTidset(int[] tids, int length) {
+		Tidset tidset = new Tidset();
+		tidset.cardinality = length;
+		if (isDense(length)) {
+			long[] words = bitmapPool.getArray();
+			Arrays.fill(words, 0L);
+			for (int i = 0; i < length; i++) {
+				int tid = tids[i];
+				words[tid >>> 6] |= 1L << tid;
+			}
+			tidset.words = words;
+		} else {
+			int[] array = arrayPool.getArray(length);
+			System.arraycopy(tids, 0, array, 0, length);
+			tidset.tids = array;
+		}
+		return tidset;
+	}
+
+	/**
+	 * Calculate the intersection of two tidsets.
+	 * @param tidsetI the first tidset
+	 * @param tidsetJ the second tidset
+	 * @param minCardinality the minimum cardinality of the result (e.g. minsup)
+	 * @return the intersection, or null if its cardinality is less than minCardinality
+	 */
+	public Tidset intersect(Tidset tidsetI, Tidset tidsetJ, int minCardinality) {
+		// we loop on the smallest tidset
+		Tidset small = tidsetI;
+		Tidset large = tidsetJ;
+		if (small.cardinality > large.cardinality) {
+			small = tidsetJ;
+			large = tidsetI;
+		}
+		// early abort: the intersection cannot be larger than the smallest tidset
+		if (small.cardinality < minCardinality) {
+			return null;
+		}
+		if (small.words != null && large.words != null) {
+			return intersectBitmaps(small, large, minCardinality);
+		}
+		if (small.words != null) {
+			// a bitmap with a smaller cardinality than an array: swap the roles
+			return intersectArrayWithBitmap(large, small, minCardinality, small.cardinality);
+		}
+		if (large.words != null) {
+			return intersectArrayWithBitmap(small, large, minCardinality, small.cardinality);
+		}
+		if (small.cardinality > 0 && large.cardinality / small.cardinality >= GALLOPING_RATIO) {
+			return intersectArraysGalloping(small, large, minCardinality);
+		}
+		return intersectArrays(small, large, minCardinality);
+	}
+
+	/**
+	 * Calculate the difference of two tidsets (the tids of the first tidset that are not in the
+	 * second one). The result is a diffset, as used by dEclat.
+	 * @param tidsetI the first tidset
+	 * @param tidsetJ the second tidset
+	 * @param maxCardinality the maximum cardinality of the result (e.g. the support of the 
+	 *    prefix minus minsup)
+	 * @return the difference, or null if its cardinality is greater than maxCardinality
+	 */
+	public Tidset difference(Tidset tidsetI, Tidset tidsetJ, int maxCardinality) {
+		// early abort: the difference contains at least |I| - |J| tids
+		if (tidsetI.cardinality - tidsetJ.cardinality > maxCardinality) {
+			return null;
+		}
+		if (tidsetI.words == null) {
+			return differenceOfArray(tidsetI, tidsetJ, maxCardinality);
+		}
+		if (tidsetJ.words != null) {
+			return differenceOfBitmaps(tidsetI, tidsetJ, maxCardinality);
+		}
+		return differenceOfBitmapAndArray(tidsetI, tidsetJ, maxCardinality);
+	}
+
+	/**
+	 * Release a tidset so that its memory can be reused by the next tidsets.
+	 * The tidset must not be used after calling this method.
+	 * @param tidset the tidset
+	 */
+	public void release(Tidset tidset) {
+		if (tidset.words != null) {
+			bitmapPool.releaseArray(tidset.words);
+			tidset.words = null;
+		} else if (tidset.tids != null) {
+			arrayPool.releaseArray(tidset.tids);
+			tidset.tids = null;
+		}
+		tidset.cardinality = 0;
+	}
+
+	/**
+	 * Decide if the itemsets of an equivalence class with a given prefix should be represented
+	 * by diffsets rather than tidsets. A diffset d(PXY) = t(PX) - t(PY) is smaller than the tidset
+	 * t(PXY) when the itemsets PY keep more than half of the transactions of the prefix P, which
+	 * is estimated by the average support of the itemsets of the class.
+	 * @param supportPrefix the support of the prefix P
+	 * @param sumOfSupports the sum of the supports of the itemsets PY of the class
+	 * @param count the number of itemsets PY of the class
+	 * @return true if diffsets should be used
+	 */
+	public boolean preferDiffsets(int supportPrefix, long sumOfSupports, int count) {
+		return count > 0 && 2 * sumOfSupports > (long) supportPrefix * count;
+	}
+
+	/**
+	 * Check if a tidset of a given cardinality should be stored as a bitmap.
+	 * @param cardinality the cardinality
+	 * @return true if it should be a bitmap
+	 */
+	private boolean isDense(int cardinality) {
+		return (long) cardinality * BITMAP_RATIO >= transactionCount;
+	}
+
+	/**
+	 * Intersect two sorted arrays by merging them.
+	 */
+	private Tidset intersectArrays(Tidset small, Tidset large, int minCardinality) {
+		int[] tidsI = small.tids;
+		int[] tidsJ = large.tids;
+		int sizeI = small.cardinality;
+		int sizeJ = large.cardinality;
+		int[] result = arrayPool.getArray(sizeI);
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < sizeI && j < sizeJ) {
+			int tidI = tidsI[i];
+			int tidJ = tidsJ[j];
+			if (tidI < tidJ) {
+				i++;
+				// early abort if the remaining tids cannot reach the minimum cardinality
+				if (count + sizeI - i < minCardinality) {
+					break;
+				}
+			} else if (tidI > tidJ) {
+				j++;
+				if (count + sizeJ - j < minCardinality) {
+					break;
+				}
+			} else {
+				result[count++] = tidI;
+				i++;
+				j++;
+			}
+		}
+		return arrayResult(result, count, minCardinality);
+	}
+
+	/**
+	 * Intersect a small sorted array with a much larger one by binary searches.
+	 */
+	private Tidset intersectArraysGalloping(Tidset small, Tidset large, int minCardinality) {
+		int[] tidsI = small.tids;
+		int[] tidsJ = large.tids;
+		int sizeI = small.cardinality;
+		int sizeJ = large.cardinality;
+		int[] result = arrayPool.getArray(sizeI);
+		int count = 0;
+		int from = 0;
+		for (int i = 0; i < sizeI && from < sizeJ; i++) {
+			int position = Tidset.binarySearch(tidsJ, from, sizeJ, tidsI[i]);
+			if (position >= 0) {
+				result[count++] = tidsI[i];
+				from = position + 1;
+			} else {
+				from = -position - 1;
+				// early abort if the remaining tids cannot reach the minimum cardinality
+				if (count + sizeI - i - 1 < minCardinality) {
+					break;
+				}
+			}
+		}
+		return arrayResult(result, count, minCardinality);
+	}
+
+	/**
+	 * Intersect a sorted array with a bitmap. The result cannot contain more than
+	 * "capacity" tids (the cardinality of the smallest of the two tidsets).
+	 */
+	private Tidset intersectArrayWithBitmap(Tidset array, Tidset bitmap, int minCardinality, int capacity) {
+		int[] tids = array.tids;
+		long[] words = bitmap.words;
+		int size = array.cardinality;
+		int[] result = arrayPool.getArray(Math.min(size, capacity));
+		int count = 0;
+		for (int i = 0; i < size && count < capacity; i++) {
+			int tid = tids[i];
+			if ((words[tid >>> 6] & (1L << tid)) != 0) {
+				result[count++] = tid;
+			} else if (count + Math.min(size - i - 1, capacity - count) < minCardinality) {
+				// early abort if the remaining tids cannot reach the minimum cardinality
+				break;
+			}
+		}
+		return arrayResult(result, count, minCardinality);
+	}
+
+	/**
+	 * Intersect two bitmaps.
+	 */
+	private Tidset intersectBitmaps(Tidset small, Tidset large, int minCardinality) {
+		long[] wordsI = small.words;
+		long[] wordsJ = large.words;
+		long[] result = bitmapPool.getArray();
+		int count = 0;
+		// the number of tids of the smallest bitmap that have not been visited yet
+		int remaining = small.cardinality;
+		for (int w = 0; w < wordCount; w++) {
+			long wordI = wordsI[w];
+			if (wordI == 0) {
+				result[w] = 0;
+				continue;
+			}
+			long word = wordI & wordsJ[w];
+			result[w] = word;
+			count += Long.bitCount(word);
+			remaining -= Long.bitCount(wordI);
+			// early abort if the remaining tids cannot reach the minimum cardinality
+			if (count + remaining < minCardinality) {
+				bitmapPool.releaseArray(result);
+				return null;
+			}
+		}
+		return bitmapResult(result, count);
+	}
+
+	/**
+	 * Calculate the difference between a sorted array and a tidset.
+	 */
+	private Tidset differenceOfArray(Tidset tidsetI, Tidset tidsetJ, int maxCardinality) {
+		int[] tidsI = tidsetI.tids;
+		int sizeI = tidsetI.cardinality;
+		int[] result = arrayPool.getArray(sizeI);
+		int count = 0;
+		if (tidsetJ.words != null) {
+			long[] wordsJ = tidsetJ.words;
+			for (int i = 0; i < sizeI; i++) {
+				int tid = tidsI[i];
+				if ((wordsJ[tid >>> 6] & (1L << tid)) == 0) {
+					result[count++] = tid;
+					// early abort if the result is too large
+					if (count > maxCardinality) {
+						arrayPool.releaseArray(result);
+						return null;
+					}
+				}
+			}
+		} else {
+			int[] tidsJ = tidsetJ.tids;
+			int sizeJ = tidsetJ.cardinality;
+			int j = 0;
+			for (int i = 0; i < sizeI; i++) {
+				int tid = tidsI[i];
+				while (j < sizeJ && tidsJ[j] < tid) {
+					j++;
+				}
+				if (j == sizeJ || tidsJ[j] != tid) {
+					result[count++] = tid;
+					// early abort if the result is too large
+					if (count > maxCardinality) {
+						arrayPool.releaseArray(result);
+						return null;
+					}
+				}
+			}
+		}
+		Tidset tidset = new Tidset();
+		tidset.tids = result;
+		tidset.cardinality = count;
+		return tidset;
+	}
+
+	/**
+	 * Calculate the difference between two bitmaps.
+	 */
+	private Tidset differenceOfBitmaps(Tidset tidsetI, Tidset tidsetJ, int maxCardinality) {
+		long[] wordsI = tidsetI.words;
+		long[] wordsJ = tidsetJ.words;
+		long[] result = bitmapPool.getArray();
+		int count = 0;
+		for (int w = 0; w < wordCount; w++) {
+			long word = wordsI[w] & ~wordsJ[w];
+			result[w] = word;
+			count += Long.bitCount(word);
+			// early abort if the result is too large
+			if (count > maxCardinality) {
+				bitmapPool.releaseArray(result);
+				return null;
+			}
+		}
+		return bitmapResult(result, count);
+	}
+
+	/**
+	 * Calculate the difference between a bitmap and a sorted array.
+	 */
+	private Tidset differenceOfBitmapAndArray(Tidset tidsetI, Tidset tidsetJ, int maxCardinality) {
+		int[] tidsJ = tidsetJ.tids;
+		int sizeJ = tidsetJ.cardinality;
+		long[] result = bitmapPool.getArray();
+		System.arraycopy(tidsetI.words, 0, result, 0, wordCount);
+		int count = tidsetI.cardinality;
+		for (int j = 0; j < sizeJ; j++) {
+			int tid = tidsJ[j];
+			long mask = 1L << tid;
+			if ((result[tid >>> 6] & mask) != 0) {
+				result[tid >>> 6] &= ~mask;
+				count--;
+			} else if (count - (sizeJ - j - 1) > maxCardinality) {
+				// early abort if the result is too large
+				bitmapPool.releaseArray(result);
+				return null;
+			}
+		}
+		if (count > maxCardinality) {
+			bitmapPool.releaseArray(result);
+			return null;
+		}
+		return bitmapResult(result, count);
+	}
+
+	/**
+	 * Create a tidset from a sorted array that was just calculated, or release the array
+	 * if the tidset is too small.
+	 */
+	private Tidset arrayResult(int[] result, int count, int minCardinality) {
+		if (count < minCardinality) {
+			arrayPool.releaseArray(result);
+			return null;
+		}
+		Tidset tidset = new Tidset();
+		tidset.tids = result;
+		tidset.cardinality = count;
+		return tidset;
+	}
+
+	/**
+	 * Create a tidset from a bitmap that was just calculated. If the bitmap has become
+	 * sparse, it is converted to a sorted array.
+	 */
+	private Tidset bitmapResult(long[] result, int count) {
+		Tidset tidset = new Tidset();
+		tidset.cardinality = count;
+		if (isDense(count)) {
+			tidset.words = result;
+		} else {
+			int[] tids = arrayPool.getArray(count);
+			int pos = 0;
+			for (int w = 0; pos < count; w++) {
+				long word = result[w];
+				while (word != 0) {
+					tids[pos++] = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			bitmapPool.releaseArray(result);
+			tidset.tids = tids;
+		}
+		return tidset;
+	}
+}
@@ -1,26 +1,36 @@
 package ca.pfv.spmf.experimental.iolayer;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
 
 public class SPMFTextFileReader extends AbstractSPMFReader {
-	// We scan the database a first time to calculate the support of each item.
-	BufferedReader myInput = null;
+	// The tokenizer used to read the file without creating strings for data lines.
+	SPMFTokenizer tokenizer = null;
 	
 	SPMFTextFileReader(IOContext context, String input) throws IOException{
 		super(context);
-		myInput = new BufferedReader(new InputStreamReader( new FileInputStream(new File(input))));
+		tokenizer = new SPMFTokenizer(input);
 	}
 
 	public String readLine() throws IOException {
-		return myInput.readLine();
+		if(tokenizer.readLine() == false) {
+			return null;
+		}
+		return tokenizer.getLineAsString();
+	}
+
+	/**
+	 * Get the tokenizer of this reader, to read the values of each line
+	 * without creating strings.
+	 * @return the tokenizer
+	 */
+	public SPMFTokenizer getTokenizer() {
+		return tokenizer;
 	}
 
 	public void doClose() throws IOException {
-		myInput.close();
+		tokenizer.close();
 		System.out.println("reader close");
 	}
 }
@@ -0,0 +1,525 @@
+package ca.pfv.spmf.experiments.oneparametervaried;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import ca.pfv.spmf.gui.preferences.PreferencesManager;
+
+/* This file is copyright (c) 2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+/**
+ * Class that runs a set of independent experiments (an algorithm with some
+ * parameter values) by calling the SPMF jar file. Each experiment is run in its
+ * own JVM, and several JVMs can be run at the same time. The number of JVMs
+ * that run at the same time is bounded, so that the runtime and memory usage of
+ * each experiment are not too much influenced by the other experiments. By
+ * default, it is half the number of available processors. <br/>
+ * <br/>
+ * 
+ * Each JVM can be given a fixed heap size (the same value for -Xms and -Xmx).
+ * An experiment that exceeds the timeout is killed. The console output of each
+ * experiment is first written to a separate file, and these files are then
+ * appended to the log file in the order of the experiments, so that the log
+ * file is the same as if the experiments had been run one after the other.
+ * 
+ * @see ExperimenterForParameterChange
+ * @see ExperimenterForScalability
+ * @author Philippe Fournier-Viger
+ */
+public class ExperimentRunner {
+
+	/**
+	 * The name of the system property indicating the file where a JVM running an
+	 * algorithm should write its memory usage
+	 */
+	public static final String MEMORY_FILE_PROPERTY = "ca.pfv.spmf.experiments.memoryfile";
+
+	/** The integer representing a timeout */
+	public static final int TIMEOUT_CODE = -999;
+
+	/**
+	 * An experiment, that is an algorithm run with some parameter values, and its
+	 * results
+	 */
+	public static class Experiment {
+		/** the arguments given to the SPMF jar file (e.g. run Apriori input.txt output.txt 40%) */
+		final List<String> arguments;
+		/** the output file of the algorithm */
+		final String outputFile;
+		/** a description of the experiment to be printed in the console */
+		final String description;
+
+		/** the runtime in seconds, or TIMEOUT_CODE */
+		double runtime;
+		/** the memory usage in megabytes, or TIMEOUT_CODE */
+		double memory;
+		/** the memory allocated by the algorithm in megabytes, or -1 if unknown */
+		double allocatedMemory = -1;
+		/** the number of garbage collections during the algorithm, or -1 if unknown */
+		long gcCount = -1;
+		/** the time of each phase of the algorithm in milliseconds (if the algorithm measures it) */
+		final Map<String, Double> phaseTimes = new LinkedHashMap<String, Double>();
+		/** the number of lines in the output file, or TIMEOUT_CODE */
+		int outputSize;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param arguments   the arguments given to the SPMF jar file
+		 * @param outputFile  the output file of the algorithm
+		 * @param description a description of the experiment to be printed in the
+		 *                    console
+		 */
+		public Experiment(List<String> arguments, String outputFile, String description) {
+			this.arguments = new ArrayList<String>(arguments);
+			this.outputFile = outputFile;
+			this.description = description;
+		}
+
+		/**
+		 * Get the runtime of this experiment
+		 * 
+		 * @return the runtime in seconds, or TIMEOUT_CODE if the experiment has timed
+		 *         out
+		 */
+		public double getRuntime() {
+			return runtime;
+		}
+
+		/**
+		 * Get the memory usage of this experiment
+		 * 
+		 * @return the memory usage in megabytes, or TIMEOUT_CODE if the experiment
+		 *         has timed out
+		 */
+		public double getMemory() {
+			return memory;
+		}
+
+		/**
+		 * Get the memory allocated by the algorithm during this experiment
+		 * 
+		 * @return the allocated memory in megabytes, or -1 if it is unknown (e.g.
+		 *         the experiment has timed out)
+		 */
+		public double getAllocatedMemory() {
+			return allocatedMemory;
+		}
+
+		/**
+		 * Get the number of garbage collections during this experiment
+		 * 
+		 * @return the number of garbage collections, or -1 if it is unknown
+		 */
+		public long getGCCount() {
+			return gcCount;
+		}
+
+		/**
+		 * Get the time of each phase of the algorithm during this experiment
+		 * 
+		 * @return a map where the key is the name of a phase and the value is its
+		 *         time in milliseconds (empty if the algorithm does not measure it)
+		 */
+		public Map<String, Double> getPhaseTimes() {
+			return phaseTimes;
+		}
+
+		/**
+		 * Get the size of the output file of this experiment
+		 * 
+		 * @return the number of lines, or TIMEOUT_CODE if the experiment has timed
+		 *         out
+		 */
+		public int getOutputSize() {
+			return outputSize;
+		}
+	}
+
+	/** The path to the JAR file of SPMF */
+	private String spmfJarPath = "spmf.jar";
+
+	/** The maximum number of experiments that are run at the same time */
+	private int maximumParallelism = getDefaultParallelism();
+
+	/** The heap size of each JVM in megabytes, or 0 to use the default of the JVM */
+	private int heapSizeInMB = 0;
+
+	/** If true, the command of each experiment is shown in the console */
+	private boolean showCommand = false;
+
+	/** If true, the size of the output file of each experiment is calculated */
+	private boolean compareOutputSize = true;
+
+	/** the number of experiments that have terminated */
+	private int terminatedCount = 0;
+
+	/**
+	 * Object to properly display the double numbers with two decimals using the
+	 * locale settings
+	 */
+	private final DecimalFormat formatTwoDecimals;
+
+	/**
+	 * Constructor
+	 */
+	public ExperimentRunner() {
+		formatTwoDecimals = (DecimalFormat) NumberFormat.getNumberInstance();
+		formatTwoDecimals.applyPattern("#.##");
+	}
+
+	/**
+	 * Get the default number of experiments that are run at the same time. This is
+	 * half the number of available processors, because the algorithms also use
+	 * some threads for garbage collection and because hyper-threads sharing a core
+	 * would make the runtimes unreliable.
+	 * 
+	 * @return the number of experiments (at least 1)
+	 */
+	public static int getDefaultParallelism() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	}
+
+	/**
+	 * Run some experiments, and store the results in the experiment objects.
+	 * 
+	 * @param experiments           the experiments
+	 * @param logFilePath           the file where the console output of the
+	 *                              experiments is appended
+	 * @param timeoutInMilliseconds the maximum time for each experiment
+	 * @throws Exception if some error occurs
+	 */
+	public void runExperiments(List<Experiment> experiments, String logFilePath, int timeoutInMilliseconds)
+			throws Exception {
+		terminatedCount = 0;
+		File logFile = new File(logFilePath);
+		File directory = logFile.getAbsoluteFile().getParentFile();
+
+		// Create a temporary log file for each experiment
+		List<File> experimentLogFiles = new ArrayList<File>();
+		for (int i = 0; i < experiments.size(); i++) {
+			experimentLogFiles.add(File.createTempFile("spmf_experiment_log", ".txt", directory));
+		}
+
+		System.out.println(" RUNNING " + experiments.size() + " EXPERIMENTS WITH " + maximumParallelism
+				+ " JVM(S) AT THE SAME TIME");
+		System.out.println();
+
+		ExecutorService executor = Executors.newFixedThreadPool(maximumParallelism);
+		try {
+			// Submit each experiment
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < experiments.size(); i++) {
+				final Experiment experiment = experiments.get(i);
+				final File experimentLogFile = experimentLogFiles.get(i);
+				futures.add(executor.submit(() -> {
+					runExperiment(experiment, experimentLogFile, timeoutInMilliseconds, experiments.size());
+					return null;
+				}));
+			}
+			// Wait for all experiments to terminate
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					throw new Exception("Error while running an experiment", e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+
+			// Append the log of each experiment to the log file, in the order
+			// of the experiments
+			try (FileOutputStream log = new FileOutputStream(logFile, true)) {
+				for (File experimentLogFile : experimentLogFiles) {
+					if (experimentLogFile.exists()) {
+						try (FileInputStream input = new FileInputStream(experimentLogFile)) {
+							input.transferTo(log);
+						}
+						experimentLogFile.delete();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run a single experiment in a new JVM and store its results
+	 * 
+	 * @param experiment            the experiment
+	 * @param logFile               the file for the console output of the JVM
+	 * @param timeoutInMilliseconds the maximum time for the experiment
+	 * @param experimentCount       the total number of experiments (for printing)
+	 * @throws Exception if some error occurs
+	 */
+	private void runExperiment(Experiment experiment, File logFile, int timeoutInMilliseconds, int experimentCount)
+			throws Exception {
+		// The JVM will write its memory usage to this file
+		File memoryFile = File.createTempFile("spmf_experiment_memory", ".txt", logFile.getParentFile());
+		memoryFile.delete();
+
+		// ========== PREPARE THE COMMAND =============
+		// The command will have a format like this:
+		// java -Xms1024m -Xmx1024m -jar spmf.jar run Apriori contextPasquier99.txt output.txt 40% 2
+		List<String> command = new ArrayList<String>();
+		command.add("java");
+		if (heapSizeInMB > 0) {
+			command.add("-Xms" + heapSizeInMB + "m");
+			command.add("-Xmx" + heapSizeInMB + "m");
+		}
+		command.add("-D" + MEMORY_FILE_PROPERTY + "=" + memoryFile.getAbsolutePath());
+		command.add("-jar");
+		command.add(spmfJarPath);
+		command.addAll(experiment.arguments);
+
+		// ===== Create an object to run the command in a separated process
+		ProcessBuilder pb = new ProcessBuilder(command);
+		// Indicate that the output must be redirected to the log file
+		pb.redirectOutput(Redirect.appendTo(logFile));
+		pb.redirectError(Redirect.appendTo(logFile));
+
+		try {
+			// Record the start time
+			long startTime = System.currentTimeMillis();
+
+			// Launch the algorithm
+			Process process = pb.start();
+
+			// Wait until the timeout for the algorithm to terminate
+			boolean exitValue = process.waitFor(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+
+			// Record the end time
+			long totalTime = System.currentTimeMillis() - startTime;
+
+			// If the algorithm has timed-out
+			if (exitValue == false) {
+				// Kill the JVM and wait for it, so that it does not use memory
+				// while the next experiment is running
+				process.destroyForcibly();
+				process.waitFor();
+
+				// Indicate in the results that the algorithm has timed-out
+				experiment.runtime = TIMEOUT_CODE;
+				experiment.memory = TIMEOUT_CODE;
+				experiment.outputSize = TIMEOUT_CODE;
+			} else {
+				// Record the execution time (in seconds)
+				experiment.runtime = totalTime / 1000d;
+
+				// Record the memory usage
+				readMemoryUsage(experiment, memoryFile);
+
+				// Record the size of the output file if the user wants it
+				if (compareOutputSize) {
+					experiment.outputSize = calculateSizeOfFile(experiment.outputFile);
+				}
+			}
+		} finally {
+			memoryFile.delete();
+		}
+
+		printResult(experiment, command, experimentCount);
+	}
+
+	/**
+	 * Print the result of an experiment in the console
+	 * 
+	 * @param experiment      the experiment
+	 * @param command         the command that was used to run the experiment
+	 * @param experimentCount the total number of experiments
+	 */
+	private synchronized void printResult(Experiment experiment, List<String> command, int experimentCount) {
+		terminatedCount++;
+		System.out.println(" *****  EXPERIMENT " + terminatedCount + " / " + experimentCount);
+		System.out.println(experiment.description);
+
+		// If the user wants to see the command (e.g. for debugging), we will show it
+		if (showCommand) {
+			// ===== Print the command for this experiment
+			StringBuilder theCommandAsString = new StringBuilder("   COMMAND: ");
+			for (String str : command) {
+				theCommandAsString.append(str);
+				theCommandAsString.append(' ');
+			}
+			System.out.println(theCommandAsString);
+		}
+
+		if (experiment.runtime == TIMEOUT_CODE) {
+			System.out.println("   TIME: TIME-OUT");
+		} else {
+			System.out.println("   TIME: " + formatTwoDecimals.format(experiment.runtime) + " s \t MEMORY: "
+					+ formatTwoDecimals.format(experiment.memory) + " MB");
+			if (experiment.allocatedMemory >= 0) {
+				System.out.println("   ALLOCATED: " + formatTwoDecimals.format(experiment.allocatedMemory)
+						+ " MB \t GARBAGE COLLECTIONS: " + experiment.gcCount);
+			}
+			for (Map.Entry<String, Double> phase : experiment.phaseTimes.entrySet()) {
+				System.out.println("   PHASE " + phase.getKey() + ": " + formatTwoDecimals.format(phase.getValue())
+						+ " ms");
+			}
+			System.out.print("   OUTPUT: " + new File(experiment.outputFile).getName());
+			if (compareOutputSize) {
+				System.out.print(" \t OUTPUT_SIZE: " + experiment.outputSize + " lines");
+			}
+			System.out.println();
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Read the memory usage written by a JVM that has run an algorithm. The file
+	 * contains the peak memory usage, and then (if the JVM supports it) the memory
+	 * allocated in megabytes and the number of garbage collections, one per line,
+	 * followed by the name and the time of each phase separated by a tab.
+	 * 
+	 * @param experiment the experiment where the values are stored
+	 * @param memoryFile the file written by the JVM
+	 */
+	private void readMemoryUsage(Experiment experiment, File memoryFile) {
+		if (memoryFile.exists()) {
+			try (BufferedReader reader = new BufferedReader(new FileReader(memoryFile))) {
+				String line = reader.readLine();
+				if (line != null) {
+					experiment.memory = Double.parseDouble(line.trim());
+					line = reader.readLine();
+					if (line != null) {
+						experiment.allocatedMemory = Double.parseDouble(line.trim());
+						line = reader.readLine();
+						if (line != null) {
+							experiment.gcCount = Long.parseLong(line.trim());
+							// the other lines contain the name and the time of a phase
+							while ((line = reader.readLine()) != null) {
+								int separator = line.lastIndexOf('\t');
+								if (separator > 0) {
+									experiment.phaseTimes.put(line.substring(0, separator),
+											Double.parseDouble(line.substring(separator + 1).trim()));
+								}
+							}
+						}
+					}
+					return;
+				}
+			} catch (IOException | NumberFormatException e) {
+				e.printStackTrace();
+			}
+		}
+		// If the file was not written (e.g. an older version of the jar file is
+		// used), the value stored in the registry is used. It is only reliable
+		// if a single experiment is run at a time.
+		experiment.memory = PreferencesManager.getInstance().getLastMemoryUsage();
+	}
+
+	/**
+	 * Calculate the size of an output file (the number of non empty lines that are
+	 * not comments or metadata)
+	 * 
+	 * @param file and output file path
+	 * @return the number of lines or -1 if the file cannot be read (does not exist
+	 *         or other reasons)
+	 */
+	static int calculateSizeOfFile(String file) {
+		int size = 0;
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			// for each line until the end of the file
+			while (((line = reader.readLine()) != null)) {
+				// if the line is a comment, is empty or is metadata
+				if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+					continue;
+				}
+				size++;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return -1;
+		}
+		return size;
+	}
+
+	/**
+	 * Set the path to the jar file of SPMF (SPMF.jar) for running the experiments
+	 * 
+	 * @param path the path
+	 */
+	public void setSPMFJarFilePath(String path) {
+		this.spmfJarPath = path;
+	}
+
+	/**
+	 * Set the maximum number of experiments that are run at the same time
+	 * 
+	 * @param maximumParallelism the number of JVMs (1 means that the experiments
+	 *                           are run one after the other)
+	 */
+	public void setMaximumParallelism(int maximumParallelism) {
+		this.maximumParallelism = Math.max(1, maximumParallelism);
+	}
+
+	/**
+	 * Get the maximum number of experiments that are run at the same time
+	 * 
+	 * @return the number of JVMs
+	 */
+	public int getMaximumParallelism() {
+		return maximumParallelism;
+	}
+
+	/**
+	 * Set the heap size of each JVM. The same value is used as minimum and maximum
+	 * heap size, so that the memory available to each experiment is the same.
+	 * 
+	 * @param heapSizeInMB the heap size in megabytes, or 0 to use the default of
+	 *                     the JVM
+	 */
+	public void setHeapSizeInMB(int heapSizeInMB) {
+		this.heapSizeInMB = heapSizeInMB;
+	}
+
+	/**
+	 * Set if the command of each experiment should be shown in the console
+	 * 
+	 * @param showCommand true to show the commands
+	 */
+	public void setShowCommand(boolean showCommand) {
+		this.showCommand = showCommand;
+	}
+
+	/**
+	 * Set if the size of the output file of each experiment should be calculated
+	 * 
+	 * @param compareOutputSize true to calculate the output sizes
+	 */
+	public void setCompareOutputSize(boolean compareOutputSize) {
+		this.compareOutputSize = compareOutputSize;
+	}
+}
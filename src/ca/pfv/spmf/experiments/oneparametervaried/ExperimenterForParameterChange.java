@@ -1,19 +1,13 @@
 package ca.pfv.spmf.experiments.oneparametervaried;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
-import java.lang.ProcessBuilder.Redirect;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-
-import ca.pfv.spmf.gui.preferences.PreferencesManager;
 
 /* This file is copyright (c) 2021 Philippe Fournier-Viger
 * 
@@ -50,7 +44,13 @@ public class ExperimenterForParameterChange {
 	private String timeoutCodeString = "TIMEOUT";
 
 	/** The integer representing a timeout */
-	private final int timeoutCode = -999;
+	private final int timeoutCode = ExperimentRunner.TIMEOUT_CODE;
+
+	/** The maximum number of experiments that are run at the same time */
+	private int maximumParallelism = ExperimentRunner.getDefaultParallelism();
+
+	/** The heap size of each JVM in megabytes, or 0 to use the default of the JVM */
+	private int heapSizeInMB = 0;
 
 	/**
 	 * Object to properly display the double numbers with two decimals using the
@@ -125,19 +125,17 @@ public class ExperimenterForParameterChange {
 		}
 
 		// ========== PREPARE THE INITIAL COMMAND FOR THE EXPERIMENTS =============
-		// The command will have a format like this:
-		// java -jar spmf.jar run Apriori contextPasquier99.txt output.txt 40% 2
+		// The arguments given to the jar file will have a format like this:
+		// run Apriori contextPasquier99.txt output.txt 40% 2
 
 		List<String> commandWithParameters = new ArrayList<String>();
-		commandWithParameters.add("java");
-		commandWithParameters.add("-jar");
-		commandWithParameters.add(spmfJarPath);
 		commandWithParameters.add("run");
 		commandWithParameters.add("PLACEHOLDER_ALGORITHM_NAME");
 		if (inputFile != null) {
 			commandWithParameters.add(inputFile);
 		}
 		commandWithParameters.add("PLACEHOLDER_OUTPUT_FILE");
+		int positionOfOutputFileInCommand = commandWithParameters.size() - 1;
 
 		// Calculate the position of the varied parameter in the command
 		int positionVariedParameterInCommand = commandWithParameters.size() + positionOfVariedParameter;
@@ -145,26 +143,24 @@ public class ExperimenterForParameterChange {
 			commandWithParameters.add(arg);
 		}
 
-		// Create array to store runtimes, memory usage, and the sizes of output files
-		// First dimension: Algorithm Second dimension: parameter value
-		double[][] runtimes = new double[algorithmNames.length][varyingParameterValues.length];
-		double[][] memoryResults = new double[algorithmNames.length][varyingParameterValues.length];
-		int[][] outputSizes = new int[algorithmNames.length][varyingParameterValues.length];
-
 		System.out.println("********************************************");
 		System.out.println("*****       RUNNING EXPERIMENTS        *****");
 		System.out.println("********************************************");
 		System.out.println(" INPUT: " + inputFile);
 		System.out.println(" OUTPUT DIRECTORY: " + outputDirectory);
 		System.out.println();
-		int experimentCount = 1;
+
+		// Create the list of experiments
+		// First dimension: Algorithm Second dimension: parameter value
+		ExperimentRunner.Experiment[][] experiments = new ExperimentRunner.Experiment[algorithmNames.length][varyingParameterValues.length];
+		List<ExperimentRunner.Experiment> experimentList = new ArrayList<ExperimentRunner.Experiment>();
 
 		// ==== FOR EACH ALGORITHM
 		for (int m = 0; m < algorithmNames.length; m++) {
 
 			// Change the algorithm name in the command
 			String algorithmName = algorithmNames[m];
-			commandWithParameters.set(4, algorithmName);
+			commandWithParameters.set(1, algorithmName);
 
 			// ========= FOR EACH PARAMETER VALUE OF THE VARIED PARAMETER ==================
 			for (int j = 0; j < varyingParameterValues.length; j++) {
@@ -175,77 +171,34 @@ public class ExperimenterForParameterChange {
 
 				// Change the output file name in the command
 				String outputFile = outputDirectory + File.separatorChar + algorithmName + "_" + value + ".txt";
-				commandWithParameters.set(6, outputFile);
-
-				// Print information about this experiment
-				System.out.println(" *****  EXPERIMENT " + experimentCount++);
-				System.out.println("   ALGORITHM: " + algorithmName + " \t" + variedParameterName + "= "
-						+ convertDoubleStringToLocalizeString(value) + "  *****");
-
-				// If the user wants to see the command (e.g. for debugging), we will show it
-				if (showCommand) {
-					// ===== Print the command for this experiment
-					StringBuilder theCommandAsString = new StringBuilder("   COMMAND: ");
-					for (String str : commandWithParameters) {
-						theCommandAsString.append(str);
-						theCommandAsString.append(' ');
-					}
-					System.out.println(theCommandAsString);
-				}
-
-				// ===== Create an object to run the command in a separated process
-				ProcessBuilder pb = new ProcessBuilder(commandWithParameters);
-				// Indicate that the output must be redirected to the log file
-				pb.redirectOutput(Redirect.appendTo(new File(logFilePath)));
-				pb.redirectError(Redirect.appendTo(new File(logFilePath)));
+				commandWithParameters.set(positionOfOutputFileInCommand, outputFile);
 
-				// Record the start time
-				long startTime = System.currentTimeMillis();
-
-				// Launch the algorithm
-				Process process = pb.start();
-
-				// Wait until the timeout for the algorithm to terminate
-				boolean exitValue = process.waitFor(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
-
-				// Record the end time
-				long totalTime = System.currentTimeMillis() - startTime;
-
-				// If the algorithm has timed-out
-				if (exitValue == false) {
-					System.out.println("   TIME: TIME-OUT");
-					process.destroyForcibly();
-
-					// Indicate in the results that the algorithm has timed-out
-					runtimes[m][j] = timeoutCode;
-					memoryResults[m][j] = timeoutCode;
-					if (compareOutputSize) {
-						outputSizes[m][j] = timeoutCode;
-					}
-
-				} else {
-					// If the algorithm has not timed-out
-
-					// Record the execution time  (in seconds)
-					runtimes[m][j] = totalTime / 1000d;
-
-					// Record the memory usage
-					memoryResults[m][j] = PreferencesManager.getInstance().getLastMemoryUsage();
+				String description = "   ALGORITHM: " + algorithmName + " \t" + variedParameterName + "= "
+						+ convertDoubleStringToLocalizeString(value) + "  *****";
+				experiments[m][j] = new ExperimentRunner.Experiment(commandWithParameters, outputFile, description);
+				experimentList.add(experiments[m][j]);
+			}
+		}
 
-					// Print information
-					System.out.println("   TIME: " + formatTwoDecimals.format(runtimes[m][j]) + " s \t MEMORY: "
-							+ formatTwoDecimals.format(memoryResults[m][j]) + " MB");
-					System.out.print("   OUTPUT: " + new File(outputFile).getName());
+		// ===== Run the experiments, several at a time, each in a separated JVM
+		ExperimentRunner runner = new ExperimentRunner();
+		runner.setSPMFJarFilePath(spmfJarPath);
+		runner.setMaximumParallelism(maximumParallelism);
+		runner.setHeapSizeInMB(heapSizeInMB);
+		runner.setShowCommand(showCommand);
+		runner.setCompareOutputSize(compareOutputSize);
+		runner.runExperiments(experimentList, logFilePath, timeoutInMilliseconds);
 
-					// Record the size of the output file if the user wants it
-					if (compareOutputSize) {
-						outputSizes[m][j] = calculateSizeOfFile(outputFile);
-						System.out.print(" \t OUTPUT_SIZE: " + outputSizes[m][j] + " lines");
-					}
-					System.out.println();
-					System.out.println();
-
-				}
+		// Create array to store runtimes, memory usage, and the sizes of output files
+		// First dimension: Algorithm Second dimension: parameter value
+		double[][] runtimes = new double[algorithmNames.length][varyingParameterValues.length];
+		double[][] memoryResults = new double[algorithmNames.length][varyingParameterValues.length];
+		int[][] outputSizes = new int[algorithmNames.length][varyingParameterValues.length];
+		for (int m = 0; m < algorithmNames.length; m++) {
+			for (int j = 0; j < varyingParameterValues.length; j++) {
+				runtimes[m][j] = experiments[m][j].getRuntime();
+				memoryResults[m][j] = experiments[m][j].getMemory();
+				outputSizes[m][j] = experiments[m][j].getOutputSize();
 			}
 		}
 
@@ -522,47 +475,34 @@ public class ExperimenterForParameterChange {
 	}
 
 	/**
-	 * Calculate the size of an output file (the number of non empty lines that are
-	 * not comments or metadata)
+	 * Set the path to the jar file of SPMF (SPMF.jar) for running the experiments
 	 * 
-	 * @param file and output file path
-	 * @return the number of lines or -1 if the file cannot be read (does not exist
-	 *         or other reasons)
+	 * @param path the path
 	 */
-	private int calculateSizeOfFile(String file) {
-		int size = 0;
-		// scan the database to load it into memory and count the support of each single
-		// item at the same time
-		BufferedReader reader;
-		try {
-			reader = new BufferedReader(new FileReader(file));
-
-			String line;
-			// for each line (transactions) until the end of the file
-			while (((line = reader.readLine()) != null)) {
-				// if the line is a comment, is empty or is metadata
-				if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
-					continue;
-				}
-				if (line.length() > 0) {
-					size++;
-				}
-			}
-			reader.close();
-		} catch (Exception e) {
-			e.printStackTrace();
-			return -1;
-		}
-		return size;
+	public void setSPMFJarFilePath(String path) {
+		this.spmfJarPath = path;
 	}
 
 	/**
-	 * Set the path to the jar file of SPMF (SPMF.jar) for running the experiments
+	 * Set the maximum number of experiments that are run at the same time, each in
+	 * a separated JVM. By default, it is half the number of available processors.
 	 * 
-	 * @param path the path
+	 * @param maximumParallelism the number of JVMs (1 means that the experiments
+	 *                           are run one after the other)
 	 */
-	public void setSPMFJarFilePath(String path) {
-		this.spmfJarPath = path;
+	public void setMaximumParallelism(int maximumParallelism) {
+		this.maximumParallelism = maximumParallelism;
+	}
+
+	/**
+	 * Set the heap size of the JVM used to run each experiment (the same value is
+	 * used for -Xms and -Xmx)
+	 * 
+	 * @param heapSizeInMB the heap size in megabytes, or 0 to use the default of
+	 *                     the JVM
+	 */
+	public void setHeapSizeInMB(int heapSizeInMB) {
+		this.heapSizeInMB = heapSizeInMB;
 	}
 
 	/**
@@ -31,6 +31,14 @@ public class MainTestExperimenterForParameterChange {
 		// the result should be indicated using the "-" string
 		experimenter.setTimeoutCodeS("-");
 
+		// Several experiments are run at the same time, each in its own JVM.
+		// Uncomment the following line to choose how many (1 means one after the other).
+		// By default, it is half the number of processors.
+//		experimenter.setMaximumParallelism(2);
+		
+		// Uncomment the following line to give the same heap size (in MB) to each JVM
+//		experimenter.setHeapSizeInMB(1024);
+
 		// A list of algorithm to be compared.
 		// They must have the same parameters
 		String algorithmNames[] = new String[] { "FPGrowth_association_rules", "Apriori_association_rules" };
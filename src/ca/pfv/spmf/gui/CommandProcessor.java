@@ -1,11 +1,15 @@
 package ca.pfv.spmf.gui;
 
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,6 +18,7 @@ import ca.pfv.spmf.algorithmmanager.AlgorithmType;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
 import ca.pfv.spmf.gui.preferences.PreferencesManager;
+import ca.pfv.spmf.patterns.sink.ItemNames;
 import ca.pfv.spmf.tools.dataset_converter.SequenceDatabaseConverter;
 import ca.pfv.spmf.tools.dataset_converter.TransactionDatabaseConverter;
 import ca.pfv.spmf.tools.resultConverter.ResultConverter;
@@ -71,8 +76,6 @@ public class CommandProcessor {
 		// This map is to store the mapping from ItemID to Attribute value for
 		// the conversion from ARFF to SPMF.
 		Map<Integer, String> mapItemToString = null;
-		// This variable store the path of the original output file
-		String originalOutputFile = null;
 		// This variable store the path of the original input file
 		String originalInputFile = null;
 
@@ -177,48 +180,13 @@ public class CommandProcessor {
 
 			// *********** PRE-PROCESSING IF THE FILE WAS A PREVIOUSLY CONVERTED FILE
 			// **********
-			// Check if the file was already converted.
-			// Create some objects to read the file
-			FileInputStream fin = new FileInputStream(new File(inputFile));
-			BufferedReader myInput = new BufferedReader(new InputStreamReader(fin));
-			String firstLine = myInput.readLine();
-			myInput.close();
-
-			if (firstLine == null) {
-				throw new IllegalArgumentException("\n\n The input file is empty. ");
-			}
+			// Check if the file was already converted. If yes, the string
+			// representation of each item is read at the same time
+			Map<Integer, String> itemsOfConvertedFile = readItemsOfConvertedFile(inputFile);
 
 			// if the file was previously converted from ARFF or text format or time series
-			if (firstLine.startsWith("@CONVERTED_FROM_ARFF") || firstLine.startsWith("@CONVERTED_FROM_TEXT")
-					|| firstLine.startsWith("@CONVERTED_FROM_TIME_SERIES")
-					|| firstLine.startsWith("@CONVERTED_FROM_GPATTERNS")) {
-				// save the file paths selected by the user
-				originalOutputFile = outputFile;
-				originalInputFile = inputFile;
-				outputFile = outputFile + ".tmp";
-
-				// Create a new map to store the string representation of each item
-				mapItemToString = new HashMap<Integer, String>();
-
-				// Read the file to read the string representation of each item
-				fin = new FileInputStream(new File(inputFile));
-				myInput = new BufferedReader(new InputStreamReader(fin));
-				String thisLine;
-				// we read the file line by line until the end of the file
-				while ((thisLine = myInput.readLine()) != null) {
-					if (thisLine.startsWith("@ITEM")) {
-						// remove "@ITEM="
-						thisLine = thisLine.substring(6);
-						// get the position of the first = in the remaining string
-						int index = thisLine.indexOf("=");
-						int itemID = Integer.parseInt(thisLine.substring(0, index));
-						String stringValue = thisLine.substring(index + 1);
-						mapItemToString.put(itemID, stringValue);
-					}
-
-				}
-				myInput.close();
-
+			if (itemsOfConvertedFile != null) {
+				mapItemToString = itemsOfConvertedFile;
 			} else {
 				// *********** PRE-PROCESSING IF THE FILE WAS AN ARFF FILE **********
 				// If the file is ARFF
@@ -226,12 +194,10 @@ public class CommandProcessor {
 					// Convert it
 					TransactionDatabaseConverter converter = new TransactionDatabaseConverter();
 					System.out.println("Converting ARFF to SPMF format.");
-					// save the file paths selected by the user
-					originalOutputFile = outputFile;
+					// save the file path selected by the user
 					originalInputFile = inputFile;
-					// change the ouptut file path to a temporary file
+					// change the input file path to a temporary file
 					inputFile = inputFile + ".tmp";
-					outputFile = outputFile + ".tmp";
 					mapItemToString = converter.convertARFFandReturnMap(originalInputFile, inputFile,
 							Integer.MAX_VALUE);
 					System.out.println("Conversion completed.");
@@ -247,13 +213,11 @@ public class CommandProcessor {
 					SequenceDatabaseConverter converter = new SequenceDatabaseConverter();
 					System.out.println("Converting TEXT to SPMF format.");
 
-					// save the file paths selected by the user
-					originalOutputFile = outputFile;
+					// save the file path selected by the user
 					originalInputFile = inputFile;
 
-					// change the ouptut file path to a temporary file
+					// change the input file path to a temporary file
 					inputFile = inputFile + ".tmp";
-					outputFile = outputFile + ".tmp";
 					mapItemToString = converter.convertTEXTandReturnMap(originalInputFile, inputFile, Integer.MAX_VALUE,
 							charset);
 					System.out.println("Conversion completed.");
@@ -262,32 +226,136 @@ public class CommandProcessor {
 		}
 
 		// ****** WE APPLY THE DESIRED ALGORITHM ******
-		algorithm.runAlgorithm(parameters, inputFile, outputFile);
+		// If the items have names, the algorithms that write their output file with a
+		// TextPatternSink directly write the names instead of the item IDs
+		boolean namesWrittenBySink = false;
+		if (mapItemToString != null) {
+			ItemNames.setForCurrentThread(mapItemToString, PreferencesManager.getInstance().getPreferedCharset(),
+					outputFile);
+		}
+		try {
+			algorithm.runAlgorithm(parameters, inputFile, outputFile);
+		} finally {
+			if (mapItemToString != null) {
+				namesWrittenBySink = ItemNames.clearForCurrentThread();
+			}
+			// delete the temporary input file
+			if (originalInputFile != null) {
+				new File(inputFile).delete();
+				inputFile = originalInputFile;
+			}
+		}
 
 		// *********** POST-PROCESSING IF THE FILE WAS AN ARFF or TEXT FILE **********
 
-		// IF THE FILE WAS AN ARFF OR TEXT FILE, WE NEED TO CONVERT BACK THE RESULT
-		// SO THAT IT IS PRESENTED IN TERMS OF VALUES
-		if (algorithm.getOutputFileTypes() != null && mapItemToString != null) {
+		// IF THE FILE WAS AN ARFF OR TEXT FILE, AND THE ALGORITHM HAS NOT WRITTEN THE
+		// NAMES OF ITEMS, WE NEED TO CONVERT BACK THE RESULT SO THAT IT IS PRESENTED
+		// IN TERMS OF VALUES
+		if (algorithm.getOutputFileTypes() != null && mapItemToString != null && namesWrittenBySink == false) {
 
 			// Get the prefered charset for this user
 			Charset charset = PreferencesManager.getInstance().getPreferedCharset();
 
+			// the result is moved to a temporary file, which is converted to the
+			// output file selected by the user
+			File result = new File(outputFile);
+			File temporaryResult = new File(outputFile + ".tmp");
+			Files.move(result.toPath(), temporaryResult.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
 			ResultConverter converter = new ResultConverter();
 			System.out.println("Post-processing to show result in terms of string values.");
-			converter.convert(mapItemToString, outputFile, originalOutputFile, charset);
+			converter.convert(mapItemToString, temporaryResult.getPath(), outputFile, charset);
 			System.out.println("Post-processing completed.");
-			// delete the temporary files
-			File file = new File(outputFile);
-			file.delete();
-			if (inputFile.equals(originalInputFile) == false) {
-				File file2 = new File(inputFile);
-				file2.delete();
+			// delete the temporary file
+			temporaryResult.delete();
+		}
+	}
+
+	/**
+	 * Check if a file was previously converted from another format (ARFF, text,
+	 * time series...) and if yes, read the string representation of each item
+	 * from the "@ITEM=" lines. The file is read a single time, and as bytes, so
+	 * that the other lines of the file, which are most of the file, are skipped
+	 * without being decoded.
+	 * 
+	 * @param inputFile the path of the file
+	 * @return a map from item ID to string representation, or null if the file
+	 *         was not converted from another format
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private static Map<Integer, String> readItemsOfConvertedFile(String inputFile) throws IOException {
+		try (InputStream input = new BufferedInputStream(new FileInputStream(inputFile), 1 << 16)) {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			String firstLine = readLine(input, line);
+			if (firstLine == null) {
+				throw new IllegalArgumentException("\n\n The input file is empty. ");
+			}
+
+			// if the file was not previously converted from ARFF or text format or time
+			// series
+			if (firstLine.startsWith("@CONVERTED_FROM_ARFF") == false
+					&& firstLine.startsWith("@CONVERTED_FROM_TEXT") == false
+					&& firstLine.startsWith("@CONVERTED_FROM_TIME_SERIES") == false
+					&& firstLine.startsWith("@CONVERTED_FROM_GPATTERNS") == false) {
+				return null;
+			}
+
+			// Create a new map to store the string representation of each item
+			Map<Integer, String> mapItemToString = new HashMap<Integer, String>();
+
+			// we read the file line by line until the end of the file
+			boolean startOfLine = true;
+			int b;
+			while ((b = input.read()) != -1) {
+				if (startOfLine && b == '@') {
+					// a line starting with "@" is decoded
+					line.reset();
+					line.write(b);
+					String thisLine = readLine(input, line);
+					if (thisLine.startsWith("@ITEM")) {
+						// remove "@ITEM="
+						thisLine = thisLine.substring(6);
+						// get the position of the first = in the remaining string
+						int index = thisLine.indexOf("=");
+						int itemID = Integer.parseInt(thisLine.substring(0, index));
+						String stringValue = thisLine.substring(index + 1);
+						mapItemToString.put(itemID, stringValue);
+					}
+					// the end of the line has been read
+					startOfLine = true;
+				} else {
+					// other lines are skipped
+					startOfLine = (b == '\n');
+				}
 			}
-			// set the original outputFile and inputFile
-			outputFile = originalOutputFile;
-			inputFile = originalInputFile;
+			return mapItemToString;
+		}
+	}
+
+	/**
+	 * Read the rest of a line from a stream and decode it with the default
+	 * charset. The end of line is read but not included in the line.
+	 * 
+	 * @param input the stream
+	 * @param line  a buffer containing the bytes of the line already read
+	 * @return the line, or null if the end of the stream is reached and the line
+	 *         is empty
+	 * @throws IOException if an error occurs while reading
+	 */
+	private static String readLine(InputStream input, ByteArrayOutputStream line) throws IOException {
+		int b;
+		while ((b = input.read()) != -1 && b != '\n') {
+			line.write(b);
+		}
+		if (b == -1 && line.size() == 0) {
+			return null;
+		}
+		String result = new String(line.toByteArray(), Charset.defaultCharset());
+		// remove the carriage return of a Windows line ending
+		if (result.endsWith("\r")) {
+			result = result.substring(0, result.length() - 1);
 		}
+		return result;
 	}
 
 	/**
@@ -18,13 +18,17 @@ package ca.pfv.spmf.gui;
  * You should have received a copy of the GNU General Public License along with
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
+import java.io.FileWriter;
 import java.lang.reflect.Method;
 
 import javax.swing.JFrame;
 
 import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.experiments.oneparametervaried.ExperimentRunner;
 import ca.pfv.spmf.gui.preferences.PreferencesManager;
+import ca.pfv.spmf.gui.server.SPMFServer;
+import ca.pfv.spmf.tools.ExecutionProfile;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 /**
@@ -101,60 +105,7 @@ public class Main {
 		else if ("run".equals(args[0])) {
 
 			try {
-				// We get the parameters :
-				String algoName = null;
-
-				if (args.length > 1) {
-					algoName = args[1]; // algorithm name
-				}
-
-				// Get the description of the algorithm
-				DescriptionOfAlgorithm description = AlgorithmManager.getInstance().getDescriptionOfAlgorithm(algoName);
-				
-				if(description == null) {
-					throw new Exception("There is no algorithm with the name "  + algoName + ". ");
-				}
-
-				// the next argument is 2
-				int i = 2;
-
-				String input = null;
-				if (description.getInputFileTypes() != null) {
-					if (args.length > i) {
-						input = args[i]; // input file
-					}
-					i++;
-				}
-
-				String output = null;
-
-				if (description.getOutputFileTypes() != null) {
-					if (args.length > i) {
-						output = args[i]; // output file
-					}
-					i++;
-				}
-
-				// create an array to store the parameters of the algorithm
-				String[] parameters;
-				// copy the arguments in the array of parameters:
-				if (args.length > i) {
-					parameters = new String[args.length - i];
-					System.arraycopy(args, i, parameters, 0, args.length - i);
-				} else {
-					// This happens because the authors has provided no parameter in the command
-					// line interface
-					parameters = new String[0];
-				}
-
-				// run the algorithm:
-				CommandProcessor.runAlgorithm(algoName, input, output, parameters);
-
-				// NEW CODE 2022:
-				// record memory usage in the registry (useful for running experiments)
-				double memory = MemoryLogger.getInstance().checkMemory();
-				PreferencesManager.getInstance().setLastMemoryUsage(memory);
-
+				runAlgorithmFromArguments(args);
 			} catch (NumberFormatException e) {
 				System.out.println(
 						"Error. Please check the parameters of the algorithm.  The format for numbers is incorrect. \n"
@@ -163,6 +114,22 @@ public class Main {
 				System.out.println("An error while trying to run the algorithm. \n ERROR MESSAGE = " + e.toString());
 				e.printStackTrace();
 			}
+		} // "server" --> run the algorithms requested by other programs through a local socket
+		else if ("server".equals(args[0])) {
+			try {
+				SPMFServer server = new SPMFServer();
+				if (args.length > 1) {
+					server.setPort(Integer.parseInt(args[1]));
+				}
+				if (args.length > 2) {
+					server.setMaximumParallelism(Integer.parseInt(args[2]));
+				}
+				server.start();
+				System.out.println("SPMF server listening on port " + server.getPort());
+				server.awaitTermination();
+			} catch (Exception e) {
+				System.out.println("An error while running the server. \n ERROR MESSAGE = " + e.toString());
+			}
 		} // "test" --> this is to run a test file (for developers only).
 		else if ("test".equals(args[0])) {
 			String testName = args[1];
@@ -183,4 +150,87 @@ public class Main {
 					"\n\n Command not recognized.\n For help, please check the documentation section of the SPMF website: http://philippe-fournier-viger.com/spmf/ \n \n");
 		}
 	}
+
+	/**
+	 * Run an algorithm from the arguments of the "run" command (e.g. run Apriori
+	 * input.txt output.txt 40%).
+	 *
+	 * @param args the arguments, where the first argument is "run".
+	 * @throws Exception if an error occurs while running the algorithm.
+	 */
+	public static void runAlgorithmFromArguments(String[] args) throws Exception {
+		// We get the parameters :
+		String algoName = null;
+
+		if (args.length > 1) {
+			algoName = args[1]; // algorithm name
+		}
+
+		// Get the description of the algorithm
+		DescriptionOfAlgorithm description = AlgorithmManager.getInstance().getDescriptionOfAlgorithm(algoName);
+		
+		if(description == null) {
+			throw new Exception("There is no algorithm with the name "  + algoName + ". ");
+		}
+
+		// the next argument is 2
+		int i = 2;
+
+		String input = null;
+		if (description.getInputFileTypes() != null) {
+			if (args.length > i) {
+				input = args[i]; // input file
+			}
+			i++;
+		}
+
+		String output = null;
+
+		if (description.getOutputFileTypes() != null) {
+			if (args.length > i) {
+				output = args[i]; // output file
+			}
+			i++;
+		}
+
+		// create an array to store the parameters of the algorithm
+		String[] parameters;
+		// copy the arguments in the array of parameters:
+		if (args.length > i) {
+			parameters = new String[args.length - i];
+			System.arraycopy(args, i, parameters, 0, args.length - i);
+		} else {
+			// This happens because the authors has provided no parameter in the command
+			// line interface
+			parameters = new String[0];
+		}
+
+		// run the algorithm:
+		CommandProcessor.runAlgorithm(algoName, input, output, parameters);
+
+		// NEW CODE 2022:
+		// record memory usage in the registry (useful for running experiments)
+		// (this is the peak memory usage since the algorithm has reset the logger)
+		ExecutionProfile profile = MemoryLogger.getInstance().getProfile();
+		double memory = profile.getPeakMemory();
+		PreferencesManager.getInstance().setLastMemoryUsage(memory);
+		// also write it to a file if this JVM was launched by the experiment runner,
+		// because several experiments may run at the same time, followed by the
+		// memory allocated by the algorithm, the number of garbage collections
+		// and the time of each phase of the algorithm
+		String memoryFile = System.getProperty(ExperimentRunner.MEMORY_FILE_PROPERTY);
+		if (memoryFile != null) {
+			try (FileWriter writer = new FileWriter(memoryFile)) {
+				writer.write(Double.toString(memory));
+				writer.write(System.lineSeparator());
+				writer.write(Double.toString(profile.getAllocatedBytes() / 1024d / 1024d));
+				writer.write(System.lineSeparator());
+				writer.write(Long.toString(profile.getGCCount()));
+				for (String phase : profile.getPhaseNames()) {
+					writer.write(System.lineSeparator());
+					writer.write(phase + '\t' + profile.getPhaseTime(phase));
+				}
+			}
+		}
+	}
 } // S P M F
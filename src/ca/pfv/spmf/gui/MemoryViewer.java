@@ -22,6 +22,8 @@ import javax.swing.JSlider;
 import javax.swing.Timer;
 import javax.swing.ToolTipManager;
 
+import ca.pfv.spmf.tools.ExecutionProfile;
+
 /*
  * Copyright (c) 2008-2023 Philippe Fournier-Viger
  *
@@ -84,6 +86,9 @@ public class MemoryViewer extends JPanel implements ActionListener, MouseMotionL
 	/** The flag for indicating the timer state */
 	private boolean isPaused;
 
+	/** The profile used to obtain the peak memory usage between two refreshes */
+	private transient ExecutionProfile profile;
+
 	/** The constructor of the panel */
 	public MemoryViewer() {
 		// Initialize the array with zeros
@@ -98,6 +103,9 @@ public class MemoryViewer extends JPanel implements ActionListener, MouseMotionL
 
 		maxMemoryYAxis = (int) (Runtime.getRuntime().totalMemory() / (1024 * 1024));
 
+		// Start a profile to record the memory usage
+		profile = ExecutionProfile.start();
+
 		// Create and start the timer with one second delay
 		timer = new Timer(REFRESH_RATE, this);
 		timer.start();
@@ -133,10 +141,11 @@ public class MemoryViewer extends JPanel implements ActionListener, MouseMotionL
 			// Get the runtime instance of the JVM
 			Runtime runtime = Runtime.getRuntime();
 
-			// Get the total, free, and used memory of the JVM in megabytes
+			// Get the total memory of the JVM, and the peak memory usage since the
+			// last refresh (which includes the peaks before garbage collections) in megabytes
 			int jvmMemory = (int) (runtime.totalMemory() / (1024 * 1024));
-			int freeMemory = (int) (runtime.freeMemory() / (1024 * 1024));
-			int usedMemory = jvmMemory - freeMemory;
+			int usedMemory = (int) profile.getPeakMemory();
+			profile.resetPeakMemory();
 
 			// Store the used memory value in the array
 			memoryValues[position] = usedMemory;
@@ -159,6 +168,7 @@ public class MemoryViewer extends JPanel implements ActionListener, MouseMotionL
 			repaint();
 			if (isVisible() == false) {
 				timer.stop();
+				profile.stop();
 			}
 		}
 
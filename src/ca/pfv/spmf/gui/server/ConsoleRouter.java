@@ -0,0 +1,120 @@
+package ca.pfv.spmf.gui.server;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * An output stream that replaces System.out and System.err in the SPMF server,
+ * so that the console output of each algorithm is sent to the client that has
+ * requested to run the algorithm, although several algorithms are run at the
+ * same time. The output written by a thread is sent to the stream set for that
+ * thread, or to the original console if none. The threads created by an
+ * algorithm write to the same stream as the thread that created them.
+ *
+ * @see SPMFServer
+ * @author Philippe Fournier-Viger
+ */
+class ConsoleRouter extends OutputStream {
+
+	/** the stream where the output of the current thread is written */
+	private static final InheritableThreadLocal<OutputStream> route = new InheritableThreadLocal<OutputStream>();
+
+	/** the original System.out, or null if the router is not installed */
+	private static PrintStream originalOut = null;
+
+	/** the original System.err */
+	private static PrintStream originalErr = null;
+
+	/** the original stream (System.out or System.err) */
+	private final OutputStream original;
+
+	/**
+	 * Constructor
+	 *
+	 * @param original the original stream
+	 */
+	private ConsoleRouter(OutputStream original) {
+		this.original = original;
+	}
+
+	/**
+	 * Replace System.out and System.err by streams that route the output of each
+	 * thread, if it was not done before.
+	 */
+	static synchronized void install() {
+		if (originalOut == null) {
+			originalOut = System.out;
+			originalErr = System.err;
+			System.setOut(new PrintStream(new ConsoleRouter(originalOut), true));
+			System.setErr(new PrintStream(new ConsoleRouter(originalErr), true));
+		}
+	}
+
+	/**
+	 * Restore the original System.out and System.err
+	 */
+	static synchronized void uninstall() {
+		if (originalOut != null) {
+			System.setOut(originalOut);
+			System.setErr(originalErr);
+			originalOut = null;
+			originalErr = null;
+		}
+	}
+
+	/**
+	 * Set the stream where the console output of the current thread (and of the
+	 * threads that it will create) is written
+	 *
+	 * @param stream the stream, or null to write to the original console
+	 */
+	static void setForCurrentThread(OutputStream stream) {
+		if (stream == null) {
+			route.remove();
+		} else {
+			route.set(stream);
+		}
+	}
+
+	/**
+	 * Get the stream where the output of the current thread is written
+	 *
+	 * @return the stream
+	 */
+	private OutputStream target() {
+		OutputStream stream = route.get();
+		return stream == null ? original : stream;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		target().write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		target().write(b, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		target().flush();
+	}
+}
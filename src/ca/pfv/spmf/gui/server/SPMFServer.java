@@ -0,0 +1,653 @@
+package ca.pfv.spmf.gui.server;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.gui.Main;
+import ca.pfv.spmf.tools.ExecutionProfile;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * A server that runs algorithms requested by other programs through a socket
+ * on the local machine. Because the same JVM is used for all the requests, a
+ * request does not pay for starting the JVM, loading the classes, compiling
+ * the code and loading the list of algorithms. The server is started from the
+ * command line: <br/>
+ * <br/>
+ * java -jar spmf.jar server [port] [number of workers] <br/>
+ * <br/>
+ *
+ * A client sends one request per line (UTF-8), with the same arguments as the
+ * command line interface. Arguments containing spaces can be written between
+ * double quotes. Options may be written before the command, for example: <br/>
+ * <br/>
+ * timeout=60 memory=512 run Apriori input.txt output.txt 40% <br/>
+ * <br/>
+ *
+ * where "timeout" is the maximum time in seconds and "memory" is the memory in
+ * megabytes that is reserved for the algorithm. If the output file is "-", the
+ * result is written to a temporary file and sent to the client. The server
+ * answers each request with lines starting with "C " (console output of the
+ * algorithm, sent while it runs) and "R " (lines of the result), followed by a
+ * single line indicating the outcome: <br/>
+ * "OK runtime_in_ms memory_in_MB allocated_memory_in_MB", "ERROR message",
+ * "TIMEOUT seconds" or "BUSY"
+ * if too many requests are waiting. <br/>
+ * The other commands are "ping" (answer "OK") and "shutdown" (stop the
+ * server). <br/>
+ * <br/>
+ *
+ * The requests are run by a bounded number of workers, and the requests that
+ * cannot be run immediately wait in a bounded queue. The memory of a request is
+ * reserved from the heap of the JVM before the algorithm is run, so that the
+ * algorithms that are run at the same time do not use more than the heap.
+ * An algorithm that runs out of memory fails without stopping the server.
+ * The algorithms cannot be stopped safely, so an algorithm that exceeds
+ * its time limit is interrupted and its result is discarded, but its worker
+ * stays busy until the algorithm ends. <br/>
+ * Each request has its own {@link ExecutionProfile}, which is bound to the
+ * threads that run its algorithm. The memory allocated by these threads is
+ * reported for the request only. The peak memory usage reported for a request
+ * is the peak memory usage of the heap during the request, which includes the
+ * memory used by the other requests that were run at the same time.
+ *
+ * @see Main
+ * @author Philippe Fournier-Viger
+ */
+public class SPMFServer {
+
+	/** the default port */
+	public static final int DEFAULT_PORT = 9099;
+
+	/** the port, or 0 to use any free port */
+	private int port = DEFAULT_PORT;
+
+	/** the number of algorithms that are run at the same time */
+	private int maximumParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+	/** the number of requests that can wait for a worker */
+	private int queueCapacity = 100;
+
+	/** the time limit of a request in seconds, if not given in the request (0 = no limit) */
+	private int defaultTimeoutInSeconds = 0;
+
+	/** the memory reserved for a request in megabytes, if not given in the request (0 = none) */
+	private int defaultMemoryInMB = 0;
+
+	/** the socket of the server */
+	private ServerSocket serverSocket;
+
+	/** the workers that run the algorithms */
+	private ThreadPoolExecutor workers;
+
+	/** the memory of the JVM that is not reserved, in megabytes */
+	private Semaphore availableMemory;
+
+	/** the heap size of the JVM in megabytes */
+	private int heapSizeInMB;
+
+	/** to wait until the server is stopped */
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	/**
+	 * Set the port of the server
+	 *
+	 * @param port the port, or 0 to use any free port
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	/**
+	 * Set the number of algorithms that are run at the same time
+	 *
+	 * @param maximumParallelism a positive number
+	 */
+	public void setMaximumParallelism(int maximumParallelism) {
+		if (maximumParallelism < 1) {
+			throw new IllegalArgumentException("The maximum parallelism must be at least 1");
+		}
+		this.maximumParallelism = maximumParallelism;
+	}
+
+	/**
+	 * Set the number of requests that can wait for a worker. Other requests are
+	 * answered with "BUSY".
+	 *
+	 * @param queueCapacity a positive number
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("The queue capacity must be at least 1");
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Set the time limit of the requests that do not specify one
+	 *
+	 * @param timeoutInSeconds the time limit in seconds, or 0 for no limit
+	 */
+	public void setDefaultTimeout(int timeoutInSeconds) {
+		this.defaultTimeoutInSeconds = timeoutInSeconds;
+	}
+
+	/**
+	 * Set the memory reserved for the requests that do not specify it
+	 *
+	 * @param memoryInMB the memory in megabytes, or 0 to not reserve memory
+	 */
+	public void setDefaultMemory(int memoryInMB) {
+		this.defaultMemoryInMB = memoryInMB;
+	}
+
+	/**
+	 * Start the server. This method returns immediately, and the requests are
+	 * processed by other threads.
+	 *
+	 * @throws Exception if the socket cannot be opened or the list of algorithms
+	 *                   cannot be loaded
+	 */
+	public synchronized void start() throws Exception {
+		if (serverSocket != null) {
+			throw new IllegalStateException("The server is already started");
+		}
+		// load the list of algorithms now rather than during the first request
+		AlgorithmManager.getInstance();
+
+		heapSizeInMB = (int) (Runtime.getRuntime().maxMemory() / 1024 / 1024);
+		availableMemory = new Semaphore(heapSizeInMB, true);
+		workers = new ThreadPoolExecutor(maximumParallelism, maximumParallelism, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "SPMF server worker");
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		// only accept connections from the local machine
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		ConsoleRouter.install();
+
+		Thread acceptor = new Thread(this::acceptConnections, "SPMF server");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Get the port of the server
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stop the server. The algorithms that are running are interrupted.
+	 */
+	public synchronized void stop() {
+		if (serverSocket != null && serverSocket.isClosed() == false) {
+			try {
+				serverSocket.close();
+			} catch (IOException e) {
+				// the socket is closed anyway
+			}
+			workers.shutdownNow();
+			ConsoleRouter.uninstall();
+			stopped.countDown();
+		}
+	}
+
+	/**
+	 * Wait until the server is stopped (by calling stop() or by a "shutdown"
+	 * request)
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void awaitTermination() throws InterruptedException {
+		stopped.await();
+	}
+
+	/**
+	 * Accept the connections of clients until the server is stopped. Each
+	 * connection is handled by a new thread.
+	 */
+	private void acceptConnections() {
+		while (serverSocket.isClosed() == false) {
+			try {
+				Socket socket = serverSocket.accept();
+				Thread thread = new Thread(() -> handleConnection(socket), "SPMF server connection");
+				thread.setDaemon(true);
+				thread.start();
+			} catch (IOException e) {
+				// the server socket has been closed
+			}
+		}
+	}
+
+	/**
+	 * Process the requests of a client until it disconnects
+	 *
+	 * @param socket the socket of the client
+	 */
+	private void handleConnection(Socket socket) {
+		try (socket;
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+			Client client = new Client(
+					new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				boolean continueProcessing = handleRequest(line, client);
+				client.flush();
+				if (continueProcessing == false) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// the client has disconnected
+		}
+	}
+
+	/**
+	 * Process a request
+	 *
+	 * @param line   the request
+	 * @param client the client
+	 * @return false if the server must be stopped, otherwise true
+	 * @throws IOException if the answer cannot be sent to the client
+	 */
+	private boolean handleRequest(String line, Client client) throws IOException {
+		List<String> tokens = tokenize(line);
+		int timeoutInSeconds = defaultTimeoutInSeconds;
+		int memoryInMB = defaultMemoryInMB;
+
+		// read the options
+		int i = 0;
+		try {
+			for (; i < tokens.size() && tokens.get(i).indexOf('=') > 0; i++) {
+				String option = tokens.get(i);
+				String value = option.substring(option.indexOf('=') + 1);
+				if (option.startsWith("timeout=")) {
+					timeoutInSeconds = Integer.parseInt(value);
+				} else if (option.startsWith("memory=")) {
+					memoryInMB = Integer.parseInt(value);
+				} else {
+					client.send("ERROR Unknown option: " + option);
+					return true;
+				}
+			}
+		} catch (NumberFormatException e) {
+			client.send("ERROR The value of option " + tokens.get(i) + " is not an integer");
+			return true;
+		}
+		String[] args = tokens.subList(i, tokens.size()).toArray(new String[0]);
+
+		if (args.length == 0) {
+			client.send("ERROR No command");
+		} else if ("ping".equals(args[0])) {
+			client.send("OK");
+		} else if ("shutdown".equals(args[0])) {
+			client.send("OK");
+			client.flush();
+			stop();
+			return false;
+		} else if ("run".equals(args[0])) {
+			run(args, timeoutInSeconds, memoryInMB, client);
+		} else {
+			client.send("ERROR Unknown command: " + args[0]);
+		}
+		return true;
+	}
+
+	/**
+	 * Run an algorithm and send its result to the client
+	 *
+	 * @param args             the arguments of the "run" command
+	 * @param timeoutInSeconds the time limit, or 0 for no limit
+	 * @param memoryInMB       the memory to be reserved, or 0
+	 * @param client           the client
+	 * @throws IOException if the answer cannot be sent to the client
+	 */
+	private void run(String[] args, int timeoutInSeconds, int memoryInMB, Client client) throws IOException {
+		if (memoryInMB > heapSizeInMB) {
+			client.send("ERROR The memory requested (" + memoryInMB + " MB) is more than the heap size ("
+					+ heapSizeInMB + " MB)");
+			return;
+		}
+
+		// If the output file is "-", the result is written to a temporary file
+		// and then sent to the client
+		File temporaryOutput = null;
+		int outputPosition = getOutputFilePosition(args);
+		if (outputPosition != -1 && outputPosition < args.length && "-".equals(args[outputPosition])) {
+			temporaryOutput = File.createTempFile("spmf_server", ".txt");
+			args[outputPosition] = temporaryOutput.getPath();
+		}
+
+		ClientConsole console = new ClientConsole(client);
+		Job job = new Job(args, memoryInMB, console);
+		try {
+			Future<Job> future;
+			try {
+				future = workers.submit(job);
+			} catch (RejectedExecutionException e) {
+				client.send("BUSY");
+				return;
+			}
+
+			try {
+				if (timeoutInSeconds > 0) {
+					future.get(timeoutInSeconds, TimeUnit.SECONDS);
+				} else {
+					future.get();
+				}
+			} catch (TimeoutException e) {
+				console.close();
+				future.cancel(true);
+				client.send("TIMEOUT " + timeoutInSeconds);
+				return;
+			} catch (ExecutionException e) {
+				console.close();
+				Throwable cause = e.getCause();
+				if (cause instanceof OutOfMemoryError) {
+					client.send("ERROR Out of memory");
+				} else {
+					client.send("ERROR " + cause.toString().replace('\n', ' ').replace('\r', ' '));
+				}
+				return;
+			} catch (InterruptedException e) {
+				console.close();
+				future.cancel(true);
+				client.send("ERROR The server is stopping");
+				return;
+			}
+			console.close();
+
+			// send the result
+			if (temporaryOutput != null && temporaryOutput.exists()) {
+				try (BufferedReader reader = new BufferedReader(new FileReader(temporaryOutput))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						client.send("R " + line);
+					}
+				}
+			}
+			client.send("OK " + job.runtime + " " + job.memory + " " + job.allocatedMemory);
+		} finally {
+			if (temporaryOutput != null) {
+				temporaryOutput.delete();
+			}
+		}
+	}
+
+	/**
+	 * Get the position of the output file in the arguments of a "run" command
+	 *
+	 * @param args the arguments
+	 * @return the position, or -1 if the algorithm does not exist or has no output
+	 *         file
+	 */
+	private static int getOutputFilePosition(String[] args) {
+		if (args.length < 2) {
+			return -1;
+		}
+		DescriptionOfAlgorithm description;
+		try {
+			description = AlgorithmManager.getInstance().getDescriptionOfAlgorithm(args[1]);
+		} catch (Exception e) {
+			return -1;
+		}
+		if (description == null || description.getOutputFileTypes() == null) {
+			return -1;
+		}
+		return description.getInputFileTypes() == null ? 2 : 3;
+	}
+
+	/**
+	 * Split a request into tokens separated by spaces. A token containing spaces
+	 * can be written between double quotes.
+	 *
+	 * @param line the request
+	 * @return the tokens
+	 */
+	static List<String> tokenize(String line) {
+		List<String> tokens = new ArrayList<String>();
+		StringBuilder token = new StringBuilder();
+		boolean inQuotes = false;
+		boolean hasToken = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				inQuotes = !inQuotes;
+				hasToken = true;
+			} else if (Character.isWhitespace(c) && inQuotes == false) {
+				if (hasToken) {
+					tokens.add(token.toString());
+					token.setLength(0);
+					hasToken = false;
+				}
+			} else {
+				token.append(c);
+				hasToken = true;
+			}
+		}
+		if (hasToken) {
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+
+	/**
+	 * A request to run an algorithm, which is run by a worker
+	 */
+	private class Job implements Callable<Job> {
+		/** the arguments of the "run" command */
+		private final String[] args;
+		/** the memory to be reserved in megabytes */
+		private final int memoryInMB;
+		/** where the console output of the algorithm is written */
+		private final OutputStream console;
+
+		/** the runtime in milliseconds */
+		long runtime;
+		/** the peak memory usage in megabytes */
+		double memory;
+		/** the memory allocated by the algorithm in megabytes */
+		double allocatedMemory;
+
+		/**
+		 * Constructor
+		 *
+		 * @param args       the arguments of the "run" command
+		 * @param memoryInMB the memory to be reserved in megabytes
+		 * @param console    where the console output of the algorithm is written
+		 */
+		Job(String[] args, int memoryInMB, OutputStream console) {
+			this.args = args;
+			this.memoryInMB = memoryInMB;
+			this.console = console;
+		}
+
+		@Override
+		public Job call() throws Exception {
+			ConsoleRouter.setForCurrentThread(console);
+			boolean reserved = false;
+			try {
+				// wait until the memory is available
+				if (memoryInMB > 0) {
+					availableMemory.acquire(memoryInMB);
+					reserved = true;
+				}
+				// the memory usage of this request is recorded in its own profile
+				ExecutionProfile profile = ExecutionProfile.start();
+				MemoryLogger.getInstance().bindCurrentThread(profile);
+				try {
+					long startTime = System.currentTimeMillis();
+					Main.runAlgorithmFromArguments(args);
+					runtime = System.currentTimeMillis() - startTime;
+				} finally {
+					MemoryLogger.getInstance().unbindCurrentThread();
+					profile.stop();
+				}
+				memory = profile.getPeakMemory();
+				allocatedMemory = profile.getAllocatedBytes() / 1024d / 1024d;
+				return this;
+			} finally {
+				if (reserved) {
+					availableMemory.release(memoryInMB);
+				}
+				ConsoleRouter.setForCurrentThread(null);
+			}
+		}
+	}
+
+	/**
+	 * The connection to a client, which may be used by several threads to send
+	 * lines
+	 */
+	private static class Client {
+		/** the writer to the socket */
+		private final BufferedWriter writer;
+
+		/**
+		 * Constructor
+		 *
+		 * @param writer the writer to the socket
+		 */
+		Client(BufferedWriter writer) {
+			this.writer = writer;
+		}
+
+		/**
+		 * Send a line to the client
+		 *
+		 * @param line the line
+		 * @throws IOException if the client has disconnected
+		 */
+		synchronized void send(String line) throws IOException {
+			writer.write(line);
+			writer.write('\n');
+		}
+
+		/**
+		 * Send the lines that have not been sent yet
+		 *
+		 * @throws IOException if the client has disconnected
+		 */
+		synchronized void flush() throws IOException {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * The console of an algorithm, which sends each line written by the
+	 * algorithm to the client when the line is complete. After it is closed, the
+	 * output is discarded.
+	 */
+	private static class ClientConsole extends OutputStream {
+		/** the client */
+		private final Client client;
+		/** the bytes of the current line */
+		private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		/** true if the console is closed */
+		private boolean closed = false;
+
+		/**
+		 * Constructor
+		 *
+		 * @param client the client
+		 */
+		ClientConsole(Client client) {
+			this.client = client;
+		}
+
+		@Override
+		public synchronized void write(int b) throws IOException {
+			if (closed) {
+				return;
+			}
+			if (b == '\n') {
+				sendLine();
+			} else {
+				line.write(b);
+			}
+		}
+
+		@Override
+		public synchronized void flush() throws IOException {
+			if (closed == false) {
+				client.flush();
+			}
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			if (closed == false) {
+				if (line.size() > 0) {
+					sendLine();
+				}
+				closed = true;
+			}
+		}
+
+		/**
+		 * Send the current line to the client
+		 *
+		 * @throws IOException if the client has disconnected
+		 */
+		private void sendLine() throws IOException {
+			String text = new String(line.toByteArray(), Charset.defaultCharset());
+			if (text.endsWith("\r")) {
+				text = text.substring(0, text.length() - 1);
+			}
+			line.reset();
+			client.send("C " + text);
+		}
+	}
+}
@@ -0,0 +1,316 @@
+package ca.pfv.spmf.input.cache;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the databases that have been read from files, which is shared by
+ * all the algorithms run in the same JVM. When the same file is used several
+ * times (e.g. to run an algorithm with different parameter values in the
+ * experimenter windows, the workflow editor or the SPMF server), it is read
+ * only once. <br/>
+ * <br/>
+ *
+ * A database is identified by the path of the file, the size and the last
+ * modification time of the file, the class of the database and a "variant"
+ * string for the options used to read the file (e.g. the maximum number of
+ * transactions to be read). Thus, if the file is modified, it is read again.
+ * <br/>
+ * <br/>
+ *
+ * The databases are kept with soft references, so that the garbage collector
+ * removes them when the memory is needed. Besides, the number of databases is
+ * bounded, and the least recently used database is removed first.
+ * <br/>
+ * <br/>
+ *
+ * IMPORTANT: a database obtained from the cache is shared, and must not be
+ * modified. An algorithm that modifies its database must make a copy of it.
+ * The cache can be disabled with the system property
+ * -Dca.pfv.spmf.datasetcache=false or by calling setEnabled(false).
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class DatasetCache {
+
+	/**
+	 * An object that reads a database from a file
+	 *
+	 * @param <T> the class of the database
+	 */
+	public interface Loader<T> {
+		/**
+		 * Read a database from a file
+		 *
+		 * @param path the path of the file
+		 * @return the database
+		 * @throws IOException if the file cannot be read
+		 */
+		T load(String path) throws IOException;
+	}
+
+	/** the instance of this class (singleton) */
+	private static final DatasetCache instance = new DatasetCache();
+
+	/** the default maximum number of databases in the cache */
+	public static final int DEFAULT_MAXIMUM_SIZE = 8;
+
+	/** the maximum number of databases in the cache */
+	private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	/** true if the cache is used */
+	private boolean enabled = !"false".equals(System.getProperty("ca.pfv.spmf.datasetcache"));
+
+	/** the databases, from the least recently used to the most recently used */
+	private final LinkedHashMap<Key, SoftReference<Object>> databases = new LinkedHashMap<Key, SoftReference<Object>>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<Object>> eldest) {
+			return size() > maximumSize;
+		}
+	};
+
+	/** the number of times that a database was found in the cache */
+	private long hitCount = 0;
+
+	/** the number of times that a database was read from a file */
+	private long missCount = 0;
+
+	/**
+	 * Constructor
+	 */
+	private DatasetCache() {
+
+	}
+
+	/**
+	 * Get the instance of this class
+	 *
+	 * @return the instance
+	 */
+	public static DatasetCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Get a database from the cache, or read it from a file if it is not in the
+	 * cache.
+	 *
+	 * @param <T>    the class of the database
+	 * @param path   the path of the file
+	 * @param type   the class of the database
+	 * @param loader an object to read the database from the file
+	 * @return the database, which must not be modified
+	 * @throws IOException if the file cannot be read
+	 */
+	public <T> T get(String path, Class<T> type, Loader<T> loader) throws IOException {
+		return get(path, type, "", loader);
+	}
+
+	/**
+	 * Get a database from the cache, or read it from a file if it is not in the
+	 * cache.
+	 *
+	 * @param <T>     the class of the database
+	 * @param path    the path of the file
+	 * @param type    the class of the database
+	 * @param variant a string representing the options used to read the file
+	 * @param loader  an object to read the database from the file
+	 * @return the database, which must not be modified
+	 * @throws IOException if the file cannot be read
+	 */
+	public <T> T get(String path, Class<T> type, String variant, Loader<T> loader) throws IOException {
+		File file = new File(path);
+		// if the cache is disabled or the file does not exist, the loader
+		// is called directly
+		if (enabled == false || file.isFile() == false) {
+			return loader.load(path);
+		}
+		Key key = new Key(file.getCanonicalPath(), file.length(), file.lastModified(), type.getName(), variant);
+
+		synchronized (this) {
+			SoftReference<Object> reference = databases.get(key);
+			Object database = reference == null ? null : reference.get();
+			if (database != null) {
+				hitCount++;
+				return type.cast(database);
+			}
+			missCount++;
+		}
+
+		// The file is read without holding the lock, so that other databases
+		// can be obtained from the cache in the meantime
+		T database = loader.load(path);
+
+		synchronized (this) {
+			removeClearedReferences();
+			databases.put(key, new SoftReference<Object>(database));
+		}
+		return database;
+	}
+
+	/**
+	 * Remove the databases that have been removed by the garbage collector
+	 */
+	private void removeClearedReferences() {
+		Iterator<SoftReference<Object>> iterator = databases.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().get() == null) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all the databases from the cache
+	 */
+	public synchronized void clear() {
+		databases.clear();
+	}
+
+	/**
+	 * Enable or disable the cache. If it is disabled, the databases are always
+	 * read from the files.
+	 *
+	 * @param enabled true to enable the cache
+	 */
+	public synchronized void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (enabled == false) {
+			databases.clear();
+		}
+	}
+
+	/**
+	 * Check if the cache is enabled
+	 *
+	 * @return true if it is enabled
+	 */
+	public synchronized boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set the maximum number of databases in the cache
+	 *
+	 * @param maximumSize a positive number
+	 */
+	public synchronized void setMaximumSize(int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size of the cache must be at least 1");
+		}
+		this.maximumSize = maximumSize;
+		// remove the least recently used databases
+		Iterator<Key> iterator = databases.keySet().iterator();
+		while (databases.size() > maximumSize) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Get the number of databases in the cache
+	 *
+	 * @return the number of databases
+	 */
+	public synchronized int size() {
+		removeClearedReferences();
+		return databases.size();
+	}
+
+	/**
+	 * Get the number of times that a database was found in the cache
+	 *
+	 * @return the number of times
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Get the number of times that a database was read from a file because it was
+	 * not in the cache
+	 *
+	 * @return the number of times
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * The key identifying a database in the cache
+	 */
+	private static final class Key {
+		/** the canonical path of the file */
+		private final String path;
+		/** the size of the file */
+		private final long size;
+		/** the last modification time of the file */
+		private final long lastModified;
+		/** the name of the class of the database */
+		private final String type;
+		/** the options used to read the file */
+		private final String variant;
+
+		/**
+		 * Constructor
+		 *
+		 * @param path         the canonical path of the file
+		 * @param size         the size of the file
+		 * @param lastModified the last modification time of the file
+		 * @param type         the name of the class of the database
+		 * @param variant      the options used to read the file
+		 */
+		Key(String path, long size, long lastModified, String type, String variant) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.type = type;
+			this.variant = variant;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (object instanceof Key == false) {
+				return false;
+			}
+			Key key = (Key) object;
+			return size == key.size && lastModified == key.lastModified && path.equals(key.path)
+					&& type.equals(key.type) && variant.equals(key.variant);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = path.hashCode();
+			hash = 31 * hash + Long.hashCode(size);
+			hash = 31 * hash + Long.hashCode(lastModified);
+			hash = 31 * hash + type.hashCode();
+			return 31 * hash + variant.hashCode();
+		}
+	}
+}
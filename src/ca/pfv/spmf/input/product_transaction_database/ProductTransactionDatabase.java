@@ -1,13 +1,12 @@
 package ca.pfv.spmf.input.product_transaction_database;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-//Import the Scanner class
-import java.util.Scanner;
 import java.util.Set;
 
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
+
 /*
  * Copyright (c) 2024 Philippe Fournier-Viger
  *
@@ -52,41 +51,37 @@ public class ProductTransactionDatabase {
 
 	// A method to load the data from a file
 	public void loadFile(String filepath) throws Exception {
-		// Create a scanner object to read the file
-		Scanner scanner = new Scanner(new File(filepath));
-		// Loop through the lines of the file
-		while (scanner.hasNextLine()) {
-			// Read the next line
-			String line = scanner.nextLine();
-			if (line.isEmpty() == false && line.charAt(0) != '#' && line.charAt(0) != '%' && line.charAt(0) != '@') {
-
-				// Split the line by space
-				String[] parts = line.split(" ");
-				// Parse the profit value
-				int profit = Integer.parseInt(parts[0]);
-				// Create a list to store the items
-				List<Integer> items = new ArrayList<Integer>();
-				// Loop through the remaining parts of the line
-				for (int i = 1; i < parts.length; i++) {
-					// Parse the item value
-					int item = Integer.parseInt(parts[i]);
-					// Add the item to the list
-					items.add(item);
-					// Add the item to the set
-					this.distinctItems.add(item);
+		// Create a tokenizer to read the file
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(filepath)) {
+			// Loop through the lines of the file that are not empty and are not comments
+			while (tokenizer.nextLine()) {
+				if (tokenizer.isMetadata() == false) {
+					// Get the values of the line
+					int[] values = tokenizer.getValues();
+					int length = tokenizer.getSectionEnd(0);
+					// The first value is the profit
+					int profit = values[0];
+					// Create a list to store the items
+					List<Integer> items = new ArrayList<Integer>(length);
+					// Loop through the remaining values of the line
+					for (int i = 1; i < length; i++) {
+						int item = values[i];
+						// Add the item to the list
+						items.add(item);
+						// Add the item to the set
+						this.distinctItems.add(item);
 
-					if (item > maxItemID) {
-						maxItemID = item;
+						if (item > maxItemID) {
+							maxItemID = item;
+						}
 					}
+					// Create a new transaction object with the profit and the items
+					ProductTransaction transaction = new ProductTransaction(profit, items);
+					// Add the transaction to the list
+					transactions.add(transaction);
 				}
-				// Create a new transaction object with the profit and the items
-				ProductTransaction transaction = new ProductTransaction(profit, items);
-				// Add the transaction to the list
-				transactions.add(transaction);
 			}
 		}
-		// Close the scanner
-		scanner.close();
 
 		distinctItemsList = new ArrayList<Integer>(distinctItems);
 	}
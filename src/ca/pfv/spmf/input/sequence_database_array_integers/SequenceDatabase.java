@@ -17,16 +17,14 @@ package ca.pfv.spmf.input.sequence_database_array_integers;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
+
 /**
  * Implementation of a sequence database, where each sequence is implemented as
  * an array of integers and should have a unique id.
@@ -59,30 +57,67 @@ public class SequenceDatabase {
 	 * @throws IOException exception if error while reading the file.
 	 */
 	public void loadFile(String path) throws IOException {
-		String thisLine; // variable to read each line.
-		try (BufferedReader myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(path))))) {
-			// for each line until the end of the file
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is not a comment, is not empty or is not other
-				// kind of metadata
-				if (thisLine.startsWith("@ITEM")) {
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(path)) {
+			// for each line that is not empty and is not a comment
+			while (tokenizer.nextLine()) {
+				if (tokenizer.startsWith("@ITEM")) {
 					// remove "@ITEM="
-					thisLine = thisLine.substring(6);
+					String thisLine = tokenizer.getLineAsString().substring(6);
 					// get the position of the first = in the remaining string
 					int index = thisLine.indexOf("=");
 					int itemID = Integer.parseInt(thisLine.substring(0, index));
 					String stringValue = thisLine.substring(index + 1);
-//				System.out.println(itemID);
-//				System.out.println(stringValue);
 					if (mapItemIDtoStringValue == null) {
 						mapItemIDtoStringValue = new HashMap<Integer, String>();
 					}
 					mapItemIDtoStringValue.put(itemID, stringValue);
-				} else if (thisLine.isEmpty() == false && thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-						&& thisLine.charAt(0) != '@') {
-					// split this line according to spaces and process the line
-					addSequence(thisLine.split(" "));
+				} else if (tokenizer.isMetadata() == false) {
+					// process the items and separators parsed by the tokenizer
+					addSequence(tokenizer.getValues(), tokenizer.getSectionEnd(0));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method to process a line from the input file
+	 * 
+	 * @param values the items and separators of the line (-1 indicates the end of
+	 *               an itemset and -2 the end of the sequence)
+	 * @param length the number of values
+	 */
+	public void addSequence(int[] values, int length) {
+		// create a new Sequence to store the sequence
+		Sequence sequence = new Sequence();
+		// create a list of strings for the first itemset.
+		List<Integer> itemset = new ArrayList<Integer>();
+
+		// for each value in this line
+		for (int i = 0; i < length; i++) {
+			int value = values[i];
+			// if the value is -1, it means that we reached the end of an itemset.
+			if (value == SPMFTokenizer.END_OF_ITEMSET) {
+				// add the current itemset to the sequence
+				sequence.addItemset(itemset.toArray());
+				// create a new itemset
+				itemset = new ArrayList<Integer>();
+			}
+			// if the value is -2, it means that we reached the end of
+			// the sequence.
+			else if (value == SPMFTokenizer.END_OF_SEQUENCE) {
+				// we add it to the list of sequences
+				sequences.add(sequence);
+			} else {
+				// we update the maximum item for statistics
+				if (value >= maxItem) {
+					maxItem = value;
 				}
+				// we update the minimum item for statistics
+				if (value < minItem) {
+					minItem = value;
+				}
+				// we add the item to the current itemset
+				itemset.add(value);
 			}
 		}
 	}
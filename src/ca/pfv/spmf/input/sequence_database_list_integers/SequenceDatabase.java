@@ -17,16 +17,14 @@ package ca.pfv.spmf.input.sequence_database_list_integers;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
+
 /**
  * Implementation of a sequence database, where each sequence is implemented as
  * a list of integers and should have a unique id.
@@ -46,18 +44,13 @@ public class SequenceDatabase {
 	 * @throws IOException exception if error while reading the file.
 	 */
 	public void loadFile(String path) throws IOException {
-		String thisLine; // variable to read each line.
-		try (BufferedReader myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(path))))) {
-			// for each line until the end of the file
-//			int i = 0;
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is not a comment, is not empty or is not other
-				// kind of metadata
-				if (thisLine.isEmpty() == false && thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-						&& thisLine.charAt(0) != '@') {
-					// split this line according to spaces and process the line
-
-					addSequence(thisLine.split(" "));
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(path)) {
+			// for each line that is not empty and is not a comment
+			while (tokenizer.nextLine()) {
+				// if the line is not other kind of metadata
+				if (tokenizer.isMetadata() == false) {
+					// process the items and separators parsed by the tokenizer
+					addSequence(tokenizer.getValues(), tokenizer.getSectionEnd(0));
 				}
 			}
 		}
@@ -67,40 +60,35 @@ public class SequenceDatabase {
 	/**
 	 * Method to process a line from the input file
 	 * 
-	 * @param tokens A list of tokens from the line (which were separated by spaces
-	 *               in the original file).
+	 * @param values the items and separators of the line (-1 indicates the end of
+	 *               an itemset and -2 the end of the sequence)
+	 * @param length the number of values
 	 */
-	void addSequence(String[] tokens) {
+	void addSequence(int[] values, int length) {
 		// create a new Sequence to store the sequence
 		Sequence sequence = new Sequence(sequences.size());
 		// create a list of strings for the first itemset.
 
 		List<Integer> itemset = new ArrayList<Integer>();
-		// for each token in this line
-		for (String token : tokens) {
-			// if the token start with "<", it indicates a timestamp.
-			// We just ignore it because algorithms that use this class
-			// don't need it.
-			if (token.codePointAt(0) == '<') {
-				// we ignore
-			}
-			// if the token is -1, it means that we reached the end of an itemset.
-			else if (token.equals("-1")) {
+		// for each value in this line
+		for (int i = 0; i < length; i++) {
+			int value = values[i];
+			// if the value is -1, it means that we reached the end of an itemset.
+			if (value == SPMFTokenizer.END_OF_ITEMSET) {
 				// add the current itemset to the sequence
 				sequence.addItemset(itemset);
 				// create a new itemset
 				itemset = new ArrayList<Integer>();
 			}
-			// if the token is -2, it means that we reached the end of
+			// if the value is -2, it means that we reached the end of
 			// the sequence.
-			else if (token.equals("-2")) {
+			else if (value == SPMFTokenizer.END_OF_SEQUENCE) {
 				// we add it to the list of sequences
 				sequences.add(sequence);
 			} else {
 				// otherwise it is an item.
-				// we parse it as an integer and add it to
-				// the current itemset.
-				itemset.add(Integer.parseInt(token));
+				// we add it to the current itemset.
+				itemset.add(value);
 			}
 		}
 	}
@@ -28,6 +28,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import ca.pfv.spmf.input.cache.DatasetCache;
+
 /**
  * Implementation of a sequence database as list of strings. 
  * Each sequence should have a unique id.
@@ -40,6 +42,24 @@ public class SequenceDatabase {
 	// variable that contains the sequences of this database
 	private final List<Sequence> sequences = new ArrayList<Sequence>();
 
+	/**
+	 * Get the sequence database contained in a file. If the same file was read
+	 * before and has not been modified, the sequence database is obtained from the
+	 * {@link DatasetCache} instead of reading the file again. Thus, the
+	 * sequence database must not be modified, since it may be used by other
+	 * algorithms.
+	 * @param path the path of the file
+	 * @return the sequence database
+	 * @throws IOException exception if error reading the file
+	 */
+	public static SequenceDatabase loadCachedFile(String path) throws IOException {
+		return DatasetCache.getInstance().get(path, SequenceDatabase.class, filePath -> {
+			SequenceDatabase database = new SequenceDatabase();
+			database.loadFile(filePath);
+			return database;
+		});
+	}
+
 	/**
 	 * Method to load a sequence database from a text file in SPMF format.
 	 * @param path  the input file path.
@@ -0,0 +1,491 @@
+package ca.pfv.spmf.input.tokenizer;
+
+/* Copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class is a streaming tokenizer for files in SPMF text format that works
+ * directly on bytes. It is designed to be shared by the classes that read
+ * input files, so that they do not create a String and a String[] for each
+ * line and a boxed Integer for each item. <br/>
+ * <br/>
+ *
+ * A data line is split into sections according to the ":" separator (e.g.
+ * "1 2 3:6:1 2 3" has three sections), and each section is a list of integers
+ * separated by spaces. The integers of all sections of the current line are
+ * stored in a single int array that is reused for all lines (see
+ * {@link #getValues()}). Negative values such as the -1 and -2 separators of
+ * sequence databases are returned like other values. Tokens of the form
+ * "&lt;5&gt;" (timestamps of sequence databases) are skipped. <br/>
+ * <br/>
+ *
+ * Empty lines and lines starting with "#" or "%" are skipped by
+ * {@link #nextLine()}. Lines starting with "@" are metadata (e.g.
+ * "@ITEM=1=apple") and are returned by {@link #nextLine()} without being parsed,
+ * so that a reader can call {@link #isMetadata()} and
+ * {@link #getLineAsString()} to process them. <br/>
+ * <br/>
+ *
+ * Lines that only contain ASCII characters (the usual case) are converted to a
+ * String without decoding. Other lines are decoded using the default charset,
+ * as an InputStreamReader would do.
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class SPMFTokenizer implements Closeable {
+
+	/** the value that indicates the end of an itemset in a sequence database */
+	public static final int END_OF_ITEMSET = -1;
+
+	/** the value that indicates the end of a sequence in a sequence database */
+	public static final int END_OF_SEQUENCE = -2;
+
+	/** the default size of the byte buffer */
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/** the stream that is read */
+	private final InputStream input;
+
+	/** the buffer of bytes read from the stream */
+	private byte[] buffer;
+
+	/** the number of valid bytes in the buffer */
+	private int bufferLength = 0;
+
+	/** the position of the next line in the buffer */
+	private int position = 0;
+
+	/** true if the end of the stream has been reached */
+	private boolean endOfStream = false;
+
+	/** the position of the current line in the buffer */
+	private int lineStart = 0;
+
+	/** the position after the last byte of the current line (excluding end of line characters) */
+	private int lineEnd = 0;
+
+	/** the number of the current line in the file (starting from 1) */
+	private int lineNumber = 0;
+
+	/** true if the current line only contains ASCII characters */
+	private boolean lineIsAscii = true;
+
+	/** the values of the current data line */
+	private int[] values = new int[64];
+
+	/** the number of values of the current data line */
+	private int valueCount = 0;
+
+	/**
+	 * the position of the first value of each section of the current data line
+	 * in the values array. The position after the last value of the last section
+	 * is stored at index sectionCount.
+	 */
+	private int[] sectionStarts = new int[8];
+
+	/** the position of each section of the current data line in the byte buffer */
+	private int[] sectionByteStarts = new int[8];
+
+	/** the number of sections of the current data line */
+	private int sectionCount = 0;
+
+	/**
+	 * Create a tokenizer to read a file.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public SPMFTokenizer(String path) throws IOException {
+		this(new FileInputStream(path));
+	}
+
+	/**
+	 * Create a tokenizer to read a stream. The stream is closed when this
+	 * tokenizer is closed.
+	 *
+	 * @param input the stream
+	 */
+	public SPMFTokenizer(InputStream input) {
+		this.input = input;
+		this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * Read the next line of the file, whatever its content. The line is not
+	 * parsed.
+	 *
+	 * @return true if a line was read, or false if the end of the file was
+	 *         reached.
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public boolean readLine() throws IOException {
+		int index = position;
+		boolean ascii = true;
+		while (true) {
+			// search for the end of the line in the buffer
+			while (index < bufferLength) {
+				byte b = buffer[index];
+				if (b == '\n') {
+					setLine(position, index, ascii);
+					position = index + 1;
+					return true;
+				}
+				if (b < 0) {
+					ascii = false;
+				}
+				index++;
+			}
+			// if the end of the stream is reached, the last line has no end of line
+			if (endOfStream) {
+				if (position == bufferLength) {
+					return false;
+				}
+				setLine(position, bufferLength, ascii);
+				position = bufferLength;
+				return true;
+			}
+			// otherwise, read more bytes, keeping the beginning of the current line
+			index -= position;
+			fill();
+		}
+	}
+
+	/**
+	 * Record the position of the current line.
+	 *
+	 * @param start the first byte of the line
+	 * @param end   the position of the end of line character
+	 * @param ascii true if the line only contains ASCII characters
+	 */
+	private void setLine(int start, int end, boolean ascii) {
+		// remove the carriage return of files created on Windows
+		if (end > start && buffer[end - 1] == '\r') {
+			end--;
+		}
+		lineStart = start;
+		lineEnd = end;
+		lineIsAscii = ascii;
+		lineNumber++;
+		sectionCount = 0;
+		valueCount = 0;
+	}
+
+	/**
+	 * Move the unread bytes to the beginning of the buffer and read more bytes
+	 * from the stream. The buffer is enlarged if a line is larger than the
+	 * buffer.
+	 *
+	 * @throws IOException if an error occurs while reading the stream
+	 */
+	private void fill() throws IOException {
+		int remaining = bufferLength - position;
+		if (remaining == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		System.arraycopy(buffer, position, buffer, 0, remaining);
+		position = 0;
+		bufferLength = remaining;
+		int read = input.read(buffer, bufferLength, buffer.length - bufferLength);
+		if (read < 0) {
+			endOfStream = true;
+		} else {
+			bufferLength += read;
+		}
+	}
+
+	/**
+	 * Move to the next line that is not empty and is not a comment. If it is a
+	 * data line, it is parsed.
+	 *
+	 * @return true if a line was found, or false if the end of the file was
+	 *         reached.
+	 * @throws IOException if an error occurs while reading the file
+	 * @throws NumberFormatException if a data line contains a token that is not
+	 *         an integer
+	 */
+	public boolean nextLine() throws IOException {
+		while (readLine()) {
+			if (lineStart == lineEnd) {
+				continue;
+			}
+			byte first = buffer[lineStart];
+			if (first == '#' || first == '%') {
+				continue;
+			}
+			if (first != '@') {
+				parse();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Parse the current line as a data line.
+	 */
+	private void parse() {
+		valueCount = 0;
+		sectionCount = 0;
+		startSection(lineStart);
+		int i = lineStart;
+		while (i < lineEnd) {
+			byte b = buffer[i];
+			if (b == ' ' || b == '\t') {
+				i++;
+			} else if (b == ':') {
+				i++;
+				startSection(i);
+			} else if (b == '<') {
+				// skip a timestamp such as <5>
+				while (i < lineEnd && buffer[i] != '>' && buffer[i] != ' ') {
+					i++;
+				}
+				i++;
+			} else {
+				// parse an integer
+				int tokenStart = i;
+				boolean negative = false;
+				if (b == '-') {
+					negative = true;
+					i++;
+				}
+				long value = 0;
+				int digitStart = i;
+				while (i < lineEnd) {
+					int digit = buffer[i] - '0';
+					if (digit < 0 || digit > 9) {
+						break;
+					}
+					value = value * 10 + digit;
+					if (value > 1L + Integer.MAX_VALUE) {
+						throw invalidToken(tokenStart);
+					}
+					i++;
+				}
+				// the token must contain at least a digit and end with a separator
+				if (i == digitStart || (i < lineEnd && buffer[i] != ' ' && buffer[i] != '\t' && buffer[i] != ':')) {
+					throw invalidToken(tokenStart);
+				}
+				if (negative) {
+					value = -value;
+				}
+				if (value > Integer.MAX_VALUE) {
+					throw invalidToken(tokenStart);
+				}
+				if (valueCount == values.length) {
+					values = Arrays.copyOf(values, values.length * 2);
+				}
+				values[valueCount++] = (int) value;
+			}
+		}
+		sectionStarts[sectionCount] = valueCount;
+	}
+
+	/**
+	 * Start a new section of the current data line
+	 *
+	 * @param bytePosition the position of the section in the byte buffer
+	 */
+	private void startSection(int bytePosition) {
+		if (sectionCount + 1 >= sectionStarts.length) {
+			sectionStarts = Arrays.copyOf(sectionStarts, sectionStarts.length * 2);
+			sectionByteStarts = Arrays.copyOf(sectionByteStarts, sectionByteStarts.length * 2);
+		}
+		sectionStarts[sectionCount] = valueCount;
+		sectionByteStarts[sectionCount] = bytePosition;
+		sectionCount++;
+	}
+
+	/**
+	 * Create an exception for a token that is not an integer
+	 *
+	 * @param tokenStart the position of the token in the buffer
+	 * @return the exception
+	 */
+	private NumberFormatException invalidToken(int tokenStart) {
+		int tokenEnd = tokenStart;
+		while (tokenEnd < lineEnd && buffer[tokenEnd] != ' ' && buffer[tokenEnd] != ':') {
+			tokenEnd++;
+		}
+		return new NumberFormatException("Invalid integer \"" + decode(tokenStart, tokenEnd) + "\" at line "
+				+ lineNumber);
+	}
+
+	/**
+	 * Convert bytes of the buffer to a string
+	 *
+	 * @param start the first byte
+	 * @param end   the position after the last byte
+	 * @return a string
+	 */
+	private String decode(int start, int end) {
+		if (lineIsAscii) {
+			return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+		}
+		return new String(buffer, start, end - start, Charset.defaultCharset());
+	}
+
+	/**
+	 * Check if the current line is a metadata line (starting with "@").
+	 *
+	 * @return true if yes, otherwise false
+	 */
+	public boolean isMetadata() {
+		return lineEnd > lineStart && buffer[lineStart] == '@';
+	}
+
+	/**
+	 * Check if the current line starts with a given prefix (e.g. "@ITEM").
+	 * The prefix should only contain ASCII characters.
+	 *
+	 * @param prefix the prefix
+	 * @return true if yes, otherwise false
+	 */
+	public boolean startsWith(String prefix) {
+		if (lineEnd - lineStart < prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (buffer[lineStart + i] != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the current line as a string. This creates a new string and should
+	 * be used for metadata lines or for lines that are not in an integer
+	 * format.
+	 *
+	 * @return the line
+	 */
+	public String getLineAsString() {
+		return decode(lineStart, lineEnd);
+	}
+
+	/**
+	 * Get the number of the current line in the file (starting from 1).
+	 *
+	 * @return the line number
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Get the number of sections (separated by ":") of the current data line.
+	 *
+	 * @return the number of sections
+	 */
+	public int getSectionCount() {
+		return sectionCount;
+	}
+
+	/**
+	 * Get the values of the current data line. The array is reused for the next
+	 * line and may be larger than the number of values, so it should be read
+	 * using {@link #getSectionStart(int)} and {@link #getSectionEnd(int)}, or
+	 * {@link #getValueCount()}.
+	 *
+	 * @return the array of values
+	 */
+	public int[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Get the number of values in all sections of the current data line.
+	 *
+	 * @return the number of values
+	 */
+	public int getValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * Get the position of the first value of a section in the array of values.
+	 *
+	 * @param section the section (starting from 0)
+	 * @return the position
+	 */
+	public int getSectionStart(int section) {
+		return sectionStarts[section];
+	}
+
+	/**
+	 * Get the position after the last value of a section in the array of
+	 * values.
+	 *
+	 * @param section the section (starting from 0)
+	 * @return the position
+	 */
+	public int getSectionEnd(int section) {
+		return sectionStarts[section + 1];
+	}
+
+	/**
+	 * Get the number of values in a section.
+	 *
+	 * @param section the section (starting from 0)
+	 * @return the number of values
+	 */
+	public int getSectionLength(int section) {
+		return sectionStarts[section + 1] - sectionStarts[section];
+	}
+
+	/**
+	 * Get a value of a section
+	 *
+	 * @param section the section (starting from 0)
+	 * @param index   the position of the value in the section (starting from 0)
+	 * @return the value
+	 */
+	public int getValue(int section, int index) {
+		return values[sectionStarts[section] + index];
+	}
+
+	/**
+	 * Get the text of a section of the current data line. This creates a new
+	 * string.
+	 *
+	 * @param section the section (starting from 0)
+	 * @return the text of the section
+	 */
+	public String getSectionAsString(int section) {
+		int end = (section + 1 < sectionCount) ? sectionByteStarts[section + 1] - 1 : lineEnd;
+		return decode(sectionByteStarts[section], end);
+	}
+
+	/**
+	 * Close the file
+	 *
+	 * @throws IOException if an error occurs while closing the file
+	 */
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+}
@@ -0,0 +1,406 @@
+package ca.pfv.spmf.input.transaction_database_binary;
+
+/* Copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * This class is a read-only view of a transaction database stored in the
+ * binary columnar format of SPMF. A file in this format is created once from a
+ * text file in SPMF format using the BinaryTransactionDatabaseConverter (see
+ * the package ca.pfv.spmf.tools.dataset_converter) and can then be read many
+ * times by algorithms without parsing text. <br/>
+ * <br/>
+ *
+ * The file is accessed through a FileChannel and memory-mapped, so that only
+ * the pages that are actually read are loaded by the operating system, and
+ * several threads can read the same database concurrently. The layout of a file
+ * is as follows (all values are big-endian):
+ *
+ * <pre>
+ * header:      magic "SPMFBTDB" (8 bytes), version (int), flags (int),
+ *              transaction count N (int), largest item (int), item count M (long)
+ * offsets:     N+1 longs. The items of transaction t are at positions
+ *              offsets[t] (inclusive) to offsets[t+1] (exclusive)
+ * items:       M ints
+ * utilities:   (optional) N ints for the transaction utilities, followed by
+ *              M ints for the utility of each item in each transaction
+ * timestamps:  (optional) N longs
+ * </pre>
+ *
+ * Because a MappedByteBuffer cannot be larger than 2 GB, each section is mapped
+ * as several segments, which allows to read files much larger than that.
+ *
+ * @see ca.pfv.spmf.tools.dataset_converter.BinaryTransactionDatabaseConverter
+ * @author Philippe Fournier-Viger
+ */
+public class BinaryTransactionDatabase implements Closeable {
+
+	/** the magic number at the beginning of each file in this format */
+	public static final byte[] MAGIC = { 'S', 'P', 'M', 'F', 'B', 'T', 'D', 'B' };
+
+	/** the version of the format that is written and read by this class */
+	public static final int VERSION = 1;
+
+	/** flag indicating that the file contains utility values */
+	public static final int FLAG_UTILITIES = 1;
+
+	/** flag indicating that the file contains a timestamp for each transaction */
+	public static final int FLAG_TIMESTAMPS = 2;
+
+	/** the size of the header in bytes */
+	public static final int HEADER_SIZE = 32;
+
+	/** the number of elements stored in each mapped segment (2^27) */
+	private static final int SEGMENT_SHIFT = 27;
+
+	/** a mask to obtain the position of an element in its segment */
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	/** the channel used to read the file */
+	private final FileChannel channel;
+
+	/** the flags of this file */
+	private final int flags;
+
+	/** the number of transactions */
+	private final int transactionCount;
+
+	/** the largest item */
+	private final int maxItemID;
+
+	/** the total number of items in all transactions */
+	private final long itemCount;
+
+	/** the mapped offsets */
+	private final LongBuffer[] offsets;
+
+	/** the mapped items */
+	private final IntBuffer[] items;
+
+	/** the mapped transaction utilities (or null) */
+	private final IntBuffer[] transactionUtilities;
+
+	/** the mapped item utilities (or null) */
+	private final IntBuffer[] utilities;
+
+	/** the mapped timestamps (or null) */
+	private final LongBuffer[] timestamps;
+
+	/**
+	 * Open a file in the binary transaction database format.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be read or is not in this format
+	 */
+	public BinaryTransactionDatabase(String path) throws IOException {
+		channel = new RandomAccessFile(path, "r").getChannel();
+		try {
+			// read the header
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("The file " + path + " is not a binary transaction database");
+				}
+			}
+			header.flip();
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException("The file " + path + " is not a binary transaction database");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported binary transaction database version: " + version);
+			}
+			flags = header.getInt();
+			transactionCount = header.getInt();
+			maxItemID = header.getInt();
+			itemCount = header.getLong();
+
+			// map each section of the file
+			long position = HEADER_SIZE;
+			offsets = mapLongs(position, transactionCount + 1L);
+			position += (transactionCount + 1L) * Long.BYTES;
+			items = mapInts(position, itemCount);
+			position += itemCount * Integer.BYTES;
+			if (hasUtilities()) {
+				transactionUtilities = mapInts(position, transactionCount);
+				position += (long) transactionCount * Integer.BYTES;
+				utilities = mapInts(position, itemCount);
+				position += itemCount * Integer.BYTES;
+			} else {
+				transactionUtilities = null;
+				utilities = null;
+			}
+			if (hasTimestamps()) {
+				timestamps = mapLongs(position, transactionCount);
+				position += (long) transactionCount * Long.BYTES;
+			} else {
+				timestamps = null;
+			}
+			if (position > channel.size()) {
+				throw new IOException("The binary transaction database " + path + " is truncated");
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Map a section of the file containing integers
+	 *
+	 * @param position the position of the section in the file
+	 * @param count    the number of integers
+	 * @return the segments of the section
+	 * @throws IOException if error while mapping the file
+	 */
+	private IntBuffer[] mapInts(long position, long count) throws IOException {
+		MappedByteBuffer[] segments = map(position, count, Integer.BYTES);
+		IntBuffer[] result = new IntBuffer[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			result[i] = segments[i].asIntBuffer();
+		}
+		return result;
+	}
+
+	/**
+	 * Map a section of the file containing longs
+	 *
+	 * @param position the position of the section in the file
+	 * @param count    the number of longs
+	 * @return the segments of the section
+	 * @throws IOException if error while mapping the file
+	 */
+	private LongBuffer[] mapLongs(long position, long count) throws IOException {
+		MappedByteBuffer[] segments = map(position, count, Long.BYTES);
+		LongBuffer[] result = new LongBuffer[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			result[i] = segments[i].asLongBuffer();
+		}
+		return result;
+	}
+
+	/**
+	 * Map a section of the file as a list of segments such that no element
+	 * crosses the boundary between two segments.
+	 *
+	 * @param position    the position of the section in the file
+	 * @param count       the number of elements
+	 * @param elementSize the size of an element in bytes
+	 * @return the segments
+	 * @throws IOException if error while mapping the file
+	 */
+	private MappedByteBuffer[] map(long position, long count, int elementSize) throws IOException {
+		int segmentCount = (int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			long first = (long) i << SEGMENT_SHIFT;
+			long length = Math.min(count - first, 1L << SEGMENT_SHIFT);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + first * elementSize,
+					length * elementSize);
+		}
+		return segments;
+	}
+
+	/**
+	 * Check if a file is in the binary transaction database format by reading its
+	 * magic number.
+	 *
+	 * @param path the path of the file
+	 * @return true if it is a binary transaction database, otherwise false
+	 */
+	public static boolean isBinaryFile(String path) {
+		File file = new File(path);
+		if (!file.isFile() || file.length() < HEADER_SIZE) {
+			return false;
+		}
+		try (FileInputStream stream = new FileInputStream(file)) {
+			byte[] magic = new byte[MAGIC.length];
+			int read = 0;
+			while (read < magic.length) {
+				int n = stream.read(magic, read, magic.length - read);
+				if (n < 0) {
+					return false;
+				}
+				read += n;
+			}
+			return Arrays.equals(magic, MAGIC);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Get the number of transactions in this database.
+	 *
+	 * @return the number of transactions
+	 */
+	public int size() {
+		return transactionCount;
+	}
+
+	/**
+	 * Get the largest item in this database
+	 *
+	 * @return the largest item
+	 */
+	public int getMaxItemID() {
+		return maxItemID;
+	}
+
+	/**
+	 * Get the total number of items in all transactions of this database.
+	 *
+	 * @return the number of items
+	 */
+	public long getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Check if this database contains utility values
+	 *
+	 * @return true if yes, otherwise false
+	 */
+	public final boolean hasUtilities() {
+		return (flags & FLAG_UTILITIES) != 0;
+	}
+
+	/**
+	 * Check if this database contains a timestamp for each transaction
+	 *
+	 * @return true if yes, otherwise false
+	 */
+	public final boolean hasTimestamps() {
+		return (flags & FLAG_TIMESTAMPS) != 0;
+	}
+
+	/**
+	 * Get the position of the first item of a transaction in the items section.
+	 *
+	 * @param transaction the transaction number
+	 * @return the position
+	 */
+	private long getOffset(int transaction) {
+		return offsets[transaction >>> SEGMENT_SHIFT].get((int) (transaction & SEGMENT_MASK));
+	}
+
+	/**
+	 * Get the number of items in a transaction
+	 *
+	 * @param transaction the transaction number (from 0 to size() - 1)
+	 * @return the number of items
+	 */
+	public int getTransactionLength(int transaction) {
+		return (int) (getOffset(transaction + 1) - getOffset(transaction));
+	}
+
+	/**
+	 * Copy the items of a transaction into a buffer.
+	 *
+	 * @param transaction the transaction number (from 0 to size() - 1)
+	 * @param buffer      a buffer that is large enough to store the transaction
+	 *                    (see getTransactionLength())
+	 * @return the number of items that were copied
+	 */
+	public int getItems(int transaction, int[] buffer) {
+		return copy(items, getOffset(transaction), getOffset(transaction + 1), buffer);
+	}
+
+	/**
+	 * Copy the utilities of the items of a transaction into a buffer. This
+	 * should only be called if hasUtilities() returns true.
+	 *
+	 * @param transaction the transaction number (from 0 to size() - 1)
+	 * @param buffer      a buffer that is large enough to store the utilities
+	 * @return the number of utility values that were copied
+	 */
+	public int getUtilities(int transaction, int[] buffer) {
+		return copy(utilities, getOffset(transaction), getOffset(transaction + 1), buffer);
+	}
+
+	/**
+	 * Get the transaction utility of a transaction. This should only be called
+	 * if hasUtilities() returns true.
+	 *
+	 * @param transaction the transaction number (from 0 to size() - 1)
+	 * @return the transaction utility
+	 */
+	public int getTransactionUtility(int transaction) {
+		return transactionUtilities[transaction >>> SEGMENT_SHIFT].get((int) (transaction & SEGMENT_MASK));
+	}
+
+	/**
+	 * Get the timestamp of a transaction. This should only be called if
+	 * hasTimestamps() returns true.
+	 *
+	 * @param transaction the transaction number (from 0 to size() - 1)
+	 * @return the timestamp
+	 */
+	public long getTimestamp(int transaction) {
+		return timestamps[transaction >>> SEGMENT_SHIFT].get((int) (transaction & SEGMENT_MASK));
+	}
+
+	/**
+	 * Copy the integers from a position to another position of a mapped section
+	 * into a buffer.
+	 *
+	 * @param section the segments of the section
+	 * @param start   the first position (inclusive)
+	 * @param end     the last position (exclusive)
+	 * @param buffer  the buffer
+	 * @return the number of integers copied
+	 */
+	private static int copy(IntBuffer[] section, long start, long end, int[] buffer) {
+		int length = (int) (end - start);
+		int copied = 0;
+		while (copied < length) {
+			long position = start + copied;
+			IntBuffer segment = section[(int) (position >>> SEGMENT_SHIFT)];
+			int index = (int) (position & SEGMENT_MASK);
+			// copy until the end of the transaction or the end of the segment
+			int count = Math.min(length - copied, segment.limit() - index);
+			segment.get(index, buffer, copied, count);
+			copied += count;
+		}
+		return length;
+	}
+
+	/**
+	 * Close the file. The mapped memory is released when this object is
+	 * garbage collected.
+	 *
+	 * @throws IOException if an error occurs while closing the file
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
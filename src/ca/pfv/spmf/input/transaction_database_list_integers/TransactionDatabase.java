@@ -17,11 +17,7 @@ package ca.pfv.spmf.input.transaction_database_list_integers;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,6 +25,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import ca.pfv.spmf.input.cache.DatasetCache;
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabase;
+
 /**
  * This class represents a transaction database (a.k.a. binary context),
  * implemented as a list of integers. It can read a transaction database
@@ -64,6 +64,24 @@ public class TransactionDatabase {
 		items.addAll(transaction);
 	}
 
+	/**
+	 * Get the transaction database contained in a file. If the same file was read
+	 * before and has not been modified, the database is obtained from the
+	 * {@link DatasetCache} instead of reading the file again. Thus, the database
+	 * must not be modified, since it may be used by other algorithms.
+	 * 
+	 * @param path the path of the file
+	 * @return the transaction database
+	 * @throws IOException exception if error reading the file
+	 */
+	public static TransactionDatabase loadCachedFile(String path) throws IOException {
+		return DatasetCache.getInstance().get(path, TransactionDatabase.class, filePath -> {
+			TransactionDatabase database = new TransactionDatabase();
+			database.loadFile(filePath);
+			return database;
+		});
+	}
+
 	/**
 	 * Method to load a file containing a transaction database into memory
 	 * 
@@ -71,52 +89,77 @@ public class TransactionDatabase {
 	 * @throws IOException exception if error reading the file
 	 */
 	public void loadFile(String path) throws IOException {
-		String thisLine; // variable to read each line
-		try (BufferedReader myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(path))))) {
+		// if the file is in the binary format, it is read without parsing text
+		if (BinaryTransactionDatabase.isBinaryFile(path)) {
+			try (BinaryTransactionDatabase database = new BinaryTransactionDatabase(path)) {
+				loadBinaryDatabase(database);
+			}
+			return;
+		}
+		try (SPMFTokenizer tokenizer = new SPMFTokenizer(path)) {
 
 			maxItemID = 0;
-			// for each line
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is not a comment, is not empty or is not other
-				// kind of metadata
-				// if the line starts with a comment
-				if (thisLine.isEmpty() == false) {
-					if (thisLine.startsWith("@ITEM")) {
-						// remove "@ITEM="
-						thisLine = thisLine.substring(6);
-						// get the position of the first = in the remaining string
-						int index = thisLine.indexOf("=");
-						int itemID = Integer.parseInt(thisLine.substring(0, index));
-						String stringValue = thisLine.substring(index + 1);
-//					System.out.println(itemID);
-//					System.out.println(stringValue);
-						if (mapItemIDtoStringValue == null) {
-							mapItemIDtoStringValue = new HashMap<Integer, String>();
-						}
-						mapItemIDtoStringValue.put(itemID, stringValue);
-					} else if (thisLine.isEmpty() == false && thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-							&& thisLine.charAt(0) != '@') {
-						// split the line according to spaces and then
-						// call "addTransaction" to process this line.
-						addTransaction(thisLine.split(" "));
+			// for each line that is not empty and is not a comment
+			while (tokenizer.nextLine()) {
+				if (tokenizer.startsWith("@ITEM")) {
+					// remove "@ITEM="
+					String thisLine = tokenizer.getLineAsString().substring(6);
+					// get the position of the first = in the remaining string
+					int index = thisLine.indexOf("=");
+					int itemID = Integer.parseInt(thisLine.substring(0, index));
+					String stringValue = thisLine.substring(index + 1);
+					if (mapItemIDtoStringValue == null) {
+						mapItemIDtoStringValue = new HashMap<Integer, String>();
 					}
+					mapItemIDtoStringValue.put(itemID, stringValue);
+				} else if (tokenizer.isMetadata() == false) {
+					// the items of the transaction were parsed by the tokenizer
+					// call "addTransaction" to process this line.
+					addTransaction(tokenizer.getValues(), tokenizer.getSectionEnd(0));
 				}
 			}
 		}
 	}
 
+	/**
+	 * Method to load the transactions of a database in binary format into memory
+	 * 
+	 * @param database a binary transaction database
+	 */
+	public void loadBinaryDatabase(BinaryTransactionDatabase database) {
+		int[] buffer = new int[16];
+		// for each transaction
+		for (int t = 0; t < database.size(); t++) {
+			int length = database.getTransactionLength(t);
+			if (length > buffer.length) {
+				buffer = new int[length];
+			}
+			database.getItems(t, buffer);
+			// create the transaction
+			List<Integer> itemset = new ArrayList<Integer>(length);
+			for (int i = 0; i < length; i++) {
+				itemset.add(buffer[i]);
+				items.add(buffer[i]);
+			}
+			transactions.add(itemset);
+		}
+		if (database.getMaxItemID() > maxItemID) {
+			maxItemID = database.getMaxItemID();
+		}
+	}
+
 	/**
 	 * This method process a line from a file that is read.
 	 * 
-	 * @param tokens the items contained in this line
+	 * @param values the items contained in this line
+	 * @param length the number of items
 	 */
-	private void addTransaction(String itemsString[]) {
+	private void addTransaction(int[] values, int length) {
 		// create an empty transaction
-		List<Integer> itemset = new ArrayList<Integer>();
+		List<Integer> itemset = new ArrayList<Integer>(length);
 		// for each item in this line
-		for (String attribute : itemsString) {
-			// convert from string to int
-			int item = Integer.parseInt(attribute);
+		for (int i = 0; i < length; i++) {
+			int item = values[i];
 			// add the item to the current transaction
 			itemset.add(item);
 			// add the item to the set of all items in this database
@@ -16,11 +16,7 @@ package ca.pfv.spmf.input.utility_transaction_database_with_time;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,6 +25,7 @@ import java.util.Map;
 import java.util.Set;
 
 import ca.pfv.spmf.algorithms.frequentpatterns.two_phase.AlgoTwoPhase;
+import ca.pfv.spmf.input.tokenizer.SPMFTokenizer;
 import ca.pfv.spmf.input.utility_transaction_database.ItemUtility;
 
 /**
@@ -68,35 +65,27 @@ public class UtilityTimeTransactionDatabase {
 	public void loadFile(String path) throws IOException {
 		maxItemID = 0;
 		
-		String thisLine;
-		BufferedReader myInput = null;
+		SPMFTokenizer tokenizer = null;
 		try {
-			FileInputStream fin = new FileInputStream(new File(path));
-			myInput = new BufferedReader(new InputStreamReader(fin));
-			// for each transaction (line) in the input file
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is a comment, is empty or is a
-				// kind of metadata
-				if (thisLine.startsWith("@ITEM")) {
+			tokenizer = new SPMFTokenizer(path);
+			// for each transaction (line) in the input file that is not empty
+			// and is not a comment
+			while (tokenizer.nextLine()) {
+				if (tokenizer.startsWith("@ITEM")) {
 					// remove "@ITEM="
-					thisLine = thisLine.substring(6);
+					String thisLine = tokenizer.getLineAsString().substring(6);
 					// get the position of the first = in the remaining string
 					int index = thisLine.indexOf("=");
 					int itemID = Integer.parseInt(thisLine.substring(0, index));
 					String stringValue = thisLine.substring(index + 1);
-//					System.out.println(itemID);
-//					System.out.println(stringValue);
 					if (mapItemIDtoStringValue == null) {
 						mapItemIDtoStringValue = new HashMap<Integer, String>();
 					}
 					mapItemIDtoStringValue.put(itemID, stringValue);
-				} else if (thisLine.isEmpty() == false && thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-						&& thisLine.charAt(0) != '@') {
-					// split the line according to spaces and then
-					// call "addTransaction" to process this line.
-
-					// process the transaction
-					processTransaction(thisLine.split(":"));
+				} else if (tokenizer.isMetadata() == false) {
+					// process the transaction, which was split into sections
+					// according to ":" by the tokenizer
+					processTransaction(tokenizer);
 				}
 
 			}
@@ -104,9 +93,9 @@ public class UtilityTimeTransactionDatabase {
 			// catch exceptions
 			e.printStackTrace();
 		} finally {
-			if (myInput != null) {
+			if (tokenizer != null) {
 				// close the file
-				myInput.close();
+				tokenizer.close();
 			}
 		}
 	}
@@ -114,22 +103,24 @@ public class UtilityTimeTransactionDatabase {
 	/**
 	 * Process a line (transaction) from the input file
 	 * 
-	 * @param line a line
+	 * @param tokenizer the tokenizer positioned on the line
 	 */
-	private void processTransaction(String[] line) {
+	private void processTransaction(SPMFTokenizer tokenizer) {
 		// get the transaction utility
-		int transactionUtility = Integer.parseInt(line[1]);
+		int transactionUtility = tokenizer.getValue(1, 0);
 
-		String[] items = line[0].split(" ");
-		String[] utilities = line[2].split(" ");
-		Integer timestamp = Integer.parseInt(line[3]);
+		int[] values = tokenizer.getValues();
+		int itemsStart = tokenizer.getSectionStart(0);
+		int itemCount = tokenizer.getSectionLength(0);
+		int utilitiesStart = tokenizer.getSectionStart(2);
+		int timestamp = tokenizer.getValue(3, 0);
 
 		// Create a list for storing items
-		List<ItemUtility> itemUtilityObjects = new ArrayList<ItemUtility>();
+		List<ItemUtility> itemUtilityObjects = new ArrayList<ItemUtility>(itemCount);
 		// for each item
-		for (int i = 0; i < items.length; i++) {
-			int item = Integer.parseInt(items[i]);
-			itemUtilityObjects.add(new ItemUtility(item, Integer.parseInt(utilities[i])));
+		for (int i = 0; i < itemCount; i++) {
+			int item = values[itemsStart + i];
+			itemUtilityObjects.add(new ItemUtility(item, values[utilitiesStart + i]));
 			allItems.add(item);
 			
 			if(item >maxItemID) {
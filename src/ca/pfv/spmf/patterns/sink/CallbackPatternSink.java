@@ -0,0 +1,59 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * A pattern sink that gives each pattern to a {@link PatternConsumer}, for
+ * example a lambda expression, as soon as it is found. This allows to process
+ * the patterns in a streaming way without formatting or storing them.
+ * 
+ * @see PatternSink
+ * @see PatternConsumer
+ * @author Philippe Fournier-Viger
+ */
+public class CallbackPatternSink implements PatternSink {
+
+	/** the consumer that receives the patterns */
+	private final PatternConsumer consumer;
+
+	/** the number of patterns */
+	private long patternCount = 0;
+
+	/**
+	 * Constructor
+	 * @param consumer the consumer that receives the patterns
+	 */
+	public CallbackPatternSink(PatternConsumer consumer) {
+		this.consumer = consumer;
+	}
+
+	@Override
+	public void savePattern(int[] pattern, int length, long measure) {
+		patternCount++;
+		consumer.accept(pattern, length, measure);
+	}
+
+	@Override
+	public long getPatternCount() {
+		return patternCount;
+	}
+
+	@Override
+	public void close() {
+		// nothing to do
+	}
+}
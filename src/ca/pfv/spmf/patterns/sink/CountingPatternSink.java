@@ -0,0 +1,79 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * A pattern sink that only counts the patterns, and the number of patterns of
+ * each length. It is useful when only the number of patterns is needed (e.g.
+ * for experiments), as patterns are neither formatted nor stored.
+ * 
+ * @see PatternSink
+ * @author Philippe Fournier-Viger
+ */
+public class CountingPatternSink implements PatternSink {
+
+	/** the number of patterns */
+	private long patternCount = 0;
+
+	/** the number of patterns of each length (the index is the length) */
+	private long[] countByLength = new long[32];
+
+	/** the largest pattern length */
+	private int maxLength = 0;
+
+	@Override
+	public void savePattern(int[] pattern, int length, long measure) {
+		patternCount++;
+		if (length >= countByLength.length) {
+			countByLength = Arrays.copyOf(countByLength, Math.max(length + 1, countByLength.length * 2));
+		}
+		countByLength[length]++;
+		if (length > maxLength) {
+			maxLength = length;
+		}
+	}
+
+	@Override
+	public long getPatternCount() {
+		return patternCount;
+	}
+
+	/**
+	 * Get the number of patterns having a given length (number of values in the
+	 * pattern array)
+	 * @param length the length
+	 * @return the number of patterns
+	 */
+	public long getPatternCount(int length) {
+		return length < countByLength.length ? countByLength[length] : 0;
+	}
+
+	/**
+	 * Get the largest length of a pattern
+	 * @return the largest length
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	@Override
+	public void close() {
+		// nothing to do
+	}
+}
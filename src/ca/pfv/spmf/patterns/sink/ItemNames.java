@@ -0,0 +1,173 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * The names of the items of a database that was converted to the SPMF format
+ * (e.g. from the ARFF format), where each item ID corresponds to a string. The
+ * code that calls an algorithm can set the names for the current thread with
+ * the path of the output file of the algorithm. Then, the
+ * {@link TextPatternSink} created by the algorithm to write that output file
+ * will write the names of items instead of their IDs. This avoids writing the
+ * output file a second time to convert it. The sinks created for other files
+ * (e.g. the temporary files of an algorithm) write the IDs. If the algorithm
+ * does not use a TextPatternSink for its output file, the names are not used,
+ * and the output file must be converted (see {@link #clearForCurrentThread()}).
+ * 
+ * @see TextPatternSink
+ * @author Philippe Fournier-Viger
+ */
+public final class ItemNames {
+
+	/** the names of items of the current thread */
+	private static final ThreadLocal<ItemNames> current = new ThreadLocal<ItemNames>();
+
+	/** the map from item ID to name */
+	private final Map<Integer, String> names;
+
+	/** the charset for writing the output file */
+	private final Charset charset;
+
+	/** the path of the output file where the names are written (or null) */
+	private final Path outputPath;
+
+	/** true if the names were used by a sink */
+	private boolean used = false;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param names      the map from item ID to name
+	 * @param charset    the charset for writing the output file
+	 * @param outputPath the path of the output file where the names are written
+	 */
+	private ItemNames(Map<Integer, String> names, Charset charset, String outputPath) {
+		this.names = names;
+		this.charset = charset == null ? Charset.defaultCharset() : charset;
+		this.outputPath = outputPath == null ? null : toPath(outputPath);
+	}
+
+	/**
+	 * Set the names of items for the algorithm that will be run by the current
+	 * thread
+	 * 
+	 * @param names      the map from item ID to name
+	 * @param charset    the charset for writing the output file, or null to use
+	 *                   the default charset
+	 * @param outputPath the path of the output file of the algorithm
+	 */
+	public static void setForCurrentThread(Map<Integer, String> names, Charset charset, String outputPath) {
+		current.set(new ItemNames(names, charset, outputPath));
+	}
+
+	/**
+	 * Get the names of items set for the current thread, if they must be written
+	 * to an output file
+	 * 
+	 * @param outputPath the path of the output file
+	 * @return the names, or null if none or if they were set for another file
+	 */
+	static ItemNames getForOutputFile(String outputPath) {
+		ItemNames itemNames = current.get();
+		if (itemNames == null || itemNames.outputPath == null
+				|| itemNames.outputPath.equals(toPath(outputPath)) == false) {
+			return null;
+		}
+		return itemNames;
+	}
+
+	/**
+	 * Convert the path of a file to an absolute path, so that two paths of the
+	 * same file can be compared
+	 * 
+	 * @param path the path
+	 * @return the absolute path
+	 */
+	private static Path toPath(String path) {
+		return Paths.get(path).toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Remove the names of items of the current thread (after running the
+	 * algorithm).
+	 * 
+	 * @return true if the names were used by a sink to write the output file,
+	 *         false if the output file contains item IDs
+	 */
+	public static boolean clearForCurrentThread() {
+		ItemNames itemNames = current.get();
+		current.remove();
+		return itemNames != null && itemNames.used;
+	}
+
+	/**
+	 * Remove the names of items of the current thread while the algorithm runs
+	 * another algorithm (e.g. on a temporary file), so that the other algorithm
+	 * does not write them and does not mark them as used.
+	 * 
+	 * @return the names, to be given to {@link #restoreForCurrentThread(ItemNames)}
+	 *         after running the other algorithm, or null if none
+	 */
+	public static ItemNames suspendForCurrentThread() {
+		ItemNames itemNames = current.get();
+		current.remove();
+		return itemNames;
+	}
+
+	/**
+	 * Set again the names of items of the current thread that were removed by
+	 * {@link #suspendForCurrentThread()}
+	 * 
+	 * @param itemNames the names, or null if none
+	 */
+	public static void restoreForCurrentThread(ItemNames itemNames) {
+		if (itemNames != null) {
+			current.set(itemNames);
+		}
+	}
+
+	/**
+	 * Get the name of an item
+	 * 
+	 * @param item the item ID
+	 * @return the name, or null if the item has no name
+	 */
+	String getName(int item) {
+		return names.get(item);
+	}
+
+	/**
+	 * Get the charset for writing the output file
+	 * 
+	 * @return the charset
+	 */
+	Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Indicate that the names are used by a sink
+	 */
+	void markUsed() {
+		used = true;
+	}
+}
@@ -0,0 +1,36 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * A functional interface for the code that receives the patterns found by an
+ * algorithm through a {@link CallbackPatternSink}.
+ * 
+ * @see CallbackPatternSink
+ * @author Philippe Fournier-Viger
+ */
+@FunctionalInterface
+public interface PatternConsumer {
+
+	/**
+	 * Receive a pattern.
+	 * @param pattern an array containing the pattern (valid only during this call)
+	 * @param length the number of values of the pattern in the array
+	 * @param measure the measure of the pattern (e.g. support or utility)
+	 */
+	public void accept(int[] pattern, int length, long measure);
+}
@@ -0,0 +1,81 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+
+/**
+ * This interface is implemented by the objects that receive the patterns found
+ * by an algorithm. It generalizes the Saver interface of the clasp_AGP package
+ * (SaverIntoFile, SaverIntoMemory) so that an algorithm does not need to know
+ * if its patterns are written to a text file, written to a binary file, only
+ * counted, filtered to keep the top-N patterns, or given to some other code.
+ * <br/><br/>
+ * 
+ * A pattern is given as an array of int that is only valid during the call
+ * (algorithms reuse the same buffer for all patterns), so an implementation
+ * must copy the array if it needs to keep the pattern. For an itemset, the
+ * array contains the items. For a sequential pattern, the array contains the
+ * items of each itemset followed by -1 (e.g. "1 -1 2 3 -1"). The measure
+ * is the value associated to the pattern such as its support or utility.
+ * 
+ * @see TextPatternSink
+ * @see BinaryPatternSink
+ * @see CountingPatternSink
+ * @see TopNPatternSink
+ * @see CallbackPatternSink
+ * @author Philippe Fournier-Viger
+ */
+public interface PatternSink {
+
+	/**
+	 * Save a pattern.
+	 * @param pattern an array containing the pattern (valid only during this call)
+	 * @param length the number of values of the pattern in the array
+	 * @param measure the measure of the pattern (e.g. support or utility)
+	 * @throws IOException if an error occurs while saving the pattern
+	 */
+	public void savePattern(int[] pattern, int length, long measure) throws IOException;
+
+	/**
+	 * Save a pattern with the identifiers of the transactions or sequences where it
+	 * appears. By default, the identifiers are ignored.
+	 * @param pattern an array containing the pattern (valid only during this call)
+	 * @param length the number of values of the pattern in the array
+	 * @param measure the measure of the pattern (e.g. support or utility)
+	 * @param identifiers an array containing the identifiers (valid only during this call)
+	 * @param identifierCount the number of identifiers in the array
+	 * @throws IOException if an error occurs while saving the pattern
+	 */
+	public default void savePattern(int[] pattern, int length, long measure, int[] identifiers, int identifierCount)
+			throws IOException {
+		savePattern(pattern, length, measure);
+	}
+
+	/**
+	 * Get the number of patterns that have been saved.
+	 * @return the number of patterns
+	 */
+	public long getPatternCount();
+
+	/**
+	 * Indicate that no more patterns will be saved, and release the resources
+	 * used by this sink (e.g. close the output file).
+	 * @throws IOException if an error occurs while closing the sink
+	 */
+	public void close() throws IOException;
+}
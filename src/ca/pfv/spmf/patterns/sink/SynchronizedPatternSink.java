@@ -0,0 +1,63 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+
+/**
+ * A pattern sink that gives the patterns to another sink, one pattern at a
+ * time, so that several threads of a parallel algorithm can save their
+ * patterns to the same sink. The order of the patterns depends on the order in
+ * which the threads find them.
+ * 
+ * @see PatternSink
+ * @author Philippe Fournier-Viger
+ */
+public class SynchronizedPatternSink implements PatternSink {
+
+	/** the sink that receives the patterns */
+	private final PatternSink sink;
+
+	/**
+	 * Constructor
+	 * @param sink the sink that receives the patterns
+	 */
+	public SynchronizedPatternSink(PatternSink sink) {
+		this.sink = sink;
+	}
+
+	@Override
+	public synchronized void savePattern(int[] pattern, int length, long measure) throws IOException {
+		sink.savePattern(pattern, length, measure);
+	}
+
+	@Override
+	public synchronized void savePattern(int[] pattern, int length, long measure, int[] identifiers,
+			int identifierCount) throws IOException {
+		sink.savePattern(pattern, length, measure, identifiers, identifierCount);
+	}
+
+	@Override
+	public synchronized long getPatternCount() {
+		return sink.getPatternCount();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		sink.close();
+	}
+}
@@ -0,0 +1,242 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A pattern sink that writes each pattern as a line of text in the SPMF format,
+ * for example "1 2 3 #SUP: 5" for an itemset or "1 -1 2 -1 #SUP: 5" for a
+ * sequential pattern. The name of the measure ("#SUP:", "#UTIL:", ...) is
+ * given to the constructor. If identifiers are given with a pattern, they are
+ * written after the measure (e.g. " #SID: 0 2 ").
+ * <br/><br/>
+ * 
+ * The integers are converted to characters in a buffer that is reused for all
+ * patterns, so that no StringBuilder or String is created for each pattern.
+ * If {@link ItemNames} are set for the current thread and for the output file
+ * of a sink, the names of items are written instead of their IDs.
+ * 
+ * @see PatternSink
+ * @author Philippe Fournier-Viger
+ */
+public class TextPatternSink implements PatternSink {
+
+	/** the writer */
+	private final Writer writer;
+
+	/** the name of the measure, preceded and followed by a space (e.g. " #SUP: ") */
+	private final char[] measureLabel;
+
+	/** the name of the identifiers, preceded and followed by a space (e.g. " #SID: ") */
+	private final char[] identifiersLabel;
+
+	/** the buffer used to create each line */
+	private char[] line = new char[256];
+
+	/** the number of patterns */
+	private long patternCount = 0;
+
+	/** the names of items to be written instead of their IDs, or null */
+	private ItemNames itemNames = null;
+
+	/**
+	 * Create a sink that writes patterns to a file.
+	 * @param outputPath the path of the output file
+	 * @param measureName the name of the measure (e.g. "#SUP:")
+	 * @throws IOException if the file cannot be created
+	 */
+	public TextPatternSink(String outputPath, String measureName) throws IOException {
+		this(outputPath, measureName, ItemNames.getForOutputFile(outputPath));
+	}
+
+	/**
+	 * Create a sink that writes patterns to a file.
+	 * @param outputPath the path of the output file
+	 * @param measureName the name of the measure (e.g. "#SUP:")
+	 * @param itemNames the names of items to be written instead of their IDs, or null
+	 * @throws IOException if the file cannot be created
+	 */
+	private TextPatternSink(String outputPath, String measureName, ItemNames itemNames) throws IOException {
+		this(new BufferedWriter(itemNames == null ? new FileWriter(outputPath)
+				: new OutputStreamWriter(new FileOutputStream(outputPath), itemNames.getCharset())), measureName,
+				"#SID:");
+		if (itemNames != null) {
+			itemNames.markUsed();
+			this.itemNames = itemNames;
+		}
+	}
+
+	/**
+	 * Create a sink that writes patterns to a writer.
+	 * @param writer the writer (it is closed when this sink is closed)
+	 * @param measureName the name of the measure (e.g. "#SUP:")
+	 * @param identifiersName the name written before the identifiers (e.g. "#SID:")
+	 */
+	public TextPatternSink(Writer writer, String measureName, String identifiersName) {
+		this.writer = writer;
+		this.measureLabel = (" " + measureName + " ").toCharArray();
+		this.identifiersLabel = (" " + identifiersName + " ").toCharArray();
+	}
+
+	@Override
+	public void savePattern(int[] pattern, int length, long measure) throws IOException {
+		int position = appendPattern(pattern, length, measure);
+		write(position);
+	}
+
+	@Override
+	public void savePattern(int[] pattern, int length, long measure, int[] identifiers, int identifierCount)
+			throws IOException {
+		int position = appendPattern(pattern, length, measure);
+		position = append(identifiersLabel, position);
+		for (int i = 0; i < identifierCount; i++) {
+			position = append(identifiers[i], position);
+			position = append(' ', position);
+		}
+		write(position);
+	}
+
+	/**
+	 * Write the values of a pattern and its measure in the line buffer
+	 * @param pattern the pattern
+	 * @param length the number of values
+	 * @param measure the measure
+	 * @return the position after the last character
+	 */
+	private int appendPattern(int[] pattern, int length, long measure) {
+		patternCount++;
+		int position = 0;
+		for (int i = 0; i < length; i++) {
+			if (i != 0) {
+				position = append(' ', position);
+			}
+			position = appendItem(pattern[i], position);
+		}
+		position = append(measureLabel, position);
+		return append(measure, position);
+	}
+
+	/**
+	 * Append an item of a pattern to the line buffer, or its name if the names
+	 * of items are known
+	 * @param item the item
+	 * @param position the position in the buffer
+	 * @return the new position
+	 */
+	private int appendItem(int item, int position) {
+		if (itemNames != null) {
+			String name = itemNames.getName(item);
+			if (name != null) {
+				int length = name.length();
+				ensureCapacity(position + length);
+				name.getChars(0, length, line, position);
+				return position + length;
+			}
+		}
+		return append(item, position);
+	}
+
+	/**
+	 * Write the line buffer to the writer, followed by a new line
+	 * @param length the number of characters in the line buffer
+	 * @throws IOException if an error occurs while writing
+	 */
+	private void write(int length) throws IOException {
+		writer.write(line, 0, length);
+		writer.write(System.lineSeparator());
+	}
+
+	/**
+	 * Append a character to the line buffer
+	 * @param c the character
+	 * @param position the position in the buffer
+	 * @return the new position
+	 */
+	private int append(char c, int position) {
+		ensureCapacity(position + 1);
+		line[position] = c;
+		return position + 1;
+	}
+
+	/**
+	 * Append characters to the line buffer
+	 * @param chars the characters
+	 * @param position the position in the buffer
+	 * @return the new position
+	 */
+	private int append(char[] chars, int position) {
+		ensureCapacity(position + chars.length);
+		System.arraycopy(chars, 0, line, position, chars.length);
+		return position + chars.length;
+	}
+
+	/**
+	 * Append the decimal representation of a number to the line buffer
+	 * @param value the number
+	 * @param position the position in the buffer
+	 * @return the new position
+	 */
+	private int append(long value, int position) {
+		// a long has at most 19 digits and a sign
+		ensureCapacity(position + 20);
+		if (value == Long.MIN_VALUE) {
+			return append(Long.toString(value).toCharArray(), position);
+		}
+		if (value < 0) {
+			line[position++] = '-';
+			value = -value;
+		}
+		// write the digits from the end
+		int digits = 1;
+		for (long v = value / 10; v != 0; v /= 10) {
+			digits++;
+		}
+		int end = position + digits;
+		for (int i = end - 1; i >= position; i--) {
+			line[i] = (char) ('0' + (value % 10));
+			value /= 10;
+		}
+		return end;
+	}
+
+	/**
+	 * Make sure that the line buffer can contain a number of characters
+	 * @param capacity the number of characters
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > line.length) {
+			line = Arrays.copyOf(line, Math.max(capacity, line.length * 2));
+		}
+	}
+
+	@Override
+	public long getPatternCount() {
+		return patternCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,148 @@
+package ca.pfv.spmf.patterns.sink;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A pattern sink that only keeps the N patterns having the largest measure
+ * (e.g. the N most frequent patterns). The patterns are kept in a heap, and a
+ * pattern is only copied if its measure is larger than the smallest measure
+ * of the patterns that are kept, so that memory usage does not depend on the
+ * number of patterns found by the algorithm.
+ * 
+ * @see PatternSink
+ * @author Philippe Fournier-Viger
+ */
+public class TopNPatternSink implements PatternSink {
+
+	/**
+	 * A pattern kept by this sink
+	 */
+	public static class Pattern implements Comparable<Pattern> {
+		/** the values of the pattern */
+		private final int[] values;
+		/** the measure of the pattern */
+		private final long measure;
+
+		/**
+		 * Constructor
+		 * @param values the values of the pattern
+		 * @param measure the measure of the pattern
+		 */
+		Pattern(int[] values, long measure) {
+			this.values = values;
+			this.measure = measure;
+		}
+
+		/**
+		 * Get the values of this pattern (items, and -1 separators for a sequential pattern)
+		 * @return the values
+		 */
+		public int[] getValues() {
+			return values;
+		}
+
+		/**
+		 * Get the measure of this pattern
+		 * @return the measure
+		 */
+		public long getMeasure() {
+			return measure;
+		}
+
+		@Override
+		public int compareTo(Pattern other) {
+			return Long.compare(measure, other.measure);
+		}
+
+		@Override
+		public String toString() {
+			return Arrays.toString(values) + " #MEASURE: " + measure;
+		}
+	}
+
+	/** the number of patterns to keep */
+	private final int n;
+
+	/** the patterns, ordered by increasing measure */
+	private final PriorityQueue<Pattern> heap;
+
+	/** the number of patterns received */
+	private long patternCount = 0;
+
+	/**
+	 * Constructor
+	 * @param n the number of patterns to keep
+	 */
+	public TopNPatternSink(int n) {
+		this.n = n;
+		this.heap = new PriorityQueue<Pattern>(Math.max(1, n));
+	}
+
+	@Override
+	public void savePattern(int[] pattern, int length, long measure) {
+		patternCount++;
+		if (n <= 0) {
+			return;
+		}
+		if (heap.size() < n) {
+			heap.add(new Pattern(Arrays.copyOf(pattern, length), measure));
+		} else if (measure > heap.peek().measure) {
+			heap.poll();
+			heap.add(new Pattern(Arrays.copyOf(pattern, length), measure));
+		}
+	}
+
+	/**
+	 * Get the smallest measure of the patterns that are kept. A pattern having a
+	 * smaller or equal measure would not be kept if the sink is full.
+	 * @return the smallest measure, or 0 if less than N patterns were received.
+	 */
+	public long getMinimumMeasure() {
+		return heap.size() < n ? 0 : heap.peek().measure;
+	}
+
+	/**
+	 * Get the patterns that are kept, by decreasing order of measure.
+	 * @return the list of patterns
+	 */
+	public List<Pattern> getPatterns() {
+		List<Pattern> patterns = new ArrayList<Pattern>(heap);
+		Collections.sort(patterns, Collections.reverseOrder());
+		return patterns;
+	}
+
+	/**
+	 * Get the number of patterns received by this sink (not only those that
+	 * are kept).
+	 * @return the number of patterns
+	 */
+	@Override
+	public long getPatternCount() {
+		return patternCount;
+	}
+
+	@Override
+	public void close() {
+		// nothing to do
+	}
+}
@@ -0,0 +1,41 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+import ca.pfv.spmf.tools.dataset_converter.BinaryTransactionDatabaseConverter;
+
+/**
+ * Example of how to convert a transaction database in SPMF format to the binary
+ * format, and then to run FPGrowth on the binary file. The binary file only needs
+ * to be created once and can then be used as input many times.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestConvertTransactionDatabaseToBinary {
+
+	public static void main(String [] arg) throws IOException{
+		// the file paths
+		String input = fileToPath("contextPasquier99.txt");  // the database in SPMF format
+		String binary = ".//contextPasquier99.bin";  // the database in binary format
+		String output = ".//output.txt";  // the path for saving the frequent itemsets found
+		
+		// Convert the database to the binary format
+		BinaryTransactionDatabaseConverter converter = new BinaryTransactionDatabaseConverter();
+		converter.convert(input, binary);
+		converter.printStats();
+		
+		double minsup = 0.4; // means a minsup of 2 transaction (we used a relative support)
+
+		// Applying the FPGROWTH algorithm on the binary file
+		AlgoFPGrowth algo = new AlgoFPGrowth();
+		algo.runAlgorithm(binary, output, minsup);
+		algo.printStats();
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestConvertTransactionDatabaseToBinary.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -0,0 +1,51 @@
+package ca.pfv.spmf.test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+import ca.pfv.spmf.patterns.sink.CountingPatternSink;
+import ca.pfv.spmf.patterns.sink.TopNPatternSink;
+
+
+/**
+ * Example of how to use FPGrowth from the source code, and give the patterns
+ * to a pattern sink instead of saving them to a file or keeping them in memory.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestFPGrowth_saveToSink {
+
+	public static void main(String [] arg) throws FileNotFoundException, IOException{
+		// Loading the transaction database
+		String input = fileToPath("contextPasquier99.txt");  // the database
+
+		// the minimum support threshold
+		double minsup = 0.4; // means a minsup of 2 transaction (we used a relative support)
+
+		// Run the algorithm with a sink that only counts the patterns by length
+		AlgoFPGrowth algo = new AlgoFPGrowth();
+		CountingPatternSink counter = new CountingPatternSink();
+		algo.runAlgorithmWithSink(input, counter, minsup);
+		algo.printStats();
+		System.out.println("Number of patterns: " + counter.getPatternCount());
+		for(int length = 1; length <= counter.getMaxLength(); length++){
+			System.out.println(" of length " + length + ": " + counter.getPatternCount(length));
+		}
+
+		// Run the algorithm again with a sink that only keeps the 5 most frequent patterns
+		algo = new AlgoFPGrowth();
+		TopNPatternSink topN = new TopNPatternSink(5);
+		algo.runAlgorithmWithSink(input, topN, minsup);
+		System.out.println("The 5 most frequent patterns:");
+		for(TopNPatternSink.Pattern pattern : topN.getPatterns()){
+			System.out.println(pattern);
+		}
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestFPGrowth_saveToSink.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
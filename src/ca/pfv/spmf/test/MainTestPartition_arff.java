@@ -0,0 +1,54 @@
+package ca.pfv.spmf.test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import ca.pfv.spmf.gui.CommandProcessor;
+
+/**
+ * Example of how to run the Partition algorithm on an ARFF file, as it is done
+ * from the user interface. The itemsets found by Partition are compared with
+ * those found by FPGrowth, which must be the same.
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestPartition_arff {
+
+	public static void main(String[] arg) throws Exception {
+
+		// the input is an ARFF file
+		String input = fileToPath("test.arff");
+		String output = ".//output.txt";
+		String outputFPGrowth = ".//output_fpgrowth.txt";
+
+		// the minimum support threshold
+		String[] parameters = new String[] { "0.3" };
+
+		// Applying the Partition algorithm, then the FPGrowth algorithm
+		CommandProcessor.runAlgorithm("Partition_itemsets", input, output, parameters);
+		CommandProcessor.runAlgorithm("FPGrowth_itemsets", input, outputFPGrowth, parameters);
+
+		// check that the same itemsets were found, with the names of items
+		List<String> itemsets = Files.readAllLines(Paths.get(output));
+		List<String> itemsetsFPGrowth = Files.readAllLines(Paths.get(outputFPGrowth));
+		Collections.sort(itemsets);
+		Collections.sort(itemsetsFPGrowth);
+		for (String itemset : itemsets) {
+			System.out.println(itemset);
+		}
+		if (itemsets.equals(itemsetsFPGrowth)) {
+			System.out.println("The itemsets found by Partition and FPGrowth are the same.");
+		} else {
+			System.out.println("ERROR: the itemsets found by Partition and FPGrowth are different.");
+		}
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException {
+		URL url = MainTestPartition_arff.class.getResource(filename);
+		return java.net.URLDecoder.decode(url.getPath(), "UTF-8");
+	}
+}
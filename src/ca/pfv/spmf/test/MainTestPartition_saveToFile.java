@@ -0,0 +1,42 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.partition.AlgoPartition;
+
+/**
+ * Example of how to use the Partition algorithm from the source code and save
+ * the results to a file. The database is read by partitions, so that it does not
+ * need to fit in memory.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestPartition_saveToFile {
+
+	public static void main(String [] arg) throws IOException{
+		// the file paths
+		String input = fileToPath("contextPasquier99.txt");  // the database
+		String output = ".//output.txt";  // the path for saving the frequent itemsets found
+
+		double minsup = 0.4; // means a minsup of 2 transaction (we used a relative support)
+
+		// Applying the Partition algorithm
+		AlgoPartition algo = new AlgoPartition();
+
+		// Set the maximum number of transactions per partition (by default, the partitions
+		// are as large as the memory allows). Here, we use a small value to have several partitions.
+		algo.setMaxTransactionsPerPartition(2);
+
+		// Uncomment the following line to mine the partitions with another algorithm (by default FPGrowth)
+//		algo.setLocalAlgorithm("LCMFreq");
+
+		algo.runAlgorithm(input, output, minsup);
+		algo.printStats();
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestPartition_saveToFile.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
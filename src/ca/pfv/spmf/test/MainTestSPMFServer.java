@@ -0,0 +1,78 @@
+package ca.pfv.spmf.test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import ca.pfv.spmf.gui.server.SPMFServer;
+
+
+/**
+ * Example of how to start the SPMF server and send it requests to run
+ * algorithms through a socket, from the source code.
+ * The server can also be started from the command line with:
+ *     java -jar spmf.jar server 9099
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestSPMFServer {
+
+	public static void main(String [] arg) throws Exception{
+		// Loading the transaction database
+		String input = fileToPath("contextPasquier99.txt");  // the database
+
+		// Start the server on any free port, with two workers
+		SPMFServer server = new SPMFServer();
+		server.setPort(0);
+		server.setMaximumParallelism(2);
+		server.start();
+
+		try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))){
+
+			// Run FPGrowth two times with a minsup of 40 %. The output file is "-" so
+			// that the patterns are sent back through the socket.
+			// The second run does not pay for loading the classes.
+			for(int i = 0; i < 2; i++){
+				sendRequest(reader, writer, "timeout=60 run FPGrowth_itemsets \"" + input + "\" - 40%");
+			}
+			// A request with an algorithm that does not exist
+			sendRequest(reader, writer, "run NotAnAlgorithm input.txt output.txt");
+
+			// Stop the server
+			sendRequest(reader, writer, "shutdown");
+		}
+		server.awaitTermination();
+	}
+
+	/**
+	 * Send a request to the server and print the answer until the line
+	 * indicating the outcome of the request.
+	 */
+	private static void sendRequest(BufferedReader reader, BufferedWriter writer, String request) throws Exception{
+		System.out.println("Request: " + request);
+		writer.write(request);
+		writer.write('\n');
+		writer.flush();
+		String line;
+		while((line = reader.readLine()) != null){
+			System.out.println("  " + line);
+			// "C " is the console output of the algorithm and "R " is the result.
+			// Any other line is the end of the answer.
+			if(line.startsWith("C ") == false && line.startsWith("R ") == false){
+				break;
+			}
+		}
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestSPMFServer.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
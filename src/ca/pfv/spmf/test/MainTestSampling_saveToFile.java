@@ -0,0 +1,46 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.sampling.AlgoSampling;
+
+/**
+ * Example of how to use the Sampling algorithm from the source code and save
+ * the results to a file. The frequent itemsets are found in a random sample of the
+ * transactions, and their support is then calculated in the whole database.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestSampling_saveToFile {
+
+	public static void main(String [] arg) throws IOException{
+		// the file paths
+		String input = fileToPath("contextPasquier99.txt");  // the database
+		String output = ".//output.txt";  // the path for saving the frequent itemsets found
+
+		double minsup = 0.4; // means a minsup of 2 transaction (we used a relative support)
+
+		// Applying the Sampling algorithm
+		AlgoSampling algo = new AlgoSampling();
+
+		// Set the number of transactions in the sample (by default, it is calculated
+		// using epsilon and delta). Here, we use a small value since the database is small.
+		algo.setSampleSize(3);
+		// the probability that the support of an itemset in the sample is not a good estimation
+		algo.setDelta(0.05);
+		// Set this to false to only read the database once and output the estimated supports
+		algo.setVerification(true);
+
+		// Uncomment the following line to mine the sample with another algorithm (by default FPGrowth)
+//		algo.setLocalAlgorithm("LCMFreq");
+
+		algo.runAlgorithm(input, output, minsup);
+		algo.printStats();
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestSampling_saveToFile.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
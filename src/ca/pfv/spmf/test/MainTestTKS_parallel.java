@@ -0,0 +1,82 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spam.AlgoTKS;
+
+
+/**
+ * Example of how to use the TKS algorithm with several threads in source code.
+ * The patterns found with several threads are compared with those found with
+ * a single thread. With several threads, all the patterns having the support
+ * of the k-th pattern are kept, so the other patterns must have this support.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestTKS_parallel {
+
+	public static void main(String [] arg) throws IOException{
+
+		// Load a sequence database
+		String input = fileToPath("dataVMSP.txt");
+		String outputSingleThread = ".//output_single_thread.txt";
+		String output = ".//output.txt";
+
+		int k=1000;
+
+		// Run the algorithm with a single thread
+		AlgoTKS algoSingleThread = new AlgoTKS();
+		algoSingleThread.runAlgorithm(input, outputSingleThread, k);
+		algoSingleThread.writeResultTofile(outputSingleThread);
+
+		// Run the algorithm with 4 threads
+		AlgoTKS algo = new AlgoTKS();
+		algo.setThreadCount(4);
+		algo.runAlgorithm(input, output, k);
+		// save results to file
+		algo.writeResultTofile(output);
+		algo.printStatistics();
+
+		// check that the patterns found with a single thread were found, and that
+		// the other patterns have the lowest support
+		Set<String> patternsSingleThread = new HashSet<String>(Files.readAllLines(Paths.get(outputSingleThread)));
+		List<String> patterns = Files.readAllLines(Paths.get(output));
+		int minsup = Integer.MAX_VALUE;
+		for (String pattern : patterns) {
+			minsup = Math.min(minsup, getSupport(pattern));
+		}
+		boolean correct = patterns.containsAll(patternsSingleThread);
+		for (String pattern : patterns) {
+			if (!patternsSingleThread.contains(pattern) && getSupport(pattern) != minsup) {
+				correct = false;
+			}
+		}
+		if (correct) {
+			System.out.println("The patterns found with 4 threads are the patterns found with a single thread,"
+					+ " and " + (patterns.size() - patternsSingleThread.size())
+					+ " other patterns having the support of the k-th pattern.");
+		} else {
+			System.out.println("ERROR: the patterns found with 4 threads and with a single thread are different.");
+		}
+	}
+
+	/**
+	 * Get the support of a pattern from a line of the output file
+	 * @param line the line
+	 * @return the support
+	 */
+	private static int getSupport(String line) {
+		return Integer.parseInt(line.substring(line.indexOf("#SUP: ") + 6).trim());
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestTKS_parallel.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
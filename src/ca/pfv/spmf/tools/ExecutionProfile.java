@@ -0,0 +1,438 @@
+package ca.pfv.spmf.tools;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * This class records the memory usage, the memory allocations, the garbage
+ * collections and the time of some phases during an execution of an
+ * algorithm. It is used by the
+ * {@link MemoryLogger} singleton, and several algorithms running at the same
+ * time can each have their own profile. <br/>
+ * <br/>
+ * 
+ * The peak memory usage is obtained by listening to the notifications sent by
+ * the JVM after each garbage collection. Since the heap usage only increases
+ * between two garbage collections, its maximum is the heap usage just before a
+ * garbage collection, or the heap usage at the end of the execution. Thus, the
+ * algorithms do not need to check the memory usage in their loops, and no peak
+ * is missed. If the JVM does not send these notifications, the peak is
+ * calculated using the values given to {@link #recordMemory()}. <br/>
+ * <br/>
+ * 
+ * The number of bytes allocated is measured for the threads that are attached
+ * to this profile (the thread that starts the profile is attached
+ * automatically, and the threads of the pools created by
+ * {@link MemoryLogger#newForkJoinPool(int)} are attached while they run), if
+ * the JVM supports it. <br/>
+ * <br/>
+ * 
+ * The time of a phase is measured by each thread that starts it, and the times
+ * of all the threads are added.
+ * 
+ * @see MemoryLogger
+ * @author Philippe Fournier-Viger
+ */
+public class ExecutionProfile {
+
+	/** the profiles that have been started and not stopped */
+	private static final List<ExecutionProfile> activeProfiles = new CopyOnWriteArrayList<ExecutionProfile>();
+
+	/** true if the listener of garbage collections has been registered */
+	private static boolean gcListenerRegistered = false;
+
+	/** true if the garbage collection notifications are supported by the JVM */
+	private static boolean gcNotificationsSupported = false;
+
+	/** the names of the memory pools of the heap */
+	private static Set<String> heapPoolNames;
+
+	/** the peak memory usage in megabytes */
+	private final DoubleAccumulator peakMemory = new DoubleAccumulator(Math::max, 0);
+
+	/** the number of garbage collections */
+	private final AtomicLong gcCount = new AtomicLong();
+
+	/** the total time of garbage collections in milliseconds */
+	private final AtomicLong gcTime = new AtomicLong();
+
+	/** the number of bytes allocated by the threads that have been detached */
+	private final AtomicLong allocatedBytes = new AtomicLong();
+
+	/** the number of bytes allocated by each attached thread when it was attached */
+	private final Map<Long, Long> attachedThreads = new ConcurrentHashMap<Long, Long>();
+
+	/** the total time of each phase in nanoseconds */
+	private final Map<String, AtomicLong> phaseTimes = new ConcurrentHashMap<String, AtomicLong>();
+
+	/** the names of the phases, in the order in which they were first started */
+	private final List<String> phaseNames = new CopyOnWriteArrayList<String>();
+
+	/** the start time in nanoseconds of the phases started by each thread */
+	private final ThreadLocal<Map<String, Long>> phaseStartTimes = ThreadLocal.withInitial(HashMap::new);
+
+	/** the start time in milliseconds */
+	private final long startTime;
+
+	/** the end time in milliseconds, or -1 if the profile has not been stopped */
+	private volatile long endTime = -1;
+
+	/**
+	 * Private constructor (use {@link #start()})
+	 */
+	private ExecutionProfile() {
+		startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Start a new profile. The current thread is attached to it.
+	 * 
+	 * @return the profile
+	 */
+	public static ExecutionProfile start() {
+		registerGCListener();
+		ExecutionProfile profile = new ExecutionProfile();
+		profile.attachCurrentThread();
+		profile.recordMemory();
+		activeProfiles.add(profile);
+		return profile;
+	}
+
+	/**
+	 * Stop this profile. The memory usage is recorded a last time, and the
+	 * attached threads are detached.
+	 */
+	public void stop() {
+		if (endTime != -1) {
+			return;
+		}
+		recordMemory();
+		activeProfiles.remove(this);
+		for (Long threadID : attachedThreads.keySet()) {
+			detachThread(threadID);
+		}
+		endTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Record the current memory usage, and update the peak memory usage if it
+	 * is larger.
+	 * 
+	 * @return the current memory usage in megabytes
+	 */
+	public double recordMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		double currentMemory = (runtime.totalMemory() - runtime.freeMemory()) / 1024d / 1024d;
+		peakMemory.accumulate(currentMemory);
+		return currentMemory;
+	}
+
+	/**
+	 * Record a memory usage, and update the peak memory usage if it is larger.
+	 * 
+	 * @param memory a memory usage in megabytes
+	 */
+	public void recordMemory(double memory) {
+		peakMemory.accumulate(memory);
+	}
+
+	/**
+	 * Get the peak memory usage. If the profile is not stopped, the current
+	 * memory usage is also taken into account.
+	 * 
+	 * @return the peak memory usage in megabytes
+	 */
+	public double getPeakMemory() {
+		if (endTime == -1) {
+			recordMemory();
+		}
+		return peakMemory.get();
+	}
+
+	/**
+	 * Reset the peak memory usage to the current memory usage (e.g. to obtain the
+	 * peak memory usage of each period of time).
+	 */
+	public void resetPeakMemory() {
+		peakMemory.reset();
+		recordMemory();
+	}
+
+	/**
+	 * Attach the current thread to this profile, so that the memory allocated
+	 * by this thread is counted (e.g. a thread of a thread pool used by the
+	 * algorithm).
+	 */
+	public void attachCurrentThread() {
+		long threadID = Thread.currentThread().threadId();
+		long allocated = getThreadAllocatedBytes(threadID);
+		if (allocated >= 0) {
+			attachedThreads.putIfAbsent(threadID, allocated);
+		}
+	}
+
+	/**
+	 * Detach the current thread from this profile. The memory allocated by this
+	 * thread until now is counted.
+	 */
+	public void detachCurrentThread() {
+		detachThread(Thread.currentThread().threadId());
+	}
+
+	/**
+	 * Detach a thread from this profile
+	 * 
+	 * @param threadID the id of the thread
+	 */
+	private void detachThread(long threadID) {
+		Long start = attachedThreads.remove(threadID);
+		if (start != null) {
+			long allocated = getThreadAllocatedBytes(threadID);
+			if (allocated >= start) {
+				allocatedBytes.addAndGet(allocated - start);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of bytes allocated by the threads attached to this profile
+	 * 
+	 * @return the number of bytes, or 0 if the JVM does not support measuring
+	 *         allocations
+	 */
+	public long getAllocatedBytes() {
+		long total = allocatedBytes.get();
+		for (Map.Entry<Long, Long> entry : attachedThreads.entrySet()) {
+			long allocated = getThreadAllocatedBytes(entry.getKey());
+			if (allocated >= entry.getValue()) {
+				total += allocated - entry.getValue();
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Start measuring the time of a phase of the algorithm in the current thread
+	 * (e.g. reading the database). A phase can be started several times, and by
+	 * several threads, and its times are added.
+	 * 
+	 * @param name the name of the phase
+	 */
+	public void startPhase(String name) {
+		phaseTimes.computeIfAbsent(name, key -> {
+			phaseNames.add(key);
+			return new AtomicLong();
+		});
+		phaseStartTimes.get().put(name, System.nanoTime());
+	}
+
+	/**
+	 * Stop measuring the time of a phase in the current thread
+	 * 
+	 * @param name the name of the phase
+	 */
+	public void endPhase(String name) {
+		Long start = phaseStartTimes.get().remove(name);
+		if (start != null) {
+			phaseTimes.get(name).addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Get the total time of a phase
+	 * 
+	 * @param name the name of the phase
+	 * @return the time in milliseconds, or 0 if there is no such phase
+	 */
+	public double getPhaseTime(String name) {
+		AtomicLong time = phaseTimes.get(name);
+		return time == null ? 0 : time.get() / 1000000d;
+	}
+
+	/**
+	 * Get the names of the phases, in the order in which they were first started
+	 * 
+	 * @return the names
+	 */
+	public List<String> getPhaseNames() {
+		return new ArrayList<String>(phaseNames);
+	}
+
+	/**
+	 * Get the number of garbage collections since this profile was started
+	 * 
+	 * @return the number of garbage collections
+	 */
+	public long getGCCount() {
+		return gcCount.get();
+	}
+
+	/**
+	 * Get the total time of garbage collections since this profile was started
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public long getGCTime() {
+		return gcTime.get();
+	}
+
+	/**
+	 * Get the time since this profile was started, or the time between its
+	 * start and its end if it is stopped
+	 * 
+	 * @return the time in milliseconds
+	 */
+	public long getElapsedTime() {
+		return (endTime == -1 ? System.currentTimeMillis() : endTime) - startTime;
+	}
+
+	/**
+	 * Check if the peak memory usage is measured using garbage collection
+	 * notifications (otherwise, it is only measured when the memory is recorded)
+	 * 
+	 * @return true if the notifications are supported by the JVM
+	 */
+	public static boolean isGCNotificationSupported() {
+		registerGCListener();
+		return gcNotificationsSupported;
+	}
+
+	/**
+	 * Get a string representation of this profile
+	 * 
+	 * @return a string
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append(" Peak memory usage: ").append(getPeakMemory()).append(" mb");
+		buffer.append(System.lineSeparator());
+		buffer.append(" Allocated memory: ").append(getAllocatedBytes() / 1024d / 1024d).append(" mb");
+		buffer.append(System.lineSeparator());
+		buffer.append(" Garbage collections: ").append(getGCCount()).append(" (").append(getGCTime())
+				.append(" ms)");
+		buffer.append(System.lineSeparator());
+		for (String phase : getPhaseNames()) {
+			buffer.append(" Phase ").append(phase).append(": ").append(getPhaseTime(phase)).append(" ms");
+			buffer.append(System.lineSeparator());
+		}
+		buffer.append(" Total time: ").append(getElapsedTime()).append(" ms");
+		return buffer.toString();
+	}
+
+	/**
+	 * Get the number of bytes allocated by a thread since it was started
+	 * 
+	 * @param threadID the id of the thread
+	 * @return the number of bytes, or -1 if not supported by the JVM
+	 */
+	private static long getThreadAllocatedBytes(long threadID) {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(threadID);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Register a listener of the garbage collection notifications of the JVM,
+	 * which updates the active profiles. This is done only once.
+	 */
+	private static synchronized void registerGCListener() {
+		if (gcListenerRegistered) {
+			return;
+		}
+		gcListenerRegistered = true;
+
+		// find the memory pools of the heap
+		heapPoolNames = new HashSet<String>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				heapPoolNames.add(pool.getName());
+			}
+		}
+
+		try {
+			NotificationListener listener = ExecutionProfile::handleGCNotification;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				if (gc instanceof NotificationEmitter) {
+					((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+					gcNotificationsSupported = true;
+				}
+			}
+		} catch (NoClassDefFoundError e) {
+			// the com.sun.management classes are not available on this JVM
+			gcNotificationsSupported = false;
+		}
+	}
+
+	/**
+	 * Process a garbage collection notification
+	 * 
+	 * @param notification the notification
+	 * @param handback     not used
+	 */
+	private static void handleGCNotification(Notification notification, Object handback) {
+		if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())
+				|| activeProfiles.isEmpty()) {
+			return;
+		}
+		GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+				.from((CompositeData) notification.getUserData());
+
+		// calculate the heap usage just before the garbage collection
+		long usedBeforeGC = 0;
+		for (Map.Entry<String, MemoryUsage> entry : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+			if (heapPoolNames.contains(entry.getKey())) {
+				usedBeforeGC += entry.getValue().getUsed();
+			}
+		}
+		double memory = usedBeforeGC / 1024d / 1024d;
+		long duration = info.getGcInfo().getDuration();
+
+		for (ExecutionProfile profile : activeProfiles) {
+			profile.peakMemory.accumulate(memory);
+			profile.gcCount.incrementAndGet();
+			profile.gcTime.addAndGet(duration);
+		}
+	}
+}
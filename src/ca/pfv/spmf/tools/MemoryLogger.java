@@ -23,12 +23,30 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 /**
  * This class is used to record the maximum memory usaged of an algorithm during
  * a given execution. It is implemented by using the "singleton" design pattern.
  * The memory logger has the option of saving the logged values to a file if it
- * is set to be in recording mode, and a file path is provided.
+ * is set to be in recording mode, and a file path is provided. <br/>
+ * <br/>
+ * 
+ * The memory usage is recorded using an {@link ExecutionProfile},
+ * which is restarted by the reset() method. The profile listens to the garbage
+ * collections of the JVM, so the maximum memory usage includes the peaks that
+ * occur between two calls to checkMemory(). If the JVM supports it,
+ * checkMemory() thus does nothing (except in recording mode), and it can be
+ * called in the loops of the algorithms without overhead. <br/>
+ * <br/>
+ * 
+ * To measure several algorithms that run at the same time separately (e.g. in
+ * a server), a profile can be bound to the thread that runs each algorithm with
+ * bindCurrentThread(). The methods of this class that are called by this
+ * thread then use its profile, and reset() does not affect the other runs. The
+ * thread pools of an algorithm should be created with newForkJoinPool(), so
+ * that their threads use the profile of the thread that creates the pool.
  *
  */
 public class MemoryLogger {
@@ -36,11 +54,18 @@ public class MemoryLogger {
 	// the only instance of this class (this is the "singleton" design pattern)
 	private static MemoryLogger instance = new MemoryLogger();
 
-	// variable to store the maximum memory usage
-	private double maxMemory = 0;
+	// the profile of the current execution, which records the maximum memory usage
+	private volatile ExecutionProfile profile = ExecutionProfile.start();
+
+	// the profiles bound to some threads, which are used instead of the above profile
+	private final ThreadLocal<ExecutionProfile> boundProfile = new ThreadLocal<ExecutionProfile>();
+
+	// true if the peak memory usage is obtained from the garbage collections of the JVM,
+	// so that the memory usage does not need to be checked
+	private final boolean gcNotificationsSupported = ExecutionProfile.isGCNotificationSupported();
 
 	// A boolean flag to indicate whether the recording mode is on or off
-	private boolean recordingMode = false;
+	private volatile boolean recordingMode = false;
 
 	// A file object to store the output file name
 	private File outputFile = null;
@@ -63,28 +88,112 @@ public class MemoryLogger {
 	 * @return a double value indicating memory as megabytes
 	 */
 	public double getMaxMemory() {
-		return maxMemory;
+		return getProfile().getPeakMemory();
 	}
 
 	/**
-	 * Reset the maximum amount of memory recorded.
+	 * Reset the maximum amount of memory recorded. If a profile is bound to the
+	 * current thread, its peak memory usage is reset. Otherwise, this starts a new
+	 * profile.
 	 */
 	public void reset() {
-		maxMemory = 0;
+		ExecutionProfile bound = boundProfile.get();
+		if (bound != null) {
+			bound.resetPeakMemory();
+			return;
+		}
+		ExecutionProfile previous = profile;
+		profile = ExecutionProfile.start();
+		previous.stop();
+	}
+
+	/**
+	 * Get the profile of the current execution, which gives more information than
+	 * the maximum memory usage, such as the number of bytes allocated and the
+	 * garbage collections. This is the profile bound to the current thread, or
+	 * else the profile started by the last call to reset().
+	 * 
+	 * @return the profile
+	 */
+	public ExecutionProfile getProfile() {
+		ExecutionProfile bound = boundProfile.get();
+		return bound != null ? bound : profile;
+	}
+
+	/**
+	 * Bind a profile to the current thread, so that the memory usage of the
+	 * algorithm run by this thread is recorded in this profile. The thread is
+	 * attached to the profile.
+	 * 
+	 * @param executionProfile the profile
+	 */
+	public void bindCurrentThread(ExecutionProfile executionProfile) {
+		boundProfile.set(executionProfile);
+		executionProfile.attachCurrentThread();
+	}
+
+	/**
+	 * Unbind the profile of the current thread (if any). The thread is detached
+	 * from the profile.
+	 */
+	public void unbindCurrentThread() {
+		ExecutionProfile bound = boundProfile.get();
+		if (bound != null) {
+			bound.detachCurrentThread();
+			boundProfile.remove();
+		}
+	}
+
+	/**
+	 * Create a pool of threads for an algorithm. Each thread of the pool is
+	 * bound to the profile of the current thread while it runs, so that the
+	 * memory allocated by the pool is counted in the profile of the algorithm.
+	 * 
+	 * @param threadCount the number of threads
+	 * @return the pool
+	 */
+	public ForkJoinPool newForkJoinPool(int threadCount) {
+		final ExecutionProfile executionProfile = getProfile();
+		return new ForkJoinPool(threadCount, pool -> new ForkJoinWorkerThread(pool) {
+			@Override
+			protected void onStart() {
+				super.onStart();
+				bindCurrentThread(executionProfile);
+			}
+
+			@Override
+			protected void onTermination(Throwable exception) {
+				unbindCurrentThread();
+				super.onTermination(exception);
+			}
+		}, null, false);
 	}
 
 	/**
 	 * Check the current memory usage and record it if it is higher than the amount
-	 * of memory previously recorded.
+	 * of memory previously recorded. If the peak memory usage is obtained from the
+	 * garbage collections, the memory usage is only checked in recording mode.
 	 * 
-	 * @return the memory usage in megabytes
+	 * @return the memory usage in megabytes, or 0 if it is not checked
 	 */
 	public double checkMemory() {
-		double currentMemory = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024d / 1024d;
-		if (currentMemory > maxMemory) {
-			maxMemory = currentMemory;
+		if (gcNotificationsSupported && !recordingMode) {
+			return 0;
 		}
+		double currentMemory = getProfile().recordMemory();
 		// If the recording mode is on
+		if (recordingMode) {
+			writeValue(currentMemory);
+		}
+		return currentMemory;
+	}
+
+	/**
+	 * Write a memory usage value to the file of the recording mode
+	 * 
+	 * @param currentMemory the value
+	 */
+	private synchronized void writeValue(double currentMemory) {
 		if (recordingMode) {
 			// Try to write the current memory value to the file
 			try {
@@ -94,7 +203,6 @@ public class MemoryLogger {
 				e.printStackTrace();
 			}
 		}
-		return currentMemory;
 	}
 
 	/**
@@ -103,7 +211,7 @@ public class MemoryLogger {
 	 * @param mode     if true, recording mode is activated
 	 * @param fileName the path to a file for saving recorded values
 	 */
-	public void startRecordingMode(String fileName) {
+	public synchronized void startRecordingMode(String fileName) {
 		// Set the recording mode flag
 		recordingMode = true;
 		// Create a new file object with the given file name
@@ -120,7 +228,7 @@ public class MemoryLogger {
 	/**
 	 * A method to stop the recording mode and close the file
 	 */
-	public void stopRecordingMode() {
+	public synchronized void stopRecordingMode() {
 		// If the recording mode is on
 		if (recordingMode) {
 			// Try to close the buffered writer object
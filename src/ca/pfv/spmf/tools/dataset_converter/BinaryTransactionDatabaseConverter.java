@@ -0,0 +1,248 @@
+package ca.pfv.spmf.tools.dataset_converter;
+
+/* This file is copyright (c) 2008-2024 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabase;
+
+/**
+ * This class compiles a transaction database in SPMF text format into the
+ * binary columnar format read by {@link BinaryTransactionDatabase}. The
+ * conversion is done once, and the resulting file can then be given as input
+ * to the algorithms that support it, instead of the text file, to avoid parsing
+ * the text each time that an algorithm is run. <br/>
+ * <br/>
+ *
+ * The input can be a transaction database (e.g. "1 2 3"), a transaction
+ * database with utility values (e.g. "1 2 3:6:1 2 3") or a transaction
+ * database with utility values and timestamps (e.g. "1 2 3:6:1 2 3:4").
+ * Lines that are empty or start with "#", "%" or "@" are ignored. <br/>
+ * <br/>
+ *
+ * The input file is read a single time. Each section of the output file is
+ * first written to a temporary file in the output directory, and the sections
+ * are then concatenated after the header. Thus, the memory usage does not
+ * depend on the size of the database.
+ *
+ * @see BinaryTransactionDatabase
+ * @author Philippe Fournier-Viger
+ */
+public class BinaryTransactionDatabaseConverter {
+
+	/** the number of transactions written to the output file */
+	private int transactionCount = 0;
+
+	/** the total number of items written to the output file */
+	private long itemCount = 0;
+
+	/** the largest item */
+	private int maxItemID = 0;
+
+	/** the flags of the output file */
+	private int flags = 0;
+
+	/**
+	 * Convert a transaction database in SPMF format to the binary format.
+	 *
+	 * @param input  the path of the input file in SPMF format
+	 * @param output the path of the binary file to be written
+	 * @throws IOException if an error occurs while reading or writing files
+	 */
+	public void convert(String input, String output) throws IOException {
+		convert(input, output, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Convert a transaction database in SPMF format to the binary format.
+	 *
+	 * @param input                   the path of the input file in SPMF format
+	 * @param output                  the path of the binary file to be written
+	 * @param maximumTransactionCount the number of transactions from the input
+	 *                                file that should be converted
+	 * @throws IOException if an error occurs while reading or writing files
+	 */
+	public void convert(String input, String output, int maximumTransactionCount) throws IOException {
+		transactionCount = 0;
+		itemCount = 0;
+		maxItemID = 0;
+		flags = -1;
+
+		File outputFile = new File(output).getAbsoluteFile();
+		File directory = outputFile.getParentFile();
+
+		// temporary files for each section of the binary file
+		File offsetsFile = File.createTempFile("spmf_offsets", ".tmp", directory);
+		File itemsFile = File.createTempFile("spmf_items", ".tmp", directory);
+		File transactionUtilitiesFile = File.createTempFile("spmf_tu", ".tmp", directory);
+		File utilitiesFile = File.createTempFile("spmf_utilities", ".tmp", directory);
+		File timestampsFile = File.createTempFile("spmf_timestamps", ".tmp", directory);
+
+		try {
+			try (BufferedReader reader = new BufferedReader(new FileReader(input));
+					DataOutputStream offsets = open(offsetsFile);
+					DataOutputStream items = open(itemsFile);
+					DataOutputStream transactionUtilities = open(transactionUtilitiesFile);
+					DataOutputStream utilities = open(utilitiesFile);
+					DataOutputStream timestamps = open(timestampsFile)) {
+
+				// the first transaction starts at position 0
+				offsets.writeLong(0);
+
+				String line;
+				// for each line until the end of the file
+				while (transactionCount < maximumTransactionCount && (line = reader.readLine()) != null) {
+					// if the line is a comment, is empty or is metadata, skip it
+					if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
+							|| line.charAt(0) == '@') {
+						continue;
+					}
+					// split the line into sections according to the ":" separator
+					String[] sections = line.split(":");
+
+					// the flags are determined by the first transaction, and all the
+					// other transactions must have the same sections
+					int lineFlags = 0;
+					if (sections.length >= 3) {
+						lineFlags |= BinaryTransactionDatabase.FLAG_UTILITIES;
+					}
+					if (sections.length >= 4) {
+						lineFlags |= BinaryTransactionDatabase.FLAG_TIMESTAMPS;
+					}
+					if (flags == -1) {
+						flags = lineFlags;
+					} else if (flags != lineFlags) {
+						throw new IOException("Transaction " + (transactionCount + 1)
+								+ " does not have the same format as the first transaction: " + line);
+					}
+
+					// write the items
+					String[] itemsString = sections[0].split(" ");
+					for (String itemString : itemsString) {
+						int item = Integer.parseInt(itemString);
+						items.writeInt(item);
+						if (item > maxItemID) {
+							maxItemID = item;
+						}
+					}
+					itemCount += itemsString.length;
+					offsets.writeLong(itemCount);
+
+					// write the utilities
+					if ((flags & BinaryTransactionDatabase.FLAG_UTILITIES) != 0) {
+						transactionUtilities.writeInt(Integer.parseInt(sections[1]));
+						String[] utilitiesString = sections[2].split(" ");
+						if (utilitiesString.length != itemsString.length) {
+							throw new IOException("The number of items and utilities is not the same for transaction "
+									+ (transactionCount + 1) + ": " + line);
+						}
+						for (String utilityString : utilitiesString) {
+							utilities.writeInt(Integer.parseInt(utilityString));
+						}
+					}
+
+					// write the timestamp
+					if ((flags & BinaryTransactionDatabase.FLAG_TIMESTAMPS) != 0) {
+						timestamps.writeLong(Long.parseLong(sections[3]));
+					}
+					transactionCount++;
+				}
+			}
+			if (flags == -1) {
+				flags = 0;
+			}
+
+			// write the header followed by each section
+			try (FileOutputStream stream = new FileOutputStream(outputFile)) {
+				DataOutputStream header = new DataOutputStream(stream);
+				header.write(BinaryTransactionDatabase.MAGIC);
+				header.writeInt(BinaryTransactionDatabase.VERSION);
+				header.writeInt(flags);
+				header.writeInt(transactionCount);
+				header.writeInt(maxItemID);
+				header.writeLong(itemCount);
+				header.flush();
+
+				FileChannel channel = stream.getChannel();
+				append(channel, offsetsFile);
+				append(channel, itemsFile);
+				if ((flags & BinaryTransactionDatabase.FLAG_UTILITIES) != 0) {
+					append(channel, transactionUtilitiesFile);
+					append(channel, utilitiesFile);
+				}
+				if ((flags & BinaryTransactionDatabase.FLAG_TIMESTAMPS) != 0) {
+					append(channel, timestampsFile);
+				}
+			}
+		} finally {
+			offsetsFile.delete();
+			itemsFile.delete();
+			transactionUtilitiesFile.delete();
+			utilitiesFile.delete();
+			timestampsFile.delete();
+		}
+	}
+
+	/**
+	 * Open a temporary file for writing a section
+	 *
+	 * @param file the file
+	 * @return a stream to write to the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	private static DataOutputStream open(File file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+	}
+
+	/**
+	 * Append the content of a temporary file to the output file
+	 *
+	 * @param channel the channel of the output file
+	 * @param file    the temporary file
+	 * @throws IOException if an error occurs while copying the file
+	 */
+	private static void append(FileChannel channel, File file) throws IOException {
+		try (FileChannel source = new FileInputStream(file).getChannel()) {
+			long size = source.size();
+			long position = 0;
+			while (position < size) {
+				position += source.transferTo(position, size - position, channel);
+			}
+		}
+	}
+
+	/**
+	 * Print statistics about the latest conversion to System.out.
+	 */
+	public void printStats() {
+		System.out.println("=============  BINARY TRANSACTION DATABASE CONVERTER - STATS =============");
+		System.out.println(" Transaction count: " + transactionCount);
+		System.out.println(" Item count: " + itemCount);
+		System.out.println(" Largest item: " + maxItemID);
+		System.out.println(" Utilities: " + ((flags & BinaryTransactionDatabase.FLAG_UTILITIES) != 0));
+		System.out.println(" Timestamps: " + ((flags & BinaryTransactionDatabase.FLAG_TIMESTAMPS) != 0));
+		System.out.println("===========================================================================");
+	}
+}
@@ -37,6 +37,18 @@ import java.util.Set;
  */
 public class TransactionDatasetUtilityGenerator {
 	
+	/** the seed of the random number generator */
+	private long seed = System.currentTimeMillis();
+	
+	/**
+	 * Set the seed of the random number generator, so that the same utility
+	 * values are generated each time (e.g. for benchmarks)
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
 	/**
 	 * Convert a transaction database to a transaction database with utility values
 	 * from the source code.
@@ -54,7 +66,7 @@ public class TransactionDatasetUtilityGenerator {
 		long avglength =0;
 		long tidcount = 0;
 		
-		Random randomGenerator = new Random(System.currentTimeMillis());
+		Random randomGenerator = new Random(seed);
 		
 		Map<Integer, Integer> externalUtilities = new HashMap<Integer, Integer>();
 